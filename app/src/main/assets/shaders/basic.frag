@@ -0,0 +1,46 @@
+// 通用片元着色器
+// COLOR：逐顶点颜色  UNIFORM_COLOR：统一颜色  TEXTURE：纹理颜色乘以顶点颜色  STROKE：边缘羽化  SDF：纹理为距离场  POINT_SPRITE：圆形点  YUV：纹理为Y和色度平面
+#include "precision.glsl"
+#include "varyings.glsl"
+
+#ifdef UNIFORM_COLOR
+uniform vec4 vColor;
+#endif
+#ifdef TEXTURE
+uniform sampler2D vTexture;
+#endif
+#ifdef YUV
+// 色度平面，亮度和alpha通道是两个色度分量，先后顺序由矩阵的列决定
+uniform sampler2D vTextureUV;
+uniform mat3 vYuvMatrix;
+uniform vec3 vYuvOffset;
+#endif
+
+void main() {
+    vec4 color = vec4(1.0);
+#if defined(COLOR) || defined(UNIFORM_COLOR)
+    color = vColor;
+#endif
+#ifdef TEXTURE
+#ifdef SDF
+    // 距离场的0.5为字形边缘
+    float sdf = texture2D(vTexture, vTextureCoord).a;
+    color.a *= smoothstep(0.5 - vSdf, 0.5 + vSdf, sdf);
+#elif defined(YUV)
+    vec3 yuv = vec3(texture2D(vTexture, vTextureCoord).r, texture2D(vTextureUV, vTextureCoord).ra);
+    color = vec4(clamp(vYuvMatrix * (yuv - vYuvOffset), 0.0, 1.0), 1.0) * color;
+#else
+    color = texture2D(vTexture, vTextureCoord) * color;
+#endif
+#endif
+#ifdef STROKE
+    // 离外边界一个羽化宽度以内线性衰减
+    color.a *= clamp(vStroke.y - abs(vStroke.x), 0.0, 1.0);
+#endif
+#ifdef POINT_SPRITE
+    // 点内坐标0~1，圆外透明，边缘留一点过渡
+    float radius = length(gl_PointCoord - vec2(0.5));
+    color.a *= 1.0 - smoothstep(0.4, 0.5, radius);
+#endif
+    gl_FragColor = color;
+}
@@ -0,0 +1,48 @@
+// 通用顶点着色器
+// COLOR：逐顶点颜色  MVP：变换矩阵  TEXTURE：纹理坐标  STROKE：描边羽化  SDF：距离场平滑宽度  POINT_SPRITE：点的像素大小
+#include "varyings.glsl"
+
+attribute vec4 vPosition;
+#ifdef MVP
+uniform mat4 vMatrix;
+#endif
+#ifdef COLOR
+attribute vec4 aColor;
+#endif
+#ifdef TEXTURE
+attribute vec2 aTextureCoord;
+#endif
+#ifdef STROKE
+// x：到中心线的距离，y：羽化带的外边界，均以羽化宽度为单位
+attribute vec2 aStroke;
+#endif
+#ifdef SDF
+// 边缘两侧的平滑宽度，以距离场的取值为单位，随绘制尺寸变化
+attribute float aSdf;
+#endif
+#ifdef POINT_SPRITE
+uniform float vPointSize;
+#endif
+
+void main() {
+#ifdef MVP
+    gl_Position = vMatrix * vPosition;
+#else
+    gl_Position = vPosition;
+#endif
+#ifdef COLOR
+    vColor = aColor;
+#endif
+#ifdef TEXTURE
+    vTextureCoord = aTextureCoord;
+#endif
+#ifdef STROKE
+    vStroke = aStroke;
+#endif
+#ifdef SDF
+    vSdf = aSdf;
+#endif
+#ifdef POINT_SPRITE
+    gl_PointSize = vPointSize;
+#endif
+}
@@ -0,0 +1,2 @@
+// 片元着色器默认精度
+precision mediump float;
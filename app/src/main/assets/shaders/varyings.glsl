@@ -0,0 +1,13 @@
+// 顶点和片元着色器共用的varying，两边必须一致
+#ifdef COLOR
+varying vec4 vColor;
+#endif
+#ifdef TEXTURE
+varying vec2 vTextureCoord;
+#endif
+#ifdef STROKE
+varying vec2 vStroke;
+#endif
+#ifdef SDF
+varying float vSdf;
+#endif
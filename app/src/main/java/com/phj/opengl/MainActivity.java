@@ -3,11 +3,22 @@ package com.phj.opengl;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
 
+import com.phj.opengl.shape.trigger.TriggerGLSurfaceView;
+
 public class MainActivity extends AppCompatActivity {
 
+    private TriggerGLSurfaceView mGLSurfaceView;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
+        mGLSurfaceView = (TriggerGLSurfaceView) findViewById(R.id.gl_surface_view);
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        mGLSurfaceView.onTrimMemory(level);
     }
 }
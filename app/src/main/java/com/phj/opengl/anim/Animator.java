@@ -0,0 +1,406 @@
+package com.phj.opengl.anim;
+
+import java.util.Arrays;
+
+/**
+ * 描述：补间动画引擎，每帧把所有进行中的补间求值一次，结果直接写进目标float数组
+ * 每个补间把目标数组中从offset开始的components个float按关键帧插值，可用于{@link TransformArray}的各个分量、
+ * uniform数组或顶点数据。状态按字段分开存放在以槽位为下标的基本类型数组中，进行中的槽位放在紧凑的列表里，
+ * 关键帧数组按槽位复用，所以{@link #update(long)}不分配、不装箱；只有槽位或关键帧容量不够时创建补间才会扩容。
+ * 补间用int句柄表示，高位是槽位的代数，槽位复用后旧句柄自动失效。
+ * 设置frameRequester后，有补间进行时每帧都请求下一帧，全部结束后不再请求，适合RENDERMODE_WHEN_DIRTY。
+ * 所有方法都必须在同一个线程（GL线程）调用
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class Animator {
+
+    public static final int ONCE = 0;
+    public static final int LOOP = 1;
+    public static final int PINGPONG = 2;   // 正放、倒放交替
+
+    /**
+     * 无效句柄，可以安全地传给{@link #cancel(int)}
+     */
+    public static final int NO_HANDLE = -1;
+
+    public interface Listener {
+        /**
+         * 补间播放完毕（{@link #ONCE}），已写入最后一帧的值；取消的补间不回调
+         */
+        void onTweenEnd(int handle);
+    }
+
+    private static final int SLOT_BITS = 20;
+    private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+    private static final int GENERATION_MASK = (1 << (31 - SLOT_BITS)) - 1;
+    // 两帧间隔的上限，卡顿或切到后台后不一下跳到结尾
+    private static final float MAX_STEP = 0.25f;
+
+    private float[][] mTarget;
+    private int[] mOffset;
+    private int[] mComponents;
+    private float[][] mTimes;       // 关键帧时间（秒），第一个为0
+    private float[][] mValues;      // 关键帧的值，keyCount * components
+    private int[][] mEasings;       // 每段的缓动，keyCount - 1
+    private int[] mKeyCount;
+    private float[] mDelay;
+    private float[] mElapsed;
+    private int[] mRepeat;
+    private int[] mSegment;         // 上一帧所在的段，时间单调增加时不用重新查找
+    private int[] mGeneration;
+    private int[] mActiveIndex;     // 在mActive中的位置，空闲时为-1
+
+    private int[] mActive;
+    private int mActiveCount;
+    private int[] mFree;
+    private int mFreeCount;
+
+    private Listener mListener;
+    private Runnable mFrameRequester;
+    private long mLastNs;
+    private float mStep;            // update中本帧的时间步长，其余时候为0
+    private boolean mIdle = true;
+
+    public Animator(int capacity) {
+        grow(Math.max(1, capacity), 0);
+    }
+
+    public void setListener(Listener listener) {
+        this.mListener = listener;
+    }
+
+    /**
+     * 请求下一帧，例如调用GLSurfaceView#requestRender
+     */
+    public void setFrameRequester(Runnable frameRequester) {
+        this.mFrameRequester = frameRequester;
+    }
+
+    /**
+     * 从目标当前的值补间到end
+     *
+     * @param end 长度至少为components，内容会被复制，调用方可以复用
+     * @return 句柄
+     */
+    public int to(float[] target, int offset, int components, float[] end, float duration, int easing) {
+        checkRange(target, offset, components);
+        if (end.length < components) {
+            throw new IllegalArgumentException("end.length=" + end.length + " < components=" + components);
+        }
+        if (!(duration > 0)) {
+            throw new IllegalArgumentException("duration must be positive: " + duration);
+        }
+        checkEasing(easing);
+        int slot = obtain(target, offset, components, 2);
+        float[] times = mTimes[slot];
+        float[] values = mValues[slot];
+        times[0] = 0;
+        times[1] = duration;
+        System.arraycopy(target, offset, values, 0, components);
+        System.arraycopy(end, 0, values, components, components);
+        mEasings[slot][0] = easing;
+        return start(slot);
+    }
+
+    /**
+     * 按关键帧补间，开始时立即跳到第一帧的值
+     *
+     * @param times   递增的关键帧时间（秒），按第一个为0平移，至少两个
+     * @param values  times.length * components个值
+     * @param easings 每段的缓动，times.length - 1个，null时全部线性
+     * @return 句柄
+     */
+    public int keyframes(float[] target, int offset, int components, float[] times, float[] values, int[] easings) {
+        checkRange(target, offset, components);
+        int count = times.length;
+        if (count < 2) {
+            throw new IllegalArgumentException("need at least 2 keyframes, got " + count);
+        }
+        if (values.length < count * components) {
+            throw new IllegalArgumentException("values.length=" + values.length + " < " + count * components);
+        }
+        for (int i = 1; i < count; i++) {
+            if (!(times[i] > times[i - 1])) {
+                throw new IllegalArgumentException("times must be increasing at " + i);
+            }
+        }
+        if (easings != null) {
+            if (easings.length < count - 1) {
+                throw new IllegalArgumentException("easings.length=" + easings.length + " < " + (count - 1));
+            }
+            for (int i = 0; i < count - 1; i++) {
+                checkEasing(easings[i]);
+            }
+        }
+        int slot = obtain(target, offset, components, count);
+        float[] slotTimes = mTimes[slot];
+        for (int i = 0; i < count; i++) {
+            slotTimes[i] = times[i] - times[0];
+        }
+        System.arraycopy(values, 0, mValues[slot], 0, count * components);
+        if (easings != null) {
+            System.arraycopy(easings, 0, mEasings[slot], 0, count - 1);
+        } else {
+            Arrays.fill(mEasings[slot], 0, count - 1, Easing.LINEAR);
+        }
+        System.arraycopy(values, 0, target, offset, components);
+        return start(slot);
+    }
+
+    /**
+     * 补间transforms中第index个物体的一个分量
+     *
+     * @param track 如{@link TransformArray#SCALE}
+     */
+    public int to(TransformArray transforms, int index, int track, float[] end, float duration, int easing) {
+        int stride = TransformArray.getStride(track);
+        return to(transforms.getTrack(track), index * stride, stride, end, duration, easing);
+    }
+
+    /**
+     * 延迟开始，延迟期间不写入目标；只在刚创建时设置
+     */
+    public void setDelay(int handle, float seconds) {
+        int slot = slotOf(handle);
+        if (slot >= 0) {
+            mDelay[slot] = Math.max(0, seconds);
+        }
+    }
+
+    /**
+     * @param mode {@link #ONCE}、{@link #LOOP}或{@link #PINGPONG}，循环的补间不会结束，需要{@link #cancel(int)}
+     */
+    public void setRepeat(int handle, int mode) {
+        if (mode != ONCE && mode != LOOP && mode != PINGPONG) {
+            throw new IllegalArgumentException("unknown repeat mode: " + mode);
+        }
+        int slot = slotOf(handle);
+        if (slot >= 0) {
+            mRepeat[slot] = mode;
+        }
+    }
+
+    public boolean isRunning(int handle) {
+        return slotOf(handle) >= 0;
+    }
+
+    /**
+     * 停止补间，目标保持当前的值；已结束或无效的句柄忽略
+     */
+    public void cancel(int handle) {
+        int slot = slotOf(handle);
+        if (slot >= 0) {
+            release(slot);
+        }
+    }
+
+    /**
+     * 停止所有补间
+     */
+    public void cancelAll() {
+        while (mActiveCount > 0) {
+            release(mActive[mActiveCount - 1]);
+        }
+    }
+
+    public int getActiveCount() {
+        return mActiveCount;
+    }
+
+    /**
+     * 推进到nowNs并写入所有进行中补间的值，每帧绘制之前调用一次
+     * 从空闲开始的第一帧不推进时间，所以补间从创建后的第一帧开始计时
+     *
+     * @param nowNs 单调时钟，如System.nanoTime()
+     * @return 是否还有补间在进行
+     */
+    public boolean update(long nowNs) {
+        float dt = mIdle ? 0 : Math.min(MAX_STEP, Math.max(0, (nowNs - mLastNs) / 1e9f));
+        mLastNs = nowNs;
+        mStep = dt;
+        int i = 0;
+        while (i < mActiveCount) {
+            int slot = mActive[i];
+            if (advance(slot, dt)) {
+                i++;
+            } else {
+                int handle = handleOf(slot);
+                release(slot);
+                // release把最后一个换到了i，不前进
+                if (mListener != null) {
+                    mListener.onTweenEnd(handle);
+                }
+            }
+        }
+        mStep = 0;
+        mIdle = mActiveCount == 0;
+        if (!mIdle && mFrameRequester != null) {
+            mFrameRequester.run();
+        }
+        return !mIdle;
+    }
+
+    // 推进并写入，返回是否还要继续
+    private boolean advance(int slot, float dt) {
+        float elapsed = mElapsed[slot] + dt;
+        mElapsed[slot] = elapsed;
+        float t = elapsed - mDelay[slot];
+        if (t < 0) {
+            return true;
+        }
+        float[] times = mTimes[slot];
+        int last = mKeyCount[slot] - 1;
+        float duration = times[last];
+        boolean running = true;
+        switch (mRepeat[slot]) {
+            case LOOP:
+                t %= duration;
+                break;
+            case PINGPONG: {
+                t %= 2 * duration;
+                if (t > duration) {
+                    t = 2 * duration - t;
+                }
+                break;
+            }
+            default:
+                if (t >= duration) {
+                    t = duration;
+                    running = false;
+                }
+                break;
+        }
+        int segment = findSegment(times, last, mSegment[slot], t);
+        mSegment[slot] = segment;
+        float t0 = times[segment];
+        float u = (t - t0) / (times[segment + 1] - t0);
+        float e = Easing.apply(mEasings[slot][segment], u);
+        int components = mComponents[slot];
+        float[] values = mValues[slot];
+        float[] target = mTarget[slot];
+        int from = segment * components;
+        int to = from + components;
+        int offset = mOffset[slot];
+        for (int k = 0; k < components; k++) {
+            float a = values[from + k];
+            target[offset + k] = a + (values[to + k] - a) * e;
+        }
+        return running;
+    }
+
+    // 段segment满足times[segment] <= t <= times[segment + 1]，大多数帧与上一帧相同或是下一段
+    private static int findSegment(float[] times, int last, int segment, float t) {
+        if (t < times[segment]) {
+            segment = 0;
+        }
+        while (segment < last - 1 && t > times[segment + 1]) {
+            segment++;
+        }
+        return segment;
+    }
+
+    private int obtain(float[] target, int offset, int components, int keyCount) {
+        if (mFreeCount == 0) {
+            grow(mTarget.length * 2, mTarget.length);
+        }
+        int slot = mFree[--mFreeCount];
+        mTarget[slot] = target;
+        mOffset[slot] = offset;
+        mComponents[slot] = components;
+        mKeyCount[slot] = keyCount;
+        if (mTimes[slot] == null || mTimes[slot].length < keyCount) {
+            mTimes[slot] = new float[keyCount];
+            mEasings[slot] = new int[keyCount - 1];
+        }
+        if (mValues[slot] == null || mValues[slot].length < keyCount * components) {
+            mValues[slot] = new float[keyCount * components];
+        }
+        mDelay[slot] = 0;
+        // 在回调中创建的补间会在本帧剩下的循环里被推进，抵消掉这一步
+        mElapsed[slot] = -mStep;
+        mRepeat[slot] = ONCE;
+        mSegment[slot] = 0;
+        return slot;
+    }
+
+    private int start(int slot) {
+        mActiveIndex[slot] = mActiveCount;
+        mActive[mActiveCount++] = slot;
+        if (mIdle && mFrameRequester != null) {
+            // 空闲时没有帧在跑，需要主动请求
+            mFrameRequester.run();
+        }
+        return handleOf(slot);
+    }
+
+    private void release(int slot) {
+        int index = mActiveIndex[slot];
+        int moved = mActive[--mActiveCount];
+        mActive[index] = moved;
+        mActiveIndex[moved] = index;
+        mActiveIndex[slot] = -1;
+        mTarget[slot] = null;
+        mGeneration[slot] = (mGeneration[slot] + 1) & GENERATION_MASK;
+        mFree[mFreeCount++] = slot;
+    }
+
+    private int handleOf(int slot) {
+        return mGeneration[slot] << SLOT_BITS | slot;
+    }
+
+    // 进行中的补间返回槽位，否则返回-1
+    private int slotOf(int handle) {
+        if (handle < 0) {
+            return -1;
+        }
+        int slot = handle & SLOT_MASK;
+        if (slot >= mTarget.length || mActiveIndex[slot] < 0 || mGeneration[slot] != handle >>> SLOT_BITS) {
+            return -1;
+        }
+        return slot;
+    }
+
+    private void grow(int capacity, int old) {
+        if (capacity > SLOT_MASK + 1) {
+            throw new IllegalStateException("too many tweens: " + capacity);
+        }
+        mTarget = old == 0 ? new float[capacity][] : Arrays.copyOf(mTarget, capacity);
+        mTimes = old == 0 ? new float[capacity][] : Arrays.copyOf(mTimes, capacity);
+        mValues = old == 0 ? new float[capacity][] : Arrays.copyOf(mValues, capacity);
+        mEasings = old == 0 ? new int[capacity][] : Arrays.copyOf(mEasings, capacity);
+        mOffset = copyOf(mOffset, capacity);
+        mComponents = copyOf(mComponents, capacity);
+        mKeyCount = copyOf(mKeyCount, capacity);
+        mRepeat = copyOf(mRepeat, capacity);
+        mSegment = copyOf(mSegment, capacity);
+        mGeneration = copyOf(mGeneration, capacity);
+        mActive = copyOf(mActive, capacity);
+        mFree = copyOf(mFree, capacity);
+        mDelay = mDelay == null ? new float[capacity] : Arrays.copyOf(mDelay, capacity);
+        mElapsed = mElapsed == null ? new float[capacity] : Arrays.copyOf(mElapsed, capacity);
+        mActiveIndex = copyOf(mActiveIndex, capacity);
+        Arrays.fill(mActiveIndex, old, capacity, -1);
+        // 小的槽位先用
+        for (int slot = capacity - 1; slot >= old; slot--) {
+            mFree[mFreeCount++] = slot;
+        }
+    }
+
+    private static int[] copyOf(int[] array, int capacity) {
+        return array == null ? new int[capacity] : Arrays.copyOf(array, capacity);
+    }
+
+    private static void checkRange(float[] target, int offset, int components) {
+        if (components <= 0 || offset < 0 || offset + components > target.length) {
+            throw new IllegalArgumentException("bad range: offset=" + offset + " components=" + components
+                    + " length=" + target.length);
+        }
+    }
+
+    private static void checkEasing(int easing) {
+        if (easing < 0 || easing >= Easing.COUNT) {
+            throw new IllegalArgumentException("unknown easing: " + easing);
+        }
+    }
+}
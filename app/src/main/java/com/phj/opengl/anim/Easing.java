@@ -0,0 +1,84 @@
+package com.phj.opengl.anim;
+
+/**
+ * 描述：缓动曲线，用int常量而不是对象表示，逐帧求值时不分配、不走虚调用
+ * 输入为段内的归一化时间0~1，输出0~1（回弹类曲线会略微超出）
+ * Created by PHJ on 2026/10/19.
+ */
+
+public final class Easing {
+
+    public static final int LINEAR = 0;
+    public static final int STEP = 1;           // 段内保持起点的值，到终点时跳变
+    public static final int IN_QUAD = 2;
+    public static final int OUT_QUAD = 3;
+    public static final int IN_OUT_QUAD = 4;
+    public static final int IN_CUBIC = 5;
+    public static final int OUT_CUBIC = 6;
+    public static final int IN_OUT_CUBIC = 7;
+    public static final int IN_OUT_SINE = 8;
+    public static final int OUT_BACK = 9;       // 冲过终点再回来
+    public static final int OUT_BOUNCE = 10;
+
+    static final int COUNT = 11;
+
+    // OUT_BACK的过冲量，约10%
+    private static final float BACK = 1.70158f;
+
+    private Easing() {
+    }
+
+    public static float apply(int easing, float t) {
+        switch (easing) {
+            case LINEAR:
+                return t;
+            case STEP:
+                return t < 1 ? 0 : 1;
+            case IN_QUAD:
+                return t * t;
+            case OUT_QUAD:
+                return t * (2 - t);
+            case IN_OUT_QUAD:
+                return t < 0.5f ? 2 * t * t : -1 + (4 - 2 * t) * t;
+            case IN_CUBIC:
+                return t * t * t;
+            case OUT_CUBIC: {
+                float u = t - 1;
+                return u * u * u + 1;
+            }
+            case IN_OUT_CUBIC: {
+                if (t < 0.5f) {
+                    return 4 * t * t * t;
+                }
+                float u = 2 * t - 2;
+                return 0.5f * u * u * u + 1;
+            }
+            case IN_OUT_SINE:
+                return 0.5f - 0.5f * (float) Math.cos(Math.PI * t);
+            case OUT_BACK: {
+                float u = t - 1;
+                return u * u * ((BACK + 1) * u + BACK) + 1;
+            }
+            case OUT_BOUNCE:
+                return bounce(t);
+            default:
+                throw new IllegalArgumentException("unknown easing: " + easing);
+        }
+    }
+
+    private static float bounce(float t) {
+        if (t < 1 / 2.75f) {
+            return 7.5625f * t * t;
+        }
+        if (t < 2 / 2.75f) {
+            t -= 1.5f / 2.75f;
+            return 7.5625f * t * t + 0.75f;
+        }
+        if (t < 2.5f / 2.75f) {
+            t -= 2.25f / 2.75f;
+            return 7.5625f * t * t + 0.9375f;
+        }
+        t -= 2.625f / 2.75f;
+        return 7.5625f * t * t + 0.984375f;
+    }
+}
@@ -0,0 +1,139 @@
+package com.phj.opengl.anim;
+
+/**
+ * 描述：一组物体的变换和外观，按分量分开存放在连续的float数组中（SoA），供{@link Animator}直接写入
+ * 每个物体有位置、欧拉角旋转（度）、缩放、颜色RGBA和纹理坐标变换（xy为缩放，zw为偏移），
+ * 第i个物体的某个分量从数组的i*stride开始。模型矩阵按T*Rz*Ry*Rx*S组合，与android.opengl.Matrix一样按列存放
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class TransformArray {
+
+    public static final int POSITION = 0;
+    public static final int ROTATION = 1;
+    public static final int SCALE = 2;
+    public static final int COLOR = 3;
+    public static final int UV = 4;
+
+    private static final int[] STRIDES = {3, 3, 3, 4, 4};
+    private static final double DEG_TO_RAD = Math.PI / 180;
+
+    public final float[] position;
+    public final float[] rotation;
+    public final float[] scale;
+    public final float[] color;
+    public final float[] uv;
+    private final int mSize;
+
+    public TransformArray(int size) {
+        this.mSize = size;
+        this.position = new float[size * 3];
+        this.rotation = new float[size * 3];
+        this.scale = new float[size * 3];
+        this.color = new float[size * 4];
+        this.uv = new float[size * 4];
+        for (int i = 0; i < size; i++) {
+            reset(i);
+        }
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * 恢复为原点、无旋转、缩放1、白色、纹理坐标不变换
+     */
+    public void reset(int index) {
+        int i3 = index * 3;
+        int i4 = index * 4;
+        for (int k = 0; k < 3; k++) {
+            position[i3 + k] = 0;
+            rotation[i3 + k] = 0;
+            scale[i3 + k] = 1;
+        }
+        for (int k = 0; k < 4; k++) {
+            color[i4 + k] = 1;
+        }
+        uv[i4] = 1;
+        uv[i4 + 1] = 1;
+        uv[i4 + 2] = 0;
+        uv[i4 + 3] = 0;
+    }
+
+    /**
+     * 分量所在的数组
+     *
+     * @param track {@link #POSITION}、{@link #ROTATION}、{@link #SCALE}、{@link #COLOR}或{@link #UV}
+     */
+    public float[] getTrack(int track) {
+        switch (track) {
+            case POSITION:
+                return position;
+            case ROTATION:
+                return rotation;
+            case SCALE:
+                return scale;
+            case COLOR:
+                return color;
+            case UV:
+                return uv;
+            default:
+                throw new IllegalArgumentException("unknown track: " + track);
+        }
+    }
+
+    /**
+     * 分量的float个数，位置、旋转、缩放为3，颜色和纹理坐标变换为4
+     */
+    public static int getStride(int track) {
+        if (track < 0 || track >= STRIDES.length) {
+            throw new IllegalArgumentException("unknown track: " + track);
+        }
+        return STRIDES[track];
+    }
+
+    public void set(int track, int index, float x, float y, float z) {
+        float[] values = getTrack(track);
+        int off = index * getStride(track);
+        values[off] = x;
+        values[off + 1] = y;
+        values[off + 2] = z;
+    }
+
+    /**
+     * 第index个物体的模型矩阵，不分配
+     */
+    public void getModelMatrix(int index, float[] out, int offset) {
+        int i3 = index * 3;
+        double ax = rotation[i3] * DEG_TO_RAD;
+        double ay = rotation[i3 + 1] * DEG_TO_RAD;
+        double az = rotation[i3 + 2] * DEG_TO_RAD;
+        float cx = (float) Math.cos(ax);
+        float sx = (float) Math.sin(ax);
+        float cy = (float) Math.cos(ay);
+        float sy = (float) Math.sin(ay);
+        float cz = (float) Math.cos(az);
+        float sz = (float) Math.sin(az);
+        float kx = scale[i3];
+        float ky = scale[i3 + 1];
+        float kz = scale[i3 + 2];
+        // R = Rz * Ry * Rx，第j列乘以第j个缩放
+        out[offset] = cz * cy * kx;
+        out[offset + 1] = sz * cy * kx;
+        out[offset + 2] = -sy * kx;
+        out[offset + 3] = 0;
+        out[offset + 4] = (cz * sy * sx - sz * cx) * ky;
+        out[offset + 5] = (sz * sy * sx + cz * cx) * ky;
+        out[offset + 6] = cy * sx * ky;
+        out[offset + 7] = 0;
+        out[offset + 8] = (cz * sy * cx + sz * sx) * kz;
+        out[offset + 9] = (sz * sy * cx - cz * sx) * kz;
+        out[offset + 10] = cy * cx * kz;
+        out[offset + 11] = 0;
+        out[offset + 12] = position[i3];
+        out[offset + 13] = position[i3 + 1];
+        out[offset + 14] = position[i3 + 2];
+        out[offset + 15] = 1;
+    }
+}
@@ -0,0 +1,88 @@
+package com.phj.opengl.concurrent;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * 描述：把[0, count)切成互不重叠的连续区间并行执行，等待全部完成后返回
+ * 第一个区间在调用线程上执行，其余提交到线程池；线程池为null或只有一个区间时全部在调用线程执行。
+ * 每次调用只分配与区间数成正比的少量调度对象。
+ * 任务抛出的异常原样抛给调用方，失败或被中断时取消还没开始的区间
+ * Created by PHJ on 2026/10/19.
+ */
+
+public final class ParallelRange {
+
+    /**
+     * @param <E> 任务可能抛出的受检异常，不抛出时用RuntimeException
+     */
+    public interface Task<E extends Exception> {
+        void run(int from, int to) throws E;
+    }
+
+    private ParallelRange() {
+    }
+
+    /**
+     * @param executor 线程池，为null时在调用线程执行
+     * @param count    区间总长度
+     * @param tasks    最多切分的区间数，实际不超过count
+     */
+    public static <E extends Exception> void run(ExecutorService executor, int count, int tasks,
+                                                 final Task<E> task) throws E {
+        tasks = Math.min(tasks, count);
+        if (executor == null || tasks <= 1) {
+            if (count > 0) {
+                task.run(0, count);
+            }
+            return;
+        }
+        int perTask = (count + tasks - 1) / tasks;
+        ArrayList<Future<Void>> futures = new ArrayList<>(tasks - 1);
+        boolean done = false;
+        try {
+            for (int start = perTask; start < count; start += perTask) {
+                final int from = start;
+                final int to = Math.min(count, start + perTask);
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws E {
+                        task.run(from, to);
+                        return null;
+                    }
+                }));
+            }
+            task.run(0, perTask);
+            for (int i = 0; i < futures.size(); i++) {
+                futures.get(i).get();
+            }
+            done = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted", e);
+        } catch (ExecutionException e) {
+            throw ParallelRange.<E>rethrow(e.getCause());
+        } finally {
+            if (!done) {
+                for (int i = 0; i < futures.size(); i++) {
+                    futures.get(i).cancel(false);
+                }
+            }
+        }
+    }
+
+    // 只有任务声明的受检异常和非受检异常会从Callable中抛出
+    @SuppressWarnings("unchecked")
+    private static <E extends Exception> E rethrow(Throwable cause) throws E {
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        throw (E) cause;
+    }
+}
@@ -0,0 +1,35 @@
+package com.phj.opengl.fbo;
+
+/**
+ * 描述：两个同规格渲染目标交替读写，用于多pass后处理
+ * 每个pass从{@link #getSource()}采样，写入{@link #getTarget()}，结束后{@link #swap()}
+ * Created by PHJ on 2026/10/18.
+ */
+
+public class PingPong {
+
+    private RenderTarget mSource;
+    private RenderTarget mTarget;
+
+    PingPong(RenderTarget source, RenderTarget target) {
+        this.mSource = source;
+        this.mTarget = target;
+    }
+
+    // 本pass读取的目标，即上一个pass的输出
+    public RenderTarget getSource() {
+        return mSource;
+    }
+
+    // 本pass写入的目标
+    public RenderTarget getTarget() {
+        return mTarget;
+    }
+
+    // 交换读写，上一个pass的输出成为下一个pass的输入
+    public void swap() {
+        RenderTarget tmp = mSource;
+        mSource = mTarget;
+        mTarget = tmp;
+    }
+}
@@ -0,0 +1,91 @@
+package com.phj.opengl.fbo;
+
+import com.phj.opengl.gl.GpuMemoryAccountant;
+
+/**
+ * 描述：离屏渲染目标，一个FBO + 一张颜色纹理（可选深度renderbuffer），由{@link RenderTargetPool}创建和回收
+ * Created by PHJ on 2026/10/18.
+ */
+
+public class RenderTarget {
+
+    final long key;            // 池中的分组key：尺寸 + 格式
+    final int framebufferId;   // FBO
+    final int textureId;       // 颜色附件纹理
+    final int depthBufferId;   // 深度附件，没有时为0
+    final int width;
+    final int height;
+    final int format;          // 纹理格式，如GL_RGBA
+    final int type;            // 纹理数据类型，如GL_UNSIGNED_BYTE
+    final long sizeInBytes;    // 估算的显存占用
+
+    int lastUsedFrame;         // 最近一次被取出或归还的帧号
+    boolean inUse;
+
+    RenderTarget(long key, int framebufferId, int textureId, int depthBufferId,
+                 int width, int height, int format, int type) {
+        this.key = key;
+        this.framebufferId = framebufferId;
+        this.textureId = textureId;
+        this.depthBufferId = depthBufferId;
+        this.width = width;
+        this.height = height;
+        this.format = format;
+        this.type = type;
+        this.sizeInBytes = estimateBytes(width, height, format, type, depthBufferId != 0);
+    }
+
+    public int getFramebufferId() {
+        return framebufferId;
+    }
+
+    public int getTextureId() {
+        return textureId;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getFormat() {
+        return format;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public boolean hasDepth() {
+        return depthBufferId != 0;
+    }
+
+    /**
+     * 该目标占用的显存估算值，颜色纹理 + 深度缓冲
+     */
+    public long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    /**
+     * 估算显存占用
+     *
+     * @param format 纹理格式
+     * @param type   数据类型
+     * @param depth  是否带16位深度缓冲
+     * @return 字节数
+     */
+    public static long estimateBytes(int width, int height, int format, int type, boolean depth) {
+        long texels = (long) width * height;
+        return texels * GpuMemoryAccountant.bytesPerTexel(format, type) + (depth ? texels * 2 : 0);
+    }
+
+    @Override
+    public String toString() {
+        return "RenderTarget{fbo=" + framebufferId + ", tex=" + textureId + ", " + width + "x" + height
+                + ", bytes=" + sizeInBytes + ", inUse=" + inUse + "}";
+    }
+}
@@ -0,0 +1,327 @@
+package com.phj.opengl.fbo;
+
+import android.opengl.GLES20;
+import android.util.Log;
+
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.gl.GpuMemoryAccountant;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+
+/**
+ * 描述：FBO + 纹理渲染目标池
+ * 按尺寸和格式分组复用，避免开关特效时反复glGenFramebuffers/glTexImage2D；
+ * 空闲超过maxIdleFrames帧的目标会被释放，总显存超过预算时优先释放最久未用的空闲目标。
+ * 所有方法都必须在GL线程调用。
+ * Created by PHJ on 2026/10/18.
+ */
+
+public class RenderTargetPool {
+
+    private final static String TAG = RenderTargetPool.class.getSimpleName();
+
+    private final GLApi mGL;
+    private final int mMaxIdleFrames;   // 空闲多少帧后释放
+    private long mBudgetBytes;          // 显存预算，<=0表示不限制
+
+    private final HashMap<Long, ArrayDeque<RenderTarget>> mFree = new HashMap<>();
+    private final ArrayList<RenderTarget> mAll = new ArrayList<>();
+    private final int[] mIds = new int[1];
+    private GpuMemoryAccountant mAccountant;
+
+    private int mFrame;
+    private long mAllocatedBytes;
+
+    /**
+     * @param gl            GL接口
+     * @param maxIdleFrames 空闲目标保留的帧数
+     * @param budgetBytes   池内目标的显存上限，<=0表示不限制
+     */
+    public RenderTargetPool(GLApi gl, int maxIdleFrames, long budgetBytes) {
+        this.mGL = gl;
+        this.mMaxIdleFrames = maxIdleFrames;
+        this.mBudgetBytes = budgetBytes;
+    }
+
+    /**
+     * 把池内目标的显存记入全局账目，类别为{@link GpuMemoryAccountant#RENDER_TARGET}
+     */
+    public void setMemoryAccountant(GpuMemoryAccountant accountant) {
+        for (int i = 0; i < mAll.size(); i++) {
+            if (mAccountant != null) {
+                mAccountant.free(GpuMemoryAccountant.RENDER_TARGET, mAll.get(i).sizeInBytes);
+            }
+            if (accountant != null) {
+                accountant.allocate(GpuMemoryAccountant.RENDER_TARGET, mAll.get(i).sizeInBytes);
+            }
+        }
+        this.mAccountant = accountant;
+    }
+
+    /**
+     * 取出一个RGBA8、不带深度的渲染目标
+     */
+    public RenderTarget obtain(int width, int height) {
+        return obtain(width, height, GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, false);
+    }
+
+    /**
+     * 取出一个渲染目标，有同规格的空闲目标时直接复用
+     *
+     * @param format 纹理格式，如GL_RGBA、GL_RGB
+     * @param type   数据类型，如GL_UNSIGNED_BYTE、GL_UNSIGNED_SHORT_5_6_5
+     * @param depth  是否附加16位深度缓冲
+     * @return 渲染目标，FBO不完整时返回null
+     */
+    public RenderTarget obtain(int width, int height, int format, int type, boolean depth) {
+        long key = makeKey(width, height, format, type, depth);
+        ArrayDeque<RenderTarget> free = mFree.get(key);
+        RenderTarget target = free == null ? null : free.pollFirst();
+        if (target == null) {
+            long size = RenderTarget.estimateBytes(width, height, format, type, depth);
+            trimToBudget(size);
+            target = create(key, width, height, format, type, depth);
+            if (target == null) {
+                return null;
+            }
+            mAll.add(target);
+            mAllocatedBytes += target.sizeInBytes;
+            if (mAccountant != null) {
+                mAccountant.allocate(GpuMemoryAccountant.RENDER_TARGET, target.sizeInBytes);
+            }
+            if (mBudgetBytes > 0 && mAllocatedBytes > mBudgetBytes) {
+                Log.w(TAG, "obtain: over budget, allocated=" + mAllocatedBytes + " budget=" + mBudgetBytes);
+            }
+        }
+        target.inUse = true;
+        target.lastUsedFrame = mFrame;
+        return target;
+    }
+
+    /**
+     * 取出一对同规格的渲染目标用于多pass交替读写
+     */
+    public PingPong obtainPingPong(int width, int height, int format, int type, boolean depth) {
+        RenderTarget a = obtain(width, height, format, type, depth);
+        if (a == null) {
+            return null;
+        }
+        RenderTarget b = obtain(width, height, format, type, depth);
+        if (b == null) {
+            release(a);
+            return null;
+        }
+        return new PingPong(a, b);
+    }
+
+    /**
+     * 归还渲染目标，之后可以被同规格的请求复用
+     */
+    public void release(RenderTarget target) {
+        if (target == null || !target.inUse) {
+            return;
+        }
+        target.inUse = false;
+        target.lastUsedFrame = mFrame;
+        ArrayDeque<RenderTarget> free = mFree.get(target.key);
+        if (free == null) {
+            free = new ArrayDeque<>();
+            mFree.put(target.key, free);
+        }
+        // 最近归还的放在队头，优先复用，队尾的更容易因空闲被释放
+        free.addFirst(target);
+    }
+
+    public void release(PingPong pingPong) {
+        if (pingPong == null) {
+            return;
+        }
+        release(pingPong.getSource());
+        release(pingPong.getTarget());
+    }
+
+    /**
+     * 每帧结束时调用，推进帧号并释放空闲太久的目标
+     */
+    public void onFrameEnd() {
+        mFrame++;
+        Iterator<ArrayDeque<RenderTarget>> groups = mFree.values().iterator();
+        while (groups.hasNext()) {
+            ArrayDeque<RenderTarget> free = groups.next();
+            while (!free.isEmpty() && mFrame - free.peekLast().lastUsedFrame > mMaxIdleFrames) {
+                destroy(free.pollLast());
+            }
+            if (free.isEmpty()) {
+                groups.remove();
+            }
+        }
+    }
+
+    /**
+     * 调整显存预算，立即释放超出部分的空闲目标
+     */
+    public void setBudgetBytes(long budgetBytes) {
+        this.mBudgetBytes = budgetBytes;
+        trimToBudget(0);
+    }
+
+    public long getBudgetBytes() {
+        return mBudgetBytes;
+    }
+
+    // 池内所有目标（使用中+空闲）的显存估算
+    public long getAllocatedBytes() {
+        return mAllocatedBytes;
+    }
+
+    public int getTargetCount() {
+        return mAll.size();
+    }
+
+    public int getFreeCount() {
+        int count = 0;
+        for (ArrayDeque<RenderTarget> free : mFree.values()) {
+            count += free.size();
+        }
+        return count;
+    }
+
+    /**
+     * 释放所有空闲目标，例如收到onTrimMemory时
+     */
+    public void trimFree() {
+        for (ArrayDeque<RenderTarget> free : mFree.values()) {
+            while (!free.isEmpty()) {
+                destroy(free.pollFirst());
+            }
+        }
+        mFree.clear();
+    }
+
+    /**
+     * 删除池内所有GL对象，包括仍在使用中的目标，渲染器销毁时调用
+     */
+    public void releaseAll() {
+        for (int i = mAll.size() - 1; i >= 0; i--) {
+            deleteGLObjects(mAll.get(i));
+        }
+        clear();
+    }
+
+    /**
+     * EGL上下文丢失后调用，旧的GL对象已随上下文失效，只清空记录不再调用glDelete
+     */
+    public void onContextLost() {
+        clear();
+    }
+
+    private void clear() {
+        if (mAccountant != null) {
+            for (int i = 0; i < mAll.size(); i++) {
+                mAccountant.free(GpuMemoryAccountant.RENDER_TARGET, mAll.get(i).sizeInBytes);
+            }
+        }
+        mAll.clear();
+        mFree.clear();
+        mAllocatedBytes = 0;
+    }
+
+    // 新分配needBytes前，按最久未使用的顺序释放空闲目标直到不超预算
+    private void trimToBudget(long needBytes) {
+        if (mBudgetBytes <= 0) {
+            return;
+        }
+        while (mAllocatedBytes + needBytes > mBudgetBytes) {
+            RenderTarget oldest = null;
+            for (ArrayDeque<RenderTarget> free : mFree.values()) {
+                RenderTarget last = free.peekLast();
+                if (last != null && (oldest == null || last.lastUsedFrame < oldest.lastUsedFrame)) {
+                    oldest = last;
+                }
+            }
+            if (oldest == null) {
+                return; // 剩下的都在使用中
+            }
+            ArrayDeque<RenderTarget> free = mFree.get(oldest.key);
+            free.pollLast();
+            if (free.isEmpty()) {
+                mFree.remove(oldest.key);
+            }
+            destroy(oldest);
+        }
+    }
+
+    private RenderTarget create(long key, int width, int height, int format, int type, boolean depth) {
+        mGL.glGenTextures(1, mIds, 0);
+        int texture = mIds[0];
+        mGL.glBindTexture(GLES20.GL_TEXTURE_2D, texture);
+        mGL.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MAG_FILTER, GLES20.GL_LINEAR);
+        mGL.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MIN_FILTER, GLES20.GL_LINEAR);
+        // 非2的幂尺寸在GLES2下只能用CLAMP_TO_EDGE
+        mGL.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_S, GLES20.GL_CLAMP_TO_EDGE);
+        mGL.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_T, GLES20.GL_CLAMP_TO_EDGE);
+        mGL.glTexImage2D(GLES20.GL_TEXTURE_2D, 0, format, width, height, 0, format, type, null);
+        mGL.glBindTexture(GLES20.GL_TEXTURE_2D, 0);
+
+        int depthBuffer = 0;
+        if (depth) {
+            mGL.glGenRenderbuffers(1, mIds, 0);
+            depthBuffer = mIds[0];
+            mGL.glBindRenderbuffer(GLES20.GL_RENDERBUFFER, depthBuffer);
+            mGL.glRenderbufferStorage(GLES20.GL_RENDERBUFFER, GLES20.GL_DEPTH_COMPONENT16, width, height);
+            mGL.glBindRenderbuffer(GLES20.GL_RENDERBUFFER, 0);
+        }
+
+        mGL.glGenFramebuffers(1, mIds, 0);
+        int framebuffer = mIds[0];
+        mGL.glBindFramebuffer(GLES20.GL_FRAMEBUFFER, framebuffer);
+        mGL.glFramebufferTexture2D(GLES20.GL_FRAMEBUFFER, GLES20.GL_COLOR_ATTACHMENT0,
+                GLES20.GL_TEXTURE_2D, texture, 0);
+        if (depth) {
+            mGL.glFramebufferRenderbuffer(GLES20.GL_FRAMEBUFFER, GLES20.GL_DEPTH_ATTACHMENT,
+                    GLES20.GL_RENDERBUFFER, depthBuffer);
+        }
+        int status = mGL.glCheckFramebufferStatus(GLES20.GL_FRAMEBUFFER);
+        mGL.glBindFramebuffer(GLES20.GL_FRAMEBUFFER, 0);
+
+        RenderTarget target = new RenderTarget(key, framebuffer, texture, depthBuffer, width, height, format, type);
+        if (status != GLES20.GL_FRAMEBUFFER_COMPLETE) {
+            Log.e(TAG, "create: glCheckFramebufferStatus=" + status + " " + target);
+            deleteGLObjects(target);
+            return null;
+        }
+        return target;
+    }
+
+    private void destroy(RenderTarget target) {
+        deleteGLObjects(target);
+        mAll.remove(target);
+        mAllocatedBytes -= target.sizeInBytes;
+        if (mAccountant != null) {
+            mAccountant.free(GpuMemoryAccountant.RENDER_TARGET, target.sizeInBytes);
+        }
+    }
+
+    private void deleteGLObjects(RenderTarget target) {
+        mIds[0] = target.framebufferId;
+        mGL.glDeleteFramebuffers(1, mIds, 0);
+        mIds[0] = target.textureId;
+        mGL.glDeleteTextures(1, mIds, 0);
+        if (target.depthBufferId != 0) {
+            mIds[0] = target.depthBufferId;
+            mGL.glDeleteRenderbuffers(1, mIds, 0);
+        }
+    }
+
+    // 宽高各16位，格式取低15位，类型取低16位，最低位为深度标记
+    static long makeKey(int width, int height, int format, int type, boolean depth) {
+        return ((long) (width & 0xFFFF) << 48)
+                | ((long) (height & 0xFFFF) << 32)
+                | ((long) (format & 0x7FFF) << 17)
+                | ((long) (type & 0xFFFF) << 1)
+                | (depth ? 1 : 0);
+    }
+}
@@ -0,0 +1,58 @@
+package com.phj.opengl.filter;
+
+import com.phj.opengl.gl.GLApi;
+
+/**
+ * 描述：3x3高斯模糊，radius为采样间隔的像素数
+ * 需要读取相邻像素，会单独占用一个pass，后面的点操作滤镜融合在同一个pass里
+ * Created by PHJ on 2026/10/18.
+ */
+
+public class BlurFilter extends ImageFilter {
+
+    private float mRadius;
+    private int mRadiusLocation;
+
+    public BlurFilter(float radius) {
+        this.mRadius = radius;
+    }
+
+    public void setRadius(float radius) {
+        mRadius = radius;
+        notifyChanged();
+    }
+
+    @Override
+    public boolean isPointwise() {
+        return false;
+    }
+
+    @Override
+    protected String getDeclarations() {
+        return "uniform float blurRadius$;\n";
+    }
+
+    @Override
+    protected String getSampleCode() {
+        return "vec2 step$ = texelSize * blurRadius$;\n" +
+                "color = texture2D(inputImageTexture, uv) * 0.25;\n" +
+                "color += texture2D(inputImageTexture, uv + vec2(-step$.x, 0.0)) * 0.125;\n" +
+                "color += texture2D(inputImageTexture, uv + vec2(step$.x, 0.0)) * 0.125;\n" +
+                "color += texture2D(inputImageTexture, uv + vec2(0.0, -step$.y)) * 0.125;\n" +
+                "color += texture2D(inputImageTexture, uv + vec2(0.0, step$.y)) * 0.125;\n" +
+                "color += texture2D(inputImageTexture, uv - step$) * 0.0625;\n" +
+                "color += texture2D(inputImageTexture, uv + step$) * 0.0625;\n" +
+                "color += texture2D(inputImageTexture, uv + vec2(-step$.x, step$.y)) * 0.0625;\n" +
+                "color += texture2D(inputImageTexture, uv + vec2(step$.x, -step$.y)) * 0.0625;\n";
+    }
+
+    @Override
+    protected void onProgramReady(GLApi gl, int program, String suffix) {
+        mRadiusLocation = gl.glGetUniformLocation(program, "blurRadius" + suffix);
+    }
+
+    @Override
+    protected void onDraw(GLApi gl, int textureUnit) {
+        gl.glUniform1f(mRadiusLocation, mRadius);
+    }
+}
@@ -0,0 +1,48 @@
+package com.phj.opengl.filter;
+
+import com.phj.opengl.gl.GLApi;
+
+/**
+ * 描述：亮度，-1.0 ~ 1.0，0为原图
+ * Created by PHJ on 2026/10/18.
+ */
+
+public class BrightnessFilter extends ImageFilter {
+
+    private float mBrightness;
+    private int mBrightnessLocation;
+
+    public BrightnessFilter(float brightness) {
+        this.mBrightness = brightness;
+    }
+
+    public void setBrightness(float brightness) {
+        mBrightness = brightness;
+        notifyChanged();
+    }
+
+    @Override
+    public boolean isPointwise() {
+        return true;
+    }
+
+    @Override
+    protected String getDeclarations() {
+        return "uniform float brightness$;\n";
+    }
+
+    @Override
+    protected String getApplyCode() {
+        return "color.rgb = clamp(color.rgb + vec3(brightness$), 0.0, 1.0);\n";
+    }
+
+    @Override
+    protected void onProgramReady(GLApi gl, int program, String suffix) {
+        mBrightnessLocation = gl.glGetUniformLocation(program, "brightness" + suffix);
+    }
+
+    @Override
+    protected void onDraw(GLApi gl, int textureUnit) {
+        gl.glUniform1f(mBrightnessLocation, mBrightness);
+    }
+}
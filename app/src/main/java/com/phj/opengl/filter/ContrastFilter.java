@@ -0,0 +1,48 @@
+package com.phj.opengl.filter;
+
+import com.phj.opengl.gl.GLApi;
+
+/**
+ * 描述：对比度，0.0 ~ 4.0，1为原图
+ * Created by PHJ on 2026/10/18.
+ */
+
+public class ContrastFilter extends ImageFilter {
+
+    private float mContrast;
+    private int mContrastLocation;
+
+    public ContrastFilter(float contrast) {
+        this.mContrast = contrast;
+    }
+
+    public void setContrast(float contrast) {
+        mContrast = contrast;
+        notifyChanged();
+    }
+
+    @Override
+    public boolean isPointwise() {
+        return true;
+    }
+
+    @Override
+    protected String getDeclarations() {
+        return "uniform float contrast$;\n";
+    }
+
+    @Override
+    protected String getApplyCode() {
+        return "color.rgb = clamp((color.rgb - vec3(0.5)) * contrast$ + vec3(0.5), 0.0, 1.0);\n";
+    }
+
+    @Override
+    protected void onProgramReady(GLApi gl, int program, String suffix) {
+        mContrastLocation = gl.glGetUniformLocation(program, "contrast" + suffix);
+    }
+
+    @Override
+    protected void onDraw(GLApi gl, int textureUnit) {
+        gl.glUniform1f(mContrastLocation, mContrast);
+    }
+}
@@ -0,0 +1,273 @@
+package com.phj.opengl.filter;
+
+import android.opengl.GLES20;
+
+import com.phj.opengl.fbo.PingPong;
+import com.phj.opengl.fbo.RenderTarget;
+import com.phj.opengl.fbo.RenderTargetPool;
+import com.phj.opengl.gl.GLApi;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 描述：滤镜链
+ * 连续的点操作滤镜融合进同一个片元着色器，只有邻域采样滤镜（模糊、锐化）才会切分出新的pass，
+ * 例如 亮度→对比度→模糊→暗角 只需要两个pass：[亮度+对比度]、[模糊+暗角]。
+ * 输入和滤镜参数都没有变化时直接返回上一次的结果，不会重复渲染。
+ * 所有方法都必须在GL线程调用。
+ * Created by PHJ on 2026/10/18.
+ */
+
+public class FilterChain {
+
+    // 全屏矩形，GL_TRIANGLE_STRIP
+    private static final float CUBE[] = {
+            -1.0f, -1.0f, // v1
+            1.0f, -1.0f,  // v2
+            -1.0f, 1.0f,  // v3
+            1.0f, 1.0f,   // v4
+    };
+
+    // 纹理坐标与顶点一一对应，输出纹理的行顺序与输入一致，可以直接用同样的纹理坐标绘制结果
+    private static final float TEXTURE_COORDS[] = {
+            0.0f, 0.0f, // v1
+            1.0f, 0.0f, // v2
+            0.0f, 1.0f, // v3
+            1.0f, 1.0f, // v4
+    };
+
+    private final GLApi mGL;
+    private final RenderTargetPool mPool;
+    private final FilterProgramCache mCache;
+
+    private final ArrayList<ImageFilter> mFilters = new ArrayList<>();
+    private final ArrayList<Pass> mPasses = new ArrayList<>();
+    private boolean mStructureChanged = true;
+
+    private final FloatBuffer mCubeBuffer = initBuffer(CUBE);
+    private final FloatBuffer mTextureBuffer = initBuffer(TEXTURE_COORDS);
+
+    private RenderTarget mOutput;     // 上一次的结果，持有到下一次渲染或release
+    private int mLastInputTexture;
+    private int mLastWidth;
+    private int mLastHeight;
+
+    public FilterChain(GLApi gl, RenderTargetPool pool, FilterProgramCache cache) {
+        this.mGL = gl;
+        this.mPool = pool;
+        this.mCache = cache;
+    }
+
+    public void addFilter(ImageFilter filter) {
+        mFilters.add(filter);
+        mStructureChanged = true;
+    }
+
+    public void removeFilter(ImageFilter filter) {
+        if (mFilters.remove(filter)) {
+            mStructureChanged = true;
+        }
+    }
+
+    public void clearFilters() {
+        mFilters.clear();
+        mStructureChanged = true;
+    }
+
+    public List<ImageFilter> getFilters() {
+        return mFilters;
+    }
+
+    public boolean isEmpty() {
+        return mFilters.isEmpty();
+    }
+
+    /**
+     * 当前滤镜链需要的pass数
+     */
+    public int getPassCount() {
+        buildPasses();
+        return mPasses.size();
+    }
+
+    /**
+     * 对输入纹理应用滤镜链
+     * 调用后绑定的帧缓冲为0，视口为最后一个pass的尺寸，调用方需要自己恢复视口
+     *
+     * @param inputTexture 输入纹理，行顺序与Bitmap一致
+     * @return 结果纹理，没有滤镜时直接返回inputTexture；结果在下一次apply或release之前有效
+     */
+    public int apply(int inputTexture, int width, int height) {
+        boolean structureChanged = buildPasses();
+        if (mPasses.isEmpty()) {
+            releaseOutput();
+            return inputTexture;
+        }
+        boolean changed = structureChanged || mOutput == null
+                || inputTexture != mLastInputTexture || width != mLastWidth || height != mLastHeight;
+        for (int i = 0; i < mFilters.size(); i++) {
+            // 每个滤镜的标记都要清掉，不能短路
+            changed |= mFilters.get(i).consumeChanged();
+        }
+        if (!changed) {
+            return mOutput.getTextureId();
+        }
+        releaseOutput();
+
+        RenderTarget output;
+        if (mPasses.size() == 1) {
+            output = mPool.obtain(width, height);
+            if (output == null) {
+                return inputTexture;
+            }
+            drawPass(mPasses.get(0), inputTexture, output, width, height);
+        } else {
+            PingPong pingPong = mPool.obtainPingPong(width, height, GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, false);
+            if (pingPong == null) {
+                return inputTexture;
+            }
+            int source = inputTexture;
+            for (int i = 0; i < mPasses.size(); i++) {
+                if (i > 0) {
+                    pingPong.swap();
+                    source = pingPong.getSource().getTextureId();
+                }
+                drawPass(mPasses.get(i), source, pingPong.getTarget(), width, height);
+            }
+            output = pingPong.getTarget();
+            mPool.release(pingPong.getSource());
+        }
+        mGL.glBindFramebuffer(GLES20.GL_FRAMEBUFFER, 0);
+
+        mOutput = output;
+        mLastInputTexture = inputTexture;
+        mLastWidth = width;
+        mLastHeight = height;
+        return output.getTextureId();
+    }
+
+    /**
+     * 归还结果纹理，program由FilterProgramCache管理
+     */
+    public void release() {
+        releaseOutput();
+        mStructureChanged = true;
+    }
+
+    /**
+     * EGL上下文丢失后调用，旧的结果已失效
+     */
+    public void onContextLost() {
+        mOutput = null;
+        mStructureChanged = true;
+    }
+
+    private void releaseOutput() {
+        if (mOutput != null) {
+            mPool.release(mOutput);
+            mOutput = null;
+        }
+    }
+
+    private void drawPass(Pass pass, int inputTexture, RenderTarget target, int width, int height) {
+        FilterProgram program = pass.program;
+        mGL.glBindFramebuffer(GLES20.GL_FRAMEBUFFER, target.getFramebufferId());
+        mGL.glViewport(0, 0, width, height);
+        mGL.glUseProgram(program.program);
+
+        mGL.glVertexAttribPointer(program.positionHandle, 2, GLES20.GL_FLOAT, false, 8, mCubeBuffer);
+        mGL.glEnableVertexAttribArray(program.positionHandle);
+        mGL.glVertexAttribPointer(program.textureCoordinateHandle, 2, GLES20.GL_FLOAT, false, 8, mTextureBuffer);
+        mGL.glEnableVertexAttribArray(program.textureCoordinateHandle);
+
+        mGL.glActiveTexture(GLES20.GL_TEXTURE0);
+        mGL.glBindTexture(GLES20.GL_TEXTURE_2D, inputTexture);
+        mGL.glUniform1i(program.inputTextureHandle, 0);
+        mGL.glUniform2f(program.texelSizeHandle, 1.0f / width, 1.0f / height);
+
+        // 纹理单元0留给输入图片，其他纹理从1开始依次分配
+        int textureUnit = 1;
+        for (int i = 0; i < pass.filters.size(); i++) {
+            ImageFilter filter = pass.filters.get(i);
+            filter.onDraw(mGL, textureUnit);
+            textureUnit += filter.getTextureCount();
+        }
+
+        mGL.glDrawArrays(GLES20.GL_TRIANGLE_STRIP, 0, 4);
+
+        mGL.glDisableVertexAttribArray(program.positionHandle);
+        mGL.glDisableVertexAttribArray(program.textureCoordinateHandle);
+        mGL.glActiveTexture(GLES20.GL_TEXTURE0);
+        mGL.glBindTexture(GLES20.GL_TEXTURE_2D, 0);
+    }
+
+    // 按邻域滤镜切分pass，并从缓存中取得融合后的program
+    private boolean buildPasses() {
+        if (!mStructureChanged) {
+            return false;
+        }
+        mStructureChanged = false;
+        mPasses.clear();
+        Pass pass = null;
+        for (int i = 0; i < mFilters.size(); i++) {
+            ImageFilter filter = mFilters.get(i);
+            if (!filter.isPointwise()) {
+                // 邻域滤镜需要读取完整的上一步结果，必须开始新的pass
+                pass = new Pass(filter);
+                mPasses.add(pass);
+            } else {
+                if (pass == null) {
+                    pass = new Pass(null);
+                    mPasses.add(pass);
+                }
+                pass.pointwise.add(filter);
+            }
+        }
+        for (int i = mPasses.size() - 1; i >= 0; i--) {
+            Pass p = mPasses.get(i);
+            p.program = mCache.get(p.sampler, p.pointwise);
+            if (p.program == null) {
+                mPasses.remove(i); // 编译失败的pass跳过，错误已在ShaderHelper中输出
+                continue;
+            }
+            // 同签名的program可能来自别的滤镜实例，uniform位置需要重新获取
+            if (p.sampler != null) {
+                p.sampler.onProgramReady(mGL, p.program.program, FilterProgram.suffix(0));
+                p.filters.add(p.sampler);
+            }
+            for (int j = 0; j < p.pointwise.size(); j++) {
+                p.pointwise.get(j).onProgramReady(mGL, p.program.program, FilterProgram.suffix(j + 1));
+                p.filters.add(p.pointwise.get(j));
+            }
+        }
+        return true;
+    }
+
+    // 一个pass：可选的邻域滤镜 + 之后连续的点操作滤镜
+    private static class Pass {
+        final ImageFilter sampler;
+        final ArrayList<ImageFilter> pointwise = new ArrayList<>();
+        final ArrayList<ImageFilter> filters = new ArrayList<>(); // 按uniform后缀顺序排列，绘制时遍历
+        FilterProgram program;
+
+        Pass(ImageFilter sampler) {
+            this.sampler = sampler;
+        }
+    }
+
+    // 初始化buffer
+    private static FloatBuffer initBuffer(float[] buffers) {
+        // 先初始化buffer,数组的长度*4,因为一个float占4个字节
+        ByteBuffer mbb = ByteBuffer.allocateDirect(buffers.length * 4);
+        // 数组排列用nativeOrder
+        mbb.order(ByteOrder.nativeOrder());
+        FloatBuffer floatBuffer = mbb.asFloatBuffer();
+        floatBuffer.put(buffers);
+        floatBuffer.flip();
+        return floatBuffer;
+    }
+}
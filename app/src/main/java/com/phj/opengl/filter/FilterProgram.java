@@ -0,0 +1,99 @@
+package com.phj.opengl.filter;
+
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.gl.ShaderHelper;
+
+import java.util.List;
+
+/**
+ * 描述：一个pass融合后的program，片元着色器由邻域滤镜（可选）+ 若干点操作滤镜拼接生成
+ * Created by PHJ on 2026/10/18.
+ */
+
+public class FilterProgram {
+
+    // 顶点shader，所有pass共用：全屏矩形，直接输出裁剪坐标
+    static final String VERTEX_SHADER = "" +
+            "attribute vec4 position;\n" +
+            "attribute vec2 inputTextureCoordinate;\n" +
+            "varying vec2 textureCoordinate;\n" +
+            "void main()\n" +
+            "{\n" +
+            "    gl_Position = position;\n" +
+            "    textureCoordinate = inputTextureCoordinate;\n" +
+            "}";
+
+    final String signature;
+    final int program;
+    final int positionHandle;
+    final int textureCoordinateHandle;
+    final int inputTextureHandle;
+    final int texelSizeHandle;
+
+    private FilterProgram(GLApi gl, String signature, int program) {
+        this.signature = signature;
+        this.program = program;
+        this.positionHandle = gl.glGetAttribLocation(program, "position");
+        this.textureCoordinateHandle = gl.glGetAttribLocation(program, "inputTextureCoordinate");
+        this.inputTextureHandle = gl.glGetUniformLocation(program, "inputImageTexture");
+        this.texelSizeHandle = gl.glGetUniformLocation(program, "texelSize");
+    }
+
+    static FilterProgram create(GLApi gl, String signature, ImageFilter sampler, List<ImageFilter> pointwise) {
+        int program = ShaderHelper.createProgram(gl, VERTEX_SHADER, buildFragmentShader(sampler, pointwise));
+        if (program == 0) {
+            return null;
+        }
+        return new FilterProgram(gl, signature, program);
+    }
+
+    /**
+     * pass的缓存签名：邻域滤镜key + 点操作滤镜key序列
+     */
+    static String signature(ImageFilter sampler, List<ImageFilter> pointwise) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(sampler == null ? "-" : sampler.getKey()).append('|');
+        for (int i = 0; i < pointwise.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(pointwise.get(i).getKey());
+        }
+        return sb.toString();
+    }
+
+    // 第i个滤镜的uniform后缀
+    static String suffix(int index) {
+        return "_" + index;
+    }
+
+    /**
+     * 生成融合后的片元着色器，邻域滤镜的序号为0，点操作滤镜依次为1、2...
+     */
+    static String buildFragmentShader(ImageFilter sampler, List<ImageFilter> pointwise) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("precision mediump float;\n")
+                .append("varying vec2 textureCoordinate;\n")
+                .append("uniform sampler2D inputImageTexture;\n")
+                .append("uniform vec2 texelSize;\n");
+        if (sampler != null) {
+            sb.append(sampler.getDeclarations().replace("$", suffix(0)));
+        }
+        for (int i = 0; i < pointwise.size(); i++) {
+            sb.append(pointwise.get(i).getDeclarations().replace("$", suffix(i + 1)));
+        }
+        sb.append("void main()\n{\n")
+                .append("vec2 uv = textureCoordinate;\n")
+                .append("vec4 color;\n");
+        if (sampler != null) {
+            sb.append("{\n").append(sampler.getSampleCode().replace("$", suffix(0))).append("}\n");
+        } else {
+            sb.append("color = texture2D(inputImageTexture, uv);\n");
+        }
+        for (int i = 0; i < pointwise.size(); i++) {
+            sb.append("{\n").append(pointwise.get(i).getApplyCode().replace("$", suffix(i + 1))).append("}\n");
+        }
+        sb.append("gl_FragColor = color;\n}");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,55 @@
+package com.phj.opengl.filter;
+
+import com.phj.opengl.gl.GLApi;
+
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * 描述：融合program缓存，按pass签名复用，多个FilterChain可以共用一个缓存
+ * 必须在GL线程使用
+ * Created by PHJ on 2026/10/18.
+ */
+
+public class FilterProgramCache {
+
+    private final GLApi mGL;
+    private final HashMap<String, FilterProgram> mPrograms = new HashMap<>();
+
+    public FilterProgramCache(GLApi gl) {
+        this.mGL = gl;
+    }
+
+    FilterProgram get(ImageFilter sampler, List<ImageFilter> pointwise) {
+        String signature = FilterProgram.signature(sampler, pointwise);
+        FilterProgram program = mPrograms.get(signature);
+        if (program == null) {
+            program = FilterProgram.create(mGL, signature, sampler, pointwise);
+            if (program != null) {
+                mPrograms.put(signature, program);
+            }
+        }
+        return program;
+    }
+
+    public int size() {
+        return mPrograms.size();
+    }
+
+    /**
+     * 删除所有缓存的program
+     */
+    public void release() {
+        for (FilterProgram program : mPrograms.values()) {
+            mGL.glDeleteProgram(program.program);
+        }
+        mPrograms.clear();
+    }
+
+    /**
+     * EGL上下文丢失后调用，只清空记录
+     */
+    public void onContextLost() {
+        mPrograms.clear();
+    }
+}
@@ -0,0 +1,83 @@
+package com.phj.opengl.filter;
+
+import com.phj.opengl.gl.GLApi;
+
+/**
+ * 描述：图片滤镜，由{@link FilterChain}组合使用
+ * 点操作滤镜（亮度、对比度、LUT等只依赖当前像素）提供一段修改color的GLSL代码，相邻的点操作滤镜会融合进同一个片元着色器；
+ * 邻域采样滤镜（模糊、锐化）提供采样代码，每个邻域滤镜都会开始一个新的pass。
+ * 生成的片元着色器中可用的变量：
+ * uv - vec2 当前纹理坐标；color - vec4 当前颜色；inputImageTexture - 输入纹理；texelSize - vec2 一个像素对应的纹理坐标
+ * 声明和代码中的$会被替换为滤镜在pass中的后缀，保证同一个shader里出现多个同类滤镜时uniform不冲突
+ * Created by PHJ on 2026/10/18.
+ */
+
+public abstract class ImageFilter {
+
+    private boolean mChanged = true;
+
+    /**
+     * @return true表示只依赖当前像素，可以和相邻的点操作滤镜融合
+     */
+    public abstract boolean isPointwise();
+
+    /**
+     * 参与program缓存签名，生成代码相同的滤镜必须返回相同的key
+     */
+    public String getKey() {
+        return getClass().getName();
+    }
+
+    /**
+     * uniform声明，如"uniform float brightness$;"
+     */
+    protected abstract String getDeclarations();
+
+    /**
+     * 点操作滤镜的代码，读写color，如"color.rgb += brightness$;"
+     */
+    protected String getApplyCode() {
+        return "";
+    }
+
+    /**
+     * 邻域采样滤镜的代码，从inputImageTexture采样并写入color
+     */
+    protected String getSampleCode() {
+        return null;
+    }
+
+    /**
+     * 除输入图片外还需要的纹理单元数，如LUT需要1个
+     */
+    protected int getTextureCount() {
+        return 0;
+    }
+
+    /**
+     * program可用时调用，获取uniform位置
+     *
+     * @param suffix 替换$的后缀
+     */
+    protected abstract void onProgramReady(GLApi gl, int program, String suffix);
+
+    /**
+     * 绘制前设置uniform
+     *
+     * @param textureUnit 分配给该滤镜的第一个纹理单元序号（从0开始，不含GL_TEXTURE0偏移）
+     */
+    protected abstract void onDraw(GLApi gl, int textureUnit);
+
+    /**
+     * 参数改变后调用，FilterChain下一帧会重新渲染
+     */
+    protected void notifyChanged() {
+        mChanged = true;
+    }
+
+    boolean consumeChanged() {
+        boolean changed = mChanged;
+        mChanged = false;
+        return changed;
+    }
+}
@@ -0,0 +1,76 @@
+package com.phj.opengl.filter;
+
+import android.opengl.GLES20;
+
+import com.phj.opengl.gl.GLApi;
+
+/**
+ * 描述：LUT调色，查找表为512x512的纹理，8x8个64x64的格子，每个格子对应一个蓝色分量
+ * 查找表纹理由调用方创建和释放
+ * Created by PHJ on 2026/10/18.
+ */
+
+public class LookupFilter extends ImageFilter {
+
+    private int mLookupTexture;
+    private float mIntensity;
+    private int mTextureLocation;
+    private int mIntensityLocation;
+
+    public LookupFilter(int lookupTexture, float intensity) {
+        this.mLookupTexture = lookupTexture;
+        this.mIntensity = intensity;
+    }
+
+    public void setLookupTexture(int lookupTexture) {
+        mLookupTexture = lookupTexture;
+        notifyChanged();
+    }
+
+    public void setIntensity(float intensity) {
+        mIntensity = intensity;
+        notifyChanged();
+    }
+
+    @Override
+    public boolean isPointwise() {
+        return true;
+    }
+
+    @Override
+    protected int getTextureCount() {
+        return 1;
+    }
+
+    @Override
+    protected String getDeclarations() {
+        return "uniform sampler2D lookupTexture$;\n" +
+                "uniform float lookupIntensity$;\n";
+    }
+
+    @Override
+    protected String getApplyCode() {
+        return "float blue$ = color.b * 63.0;\n" +
+                "vec2 quad1$ = vec2(mod(floor(blue$), 8.0), floor(floor(blue$) / 8.0));\n" +
+                "vec2 quad2$ = vec2(mod(ceil(blue$), 8.0), floor(ceil(blue$) / 8.0));\n" +
+                "vec2 cell$ = 0.5 / 512.0 + (0.125 - 1.0 / 512.0) * color.rg;\n" +
+                "vec4 lut1$ = texture2D(lookupTexture$, quad1$ * 0.125 + cell$);\n" +
+                "vec4 lut2$ = texture2D(lookupTexture$, quad2$ * 0.125 + cell$);\n" +
+                "vec4 lut$ = mix(lut1$, lut2$, fract(blue$));\n" +
+                "color.rgb = mix(color.rgb, lut$.rgb, lookupIntensity$);\n";
+    }
+
+    @Override
+    protected void onProgramReady(GLApi gl, int program, String suffix) {
+        mTextureLocation = gl.glGetUniformLocation(program, "lookupTexture" + suffix);
+        mIntensityLocation = gl.glGetUniformLocation(program, "lookupIntensity" + suffix);
+    }
+
+    @Override
+    protected void onDraw(GLApi gl, int textureUnit) {
+        gl.glActiveTexture(GLES20.GL_TEXTURE0 + textureUnit);
+        gl.glBindTexture(GLES20.GL_TEXTURE_2D, mLookupTexture);
+        gl.glUniform1i(mTextureLocation, textureUnit);
+        gl.glUniform1f(mIntensityLocation, mIntensity);
+    }
+}
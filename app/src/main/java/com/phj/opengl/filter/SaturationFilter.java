@@ -0,0 +1,49 @@
+package com.phj.opengl.filter;
+
+import com.phj.opengl.gl.GLApi;
+
+/**
+ * 描述：饱和度，0.0 ~ 2.0，1为原图，0为灰度图
+ * Created by PHJ on 2026/10/18.
+ */
+
+public class SaturationFilter extends ImageFilter {
+
+    private float mSaturation;
+    private int mSaturationLocation;
+
+    public SaturationFilter(float saturation) {
+        this.mSaturation = saturation;
+    }
+
+    public void setSaturation(float saturation) {
+        mSaturation = saturation;
+        notifyChanged();
+    }
+
+    @Override
+    public boolean isPointwise() {
+        return true;
+    }
+
+    @Override
+    protected String getDeclarations() {
+        return "uniform float saturation$;\n";
+    }
+
+    @Override
+    protected String getApplyCode() {
+        // Rec.709亮度权重
+        return "color.rgb = mix(vec3(dot(color.rgb, vec3(0.2125, 0.7154, 0.0721))), color.rgb, saturation$);\n";
+    }
+
+    @Override
+    protected void onProgramReady(GLApi gl, int program, String suffix) {
+        mSaturationLocation = gl.glGetUniformLocation(program, "saturation" + suffix);
+    }
+
+    @Override
+    protected void onDraw(GLApi gl, int textureUnit) {
+        gl.glUniform1f(mSaturationLocation, mSaturation);
+    }
+}
@@ -0,0 +1,54 @@
+package com.phj.opengl.filter;
+
+import com.phj.opengl.gl.GLApi;
+
+/**
+ * 描述：锐化，0为原图，用上下左右四个像素做拉普拉斯增强
+ * 需要读取相邻像素，会单独占用一个pass
+ * Created by PHJ on 2026/10/18.
+ */
+
+public class SharpenFilter extends ImageFilter {
+
+    private float mSharpness;
+    private int mSharpnessLocation;
+
+    public SharpenFilter(float sharpness) {
+        this.mSharpness = sharpness;
+    }
+
+    public void setSharpness(float sharpness) {
+        mSharpness = sharpness;
+        notifyChanged();
+    }
+
+    @Override
+    public boolean isPointwise() {
+        return false;
+    }
+
+    @Override
+    protected String getDeclarations() {
+        return "uniform float sharpness$;\n";
+    }
+
+    @Override
+    protected String getSampleCode() {
+        return "vec4 center$ = texture2D(inputImageTexture, uv);\n" +
+                "vec3 sum$ = texture2D(inputImageTexture, uv + vec2(-texelSize.x, 0.0)).rgb\n" +
+                "        + texture2D(inputImageTexture, uv + vec2(texelSize.x, 0.0)).rgb\n" +
+                "        + texture2D(inputImageTexture, uv + vec2(0.0, -texelSize.y)).rgb\n" +
+                "        + texture2D(inputImageTexture, uv + vec2(0.0, texelSize.y)).rgb;\n" +
+                "color = vec4(clamp(center$.rgb * (1.0 + 4.0 * sharpness$) - sum$ * sharpness$, 0.0, 1.0), center$.a);\n";
+    }
+
+    @Override
+    protected void onProgramReady(GLApi gl, int program, String suffix) {
+        mSharpnessLocation = gl.glGetUniformLocation(program, "sharpness" + suffix);
+    }
+
+    @Override
+    protected void onDraw(GLApi gl, int textureUnit) {
+        gl.glUniform1f(mSharpnessLocation, mSharpness);
+    }
+}
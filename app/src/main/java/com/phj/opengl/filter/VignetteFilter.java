@@ -0,0 +1,51 @@
+package com.phj.opengl.filter;
+
+import com.phj.opengl.gl.GLApi;
+
+/**
+ * 描述：暗角，从start到end之间由原图过渡到黑色，距离以图片中心为原点的纹理坐标计算
+ * Created by PHJ on 2026/10/18.
+ */
+
+public class VignetteFilter extends ImageFilter {
+
+    private float mStart;
+    private float mEnd;
+    private int mRangeLocation;
+
+    public VignetteFilter(float start, float end) {
+        this.mStart = start;
+        this.mEnd = end;
+    }
+
+    public void setRange(float start, float end) {
+        mStart = start;
+        mEnd = end;
+        notifyChanged();
+    }
+
+    @Override
+    public boolean isPointwise() {
+        return true;
+    }
+
+    @Override
+    protected String getDeclarations() {
+        return "uniform vec2 vignetteRange$;\n";
+    }
+
+    @Override
+    protected String getApplyCode() {
+        return "color.rgb *= 1.0 - smoothstep(vignetteRange$.x, vignetteRange$.y, distance(uv, vec2(0.5)));\n";
+    }
+
+    @Override
+    protected void onProgramReady(GLApi gl, int program, String suffix) {
+        mRangeLocation = gl.glGetUniformLocation(program, "vignetteRange" + suffix);
+    }
+
+    @Override
+    protected void onDraw(GLApi gl, int textureUnit) {
+        gl.glUniform2f(mRangeLocation, mStart, mEnd);
+    }
+}
@@ -0,0 +1,43 @@
+package com.phj.opengl.gl;
+
+import android.graphics.Bitmap;
+import android.opengl.GLES20;
+
+/**
+ * 描述：用Bitmap作为纹理数据，持有Bitmap引用以便上下文丢失后重新上传
+ * Created by PHJ on 2026/10/18.
+ */
+
+public class BitmapTextureSource implements GLTexture.Source {
+
+    private final Bitmap mBitmap;
+
+    public BitmapTextureSource(Bitmap bitmap) {
+        this.mBitmap = bitmap;
+    }
+
+    public Bitmap getBitmap() {
+        return mBitmap;
+    }
+
+    @Override
+    public int getWidth() {
+        return mBitmap.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return mBitmap.getHeight();
+    }
+
+    @Override
+    public long getSizeInBytes() {
+        // GLUtils按Bitmap的像素格式上传，ARGB_8888为RGBA8，RGB_565为16位
+        return mBitmap.getByteCount();
+    }
+
+    @Override
+    public void upload(GLApi gl) {
+        gl.texImage2D(GLES20.GL_TEXTURE_2D, 0, mBitmap, 0);
+    }
+}
@@ -0,0 +1,94 @@
+package com.phj.opengl.gl;
+
+import android.opengl.GLSurfaceView;
+import android.util.Log;
+
+import javax.microedition.khronos.egl.EGL10;
+import javax.microedition.khronos.egl.EGLConfig;
+import javax.microedition.khronos.egl.EGLDisplay;
+
+/**
+ * 描述：按顺序尝试多组配置的EGLConfigChooser，第一组能满足的生效
+ * 每组为{红, 绿, 蓝, alpha, 深度, 模板}，颜色位数要求相等，深度和模板不少于要求即可，与GLSurfaceView自带的选择规则一致。
+ * 设备不支持靠前的配置（例如没有模板缓冲）时退回后面的，而不是在创建EGL上下文时直接失败。
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class FallbackEGLConfigChooser implements GLSurfaceView.EGLConfigChooser {
+
+    private final static String TAG = FallbackEGLConfigChooser.class.getSimpleName();
+
+    // EGL14.EGL_OPENGL_ES2_BIT，EGL10中没有
+    private static final int EGL_OPENGL_ES2_BIT = 4;
+
+    private final int[][] mSpecs;
+    private final int[] mValue = new int[1];
+
+    /**
+     * @param specs 按优先级排列，每组6个值：红、绿、蓝、alpha、深度、模板
+     */
+    public FallbackEGLConfigChooser(int[]... specs) {
+        if (specs.length == 0) {
+            throw new IllegalArgumentException("no config spec");
+        }
+        for (int[] spec : specs) {
+            if (spec.length != 6) {
+                throw new IllegalArgumentException("config spec needs r, g, b, a, depth, stencil");
+            }
+        }
+        this.mSpecs = specs;
+    }
+
+    @Override
+    public EGLConfig chooseConfig(EGL10 egl, EGLDisplay display) {
+        for (int i = 0; i < mSpecs.length; i++) {
+            EGLConfig config = choose(egl, display, mSpecs[i]);
+            if (config != null) {
+                if (i > 0) {
+                    Log.w(TAG, "chooseConfig: fell back to spec " + i);
+                }
+                return config;
+            }
+        }
+        throw new IllegalArgumentException("no config matches any spec");
+    }
+
+    private EGLConfig choose(EGL10 egl, EGLDisplay display, int[] spec) {
+        int[] attribs = {
+                EGL10.EGL_RED_SIZE, spec[0],
+                EGL10.EGL_GREEN_SIZE, spec[1],
+                EGL10.EGL_BLUE_SIZE, spec[2],
+                EGL10.EGL_ALPHA_SIZE, spec[3],
+                EGL10.EGL_DEPTH_SIZE, spec[4],
+                EGL10.EGL_STENCIL_SIZE, spec[5],
+                EGL10.EGL_RENDERABLE_TYPE, EGL_OPENGL_ES2_BIT,
+                EGL10.EGL_NONE,
+        };
+        int[] count = new int[1];
+        if (!egl.eglChooseConfig(display, attribs, null, 0, count) || count[0] <= 0) {
+            return null;
+        }
+        EGLConfig[] configs = new EGLConfig[count[0]];
+        if (!egl.eglChooseConfig(display, attribs, configs, configs.length, count)) {
+            return null;
+        }
+        // eglChooseConfig返回的是至少满足要求的配置，颜色位数多出来的也在其中
+        for (int i = 0; i < count[0]; i++) {
+            EGLConfig config = configs[i];
+            if (config != null
+                    && attrib(egl, display, config, EGL10.EGL_RED_SIZE) == spec[0]
+                    && attrib(egl, display, config, EGL10.EGL_GREEN_SIZE) == spec[1]
+                    && attrib(egl, display, config, EGL10.EGL_BLUE_SIZE) == spec[2]
+                    && attrib(egl, display, config, EGL10.EGL_ALPHA_SIZE) == spec[3]
+                    && attrib(egl, display, config, EGL10.EGL_DEPTH_SIZE) >= spec[4]
+                    && attrib(egl, display, config, EGL10.EGL_STENCIL_SIZE) >= spec[5]) {
+                return config;
+            }
+        }
+        return null;
+    }
+
+    private int attrib(EGL10 egl, EGLDisplay display, EGLConfig config, int attribute) {
+        return egl.eglGetConfigAttrib(display, config, attribute, mValue) ? mValue[0] : 0;
+    }
+}
@@ -0,0 +1,199 @@
+package com.phj.opengl.gl;
+
+import android.graphics.Bitmap;
+
+import java.nio.Buffer;
+
+/**
+ * 描述：GL调用接口，方法签名与{@link android.opengl.GLES20}保持一致
+ * 公共组件通过它调用GL，默认实现{@link GLES20Api}直接转发给GLES20
+ * Created by PHJ on 2026/10/18.
+ */
+
+public interface GLApi {
+
+    // 纹理
+    void glGenTextures(int n, int[] textures, int offset);
+
+    void glDeleteTextures(int n, int[] textures, int offset);
+
+    void glBindTexture(int target, int texture);
+
+    void glTexParameteri(int target, int pname, int param);
+
+    void glTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                      int format, int type, Buffer pixels);
+
+    // 帧缓冲
+    void glGenFramebuffers(int n, int[] framebuffers, int offset);
+
+    void glDeleteFramebuffers(int n, int[] framebuffers, int offset);
+
+    void glBindFramebuffer(int target, int framebuffer);
+
+    void glFramebufferTexture2D(int target, int attachment, int textarget, int texture, int level);
+
+    int glCheckFramebufferStatus(int target);
+
+    // 渲染缓冲
+    void glGenRenderbuffers(int n, int[] renderbuffers, int offset);
+
+    void glDeleteRenderbuffers(int n, int[] renderbuffers, int offset);
+
+    void glBindRenderbuffer(int target, int renderbuffer);
+
+    void glRenderbufferStorage(int target, int internalformat, int width, int height);
+
+    void glFramebufferRenderbuffer(int target, int attachment, int renderbuffertarget, int renderbuffer);
+
+    // 视口
+    void glViewport(int x, int y, int width, int height);
+
+    // shader与program
+    int glCreateShader(int type);
+
+    void glShaderSource(int shader, String string);
+
+    void glCompileShader(int shader);
+
+    void glGetShaderiv(int shader, int pname, int[] params, int offset);
+
+    String glGetShaderInfoLog(int shader);
+
+    void glDeleteShader(int shader);
+
+    int glCreateProgram();
+
+    void glAttachShader(int program, int shader);
+
+    void glLinkProgram(int program);
+
+    void glGetProgramiv(int program, int pname, int[] params, int offset);
+
+    String glGetProgramInfoLog(int program);
+
+    void glDeleteProgram(int program);
+
+    void glUseProgram(int program);
+
+    int glGetAttribLocation(int program, String name);
+
+    int glGetUniformLocation(int program, String name);
+
+    // uniform
+    void glUniform1i(int location, int x);
+
+    void glUniform1f(int location, float x);
+
+    void glUniform2f(int location, float x, float y);
+
+    void glUniform4f(int location, float x, float y, float z, float w);
+
+    // 顶点属性与绘制
+    void glActiveTexture(int texture);
+
+    void glVertexAttribPointer(int indx, int size, int type, boolean normalized, int stride, Buffer ptr);
+
+    void glEnableVertexAttribArray(int index);
+
+    void glDisableVertexAttribArray(int index);
+
+    void glDrawArrays(int mode, int first, int count);
+
+    // 查询
+    String glGetString(int name);
+
+    void glGetIntegerv(int pname, int[] params, int offset);
+
+    // 缓冲区
+    void glGenBuffers(int n, int[] buffers, int offset);
+
+    void glDeleteBuffers(int n, int[] buffers, int offset);
+
+    void glBindBuffer(int target, int buffer);
+
+    void glBufferData(int target, int size, Buffer data, int usage);
+
+    void glBufferSubData(int target, int offset, int size, Buffer data);
+
+    void glDetachShader(int program, int shader);
+
+    /**
+     * 对应{@link android.opengl.GLUtils#texImage2D(int, int, Bitmap, int)}
+     */
+    void texImage2D(int target, int level, Bitmap bitmap, int border);
+
+    // 压缩纹理与mipmap
+    void glCompressedTexImage2D(int target, int level, int internalformat, int width, int height, int border, int imageSize, Buffer data);
+
+    void glGenerateMipmap(int target);
+
+    // 批量绘制
+    void glVertexAttribPointer(int indx, int size, int type, boolean normalized, int stride, int offset);
+
+    void glDrawElements(int mode, int count, int type, int offset);
+
+    void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset);
+
+    void glEnable(int cap);
+
+    void glDisable(int cap);
+
+    void glBlendFunc(int sfactor, int dfactor);
+
+    // 字形图集
+    void glTexSubImage2D(int target, int level, int xoffset, int yoffset, int width, int height, int format, int type, Buffer pixels);
+
+    void glPixelStorei(int pname, int param);
+
+    // 帧回读
+    void glCopyTexSubImage2D(int target, int level, int xoffset, int yoffset, int x, int y, int width, int height);
+
+    void glReadPixels(int x, int y, int width, int height, int format, int type, Buffer pixels);
+
+    // uniform影子状态
+    void glUniform2fv(int location, int count, float[] v, int offset);
+
+    void glUniform3fv(int location, int count, float[] v, int offset);
+
+    void glUniform4fv(int location, int count, float[] v, int offset);
+
+    void glUniformMatrix3fv(int location, int count, boolean transpose, float[] value, int offset);
+
+    // 过度绘制
+    void glClear(int mask);
+
+    void glClearColor(float red, float green, float blue, float alpha);
+
+    void glClearDepthf(float depth);
+
+    void glClearStencil(int s);
+
+    void glStencilFunc(int func, int ref, int mask);
+
+    void glStencilOp(int fail, int zfail, int zpass);
+
+    void glStencilMask(int mask);
+
+    void glDepthFunc(int func);
+
+    void glDepthMask(boolean flag);
+
+    void glColorMask(boolean red, boolean green, boolean blue, boolean alpha);
+
+    // 调试校验
+    int glGetError();
+
+    void glGetVertexAttribiv(int index, int pname, int[] params, int offset);
+
+    void glGetBufferParameteriv(int target, int pname, int[] params, int offset);
+
+    // 客户端索引
+    void glDrawElements(int mode, int count, int type, Buffer indices);
+
+    // program二进制，ES3入口，只在ES3上下文中调用
+    void glProgramBinary(int program, int binaryFormat, Buffer binary, int length);
+
+    void glGetProgramBinary(int program, int bufSize, int[] length, int lengthOffset,
+                            int[] binaryFormat, int binaryFormatOffset, Buffer binary);
+}
@@ -0,0 +1,99 @@
+package com.phj.opengl.gl;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * 描述：VBO/IBO句柄，保留数据用于上下文丢失后重建
+ * Created by PHJ on 2026/10/18.
+ */
+
+public class GLBuffer extends GLResource {
+
+    private final int mTarget;   // GL_ARRAY_BUFFER 或 GL_ELEMENT_ARRAY_BUFFER
+    private final int mUsage;    // GL_STATIC_DRAW等
+    private Buffer mData;
+    private int mSize;
+    private final int[] mIds = new int[1];
+
+    GLBuffer(int target, Buffer data, int size, int usage) {
+        this.mTarget = target;
+        this.mData = data;
+        this.mSize = size;
+        this.mUsage = usage;
+    }
+
+    public int getTarget() {
+        return mTarget;
+    }
+
+    public int getSize() {
+        return mSize;
+    }
+
+    @Override
+    public long getSizeInBytes() {
+        return mSize;
+    }
+
+    /**
+     * 替换全部数据，同时更新重建用的数据
+     */
+    public void setData(GLApi gl, Buffer data, int size) {
+        mData = data;
+        mSize = size;
+        if (id == 0) {
+            return; // 被驱逐，下次use时用新数据重建
+        }
+        gl.glBindBuffer(mTarget, id);
+        gl.glBufferData(mTarget, size, prepare(data), mUsage);
+        gl.glBindBuffer(mTarget, 0);
+        if (registry != null) {
+            registry.onSizeChanged(this);
+        }
+    }
+
+    /**
+     * 只上传[offset, offset + size)，用于流式追加；data是修改后的完整数据，同样保留用于重建，
+     * 大小不变时才能使用，否则调用{@link #setData(GLApi, Buffer, int)}
+     */
+    public void setSubData(GLApi gl, ByteBuffer data, int offset, int size) {
+        mData = data;
+        if (id == 0) {
+            return;
+        }
+        ByteBuffer range = data.duplicate();
+        range.position(offset);
+        gl.glBindBuffer(mTarget, id);
+        gl.glBufferSubData(mTarget, offset, size, range);
+        gl.glBindBuffer(mTarget, 0);
+    }
+
+    @Override
+    public int getCategory() {
+        return GpuMemoryAccountant.BUFFER;
+    }
+
+    @Override
+    protected int onCreate(GLApi gl) {
+        gl.glGenBuffers(1, mIds, 0);
+        gl.glBindBuffer(mTarget, mIds[0]);
+        gl.glBufferData(mTarget, mSize, prepare(mData), mUsage);
+        gl.glBindBuffer(mTarget, 0);
+        return mIds[0];
+    }
+
+    @Override
+    protected void onDelete(GLApi gl, int id) {
+        mIds[0] = id;
+        gl.glDeleteBuffers(1, mIds, 0);
+    }
+
+    // 重建时从头上传
+    private static Buffer prepare(Buffer data) {
+        if (data != null) {
+            data.position(0);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,109 @@
+package com.phj.opengl.gl;
+
+/**
+ * 描述：由{@link GLResourceRegistry}管理的GL对象句柄
+ * 句柄保存了重建所需的全部描述信息，EGL上下文丢失后由registry按依赖顺序重新创建，句柄对象本身不变。
+ * 标记为可驱逐的资源在显存超出预算时可能被删除，下一次{@link #use()}时再按描述信息恢复
+ * Created by PHJ on 2026/10/18.
+ */
+
+public abstract class GLResource {
+
+    private final GLResource[] mDependencies;
+    final int depth;           // 依赖深度，重建时先建深度小的
+    GLResourceRegistry registry;
+    GLResourceScope scope;
+    int id;
+    boolean released;
+    boolean evictable;
+    boolean evicted;           // 被驱逐，GL对象已删除但描述信息还在
+    int lastUsedFrame;         // 最近一次use的帧号
+    boolean accounted;         // 是否已记入GpuMemoryAccountant
+    long accountedBytes;       // 已记入的字节数
+
+    protected GLResource(GLResource... dependencies) {
+        this.mDependencies = dependencies;
+        int depth = 0;
+        for (GLResource dependency : dependencies) {
+            depth = Math.max(depth, dependency.depth + 1);
+        }
+        this.depth = depth;
+    }
+
+    /**
+     * GL对象id，上下文重建后会变化，不要长期缓存；被驱逐时为0
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * 绘制前调用，记录最近使用的帧，被驱逐时重新创建
+     *
+     * @return GL对象id
+     */
+    public int use() {
+        if (registry != null && !released) {
+            registry.use(this);
+        }
+        return id;
+    }
+
+    public boolean isReleased() {
+        return released;
+    }
+
+    public boolean isEvicted() {
+        return evicted;
+    }
+
+    /**
+     * 允许在显存超出预算时被驱逐，需要能从保留的描述信息完整恢复
+     */
+    public void setEvictable(boolean evictable) {
+        this.evictable = evictable;
+    }
+
+    public boolean isEvictable() {
+        return evictable;
+    }
+
+    public GLResource[] getDependencies() {
+        return mDependencies;
+    }
+
+    /**
+     * 估算的显存占用
+     */
+    public long getSizeInBytes() {
+        return 0;
+    }
+
+    /**
+     * 记账类别，见{@link GpuMemoryAccountant}
+     */
+    public int getCategory() {
+        return GpuMemoryAccountant.OTHER;
+    }
+
+    /**
+     * 立即删除GL对象，必须在GL线程调用
+     */
+    public void release() {
+        if (!released && registry != null) {
+            registry.release(this);
+        }
+    }
+
+    /**
+     * 按描述信息创建GL对象
+     *
+     * @return GL对象id
+     */
+    protected abstract int onCreate(GLApi gl);
+
+    /**
+     * 删除GL对象
+     */
+    protected abstract void onDelete(GLApi gl, int id);
+}
@@ -0,0 +1,213 @@
+package com.phj.opengl.gl;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+
+/**
+ * 描述：GL资源注册表，持有所有通过{@link GLResourceScope}创建的纹理和buffer
+ * 每个资源保留了重建所需的描述信息：EGL上下文丢失后在onSurfaceCreated中调用{@link #onSurfaceCreated()}，
+ * 旧id直接丢弃（随上下文一起失效，不调用glDelete），再按依赖深度、同深度按创建顺序重新创建。
+ * 资源只在注册表中登记一份，反复创建surface不会累积GL对象。program不在其中，由ShaderLibrary在新上下文中按需重新编译。
+ * 显存记入{@link GpuMemoryAccountant}，超出预算时按最近使用的帧驱逐可驱逐的资源，当前帧用过的不驱逐。
+ * 所有方法都必须在GL线程调用。
+ * Created by PHJ on 2026/10/18.
+ */
+
+public class GLResourceRegistry implements GpuMemoryAccountant.Evictor {
+
+    private final static String TAG = GLResourceRegistry.class.getSimpleName();
+
+    private static final Comparator<GLResource> BY_DEPTH = new Comparator<GLResource>() {
+        @Override
+        public int compare(GLResource a, GLResource b) {
+            return a.depth < b.depth ? -1 : (a.depth == b.depth ? 0 : 1);
+        }
+    };
+
+    private final GLApi mGL;
+    private final GpuMemoryAccountant mAccountant;
+    private final ArrayList<GLResource> mLive = new ArrayList<>();   // 按创建顺序
+    private int mFrame;
+    private int mEvictionCount;
+
+    public GLResourceRegistry(GLApi gl) {
+        this(gl, new GpuMemoryAccountant(0));
+    }
+
+    /**
+     * @param accountant 显存记账，可以与RenderTargetPool共用，超出预算时由本注册表驱逐资源
+     */
+    public GLResourceRegistry(GLApi gl, GpuMemoryAccountant accountant) {
+        this.mGL = gl;
+        this.mAccountant = accountant;
+        accountant.setEvictor(this);
+    }
+
+    public GLApi getGL() {
+        return mGL;
+    }
+
+    public GpuMemoryAccountant getAccountant() {
+        return mAccountant;
+    }
+
+    /**
+     * 打开一个作用域，渲染器销毁时close即可释放其名下的全部资源
+     */
+    public GLResourceScope openScope(String name) {
+        return new GLResourceScope(this, name);
+    }
+
+    /**
+     * 新上下文创建后调用，按依赖顺序重建所有存活的资源，被驱逐的资源等到使用时再创建
+     * GLSurfaceView只在新建EGL上下文时回调onSurfaceCreated，此时旧id已随旧上下文失效
+     */
+    public void onSurfaceCreated() {
+        ArrayList<GLResource> ordered = new ArrayList<>(mLive);
+        // 稳定排序，同深度保持创建顺序
+        Collections.sort(ordered, BY_DEPTH);
+        for (int i = 0; i < ordered.size(); i++) {
+            GLResource resource = ordered.get(i);
+            resource.id = 0;
+            if (!resource.evicted) {
+                unaccount(resource);
+                create(resource);
+            }
+        }
+        Log.i(TAG, "onSurfaceCreated: rebuilt " + ordered.size() + " resources, " + mAccountant);
+    }
+
+    /**
+     * 每帧结束时调用，推进帧号
+     */
+    public void onFrameEnd() {
+        mFrame++;
+    }
+
+    /**
+     * 驱逐全部可驱逐的资源，例如收到onTrimMemory时
+     *
+     * @return 回收的字节数
+     */
+    public long evictAll() {
+        return evict(Long.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public long evict(long bytes) {
+        // 当前帧已经用过的资源还要参与绘制，不能驱逐
+        return evict(bytes, mFrame);
+    }
+
+    public int getLiveCount() {
+        return mLive.size();
+    }
+
+    // 当前驻留显存的资源字节数，不含被驱逐的
+    public long getLiveBytes() {
+        long bytes = 0;
+        for (int i = 0; i < mLive.size(); i++) {
+            bytes += mLive.get(i).accountedBytes;
+        }
+        return bytes;
+    }
+
+    public int getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    <T extends GLResource> T register(GLResourceScope scope, T resource) {
+        resource.registry = this;
+        resource.scope = scope;
+        mLive.add(resource);
+        create(resource);
+        return resource;
+    }
+
+    void use(GLResource resource) {
+        resource.lastUsedFrame = mFrame;
+        if (resource.evicted) {
+            resource.evicted = false;
+            create(resource);
+        }
+    }
+
+    void release(GLResource resource) {
+        if (resource.released || !mLive.remove(resource)) {
+            return;
+        }
+        resource.released = true;
+        delete(resource);
+        resource.scope.remove(resource);
+    }
+
+    // 资源数据变化后调整记账
+    void onSizeChanged(GLResource resource) {
+        if (!resource.accounted) {
+            return;
+        }
+        long bytes = resource.getSizeInBytes();
+        long old = resource.accountedBytes;
+        resource.accountedBytes = bytes;
+        mAccountant.resize(resource.getCategory(), old, bytes);
+    }
+
+    // 驱逐lastUsedFrame < beforeFrame的资源，最久未用的优先
+    private long evict(long bytes, int beforeFrame) {
+        long freed = 0;
+        while (freed < bytes) {
+            GLResource oldest = null;
+            for (int i = 0; i < mLive.size(); i++) {
+                GLResource resource = mLive.get(i);
+                if (resource.evictable && !resource.evicted && resource.id != 0
+                        && resource.lastUsedFrame < beforeFrame
+                        && (oldest == null || resource.lastUsedFrame < oldest.lastUsedFrame)) {
+                    oldest = resource;
+                }
+            }
+            if (oldest == null) {
+                break;
+            }
+            freed += oldest.accountedBytes;
+            delete(oldest);
+            oldest.evicted = true;
+            mEvictionCount++;
+        }
+        if (freed > 0) {
+            Log.i(TAG, "evict: freed " + freed + " bytes, " + mAccountant);
+        }
+        return freed;
+    }
+
+    private void create(GLResource resource) {
+        // 先记入使用帧，新建的资源不会在自己触发的预算回收中被驱逐
+        resource.lastUsedFrame = mFrame;
+        resource.id = resource.onCreate(mGL);
+        if (resource.id == 0) {
+            Log.e(TAG, "create: failed " + resource.getClass().getSimpleName() + " in " + resource.scope.getName());
+            return;
+        }
+        resource.accounted = true;
+        resource.accountedBytes = resource.getSizeInBytes();
+        mAccountant.allocate(resource.getCategory(), resource.accountedBytes);
+    }
+
+    private void delete(GLResource resource) {
+        if (resource.id != 0) {
+            resource.onDelete(mGL, resource.id);
+            resource.id = 0;
+            unaccount(resource);
+        }
+    }
+
+    private void unaccount(GLResource resource) {
+        if (resource.accounted) {
+            mAccountant.free(resource.getCategory(), resource.accountedBytes);
+            resource.accounted = false;
+        }
+        resource.accountedBytes = 0;
+    }
+}
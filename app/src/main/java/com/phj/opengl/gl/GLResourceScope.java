@@ -0,0 +1,72 @@
+package com.phj.opengl.gl;
+
+import java.nio.Buffer;
+import java.util.ArrayList;
+
+/**
+ * 描述：资源作用域，一般一个渲染器一个
+ * 通过作用域创建的资源登记在{@link GLResourceRegistry}中，close时按创建的逆序释放，
+ * 依赖方总是先于被依赖方删除
+ * Created by PHJ on 2026/10/18.
+ */
+
+public class GLResourceScope {
+
+    private final GLResourceRegistry mRegistry;
+    private final String mName;
+    private final ArrayList<GLResource> mResources = new ArrayList<>();
+    private boolean mClosed;
+
+    GLResourceScope(GLResourceRegistry registry, String name) {
+        this.mRegistry = registry;
+        this.mName = name;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public boolean isClosed() {
+        return mClosed;
+    }
+
+    /**
+     * 创建VBO/IBO
+     *
+     * @param target GL_ARRAY_BUFFER 或 GL_ELEMENT_ARRAY_BUFFER
+     * @param data   数据，句柄会持有引用用于重建，之后不要修改
+     * @param size   字节数
+     * @param usage  GL_STATIC_DRAW等
+     */
+    public GLBuffer createBuffer(int target, Buffer data, int size, int usage) {
+        return add(new GLBuffer(target, data, size, usage));
+    }
+
+    public GLTexture createTexture(GLTexture.Source source, int minFilter, int magFilter, int wrapS, int wrapT) {
+        return add(new GLTexture(source, minFilter, magFilter, wrapS, wrapT));
+    }
+
+    /**
+     * 释放作用域内的全部资源
+     */
+    public void close() {
+        for (int i = mResources.size() - 1; i >= 0; i--) {
+            mRegistry.release(mResources.get(i));
+        }
+        mResources.clear();
+        mClosed = true;
+    }
+
+    void remove(GLResource resource) {
+        mResources.remove(resource);
+    }
+
+    private <T extends GLResource> T add(T resource) {
+        if (mClosed) {
+            throw new IllegalStateException("scope " + mName + " is closed");
+        }
+        mRegistry.register(this, resource);
+        mResources.add(resource);
+        return resource;
+    }
+}
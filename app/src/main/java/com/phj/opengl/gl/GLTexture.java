@@ -0,0 +1,89 @@
+package com.phj.opengl.gl;
+
+import android.opengl.GLES20;
+
+/**
+ * 描述：2D纹理句柄，像素由{@link Source}提供，上下文丢失后重新上传
+ * Created by PHJ on 2026/10/18.
+ */
+
+public class GLTexture extends GLResource {
+
+    /**
+     * 纹理数据来源
+     */
+    public interface Source {
+        int getWidth();
+
+        int getHeight();
+
+        /**
+         * 第0级的字节数
+         */
+        long getSizeInBytes();
+
+        /**
+         * 上传到当前绑定的GL_TEXTURE_2D
+         */
+        void upload(GLApi gl);
+    }
+
+    private final Source mSource;
+    private final int mMinFilter;
+    private final int mMagFilter;
+    private final int mWrapS;
+    private final int mWrapT;
+    private final int[] mIds = new int[1];
+
+    GLTexture(Source source, int minFilter, int magFilter, int wrapS, int wrapT) {
+        this.mSource = source;
+        this.mMinFilter = minFilter;
+        this.mMagFilter = magFilter;
+        this.mWrapS = wrapS;
+        this.mWrapT = wrapT;
+    }
+
+    public Source getSource() {
+        return mSource;
+    }
+
+    public int getWidth() {
+        return mSource.getWidth();
+    }
+
+    public int getHeight() {
+        return mSource.getHeight();
+    }
+
+    // 缩小过滤使用mipmap时按完整的mipmap链估算
+    @Override
+    public long getSizeInBytes() {
+        long base = mSource.getSizeInBytes();
+        return GpuMemoryAccountant.isMipmapFilter(mMinFilter)
+                ? GpuMemoryAccountant.mipChainBytes(base, getWidth(), getHeight()) : base;
+    }
+
+    @Override
+    public int getCategory() {
+        return GpuMemoryAccountant.TEXTURE;
+    }
+
+    @Override
+    protected int onCreate(GLApi gl) {
+        gl.glGenTextures(1, mIds, 0);
+        gl.glBindTexture(GLES20.GL_TEXTURE_2D, mIds[0]);
+        gl.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MIN_FILTER, mMinFilter);
+        gl.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MAG_FILTER, mMagFilter);
+        gl.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_S, mWrapS);
+        gl.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_T, mWrapT);
+        mSource.upload(gl);
+        gl.glBindTexture(GLES20.GL_TEXTURE_2D, 0);
+        return mIds[0];
+    }
+
+    @Override
+    protected void onDelete(GLApi gl, int id) {
+        mIds[0] = id;
+        gl.glDeleteTextures(1, mIds, 0);
+    }
+}
@@ -0,0 +1,220 @@
+package com.phj.opengl.gl;
+
+import android.opengl.GLES20;
+import android.util.Log;
+
+/**
+ * 描述：显存记账，按类别统计glTexImage2D/glBufferData等分配的估算字节数
+ * 超出预算时通知{@link Evictor}回收，例如{@link GLResourceRegistry}会按最近绘制时间驱逐可驱逐的纹理和buffer。
+ * 估算值不含驱动的对齐和内部副本，只用于预算控制和观察趋势。
+ * 所有方法都必须在GL线程调用。
+ * Created by PHJ on 2026/10/18.
+ */
+
+public class GpuMemoryAccountant {
+
+    private final static String TAG = GpuMemoryAccountant.class.getSimpleName();
+
+    public static final int TEXTURE = 0;        // 普通纹理
+    public static final int BUFFER = 1;         // VBO/IBO
+    public static final int RENDER_TARGET = 2;  // FBO颜色纹理 + 深度缓冲
+    public static final int OTHER = 3;          // 其他，不计字节
+    public static final int CATEGORY_COUNT = 4;
+
+    private static final String[] NAMES = {
+            "texture",
+            "buffer",
+            "renderTarget",
+            "other",
+    };
+
+    /**
+     * 超出预算时回收显存
+     */
+    public interface Evictor {
+        /**
+         * @param bytes 需要回收的字节数
+         * @return 实际回收的字节数
+         */
+        long evict(long bytes);
+    }
+
+    private final long[] mBytes = new long[CATEGORY_COUNT];
+    private final int[] mCounts = new int[CATEGORY_COUNT];
+    private long mTotalBytes;
+    private long mPeakBytes;
+    private long mBudgetBytes;   // <=0表示不限制
+    private Evictor mEvictor;
+    private boolean mEvicting;
+
+    /**
+     * @param budgetBytes 显存预算，<=0表示不限制
+     */
+    public GpuMemoryAccountant(long budgetBytes) {
+        this.mBudgetBytes = budgetBytes;
+    }
+
+    public void setEvictor(Evictor evictor) {
+        this.mEvictor = evictor;
+    }
+
+    /**
+     * 记录一次分配，超出预算时立即回收
+     */
+    public void allocate(int category, long bytes) {
+        mBytes[category] += bytes;
+        mCounts[category]++;
+        mTotalBytes += bytes;
+        if (mTotalBytes > mPeakBytes) {
+            mPeakBytes = mTotalBytes;
+        }
+        trimToBudget();
+    }
+
+    /**
+     * 记录一次释放
+     */
+    public void free(int category, long bytes) {
+        mBytes[category] -= bytes;
+        mCounts[category]--;
+        mTotalBytes -= bytes;
+    }
+
+    /**
+     * 对象数据大小变化，例如buffer重新glBufferData
+     */
+    public void resize(int category, long oldBytes, long newBytes) {
+        mBytes[category] += newBytes - oldBytes;
+        mTotalBytes += newBytes - oldBytes;
+        if (mTotalBytes > mPeakBytes) {
+            mPeakBytes = mTotalBytes;
+        }
+        trimToBudget();
+    }
+
+    /**
+     * 调整预算，例如收到onTrimMemory时调低，立即回收超出部分
+     */
+    public void setBudgetBytes(long budgetBytes) {
+        this.mBudgetBytes = budgetBytes;
+        trimToBudget();
+    }
+
+    public long getBudgetBytes() {
+        return mBudgetBytes;
+    }
+
+    public long getTotalBytes() {
+        return mTotalBytes;
+    }
+
+    public long getPeakBytes() {
+        return mPeakBytes;
+    }
+
+    public long getBytes(int category) {
+        return mBytes[category];
+    }
+
+    public int getCount(int category) {
+        return mCounts[category];
+    }
+
+    public boolean isOverBudget() {
+        return mBudgetBytes > 0 && mTotalBytes > mBudgetBytes;
+    }
+
+    private void trimToBudget() {
+        // 回收过程中释放资源会再次进入这里，避免递归
+        if (!isOverBudget() || mEvictor == null || mEvicting) {
+            return;
+        }
+        mEvicting = true;
+        try {
+            mEvictor.evict(mTotalBytes - mBudgetBytes);
+        } finally {
+            mEvicting = false;
+        }
+        if (isOverBudget()) {
+            Log.w(TAG, "over budget after evict: " + this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("GpuMemory{total=").append(mTotalBytes)
+                .append(", budget=").append(mBudgetBytes)
+                .append(", peak=").append(mPeakBytes);
+        for (int i = 0; i < CATEGORY_COUNT; i++) {
+            sb.append(", ").append(NAMES[i]).append('=').append(mBytes[i]).append('/').append(mCounts[i]);
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * 估算纹理占用
+     *
+     * @param format    纹理格式，如GL_RGBA
+     * @param type      数据类型，如GL_UNSIGNED_BYTE
+     * @param mipmapped 是否带完整的mipmap链
+     */
+    public static long estimateTextureBytes(int width, int height, int format, int type, boolean mipmapped) {
+        long base = (long) width * height * bytesPerTexel(format, type);
+        return mipmapped ? mipChainBytes(base, width, height) : base;
+    }
+
+    /**
+     * 由第0级的字节数推算完整mipmap链的字节数，每级宽高减半直到1x1
+     */
+    public static long mipChainBytes(long baseBytes, int width, int height) {
+        long baseTexels = (long) width * height;
+        if (baseTexels <= 0) {
+            return baseBytes;
+        }
+        long texels = 0;
+        int w = width;
+        int h = height;
+        while (true) {
+            texels += (long) w * h;
+            if (w == 1 && h == 1) {
+                break;
+            }
+            w = Math.max(1, w >> 1);
+            h = Math.max(1, h >> 1);
+        }
+        return baseBytes * texels / baseTexels;
+    }
+
+    /**
+     * 是否为使用mipmap的缩小过滤方式
+     */
+    public static boolean isMipmapFilter(int minFilter) {
+        return minFilter == GLES20.GL_NEAREST_MIPMAP_NEAREST
+                || minFilter == GLES20.GL_LINEAR_MIPMAP_NEAREST
+                || minFilter == GLES20.GL_NEAREST_MIPMAP_LINEAR
+                || minFilter == GLES20.GL_LINEAR_MIPMAP_LINEAR;
+    }
+
+    // 每个像素的字节数
+    public static int bytesPerTexel(int format, int type) {
+        switch (type) {
+            case GLES20.GL_UNSIGNED_SHORT_5_6_5:
+            case GLES20.GL_UNSIGNED_SHORT_4_4_4_4:
+            case GLES20.GL_UNSIGNED_SHORT_5_5_5_1:
+                return 2;
+            default:
+                break;
+        }
+        switch (format) {
+            case GLES20.GL_ALPHA:
+            case GLES20.GL_LUMINANCE:
+                return 1;
+            case GLES20.GL_LUMINANCE_ALPHA:
+                return 2;
+            case GLES20.GL_RGB:
+                return 3;
+            default:
+                return 4;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.phj.opengl.gl;
+
+/**
+ * 描述：4x4矩阵运算，列主序，参数和结果与android.opengl.Matrix的同名方法相同
+ * 纯Java实现，不分配；单元测试中android.jar的Matrix是空实现，渲染器用这里的版本时测到的MVP和uniform上传才是真实的
+ * Created by PHJ on 2026/10/19.
+ */
+
+public final class MatrixHelper {
+
+    private MatrixHelper() {
+    }
+
+    public static void setIdentityM(float[] m, int offset) {
+        for (int i = 0; i < 16; i++) {
+            m[offset + i] = 0;
+        }
+        m[offset] = 1;
+        m[offset + 5] = 1;
+        m[offset + 10] = 1;
+        m[offset + 15] = 1;
+    }
+
+    /**
+     * 透视投影
+     */
+    public static void frustumM(float[] m, int offset, float left, float right,
+                                float bottom, float top, float near, float far) {
+        if (left == right || bottom == top || near == far || near <= 0 || far <= 0) {
+            throw new IllegalArgumentException("invalid frustum");
+        }
+        float width = 1f / (right - left);
+        float height = 1f / (top - bottom);
+        float depth = 1f / (near - far);
+        for (int i = 0; i < 16; i++) {
+            m[offset + i] = 0;
+        }
+        m[offset] = 2 * near * width;
+        m[offset + 5] = 2 * near * height;
+        m[offset + 8] = (right + left) * width;
+        m[offset + 9] = (top + bottom) * height;
+        m[offset + 10] = (far + near) * depth;
+        m[offset + 11] = -1;
+        m[offset + 14] = 2 * far * near * depth;
+    }
+
+    /**
+     * 正交投影
+     */
+    public static void orthoM(float[] m, int offset, float left, float right,
+                              float bottom, float top, float near, float far) {
+        if (left == right || bottom == top || near == far) {
+            throw new IllegalArgumentException("invalid ortho");
+        }
+        float width = 1f / (right - left);
+        float height = 1f / (top - bottom);
+        float depth = 1f / (far - near);
+        for (int i = 0; i < 16; i++) {
+            m[offset + i] = 0;
+        }
+        m[offset] = 2 * width;
+        m[offset + 5] = 2 * height;
+        m[offset + 10] = -2 * depth;
+        m[offset + 12] = -(right + left) * width;
+        m[offset + 13] = -(top + bottom) * height;
+        m[offset + 14] = -(far + near) * depth;
+        m[offset + 15] = 1;
+    }
+
+    /**
+     * 相机矩阵，相机在eye，看向center，up为上方
+     */
+    public static void setLookAtM(float[] m, int offset, float eyeX, float eyeY, float eyeZ,
+                                  float centerX, float centerY, float centerZ,
+                                  float upX, float upY, float upZ) {
+        float fx = centerX - eyeX;
+        float fy = centerY - eyeY;
+        float fz = centerZ - eyeZ;
+        float invLength = 1f / (float) Math.sqrt(fx * fx + fy * fy + fz * fz);
+        fx *= invLength;
+        fy *= invLength;
+        fz *= invLength;
+
+        // s = f x up
+        float sx = fy * upZ - fz * upY;
+        float sy = fz * upX - fx * upZ;
+        float sz = fx * upY - fy * upX;
+        invLength = 1f / (float) Math.sqrt(sx * sx + sy * sy + sz * sz);
+        sx *= invLength;
+        sy *= invLength;
+        sz *= invLength;
+
+        // u = s x f
+        float ux = sy * fz - sz * fy;
+        float uy = sz * fx - sx * fz;
+        float uz = sx * fy - sy * fx;
+
+        m[offset] = sx;
+        m[offset + 1] = ux;
+        m[offset + 2] = -fx;
+        m[offset + 3] = 0;
+        m[offset + 4] = sy;
+        m[offset + 5] = uy;
+        m[offset + 6] = -fy;
+        m[offset + 7] = 0;
+        m[offset + 8] = sz;
+        m[offset + 9] = uz;
+        m[offset + 10] = -fz;
+        m[offset + 11] = 0;
+        m[offset + 12] = 0;
+        m[offset + 13] = 0;
+        m[offset + 14] = 0;
+        m[offset + 15] = 1;
+        translateM(m, offset, -eyeX, -eyeY, -eyeZ);
+    }
+
+    /**
+     * result = lhs * rhs，result不能与lhs或rhs重叠
+     */
+    public static void multiplyMM(float[] result, int resultOffset, float[] lhs, int lhsOffset,
+                                  float[] rhs, int rhsOffset) {
+        for (int column = 0; column < 4; column++) {
+            int r = rhsOffset + column * 4;
+            float r0 = rhs[r];
+            float r1 = rhs[r + 1];
+            float r2 = rhs[r + 2];
+            float r3 = rhs[r + 3];
+            for (int row = 0; row < 4; row++) {
+                int l = lhsOffset + row;
+                result[resultOffset + column * 4 + row] =
+                        lhs[l] * r0 + lhs[l + 4] * r1 + lhs[l + 8] * r2 + lhs[l + 12] * r3;
+            }
+        }
+    }
+
+    /**
+     * m = m * T(x, y, z)
+     */
+    public static void translateM(float[] m, int offset, float x, float y, float z) {
+        for (int i = 0; i < 4; i++) {
+            int index = offset + i;
+            m[index + 12] += m[index] * x + m[index + 4] * y + m[index + 8] * z;
+        }
+    }
+
+    /**
+     * m = m * S(x, y, z)
+     */
+    public static void scaleM(float[] m, int offset, float x, float y, float z) {
+        for (int i = 0; i < 4; i++) {
+            int index = offset + i;
+            m[index] *= x;
+            m[index + 4] *= y;
+            m[index + 8] *= z;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.phj.opengl.gl;
+
+import android.opengl.GLES20;
+import android.util.Log;
+
+/**
+ * 描述：shader编译和program链接，带编译、链接状态检查
+ * Created by PHJ on 2026/10/18.
+ */
+
+public final class ShaderHelper {
+
+    private final static String TAG = ShaderHelper.class.getSimpleName();
+
+    private ShaderHelper() {
+    }
+
+    /**
+     * 加载shader
+     *
+     * @param type       片元、顶点
+     * @param shaderCode Code
+     * @return shader id，编译失败返回0
+     */
+    public static int loadShader(GLApi gl, int type, String shaderCode) {
+        int shader = gl.glCreateShader(type);
+        gl.glShaderSource(shader, shaderCode);
+        gl.glCompileShader(shader);
+        int[] compiled = new int[1];
+        gl.glGetShaderiv(shader, GLES20.GL_COMPILE_STATUS, compiled, 0);
+        if (compiled[0] == 0) {
+            Log.e(TAG, "loadShader: compile failed " + gl.glGetShaderInfoLog(shader) + "\n" + shaderCode);
+            gl.glDeleteShader(shader);
+            return 0;
+        }
+        return shader;
+    }
+
+    /**
+     * 编译并链接program
+     *
+     * @return program id，失败返回0
+     */
+    public static int createProgram(GLApi gl, String vertexSource, String fragmentSource) {
+        int vertexShader = loadShader(gl, GLES20.GL_VERTEX_SHADER, vertexSource);
+        if (vertexShader == 0) {
+            return 0;
+        }
+        int fragmentShader = loadShader(gl, GLES20.GL_FRAGMENT_SHADER, fragmentSource);
+        if (fragmentShader == 0) {
+            gl.glDeleteShader(vertexShader);
+            return 0;
+        }
+        int program = gl.glCreateProgram();
+        gl.glAttachShader(program, vertexShader);
+        gl.glAttachShader(program, fragmentShader);
+        gl.glLinkProgram(program);
+        // 链接后shader对象不再需要，先detach再删除，驱动可以立即回收
+        gl.glDetachShader(program, vertexShader);
+        gl.glDetachShader(program, fragmentShader);
+        gl.glDeleteShader(vertexShader);
+        gl.glDeleteShader(fragmentShader);
+        int[] link = new int[1];
+        gl.glGetProgramiv(program, GLES20.GL_LINK_STATUS, link, 0);
+        if (link[0] == 0) {
+            Log.e(TAG, "createProgram: link failed " + gl.glGetProgramInfoLog(program));
+            gl.glDeleteProgram(program);
+            return 0;
+        }
+        return program;
+    }
+}
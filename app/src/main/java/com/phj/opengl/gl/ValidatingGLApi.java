@@ -0,0 +1,904 @@
+package com.phj.opengl.gl;
+
+import android.graphics.Bitmap;
+import android.opengl.GLES20;
+import android.util.Log;
+
+import com.phj.opengl.BuildConfig;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.util.HashMap;
+
+/**
+ * 描述：调试用的GLApi，每次调用前后检查glGetError，并在调用之前做GL不会报错、但会读错数据的检查：
+ * 顶点属性的stride不能小于一个元素、绘制读取的顶点不能超出客户端数组或VBO、索引不能超出IBO、
+ * 使用的program必须已链接。出错时抛出IllegalStateException，消息中带有出错的GL函数和调用位置。
+ * 渲染器也会直接调用GLES20，所以绑定、当前program和属性状态都向GL查询，只有自己记录过且与GL一致的属性才检查范围；
+ * 调用之前就已存在的GL错误来自之前没有经过这里的调用，单独报告。
+ * 只在{@link BuildConfig#GL_VALIDATION}打开时由{@link #wrapIfEnabled(GLApi)}创建，release中直接使用原实现，没有额外开销。
+ * 必须在GL线程使用
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class ValidatingGLApi implements GLApi {
+
+    private final static String TAG = ValidatingGLApi.class.getSimpleName();
+
+    // 记录的顶点属性个数，ES 2.0至少8个，常见为16
+    private static final int MAX_ATTRIBS = 16;
+
+    private final GLApi mGL;
+    private final int[] mQuery = new int[1];
+    // 经过这里上传的buffer大小，直接用GLES20上传的不知道大小，不检查
+    private final HashMap<Integer, Integer> mBufferSizes = new HashMap<>();
+    // 最近一次经过这里设置的顶点属性指针
+    private final boolean[] mAttribKnown = new boolean[MAX_ATTRIBS];
+    private final int[] mAttribSize = new int[MAX_ATTRIBS];
+    private final int[] mAttribType = new int[MAX_ATTRIBS];
+    private final int[] mAttribStride = new int[MAX_ATTRIBS];
+    private final int[] mAttribBuffer = new int[MAX_ATTRIBS];
+    private final int[] mAttribOffset = new int[MAX_ATTRIBS];
+    private final long[] mAttribClientBytes = new long[MAX_ATTRIBS];   // 客户端数组剩余的字节数
+
+    public ValidatingGLApi(GLApi gl) {
+        this.mGL = gl;
+    }
+
+    /**
+     * debug构建中返回包装了gl的校验实现，release中返回gl本身
+     */
+    public static GLApi wrapIfEnabled(GLApi gl) {
+        return wrap(gl, BuildConfig.GL_VALIDATION);
+    }
+
+    static GLApi wrap(GLApi gl, boolean enabled) {
+        return enabled ? new ValidatingGLApi(gl) : gl;
+    }
+
+    @Override
+    public void glGenTextures(int n, int[] textures, int offset) {
+        checkPending("glGenTextures");
+        mGL.glGenTextures(n, textures, offset);
+        checkError("glGenTextures");
+    }
+
+    @Override
+    public void glDeleteTextures(int n, int[] textures, int offset) {
+        checkPending("glDeleteTextures");
+        mGL.glDeleteTextures(n, textures, offset);
+        checkError("glDeleteTextures");
+    }
+
+    @Override
+    public void glBindTexture(int target, int texture) {
+        checkPending("glBindTexture");
+        mGL.glBindTexture(target, texture);
+        checkError("glBindTexture");
+    }
+
+    @Override
+    public void glTexParameteri(int target, int pname, int param) {
+        checkPending("glTexParameteri");
+        mGL.glTexParameteri(target, pname, param);
+        checkError("glTexParameteri");
+    }
+
+    @Override
+    public void glTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                      int format, int type, Buffer pixels) {
+        checkPending("glTexImage2D");
+        mGL.glTexImage2D(target, level, internalformat, width, height, border, format, type, pixels);
+        checkError("glTexImage2D");
+    }
+
+    @Override
+    public void glGenFramebuffers(int n, int[] framebuffers, int offset) {
+        checkPending("glGenFramebuffers");
+        mGL.glGenFramebuffers(n, framebuffers, offset);
+        checkError("glGenFramebuffers");
+    }
+
+    @Override
+    public void glDeleteFramebuffers(int n, int[] framebuffers, int offset) {
+        checkPending("glDeleteFramebuffers");
+        mGL.glDeleteFramebuffers(n, framebuffers, offset);
+        checkError("glDeleteFramebuffers");
+    }
+
+    @Override
+    public void glBindFramebuffer(int target, int framebuffer) {
+        checkPending("glBindFramebuffer");
+        mGL.glBindFramebuffer(target, framebuffer);
+        checkError("glBindFramebuffer");
+    }
+
+    @Override
+    public void glFramebufferTexture2D(int target, int attachment, int textarget, int texture, int level) {
+        checkPending("glFramebufferTexture2D");
+        mGL.glFramebufferTexture2D(target, attachment, textarget, texture, level);
+        checkError("glFramebufferTexture2D");
+    }
+
+    @Override
+    public int glCheckFramebufferStatus(int target) {
+        checkPending("glCheckFramebufferStatus");
+        int result = mGL.glCheckFramebufferStatus(target);
+        checkError("glCheckFramebufferStatus");
+        return result;
+    }
+
+    @Override
+    public void glGenRenderbuffers(int n, int[] renderbuffers, int offset) {
+        checkPending("glGenRenderbuffers");
+        mGL.glGenRenderbuffers(n, renderbuffers, offset);
+        checkError("glGenRenderbuffers");
+    }
+
+    @Override
+    public void glDeleteRenderbuffers(int n, int[] renderbuffers, int offset) {
+        checkPending("glDeleteRenderbuffers");
+        mGL.glDeleteRenderbuffers(n, renderbuffers, offset);
+        checkError("glDeleteRenderbuffers");
+    }
+
+    @Override
+    public void glBindRenderbuffer(int target, int renderbuffer) {
+        checkPending("glBindRenderbuffer");
+        mGL.glBindRenderbuffer(target, renderbuffer);
+        checkError("glBindRenderbuffer");
+    }
+
+    @Override
+    public void glRenderbufferStorage(int target, int internalformat, int width, int height) {
+        checkPending("glRenderbufferStorage");
+        mGL.glRenderbufferStorage(target, internalformat, width, height);
+        checkError("glRenderbufferStorage");
+    }
+
+    @Override
+    public void glFramebufferRenderbuffer(int target, int attachment, int renderbuffertarget, int renderbuffer) {
+        checkPending("glFramebufferRenderbuffer");
+        mGL.glFramebufferRenderbuffer(target, attachment, renderbuffertarget, renderbuffer);
+        checkError("glFramebufferRenderbuffer");
+    }
+
+    @Override
+    public void glViewport(int x, int y, int width, int height) {
+        checkPending("glViewport");
+        mGL.glViewport(x, y, width, height);
+        checkError("glViewport");
+    }
+
+    @Override
+    public int glCreateShader(int type) {
+        checkPending("glCreateShader");
+        int result = mGL.glCreateShader(type);
+        checkError("glCreateShader");
+        return result;
+    }
+
+    @Override
+    public void glShaderSource(int shader, String string) {
+        checkPending("glShaderSource");
+        mGL.glShaderSource(shader, string);
+        checkError("glShaderSource");
+    }
+
+    @Override
+    public void glCompileShader(int shader) {
+        checkPending("glCompileShader");
+        mGL.glCompileShader(shader);
+        checkError("glCompileShader");
+    }
+
+    @Override
+    public void glGetShaderiv(int shader, int pname, int[] params, int offset) {
+        checkPending("glGetShaderiv");
+        mGL.glGetShaderiv(shader, pname, params, offset);
+        checkError("glGetShaderiv");
+    }
+
+    @Override
+    public String glGetShaderInfoLog(int shader) {
+        checkPending("glGetShaderInfoLog");
+        String result = mGL.glGetShaderInfoLog(shader);
+        checkError("glGetShaderInfoLog");
+        return result;
+    }
+
+    @Override
+    public void glDeleteShader(int shader) {
+        checkPending("glDeleteShader");
+        mGL.glDeleteShader(shader);
+        checkError("glDeleteShader");
+    }
+
+    @Override
+    public int glCreateProgram() {
+        checkPending("glCreateProgram");
+        int result = mGL.glCreateProgram();
+        checkError("glCreateProgram");
+        return result;
+    }
+
+    @Override
+    public void glAttachShader(int program, int shader) {
+        checkPending("glAttachShader");
+        mGL.glAttachShader(program, shader);
+        checkError("glAttachShader");
+    }
+
+    @Override
+    public void glLinkProgram(int program) {
+        checkPending("glLinkProgram");
+        mGL.glLinkProgram(program);
+        checkError("glLinkProgram");
+        // 失败由调用方处理，这里只记录，真正使用时glUseProgram会报错
+        mGL.glGetProgramiv(program, GLES20.GL_LINK_STATUS, mQuery, 0);
+        if (mQuery[0] == 0) {
+            Log.e(TAG, "glLinkProgram: program " + program + " failed to link: " + mGL.glGetProgramInfoLog(program)
+                    + " at " + callSite());
+        }
+    }
+
+    @Override
+    public void glGetProgramiv(int program, int pname, int[] params, int offset) {
+        checkPending("glGetProgramiv");
+        mGL.glGetProgramiv(program, pname, params, offset);
+        checkError("glGetProgramiv");
+    }
+
+    @Override
+    public String glGetProgramInfoLog(int program) {
+        checkPending("glGetProgramInfoLog");
+        String result = mGL.glGetProgramInfoLog(program);
+        checkError("glGetProgramInfoLog");
+        return result;
+    }
+
+    @Override
+    public void glDeleteProgram(int program) {
+        checkPending("glDeleteProgram");
+        mGL.glDeleteProgram(program);
+        checkError("glDeleteProgram");
+    }
+
+    @Override
+    public void glUseProgram(int program) {
+        if (program != 0) {
+            checkLinked("glUseProgram", program);
+        }
+        checkPending("glUseProgram");
+        mGL.glUseProgram(program);
+        checkError("glUseProgram");
+    }
+
+    @Override
+    public int glGetAttribLocation(int program, String name) {
+        checkPending("glGetAttribLocation");
+        int result = mGL.glGetAttribLocation(program, name);
+        checkError("glGetAttribLocation");
+        return result;
+    }
+
+    @Override
+    public int glGetUniformLocation(int program, String name) {
+        checkPending("glGetUniformLocation");
+        int result = mGL.glGetUniformLocation(program, name);
+        checkError("glGetUniformLocation");
+        return result;
+    }
+
+    @Override
+    public void glUniform1i(int location, int x) {
+        checkPending("glUniform1i");
+        mGL.glUniform1i(location, x);
+        checkError("glUniform1i");
+    }
+
+    @Override
+    public void glUniform1f(int location, float x) {
+        checkPending("glUniform1f");
+        mGL.glUniform1f(location, x);
+        checkError("glUniform1f");
+    }
+
+    @Override
+    public void glUniform2f(int location, float x, float y) {
+        checkPending("glUniform2f");
+        mGL.glUniform2f(location, x, y);
+        checkError("glUniform2f");
+    }
+
+    @Override
+    public void glUniform4f(int location, float x, float y, float z, float w) {
+        checkPending("glUniform4f");
+        mGL.glUniform4f(location, x, y, z, w);
+        checkError("glUniform4f");
+    }
+
+    @Override
+    public void glActiveTexture(int texture) {
+        checkPending("glActiveTexture");
+        mGL.glActiveTexture(texture);
+        checkError("glActiveTexture");
+    }
+
+    @Override
+    public void glVertexAttribPointer(int indx, int size, int type, boolean normalized, int stride, Buffer ptr) {
+        checkLayout("glVertexAttribPointer", size, type, stride);
+        checkPending("glVertexAttribPointer");
+        mGL.glVertexAttribPointer(indx, size, type, normalized, stride, ptr);
+        checkError("glVertexAttribPointer");
+        record(indx, size, type, stride, 0, 0, remainingBytes(ptr));
+    }
+
+    @Override
+    public void glEnableVertexAttribArray(int index) {
+        checkPending("glEnableVertexAttribArray");
+        mGL.glEnableVertexAttribArray(index);
+        checkError("glEnableVertexAttribArray");
+    }
+
+    @Override
+    public void glDisableVertexAttribArray(int index) {
+        checkPending("glDisableVertexAttribArray");
+        mGL.glDisableVertexAttribArray(index);
+        checkError("glDisableVertexAttribArray");
+    }
+
+    @Override
+    public void glDrawArrays(int mode, int first, int count) {
+        checkProgram("glDrawArrays");
+        if (first < 0 || count < 0) {
+            fail("glDrawArrays", "first=" + first + " count=" + count);
+        }
+        if (count > 0) {
+            checkAttributes("glDrawArrays", first + count);
+        }
+        checkPending("glDrawArrays");
+        mGL.glDrawArrays(mode, first, count);
+        checkError("glDrawArrays");
+    }
+
+    @Override
+    public String glGetString(int name) {
+        checkPending("glGetString");
+        String result = mGL.glGetString(name);
+        checkError("glGetString");
+        return result;
+    }
+
+    @Override
+    public void glGetIntegerv(int pname, int[] params, int offset) {
+        checkPending("glGetIntegerv");
+        mGL.glGetIntegerv(pname, params, offset);
+        checkError("glGetIntegerv");
+    }
+
+    @Override
+    public void glGenBuffers(int n, int[] buffers, int offset) {
+        checkPending("glGenBuffers");
+        mGL.glGenBuffers(n, buffers, offset);
+        checkError("glGenBuffers");
+    }
+
+    @Override
+    public void glDeleteBuffers(int n, int[] buffers, int offset) {
+        checkPending("glDeleteBuffers");
+        mGL.glDeleteBuffers(n, buffers, offset);
+        checkError("glDeleteBuffers");
+        for (int i = 0; i < n; i++) {
+            mBufferSizes.remove(buffers[offset + i]);
+        }
+    }
+
+    @Override
+    public void glBindBuffer(int target, int buffer) {
+        checkPending("glBindBuffer");
+        mGL.glBindBuffer(target, buffer);
+        checkError("glBindBuffer");
+    }
+
+    @Override
+    public void glBufferData(int target, int size, Buffer data, int usage) {
+        if (data != null && remainingBytes(data) < size) {
+            fail("glBufferData", "size " + size + " but data has only " + remainingBytes(data) + " bytes remaining");
+        }
+        checkPending("glBufferData");
+        mGL.glBufferData(target, size, data, usage);
+        checkError("glBufferData");
+        int buffer = getInteger(bindingOf(target));
+        if (buffer != 0) {
+            mBufferSizes.put(buffer, size);
+        }
+    }
+
+    @Override
+    public void glBufferSubData(int target, int offset, int size, Buffer data) {
+        int buffer = getInteger(bindingOf(target));
+        Integer bufferSize = mBufferSizes.get(buffer);
+        if (bufferSize != null && (long) offset + size > bufferSize) {
+            fail("glBufferSubData", "range " + offset + "+" + size + " exceeds buffer " + buffer + " of " + bufferSize
+                    + " bytes");
+        }
+        if (data != null && remainingBytes(data) < size) {
+            fail("glBufferSubData", "size " + size + " but data has only " + remainingBytes(data) + " bytes remaining");
+        }
+        checkPending("glBufferSubData");
+        mGL.glBufferSubData(target, offset, size, data);
+        checkError("glBufferSubData");
+    }
+
+    @Override
+    public void glDetachShader(int program, int shader) {
+        checkPending("glDetachShader");
+        mGL.glDetachShader(program, shader);
+        checkError("glDetachShader");
+    }
+
+    @Override
+    public void texImage2D(int target, int level, Bitmap bitmap, int border) {
+        checkPending("texImage2D");
+        mGL.texImage2D(target, level, bitmap, border);
+        checkError("texImage2D");
+    }
+
+    @Override
+    public void glCompressedTexImage2D(int target, int level, int internalformat, int width, int height, int border, int imageSize, Buffer data) {
+        checkPending("glCompressedTexImage2D");
+        mGL.glCompressedTexImage2D(target, level, internalformat, width, height, border, imageSize, data);
+        checkError("glCompressedTexImage2D");
+    }
+
+    @Override
+    public void glGenerateMipmap(int target) {
+        checkPending("glGenerateMipmap");
+        mGL.glGenerateMipmap(target);
+        checkError("glGenerateMipmap");
+    }
+
+    @Override
+    public void glVertexAttribPointer(int indx, int size, int type, boolean normalized, int stride, int offset) {
+        checkLayout("glVertexAttribPointer", size, type, stride);
+        int buffer = getInteger(GLES20.GL_ARRAY_BUFFER_BINDING);
+        if (buffer == 0) {
+            // ES 2.0中没有绑定buffer时offset会被当成客户端内存地址
+            fail("glVertexAttribPointer", "offset " + offset + " used without a bound GL_ARRAY_BUFFER");
+        }
+        checkPending("glVertexAttribPointer");
+        mGL.glVertexAttribPointer(indx, size, type, normalized, stride, offset);
+        checkError("glVertexAttribPointer");
+        record(indx, size, type, stride, buffer, offset, -1);
+    }
+
+    @Override
+    public void glDrawElements(int mode, int count, int type, int offset) {
+        checkProgram("glDrawElements");
+        int bytes = typeBytes(type);
+        if (type != GLES20.GL_UNSIGNED_BYTE && type != GLES20.GL_UNSIGNED_SHORT && type != GLES20.GL_UNSIGNED_INT) {
+            fail("glDrawElements", "index type 0x" + Integer.toHexString(type));
+        }
+        int buffer = getInteger(GLES20.GL_ELEMENT_ARRAY_BUFFER_BINDING);
+        if (buffer == 0) {
+            fail("glDrawElements", "offset " + offset + " used without a bound GL_ELEMENT_ARRAY_BUFFER");
+        }
+        Integer size = mBufferSizes.get(buffer);
+        long end = offset + (long) count * bytes;
+        if (size != null && end > size) {
+            fail("glDrawElements", count + " indices from offset " + offset + " need " + end
+                    + " bytes, index buffer " + buffer + " has " + size);
+        }
+        checkPending("glDrawElements");
+        mGL.glDrawElements(mode, count, type, offset);
+        checkError("glDrawElements");
+    }
+
+    @Override
+    public void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset) {
+        checkPending("glUniformMatrix4fv");
+        mGL.glUniformMatrix4fv(location, count, transpose, value, offset);
+        checkError("glUniformMatrix4fv");
+    }
+
+    @Override
+    public void glEnable(int cap) {
+        checkPending("glEnable");
+        mGL.glEnable(cap);
+        checkError("glEnable");
+    }
+
+    @Override
+    public void glDisable(int cap) {
+        checkPending("glDisable");
+        mGL.glDisable(cap);
+        checkError("glDisable");
+    }
+
+    @Override
+    public void glBlendFunc(int sfactor, int dfactor) {
+        checkPending("glBlendFunc");
+        mGL.glBlendFunc(sfactor, dfactor);
+        checkError("glBlendFunc");
+    }
+
+    @Override
+    public void glTexSubImage2D(int target, int level, int xoffset, int yoffset, int width, int height, int format, int type, Buffer pixels) {
+        checkPending("glTexSubImage2D");
+        mGL.glTexSubImage2D(target, level, xoffset, yoffset, width, height, format, type, pixels);
+        checkError("glTexSubImage2D");
+    }
+
+    @Override
+    public void glPixelStorei(int pname, int param) {
+        checkPending("glPixelStorei");
+        mGL.glPixelStorei(pname, param);
+        checkError("glPixelStorei");
+    }
+
+    @Override
+    public void glCopyTexSubImage2D(int target, int level, int xoffset, int yoffset, int x, int y, int width, int height) {
+        checkPending("glCopyTexSubImage2D");
+        mGL.glCopyTexSubImage2D(target, level, xoffset, yoffset, x, y, width, height);
+        checkError("glCopyTexSubImage2D");
+    }
+
+    @Override
+    public void glReadPixels(int x, int y, int width, int height, int format, int type, Buffer pixels) {
+        checkPending("glReadPixels");
+        mGL.glReadPixels(x, y, width, height, format, type, pixels);
+        checkError("glReadPixels");
+    }
+
+    @Override
+    public void glUniform2fv(int location, int count, float[] v, int offset) {
+        checkPending("glUniform2fv");
+        mGL.glUniform2fv(location, count, v, offset);
+        checkError("glUniform2fv");
+    }
+
+    @Override
+    public void glUniform3fv(int location, int count, float[] v, int offset) {
+        checkPending("glUniform3fv");
+        mGL.glUniform3fv(location, count, v, offset);
+        checkError("glUniform3fv");
+    }
+
+    @Override
+    public void glUniform4fv(int location, int count, float[] v, int offset) {
+        checkPending("glUniform4fv");
+        mGL.glUniform4fv(location, count, v, offset);
+        checkError("glUniform4fv");
+    }
+
+    @Override
+    public void glUniformMatrix3fv(int location, int count, boolean transpose, float[] value, int offset) {
+        checkPending("glUniformMatrix3fv");
+        mGL.glUniformMatrix3fv(location, count, transpose, value, offset);
+        checkError("glUniformMatrix3fv");
+    }
+
+    @Override
+    public void glClear(int mask) {
+        checkPending("glClear");
+        mGL.glClear(mask);
+        checkError("glClear");
+    }
+
+    @Override
+    public void glClearColor(float red, float green, float blue, float alpha) {
+        checkPending("glClearColor");
+        mGL.glClearColor(red, green, blue, alpha);
+        checkError("glClearColor");
+    }
+
+    @Override
+    public void glClearDepthf(float depth) {
+        checkPending("glClearDepthf");
+        mGL.glClearDepthf(depth);
+        checkError("glClearDepthf");
+    }
+
+    @Override
+    public void glClearStencil(int s) {
+        checkPending("glClearStencil");
+        mGL.glClearStencil(s);
+        checkError("glClearStencil");
+    }
+
+    @Override
+    public void glStencilFunc(int func, int ref, int mask) {
+        checkPending("glStencilFunc");
+        mGL.glStencilFunc(func, ref, mask);
+        checkError("glStencilFunc");
+    }
+
+    @Override
+    public void glStencilOp(int fail, int zfail, int zpass) {
+        checkPending("glStencilOp");
+        mGL.glStencilOp(fail, zfail, zpass);
+        checkError("glStencilOp");
+    }
+
+    @Override
+    public void glStencilMask(int mask) {
+        checkPending("glStencilMask");
+        mGL.glStencilMask(mask);
+        checkError("glStencilMask");
+    }
+
+    @Override
+    public void glDepthFunc(int func) {
+        checkPending("glDepthFunc");
+        mGL.glDepthFunc(func);
+        checkError("glDepthFunc");
+    }
+
+    @Override
+    public void glDepthMask(boolean flag) {
+        checkPending("glDepthMask");
+        mGL.glDepthMask(flag);
+        checkError("glDepthMask");
+    }
+
+    @Override
+    public void glColorMask(boolean red, boolean green, boolean blue, boolean alpha) {
+        checkPending("glColorMask");
+        mGL.glColorMask(red, green, blue, alpha);
+        checkError("glColorMask");
+    }
+
+    @Override
+    public int glGetError() {
+        return mGL.glGetError();
+    }
+
+    @Override
+    public void glGetVertexAttribiv(int index, int pname, int[] params, int offset) {
+        checkPending("glGetVertexAttribiv");
+        mGL.glGetVertexAttribiv(index, pname, params, offset);
+        checkError("glGetVertexAttribiv");
+    }
+
+    @Override
+    public void glGetBufferParameteriv(int target, int pname, int[] params, int offset) {
+        checkPending("glGetBufferParameteriv");
+        mGL.glGetBufferParameteriv(target, pname, params, offset);
+        checkError("glGetBufferParameteriv");
+    }
+
+    @Override
+    public void glDrawElements(int mode, int count, int type, Buffer indices) {
+        checkProgram("glDrawElements");
+        if (type != GLES20.GL_UNSIGNED_BYTE && type != GLES20.GL_UNSIGNED_SHORT && type != GLES20.GL_UNSIGNED_INT) {
+            fail("glDrawElements", "index type 0x" + Integer.toHexString(type));
+        }
+        int buffer = getInteger(GLES20.GL_ELEMENT_ARRAY_BUFFER_BINDING);
+        if (buffer != 0) {
+            // 绑定了IBO时客户端数组的地址会被当成偏移
+            fail("glDrawElements", "client indices used while buffer " + buffer + " is bound to GL_ELEMENT_ARRAY_BUFFER");
+        }
+        long need = (long) count * typeBytes(type);
+        if (remainingBytes(indices) < need) {
+            fail("glDrawElements", count + " indices need " + need + " bytes, client array has "
+                    + remainingBytes(indices));
+        }
+        checkPending("glDrawElements");
+        mGL.glDrawElements(mode, count, type, indices);
+        checkError("glDrawElements");
+    }
+
+    @Override
+    public void glProgramBinary(int program, int binaryFormat, Buffer binary, int length) {
+        checkPending("glProgramBinary");
+        // 驱动不认识的格式产生GL_INVALID_ENUM属于预期，调用者随后查询链接状态并清掉错误，这里不检查
+        mGL.glProgramBinary(program, binaryFormat, binary, length);
+    }
+
+    @Override
+    public void glGetProgramBinary(int program, int bufSize, int[] length, int lengthOffset,
+                                   int[] binaryFormat, int binaryFormatOffset, Buffer binary) {
+        if (remainingBytes(binary) < bufSize) {
+            fail("glGetProgramBinary", "bufSize " + bufSize + " exceeds the " + remainingBytes(binary)
+                    + " bytes left in the buffer");
+        }
+        checkPending("glGetProgramBinary");
+        mGL.glGetProgramBinary(program, bufSize, length, lengthOffset, binaryFormat, binaryFormatOffset, binary);
+        checkError("glGetProgramBinary");
+    }
+
+    // 调用之前就有的错误不是这次调用产生的
+    private void checkPending(String function) {
+        int error = mGL.glGetError();
+        if (error != GLES20.GL_NO_ERROR) {
+            fail(function, errorName(error) + " pending before the call, raised by an earlier unchecked GL call");
+        }
+    }
+
+    private void checkError(String function) {
+        int error = mGL.glGetError();
+        if (error != GLES20.GL_NO_ERROR) {
+            fail(function, errorName(error));
+        }
+    }
+
+    private void checkLayout(String function, int size, int type, int stride) {
+        if (size < 1 || size > 4) {
+            fail(function, "size " + size + " is not 1..4");
+        }
+        if (typeBytes(type) == 0) {
+            fail(function, "attribute type 0x" + Integer.toHexString(type));
+        }
+        int element = size * typeBytes(type);
+        if (stride < 0 || (stride != 0 && stride < element)) {
+            fail(function, "stride " + stride + " is smaller than one element of " + size + " x "
+                    + typeBytes(type) + " bytes, vertices would overlap");
+        }
+    }
+
+    private void checkProgram(String function) {
+        int program = getInteger(GLES20.GL_CURRENT_PROGRAM);
+        if (program == 0) {
+            fail(function, "no program in use");
+        }
+        checkLinked(function, program);
+    }
+
+    private void checkLinked(String function, int program) {
+        mQuery[0] = 0;
+        mGL.glGetProgramiv(program, GLES20.GL_LINK_STATUS, mQuery, 0);
+        if (mQuery[0] == 0) {
+            // 不存在的program会产生GL_INVALID_VALUE，先清掉再报告
+            mGL.glGetError();
+            fail(function, "program " + program + " is not linked: " + mGL.glGetProgramInfoLog(program));
+        }
+    }
+
+    // 启用的属性要能读到第vertices - 1个顶点
+    private void checkAttributes(String function, int vertices) {
+        for (int i = 0; i < MAX_ATTRIBS; i++) {
+            if (!mAttribKnown[i] || !matchesGL(i)) {
+                continue;
+            }
+            int element = mAttribSize[i] * typeBytes(mAttribType[i]);
+            int stride = mAttribStride[i] == 0 ? element : mAttribStride[i];
+            long need = mAttribOffset[i] + (long) (vertices - 1) * stride + element;
+            long available;
+            if (mAttribBuffer[i] == 0) {
+                available = mAttribClientBytes[i];
+            } else {
+                Integer size = mBufferSizes.get(mAttribBuffer[i]);
+                if (size == null) {
+                    continue;
+                }
+                available = size;
+            }
+            if (need > available) {
+                fail(function, vertices + " vertices need " + need + " bytes of attribute " + i + ", "
+                        + (mAttribBuffer[i] == 0 ? "client array" : "buffer " + mAttribBuffer[i])
+                        + " has " + available);
+            }
+        }
+    }
+
+    // 属性启用，且GL中的指针仍是这里记录的（没有被直接的GLES20调用改掉）
+    private boolean matchesGL(int index) {
+        return getAttrib(index, GLES20.GL_VERTEX_ATTRIB_ARRAY_ENABLED) != 0
+                && getAttrib(index, GLES20.GL_VERTEX_ATTRIB_ARRAY_BUFFER_BINDING) == mAttribBuffer[index]
+                && getAttrib(index, GLES20.GL_VERTEX_ATTRIB_ARRAY_SIZE) == mAttribSize[index]
+                && getAttrib(index, GLES20.GL_VERTEX_ATTRIB_ARRAY_TYPE) == mAttribType[index]
+                && getAttrib(index, GLES20.GL_VERTEX_ATTRIB_ARRAY_STRIDE) == mAttribStride[index];
+    }
+
+    private void record(int index, int size, int type, int stride, int buffer, int offset, long clientBytes) {
+        if (index < 0 || index >= MAX_ATTRIBS) {
+            return;
+        }
+        mAttribKnown[index] = true;
+        mAttribSize[index] = size;
+        mAttribType[index] = type;
+        mAttribStride[index] = stride;
+        mAttribBuffer[index] = buffer;
+        mAttribOffset[index] = offset;
+        mAttribClientBytes[index] = clientBytes;
+    }
+
+    private int getInteger(int pname) {
+        mQuery[0] = 0;
+        mGL.glGetIntegerv(pname, mQuery, 0);
+        return mQuery[0];
+    }
+
+    private int getAttrib(int index, int pname) {
+        mQuery[0] = 0;
+        mGL.glGetVertexAttribiv(index, pname, mQuery, 0);
+        return mQuery[0];
+    }
+
+    private static int bindingOf(int target) {
+        return target == GLES20.GL_ELEMENT_ARRAY_BUFFER
+                ? GLES20.GL_ELEMENT_ARRAY_BUFFER_BINDING : GLES20.GL_ARRAY_BUFFER_BINDING;
+    }
+
+    private static int typeBytes(int type) {
+        switch (type) {
+            case GLES20.GL_BYTE:
+            case GLES20.GL_UNSIGNED_BYTE:
+                return 1;
+            case GLES20.GL_SHORT:
+            case GLES20.GL_UNSIGNED_SHORT:
+                return 2;
+            case GLES20.GL_FIXED:
+            case GLES20.GL_FLOAT:
+            case GLES20.GL_UNSIGNED_INT:
+                return 4;
+            default:
+                return 0;
+        }
+    }
+
+    // 从position到limit的字节数
+    static long remainingBytes(Buffer buffer) {
+        long remaining = buffer.remaining();
+        if (buffer instanceof ByteBuffer) {
+            return remaining;
+        }
+        if (buffer instanceof ShortBuffer || buffer instanceof CharBuffer) {
+            return remaining * 2;
+        }
+        if (buffer instanceof FloatBuffer || buffer instanceof IntBuffer) {
+            return remaining * 4;
+        }
+        if (buffer instanceof LongBuffer || buffer instanceof DoubleBuffer) {
+            return remaining * 8;
+        }
+        return remaining;
+    }
+
+    private static String errorName(int error) {
+        switch (error) {
+            case GLES20.GL_INVALID_ENUM:
+                return "GL_INVALID_ENUM";
+            case GLES20.GL_INVALID_VALUE:
+                return "GL_INVALID_VALUE";
+            case GLES20.GL_INVALID_OPERATION:
+                return "GL_INVALID_OPERATION";
+            case GLES20.GL_INVALID_FRAMEBUFFER_OPERATION:
+                return "GL_INVALID_FRAMEBUFFER_OPERATION";
+            case GLES20.GL_OUT_OF_MEMORY:
+                return "GL_OUT_OF_MEMORY";
+            default:
+                return "GL error 0x" + Integer.toHexString(error);
+        }
+    }
+
+    private void fail(String function, String message) {
+        // 一次可能有多个错误标志，全部清掉，避免算到下一次调用上
+        for (int i = 0; i < 8; i++) {
+            if (mGL.glGetError() == GLES20.GL_NO_ERROR) {
+                break;
+            }
+        }
+        String text = function + ": " + message + " at " + callSite();
+        Log.e(TAG, text);
+        throw new IllegalStateException(text);
+    }
+
+    // 第一个不在这个类中的栈帧
+    private static String callSite() {
+        StackTraceElement[] stack = new Throwable().getStackTrace();
+        for (StackTraceElement element : stack) {
+            if (!element.getClassName().equals(ValidatingGLApi.class.getName())) {
+                return element.toString();
+            }
+        }
+        return "unknown";
+    }
+}
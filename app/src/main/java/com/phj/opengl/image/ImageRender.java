@@ -3,13 +3,33 @@ package com.phj.opengl.image;
 import android.graphics.Bitmap;
 import android.opengl.GLES20;
 import android.opengl.GLSurfaceView;
-import android.opengl.GLUtils;
-import android.opengl.Matrix;
 import android.util.Log;
 
+import com.phj.opengl.fbo.RenderTargetPool;
+import com.phj.opengl.filter.FilterChain;
+import com.phj.opengl.filter.FilterProgramCache;
+import com.phj.opengl.gl.BitmapTextureSource;
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.gl.GLResourceRegistry;
+import com.phj.opengl.gl.GLResourceScope;
+import com.phj.opengl.gl.GLTexture;
+import com.phj.opengl.gl.MatrixHelper;
+import com.phj.opengl.readback.FrameEncoder;
+import com.phj.opengl.readback.FrameReadback;
+import com.phj.opengl.shader.ShaderFeatures;
+import com.phj.opengl.shader.UniformState;
+import com.phj.opengl.texture.Etc1Encoder;
+import com.phj.opengl.texture.Etc1TextureSource;
+import com.phj.opengl.texture.GpuMipmapTextureSource;
+import com.phj.opengl.texture.MipChain;
+import com.phj.opengl.texture.MipmapGenerator;
+import com.phj.opengl.texture.MipmapTextureSource;
+import com.phj.opengl.shader.ShaderLibrary;
+
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
+import java.util.concurrent.ExecutorService;
 
 import javax.microedition.khronos.egl.EGLConfig;
 import javax.microedition.khronos.opengles.GL10;
@@ -23,20 +43,42 @@ public class ImageRender implements GLSurfaceView.Renderer {
 
     private final static String TAG = ImageRender.class.getSimpleName();
 
+    // 导出：隔2帧回读，最多6帧在处理中
+    private static final int EXPORT_DEPTH = 2;
+    private static final int EXPORT_MAX_IN_FLIGHT = 6;
+
     private int mPositionHandle;    // 顶点
     private int mColorHandle;       // 颜色
     private int mTextureHandle;     // 纹理
-    private int mMvpMatrixHandle;   // 变换矩阵
     private int mProgram;           // Program
-
-    private int mGLUniformTexture;  // 图片纹理
-    private int mGLTextureId = -1;  // 纹理ID
-    private final Bitmap mBitmap;
+    private UniformState mUniforms; // 变换矩阵和纹理单元，值不变时不重复上传
+    private final GLApi mGL;
+    private final ShaderLibrary mShaderLibrary;
+    private final GLResourceRegistry mResourceRegistry;
+    private final GLResourceScope mResourceScope;
+
+    private GLTexture mTexture;     // 图片纹理对象，上下文丢失后由registry重新上传
+    private Etc1Encoder mTextureEncoder; // 不为null时把图片压缩为ETC1再上传
+    private MipmapGenerator mMipmapGenerator; // 不为null时在CPU生成mipmap链
+    private boolean mGpuMipmaps;    // 用glGenerateMipmap生成mipmap
+    private Prepared mPrepared;     // prepareTexture提前准备的纹理数据，第一次onSurfaceCreated时使用
+    private final Bitmap mBitmap;   // 与mSource二选一
+    private final GLTexture.Source mSource; // 准备好的纹理数据，不再压缩和生成mipmap
+    private int mWidth;
+    private int mHeight;
+
+    // 滤镜：离屏渲染目标池、融合program缓存、滤镜链
+    private final RenderTargetPool mRenderTargetPool;
+    private final FilterProgramCache mFilterProgramCache;
+    private final FilterChain mFilterChain;
+
+    // 导出，不导出时为null
+    private FrameReadback mReadback;
+    private Export<?> mExport;
 
     private FloatBuffer mCubeBuffer;
     private FloatBuffer mTextureBuffer;
     private FloatBuffer mColorBuffer;
-    private FloatBuffer mMatrixBuffer;
 
     // 原始的矩形区域的顶点坐标，因为后面使用了顶点法绘制顶点，所以不用定义绘制顶点的索引。无论窗口的大小为多少，在OpenGL二维坐标系中都是为下面表示的矩形区域
     private static final float CUBE[] = { // 窗口中心为OpenGL二维坐标系的原点（0,0）
@@ -58,54 +100,119 @@ public class ImageRender implements GLSurfaceView.Renderer {
     private static final float COLORS[] = {
             0.0f, 1.0f, 0.0f, 1.0f,
             1.0f, 0.0f, 0.0f, 1.0f,
-            0.0f, 0.0f, 1.0f, 1.0f
+            0.0f, 0.0f, 1.0f, 1.0f,
+            1.0f, 1.0f, 0.0f, 1.0f
     };
 
     private float[] mViewMatrix = new float[16];
     private float[] mProjectMatrix = new float[16];
     private float[] mMVPMatrix = new float[16];
 
-    // 顶点shader
-    private static final String VERTEX_SHADER = "" +
-            "precision mediump float;\n"+
-            "attribute vec4 position;\n" +               // 顶点着色器的顶点坐标,由外部程序传入
-            "attribute vec4 inputTextureCoordinate;\n" + // 传入的纹理坐标
-            "attribute vec4 aColor;\n" +
-            "varying vec4 mColor;\n" +                    // 传入的纹理坐标
-            "uniform mat4 transform;" +                   // 变换矩阵
-            "varying vec2 textureCoordinate;\n" +
-            " \n" +
-            "void main()\n" +
-            "{\n" +
-            "    gl_Position = transform*position;\n" +
-            "    mColor = aColor;\n" +
-            "    textureCoordinate = inputTextureCoordinate.xy;\n" + // 最终顶点位置
-            "}";
-
-    // 光栅化后产生了多少个片段，就会插值计算出多少个varying变量，同时渲染管线就会调用多少次片段着色器
-    public static final String  FRAGMENT_SHADER =
-            "precision mediump float;\n"+
-            "varying vec2 textureCoordinate;\n" + // 最终顶点位置，上面顶点着色器的varying变量会传递到这里
-            "uniform sampler2D vTexture;\n" + // 外部传入的图片纹理 即代表整张图片的数据
-            "varying vec4 mColor;\n" + // 传入的纹理坐标
-            "void main()\n" +
-            "{" +
-                "gl_FragColor = texture2D(vTexture,textureCoordinate) * mColor;"+
-            "}";
-
-    public ImageRender(Bitmap bitmap) {
+    public ImageRender(ShaderLibrary shaderLibrary, GLResourceRegistry resourceRegistry, Bitmap bitmap) {
+        this(shaderLibrary, resourceRegistry, bitmap, null);
+    }
+
+    /**
+     * 直接使用准备好的纹理数据，例如资源包中的纹理；{@link #setTextureEncoder}和{@link #setMipmaps}不再生效
+     */
+    public ImageRender(ShaderLibrary shaderLibrary, GLResourceRegistry resourceRegistry, GLTexture.Source source) {
+        this(shaderLibrary, resourceRegistry, null, source);
+    }
+
+    private ImageRender(ShaderLibrary shaderLibrary, GLResourceRegistry resourceRegistry, Bitmap bitmap,
+                        GLTexture.Source source) {
+        this.mShaderLibrary = shaderLibrary;
+        this.mGL = shaderLibrary.getGL();
+        this.mResourceRegistry = resourceRegistry;
+        this.mResourceScope = resourceRegistry.openScope(TAG);
         this.mBitmap = bitmap;
+        this.mSource = source;
+        GLApi gl = resourceRegistry.getGL();
+        // 空闲60帧后释放，最多占用32MB
+        mRenderTargetPool = new RenderTargetPool(gl, 60, 32 * 1024 * 1024);
+        mFilterProgramCache = new FilterProgramCache(gl);
+        mFilterChain = new FilterChain(gl, mRenderTargetPool, mFilterProgramCache);
+        // 离屏目标和纹理记在同一本账上
+        mRenderTargetPool.setMemoryAccountant(resourceRegistry.getAccountant());
+    }
+
+    /**
+     * 滤镜链，需要在GL线程修改，例如通过GLSurfaceView#queueEvent
+     */
+    public FilterChain getFilterChain() {
+        return mFilterChain;
+    }
+
+    /**
+     * 设置后图片以ETC1压缩纹理上传，显存为RGBA8的1/8，alpha会被丢弃；驱动不支持ETC1时仍按Bitmap上传
+     * 需要在第一次onSurfaceCreated之前调用
+     */
+    public void setTextureEncoder(Etc1Encoder encoder) {
+        this.mTextureEncoder = encoder;
+    }
+
+    /**
+     * 图片缩小绘制时使用mipmap + 三线性过滤，减少闪烁和纹理缓存未命中
+     * 需要在第一次onSurfaceCreated之前调用
+     *
+     * @param generator CPU生成mipmap链，可以与ETC1压缩同时使用；为null时不在CPU生成
+     * @param gpu       没有generator或不压缩时，用glGenerateMipmap在GPU上生成
+     */
+    public void setMipmaps(MipmapGenerator generator, boolean gpu) {
+        this.mMipmapGenerator = generator;
+        this.mGpuMipmaps = gpu;
+    }
+
+    /**
+     * 提前准备纹理数据（生成mipmap链、ETC1压缩），只用CPU，可以在任意线程调用，onSurfaceCreated中只剩上传
+     * 这时还不能查询驱动，按假设的能力准备；onSurfaceCreated中查询到的能力与假设不同时丢弃，在GL线程重新准备
+     * 需要在setTextureEncoder、setMipmaps之后，第一次onSurfaceCreated之前调用
+     *
+     * @param etc1 假设驱动支持ETC1
+     * @param npot 假设驱动支持非2的幂纹理的mipmap
+     */
+    public void prepareTexture(boolean etc1, boolean npot) {
+        if (mSource != null) {
+            return;
+        }
+        mPrepared = prepare(mTextureEncoder != null && etc1, (mMipmapGenerator != null || mGpuMipmaps)
+                && (npot || MipmapGenerator.isPowerOfTwo(mBitmap.getWidth(), mBitmap.getHeight())));
+    }
+
+    /**
+     * 开始逐帧导出画面（含滤镜），需要在GL线程调用；导出期间应连续渲染
+     *
+     * @param workers 转换和编码用的线程池
+     * @return 回读服务，可以读取延迟和吞吐
+     */
+    public <T> FrameReadback startExport(ExecutorService workers, FrameEncoder<T> encoder,
+                                         FrameReadback.Callback<T> callback) {
+        stopExport();
+        mReadback = new FrameReadback(mGL, mRenderTargetPool,
+                EXPORT_DEPTH, EXPORT_MAX_IN_FLIGHT, workers);
+        mExport = new Export<>(encoder, callback);
+        return mReadback;
+    }
+
+    /**
+     * 停止导出，还没回读的帧立即读出，需要在GL线程调用
+     */
+    public void stopExport() {
+        if (mReadback != null) {
+            mReadback.release();
+            mReadback = null;
+            mExport = null;
+        }
     }
 
     // 加载Handle
     private void makeHandle() {
-        mPositionHandle = GLES20.glGetAttribLocation(mProgram,"position");
-        mColorHandle = GLES20.glGetAttribLocation(mProgram,"aColor");
-        mTextureHandle = GLES20.glGetAttribLocation(mProgram,"inputTextureCoordinate");
-        mMvpMatrixHandle = GLES20.glGetUniformLocation(mProgram,"transform");
-        mGLUniformTexture = GLES20.glGetUniformLocation(mProgram, "vTexture");
+        mPositionHandle = mGL.glGetAttribLocation(mProgram,"vPosition");
+        mColorHandle = mGL.glGetAttribLocation(mProgram,"aColor");
+        mTextureHandle = mGL.glGetAttribLocation(mProgram,"aTextureCoord");
+        mUniforms = mShaderLibrary.getUniforms(mProgram);
         Log.e(TAG, "makeHandle: mPositionHandle="+mPositionHandle+" mColorHandle="+mColorHandle+" mTextureHandle="
-                +mTextureHandle+" mMvpMatrixHandle="+mMvpMatrixHandle+" mGLUniformTexture="+mGLUniformTexture);
+                +mTextureHandle+" vMatrix="+mUniforms.getLocation("vMatrix")+" vTexture="+mUniforms.getLocation("vTexture"));
     }
 
     // 加载Buffer
@@ -113,130 +220,163 @@ public class ImageRender implements GLSurfaceView.Renderer {
         mCubeBuffer = initBuffer(CUBE);
         mTextureBuffer = initBuffer(TEXTURE_NO_ROTATION);
         mColorBuffer = initBuffer(COLORS);
-        mMatrixBuffer = initBuffer(mMVPMatrix);
     }
 
     @Override
     public void onSurfaceCreated(GL10 gl, EGLConfig config) {
-
-        // 创建program
-        int vertexShader = loadShader(GLES20.GL_VERTEX_SHADER, VERTEX_SHADER);
-        int fragmentShader = loadShader(GLES20.GL_FRAGMENT_SHADER, FRAGMENT_SHADER);
-
-        //创建一个空的OpenGLES程序
-        mProgram = GLES20.glCreateProgram();
-
-        Log.e(TAG, "onSurfaceCreated: vertexShader=" + vertexShader + "  fragmentShader=" + fragmentShader + "  mProgram=" + mProgram);
-        //将顶点着色器加入到程序
-        GLES20.glAttachShader(mProgram, vertexShader);
-        //将片元着色器加入到程序中
-        GLES20.glAttachShader(mProgram, fragmentShader);
-        //连接到着色器程序
-        GLES20.glLinkProgram(mProgram);
-
-        // 获取program的链接情况
-        int[] link = new int[1];
-        GLES20.glGetProgramiv(mProgram, GLES20.GL_LINK_STATUS, link, 0);
-        if (link[0] <= 0) {
-            Log.e("Load Program", "Linking Failed"+GLES20.glGetProgramInfoLog(mProgram));
+        // 新的EGL上下文，之前创建的FBO、program都已失效
+        mFilterChain.onContextLost();
+        mFilterProgramCache.onContextLost();
+        if (mReadback != null) {
+            mReadback.onContextLost();
         }
-        GLES20.glUseProgram(mProgram);
+        mRenderTargetPool.onContextLost();
+
+        // 创建program：逐顶点颜色 + 变换矩阵 + 纹理，编译和链接状态在ShaderLibrary中检查
+        mProgram = mShaderLibrary.getProgram("basic", ShaderFeatures.COLOR | ShaderFeatures.MVP | ShaderFeatures.TEXTURE);
+        Log.e(TAG, "onSurfaceCreated: mProgram=" + mProgram);
+        mGL.glUseProgram(mProgram);
 
         makeHandle();
 
-        int[] textures = new int[1];
-        // 加载纹理
-        GLES20.glGenTextures(1, textures, 0);
-        GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, textures[0]);
-        GLES20.glTexParameterf(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MAG_FILTER, GLES20.GL_LINEAR);
-        GLES20.glTexParameterf(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MIN_FILTER, GLES20.GL_LINEAR);
-        //纹理也有坐标系，称UV坐标，或者ST坐标
-        GLES20.glTexParameterf(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_S, GLES20.GL_REPEAT); // S轴的拉伸方式为重复，决定采样值的坐标超出图片范围时的采样方式
-        GLES20.glTexParameterf(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_T, GLES20.GL_REPEAT); // T轴的拉伸方式为重复
-//        GLUtils.texImage2D(GLES20.GL_TEXTURE_2D, 0, mBitmap, 0);
-        GLES20.glTexImage2D(GLES20.GL_TEXTURE_2D,0,GLES20.GL_RGBA,mBitmap.getWidth(),mBitmap.getHeight(),
-                0,GLES20.GL_RGBA,GLES20.GL_UNSIGNED_BYTE, null);
-        GLES20.glFramebufferTexture2D(GLES20.GL_FRAMEBUFFER,GLES20.GL_COLOR_ATTACHMENT0,
-                GLES20.GL_TEXTURE_2D,textures[0],0);
-
-        if (GLES20.glCheckFramebufferStatus(GLES20.GL_FRAMEBUFFER) != GLES20.GL_FRAMEBUFFER_COMPLETE) {
-            Log.e(TAG, "glCheckFramebufferStatus error");
-        } else {
-            mGLTextureId = textures[0];
+        // 加载纹理，图片只需上传一次，离屏渲染需要的FBO由RenderTargetPool创建，不能挂到默认帧缓冲上
+        if (mTexture == null && mSource != null) {
+            mTexture = mResourceScope.createTexture(mSource, GLES20.GL_LINEAR, GLES20.GL_LINEAR,
+                    GLES20.GL_CLAMP_TO_EDGE, GLES20.GL_CLAMP_TO_EDGE);
+            mTexture.setEvictable(true);
+        } else if (mTexture == null) {
+            // 只编码一次，结果保留在纹理源中，上下文丢失后直接重新上传
+            GLApi glApi = mGL;
+            boolean etc1 = mTextureEncoder != null && Etc1TextureSource.isSupported(glApi);
+            boolean canMipmap = (mMipmapGenerator != null || mGpuMipmaps)
+                    && MipmapGenerator.canMipmap(glApi, mBitmap.getWidth(), mBitmap.getHeight());
+            Prepared prepared = mPrepared;
+            mPrepared = null;
+            if (prepared == null || prepared.etc1 != etc1 || prepared.canMipmap != canMipmap) {
+                if (prepared != null) {
+                    Log.w(TAG, "onSurfaceCreated: prepared texture assumed etc1=" + prepared.etc1 + " mipmap="
+                            + prepared.canMipmap + ", driver has etc1=" + etc1 + " mipmap=" + canMipmap);
+                }
+                prepared = prepare(etc1, canMipmap);
+            }
+            // 图片尺寸不是2的幂，GLES2下只能用CLAMP_TO_EDGE，否则纹理不完整采样结果为黑色
+            mTexture = mResourceScope.createTexture(prepared.source,
+                    prepared.mipmap ? GLES20.GL_LINEAR_MIPMAP_LINEAR : GLES20.GL_LINEAR,
+                    GLES20.GL_LINEAR, GLES20.GL_CLAMP_TO_EDGE, GLES20.GL_CLAMP_TO_EDGE);
+            // 保留了纹理数据，超预算时可以驱逐，下次绘制再上传
+            mTexture.setEvictable(true);
         }
     }
 
     @Override
     public void onSurfaceChanged(GL10 gl, int width, int height) {
-        GLES20.glViewport(0, 0, width, height); // 设置窗口大小
+        mGL.glViewport(0, 0, width, height); // 设置窗口大小
+        mWidth = width;
+        mHeight = height;
 
         float ratio = (float) width / height;
         //设置透视投影
-        Matrix.frustumM(mProjectMatrix, 0, -ratio, ratio, -1, 1, 3, 7);
+        MatrixHelper.frustumM(mProjectMatrix, 0, -ratio, ratio, -1, 1, 3, 7);
         //设置相机位置
-        Matrix.setLookAtM(mViewMatrix, 0, 0, 0, 7.0f, 0f, 0f, 0f, 0f, 1.0f, 0.0f);
+        MatrixHelper.setLookAtM(mViewMatrix, 0, 0, 0, 7.0f, 0f, 0f, 0f, 0f, 1.0f, 0.0f);
         //计算变换矩阵
-        Matrix.multiplyMM(mMVPMatrix, 0, mProjectMatrix, 0, mViewMatrix, 0);
+        MatrixHelper.multiplyMM(mMVPMatrix, 0, mProjectMatrix, 0, mViewMatrix, 0);
 
         loadBuffer();
     }
 
     @Override
     public void onDrawFrame(GL10 gl) {
+        // 先离屏应用滤镜，连续的点操作滤镜只需要一个pass
+        int texture = mTexture.use();
+        if (texture != 0 && !mFilterChain.isEmpty()) {
+            texture = mFilterChain.apply(texture, mTexture.getWidth(), mTexture.getHeight());
+            mGL.glViewport(0, 0, mWidth, mHeight);
+        }
+        mGL.glUseProgram(mProgram);
 
         // 顶点
-        GLES20.glVertexAttribPointer(mPositionHandle, 3, GLES20.GL_FLOAT, false, 12, mCubeBuffer);
-        GLES20.glEnableVertexAttribArray(mPositionHandle);
+        mGL.glVertexAttribPointer(mPositionHandle, 3, GLES20.GL_FLOAT, false, 12, mCubeBuffer);
+        mGL.glEnableVertexAttribArray(mPositionHandle);
 
         // 顶点着色器的纹理坐标
-        GLES20.glVertexAttribPointer(mTextureHandle, 2, GLES20.GL_FLOAT, false, 8, mTextureBuffer);
-        GLES20.glEnableVertexAttribArray(mTextureHandle);
+        mGL.glVertexAttribPointer(mTextureHandle, 2, GLES20.GL_FLOAT, false, 8, mTextureBuffer);
+        mGL.glEnableVertexAttribArray(mTextureHandle);
         // 传入的图片纹理
-        if (mGLTextureId != -1) {
-            Log.e(TAG, "onDrawFrame: mGLTextureId="+mGLTextureId);
-            GLES20.glActiveTexture(GLES20.GL_TEXTURE0);
-            GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, mGLTextureId);
-            GLUtils.texSubImage2D(GLES20.GL_TEXTURE_2D, 0,0,0,mBitmap);
-            GLES20.glUniform1i(mGLUniformTexture, 0);
+        if (texture != 0) {
+            Log.e(TAG, "onDrawFrame: texture="+texture);
+            mGL.glActiveTexture(GLES20.GL_TEXTURE0);
+            mGL.glBindTexture(GLES20.GL_TEXTURE_2D, texture);
+            mUniforms.set1i("vTexture", 0);
         }
 
-        // 变换矩阵
-        GLES20.glUniformMatrix4fv(mMvpMatrixHandle, 1, false, mMatrixBuffer);
+        // 变换矩阵只在onSurfaceChanged中变化，其余帧不会上传
+        mUniforms.setMatrix4fv("vMatrix", 1, mMVPMatrix, 0);
+        mUniforms.apply();
         //获取片元着色器的vColor成员的句柄
 
         //设置绘制三角形的颜色
-        GLES20.glEnableVertexAttribArray(mColorHandle);
-        GLES20.glVertexAttribPointer(mColorHandle,4,
+        mGL.glEnableVertexAttribArray(mColorHandle);
+        mGL.glVertexAttribPointer(mColorHandle,4,
                 GLES20.GL_FLOAT,false,
-                4,mColorBuffer);
+                16,mColorBuffer);
 
         // 绘制顶点 ，方式有顶点法和索引法
         // GLES20.GL_TRIANGLE_STRIP即每相邻三个顶点组成一个三角形，为一系列相接三角形构成
-        GLES20.glDrawArrays(GLES20.GL_TRIANGLE_STRIP, 0, 4); // 顶点法，按照传入渲染管线的顶点顺序及采用的绘制方式将顶点组成图元进行绘制
+        mGL.glDrawArrays(GLES20.GL_TRIANGLE_STRIP, 0, 4); // 顶点法，按照传入渲染管线的顶点顺序及采用的绘制方式将顶点组成图元进行绘制
+
+        mGL.glDisableVertexAttribArray(mPositionHandle);
+        mGL.glDisableVertexAttribArray(mTextureHandle);
+        mGL.glDisableVertexAttribArray(mColorHandle);
+        mGL.glBindTexture(GLES20.GL_TEXTURE_2D, 0);
 
-        GLES20.glDisableVertexAttribArray(mPositionHandle);
-        GLES20.glDisableVertexAttribArray(mTextureHandle);
-        GLES20.glDisableVertexAttribArray(mColorHandle);
-        GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, 0);
+        // 拷贝这一帧，回读几帧之前拷贝的
+        if (mReadback != null) {
+            mExport.capture(mReadback, mWidth, mHeight);
+            mReadback.onFrameEnd();
+        }
+        mRenderTargetPool.onFrameEnd();
+        mResourceRegistry.onFrameEnd();
     }
 
+    // 按驱动能力决定压缩和mipmap的方式，只用CPU
+    private Prepared prepare(boolean etc1, boolean canMipmap) {
+        boolean mipmap = canMipmap;
+        GLTexture.Source source;
+        if (mipmap && mMipmapGenerator != null && (etc1 || !mGpuMipmaps)) {
+            MipChain chain = mMipmapGenerator.generate(mBitmap);
+            source = etc1 ? Etc1TextureSource.encode(chain, mTextureEncoder) : new MipmapTextureSource(chain);
+        } else if (mipmap && mGpuMipmaps && !etc1) {
+            source = new GpuMipmapTextureSource(new BitmapTextureSource(mBitmap));
+        } else {
+            // 不支持非2的幂的mipmap，或者压缩纹理却只要求GPU生成
+            mipmap = false;
+            source = etc1 ? Etc1TextureSource.encode(mBitmap, mTextureEncoder) : new BitmapTextureSource(mBitmap);
+        }
+        return new Prepared(source, mipmap, etc1, canMipmap);
+    }
 
     /**
-     * 加载shader
-     *
-     * @param type       片元、顶点
-     * @param shaderCode Code
-     * @return int
+     * 内存紧张时调用，释放空闲的离屏目标并驱逐可驱逐的纹理，必须在GL线程调用
+     */
+    public void onTrimMemory() {
+        mRenderTargetPool.trimFree();
+        mResourceRegistry.evictAll();
+    }
+
+    /**
+     * 删除纹理、FBO和滤镜program，渲染器不再使用时在GL线程调用
      */
-    private int loadShader(int type, String shaderCode) {
-        //根据type创建顶点着色器或者片元着色器
-        int shader = GLES20.glCreateShader(type);
-        //将资源加入到着色器中，并编译
-        GLES20.glShaderSource(shader, shaderCode);
-        GLES20.glCompileShader(shader);
-        return shader;
+    public void release() {
+        stopExport();
+        mFilterChain.release();
+        mFilterProgramCache.release();
+        mRenderTargetPool.releaseAll();
+        mResourceScope.close();
+        mTexture = null;
     }
 
+
     // 初始化buffer
     private static FloatBuffer initBuffer(float[] buffers) {
         // 先初始化buffer,数组的长度*4,因为一个float占4个字节
@@ -248,4 +388,34 @@ public class ImageRender implements GLSurfaceView.Renderer {
         floatBuffer.flip();
         return floatBuffer;
     }
+
+    // 准备好的纹理数据，以及准备时假设的驱动能力
+    private static final class Prepared {
+        final GLTexture.Source source;
+        final boolean mipmap;
+        final boolean etc1;
+        final boolean canMipmap;
+
+        Prepared(GLTexture.Source source, boolean mipmap, boolean etc1, boolean canMipmap) {
+            this.source = source;
+            this.mipmap = mipmap;
+            this.etc1 = etc1;
+            this.canMipmap = canMipmap;
+        }
+    }
+
+    // 保存导出的编码器和回调的类型
+    private static final class Export<T> {
+        final FrameEncoder<T> encoder;
+        final FrameReadback.Callback<T> callback;
+
+        Export(FrameEncoder<T> encoder, FrameReadback.Callback<T> callback) {
+            this.encoder = encoder;
+            this.callback = callback;
+        }
+
+        void capture(FrameReadback readback, int width, int height) {
+            readback.capture(width, height, encoder, callback);
+        }
+    }
 }
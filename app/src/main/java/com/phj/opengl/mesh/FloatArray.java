@@ -0,0 +1,25 @@
+package com.phj.opengl.mesh;
+
+import java.util.Arrays;
+
+/**
+ * 描述：可增长的float数组，解析时避免装箱
+ * Created by PHJ on 2026/10/19.
+ */
+
+final class FloatArray {
+
+    float[] data;
+    int size;
+
+    FloatArray(int capacity) {
+        this.data = new float[Math.max(capacity, 16)];
+    }
+
+    void add(float value) {
+        if (size == data.length) {
+            data = Arrays.copyOf(data, size * 2);
+        }
+        data[size++] = value;
+    }
+}
@@ -0,0 +1,35 @@
+package com.phj.opengl.mesh;
+
+import java.util.Arrays;
+
+/**
+ * 描述：可增长的int数组，解析时避免装箱
+ * Created by PHJ on 2026/10/19.
+ */
+
+final class IntArray {
+
+    int[] data;
+    int size;
+
+    IntArray(int capacity) {
+        this.data = new int[Math.max(capacity, 16)];
+    }
+
+    void add(int value) {
+        if (size == data.length) {
+            data = Arrays.copyOf(data, size * 2);
+        }
+        data[size++] = value;
+    }
+
+    void add(int a, int b, int c) {
+        if (size + 3 > data.length) {
+            data = Arrays.copyOf(data, Math.max(size * 2, size + 3));
+        }
+        data[size] = a;
+        data[size + 1] = b;
+        data[size + 2] = c;
+        size += 3;
+    }
+}
@@ -0,0 +1,233 @@
+package com.phj.opengl.mesh;
+
+import android.opengl.GLES20;
+import android.opengl.GLSurfaceView;
+import android.util.Log;
+
+import com.phj.opengl.anim.Animator;
+import com.phj.opengl.anim.Easing;
+import com.phj.opengl.anim.TransformArray;
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.gl.GLBuffer;
+import com.phj.opengl.gl.GLResourceRegistry;
+import com.phj.opengl.gl.GLResourceScope;
+import com.phj.opengl.gl.MatrixHelper;
+import com.phj.opengl.pack.VertexLayout;
+import com.phj.opengl.scene.SceneLifecycle;
+import com.phj.opengl.shader.ShaderFeatures;
+import com.phj.opengl.shader.ShaderLibrary;
+import com.phj.opengl.shader.UniformState;
+
+import javax.microedition.khronos.egl.EGLConfig;
+import javax.microedition.khronos.opengles.GL10;
+
+/**
+ * 描述：LOD示例，导入的网格按{@link MeshLod}绘制四份，每份的缩放来回变化
+ * 每帧按包围球投影到屏幕上的直径用{@link LodSelector}为每份选级别，上一帧的级别作为滞回的起点；
+ * 投影与AjustTriggerRender相同（MatrixHelper.frustumM + 相机在z=7）。颜色表示级别，从精细到粗糙为绿、黄、橙、红。
+ * 每一级的顶点和索引各上传一次，之后只切换绑定。动画在切入时开始、切走时取消
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class LodMeshRender implements GLSurfaceView.Renderer, SceneLifecycle {
+
+    private final static String TAG = LodMeshRender.class.getSimpleName();
+
+    private static final int FEATURES = ShaderFeatures.MVP | ShaderFeatures.UNIFORM_COLOR;
+
+    // 每一级的颜色，级别更多时用最后一种
+    private static final float[] LEVEL_COLORS = {
+            0.2f, 0.9f, 0.3f, 1f,
+            0.95f, 0.9f, 0.2f, 1f,
+            1f, 0.55f, 0.1f, 1f,
+            0.95f, 0.2f, 0.2f, 1f,
+    };
+
+    // 2x2排列，z = 1.5离相机5.5，整个物体都在near = 3和far = 7之间；缩放在两个值之间往返
+    private static final float[] INSTANCE_XY = {-0.45f, 0.9f, 0.45f, 0.9f, -0.45f, -0.9f, 0.45f, -0.9f};
+    private static final float INSTANCE_Z = 1.5f;
+    private static final float[] INSTANCE_SCALE_MAX = {0.8f, 0.6f, 0.4f, 0.25f};
+    private static final float[] INSTANCE_SCALE_MIN = {0.3f, 0.2f, 0.1f, 0.06f};
+    private static final float PULSE_SECONDS = 3f;
+    private static final float SPIN_SECONDS = 6f;
+    private static final float TILT_DEGREES = 60f;
+
+    private final GLApi mGL;
+    private final ShaderLibrary mShaderLibrary;
+    private final GLResourceRegistry mResourceRegistry;
+    private final GLResourceScope mResourceScope;
+    private final MeshLod mLod;
+    private final LodSelector mSelector;
+    private final Animator mAnimator;
+    private final TransformArray mTransform = new TransformArray(INSTANCE_SCALE_MAX.length);
+    private final int[] mTweens = new int[INSTANCE_SCALE_MAX.length * 2];
+    private final int[] mLevels = new int[INSTANCE_SCALE_MAX.length];
+    private final GLBuffer[] mVbos;
+    private final GLBuffer[] mIbos;
+    private int mProgram;
+    private int mPositionHandle;
+    private UniformState mUniforms;
+    private int mViewportHeight;
+    private int mSubmittedVertices;
+
+    private float[] mViewMatrix = new float[16];
+    private float[] mProjectMatrix = new float[16];
+    private float[] mModelMatrix = new float[16];
+    private float[] mModelViewMatrix = new float[16];
+    private float[] mMVPMatrix = new float[16];
+
+    /**
+     * @param lod      例如{@link MeshSimplifier#buildLod}的结果
+     * @param selector 级别数可以与lod不同，超出的级别按最粗的一级绘制
+     */
+    public LodMeshRender(ShaderLibrary shaderLibrary, GLResourceRegistry resourceRegistry, Animator animator,
+                         MeshLod lod, LodSelector selector) {
+        this.mShaderLibrary = shaderLibrary;
+        this.mGL = shaderLibrary.getGL();
+        this.mResourceRegistry = resourceRegistry;
+        this.mResourceScope = resourceRegistry.openScope(TAG);
+        this.mAnimator = animator;
+        this.mLod = lod;
+        this.mSelector = selector;
+        this.mVbos = new GLBuffer[lod.getLevelCount()];
+        this.mIbos = new GLBuffer[lod.getLevelCount()];
+        for (int i = 0; i < mTweens.length; i++) {
+            mTweens[i] = Animator.NO_HANDLE;
+        }
+    }
+
+    @Override
+    public void onSurfaceCreated(GL10 gl, EGLConfig config) {
+        mProgram = mShaderLibrary.getProgram("basic", FEATURES);
+        mUniforms = mShaderLibrary.getUniforms(mProgram);
+        mPositionHandle = mGL.glGetAttribLocation(mProgram, Mesh.ATTRIBUTE_POSITION);
+        Log.e(TAG, "onSurfaceCreated: mProgram=" + mProgram + " levels=" + mLod.getLevelCount());
+
+        // 每一级只上传一次，之后由registry负责重建
+        if (mVbos[0] == null) {
+            for (int level = 0; level < mVbos.length; level++) {
+                Mesh mesh = mLod.getLevel(level);
+                mVbos[level] = mResourceScope.createBuffer(GLES20.GL_ARRAY_BUFFER, mesh.getVertices(),
+                        mesh.getVerticesSizeInBytes(), GLES20.GL_STATIC_DRAW);
+                mIbos[level] = mResourceScope.createBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, mesh.getIndices(),
+                        mesh.getIndicesSizeInBytes(), GLES20.GL_STATIC_DRAW);
+                Log.i(TAG, "onSurfaceCreated: level " + level + " vertices=" + mesh.getVertexCount()
+                        + " triangles=" + mesh.getTriangleCount());
+            }
+        }
+    }
+
+    // 每份的缩放在两个值之间往返，同时绕y轴转动；相位错开
+    @Override
+    public void onActivate() {
+        stop();
+        float[] scaleEnd = new float[3];
+        float[] spinEnd = {TILT_DEGREES, 360f, 0f};
+        for (int i = 0; i < INSTANCE_SCALE_MAX.length; i++) {
+            float max = INSTANCE_SCALE_MAX[i];
+            float min = INSTANCE_SCALE_MIN[i];
+            mTransform.reset(i);
+            mTransform.set(TransformArray.POSITION, i, INSTANCE_XY[i * 2], INSTANCE_XY[i * 2 + 1], INSTANCE_Z);
+            mTransform.set(TransformArray.SCALE, i, max, max, max);
+            mTransform.set(TransformArray.ROTATION, i, TILT_DEGREES, 0f, 0f);
+            scaleEnd[0] = min;
+            scaleEnd[1] = min;
+            scaleEnd[2] = min;
+            int pulse = mAnimator.to(mTransform, i, TransformArray.SCALE, scaleEnd,
+                    PULSE_SECONDS + i * 0.5f, Easing.IN_OUT_CUBIC);
+            mAnimator.setRepeat(pulse, Animator.PINGPONG);
+            int spin = mAnimator.to(mTransform, i, TransformArray.ROTATION, spinEnd, SPIN_SECONDS, Easing.LINEAR);
+            mAnimator.setRepeat(spin, Animator.LOOP);
+            mTweens[i * 2] = pulse;
+            mTweens[i * 2 + 1] = spin;
+        }
+    }
+
+    // 循环的补间不会自己结束，不取消会一直占着共用的Animator并请求新帧
+    @Override
+    public void onDeactivate() {
+        stop();
+    }
+
+    private void stop() {
+        for (int i = 0; i < mTweens.length; i++) {
+            mAnimator.cancel(mTweens[i]);
+            mTweens[i] = Animator.NO_HANDLE;
+        }
+    }
+
+    @Override
+    public void onSurfaceChanged(GL10 gl, int width, int height) {
+        mGL.glViewport(0, 0, width, height);
+        mViewportHeight = height;
+        float ratio = (float) width / height;
+        // 与AjustTriggerRender相同的透视投影和相机
+        MatrixHelper.frustumM(mProjectMatrix, 0, -ratio, ratio, -1, 1, 3, 7);
+        MatrixHelper.setLookAtM(mViewMatrix, 0, 0, 0, 7.0f, 0f, 0f, 0f, 0f, 1.0f, 0.0f);
+    }
+
+    @Override
+    public void onDrawFrame(GL10 gl) {
+        mGL.glClearColor(0, 0, 0, 1);
+        mGL.glClear(GLES20.GL_COLOR_BUFFER_BIT);
+        mGL.glDisable(GLES20.GL_DEPTH_TEST);
+        mGL.glUseProgram(mProgram);
+        mGL.glEnableVertexAttribArray(mPositionHandle);
+        int submitted = 0;
+        for (int i = 0; i < mLevels.length; i++) {
+            // 动画已经在本帧绘制之前推进过
+            mTransform.getModelMatrix(i, mModelMatrix, 0);
+            MatrixHelper.multiplyMM(mModelViewMatrix, 0, mViewMatrix, 0, mModelMatrix, 0);
+            int level = mSelector.select(mLevels[i], mLod, mModelViewMatrix, mProjectMatrix, mViewportHeight);
+            mLevels[i] = level;
+            Mesh mesh = mLod.getLevel(level);
+            VertexLayout.Attribute position = mesh.getLayout().getAttribute(Mesh.ATTRIBUTE_POSITION);
+            MatrixHelper.multiplyMM(mMVPMatrix, 0, mProjectMatrix, 0, mModelViewMatrix, 0);
+            mUniforms.setMatrix4fv("vMatrix", 1, mMVPMatrix, 0);
+            mUniforms.set4fv("vColor", 1, LEVEL_COLORS, Math.min(level, LEVEL_COLORS.length / 4 - 1) * 4);
+            mUniforms.apply();
+
+            mGL.glBindBuffer(GLES20.GL_ARRAY_BUFFER, mVbos[level].use());
+            mGL.glVertexAttribPointer(mPositionHandle, position.size, position.type, position.normalized,
+                    mesh.getLayout().getStride(), position.offset);
+            mGL.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, mIbos[level].use());
+            mGL.glDrawElements(GLES20.GL_TRIANGLES, mesh.getIndexCount(), mesh.getIndexType(), 0);
+            submitted += mesh.getVertexCount();
+        }
+        mGL.glDisableVertexAttribArray(mPositionHandle);
+        mGL.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+        mGL.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, 0);
+        mSubmittedVertices = submitted;
+        mResourceRegistry.onFrameEnd();
+    }
+
+    /**
+     * 第instance份上一帧绘制的级别
+     */
+    public int getLevel(int instance) {
+        return mLevels[instance];
+    }
+
+    public int getInstanceCount() {
+        return mLevels.length;
+    }
+
+    /**
+     * 上一帧所有物体提交的顶点数
+     */
+    public int getSubmittedVertexCount() {
+        return mSubmittedVertices;
+    }
+
+    /**
+     * 删除各级的VBO和IBO并停止动画，渲染器不再使用时在GL线程调用
+     */
+    public void release() {
+        stop();
+        mResourceScope.close();
+        for (int level = 0; level < mVbos.length; level++) {
+            mVbos[level] = null;
+            mIbos[level] = null;
+        }
+    }
+}
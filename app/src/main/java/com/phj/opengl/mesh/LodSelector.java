@@ -0,0 +1,102 @@
+package com.phj.opengl.mesh;
+
+import java.util.Arrays;
+
+/**
+ * 描述：按包围球投影到屏幕上的直径（像素）选择LOD级别
+ * 投影矩阵与渲染器中MatrixHelper.frustumM生成的相同（例如AjustTriggerRender），也支持MatrixHelper.orthoM；
+ * 级别之间带滞回：变粗要小于阈值的(1 - hysteresis)倍，变细要大于(1 + hysteresis)倍，
+ * 物体在阈值附近来回移动时不会每帧切换造成跳变。选择器不保存状态，可以被多个物体共用
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class LodSelector {
+
+    private final float[] mThresholds;
+    private final float mHysteresis;
+    private final float[] mCenter = new float[4];
+
+    /**
+     * @param thresholds 递减的像素阈值，直径不小于thresholds[0]用第0级，在thresholds[i - 1]和thresholds[i]之间用第i级，
+     *                   小于最后一个用第thresholds.length级
+     * @param hysteresis 滞回比例，例如0.15
+     */
+    public LodSelector(float[] thresholds, float hysteresis) {
+        for (int i = 1; i < thresholds.length; i++) {
+            if (thresholds[i] >= thresholds[i - 1]) {
+                throw new IllegalArgumentException("thresholds must be decreasing: " + Arrays.toString(thresholds));
+            }
+        }
+        if (hysteresis < 0 || hysteresis >= 1) {
+            throw new IllegalArgumentException("hysteresis must be in [0, 1): " + hysteresis);
+        }
+        this.mThresholds = thresholds.clone();
+        this.mHysteresis = hysteresis;
+    }
+
+    public int getLevelCount() {
+        return mThresholds.length + 1;
+    }
+
+    /**
+     * @param current 上一帧的级别，第一次可以用任意值
+     * @param pixels  投影直径
+     * @return 新的级别
+     */
+    public int select(int current, float pixels) {
+        int level = Math.max(0, Math.min(current, mThresholds.length));
+        while (level < mThresholds.length && pixels < mThresholds[level] * (1 - mHysteresis)) {
+            level++;
+        }
+        while (level > 0 && pixels > mThresholds[level - 1] * (1 + mHysteresis)) {
+            level--;
+        }
+        return level;
+    }
+
+    /**
+     * 按LOD链的包围球选择，级别不超过链的长度
+     *
+     * @param modelView 模型视图矩阵，相机看向-z
+     * @param projection 投影矩阵
+     * @param viewportHeight 视口高度，像素
+     */
+    public int select(int current, MeshLod lod, float[] modelView, float[] projection, int viewportHeight) {
+        lod.getBoundingSphere(mCenter, 0);
+        float pixels = projectedDiameter(modelView, projection, viewportHeight,
+                mCenter[0], mCenter[1], mCenter[2], mCenter[3]);
+        return Math.min(select(current, pixels), lod.getLevelCount() - 1);
+    }
+
+    /**
+     * 球投影到屏幕上的直径（像素），相机在球内时为正无穷，球在相机后面时为0
+     * 透视投影下为2r·f/√(d² - r²)·h/2，f = projection[5] = 2near/(top - bottom)，d为球心到相机的距离
+     */
+    public static float projectedDiameter(float[] modelView, float[] projection, int viewportHeight,
+                                          float x, float y, float z, float radius) {
+        float[] m = modelView;
+        // 模型视图带缩放时半径按最大的轴缩放
+        float sx = m[0] * m[0] + m[1] * m[1] + m[2] * m[2];
+        float sy = m[4] * m[4] + m[5] * m[5] + m[6] * m[6];
+        float sz = m[8] * m[8] + m[9] * m[9] + m[10] * m[10];
+        float r = radius * (float) Math.sqrt(Math.max(sx, Math.max(sy, sz)));
+        float f = projection[5];
+        if (projection[11] == 0) {
+            // 正交投影与距离无关
+            return r * f * viewportHeight;
+        }
+        float viewZ = m[2] * x + m[6] * y + m[10] * z + m[14];
+        float viewX = m[0] * x + m[4] * y + m[8] * z + m[12];
+        float viewY = m[1] * x + m[5] * y + m[9] * z + m[13];
+        float d2 = viewX * viewX + viewY * viewY + viewZ * viewZ;
+        float h2 = d2 - r * r;
+        if (h2 <= 0) {
+            return Float.POSITIVE_INFINITY;
+        }
+        if (viewZ >= r) {
+            // 整个球在相机后面，不可见
+            return 0;
+        }
+        return r * f / (float) Math.sqrt(h2) * viewportHeight;
+    }
+}
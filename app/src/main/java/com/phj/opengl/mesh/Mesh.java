@@ -0,0 +1,113 @@
+package com.phj.opengl.mesh;
+
+import android.opengl.GLES20;
+
+import com.phj.opengl.pack.VertexLayout;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 描述：导入后的索引网格，顶点交错存放在direct buffer中，可以直接交给glBufferData和glDrawElements
+ * 顶点依次为位置、纹理坐标（可选）、法线（可选），布局见{@link #getLayout()}
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class Mesh {
+
+    public static final String ATTRIBUTE_POSITION = "vPosition";
+    public static final String ATTRIBUTE_TEXTURE_COORD = "aTextureCoord";
+    public static final String ATTRIBUTE_NORMAL = "aNormal";
+
+    private final VertexLayout mLayout;
+    private final ByteBuffer mVertices;
+    private final int mVertexCount;
+    private final ByteBuffer mIndices;
+    private final int mIndexType;
+    private final int mIndexCount;
+
+    Mesh(VertexLayout layout, ByteBuffer vertices, int vertexCount, ByteBuffer indices, int indexType, int indexCount) {
+        this.mLayout = layout;
+        this.mVertices = vertices;
+        this.mVertexCount = vertexCount;
+        this.mIndices = indices;
+        this.mIndexType = indexType;
+        this.mIndexCount = indexCount;
+    }
+
+    static VertexLayout layout(boolean textureCoords, boolean normals) {
+        VertexLayout layout = new VertexLayout().add(ATTRIBUTE_POSITION, 3, GLES20.GL_FLOAT);
+        if (textureCoords) {
+            layout.add(ATTRIBUTE_TEXTURE_COORD, 2, GLES20.GL_FLOAT);
+        }
+        if (normals) {
+            layout.add(ATTRIBUTE_NORMAL, 3, GLES20.GL_FLOAT);
+        }
+        return layout;
+    }
+
+    static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    // 顶点不超过65536个时用16位索引
+    static Mesh create(VertexLayout layout, ByteBuffer vertices, int vertexCount, int[] indices, int indexCount) {
+        ByteBuffer buffer;
+        int type;
+        if (vertexCount <= 0x10000) {
+            buffer = allocate(indexCount * 2);
+            for (int i = 0; i < indexCount; i++) {
+                buffer.putShort((short) indices[i]);
+            }
+            type = GLES20.GL_UNSIGNED_SHORT;
+        } else {
+            buffer = allocate(indexCount * 4);
+            buffer.asIntBuffer().put(indices, 0, indexCount);
+            type = GLES20.GL_UNSIGNED_INT;
+        }
+        buffer.clear();
+        return new Mesh(layout, vertices, vertexCount, buffer, type, indexCount);
+    }
+
+    public VertexLayout getLayout() {
+        return mLayout;
+    }
+
+    /**
+     * 返回独立的视图，调用方修改position不影响其他使用者
+     */
+    public ByteBuffer getVertices() {
+        return mVertices.duplicate().order(ByteOrder.nativeOrder());
+    }
+
+    public int getVerticesSizeInBytes() {
+        return mVertexCount * mLayout.getStride();
+    }
+
+    public int getVertexCount() {
+        return mVertexCount;
+    }
+
+    public ByteBuffer getIndices() {
+        return mIndices.duplicate().order(ByteOrder.nativeOrder());
+    }
+
+    public int getIndicesSizeInBytes() {
+        return mIndexCount * (mIndexType == GLES20.GL_UNSIGNED_SHORT ? 2 : 4);
+    }
+
+    /**
+     * GL_UNSIGNED_SHORT，或顶点超过65536个时的GL_UNSIGNED_INT，后者在GLES2下需要GL_OES_element_index_uint
+     */
+    public int getIndexType() {
+        return mIndexType;
+    }
+
+    public int getIndexCount() {
+        return mIndexCount;
+    }
+
+    public int getTriangleCount() {
+        return mIndexCount / 3;
+    }
+}
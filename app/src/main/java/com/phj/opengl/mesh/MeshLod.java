@@ -0,0 +1,79 @@
+package com.phj.opengl.mesh;
+
+import java.nio.FloatBuffer;
+
+/**
+ * 描述：一个网格的LOD链，第0级最精细，由{@link MeshSimplifier}生成
+ * 各级的顶点都是第0级顶点的子集，所以共用第0级的包围球
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class MeshLod {
+
+    private final Mesh[] mLevels;
+    private final float[] mSphere = new float[4];   // 球心xyz + 半径，模型空间
+
+    MeshLod(Mesh[] levels) {
+        this.mLevels = levels;
+        computeBoundingSphere(levels[0], mSphere);
+    }
+
+    public int getLevelCount() {
+        return mLevels.length;
+    }
+
+    public Mesh getLevel(int level) {
+        return mLevels[level];
+    }
+
+    /**
+     * 包围球，out[offset..offset + 3]依次为球心xyz和半径
+     */
+    public void getBoundingSphere(float[] out, int offset) {
+        System.arraycopy(mSphere, 0, out, offset, 4);
+    }
+
+    public float getBoundingRadius() {
+        return mSphere[3];
+    }
+
+    // 以包围盒中心为球心，半径为到最远顶点的距离；不是最小包围球，但只需一遍
+    private static void computeBoundingSphere(Mesh mesh, float[] out) {
+        int stride = mesh.getLayout().getStride() / 4;
+        int offset = mesh.getLayout().getAttribute(Mesh.ATTRIBUTE_POSITION).offset / 4;
+        FloatBuffer vertices = mesh.getVertices().asFloatBuffer();
+        int count = mesh.getVertexCount();
+        if (count == 0) {
+            return;
+        }
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+        for (int v = 0; v < count; v++) {
+            int base = v * stride + offset;
+            float x = vertices.get(base);
+            float y = vertices.get(base + 1);
+            float z = vertices.get(base + 2);
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+        }
+        float cx = (minX + maxX) * 0.5f;
+        float cy = (minY + maxY) * 0.5f;
+        float cz = (minZ + maxZ) * 0.5f;
+        float radius2 = 0;
+        for (int v = 0; v < count; v++) {
+            int base = v * stride + offset;
+            float dx = vertices.get(base) - cx;
+            float dy = vertices.get(base + 1) - cy;
+            float dz = vertices.get(base + 2) - cz;
+            radius2 = Math.max(radius2, dx * dx + dy * dy + dz * dz);
+        }
+        out[0] = cx;
+        out[1] = cy;
+        out[2] = cz;
+        out[3] = (float) Math.sqrt(radius2);
+    }
+}
@@ -0,0 +1,644 @@
+package com.phj.opengl.mesh;
+
+import android.opengl.GLES20;
+
+import com.phj.opengl.pack.VertexLayout;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * 描述：二次误差度量（QEM）网格简化，生成LOD链
+ * 每次把一条边的一个端点u合并到另一个端点v上（half-edge collapse），v保持原来的位置和属性，
+ * 简化后的顶点都是原网格顶点的子集，不需要插值纹理坐标和法线；代价为u和v的平面二次型之和在v处的值。
+ * 边界边上的顶点，以及同一位置有多个顶点（纹理坐标或法线不连续，即UV接缝）的顶点都不移动，
+ * 所以网格的外轮廓和接缝两侧的纹理不会被破坏；合并会翻转三角形或破坏流形的边也不合并。
+ * 多个网格的LOD链在线程池中并行生成，每个网格一个任务。
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class MeshSimplifier {
+
+    private final ExecutorService mExecutor;
+
+    /**
+     * @param executor 线程池，为null时在调用线程生成
+     */
+    public MeshSimplifier(ExecutorService executor) {
+        this.mExecutor = executor;
+    }
+
+    /**
+     * 简化到约ratio倍的三角形数；边界和接缝锁定，顶点可能不够合并时三角形会多于目标
+     */
+    public Mesh simplify(Mesh mesh, float ratio) {
+        checkRatio(ratio);
+        return simplifyTo(mesh, Math.round(mesh.getTriangleCount() * ratio));
+    }
+
+    /**
+     * 生成LOD链，第0级为原网格，第i级约为原网格的ratios[i - 1]倍三角形，每一级由上一级简化而来
+     *
+     * @param ratios 递减，均在(0, 1)之间
+     */
+    public MeshLod buildLod(Mesh mesh, float[] ratios) {
+        for (int i = 0; i < ratios.length; i++) {
+            checkRatio(ratios[i]);
+            if (i > 0 && ratios[i] >= ratios[i - 1]) {
+                throw new IllegalArgumentException("ratios must be decreasing: " + Arrays.toString(ratios));
+            }
+        }
+        Mesh[] levels = new Mesh[ratios.length + 1];
+        levels[0] = mesh;
+        int triangles = mesh.getTriangleCount();
+        for (int i = 0; i < ratios.length; i++) {
+            levels[i + 1] = simplifyTo(levels[i], Math.round(triangles * ratios[i]));
+        }
+        return new MeshLod(levels);
+    }
+
+    /**
+     * 并行生成多个网格的LOD链，每个网格一个任务
+     */
+    public MeshLod[] buildLods(final Mesh[] meshes, final float[] ratios) {
+        MeshLod[] lods = new MeshLod[meshes.length];
+        if (mExecutor == null || meshes.length <= 1) {
+            for (int i = 0; i < meshes.length; i++) {
+                lods[i] = buildLod(meshes[i], ratios);
+            }
+            return lods;
+        }
+        ArrayList<Future<MeshLod>> futures = new ArrayList<>(meshes.length);
+        for (final Mesh mesh : meshes) {
+            futures.add(mExecutor.submit(new Callable<MeshLod>() {
+                @Override
+                public MeshLod call() {
+                    return buildLod(mesh, ratios);
+                }
+            }));
+        }
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                lods[i] = futures.get(i).get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("simplify interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IllegalArgumentException) {
+                throw (IllegalArgumentException) e.getCause();
+            }
+            throw new IllegalStateException("simplify failed", e.getCause());
+        }
+        return lods;
+    }
+
+    private static void checkRatio(float ratio) {
+        if (!(ratio > 0 && ratio <= 1)) {
+            throw new IllegalArgumentException("ratio must be in (0, 1]: " + ratio);
+        }
+    }
+
+    static Mesh simplifyTo(Mesh mesh, int targetTriangles) {
+        if (targetTriangles >= mesh.getTriangleCount()) {
+            return mesh;
+        }
+        Collapser collapser = new Collapser(mesh);
+        collapser.run(Math.max(1, targetTriangles));
+        return collapser.build();
+    }
+
+    /**
+     * 一次简化的工作状态，只在一个线程中使用
+     */
+    private static final class Collapser {
+
+        private final Mesh mMesh;
+        private final int mVertexCount;
+        private final float[] mPositions;
+        private final int[] mTriangles;     // 简化时就地把u改为v
+        private final boolean[] mDeadTriangle;
+        private int mLiveTriangles;
+
+        private final boolean[] mLocked;
+        private final boolean[] mDeadVertex;
+        private final int[] mVersion;       // 邻域变化时加1，使堆中旧的候选失效
+        private final double[] mQuadrics;   // 每顶点10个：对称4x4矩阵的上三角
+
+        // 顶点 -> 相邻三角形，死三角形延迟删除
+        private final int[][] mAdjacency;
+        private final int[] mAdjacencySize;
+
+        private final CollapseHeap mHeap = new CollapseHeap();
+        private final IntArray mNeighbors = new IntArray(32);
+        private final IntArray mTargetNeighbors = new IntArray(32);
+        private final IntArray mAffected = new IntArray(32);
+        private final int[] mMark;
+        private int mStamp;
+
+        Collapser(Mesh mesh) {
+            mMesh = mesh;
+            mVertexCount = mesh.getVertexCount();
+            mPositions = readPositions(mesh);
+            mTriangles = readIndices(mesh);
+            int triangleCount = mTriangles.length / 3;
+            mDeadTriangle = new boolean[triangleCount];
+            mLiveTriangles = triangleCount;
+            mDeadVertex = new boolean[mVertexCount];
+            mVersion = new int[mVertexCount];
+            mMark = new int[mVertexCount];
+            mLocked = lockBordersAndSeams();
+            mQuadrics = new double[mVertexCount * 10];
+            mAdjacencySize = new int[mVertexCount];
+            for (int i = 0; i < mTriangles.length; i++) {
+                mAdjacencySize[mTriangles[i]]++;
+            }
+            mAdjacency = new int[mVertexCount][];
+            for (int v = 0; v < mVertexCount; v++) {
+                mAdjacency[v] = new int[Math.max(4, mAdjacencySize[v])];
+                mAdjacencySize[v] = 0;
+            }
+            for (int t = 0; t < triangleCount; t++) {
+                int a = mTriangles[t * 3];
+                int b = mTriangles[t * 3 + 1];
+                int c = mTriangles[t * 3 + 2];
+                if (a == b || b == c || a == c) {
+                    // 退化三角形直接丢弃
+                    mDeadTriangle[t] = true;
+                    mLiveTriangles--;
+                    continue;
+                }
+                addAdjacency(a, t);
+                addAdjacency(b, t);
+                addAdjacency(c, t);
+                addPlane(a, b, c);
+            }
+        }
+
+        void run(int targetTriangles) {
+            for (int v = 0; v < mVertexCount; v++) {
+                pushCandidate(v);
+            }
+            while (mLiveTriangles > targetTriangles && mHeap.size > 0) {
+                int u = mHeap.topU();
+                int v = mHeap.topV();
+                int version = mHeap.topVersion();
+                mHeap.pop();
+                if (mDeadVertex[u] || mDeadVertex[v] || version != mVersion[u]) {
+                    continue;
+                }
+                collapse(u, v);
+            }
+        }
+
+        // 以剩下的三角形用到的顶点生成新网格，顶点数据按原布局整块拷贝
+        Mesh build() {
+            VertexLayout layout = mMesh.getLayout();
+            int stride = layout.getStride();
+            int[] remap = new int[mVertexCount];
+            Arrays.fill(remap, -1);
+            int[] indices = new int[mLiveTriangles * 3];
+            int indexCount = 0;
+            int vertexCount = 0;
+            for (int t = 0; t < mDeadTriangle.length; t++) {
+                if (mDeadTriangle[t]) {
+                    continue;
+                }
+                for (int k = 0; k < 3; k++) {
+                    int v = mTriangles[t * 3 + k];
+                    if (remap[v] < 0) {
+                        remap[v] = vertexCount++;
+                    }
+                    indices[indexCount++] = remap[v];
+                }
+            }
+            ByteBuffer source = mMesh.getVertices();
+            ByteBuffer vertices = Mesh.allocate(vertexCount * stride);
+            byte[] vertex = new byte[stride];
+            for (int v = 0; v < mVertexCount; v++) {
+                if (remap[v] >= 0) {
+                    source.position(v * stride);
+                    source.get(vertex);
+                    vertices.position(remap[v] * stride);
+                    vertices.put(vertex);
+                }
+            }
+            vertices.clear();
+            return Mesh.create(layout, vertices, vertexCount, indices, indexCount);
+        }
+
+        private void collapse(int u, int v) {
+            int[] triangles = mAdjacency[u];
+            int size = mAdjacencySize[u];
+            for (int i = 0; i < size; i++) {
+                int t = triangles[i];
+                if (mDeadTriangle[t]) {
+                    continue;
+                }
+                int base = t * 3;
+                if (mTriangles[base] == v || mTriangles[base + 1] == v || mTriangles[base + 2] == v) {
+                    // 以uv为边的三角形消失
+                    mDeadTriangle[t] = true;
+                    mLiveTriangles--;
+                } else {
+                    for (int k = 0; k < 3; k++) {
+                        if (mTriangles[base + k] == u) {
+                            mTriangles[base + k] = v;
+                        }
+                    }
+                    addAdjacency(v, t);
+                }
+            }
+            mDeadVertex[u] = true;
+            mAdjacencySize[u] = 0;
+            for (int k = 0; k < 10; k++) {
+                mQuadrics[v * 10 + k] += mQuadrics[u * 10 + k];
+            }
+            // v和它的邻居的候选都可能变化
+            collectNeighbors(v, mAffected);
+            mVersion[v]++;
+            pushCandidate(v);
+            for (int i = 0; i < mAffected.size; i++) {
+                int w = mAffected.data[i];
+                mVersion[w]++;
+                pushCandidate(w);
+            }
+        }
+
+        // 为u找代价最小且合法的合并目标
+        private void pushCandidate(int u) {
+            if (mLocked[u] || mDeadVertex[u]) {
+                return;
+            }
+            collectNeighbors(u, mNeighbors);
+            if (mNeighbors.size == 0) {
+                return;
+            }
+            double best = Double.MAX_VALUE;
+            int target = -1;
+            for (int i = 0; i < mNeighbors.size; i++) {
+                int w = mNeighbors.data[i];
+                double cost = evaluate(u, w) + evaluate(w, w);
+                if (cost < best && isValid(u, w)) {
+                    best = cost;
+                    target = w;
+                }
+            }
+            if (target >= 0) {
+                mHeap.push((float) best, u, target, mVersion[u]);
+            }
+        }
+
+        // u合并到w：u和w的共同邻居只能是uw两侧的两个顶点，且u周围的三角形不翻转、不退化
+        private boolean isValid(int u, int w) {
+            collectNeighbors(w, mTargetNeighbors);
+            int stamp = ++mStamp;
+            for (int i = 0; i < mTargetNeighbors.size; i++) {
+                mMark[mTargetNeighbors.data[i]] = stamp;
+            }
+            int common = 0;
+            for (int i = 0; i < mNeighbors.size; i++) {
+                if (mMark[mNeighbors.data[i]] == stamp) {
+                    common++;
+                }
+            }
+            if (common > 2) {
+                return false;
+            }
+            int[] triangles = mAdjacency[u];
+            int size = mAdjacencySize[u];
+            float[] p = mPositions;
+            for (int i = 0; i < size; i++) {
+                int t = triangles[i];
+                if (mDeadTriangle[t]) {
+                    continue;
+                }
+                int base = t * 3;
+                int a = mTriangles[base];
+                int b = mTriangles[base + 1];
+                int c = mTriangles[base + 2];
+                if (a == w || b == w || c == w) {
+                    continue;
+                }
+                // 把u所在的角移到第一个
+                if (b == u) {
+                    b = c;
+                    c = a;
+                } else if (c == u) {
+                    c = b;
+                    b = a;
+                }
+                double e1x = p[b * 3] - p[u * 3], e1y = p[b * 3 + 1] - p[u * 3 + 1], e1z = p[b * 3 + 2] - p[u * 3 + 2];
+                double e2x = p[c * 3] - p[u * 3], e2y = p[c * 3 + 1] - p[u * 3 + 1], e2z = p[c * 3 + 2] - p[u * 3 + 2];
+                double n1x = e1y * e2z - e1z * e2y, n1y = e1z * e2x - e1x * e2z, n1z = e1x * e2y - e1y * e2x;
+                e1x = p[b * 3] - p[w * 3];
+                e1y = p[b * 3 + 1] - p[w * 3 + 1];
+                e1z = p[b * 3 + 2] - p[w * 3 + 2];
+                e2x = p[c * 3] - p[w * 3];
+                e2y = p[c * 3 + 1] - p[w * 3 + 1];
+                e2z = p[c * 3 + 2] - p[w * 3 + 2];
+                double n2x = e1y * e2z - e1z * e2y, n2y = e1z * e2x - e1x * e2z, n2z = e1x * e2y - e1y * e2x;
+                double dot = n1x * n2x + n1y * n2y + n1z * n2z;
+                double len1 = n1x * n1x + n1y * n1y + n1z * n1z;
+                double len2 = n2x * n2x + n2y * n2y + n2z * n2z;
+                // 法线夹角超过约60度，或面积几乎为0
+                if (dot <= 0 || dot * dot < 0.25 * len1 * len2 || len2 < 1e-12 * len1) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void collectNeighbors(int v, IntArray out) {
+            out.size = 0;
+            int stamp = ++mStamp;
+            mMark[v] = stamp;
+            int[] triangles = mAdjacency[v];
+            int size = mAdjacencySize[v];
+            int live = 0;
+            for (int i = 0; i < size; i++) {
+                int t = triangles[i];
+                if (mDeadTriangle[t]) {
+                    continue;
+                }
+                // 顺便压缩掉死三角形
+                triangles[live++] = t;
+                for (int k = 0; k < 3; k++) {
+                    int w = mTriangles[t * 3 + k];
+                    if (mMark[w] != stamp) {
+                        mMark[w] = stamp;
+                        out.add(w);
+                    }
+                }
+            }
+            mAdjacencySize[v] = live;
+        }
+
+        private void addAdjacency(int v, int t) {
+            int[] triangles = mAdjacency[v];
+            if (mAdjacencySize[v] == triangles.length) {
+                mAdjacency[v] = triangles = Arrays.copyOf(triangles, triangles.length * 2);
+            }
+            triangles[mAdjacencySize[v]++] = t;
+        }
+
+        // 三角形所在平面的二次型，按面积加权累加到三个顶点
+        private void addPlane(int a, int b, int c) {
+            float[] p = mPositions;
+            double e1x = p[b * 3] - p[a * 3], e1y = p[b * 3 + 1] - p[a * 3 + 1], e1z = p[b * 3 + 2] - p[a * 3 + 2];
+            double e2x = p[c * 3] - p[a * 3], e2y = p[c * 3 + 1] - p[a * 3 + 1], e2z = p[c * 3 + 2] - p[a * 3 + 2];
+            double nx = e1y * e2z - e1z * e2y, ny = e1z * e2x - e1x * e2z, nz = e1x * e2y - e1y * e2x;
+            double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (length == 0) {
+                return;
+            }
+            double weight = length * 0.5;
+            nx /= length;
+            ny /= length;
+            nz /= length;
+            double d = -(nx * p[a * 3] + ny * p[a * 3 + 1] + nz * p[a * 3 + 2]);
+            int[] corners = {a, b, c};
+            for (int v : corners) {
+                int q = v * 10;
+                mQuadrics[q] += weight * nx * nx;
+                mQuadrics[q + 1] += weight * nx * ny;
+                mQuadrics[q + 2] += weight * nx * nz;
+                mQuadrics[q + 3] += weight * nx * d;
+                mQuadrics[q + 4] += weight * ny * ny;
+                mQuadrics[q + 5] += weight * ny * nz;
+                mQuadrics[q + 6] += weight * ny * d;
+                mQuadrics[q + 7] += weight * nz * nz;
+                mQuadrics[q + 8] += weight * nz * d;
+                mQuadrics[q + 9] += weight * d * d;
+            }
+        }
+
+        // 顶点q的二次型在顶点at的位置处的值
+        private double evaluate(int q, int at) {
+            double[] m = mQuadrics;
+            int i = q * 10;
+            double x = mPositions[at * 3], y = mPositions[at * 3 + 1], z = mPositions[at * 3 + 2];
+            return m[i] * x * x + 2 * m[i + 1] * x * y + 2 * m[i + 2] * x * z + 2 * m[i + 3] * x
+                    + m[i + 4] * y * y + 2 * m[i + 5] * y * z + 2 * m[i + 6] * y
+                    + m[i + 7] * z * z + 2 * m[i + 8] * z + m[i + 9];
+        }
+
+        // 位置相同的顶点合并后统计每条边被几个三角形使用，不是2的边为边界（或非流形），端点锁定；
+        // 同一位置有多个顶点的为接缝，也锁定
+        private boolean[] lockBordersAndSeams() {
+            int[] positionIds = new int[mVertexCount];
+            PositionTable positions = new PositionTable(mVertexCount);
+            for (int v = 0; v < mVertexCount; v++) {
+                positionIds[v] = positions.indexOf(mPositions, v);
+            }
+            boolean[] lockedPosition = new boolean[positions.count];
+            int[] verticesPerPosition = new int[positions.count];
+            for (int v = 0; v < mVertexCount; v++) {
+                if (++verticesPerPosition[positionIds[v]] > 1) {
+                    lockedPosition[positionIds[v]] = true;
+                }
+            }
+            EdgeTable edges = new EdgeTable(mTriangles.length);
+            for (int i = 0; i < mTriangles.length; i += 3) {
+                for (int k = 0; k < 3; k++) {
+                    int a = positionIds[mTriangles[i + k]];
+                    int b = positionIds[mTriangles[i + (k + 1) % 3]];
+                    if (a != b) {
+                        edges.increment(a, b);
+                    }
+                }
+            }
+            for (int slot = 0; slot < edges.keys.length; slot++) {
+                if (edges.counts[slot] != 0 && edges.counts[slot] != 2) {
+                    long key = edges.keys[slot];
+                    lockedPosition[(int) (key >>> 32)] = true;
+                    lockedPosition[(int) key] = true;
+                }
+            }
+            boolean[] locked = new boolean[mVertexCount];
+            for (int v = 0; v < mVertexCount; v++) {
+                locked[v] = lockedPosition[positionIds[v]];
+            }
+            return locked;
+        }
+
+        private static float[] readPositions(Mesh mesh) {
+            VertexLayout layout = mesh.getLayout();
+            int stride = layout.getStride() / 4;
+            int offset = layout.getAttribute(Mesh.ATTRIBUTE_POSITION).offset / 4;
+            FloatBuffer vertices = mesh.getVertices().asFloatBuffer();
+            float[] positions = new float[mesh.getVertexCount() * 3];
+            for (int v = 0; v < mesh.getVertexCount(); v++) {
+                int base = v * stride + offset;
+                positions[v * 3] = vertices.get(base);
+                positions[v * 3 + 1] = vertices.get(base + 1);
+                positions[v * 3 + 2] = vertices.get(base + 2);
+            }
+            return positions;
+        }
+
+        private static int[] readIndices(Mesh mesh) {
+            ByteBuffer buffer = mesh.getIndices();
+            int[] indices = new int[mesh.getIndexCount()];
+            if (mesh.getIndexType() == GLES20.GL_UNSIGNED_SHORT) {
+                for (int i = 0; i < indices.length; i++) {
+                    indices[i] = buffer.getShort(i * 2) & 0xFFFF;
+                }
+            } else {
+                buffer.asIntBuffer().get(indices);
+            }
+            return indices;
+        }
+    }
+
+    // 位置（按浮点位模式比较）-> 编号，开放寻址
+    private static final class PositionTable {
+        int count;
+        private final int[] mSlots; // 第一个使用该位置的顶点 + 1，0为空
+        private final int[] mIds;
+        private final int mMask;
+
+        PositionTable(int expected) {
+            int capacity = 16;
+            while (capacity < expected * 2) {
+                capacity <<= 1;
+            }
+            mSlots = new int[capacity];
+            mIds = new int[capacity];
+            mMask = capacity - 1;
+        }
+
+        int indexOf(float[] positions, int v) {
+            int x = Float.floatToIntBits(positions[v * 3]);
+            int y = Float.floatToIntBits(positions[v * 3 + 1]);
+            int z = Float.floatToIntBits(positions[v * 3 + 2]);
+            int h = x * 0x9E3779B1 + y * 0x85EBCA77 + z * 0xC2B2AE3D;
+            int slot = (h ^ (h >>> 15)) & mMask;
+            while (mSlots[slot] != 0) {
+                int other = mSlots[slot] - 1;
+                if (Float.floatToIntBits(positions[other * 3]) == x
+                        && Float.floatToIntBits(positions[other * 3 + 1]) == y
+                        && Float.floatToIntBits(positions[other * 3 + 2]) == z) {
+                    return mIds[slot];
+                }
+                slot = (slot + 1) & mMask;
+            }
+            mSlots[slot] = v + 1;
+            mIds[slot] = count;
+            return count++;
+        }
+    }
+
+    // 无向边 -> 使用次数，开放寻址，键为较小端点 << 32 | 较大端点
+    private static final class EdgeTable {
+        final long[] keys;
+        final int[] counts;
+        private final int mMask;
+
+        EdgeTable(int expected) {
+            int capacity = 16;
+            while (capacity < expected * 2) {
+                capacity <<= 1;
+            }
+            keys = new long[capacity];
+            counts = new int[capacity];
+            mMask = capacity - 1;
+        }
+
+        void increment(int a, int b) {
+            long key = a < b ? (long) a << 32 | b : (long) b << 32 | a;
+            long h = key * 0x9E3779B97F4A7C15L;
+            int slot = (int) (h ^ (h >>> 32)) & mMask;
+            while (counts[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mMask;
+            }
+            keys[slot] = key;
+            counts[slot]++;
+        }
+    }
+
+    // 以代价为键的小顶堆，数据存在平行数组里，不分配对象
+    private static final class CollapseHeap {
+        int size;
+        private float[] mCost = new float[64];
+        private int[] mU = new int[64];
+        private int[] mV = new int[64];
+        private int[] mVersion = new int[64];
+
+        void push(float cost, int u, int v, int version) {
+            if (size == mCost.length) {
+                int capacity = size * 2;
+                mCost = Arrays.copyOf(mCost, capacity);
+                mU = Arrays.copyOf(mU, capacity);
+                mV = Arrays.copyOf(mV, capacity);
+                mVersion = Arrays.copyOf(mVersion, capacity);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >> 1;
+                if (mCost[parent] <= cost) {
+                    break;
+                }
+                move(parent, i);
+                i = parent;
+            }
+            set(i, cost, u, v, version);
+        }
+
+        int topU() {
+            return mU[0];
+        }
+
+        int topV() {
+            return mV[0];
+        }
+
+        int topVersion() {
+            return mVersion[0];
+        }
+
+        void pop() {
+            int last = --size;
+            if (last == 0) {
+                return;
+            }
+            float cost = mCost[last];
+            int u = mU[last];
+            int v = mV[last];
+            int version = mVersion[last];
+            int i = 0;
+            while (true) {
+                int child = i * 2 + 1;
+                if (child >= last) {
+                    break;
+                }
+                if (child + 1 < last && mCost[child + 1] < mCost[child]) {
+                    child++;
+                }
+                if (mCost[child] >= cost) {
+                    break;
+                }
+                move(child, i);
+                i = child;
+            }
+            set(i, cost, u, v, version);
+        }
+
+        private void move(int from, int to) {
+            set(to, mCost[from], mU[from], mV[from], mVersion[from]);
+        }
+
+        private void set(int i, float cost, int u, int v, int version) {
+            mCost[i] = cost;
+            mU[i] = u;
+            mV[i] = v;
+            mVersion[i] = version;
+        }
+    }
+}
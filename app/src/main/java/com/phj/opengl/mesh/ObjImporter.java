@@ -0,0 +1,113 @@
+package com.phj.opengl.mesh;
+
+import com.phj.opengl.concurrent.ParallelRange;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 描述：Wavefront OBJ导入，输出可以直接glDrawElements的{@link Mesh}
+ * ByteBuffer（例如映射的文件）按换行切成若干段，在线程池中并行解析，再按顺序合并和去重；
+ * InputStream按块流式读取，在调用线程解析，内存中只保留一块未解析完的数据。
+ * 只导入几何，材质（mtllib/usemtl）和分组忽略。
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class ObjImporter {
+
+    // 每段不少于这么多字节，太小的段合并和调度的开销比解析还大
+    static final int MIN_CHUNK_BYTES = 64 * 1024;
+    private static final int STREAM_BLOCK_BYTES = 256 * 1024;
+
+    private final ExecutorService mExecutor;
+    private final int mTaskCount;
+
+    /**
+     * @param executor  线程池，为null时在调用线程解析
+     * @param taskCount 最多切分的段数
+     */
+    public ObjImporter(ExecutorService executor, int taskCount) {
+        this.mExecutor = executor;
+        this.mTaskCount = Math.max(1, taskCount);
+    }
+
+    /**
+     * 解析[position, limit)，不改变data的position
+     */
+    public Mesh read(ByteBuffer data) throws IOException {
+        return read(data, MIN_CHUNK_BYTES);
+    }
+
+    Mesh read(final ByteBuffer data, int minChunkBytes) throws IOException {
+        int start = data.position();
+        int end = data.limit();
+        int tasks = Math.min(mTaskCount, Math.max(1, (end - start) / minChunkBytes));
+        if (mExecutor == null || tasks <= 1) {
+            ObjParser parser = new ObjParser(end - start);
+            parser.parse(data, start, end);
+            return ObjMeshBuilder.build(new ObjParser[]{parser});
+        }
+        // 切分点移到下一个换行之后，保证每段都是完整的行
+        final int[] bounds = new int[tasks + 1];
+        bounds[0] = start;
+        bounds[tasks] = end;
+        for (int i = 1; i < tasks; i++) {
+            int p = Math.max(bounds[i - 1], start + (int) ((long) (end - start) * i / tasks));
+            while (p < end && data.get(p) != '\n') {
+                p++;
+            }
+            bounds[i] = Math.min(end, p + 1);
+        }
+        final ObjParser[] parts = new ObjParser[tasks];
+        // 每段一个区间，段的边界已经对齐到行
+        ParallelRange.run(mExecutor, tasks, tasks, new ParallelRange.Task<IOException>() {
+            @Override
+            public void run(int first, int last) throws IOException {
+                for (int i = first; i < last; i++) {
+                    ObjParser parser = new ObjParser(bounds[i + 1] - bounds[i]);
+                    // 各线程使用独立的视图，绝对位置读取不共享状态
+                    parser.parse(data.duplicate(), bounds[i], bounds[i + 1]);
+                    parts[i] = parser;
+                }
+            }
+        });
+        return ObjMeshBuilder.build(parts);
+    }
+
+    /**
+     * 流式解析，不关闭in
+     */
+    public Mesh read(InputStream in) throws IOException {
+        ObjParser parser = new ObjParser(STREAM_BLOCK_BYTES);
+        byte[] block = new byte[STREAM_BLOCK_BYTES];
+        ByteBuffer buffer = ByteBuffer.wrap(block);
+        int filled = 0;
+        while (true) {
+            int n = in.read(block, filled, block.length - filled);
+            if (n < 0) {
+                parser.parse(buffer, 0, filled);
+                break;
+            }
+            filled += n;
+            int lineEnd = filled - 1;
+            while (lineEnd >= 0 && block[lineEnd] != '\n') {
+                lineEnd--;
+            }
+            if (lineEnd >= 0) {
+                // 解析完整的行，剩下的半行挪到块首
+                parser.parse(buffer, 0, lineEnd + 1);
+                filled -= lineEnd + 1;
+                System.arraycopy(block, lineEnd + 1, block, 0, filled);
+            } else if (filled == block.length) {
+                // 一行比整块还长
+                byte[] larger = new byte[block.length * 2];
+                System.arraycopy(block, 0, larger, 0, filled);
+                block = larger;
+                buffer = ByteBuffer.wrap(block);
+            }
+        }
+        return ObjMeshBuilder.build(new ObjParser[]{parser});
+    }
+}
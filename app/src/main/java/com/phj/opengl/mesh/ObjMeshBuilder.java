@@ -0,0 +1,193 @@
+package com.phj.opengl.mesh;
+
+import com.phj.opengl.pack.VertexLayout;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * 描述：合并各段的解析结果，把(位置, 纹理坐标, 法线)相同的角合并为同一个顶点
+ * 去重用开放寻址的int哈希表，键直接存在int数组里，不装箱。
+ * 所有角都没有纹理坐标和法线时顶点就是位置，不需要查表。
+ * Created by PHJ on 2026/10/19.
+ */
+
+final class ObjMeshBuilder {
+
+    private ObjMeshBuilder() {
+    }
+
+    static Mesh build(ObjParser[] parts) throws IOException {
+        int positionCount = 0;
+        int textureCoordCount = 0;
+        int normalCount = 0;
+        int cornerCount = 0;
+        for (ObjParser part : parts) {
+            positionCount += part.getPositionCount();
+            textureCoordCount += part.getTextureCoordCount();
+            normalCount += part.getNormalCount();
+            cornerCount += part.corners.size / 3;
+        }
+        float[] positions = concat(parts, 0, positionCount * 3);
+        float[] textureCoords = concat(parts, 1, textureCoordCount * 2);
+        float[] normals = concat(parts, 2, normalCount * 3);
+
+        // 先把引用换算为全局下标并检查范围，顺便确定顶点布局
+        boolean hasTextureCoords = false;
+        boolean hasNormals = false;
+        int positionBase = 0;
+        int textureCoordBase = 0;
+        int normalBase = 0;
+        for (ObjParser part : parts) {
+            int[] corners = part.corners.data;
+            for (int i = 0; i < part.corners.size; i += 3) {
+                int p = ObjParser.resolve(corners[i], positionBase);
+                int t = ObjParser.resolve(corners[i + 1], textureCoordBase);
+                int n = ObjParser.resolve(corners[i + 2], normalBase);
+                if (p < 0 || p >= positionCount
+                        || t < ObjParser.MISSING || t >= textureCoordCount
+                        || n < ObjParser.MISSING || n >= normalCount) {
+                    throw new IOException("face index out of range");
+                }
+                hasTextureCoords |= t != ObjParser.MISSING;
+                hasNormals |= n != ObjParser.MISSING;
+                corners[i] = p;
+                corners[i + 1] = t;
+                corners[i + 2] = n;
+            }
+            positionBase += part.getPositionCount();
+            textureCoordBase += part.getTextureCoordCount();
+            normalBase += part.getNormalCount();
+        }
+
+        VertexLayout layout = Mesh.layout(hasTextureCoords, hasNormals);
+        int[] indices = new int[cornerCount];
+        IntArray keys;
+        int vertexCount;
+        if (!hasTextureCoords && !hasNormals) {
+            keys = null;
+            vertexCount = positionCount;
+            int index = 0;
+            for (ObjParser part : parts) {
+                for (int i = 0; i < part.corners.size; i += 3) {
+                    indices[index++] = part.corners.data[i];
+                }
+            }
+        } else {
+            VertexTable table = new VertexTable(positionCount);
+            int index = 0;
+            for (ObjParser part : parts) {
+                int[] corners = part.corners.data;
+                for (int i = 0; i < part.corners.size; i += 3) {
+                    indices[index++] = table.indexOf(corners[i], corners[i + 1], corners[i + 2]);
+                }
+            }
+            keys = table.keys;
+            vertexCount = table.count;
+        }
+
+        int floatsPerVertex = layout.getStride() / 4;
+        ByteBuffer vertices = Mesh.allocate(vertexCount * layout.getStride());
+        FloatBuffer out = vertices.asFloatBuffer();
+        float[] vertex = new float[floatsPerVertex];
+        for (int v = 0; v < vertexCount; v++) {
+            int p = keys == null ? v : keys.data[v * 3];
+            vertex[0] = positions[p * 3];
+            vertex[1] = positions[p * 3 + 1];
+            vertex[2] = positions[p * 3 + 2];
+            int offset = 3;
+            if (hasTextureCoords) {
+                int t = keys.data[v * 3 + 1];
+                vertex[3] = t == ObjParser.MISSING ? 0f : textureCoords[t * 2];
+                // OBJ的v轴向上，GL纹理的t轴向下
+                vertex[4] = t == ObjParser.MISSING ? 0f : 1f - textureCoords[t * 2 + 1];
+                offset = 5;
+            }
+            if (hasNormals) {
+                int n = keys.data[v * 3 + 2];
+                vertex[offset] = n == ObjParser.MISSING ? 0f : normals[n * 3];
+                vertex[offset + 1] = n == ObjParser.MISSING ? 0f : normals[n * 3 + 1];
+                vertex[offset + 2] = n == ObjParser.MISSING ? 0f : normals[n * 3 + 2];
+            }
+            out.put(vertex);
+        }
+        return Mesh.create(layout, vertices, vertexCount, indices, cornerCount);
+    }
+
+    // 只有一段时直接使用它的数组，不再拷贝
+    private static float[] concat(ObjParser[] parts, int which, int size) {
+        if (parts.length == 1) {
+            return array(parts[0], which).data;
+        }
+        float[] out = new float[size];
+        int offset = 0;
+        for (ObjParser part : parts) {
+            FloatArray array = array(part, which);
+            System.arraycopy(array.data, 0, out, offset, array.size);
+            offset += array.size;
+        }
+        return out;
+    }
+
+    private static FloatArray array(ObjParser part, int which) {
+        return which == 0 ? part.positions : which == 1 ? part.textureCoords : part.normals;
+    }
+
+    // (p, t, n) -> 顶点下标
+    private static final class VertexTable {
+        final IntArray keys;
+        int count;
+        private int[] mSlots; // 顶点下标 + 1，0为空
+        private int mMask;
+
+        VertexTable(int expected) {
+            keys = new IntArray(expected * 3);
+            int capacity = 16;
+            while (capacity < expected * 2) {
+                capacity <<= 1;
+            }
+            mSlots = new int[capacity];
+            mMask = capacity - 1;
+        }
+
+        int indexOf(int p, int t, int n) {
+            int slot = hash(p, t, n) & mMask;
+            int[] k = keys.data;
+            while (mSlots[slot] != 0) {
+                int v = mSlots[slot] - 1;
+                if (k[v * 3] == p && k[v * 3 + 1] == t && k[v * 3 + 2] == n) {
+                    return v;
+                }
+                slot = (slot + 1) & mMask;
+            }
+            int v = count++;
+            keys.add(p, t, n);
+            mSlots[slot] = v + 1;
+            if (count * 2 > mSlots.length) {
+                rehash();
+            }
+            return v;
+        }
+
+        private void rehash() {
+            int[] slots = new int[mSlots.length * 2];
+            int mask = slots.length - 1;
+            int[] k = keys.data;
+            for (int v = 0; v < count; v++) {
+                int slot = hash(k[v * 3], k[v * 3 + 1], k[v * 3 + 2]) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = v + 1;
+            }
+            mSlots = slots;
+            mMask = mask;
+        }
+
+        private static int hash(int p, int t, int n) {
+            int h = p * 0x9E3779B1 + t * 0x85EBCA77 + n * 0xC2B2AE3D;
+            return h ^ (h >>> 15);
+        }
+    }
+}
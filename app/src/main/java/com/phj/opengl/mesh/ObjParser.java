@@ -0,0 +1,288 @@
+package com.phj.opengl.mesh;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 描述：解析OBJ文本的一段完整行，只处理v/vt/vn/f，其余行跳过
+ * 直接在字节上扫描数字，不创建String，也不装箱。多边形面按扇形切分为三角形，
+ * 每个三角形角以(位置, 纹理坐标, 法线)三个引用存入{@link #corners}：
+ * 正数索引是全局的，记为从0开始的下标；负数索引相对于当前位置，只能在知道前面各段的数量后才能确定，
+ * 记为RELATIVE + 本段内的下标，由{@link #resolve(int, int)}换算。
+ * Created by PHJ on 2026/10/19.
+ */
+
+final class ObjParser {
+
+    static final int MISSING = -1;
+    private static final int RELATIVE = 1 << 30;
+
+    private static final double[] POW10 = new double[23];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    final FloatArray positions;
+    final FloatArray textureCoords;
+    final FloatArray normals;
+    final IntArray corners;
+
+    private int[] mFace = new int[3 * 8];
+    private ByteBuffer mData;
+    private int mPos;
+    private int mEnd;
+
+    ObjParser(int expectedBytes) {
+        // 按常见OBJ每行约30字节估算初始容量，减少扩容
+        int lines = Math.max(16, expectedBytes / 30);
+        this.positions = new FloatArray(lines);
+        this.textureCoords = new FloatArray(lines / 2);
+        this.normals = new FloatArray(lines / 2);
+        this.corners = new IntArray(lines * 3);
+    }
+
+    int getPositionCount() {
+        return positions.size / 3;
+    }
+
+    int getTextureCoordCount() {
+        return textureCoords.size / 2;
+    }
+
+    int getNormalCount() {
+        return normals.size / 3;
+    }
+
+    /**
+     * 把引用换算为全局下标
+     *
+     * @param base 本段之前各段的数量之和
+     */
+    static int resolve(int ref, int base) {
+        if (ref == MISSING) {
+            return MISSING;
+        }
+        return ref >= RELATIVE / 2 ? base + ref - RELATIVE : ref;
+    }
+
+    /**
+     * 解析[start, end)，调用方保证范围内都是完整的行，最后一行可以没有换行符
+     */
+    void parse(ByteBuffer data, int start, int end) throws IOException {
+        mData = data;
+        mPos = start;
+        mEnd = end;
+        try {
+            while (mPos < mEnd) {
+                skipSpaces();
+                if (mPos >= mEnd) {
+                    break;
+                }
+                byte c = mData.get(mPos);
+                if (c == 'v') {
+                    byte next = peek(mPos + 1);
+                    if (isSpace(next)) {
+                        mPos += 1;
+                        positions.add(readFloat());
+                        positions.add(readFloat());
+                        positions.add(readFloat());
+                    } else if (next == 't' && isSpace(peek(mPos + 2))) {
+                        mPos += 2;
+                        textureCoords.add(readFloat());
+                        textureCoords.add(atLineEnd() ? 0f : readFloat());
+                    } else if (next == 'n' && isSpace(peek(mPos + 2))) {
+                        mPos += 2;
+                        normals.add(readFloat());
+                        normals.add(readFloat());
+                        normals.add(readFloat());
+                    }
+                } else if (c == 'f' && isSpace(peek(mPos + 1))) {
+                    mPos += 1;
+                    readFace();
+                }
+                skipLine();
+            }
+        } finally {
+            mData = null;
+        }
+    }
+
+    private void readFace() throws IOException {
+        int count = 0;
+        while (!atLineEnd()) {
+            if (count * 3 + 3 > mFace.length) {
+                int[] face = new int[mFace.length * 2];
+                System.arraycopy(mFace, 0, face, 0, mFace.length);
+                mFace = face;
+            }
+            int p = readIndex(getPositionCount());
+            int t = MISSING;
+            int n = MISSING;
+            if (peek(mPos) == '/') {
+                mPos++;
+                if (peek(mPos) != '/') {
+                    t = readIndex(getTextureCoordCount());
+                }
+                if (peek(mPos) == '/') {
+                    mPos++;
+                    n = readIndex(getNormalCount());
+                }
+            }
+            mFace[count * 3] = p;
+            mFace[count * 3 + 1] = t;
+            mFace[count * 3 + 2] = n;
+            count++;
+        }
+        // 扇形切分，少于3个角的面忽略
+        for (int i = 1; i + 1 < count; i++) {
+            corners.add(mFace[0], mFace[1], mFace[2]);
+            corners.add(mFace[i * 3], mFace[i * 3 + 1], mFace[i * 3 + 2]);
+            corners.add(mFace[i * 3 + 3], mFace[i * 3 + 4], mFace[i * 3 + 5]);
+        }
+    }
+
+    private int readIndex(int localCount) throws IOException {
+        int value = readInt();
+        if (value > 0 && value < RELATIVE / 2) {
+            return value - 1;
+        }
+        if (value < 0 && -value < RELATIVE / 2) {
+            return RELATIVE + localCount + value;
+        }
+        throw error("bad index " + value);
+    }
+
+    // 跳过前导空白，读到数字结束为止
+    private int readInt() throws IOException {
+        skipSpaces();
+        int p = mPos;
+        boolean negative = false;
+        byte c = peek(p);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            p++;
+        }
+        int start = p;
+        long value = 0;
+        while (p < mEnd) {
+            c = mData.get(p);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            value = Math.min(value * 10 + (c - '0'), Integer.MAX_VALUE);
+            p++;
+        }
+        if (p == start) {
+            throw error("expected integer");
+        }
+        mPos = p;
+        return (int) (negative ? -value : value);
+    }
+
+    // 最多保留18位有效数字，指数用查表缩放，精度满足float
+    private float readFloat() throws IOException {
+        skipSpaces();
+        int p = mPos;
+        boolean negative = false;
+        byte c = peek(p);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            p++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean any = false;
+        while (p < mEnd && (c = mData.get(p)) >= '0' && c <= '9') {
+            any = true;
+            if (digits < 18) {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0) {
+                    digits++;
+                }
+            } else {
+                exponent++;
+            }
+            p++;
+        }
+        if (p < mEnd && mData.get(p) == '.') {
+            p++;
+            while (p < mEnd && (c = mData.get(p)) >= '0' && c <= '9') {
+                any = true;
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                    exponent--;
+                }
+                p++;
+            }
+        }
+        if (!any) {
+            throw error("expected number");
+        }
+        c = peek(p);
+        if (c == 'e' || c == 'E') {
+            p++;
+            boolean negativeExponent = false;
+            c = peek(p);
+            if (c == '-' || c == '+') {
+                negativeExponent = c == '-';
+                p++;
+            }
+            int e = 0;
+            while (p < mEnd && (c = mData.get(p)) >= '0' && c <= '9') {
+                e = Math.min(e * 10 + (c - '0'), 1000);
+                p++;
+            }
+            exponent += negativeExponent ? -e : e;
+        }
+        mPos = p;
+        double value = mantissa;
+        if (exponent < 0) {
+            value /= -exponent < POW10.length ? POW10[-exponent] : Math.pow(10, -exponent);
+        } else if (exponent > 0) {
+            value *= exponent < POW10.length ? POW10[exponent] : Math.pow(10, exponent);
+        }
+        return (float) (negative ? -value : value);
+    }
+
+    private boolean atLineEnd() {
+        skipSpaces();
+        if (mPos >= mEnd) {
+            return true;
+        }
+        byte c = mData.get(mPos);
+        return c == '\n' || c == '#';
+    }
+
+    private void skipSpaces() {
+        while (mPos < mEnd && isSpace(mData.get(mPos))) {
+            mPos++;
+        }
+    }
+
+    private void skipLine() {
+        while (mPos < mEnd && mData.get(mPos) != '\n') {
+            mPos++;
+        }
+        mPos++;
+    }
+
+    private byte peek(int pos) {
+        return pos < mEnd ? mData.get(pos) : (byte) '\n';
+    }
+
+    private static boolean isSpace(byte c) {
+        return c == ' ' || c == '\t' || c == '\r';
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " at byte " + mPos);
+    }
+}
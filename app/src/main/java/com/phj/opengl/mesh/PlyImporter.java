@@ -0,0 +1,388 @@
+package com.phj.opengl.mesh;
+
+import com.phj.opengl.concurrent.ParallelRange;
+import com.phj.opengl.pack.VertexLayout;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.StringTokenizer;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 描述：二进制PLY导入（binary_little_endian / binary_big_endian），输出可以直接glDrawElements的{@link Mesh}
+ * PLY的顶点本身就是索引好的，不需要去重。顶点元素是定长记录，按顶点范围切分到线程池中并行转换，
+ * 直接写入输出的direct buffer；面是变长列表，在调用线程按顺序读取并扇形切分为三角形。
+ * 识别的顶点属性：x/y/z，u/v（或s/t、texture_u/texture_v），nx/ny/nz；其余属性和元素跳过。
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class PlyImporter {
+
+    private static final int MIN_VERTICES_PER_TASK = 16 * 1024;
+
+    // 属性类型
+    private static final int INT8 = 0;
+    private static final int UINT8 = 1;
+    private static final int INT16 = 2;
+    private static final int UINT16 = 3;
+    private static final int INT32 = 4;
+    private static final int UINT32 = 5;
+    private static final int FLOAT32 = 6;
+    private static final int FLOAT64 = 7;
+    private static final int[] SIZES = {1, 1, 2, 2, 4, 4, 4, 8};
+
+    private final ExecutorService mExecutor;
+    private final int mTaskCount;
+
+    /**
+     * @param executor  线程池，为null时在调用线程转换
+     * @param taskCount 顶点最多切分的段数
+     */
+    public PlyImporter(ExecutorService executor, int taskCount) {
+        this.mExecutor = executor;
+        this.mTaskCount = Math.max(1, taskCount);
+    }
+
+    /**
+     * PLY的面是变长记录，无法边读边定位，这里先完整读入内存再解析，不关闭in
+     */
+    public Mesh read(InputStream in) throws IOException {
+        byte[] data = new byte[64 * 1024];
+        int size = 0;
+        int n;
+        while ((n = in.read(data, size, data.length - size)) >= 0) {
+            size += n;
+            if (size == data.length) {
+                byte[] larger = new byte[data.length * 2];
+                System.arraycopy(data, 0, larger, 0, size);
+                data = larger;
+            }
+        }
+        return read(ByteBuffer.wrap(data, 0, size));
+    }
+
+    /**
+     * 解析[position, limit)，不改变data的position
+     */
+    public Mesh read(ByteBuffer data) throws IOException {
+        try {
+            return parse(data.slice());
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("truncated ply", e);
+        }
+    }
+
+    private Mesh parse(ByteBuffer data) throws IOException {
+        ArrayList<Element> elements = new ArrayList<>();
+        ByteOrder order = null;
+        int pos = 0;
+        boolean first = true;
+        // 头部只有几十行ASCII，逐行转成String处理
+        while (true) {
+            int lineEnd = pos;
+            while (lineEnd < data.limit() && data.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            if (lineEnd >= data.limit()) {
+                throw new IOException("missing end_header");
+            }
+            byte[] bytes = new byte[lineEnd - pos];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = data.get(pos + i);
+            }
+            pos = lineEnd + 1;
+            StringTokenizer tokens = new StringTokenizer(new String(bytes, "US-ASCII"));
+            if (!tokens.hasMoreTokens()) {
+                continue;
+            }
+            String keyword = tokens.nextToken();
+            if (first) {
+                if (!keyword.equals("ply")) {
+                    throw new IOException("not a ply file");
+                }
+                first = false;
+            } else if (keyword.equals("format")) {
+                String format = tokens.nextToken();
+                if (format.equals("binary_little_endian")) {
+                    order = ByteOrder.LITTLE_ENDIAN;
+                } else if (format.equals("binary_big_endian")) {
+                    order = ByteOrder.BIG_ENDIAN;
+                } else {
+                    throw new IOException("unsupported ply format " + format);
+                }
+            } else if (keyword.equals("element")) {
+                elements.add(new Element(tokens.nextToken(), Integer.parseInt(tokens.nextToken())));
+            } else if (keyword.equals("property")) {
+                if (elements.isEmpty()) {
+                    throw new IOException("property outside element");
+                }
+                String type = tokens.nextToken();
+                Property property;
+                if (type.equals("list")) {
+                    int countType = type(tokens.nextToken());
+                    int itemType = type(tokens.nextToken());
+                    property = new Property(tokens.nextToken(), itemType, countType);
+                } else {
+                    property = new Property(tokens.nextToken(), type(type), -1);
+                }
+                elements.get(elements.size() - 1).add(property);
+            } else if (keyword.equals("end_header")) {
+                break;
+            }
+        }
+        if (order == null) {
+            throw new IOException("missing format");
+        }
+        data.order(order);
+
+        ByteBuffer vertices = null;
+        VertexLayout layout = null;
+        int vertexCount = 0;
+        IntArray indices = null;
+        for (Element element : elements) {
+            if (element.name.equals("vertex")) {
+                if (element.size < 0) {
+                    throw new IOException("variable sized vertex element");
+                }
+                vertexCount = element.count;
+                int x = element.offsetOf("x");
+                int y = element.offsetOf("y");
+                int z = element.offsetOf("z");
+                if (x < 0 || y < 0 || z < 0) {
+                    throw new IOException("vertex without position");
+                }
+                layout = Mesh.layout(element.offsetOf("u", "s", "texture_u") >= 0
+                                && element.offsetOf("v", "t", "texture_v") >= 0,
+                        element.offsetOf("nx") >= 0 && element.offsetOf("ny") >= 0 && element.offsetOf("nz") >= 0);
+                vertices = Mesh.allocate(vertexCount * layout.getStride());
+                convertVertices(data, pos, element, layout, vertices.asFloatBuffer());
+                pos += element.count * element.size;
+            } else if (element.name.equals("face")) {
+                indices = readFaces(data, pos, element, vertexCount);
+                pos = element.end;
+            } else if (element.size >= 0) {
+                pos += element.count * element.size;
+            } else {
+                pos = skip(data, pos, element);
+            }
+        }
+        if (vertices == null || indices == null) {
+            throw new IOException("ply without vertex or face element");
+        }
+        return Mesh.create(layout, vertices, vertexCount, indices.data, indices.size);
+    }
+
+    private void convertVertices(final ByteBuffer data, final int start, final Element element,
+                                 final VertexLayout layout, final FloatBuffer out) {
+        // 各区间使用独立的视图，写入互不重叠的顶点范围；越界由read统一转为IOException
+        ParallelRange.run(mExecutor, element.count,
+                Math.min(mTaskCount, Math.max(1, element.count / MIN_VERTICES_PER_TASK)),
+                new ParallelRange.Task<RuntimeException>() {
+                    @Override
+                    public void run(int first, int last) {
+                        convertVertices(data.duplicate().order(data.order()), start, element, layout,
+                                out.duplicate(), first, last);
+                    }
+                });
+    }
+
+    private static void convertVertices(ByteBuffer data, int start, Element element, VertexLayout layout,
+                                        FloatBuffer out, int first, int last) {
+        Property x = element.find("x");
+        Property y = element.find("y");
+        Property z = element.find("z");
+        Property u = element.find("u", "s", "texture_u");
+        Property v = element.find("v", "t", "texture_v");
+        Property nx = element.find("nx");
+        Property ny = element.find("ny");
+        Property nz = element.find("nz");
+        boolean textureCoords = layout.getAttribute(Mesh.ATTRIBUTE_TEXTURE_COORD) != null;
+        boolean normals = layout.getAttribute(Mesh.ATTRIBUTE_NORMAL) != null;
+        int floatsPerVertex = layout.getStride() / 4;
+        int index = first * floatsPerVertex;
+        for (int i = first; i < last; i++) {
+            int record = start + i * element.size;
+            out.put(index++, readFloat(data, record, x));
+            out.put(index++, readFloat(data, record, y));
+            out.put(index++, readFloat(data, record, z));
+            if (textureCoords) {
+                out.put(index++, readFloat(data, record, u));
+                // PLY的v轴向上，GL纹理的t轴向下
+                out.put(index++, 1f - readFloat(data, record, v));
+            }
+            if (normals) {
+                out.put(index++, readFloat(data, record, nx));
+                out.put(index++, readFloat(data, record, ny));
+                out.put(index++, readFloat(data, record, nz));
+            }
+        }
+    }
+
+    private static IntArray readFaces(ByteBuffer data, int pos, Element element, int vertexCount)
+            throws IOException {
+        IntArray indices = new IntArray(element.count * 3);
+        for (int f = 0; f < element.count; f++) {
+            for (int p = 0; p < element.properties.size(); p++) {
+                Property property = element.properties.get(p);
+                if (property.countType < 0) {
+                    pos += SIZES[property.type];
+                    continue;
+                }
+                int count = readInt(data, pos, property.countType);
+                pos += SIZES[property.countType];
+                if (property.name.equals("vertex_indices") || property.name.equals("vertex_index")) {
+                    int size = SIZES[property.type];
+                    int firstIndex = readInt(data, pos, property.type);
+                    // 扇形切分，少于3个角的面忽略
+                    for (int i = 1; i + 1 < count; i++) {
+                        int b = readInt(data, pos + i * size, property.type);
+                        int c = readInt(data, pos + (i + 1) * size, property.type);
+                        if (firstIndex < 0 || firstIndex >= vertexCount || b < 0 || b >= vertexCount
+                                || c < 0 || c >= vertexCount) {
+                            throw new IOException("face index out of range");
+                        }
+                        indices.add(firstIndex, b, c);
+                    }
+                }
+                pos += count * SIZES[property.type];
+            }
+        }
+        element.end = pos;
+        return indices;
+    }
+
+    // 跳过包含列表属性的元素
+    private static int skip(ByteBuffer data, int pos, Element element) {
+        for (int i = 0; i < element.count; i++) {
+            for (int p = 0; p < element.properties.size(); p++) {
+                Property property = element.properties.get(p);
+                if (property.countType < 0) {
+                    pos += SIZES[property.type];
+                } else {
+                    pos += SIZES[property.countType] + readInt(data, pos, property.countType) * SIZES[property.type];
+                }
+            }
+        }
+        return pos;
+    }
+
+    private static float readFloat(ByteBuffer data, int record, Property property) {
+        int pos = record + property.offset;
+        switch (property.type) {
+            case FLOAT32:
+                return data.getFloat(pos);
+            case FLOAT64:
+                return (float) data.getDouble(pos);
+            default:
+                return readInt(data, pos, property.type);
+        }
+    }
+
+    private static int readInt(ByteBuffer data, int pos, int type) {
+        switch (type) {
+            case INT8:
+                return data.get(pos);
+            case UINT8:
+                return data.get(pos) & 0xFF;
+            case INT16:
+                return data.getShort(pos);
+            case UINT16:
+                return data.getShort(pos) & 0xFFFF;
+            case FLOAT32:
+                return (int) data.getFloat(pos);
+            case FLOAT64:
+                return (int) data.getDouble(pos);
+            default:
+                // uint32超过int范围的值在后面的范围检查中被拒绝
+                return data.getInt(pos);
+        }
+    }
+
+    private static int type(String name) throws IOException {
+        switch (name) {
+            case "char":
+            case "int8":
+                return INT8;
+            case "uchar":
+            case "uint8":
+                return UINT8;
+            case "short":
+            case "int16":
+                return INT16;
+            case "ushort":
+            case "uint16":
+                return UINT16;
+            case "int":
+            case "int32":
+                return INT32;
+            case "uint":
+            case "uint32":
+                return UINT32;
+            case "float":
+            case "float32":
+                return FLOAT32;
+            case "double":
+            case "float64":
+                return FLOAT64;
+            default:
+                throw new IOException("unknown ply type " + name);
+        }
+    }
+
+    private static class Property {
+        final String name;
+        final int type;
+        final int countType;  // 列表长度的类型，不是列表时为-1
+        int offset;           // 在定长记录内的字节偏移
+
+        Property(String name, int type, int countType) {
+            this.name = name;
+            this.type = type;
+            this.countType = countType;
+        }
+    }
+
+    private static class Element {
+        final String name;
+        final int count;
+        final ArrayList<Property> properties = new ArrayList<>();
+        int size;             // 定长记录的字节数，含列表属性时为-1
+        int end;              // 变长元素读完后的位置
+
+        Element(String name, int count) {
+            this.name = name;
+            this.count = count;
+        }
+
+        void add(Property property) {
+            if (property.countType >= 0) {
+                size = -1;
+            } else if (size >= 0) {
+                property.offset = size;
+                size += SIZES[property.type];
+            }
+            properties.add(property);
+        }
+
+        Property find(String... names) {
+            for (int i = 0; i < properties.size(); i++) {
+                Property property = properties.get(i);
+                for (String name : names) {
+                    if (property.countType < 0 && property.name.equals(name)) {
+                        return property;
+                    }
+                }
+            }
+            return null;
+        }
+
+        int offsetOf(String... names) {
+            Property property = find(names);
+            return property == null ? -1 : property.offset;
+        }
+    }
+}
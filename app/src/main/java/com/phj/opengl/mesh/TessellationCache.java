@@ -0,0 +1,87 @@
+package com.phj.opengl.mesh;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 描述：按几何缓存三角化结果，静态的矢量图形只三角化一次
+ * key是顶点坐标和洞下标的内容，不是数组引用，相同形状的不同数组也能命中；
+ * 存入时拷贝一份，之后修改传入的数组不影响已缓存的条目。超过容量时淘汰最久未使用的条目。
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class TessellationCache {
+
+    private final Tessellator mTessellator;
+    private final LinkedHashMap<Geometry, Mesh> mEntries;
+    private int mHitCount;
+    private int mMissCount;
+
+    public TessellationCache(Tessellator tessellator, final int maxEntries) {
+        this.mTessellator = tessellator;
+        this.mEntries = new LinkedHashMap<Geometry, Mesh>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Geometry, Mesh> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @see Tessellator#tessellate(float[], int[])
+     */
+    public synchronized Mesh get(float[] xy, int[] holes) {
+        Mesh mesh = mEntries.get(new Geometry(xy, holes));
+        if (mesh != null) {
+            mHitCount++;
+            return mesh;
+        }
+        mMissCount++;
+        mesh = mTessellator.tessellate(xy, holes);
+        mEntries.put(new Geometry(xy.clone(), holes == null ? null : holes.clone()), mesh);
+        return mesh;
+    }
+
+    public synchronized void clear() {
+        mEntries.clear();
+    }
+
+    public synchronized int size() {
+        return mEntries.size();
+    }
+
+    public synchronized int getHitCount() {
+        return mHitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return mMissCount;
+    }
+
+    private static final class Geometry {
+        final float[] xy;
+        final int[] holes;
+        final int hash;
+
+        Geometry(float[] xy, int[] holes) {
+            this.xy = xy;
+            this.holes = holes;
+            this.hash = Arrays.hashCode(xy) * 31 + Arrays.hashCode(holes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Geometry)) {
+                return false;
+            }
+            Geometry other = (Geometry) o;
+            return hash == other.hash && Arrays.equals(xy, other.xy) && Arrays.equals(holes, other.holes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,581 @@
+package com.phj.opengl.mesh;
+
+import android.opengl.GLES20;
+
+import com.phj.opengl.pack.VertexLayout;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+
+/**
+ * 描述：任意简单多边形（可带洞）的三角化，耳切法
+ * 顶点放在双向循环链表中，依次切掉凸且内部不含其他顶点的"耳朵"。洞先按最左顶点排序，
+ * 通过一条到外环的桥接边并入外环。顶点较多时按包围盒把坐标量化为15位，交织成z-order码，
+ * 另建一条按z排序的链表，判断耳朵时只检查三角形包围盒z范围内的顶点，整体接近O(n log n)。
+ * 切不下去时依次去掉重复点、修复局部自交、沿对角线分割，保证退化输入也能输出结果。
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class Tessellator {
+
+    // 超过这么多顶点才建z-order索引，顶点少时线性扫描更快
+    private static final int HASH_THRESHOLD = 80;
+
+    /**
+     * @param xy    外环和各个洞的顶点依次排列，每个顶点两个float，环的方向不限
+     * @param holes 每个洞的第一个顶点的下标，没有洞时为null
+     * @return 三角形的顶点下标，每3个一组
+     */
+    public int[] triangulate(float[] xy, int[] holes) {
+        IntArray triangles = new IntArray(xy.length * 3 / 2);
+        boolean hasHoles = holes != null && holes.length > 0;
+        int outerLength = hasHoles ? holes[0] * 2 : xy.length;
+        Node outer = linkedList(xy, 0, outerLength, true);
+        if (outer == null || outer.next == outer.prev) {
+            return new int[0];
+        }
+        if (hasHoles) {
+            outer = eliminateHoles(xy, holes, outer);
+        }
+        double minX = 0;
+        double minY = 0;
+        double invSize = 0;
+        if (xy.length > HASH_THRESHOLD * 2) {
+            minX = Double.MAX_VALUE;
+            minY = Double.MAX_VALUE;
+            double maxX = -Double.MAX_VALUE;
+            double maxY = -Double.MAX_VALUE;
+            for (int i = 0; i < outerLength; i += 2) {
+                minX = Math.min(minX, xy[i]);
+                minY = Math.min(minY, xy[i + 1]);
+                maxX = Math.max(maxX, xy[i]);
+                maxY = Math.max(maxY, xy[i + 1]);
+            }
+            double size = Math.max(maxX - minX, maxY - minY);
+            invSize = size != 0 ? 32767 / size : 0;
+        }
+        earcutLinked(outer, triangles, minX, minY, invSize, 0);
+        int[] result = new int[triangles.size];
+        System.arraycopy(triangles.data, 0, result, 0, triangles.size);
+        return result;
+    }
+
+    /**
+     * 三角化并生成可以直接glDrawElements(GL_TRIANGLES)的网格，顶点只有二维的位置
+     */
+    public Mesh tessellate(float[] xy, int[] holes) {
+        int[] indices = triangulate(xy, holes);
+        VertexLayout layout = new VertexLayout().add(Mesh.ATTRIBUTE_POSITION, 2, GLES20.GL_FLOAT);
+        ByteBuffer vertices = Mesh.allocate(xy.length * 4);
+        vertices.asFloatBuffer().put(xy);
+        return Mesh.create(layout, vertices, xy.length / 2, indices, indices.length);
+    }
+
+    private static void earcutLinked(Node ear, IntArray triangles, double minX, double minY, double invSize,
+                                     int pass) {
+        if (ear == null) {
+            return;
+        }
+        if (pass == 0 && invSize != 0) {
+            indexCurve(ear, minX, minY, invSize);
+        }
+        Node stop = ear;
+        while (ear.prev != ear.next) {
+            Node prev = ear.prev;
+            Node next = ear.next;
+            if (invSize != 0 ? isEarHashed(ear, minX, minY, invSize) : isEar(ear)) {
+                triangles.add(prev.i, ear.i, next.i);
+                removeNode(ear);
+                // 跳过下一个顶点，得到的三角形更均匀
+                ear = next.next;
+                stop = next.next;
+                continue;
+            }
+            ear = next;
+            if (ear == stop) {
+                if (pass == 0) {
+                    earcutLinked(filterPoints(ear, null), triangles, minX, minY, invSize, 1);
+                } else if (pass == 1) {
+                    ear = cureLocalIntersections(filterPoints(ear, null), triangles);
+                    earcutLinked(ear, triangles, minX, minY, invSize, 2);
+                } else if (pass == 2) {
+                    splitEarcut(ear, triangles, minX, minY, invSize);
+                }
+                break;
+            }
+        }
+    }
+
+    private static boolean isEar(Node ear) {
+        Node a = ear.prev;
+        Node b = ear;
+        Node c = ear.next;
+        if (area(a, b, c) >= 0) {
+            return false; // 凹顶点
+        }
+        Node p = ear.next.next;
+        while (p != ear.prev) {
+            if (pointInTriangle(a.x, a.y, b.x, b.y, c.x, c.y, p.x, p.y) && area(p.prev, p, p.next) >= 0) {
+                return false;
+            }
+            p = p.next;
+        }
+        return true;
+    }
+
+    private static boolean isEarHashed(Node ear, double minX, double minY, double invSize) {
+        Node a = ear.prev;
+        Node b = ear;
+        Node c = ear.next;
+        if (area(a, b, c) >= 0) {
+            return false;
+        }
+        double minTX = Math.min(a.x, Math.min(b.x, c.x));
+        double minTY = Math.min(a.y, Math.min(b.y, c.y));
+        double maxTX = Math.max(a.x, Math.max(b.x, c.x));
+        double maxTY = Math.max(a.y, Math.max(b.y, c.y));
+        int minZ = zOrder(minTX, minTY, minX, minY, invSize);
+        int maxZ = zOrder(maxTX, maxTY, minX, minY, invSize);
+
+        // 从耳朵向z的两个方向同时查找
+        Node p = ear.prevZ;
+        Node n = ear.nextZ;
+        while (p != null && p.z >= minZ && n != null && n.z <= maxZ) {
+            if (blocks(p, ear, a, b, c)) {
+                return false;
+            }
+            p = p.prevZ;
+            if (blocks(n, ear, a, b, c)) {
+                return false;
+            }
+            n = n.nextZ;
+        }
+        while (p != null && p.z >= minZ) {
+            if (blocks(p, ear, a, b, c)) {
+                return false;
+            }
+            p = p.prevZ;
+        }
+        while (n != null && n.z <= maxZ) {
+            if (blocks(n, ear, a, b, c)) {
+                return false;
+            }
+            n = n.nextZ;
+        }
+        return true;
+    }
+
+    private static boolean blocks(Node p, Node ear, Node a, Node b, Node c) {
+        return p != ear.prev && p != ear.next
+                && pointInTriangle(a.x, a.y, b.x, b.y, c.x, c.y, p.x, p.y)
+                && area(p.prev, p, p.next) >= 0;
+    }
+
+    // 去掉相邻的两条边相交的情况
+    private static Node cureLocalIntersections(Node start, IntArray triangles) {
+        Node p = start;
+        do {
+            Node a = p.prev;
+            Node b = p.next.next;
+            if (!equals(a, b) && intersects(a, p, p.next, b) && locallyInside(a, b) && locallyInside(b, a)) {
+                triangles.add(a.i, p.i, b.i);
+                removeNode(p);
+                removeNode(p.next);
+                p = start = b;
+            }
+            p = p.next;
+        } while (p != start);
+        return filterPoints(p, null);
+    }
+
+    // 找一条有效的对角线把多边形分成两半，分别三角化
+    private static void splitEarcut(Node start, IntArray triangles, double minX, double minY, double invSize) {
+        Node a = start;
+        do {
+            Node b = a.next.next;
+            while (b != a.prev) {
+                if (a.i != b.i && isValidDiagonal(a, b)) {
+                    Node c = splitPolygon(a, b);
+                    a = filterPoints(a, a.next);
+                    c = filterPoints(c, c.next);
+                    earcutLinked(a, triangles, minX, minY, invSize, 0);
+                    earcutLinked(c, triangles, minX, minY, invSize, 0);
+                    return;
+                }
+                b = b.next;
+            }
+            a = a.next;
+        } while (a != start);
+    }
+
+    private static Node eliminateHoles(float[] xy, int[] holes, Node outer) {
+        ArrayList<Node> queue = new ArrayList<>(holes.length);
+        for (int i = 0; i < holes.length; i++) {
+            int start = holes[i] * 2;
+            int end = i < holes.length - 1 ? holes[i + 1] * 2 : xy.length;
+            Node list = linkedList(xy, start, end, false);
+            if (list == null) {
+                continue;
+            }
+            if (list == list.next) {
+                list.steiner = true;
+            }
+            queue.add(getLeftmost(list));
+        }
+        // 从左到右并入，保证桥接边不会穿过还没处理的洞
+        Collections.sort(queue, new Comparator<Node>() {
+            @Override
+            public int compare(Node a, Node b) {
+                return Double.compare(a.x, b.x);
+            }
+        });
+        for (int i = 0; i < queue.size(); i++) {
+            outer = eliminateHole(queue.get(i), outer);
+        }
+        return outer;
+    }
+
+    private static Node eliminateHole(Node hole, Node outer) {
+        Node bridge = findHoleBridge(hole, outer);
+        if (bridge == null) {
+            return outer;
+        }
+        Node bridgeReverse = splitPolygon(bridge, hole);
+        filterPoints(bridgeReverse, bridgeReverse.next);
+        return filterPoints(bridge, bridge.next);
+    }
+
+    // 从洞的最左顶点向左发出水平射线，找外环上可以直接连接的顶点
+    private static Node findHoleBridge(Node hole, Node outer) {
+        Node p = outer;
+        double hx = hole.x;
+        double hy = hole.y;
+        double qx = -Double.MAX_VALUE;
+        Node m = null;
+        do {
+            if (hy <= p.y && hy >= p.next.y && p.next.y != p.y) {
+                double x = p.x + (hy - p.y) * (p.next.x - p.x) / (p.next.y - p.y);
+                if (x <= hx && x > qx) {
+                    qx = x;
+                    m = p.x < p.next.x ? p : p.next;
+                    if (x == hx) {
+                        return m; // 射线正好穿过顶点
+                    }
+                }
+            }
+            p = p.next;
+        } while (p != outer);
+        if (m == null) {
+            return null;
+        }
+        // 射线交点与m之间的三角形内如果有其他顶点，选与射线夹角最小的
+        Node stop = m;
+        double mx = m.x;
+        double my = m.y;
+        double tanMin = Double.MAX_VALUE;
+        p = m;
+        do {
+            if (hx >= p.x && p.x >= mx && hx != p.x
+                    && pointInTriangle(hy < my ? hx : qx, hy, mx, my, hy < my ? qx : hx, hy, p.x, p.y)) {
+                double tan = Math.abs(hy - p.y) / (hx - p.x);
+                if (locallyInside(p, hole) && (tan < tanMin || (tan == tanMin
+                        && (p.x > m.x || (p.x == m.x && sectorContainsSector(m, p)))))) {
+                    m = p;
+                    tanMin = tan;
+                }
+            }
+            p = p.next;
+        } while (p != stop);
+        return m;
+    }
+
+    private static boolean sectorContainsSector(Node m, Node p) {
+        return area(m.prev, m, p.prev) < 0 && area(p.next, m, m.next) < 0;
+    }
+
+    // 计算z-order码并按z排序出第二条链表
+    private static void indexCurve(Node start, double minX, double minY, double invSize) {
+        Node p = start;
+        do {
+            if (p.z < 0) {
+                p.z = zOrder(p.x, p.y, minX, minY, invSize);
+            }
+            p.prevZ = p.prev;
+            p.nextZ = p.next;
+            p = p.next;
+        } while (p != start);
+        p.prevZ.nextZ = null;
+        p.prevZ = null;
+        sortLinked(p);
+    }
+
+    // 链表归并排序，O(n log n)
+    private static Node sortLinked(Node list) {
+        int inSize = 1;
+        int numMerges;
+        do {
+            Node p = list;
+            list = null;
+            Node tail = null;
+            numMerges = 0;
+            while (p != null) {
+                numMerges++;
+                Node q = p;
+                int pSize = 0;
+                for (int i = 0; i < inSize; i++) {
+                    pSize++;
+                    q = q.nextZ;
+                    if (q == null) {
+                        break;
+                    }
+                }
+                int qSize = inSize;
+                while (pSize > 0 || (qSize > 0 && q != null)) {
+                    Node e;
+                    if (pSize != 0 && (qSize == 0 || q == null || p.z <= q.z)) {
+                        e = p;
+                        p = p.nextZ;
+                        pSize--;
+                    } else {
+                        e = q;
+                        q = q.nextZ;
+                        qSize--;
+                    }
+                    if (tail != null) {
+                        tail.nextZ = e;
+                    } else {
+                        list = e;
+                    }
+                    e.prevZ = tail;
+                    tail = e;
+                }
+                p = q;
+            }
+            tail.nextZ = null;
+            inSize *= 2;
+        } while (numMerges > 1);
+        return list;
+    }
+
+    // 坐标量化为15位后按位交织
+    private static int zOrder(double px, double py, double minX, double minY, double invSize) {
+        int x = (int) ((px - minX) * invSize);
+        int y = (int) ((py - minY) * invSize);
+        x = (x | (x << 8)) & 0x00FF00FF;
+        x = (x | (x << 4)) & 0x0F0F0F0F;
+        x = (x | (x << 2)) & 0x33333333;
+        x = (x | (x << 1)) & 0x55555555;
+        y = (y | (y << 8)) & 0x00FF00FF;
+        y = (y | (y << 4)) & 0x0F0F0F0F;
+        y = (y | (y << 2)) & 0x33333333;
+        y = (y | (y << 1)) & 0x55555555;
+        return x | (y << 1);
+    }
+
+    private static Node getLeftmost(Node start) {
+        Node p = start;
+        Node leftmost = start;
+        do {
+            if (p.x < leftmost.x || (p.x == leftmost.x && p.y < leftmost.y)) {
+                leftmost = p;
+            }
+            p = p.next;
+        } while (p != start);
+        return leftmost;
+    }
+
+    private static boolean pointInTriangle(double ax, double ay, double bx, double by, double cx, double cy,
+                                           double px, double py) {
+        return (cx - px) * (ay - py) >= (ax - px) * (cy - py)
+                && (ax - px) * (by - py) >= (bx - px) * (ay - py)
+                && (bx - px) * (cy - py) >= (cx - px) * (by - py);
+    }
+
+    private static boolean isValidDiagonal(Node a, Node b) {
+        return a.next.i != b.i && a.prev.i != b.i && !intersectsPolygon(a, b)
+                && ((locallyInside(a, b) && locallyInside(b, a) && middleInside(a, b)
+                && (area(a.prev, a, b.prev) != 0 || area(a, b.prev, b) != 0))
+                || (equals(a, b) && area(a.prev, a, a.next) > 0 && area(b.prev, b, b.next) > 0));
+    }
+
+    // 有向面积的两倍，负数表示p->q->r为凸
+    private static double area(Node p, Node q, Node r) {
+        return (q.y - p.y) * (r.x - q.x) - (q.x - p.x) * (r.y - q.y);
+    }
+
+    private static boolean equals(Node a, Node b) {
+        return a.x == b.x && a.y == b.y;
+    }
+
+    private static boolean intersects(Node p1, Node q1, Node p2, Node q2) {
+        int o1 = sign(area(p1, q1, p2));
+        int o2 = sign(area(p1, q1, q2));
+        int o3 = sign(area(p2, q2, p1));
+        int o4 = sign(area(p2, q2, q1));
+        if (o1 != o2 && o3 != o4) {
+            return true;
+        }
+        return (o1 == 0 && onSegment(p1, p2, q1))
+                || (o2 == 0 && onSegment(p1, q2, q1))
+                || (o3 == 0 && onSegment(p2, p1, q2))
+                || (o4 == 0 && onSegment(p2, q1, q2));
+    }
+
+    // q与p、r共线时，q是否在线段pr上
+    private static boolean onSegment(Node p, Node q, Node r) {
+        return q.x <= Math.max(p.x, r.x) && q.x >= Math.min(p.x, r.x)
+                && q.y <= Math.max(p.y, r.y) && q.y >= Math.min(p.y, r.y);
+    }
+
+    private static int sign(double value) {
+        return value > 0 ? 1 : value < 0 ? -1 : 0;
+    }
+
+    private static boolean intersectsPolygon(Node a, Node b) {
+        Node p = a;
+        do {
+            if (p.i != a.i && p.next.i != a.i && p.i != b.i && p.next.i != b.i && intersects(p, p.next, a, b)) {
+                return true;
+            }
+            p = p.next;
+        } while (p != a);
+        return false;
+    }
+
+    private static boolean locallyInside(Node a, Node b) {
+        return area(a.prev, a, a.next) < 0
+                ? area(a, b, a.next) >= 0 && area(a, a.prev, b) >= 0
+                : area(a, b, a.prev) < 0 || area(a, a.next, b) < 0;
+    }
+
+    private static boolean middleInside(Node a, Node b) {
+        Node p = a;
+        boolean inside = false;
+        double px = (a.x + b.x) / 2;
+        double py = (a.y + b.y) / 2;
+        do {
+            if (((p.y > py) != (p.next.y > py)) && p.next.y != p.y
+                    && (px < (p.next.x - p.x) * (py - p.y) / (p.next.y - p.y) + p.x)) {
+                inside = !inside;
+            }
+            p = p.next;
+        } while (p != a);
+        return inside;
+    }
+
+    // 用对角线ab把多边形分成两个，返回新环上b的副本
+    private static Node splitPolygon(Node a, Node b) {
+        Node a2 = new Node(a.i, a.x, a.y);
+        Node b2 = new Node(b.i, b.x, b.y);
+        Node an = a.next;
+        Node bp = b.prev;
+        a.next = b;
+        b.prev = a;
+        a2.next = an;
+        an.prev = a2;
+        b2.next = a2;
+        a2.prev = b2;
+        bp.next = b2;
+        b2.prev = bp;
+        return b2;
+    }
+
+    // 按需要的方向建立循环链表，外环和洞的方向相反
+    private static Node linkedList(float[] xy, int start, int end, boolean clockwise) {
+        Node last = null;
+        if (clockwise == (signedArea(xy, start, end) > 0)) {
+            for (int i = start; i < end; i += 2) {
+                last = insertNode(i / 2, xy[i], xy[i + 1], last);
+            }
+        } else {
+            for (int i = end - 2; i >= start; i -= 2) {
+                last = insertNode(i / 2, xy[i], xy[i + 1], last);
+            }
+        }
+        if (last != null && equals(last, last.next)) {
+            removeNode(last);
+            last = last.next;
+        }
+        return last;
+    }
+
+    // 去掉重复点和共线点
+    private static Node filterPoints(Node start, Node end) {
+        if (start == null) {
+            return null;
+        }
+        if (end == null) {
+            end = start;
+        }
+        Node p = start;
+        boolean again;
+        do {
+            again = false;
+            if (!p.steiner && (equals(p, p.next) || area(p.prev, p, p.next) == 0)) {
+                removeNode(p);
+                p = end = p.prev;
+                if (p == p.next) {
+                    break;
+                }
+                again = true;
+            } else {
+                p = p.next;
+            }
+        } while (again || p != end);
+        return end;
+    }
+
+    private static Node insertNode(int i, double x, double y, Node last) {
+        Node p = new Node(i, x, y);
+        if (last == null) {
+            p.prev = p;
+            p.next = p;
+        } else {
+            p.next = last.next;
+            p.prev = last;
+            last.next.prev = p;
+            last.next = p;
+        }
+        return p;
+    }
+
+    private static void removeNode(Node p) {
+        p.next.prev = p.prev;
+        p.prev.next = p.next;
+        if (p.prevZ != null) {
+            p.prevZ.nextZ = p.nextZ;
+        }
+        if (p.nextZ != null) {
+            p.nextZ.prevZ = p.prevZ;
+        }
+    }
+
+    private static double signedArea(float[] xy, int start, int end) {
+        double sum = 0;
+        for (int i = start, j = end - 2; i < end; i += 2) {
+            sum += ((double) xy[j] - xy[i]) * ((double) xy[i + 1] + xy[j + 1]);
+            j = i;
+        }
+        return sum;
+    }
+
+    private static final class Node {
+        final int i;         // 顶点下标
+        final double x;
+        final double y;
+        Node prev;
+        Node next;
+        int z = -1;          // z-order码，-1表示未计算
+        Node prevZ;
+        Node nextZ;
+        boolean steiner;     // 只有一个点的洞，不能被当作重复点去掉
+
+        Node(int i, double x, double y) {
+            this.i = i;
+            this.x = x;
+            this.y = y;
+        }
+    }
+}
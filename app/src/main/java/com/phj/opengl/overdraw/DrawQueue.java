@@ -0,0 +1,132 @@
+package com.phj.opengl.overdraw;
+
+import android.opengl.GLES20;
+
+import com.phj.opengl.gl.GLApi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+
+/**
+ * 描述：一帧的绘制队列，按不透明/透明和深度排序后提交，用于减少过度绘制
+ * {@link #MODE_DEPTH_SORTED}：打开深度测试，不透明物体从近到远绘制并写深度，
+ * 被挡住的片元在early-z阶段就被丢弃，不再执行片元着色器；透明物体随后从远到近绘制，只测试不写深度。
+ * {@link #MODE_PAINTER}：画家算法，全部从远到近、关闭深度测试，每一层都着色，用于对比。
+ * 深度模式需要帧缓冲有深度缓冲，且绘制前清除深度（glClear#GL_DEPTH_BUFFER_BIT）；
+ * flush之后恢复为关闭深度测试和混合、允许写深度的状态。
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class DrawQueue {
+
+    public static final int MODE_PAINTER = 0;
+    public static final int MODE_DEPTH_SORTED = 1;
+
+    /**
+     * 一次绘制，使用的program、顶点和uniform由自己设置
+     */
+    public interface Item {
+        void draw();
+    }
+
+    // 近的在前，深度相同时保持提交顺序（排序是稳定的）
+    private static final Comparator<Entry> FRONT_TO_BACK = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry a, Entry b) {
+            return Float.compare(a.depth, b.depth);
+        }
+    };
+
+    private static final Comparator<Entry> BACK_TO_FRONT = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry a, Entry b) {
+            return Float.compare(b.depth, a.depth);
+        }
+    };
+
+    private final ArrayList<Entry> mOpaque = new ArrayList<>();
+    private final ArrayList<Entry> mTransparent = new ArrayList<>();
+    // 复用的Entry，每帧不分配
+    private final ArrayList<Entry> mFree = new ArrayList<>();
+    private volatile int mMode = MODE_DEPTH_SORTED;
+
+    public void setMode(int mode) {
+        this.mMode = mode;
+    }
+
+    public int getMode() {
+        return mMode;
+    }
+
+    /**
+     * @param depth  到相机的距离，越大越远；写入深度缓冲的值应与之同序
+     * @param opaque 不透明且不discard，才能从近到远并写深度
+     */
+    public void add(Item item, float depth, boolean opaque) {
+        Entry entry = mFree.isEmpty() ? new Entry() : mFree.remove(mFree.size() - 1);
+        entry.item = item;
+        entry.depth = depth;
+        (opaque ? mOpaque : mTransparent).add(entry);
+    }
+
+    public int size() {
+        return mOpaque.size() + mTransparent.size();
+    }
+
+    /**
+     * 按当前模式排序并绘制，然后清空队列，必须在GL线程调用
+     */
+    public void flush(GLApi gl) {
+        if (mMode == MODE_DEPTH_SORTED) {
+            Collections.sort(mOpaque, FRONT_TO_BACK);
+            Collections.sort(mTransparent, BACK_TO_FRONT);
+            gl.glEnable(GLES20.GL_DEPTH_TEST);
+            gl.glDepthFunc(GLES20.GL_LESS);
+            gl.glDepthMask(true);
+            gl.glDisable(GLES20.GL_BLEND);
+            draw(mOpaque);
+            gl.glDepthMask(false);
+            if (!mTransparent.isEmpty()) {
+                gl.glEnable(GLES20.GL_BLEND);
+                gl.glBlendFunc(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE_MINUS_SRC_ALPHA);
+                draw(mTransparent);
+            }
+            // 深度写关闭时glClear也不会清除深度
+            gl.glDepthMask(true);
+        } else {
+            // 透明和不透明混在一起从远到近
+            mOpaque.addAll(mTransparent);
+            mTransparent.clear();
+            Collections.sort(mOpaque, BACK_TO_FRONT);
+            gl.glDisable(GLES20.GL_DEPTH_TEST);
+            gl.glEnable(GLES20.GL_BLEND);
+            gl.glBlendFunc(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE_MINUS_SRC_ALPHA);
+            draw(mOpaque);
+        }
+        gl.glDisable(GLES20.GL_BLEND);
+        gl.glDisable(GLES20.GL_DEPTH_TEST);
+        recycle(mOpaque);
+        recycle(mTransparent);
+    }
+
+    private static void draw(ArrayList<Entry> entries) {
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).item.draw();
+        }
+    }
+
+    private void recycle(ArrayList<Entry> entries) {
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            entry.item = null;
+            mFree.add(entry);
+        }
+        entries.clear();
+    }
+
+    private static final class Entry {
+        Item item;
+        float depth;
+    }
+}
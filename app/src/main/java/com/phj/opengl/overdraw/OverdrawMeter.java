@@ -0,0 +1,252 @@
+package com.phj.opengl.overdraw;
+
+import android.opengl.GLES20;
+import android.util.Log;
+
+import com.phj.opengl.fbo.RenderTargetPool;
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.readback.FrameEncoder;
+import com.phj.opengl.readback.FrameReadback;
+import com.phj.opengl.shader.ShaderFeatures;
+import com.phj.opengl.shader.ShaderLibrary;
+import com.phj.opengl.shader.UniformState;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 描述：过度绘制诊断模式，把画面替换为每像素着色次数的热力图，并定期回读统计
+ * 场景绘制期间打开模板测试，每个通过测试的片元把模板值加1（GL_INCR），与场景自己的混合、shader无关；
+ * 场景画完后以模板值为计数做解析：按位分8个全屏pass，模板第b位为1的像素以加法混合写入2^b/255，
+ * 颜色缓冲的R通道即为精确的计数，经{@link FrameReadback}异步回读为{@link OverdrawStats}。
+ * 最后按计数画热力图：1次蓝、2次绿、3次粉、4次及以上红，没有着色的像素为深灰。
+ * 只统计默认帧缓冲上的片元，滤镜等离屏pass没有模板缓冲，不计入。EGL配置需要模板位，没有时不生效。
+ * 所有方法都必须在GL线程调用。
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class OverdrawMeter {
+
+    private final static String TAG = OverdrawMeter.class.getSimpleName();
+
+    /**
+     * 在工作线程上回调
+     */
+    public interface Listener {
+        void onOverdrawStats(OverdrawStats stats);
+    }
+
+    // 热力图：下标为计数，最后一项用于不少于该计数的像素
+    private static final float[][] HEAT = {
+            {0.1f, 0.1f, 0.1f, 1f},
+            {0.2f, 0.3f, 1f, 1f},
+            {0.2f, 0.8f, 0.2f, 1f},
+            {1f, 0.5f, 0.7f, 1f},
+            {0.9f, 0.1f, 0.1f, 1f},
+    };
+    private static final int BITS = 8;
+
+    private static final float[] QUAD = {
+            -1, -1,
+            1, -1,
+            -1, 1,
+            1, 1,
+    };
+
+    private static final FrameEncoder<OverdrawStats> ENCODER = new FrameEncoder<OverdrawStats>() {
+        @Override
+        public OverdrawStats encode(ByteBuffer rgba, int width, int height) {
+            return OverdrawStats.fromCounts(rgba, width, height);
+        }
+    };
+
+    private final GLApi mGL;
+    private final ShaderLibrary mShaderLibrary;
+    private final RenderTargetPool mPool;
+    private final FrameReadback mReadback;
+    private final int mSampleInterval;
+    private final FloatBuffer mQuad;
+    private final float[] mColor = new float[4];
+    private final int[] mQuery = new int[1];
+    private final FrameReadback.Callback<OverdrawStats> mCallback;
+    private volatile OverdrawStats mLatest;
+    private volatile Listener mListener;
+    private int mProgram;
+    private UniformState mUniforms;
+    private int mPositionHandle;
+    private boolean mSupported;
+    private boolean mInFrame;
+    private int mWidth;
+    private int mHeight;
+    private long mFrame;
+
+    /**
+     * @param workers        统计用的线程池
+     * @param sampleInterval 每隔多少帧回读一次统计，热力图每帧都画
+     */
+    public OverdrawMeter(GLApi gl, ShaderLibrary shaderLibrary, ExecutorService workers, int sampleInterval) {
+        this.mGL = gl;
+        this.mShaderLibrary = shaderLibrary;
+        this.mSampleInterval = Math.max(1, sampleInterval);
+        // 只放回读的目标，空闲几帧就释放
+        this.mPool = new RenderTargetPool(gl, mSampleInterval + 4, 0);
+        this.mReadback = new FrameReadback(gl, mPool, 2, 3, workers);
+        this.mQuad = ByteBuffer.allocateDirect(QUAD.length * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        mQuad.put(QUAD).flip();
+        this.mCallback = new FrameReadback.Callback<OverdrawStats>() {
+            @Override
+            public void onFrameReady(long frame, OverdrawStats result) {
+                mLatest = result;
+                Listener listener = mListener;
+                if (listener != null) {
+                    listener.onOverdrawStats(result);
+                }
+            }
+
+            @Override
+            public void onFrameFailed(long frame, Exception e) {
+                Log.w(TAG, "onFrameFailed: frame=" + frame, e);
+            }
+        };
+    }
+
+    public void setListener(Listener listener) {
+        this.mListener = listener;
+    }
+
+    /**
+     * 最近一次回读的统计，还没有时为null，可以在任意线程调用
+     */
+    public OverdrawStats getLatest() {
+        return mLatest;
+    }
+
+    /**
+     * 当前EGL配置是否有模板缓冲
+     */
+    public boolean isSupported() {
+        return mSupported;
+    }
+
+    /**
+     * 新的EGL上下文，在共享的program缓存重置之后调用
+     */
+    public void onSurfaceCreated() {
+        mReadback.onContextLost();
+        mPool.onContextLost();
+        mGL.glGetIntegerv(GLES20.GL_STENCIL_BITS, mQuery, 0);
+        mSupported = mQuery[0] >= BITS;
+        if (!mSupported) {
+            Log.w(TAG, "onSurfaceCreated: need " + BITS + " stencil bits, got " + mQuery[0]);
+            return;
+        }
+        mProgram = mShaderLibrary.getProgram("basic", ShaderFeatures.UNIFORM_COLOR);
+        mUniforms = mShaderLibrary.getUniforms(mProgram);
+        // attribute位置只随program变化，在这里查一次，绘制时不再查询
+        mPositionHandle = mGL.glGetAttribLocation(mProgram, "vPosition");
+    }
+
+    public void onSurfaceChanged(int width, int height) {
+        mWidth = width;
+        mHeight = height;
+    }
+
+    /**
+     * 场景绘制之前调用，清零模板并开始计数
+     */
+    public void beginFrame() {
+        if (!mSupported) {
+            return;
+        }
+        mGL.glStencilMask(0xFF);
+        mGL.glClearStencil(0);
+        mGL.glClear(GLES20.GL_STENCIL_BUFFER_BIT);
+        mGL.glEnable(GLES20.GL_STENCIL_TEST);
+        mGL.glStencilFunc(GLES20.GL_ALWAYS, 0, 0xFF);
+        // 深度测试失败的片元不着色，不计数；计数到255后不再增加
+        mGL.glStencilOp(GLES20.GL_KEEP, GLES20.GL_KEEP, GLES20.GL_INCR);
+        mInFrame = true;
+    }
+
+    /**
+     * 场景绘制之后调用，解析计数、提交回读并画热力图
+     */
+    public void endFrame() {
+        if (!mInFrame) {
+            return;
+        }
+        mInFrame = false;
+        GLApi gl = mGL;
+        gl.glStencilOp(GLES20.GL_KEEP, GLES20.GL_KEEP, GLES20.GL_KEEP);
+        gl.glBindFramebuffer(GLES20.GL_FRAMEBUFFER, 0);
+        gl.glViewport(0, 0, mWidth, mHeight);
+        gl.glDisable(GLES20.GL_DEPTH_TEST);
+        gl.glDisable(GLES20.GL_CULL_FACE);
+        gl.glColorMask(true, true, true, true);
+        gl.glUseProgram(mProgram);
+        gl.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+        gl.glVertexAttribPointer(mPositionHandle, 2, GLES20.GL_FLOAT, false, 8, mQuad);
+        gl.glEnableVertexAttribArray(mPositionHandle);
+
+        if (mFrame % mSampleInterval == 0 && mWidth > 0 && mHeight > 0) {
+            resolveCounts();
+            mReadback.capture(mWidth, mHeight, ENCODER, mCallback);
+        }
+
+        // 热力图，覆盖场景的颜色
+        gl.glDisable(GLES20.GL_BLEND);
+        gl.glClearColor(HEAT[0][0], HEAT[0][1], HEAT[0][2], HEAT[0][3]);
+        gl.glClear(GLES20.GL_COLOR_BUFFER_BIT);
+        for (int level = 1; level < HEAT.length; level++) {
+            if (level < HEAT.length - 1) {
+                gl.glStencilFunc(GLES20.GL_EQUAL, level, 0xFF);
+            } else {
+                // level <= 模板值
+                gl.glStencilFunc(GLES20.GL_LEQUAL, level, 0xFF);
+            }
+            drawQuad(HEAT[level][0], HEAT[level][1], HEAT[level][2], HEAT[level][3]);
+        }
+
+        gl.glDisableVertexAttribArray(mPositionHandle);
+        gl.glUseProgram(0);
+        gl.glDisable(GLES20.GL_STENCIL_TEST);
+        mReadback.onFrameEnd();
+        mPool.onFrameEnd();
+        mFrame++;
+    }
+
+    /**
+     * 删除回读目标，不再使用时在GL线程调用；program属于ShaderLibrary，不在这里删除
+     */
+    public void release() {
+        mReadback.release();
+        mPool.releaseAll();
+    }
+
+    // 按位把模板值写成颜色：第b位为1的像素加上2^b/255，8个pass之后R通道等于模板值
+    private void resolveCounts() {
+        GLApi gl = mGL;
+        gl.glClearColor(0, 0, 0, 0);
+        gl.glClear(GLES20.GL_COLOR_BUFFER_BIT);
+        gl.glEnable(GLES20.GL_BLEND);
+        gl.glBlendFunc(GLES20.GL_ONE, GLES20.GL_ONE);
+        for (int bit = 0; bit < BITS; bit++) {
+            int mask = 1 << bit;
+            gl.glStencilFunc(GLES20.GL_EQUAL, mask, mask);
+            drawQuad(mask / 255f, 0, 0, 0);
+        }
+        gl.glDisable(GLES20.GL_BLEND);
+    }
+
+    private void drawQuad(float r, float g, float b, float a) {
+        mColor[0] = r;
+        mColor[1] = g;
+        mColor[2] = b;
+        mColor[3] = a;
+        mUniforms.set4fv("vColor", 1, mColor, 0);
+        mUniforms.apply();
+        mGL.glDrawArrays(GLES20.GL_TRIANGLE_STRIP, 0, 4);
+    }
+}
@@ -0,0 +1,144 @@
+package com.phj.opengl.overdraw;
+
+import android.opengl.GLES20;
+import android.opengl.GLSurfaceView;
+import android.util.Log;
+
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.gl.MatrixHelper;
+import com.phj.opengl.shader.ShaderFeatures;
+import com.phj.opengl.shader.ShaderLibrary;
+import com.phj.opengl.shader.UniformState;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import javax.microedition.khronos.egl.EGLConfig;
+import javax.microedition.khronos.opengles.GL10;
+
+/**
+ * 描述：层叠卡片示例，用于对比两种绘制顺序的过度绘制
+ * 多张不透明卡片大面积重叠，最上面两张半透明。画家算法下重叠处每层都着色，
+ * 深度排序下不透明卡片从近到远绘制，被挡住的部分在early-z阶段丢弃，重叠区域约为1次加上透明层
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class OverdrawRender implements GLSurfaceView.Renderer {
+
+    private final static String TAG = OverdrawRender.class.getSimpleName();
+
+    private static final int FEATURES = ShaderFeatures.UNIFORM_COLOR | ShaderFeatures.MVP;
+    private static final int OPAQUE_CARDS = 8;
+    private static final int TRANSPARENT_CARDS = 2;
+
+    private static final float[] QUAD = {
+            -1, -1,
+            1, -1,
+            -1, 1,
+            1, 1,
+    };
+
+    private final GLApi mGL;
+    private final ShaderLibrary mShaderLibrary;
+    private final DrawQueue mQueue = new DrawQueue();
+    private final Card[] mCards = new Card[OPAQUE_CARDS + TRANSPARENT_CARDS];
+    private final FloatBuffer mQuad;
+    private final float[] mProjection = new float[16];
+    private int mProgram;
+    private UniformState mUniforms;
+    private int mPositionHandle;
+
+    public OverdrawRender(ShaderLibrary shaderLibrary) {
+        this.mShaderLibrary = shaderLibrary;
+        this.mGL = shaderLibrary.getGL();
+        this.mQuad = ByteBuffer.allocateDirect(QUAD.length * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        mQuad.put(QUAD).flip();
+        for (int i = 0; i < mCards.length; i++) {
+            boolean opaque = i < OPAQUE_CARDS;
+            // 下标越大越靠近相机，依次向右上偏移
+            float t = (float) i / (mCards.length - 1);
+            mCards[i] = new Card(mCards.length - i, opaque,
+                    new float[]{0.2f + 0.8f * t, 0.4f, 1f - 0.8f * t, opaque ? 1f : 0.5f},
+                    -0.25f + 0.5f * t, -0.25f + 0.5f * t);
+        }
+    }
+
+    /**
+     * 可以在任意线程调用，下一帧生效
+     *
+     * @param mode {@link DrawQueue#MODE_DEPTH_SORTED}或{@link DrawQueue#MODE_PAINTER}
+     */
+    public void setMode(int mode) {
+        mQueue.setMode(mode);
+    }
+
+    @Override
+    public void onSurfaceCreated(GL10 gl, EGLConfig config) {
+        mProgram = mShaderLibrary.getProgram("basic", FEATURES);
+        mUniforms = mShaderLibrary.getUniforms(mProgram);
+        mPositionHandle = mGL.glGetAttribLocation(mProgram, "vPosition");
+        Log.e(TAG, "onSurfaceCreated: mProgram=" + mProgram);
+    }
+
+    @Override
+    public void onSurfaceChanged(GL10 gl, int width, int height) {
+        mGL.glViewport(0, 0, width, height);
+        float ratio = (float) width / height;
+        // 相机在原点看向-z，深度即卡片到相机的距离
+        MatrixHelper.orthoM(mProjection, 0, -ratio, ratio, -1, 1, 0, mCards.length + 1);
+        for (Card card : mCards) {
+            card.updateMatrix(mProjection, ratio);
+        }
+    }
+
+    @Override
+    public void onDrawFrame(GL10 gl) {
+        mGL.glClearColor(1f, 1f, 1f, 1f);
+        mGL.glClear(GLES20.GL_COLOR_BUFFER_BIT | GLES20.GL_DEPTH_BUFFER_BIT);
+        mGL.glUseProgram(mProgram);
+        mGL.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+        mGL.glVertexAttribPointer(mPositionHandle, 2, GLES20.GL_FLOAT, false, 8, mQuad);
+        mGL.glEnableVertexAttribArray(mPositionHandle);
+        // 提交顺序与深度无关，由队列排序
+        for (Card card : mCards) {
+            mQueue.add(card, card.depth, card.opaque);
+        }
+        mQueue.flush(mGL);
+        mGL.glDisableVertexAttribArray(mPositionHandle);
+    }
+
+    private final class Card implements DrawQueue.Item {
+        final float depth;
+        final boolean opaque;
+        final float[] color;
+        final float x;
+        final float y;
+        final float[] matrix = new float[16];
+        private final float[] mModel = new float[16];
+
+        Card(float depth, boolean opaque, float[] color, float x, float y) {
+            this.depth = depth;
+            this.opaque = opaque;
+            this.color = color;
+            this.x = x;
+            this.y = y;
+        }
+
+        // 每张卡片占视口约3/4
+        void updateMatrix(float[] projection, float ratio) {
+            MatrixHelper.setIdentityM(mModel, 0);
+            MatrixHelper.translateM(mModel, 0, x * ratio, y, -depth);
+            MatrixHelper.scaleM(mModel, 0, 0.75f * ratio, 0.75f, 1);
+            MatrixHelper.multiplyMM(matrix, 0, projection, 0, mModel, 0);
+        }
+
+        @Override
+        public void draw() {
+            mUniforms.setMatrix4fv("vMatrix", 1, matrix, 0);
+            mUniforms.set4fv("vColor", 1, color, 0);
+            mUniforms.apply();
+            mGL.glDrawArrays(GLES20.GL_TRIANGLE_STRIP, 0, 4);
+        }
+    }
+}
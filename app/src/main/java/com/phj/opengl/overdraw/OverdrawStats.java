@@ -0,0 +1,122 @@
+package com.phj.opengl.overdraw;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 描述：一帧的逐像素过度绘制统计：每个像素被着色的片元数的均值、最大值和直方图
+ * 由{@link OverdrawMeter}回读的计数图生成，计数存放在R通道，最大记到255
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class OverdrawStats {
+
+    public static final int MAX_COUNT = 255;
+
+    private final int mWidth;
+    private final int mHeight;
+    private final long[] mHistogram;    // 下标为计数，值为像素数
+    private final long mFragments;      // 着色的片元总数
+    private final int mMax;
+
+    OverdrawStats(int width, int height, long[] histogram) {
+        this.mWidth = width;
+        this.mHeight = height;
+        this.mHistogram = histogram;
+        long fragments = 0;
+        int max = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            if (histogram[i] != 0) {
+                fragments += histogram[i] * i;
+                max = i;
+            }
+        }
+        this.mFragments = fragments;
+        this.mMax = max;
+    }
+
+    /**
+     * 从计数图统计
+     *
+     * @param rgba 每像素4字节，R为该像素的片元数
+     */
+    public static OverdrawStats fromCounts(ByteBuffer rgba, int width, int height) {
+        long[] histogram = new long[MAX_COUNT + 1];
+        int end = width * height * 4;
+        for (int i = 0; i < end; i += 4) {
+            histogram[rgba.get(i) & 0xFF]++;
+        }
+        return new OverdrawStats(width, height, histogram);
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    public long getPixelCount() {
+        return (long) mWidth * mHeight;
+    }
+
+    /**
+     * 着色的片元总数，除以像素数即为平均过度绘制
+     */
+    public long getFragmentCount() {
+        return mFragments;
+    }
+
+    /**
+     * 每像素平均着色次数，1表示没有过度绘制（全部像素恰好画一次）
+     */
+    public double getMean() {
+        long pixels = getPixelCount();
+        return pixels == 0 ? 0 : (double) mFragments / pixels;
+    }
+
+    public int getMax() {
+        return mMax;
+    }
+
+    /**
+     * 恰好着色count次的像素数
+     */
+    public long getPixels(int count) {
+        return count < 0 || count > MAX_COUNT ? 0 : mHistogram[count];
+    }
+
+    /**
+     * 着色次数不少于count的像素比例
+     */
+    public double getFractionAtLeast(int count) {
+        long pixels = getPixelCount();
+        if (pixels == 0) {
+            return 0;
+        }
+        long sum = 0;
+        for (int i = Math.max(0, count); i <= MAX_COUNT; i++) {
+            sum += mHistogram[i];
+        }
+        return (double) sum / pixels;
+    }
+
+    public long[] getHistogram() {
+        return mHistogram.clone();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("OverdrawStats{").append(mWidth).append('x').append(mHeight)
+                .append(", mean=").append(String.format("%.2f", getMean()))
+                .append(", max=").append(mMax).append(", ");
+        // 与热力图一致：0、1、2、3、4+
+        for (int i = 0; i <= 4; i++) {
+            double fraction = i < 4 ? (double) getPixels(i) / Math.max(1, getPixelCount()) : getFractionAtLeast(4);
+            sb.append(i).append(i < 4 ? ":" : "+:").append(String.format("%.1f%%", fraction * 100))
+                    .append(i < 4 ? " " : "}");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,164 @@
+package com.phj.opengl.pack;
+
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+
+/**
+ * 描述：只读映射的资源包，格式见{@link AssetPackFormat}
+ * 整个文件用FileChannel#map映射，各条目的数据是映射区的切片，可以直接交给glBufferData/glTexImage2D，
+ * 不需要逐元素拷贝；句柄保留切片，上下文丢失后重建也不需要重新读文件。映射在关闭文件后依然有效。
+ * 放在assets中时需要在aaptOptions中设置noCompress 'pack'，否则无法openFd映射
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class AssetPack {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ByteBuffer mData;
+    private final HashMap<String, PackedVertices> mVertices = new HashMap<>();
+    private final HashMap<String, PackedIndices> mIndices = new HashMap<>();
+    private final HashMap<String, PackedTexture> mTextures = new HashMap<>();
+
+    AssetPack(ByteBuffer data) throws IOException {
+        this.mData = data.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            readToc();
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException("corrupted pack", e);
+        }
+    }
+
+    public static AssetPack open(File file) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            return new AssetPack(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * 映射APK中未压缩的资源文件
+     */
+    public static AssetPack open(AssetManager assets, String name) throws IOException {
+        AssetFileDescriptor fd = assets.openFd(name);
+        try {
+            FileInputStream in = fd.createInputStream();
+            try {
+                MappedByteBuffer data = in.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                        fd.getStartOffset(), fd.getLength());
+                return new AssetPack(data);
+            } finally {
+                in.close();
+            }
+        } finally {
+            fd.close();
+        }
+    }
+
+    public PackedVertices getVertices(String name) {
+        return mVertices.get(name);
+    }
+
+    public PackedIndices getIndices(String name) {
+        return mIndices.get(name);
+    }
+
+    public PackedTexture getTexture(String name) {
+        return mTextures.get(name);
+    }
+
+    private void readToc() throws IOException {
+        ByteBuffer header = mData.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getInt() != AssetPackFormat.MAGIC) {
+            throw new IOException("not a pack");
+        }
+        int version = header.getInt();
+        if (version != AssetPackFormat.VERSION) {
+            throw new IOException("unsupported pack version " + version);
+        }
+        int count = header.getInt();
+        int tocOffset = header.getInt();
+        int tocLength = header.getInt();
+        ByteBuffer toc = slice(tocOffset, tocLength);
+        for (int i = 0; i < count; i++) {
+            String name = getString(toc);
+            int kind = toc.getInt();
+            int offset = toc.getInt();
+            int length = toc.getInt();
+            ByteBuffer data = slice(offset, length);
+            switch (kind) {
+                case AssetPackFormat.KIND_VERTICES: {
+                    int vertexCount = toc.getInt();
+                    toc.getInt(); // stride，由属性重新计算
+                    int attributeCount = toc.getInt();
+                    VertexLayout layout = new VertexLayout();
+                    for (int a = 0; a < attributeCount; a++) {
+                        String attribute = getString(toc);
+                        int size = toc.getInt();
+                        int type = toc.getInt();
+                        boolean normalized = toc.getInt() != 0;
+                        toc.getInt(); // offset，按顺序紧密排列
+                        layout.add(attribute, size, type, normalized);
+                    }
+                    mVertices.put(name, new PackedVertices(name, data, layout, vertexCount));
+                    break;
+                }
+                case AssetPackFormat.KIND_INDICES: {
+                    int type = toc.getInt();
+                    int indexCount = toc.getInt();
+                    mIndices.put(name, new PackedIndices(name, data, type, indexCount));
+                    break;
+                }
+                case AssetPackFormat.KIND_TEXTURE: {
+                    int internalFormat = toc.getInt();
+                    int format = toc.getInt();
+                    int type = toc.getInt();
+                    int levelCount = toc.getInt();
+                    int[] widths = new int[levelCount];
+                    int[] heights = new int[levelCount];
+                    ByteBuffer[] levels = new ByteBuffer[levelCount];
+                    for (int l = 0; l < levelCount; l++) {
+                        widths[l] = toc.getInt();
+                        heights[l] = toc.getInt();
+                        levels[l] = slice(offset + toc.getInt(), toc.getInt());
+                    }
+                    mTextures.put(name, new PackedTexture(name, internalFormat, format, type, widths, heights, levels));
+                    break;
+                }
+                default:
+                    throw new IOException("unknown entry kind " + kind + " for " + name);
+            }
+        }
+    }
+
+    // 映射区中的一段，越界时抛IndexOutOfBoundsException
+    private ByteBuffer slice(int offset, int length) {
+        if (offset < 0 || length < 0 || offset > mData.capacity() - length) {
+            throw new IndexOutOfBoundsException("slice " + offset + "+" + length + " of " + mData.capacity());
+        }
+        ByteBuffer duplicate = mData.duplicate();
+        duplicate.limit(offset + length);
+        duplicate.position(offset);
+        return duplicate.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static String getString(ByteBuffer toc) {
+        byte[] bytes = new byte[toc.getShort() & 0xFFFF];
+        toc.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
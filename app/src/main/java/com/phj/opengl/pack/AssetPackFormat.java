@@ -0,0 +1,51 @@
+package com.phj.opengl.pack;
+
+/**
+ * 描述：资源包（.pack）的文件格式常量
+ * 文件为小端序：文件头、按{@link #ALIGNMENT}对齐的数据块、目录（TOC）。
+ * 文件头：magic、版本、条目数、目录偏移、目录长度；目录中每个条目为名称、类型、数据偏移、数据长度以及类型相关的描述。
+ * 本类和{@link AssetPackWriter}、{@link VertexLayout}不依赖android.jar，构建时的离线工具直接复用
+ * Created by PHJ on 2026/10/19.
+ */
+
+public final class AssetPackFormat {
+
+    public static final int MAGIC = 0x314B5047; // "GPK1"，小端序
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 20;
+    public static final int ALIGNMENT = 16;     // 数据块起始对齐，映射后可以直接作为float/short视图使用
+
+    public static final int KIND_VERTICES = 1;
+    public static final int KIND_INDICES = 2;
+    public static final int KIND_TEXTURE = 3;
+
+    // 与GLES20中的取值一致，离线工具中没有android.jar
+    public static final int GL_UNSIGNED_BYTE = 0x1401;
+    public static final int GL_UNSIGNED_SHORT = 0x1403;
+    public static final int GL_FLOAT = 0x1406;
+    public static final int GL_RGBA = 0x1908;
+    public static final int GL_ETC1_RGB8_OES = 0x8D64;
+
+    private AssetPackFormat() {
+    }
+
+    /**
+     * GL数据类型的字节数
+     */
+    public static int sizeOf(int glType) {
+        switch (glType) {
+            case GL_UNSIGNED_BYTE:
+                return 1;
+            case GL_UNSIGNED_SHORT:
+                return 2;
+            case GL_FLOAT:
+                return 4;
+            default:
+                throw new IllegalArgumentException("unsupported type 0x" + Integer.toHexString(glType));
+        }
+    }
+
+    static int align(int offset) {
+        return (offset + ALIGNMENT - 1) & ~(ALIGNMENT - 1);
+    }
+}
@@ -0,0 +1,181 @@
+package com.phj.opengl.pack;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.HashSet;
+
+/**
+ * 描述：生成资源包，供构建时的离线任务和测试使用，格式见{@link AssetPackFormat}
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class AssetPackWriter {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ByteArrayOutputStream mBlobs = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream mToc = new ByteArrayOutputStream();
+    private final HashSet<String> mNames = new HashSet<>();
+    private int mCount;
+
+    public AssetPackWriter() {
+        // 数据块从文件头之后的第一个对齐位置开始
+        pad(mBlobs, AssetPackFormat.align(AssetPackFormat.HEADER_SIZE));
+    }
+
+    /**
+     * 添加交错的顶点数据
+     *
+     * @param data 按layout交错排列的float，长度必须是stride的整数倍
+     */
+    public AssetPackWriter addVertices(String name, VertexLayout layout, float[] data) {
+        for (VertexLayout.Attribute attribute : layout.getAttributes()) {
+            if (attribute.type != AssetPackFormat.GL_FLOAT) {
+                throw new IllegalArgumentException("float data requires GL_FLOAT attributes: " + attribute.name);
+            }
+        }
+        int floatsPerVertex = layout.getStride() / 4;
+        if (floatsPerVertex == 0 || data.length % floatsPerVertex != 0) {
+            throw new IllegalArgumentException(name + ": " + data.length + " floats, stride " + layout.getStride());
+        }
+        ByteBuffer buffer = newBuffer(data.length * 4);
+        buffer.asFloatBuffer().put(data);
+        int offset = addBlob(buffer.array());
+
+        ByteBuffer toc = beginEntry(name, AssetPackFormat.KIND_VERTICES, offset, data.length * 4, 12);
+        toc.putInt(data.length / floatsPerVertex);
+        toc.putInt(layout.getStride());
+        toc.putInt(layout.getAttributes().size());
+        endEntry(toc);
+        for (VertexLayout.Attribute attribute : layout.getAttributes()) {
+            putString(attribute.name);
+            ByteBuffer attr = newBuffer(16);
+            attr.putInt(attribute.size).putInt(attribute.type).putInt(attribute.normalized ? 1 : 0).putInt(attribute.offset);
+            mToc.write(attr.array(), 0, attr.position());
+        }
+        return this;
+    }
+
+    /**
+     * 添加16位索引
+     */
+    public AssetPackWriter addIndices(String name, int[] indices) {
+        ByteBuffer buffer = newBuffer(indices.length * 2);
+        for (int index : indices) {
+            if (index < 0 || index > 0xFFFF) {
+                // GLES2没有OES_element_index_uint时只能用16位索引
+                throw new IllegalArgumentException(name + ": index out of 16-bit range " + index);
+            }
+            buffer.putShort((short) index);
+        }
+        int offset = addBlob(buffer.array());
+        ByteBuffer toc = beginEntry(name, AssetPackFormat.KIND_INDICES, offset, indices.length * 2, 8);
+        toc.putInt(AssetPackFormat.GL_UNSIGNED_SHORT);
+        toc.putInt(indices.length);
+        endEntry(toc);
+        return this;
+    }
+
+    /**
+     * 添加纹理，每一级的数据依次存放
+     *
+     * @param internalFormat glTexImage2D的internalformat，压缩纹理为压缩格式如GL_ETC1_RGB8_OES
+     * @param format         非压缩纹理的format，压缩纹理为0
+     * @param type           非压缩纹理的type，压缩纹理为0
+     */
+    public AssetPackWriter addTexture(String name, int internalFormat, int format, int type,
+                                      int[] widths, int[] heights, byte[][] levels) {
+        int start = -1;
+        int[] offsets = new int[levels.length];
+        for (int i = 0; i < levels.length; i++) {
+            int offset = addBlob(levels[i]);
+            if (start < 0) {
+                start = offset;
+            }
+            offsets[i] = offset - start;
+        }
+        int length = mBlobs.size() - start;
+        ByteBuffer toc = beginEntry(name, AssetPackFormat.KIND_TEXTURE, start, length, 16 + 16 * levels.length);
+        toc.putInt(internalFormat).putInt(format).putInt(type).putInt(levels.length);
+        for (int i = 0; i < levels.length; i++) {
+            toc.putInt(widths[i]).putInt(heights[i]).putInt(offsets[i]).putInt(levels[i].length);
+        }
+        endEntry(toc);
+        return this;
+    }
+
+    public void write(File file) throws IOException {
+        File dir = file.getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            throw new IOException("mkdirs failed " + dir);
+        }
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            write(out);
+        } finally {
+            out.close();
+        }
+    }
+
+    public void write(OutputStream out) throws IOException {
+        int tocOffset = AssetPackFormat.align(mBlobs.size());
+        pad(mBlobs, tocOffset);
+        ByteBuffer header = newBuffer(AssetPackFormat.HEADER_SIZE);
+        header.putInt(AssetPackFormat.MAGIC)
+                .putInt(AssetPackFormat.VERSION)
+                .putInt(mCount)
+                .putInt(tocOffset)
+                .putInt(mToc.size());
+        byte[] blobs = mBlobs.toByteArray();
+        // 文件头覆盖数据区开头预留的位置
+        System.arraycopy(header.array(), 0, blobs, 0, AssetPackFormat.HEADER_SIZE);
+        out.write(blobs);
+        mToc.writeTo(out);
+    }
+
+    private int addBlob(byte[] data) {
+        int offset = AssetPackFormat.align(mBlobs.size());
+        pad(mBlobs, offset);
+        mBlobs.write(data, 0, data.length);
+        return offset;
+    }
+
+    private ByteBuffer beginEntry(String name, int kind, int offset, int length, int extraBytes) {
+        if (!mNames.add(name + "#" + kind)) {
+            throw new IllegalArgumentException("duplicate entry " + name);
+        }
+        mCount++;
+        putString(name);
+        ByteBuffer toc = newBuffer(12 + extraBytes);
+        toc.putInt(kind).putInt(offset).putInt(length);
+        return toc;
+    }
+
+    private void endEntry(ByteBuffer toc) {
+        mToc.write(toc.array(), 0, toc.position());
+    }
+
+    private void putString(String value) {
+        byte[] bytes = value.getBytes(UTF_8);
+        ByteBuffer length = newBuffer(2);
+        length.putShort((short) bytes.length);
+        mToc.write(length.array(), 0, 2);
+        mToc.write(bytes, 0, bytes.length);
+    }
+
+    private static void pad(ByteArrayOutputStream out, int size) {
+        while (out.size() < size) {
+            out.write(0);
+        }
+    }
+
+    private static ByteBuffer newBuffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
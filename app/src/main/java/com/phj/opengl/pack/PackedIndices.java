@@ -0,0 +1,47 @@
+package com.phj.opengl.pack;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 描述：资源包中的索引数据，数据是映射区的切片
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class PackedIndices {
+
+    private final String mName;
+    private final ByteBuffer mData;
+    private final int mType;
+    private final int mCount;
+
+    PackedIndices(String name, ByteBuffer data, int type, int count) {
+        this.mName = name;
+        this.mData = data;
+        this.mType = type;
+        this.mCount = count;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * 只读的映射切片，每次返回新的视图，position为0
+     */
+    public ByteBuffer getData() {
+        return mData.duplicate().order(mData.order());
+    }
+
+    public int getSizeInBytes() {
+        return mData.capacity();
+    }
+
+    // GL_UNSIGNED_SHORT
+    public int getType() {
+        return mType;
+    }
+
+    public int getCount() {
+        return mCount;
+    }
+}
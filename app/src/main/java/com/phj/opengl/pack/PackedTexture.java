@@ -0,0 +1,80 @@
+package com.phj.opengl.pack;
+
+import android.opengl.GLES20;
+
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.gl.GLTexture;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 描述：资源包中的纹理，逐级从映射区直接上传，format为0时按压缩纹理上传
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class PackedTexture implements GLTexture.Source {
+
+    private final String mName;
+    private final int mInternalFormat;
+    private final int mFormat;
+    private final int mType;
+    private final int[] mWidths;
+    private final int[] mHeights;
+    private final ByteBuffer[] mLevels;
+
+    PackedTexture(String name, int internalFormat, int format, int type,
+                  int[] widths, int[] heights, ByteBuffer[] levels) {
+        this.mName = name;
+        this.mInternalFormat = internalFormat;
+        this.mFormat = format;
+        this.mType = type;
+        this.mWidths = widths;
+        this.mHeights = heights;
+        this.mLevels = levels;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public boolean isCompressed() {
+        return mFormat == 0;
+    }
+
+    public int getInternalFormat() {
+        return mInternalFormat;
+    }
+
+    public int getLevelCount() {
+        return mLevels.length;
+    }
+
+    @Override
+    public int getWidth() {
+        return mWidths[0];
+    }
+
+    @Override
+    public int getHeight() {
+        return mHeights[0];
+    }
+
+    @Override
+    public long getSizeInBytes() {
+        return mLevels[0].capacity();
+    }
+
+    @Override
+    public void upload(GLApi gl) {
+        for (int level = 0; level < mLevels.length; level++) {
+            ByteBuffer data = mLevels[level].duplicate();
+            if (isCompressed()) {
+                gl.glCompressedTexImage2D(GLES20.GL_TEXTURE_2D, level, mInternalFormat,
+                        mWidths[level], mHeights[level], 0, data.capacity(), data);
+            } else {
+                gl.glTexImage2D(GLES20.GL_TEXTURE_2D, level, mInternalFormat,
+                        mWidths[level], mHeights[level], 0, mFormat, mType, data);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.phj.opengl.pack;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 描述：资源包中的一组交错顶点，数据是映射区的切片
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class PackedVertices {
+
+    private final String mName;
+    private final ByteBuffer mData;
+    private final VertexLayout mLayout;
+    private final int mVertexCount;
+
+    PackedVertices(String name, ByteBuffer data, VertexLayout layout, int vertexCount) {
+        this.mName = name;
+        this.mData = data;
+        this.mLayout = layout;
+        this.mVertexCount = vertexCount;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * 只读的映射切片，每次返回新的视图，position为0
+     */
+    public ByteBuffer getData() {
+        return mData.duplicate().order(mData.order());
+    }
+
+    public int getSizeInBytes() {
+        return mData.capacity();
+    }
+
+    public VertexLayout getLayout() {
+        return mLayout;
+    }
+
+    public int getVertexCount() {
+        return mVertexCount;
+    }
+}
@@ -0,0 +1,67 @@
+package com.phj.opengl.pack;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 描述：交错存储的顶点布局，每个属性按名称绑定到shader的attribute
+ * 例如 new VertexLayout().add("vPosition", 3, GL_FLOAT).add("aTextureCoord", 2, GL_FLOAT)，stride为20字节
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class VertexLayout {
+
+    /**
+     * 一个顶点属性
+     */
+    public static class Attribute {
+        public final String name;       // shader中的attribute名称
+        public final int size;          // 分量数，1~4
+        public final int type;          // GL_FLOAT等
+        public final boolean normalized;
+        public final int offset;        // 在一个顶点内的字节偏移
+
+        Attribute(String name, int size, int type, boolean normalized, int offset) {
+            this.name = name;
+            this.size = size;
+            this.type = type;
+            this.normalized = normalized;
+            this.offset = offset;
+        }
+    }
+
+    private final ArrayList<Attribute> mAttributes = new ArrayList<>();
+    private int mStride;
+
+    public VertexLayout add(String name, int size, int type) {
+        return add(name, size, type, false);
+    }
+
+    /**
+     * 追加一个属性，偏移为当前stride
+     */
+    public VertexLayout add(String name, int size, int type, boolean normalized) {
+        mAttributes.add(new Attribute(name, size, type, normalized, mStride));
+        mStride += size * AssetPackFormat.sizeOf(type);
+        return this;
+    }
+
+    public List<Attribute> getAttributes() {
+        return Collections.unmodifiableList(mAttributes);
+    }
+
+    public Attribute getAttribute(String name) {
+        for (int i = 0; i < mAttributes.size(); i++) {
+            if (mAttributes.get(i).name.equals(name)) {
+                return mAttributes.get(i);
+            }
+        }
+        return null;
+    }
+
+    // 一个顶点的字节数
+    public int getStride() {
+        return mStride;
+    }
+}
@@ -0,0 +1,28 @@
+package com.phj.opengl.particle;
+
+/**
+ * 描述：与速度成正比的阻力，每秒速度衰减为exp(-k)
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class DragForce implements Force {
+
+    private final float mK;
+
+    public DragForce(float k) {
+        this.mK = k;
+    }
+
+    @Override
+    public void apply(ParticleBuffer particles, int from, int to, float dt) {
+        float damping = (float) Math.exp(-mK * dt);
+        float[] vx = particles.vx;
+        float[] vy = particles.vy;
+        float[] vz = particles.vz;
+        for (int i = from; i < to; i++) {
+            vx[i] *= damping;
+            vy[i] *= damping;
+            vz[i] *= damping;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.phj.opengl.particle;
+
+/**
+ * 描述：粒子发射器，在更新线程上依次调用，用{@link ParticleBuffer#add}追加新粒子
+ * Created by PHJ on 2026/10/19.
+ */
+
+public interface Emitter {
+
+    void emit(ParticleBuffer particles, float dt);
+}
@@ -0,0 +1,12 @@
+package com.phj.opengl.particle;
+
+/**
+ * 描述：作用在粒子上的力，只修改速度
+ * 在线程池中按区间并行调用，实现只能读写[from, to)内的粒子，不能分配内存
+ * Created by PHJ on 2026/10/19.
+ */
+
+public interface Force {
+
+    void apply(ParticleBuffer particles, int from, int to, float dt);
+}
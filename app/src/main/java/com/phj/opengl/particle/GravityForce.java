@@ -0,0 +1,34 @@
+package com.phj.opengl.particle;
+
+/**
+ * 描述：恒定加速度
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class GravityForce implements Force {
+
+    private final float mAx;
+    private final float mAy;
+    private final float mAz;
+
+    public GravityForce(float ax, float ay, float az) {
+        this.mAx = ax;
+        this.mAy = ay;
+        this.mAz = az;
+    }
+
+    @Override
+    public void apply(ParticleBuffer particles, int from, int to, float dt) {
+        float dvx = mAx * dt;
+        float dvy = mAy * dt;
+        float dvz = mAz * dt;
+        float[] vx = particles.vx;
+        float[] vy = particles.vy;
+        float[] vz = particles.vz;
+        for (int i = from; i < to; i++) {
+            vx[i] += dvx;
+            vy[i] += dvy;
+            vz[i] += dvz;
+        }
+    }
+}
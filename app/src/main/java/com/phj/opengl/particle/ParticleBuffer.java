@@ -0,0 +1,91 @@
+package com.phj.opengl.particle;
+
+/**
+ * 描述：粒子状态按属性分开存放在定长的基本类型数组里（SoA），[0, count)为存活的粒子
+ * 按属性顺序遍历时每个数组都是连续读写，没有对象头和指针跳转；容量在创建时确定，之后不再分配。
+ * 数组直接公开给{@link Force}和{@link Emitter}使用，只能在{@link ParticleSystem#update(float)}的回调里修改。
+ * Created by PHJ on 2026/10/19.
+ */
+
+public final class ParticleBuffer {
+
+    public final float[] x;
+    public final float[] y;
+    public final float[] z;
+    public final float[] vx;
+    public final float[] vy;
+    public final float[] vz;
+    // 剩余寿命，秒，不大于0时在本次更新结束时移除
+    public final float[] life;
+    // ARGB
+    public final int[] color;
+    private final int mCapacity;
+    int count;
+
+    public ParticleBuffer(int capacity) {
+        this.mCapacity = capacity;
+        this.x = new float[capacity];
+        this.y = new float[capacity];
+        this.z = new float[capacity];
+        this.vx = new float[capacity];
+        this.vy = new float[capacity];
+        this.vz = new float[capacity];
+        this.life = new float[capacity];
+        this.color = new int[capacity];
+    }
+
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return 已满时返回false
+     */
+    public boolean add(float px, float py, float pz, float pvx, float pvy, float pvz, float seconds, int argb) {
+        if (count == mCapacity) {
+            return false;
+        }
+        int i = count++;
+        x[i] = px;
+        y[i] = py;
+        z[i] = pz;
+        vx[i] = pvx;
+        vy[i] = pvy;
+        vz[i] = pvz;
+        life[i] = seconds;
+        color[i] = argb;
+        return true;
+    }
+
+    /**
+     * 移除寿命耗尽的粒子：用末尾的存活粒子填补空位，不保持顺序，不分配内存
+     *
+     * @return 移除的个数
+     */
+    int compact() {
+        int n = count;
+        int i = 0;
+        while (i < n) {
+            if (life[i] > 0) {
+                i++;
+                continue;
+            }
+            n--;
+            x[i] = x[n];
+            y[i] = y[n];
+            z[i] = z[n];
+            vx[i] = vx[n];
+            vy[i] = vy[n];
+            vz[i] = vz[n];
+            life[i] = life[n];
+            color[i] = color[n];
+        }
+        int removed = count - n;
+        count = n;
+        return removed;
+    }
+}
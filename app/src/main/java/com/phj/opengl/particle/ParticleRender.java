@@ -0,0 +1,149 @@
+package com.phj.opengl.particle;
+
+import android.opengl.GLES20;
+import android.opengl.GLSurfaceView;
+import android.util.Log;
+
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.gl.GLBuffer;
+import com.phj.opengl.gl.GLResourceRegistry;
+import com.phj.opengl.gl.GLResourceScope;
+import com.phj.opengl.gl.MatrixHelper;
+import com.phj.opengl.scene.ContinuousScene;
+import com.phj.opengl.scene.FrameClock;
+import com.phj.opengl.shader.ShaderFeatures;
+import com.phj.opengl.shader.ShaderLibrary;
+import com.phj.opengl.shader.UniformState;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ExecutorService;
+
+import javax.microedition.khronos.egl.EGLConfig;
+import javax.microedition.khronos.opengles.GL10;
+
+/**
+ * 描述：喷泉粒子示例，粒子以点精灵绘制
+ * 每帧在GL线程上更新粒子系统（计算分到线程池），存活的粒子写进同一块直接内存，
+ * 再整体glBufferData到GL_STREAM_DRAW的VBO，一次glDrawArrays#GL_POINTS。
+ * 步长取自{@link FrameClock}的帧时间，相同的帧时间序列模拟出相同的粒子
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class ParticleRender implements GLSurfaceView.Renderer, ContinuousScene {
+
+    private final static String TAG = ParticleRender.class.getSimpleName();
+
+    private static final int FEATURES = ShaderFeatures.COLOR | ShaderFeatures.MVP | ShaderFeatures.POINT_SPRITE;
+    // 一帧最长按这么多秒积分，切回前台时不会一步飞出很远
+    private static final float MAX_DT = 0.05f;
+
+    private final GLApi mGL;
+    private final ShaderLibrary mShaderLibrary;
+    private final GLResourceRegistry mResourceRegistry;
+    private final GLResourceScope mResourceScope;
+    private final FrameClock mClock;
+    private final ParticleSystem mSystem;
+    private final ByteBuffer mVertices;
+    private final float[] mMatrix = new float[16];
+    private int mProgram;
+    private UniformState mUniforms;
+    private int mPositionHandle;
+    private int mColorHandle;
+    private GLBuffer mVbo;
+    private long mLastFrameNs;
+
+    /**
+     * @param clock     每帧的时间
+     * @param capacity  粒子数上限
+     * @param executor  更新用的线程池
+     * @param taskCount 切分的任务数，一般为核数
+     */
+    public ParticleRender(ShaderLibrary shaderLibrary, GLResourceRegistry resourceRegistry, FrameClock clock,
+                          int capacity, ExecutorService executor, int taskCount) {
+        this.mShaderLibrary = shaderLibrary;
+        this.mClock = clock;
+        this.mGL = shaderLibrary.getGL();
+        this.mResourceRegistry = resourceRegistry;
+        this.mResourceScope = resourceRegistry.openScope(TAG);
+        this.mSystem = new ParticleSystem(capacity, executor, taskCount);
+        // 平均寿命2秒，稳定后约为容量
+        PointEmitter emitter = new PointEmitter(capacity / 2f, 0, 1, 0, 0.35f, 0.8f, 1.6f,
+                1.5f, 2.5f, 0xCC66CCFF, 7);
+        emitter.setPosition(0, -0.9f, 0);
+        mSystem.addEmitter(emitter);
+        mSystem.addForce(new GravityForce(0, -1.2f, 0));
+        mSystem.addForce(new DragForce(0.3f));
+        this.mVertices = ByteBuffer.allocateDirect(capacity * ParticleSystem.VERTEX_STRIDE)
+                .order(ByteOrder.nativeOrder());
+    }
+
+    @Override
+    public void onSurfaceCreated(GL10 gl, EGLConfig config) {
+        mProgram = mShaderLibrary.getProgram("basic", FEATURES);
+        mUniforms = mShaderLibrary.getUniforms(mProgram);
+        // attribute位置只随program变化，在这里查一次，绘制时不再查询
+        mPositionHandle = mGL.glGetAttribLocation(mProgram, "vPosition");
+        mColorHandle = mGL.glGetAttribLocation(mProgram, "aColor");
+        Log.e(TAG, "onSurfaceCreated: mProgram=" + mProgram);
+        if (mVbo == null) {
+            mVbo = mResourceScope.createBuffer(GLES20.GL_ARRAY_BUFFER, mVertices, 0, GLES20.GL_STREAM_DRAW);
+        }
+        mLastFrameNs = 0;
+    }
+
+    /**
+     * 删除VBO，渲染器不再使用时在GL线程调用
+     */
+    public void release() {
+        mResourceScope.close();
+        mVbo = null;
+    }
+
+    @Override
+    public void onSurfaceChanged(GL10 gl, int width, int height) {
+        mGL.glViewport(0, 0, width, height);
+        float ratio = (float) width / height;
+        MatrixHelper.orthoM(mMatrix, 0, -ratio, ratio, -1, 1, -1, 1);
+    }
+
+    @Override
+    public void onDrawFrame(GL10 gl) {
+        long now = mClock.getFrameTimeNs();
+        float dt = mLastFrameNs == 0 ? 0 : Math.min(MAX_DT, (now - mLastFrameNs) / 1e9f);
+        mLastFrameNs = now;
+        mSystem.update(dt);
+        int count = mSystem.writeVertices(mVertices);
+
+        mGL.glClearColor(0, 0, 0, 1);
+        mGL.glClear(GLES20.GL_COLOR_BUFFER_BIT);
+        mGL.glDisable(GLES20.GL_DEPTH_TEST);
+        if (count > 0) {
+            mVbo.setData(mGL, mVertices, count * ParticleSystem.VERTEX_STRIDE);
+            mGL.glUseProgram(mProgram);
+            mUniforms.setMatrix4fv("vMatrix", 1, mMatrix, 0);
+            mUniforms.set1f("vPointSize", 4f);
+            mUniforms.apply();
+            mGL.glEnableVertexAttribArray(mPositionHandle);
+            mGL.glEnableVertexAttribArray(mColorHandle);
+            mGL.glBindBuffer(GLES20.GL_ARRAY_BUFFER, mVbo.use());
+            mGL.glVertexAttribPointer(mPositionHandle, 3, GLES20.GL_FLOAT, false, ParticleSystem.VERTEX_STRIDE, 0);
+            mGL.glVertexAttribPointer(mColorHandle, 4, GLES20.GL_UNSIGNED_BYTE, true, ParticleSystem.VERTEX_STRIDE, 12);
+            mGL.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+            // 叠加混合，与绘制顺序无关，移除粒子时打乱顺序不影响结果
+            mGL.glEnable(GLES20.GL_BLEND);
+            mGL.glBlendFunc(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE);
+            mGL.glDrawArrays(GLES20.GL_POINTS, 0, count);
+            mGL.glDisable(GLES20.GL_BLEND);
+            mGL.glDisableVertexAttribArray(mPositionHandle);
+            mGL.glDisableVertexAttribArray(mColorHandle);
+        }
+        mResourceRegistry.onFrameEnd();
+    }
+
+    // 粒子按时间模拟，一直在动
+    @Override
+    public boolean isContinuous() {
+        return true;
+    }
+}
@@ -0,0 +1,148 @@
+package com.phj.opengl.particle;
+
+import com.phj.opengl.concurrent.ParallelRange;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 描述：粒子系统，每次更新依次：发射 -> 施加各个力并积分 -> 移除寿命耗尽的粒子
+ * 力和积分按区间切分到线程池中并行，各区间互不重叠；发射和移除在调用线程上进行。
+ * 粒子循环里不分配内存，每次更新只为调度分配与任务数成正比的少量对象。
+ * 顶点直接写进调用方提供的ByteBuffer，同样按区间并行，可以作为流式VBO的数据。
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class ParticleSystem {
+
+    /**
+     * 顶点格式：位置xyz(float) + 颜色(ubyte×4)
+     */
+    public static final int VERTEX_STRIDE = 16;
+
+    // 每个任务不少于这么多粒子，太小的区间调度开销比计算还大
+    static final int MIN_PARTICLES_PER_TASK = 8192;
+
+    private final ParticleBuffer mParticles;
+    private final ArrayList<Emitter> mEmitters = new ArrayList<>();
+    private final ArrayList<Force> mForces = new ArrayList<>();
+    private final ExecutorService mExecutor;
+    private final int mTaskCount;
+    private final ParallelRange.Task<RuntimeException> mIntegrate;
+    private final ParallelRange.Task<RuntimeException> mWrite;
+    private float mDt;
+    private ByteBuffer mOut;
+
+    /**
+     * @param executor  线程池，为null时在调用线程更新
+     * @param taskCount 最多切分的任务数，一般为核数
+     */
+    public ParticleSystem(int capacity, ExecutorService executor, int taskCount) {
+        this.mParticles = new ParticleBuffer(capacity);
+        this.mExecutor = executor;
+        this.mTaskCount = Math.max(1, taskCount);
+        this.mIntegrate = new ParallelRange.Task<RuntimeException>() {
+            @Override
+            public void run(int from, int to) {
+                integrate(from, to);
+            }
+        };
+        this.mWrite = new ParallelRange.Task<RuntimeException>() {
+            @Override
+            public void run(int from, int to) {
+                write(from, to);
+            }
+        };
+    }
+
+    public void addEmitter(Emitter emitter) {
+        mEmitters.add(emitter);
+    }
+
+    public void addForce(Force force) {
+        mForces.add(force);
+    }
+
+    public ParticleBuffer getParticles() {
+        return mParticles;
+    }
+
+    public int getCount() {
+        return mParticles.count;
+    }
+
+    /**
+     * @param dt 秒
+     * @return 本次移除的粒子数
+     */
+    public int update(float dt) {
+        for (int i = 0; i < mEmitters.size(); i++) {
+            mEmitters.get(i).emit(mParticles, dt);
+        }
+        mDt = dt;
+        run(mParticles.count, mIntegrate);
+        return mParticles.compact();
+    }
+
+    /**
+     * 把存活的粒子按{@link #VERTEX_STRIDE}写到out的开头，不改变out的position
+     *
+     * @return 顶点数
+     */
+    public int writeVertices(ByteBuffer out) {
+        int count = mParticles.count;
+        if (out.capacity() < count * VERTEX_STRIDE) {
+            throw new IllegalArgumentException("buffer too small: " + out.capacity() + " < " + count * VERTEX_STRIDE);
+        }
+        mOut = out;
+        run(count, mWrite);
+        mOut = null;
+        return count;
+    }
+
+    private void integrate(int from, int to) {
+        ParticleBuffer p = mParticles;
+        float dt = mDt;
+        for (int f = 0; f < mForces.size(); f++) {
+            mForces.get(f).apply(p, from, to, dt);
+        }
+        float[] x = p.x;
+        float[] y = p.y;
+        float[] z = p.z;
+        float[] vx = p.vx;
+        float[] vy = p.vy;
+        float[] vz = p.vz;
+        float[] life = p.life;
+        for (int i = from; i < to; i++) {
+            x[i] += vx[i] * dt;
+            y[i] += vy[i] * dt;
+            z[i] += vz[i] * dt;
+            life[i] -= dt;
+        }
+    }
+
+    // 绝对位置写入，各区间不重叠，多个线程可以同时写同一个ByteBuffer
+    private void write(int from, int to) {
+        ByteBuffer out = mOut;
+        ParticleBuffer p = mParticles;
+        int offset = from * VERTEX_STRIDE;
+        for (int i = from; i < to; i++) {
+            out.putFloat(offset, p.x[i]);
+            out.putFloat(offset + 4, p.y[i]);
+            out.putFloat(offset + 8, p.z[i]);
+            // 内存中按RGBA排列，与字节序无关
+            int argb = p.color[i];
+            out.put(offset + 12, (byte) (argb >> 16));
+            out.put(offset + 13, (byte) (argb >> 8));
+            out.put(offset + 14, (byte) argb);
+            out.put(offset + 15, (byte) (argb >>> 24));
+            offset += VERTEX_STRIDE;
+        }
+    }
+
+    // 把[0, count)切分到线程池中执行并等待完成
+    private void run(int count, ParallelRange.Task<RuntimeException> task) {
+        ParallelRange.run(mExecutor, count, Math.min(mTaskCount, count / MIN_PARTICLES_PER_TASK), task);
+    }
+}
@@ -0,0 +1,102 @@
+package com.phj.opengl.particle;
+
+/**
+ * 描述：从一个点按固定速率发射，速度方向在以direction为轴、半角为spread的圆锥内均匀分布
+ * 随机数用xorshift，种子固定时发射序列可以复现；不足一个的粒子累积到下一次
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class PointEmitter implements Emitter {
+
+    private float mX;
+    private float mY;
+    private float mZ;
+    private final float mRate;
+    private final float mMinSpeed;
+    private final float mMaxSpeed;
+    private final float mMinLife;
+    private final float mMaxLife;
+    private final int mColor;
+    // 圆锥的轴和与之正交的两个方向
+    private final float[] mAxis = new float[3];
+    private final float[] mTangent = new float[3];
+    private final float[] mBitangent = new float[3];
+    private final float mCosSpread;
+    private float mPending;
+    private int mSeed;
+
+    /**
+     * @param rate   每秒发射的个数
+     * @param spread 圆锥半角，弧度，PI为各向均匀
+     * @param color  ARGB
+     */
+    public PointEmitter(float rate, float dirX, float dirY, float dirZ, float spread,
+                        float minSpeed, float maxSpeed, float minLife, float maxLife, int color, int seed) {
+        this.mRate = rate;
+        this.mMinSpeed = minSpeed;
+        this.mMaxSpeed = maxSpeed;
+        this.mMinLife = minLife;
+        this.mMaxLife = maxLife;
+        this.mColor = color;
+        this.mCosSpread = (float) Math.cos(spread);
+        this.mSeed = seed == 0 ? 1 : seed;
+        float length = (float) Math.sqrt(dirX * dirX + dirY * dirY + dirZ * dirZ);
+        mAxis[0] = dirX / length;
+        mAxis[1] = dirY / length;
+        mAxis[2] = dirZ / length;
+        // 取和轴夹角最大的坐标轴做叉积
+        float[] other = Math.abs(mAxis[0]) < 0.9f ? new float[]{1, 0, 0} : new float[]{0, 1, 0};
+        cross(mAxis, other, mTangent);
+        float t = (float) Math.sqrt(mTangent[0] * mTangent[0] + mTangent[1] * mTangent[1] + mTangent[2] * mTangent[2]);
+        mTangent[0] /= t;
+        mTangent[1] /= t;
+        mTangent[2] /= t;
+        cross(mAxis, mTangent, mBitangent);
+    }
+
+    public void setPosition(float x, float y, float z) {
+        this.mX = x;
+        this.mY = y;
+        this.mZ = z;
+    }
+
+    @Override
+    public void emit(ParticleBuffer particles, float dt) {
+        mPending += mRate * dt;
+        int n = (int) mPending;
+        mPending -= n;
+        for (int i = 0; i < n; i++) {
+            // 圆锥内均匀：cos在[cosSpread, 1]上均匀，方位角在[0, 2PI)上均匀
+            float cos = 1 - random() * (1 - mCosSpread);
+            float sin = (float) Math.sqrt(Math.max(0, 1 - cos * cos));
+            double phi = random() * 2 * Math.PI;
+            float a = sin * (float) Math.cos(phi);
+            float b = sin * (float) Math.sin(phi);
+            float speed = mMinSpeed + random() * (mMaxSpeed - mMinSpeed);
+            float vx = (mAxis[0] * cos + mTangent[0] * a + mBitangent[0] * b) * speed;
+            float vy = (mAxis[1] * cos + mTangent[1] * a + mBitangent[1] * b) * speed;
+            float vz = (mAxis[2] * cos + mTangent[2] * a + mBitangent[2] * b) * speed;
+            float life = mMinLife + random() * (mMaxLife - mMinLife);
+            if (!particles.add(mX, mY, mZ, vx, vy, vz, life, mColor)) {
+                mPending = 0;
+                return;
+            }
+        }
+    }
+
+    // [0, 1)
+    private float random() {
+        int s = mSeed;
+        s ^= s << 13;
+        s ^= s >>> 17;
+        s ^= s << 5;
+        mSeed = s;
+        return (s >>> 8) / (float) (1 << 24);
+    }
+
+    private static void cross(float[] a, float[] b, float[] out) {
+        out[0] = a[1] * b[2] - a[2] * b[1];
+        out[1] = a[2] * b[0] - a[0] * b[2];
+        out[2] = a[0] * b[1] - a[1] * b[0];
+    }
+}
@@ -0,0 +1,18 @@
+package com.phj.opengl.readback;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 描述：把回读的像素转换或编码为结果，在工作线程上调用
+ * Created by PHJ on 2026/10/19.
+ */
+
+public interface FrameEncoder<T> {
+
+    /**
+     * @param rgba 按GL的顺序存放，第一行是图像的最底一行，每像素RGBA四个字节；
+     *             返回后会被回收复用，不能保留引用
+     */
+    T encode(ByteBuffer rgba, int width, int height) throws IOException;
+}
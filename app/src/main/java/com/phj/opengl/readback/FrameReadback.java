@@ -0,0 +1,425 @@
+package com.phj.opengl.readback;
+
+import android.opengl.GLES20;
+import android.util.Log;
+
+import com.phj.opengl.fbo.RenderTarget;
+import com.phj.opengl.fbo.RenderTargetPool;
+import com.phj.opengl.gl.GLApi;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 描述：异步帧回读，用于导出和截图
+ * 直接glReadPixels当前帧要等GPU画完整帧，GL线程会停顿一帧。这里分两步：
+ * capture时用glCopyTexSubImage2D把当前帧缓冲拷进轮转的离屏目标，只是一条GPU命令；
+ * depth帧之后在{@link #onFrameEnd()}里才glReadPixels这个目标，此时GPU早已完成，读取不需要等待。
+ * 像素的转换和编码交给工作线程，结果通过Future和回调返回。
+ * 工作线程跟不上时丢弃新的capture而不是阻塞GL线程，显示帧不受导出影响。
+ * capture和onFrameEnd必须在GL线程调用。
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class FrameReadback {
+
+    private final static String TAG = FrameReadback.class.getSimpleName();
+
+    /**
+     * 在工作线程上回调
+     */
+    public interface Callback<T> {
+        void onFrameReady(long frame, T result);
+
+        void onFrameFailed(long frame, Exception e);
+    }
+
+    private final GLApi mGL;
+    private final RenderTargetPool mPool;
+    private final int mDepth;
+    private final int mMaxInFlight;
+    private final ExecutorService mWorkers;
+    // 轮转的离屏目标，depth + 1个：每帧capture一次时，读取最老的一个的同时还有空位拷贝当前帧
+    private final Slot[] mSlots;
+    private final ArrayDeque<ByteBuffer> mBuffers = new ArrayDeque<>();
+    private final AtomicInteger mInFlight = new AtomicInteger();
+    private int mWidth;
+    private int mHeight;
+    private int mNextSlot;
+    private long mFrame;
+    private long mCaptureCount;
+
+    // 统计，工作线程写入
+    private long mCompletedCount;
+    private long mFailedCount;
+    private long mDroppedCount;
+    private long mForcedReadCount;
+    private long mTotalLatencyNs;
+    private long mMaxLatencyNs;
+    private long mFirstCaptureNs;
+    private long mLastCompletedNs;
+
+    /**
+     * @param depth       capture之后隔多少帧再读取，一般2~3
+     * @param maxInFlight 已capture但还没处理完的帧数上限，超过时丢弃新的capture
+     * @param workers     转换和编码用的线程池
+     */
+    public FrameReadback(GLApi gl, RenderTargetPool pool, int depth, int maxInFlight, ExecutorService workers) {
+        this.mGL = gl;
+        this.mPool = pool;
+        this.mDepth = Math.max(1, depth);
+        this.mMaxInFlight = Math.max(mDepth + 1, maxInFlight);
+        this.mWorkers = workers;
+        this.mSlots = new Slot[mDepth + 1];
+        for (int i = 0; i < mSlots.length; i++) {
+            mSlots[i] = new Slot();
+        }
+    }
+
+    /**
+     * 拷贝当前绑定的帧缓冲左下角width×height的区域，在画完这一帧、交换缓冲之前调用
+     *
+     * @param callback 可以为null
+     * @return 结果；因工作线程跟不上而丢弃时返回null
+     */
+    public <T> Future<T> capture(int width, int height, FrameEncoder<T> encoder, Callback<T> callback) {
+        if (mInFlight.get() >= mMaxInFlight) {
+            synchronized (this) {
+                mDroppedCount++;
+            }
+            return null;
+        }
+        if (width != mWidth || height != mHeight) {
+            // 尺寸变化时先读完旧尺寸的帧
+            flush();
+            releaseTargets();
+            mWidth = width;
+            mHeight = height;
+        }
+        Slot slot = mSlots[mNextSlot];
+        if (slot.frame != null) {
+            // 一帧capture了多次，轮转追上了还没读的目标
+            synchronized (this) {
+                mForcedReadCount++;
+            }
+            read(slot);
+        }
+        if (slot.target == null) {
+            // 默认帧缓冲通常没有alpha，只能拷贝到不带alpha的纹理；回读时GL_RGBA总是支持，alpha为1
+            slot.target = mPool.obtain(width, height, GLES20.GL_RGB, GLES20.GL_UNSIGNED_BYTE, false);
+            if (slot.target == null) {
+                Log.e(TAG, "capture: obtain render target failed " + width + "x" + height);
+                return null;
+            }
+        }
+        long now = System.nanoTime();
+        synchronized (this) {
+            if (mCaptureCount == 0) {
+                mFirstCaptureNs = now;
+            }
+            mCaptureCount++;
+        }
+        mGL.glBindTexture(GLES20.GL_TEXTURE_2D, slot.target.getTextureId());
+        mGL.glCopyTexSubImage2D(GLES20.GL_TEXTURE_2D, 0, 0, 0, 0, 0, width, height);
+        mGL.glBindTexture(GLES20.GL_TEXTURE_2D, 0);
+        PendingFrame<T> frame = new PendingFrame<>(mFrame, now, encoder, callback);
+        slot.frame = frame;
+        slot.capturedAt = mFrame;
+        mInFlight.incrementAndGet();
+        mNextSlot = (mNextSlot + 1) % mSlots.length;
+        return frame;
+    }
+
+    /**
+     * 每帧结束时调用，读取之后又画完了depth帧的目标
+     */
+    public void onFrameEnd() {
+        mFrame++;
+        for (int i = 0; i < mSlots.length; i++) {
+            // 从最老的开始，按capture的顺序提交
+            Slot slot = mSlots[(mNextSlot + i) % mSlots.length];
+            if (slot.frame != null && mFrame - slot.capturedAt > mDepth) {
+                read(slot);
+            }
+        }
+    }
+
+    /**
+     * 立即读取所有还没读的帧，停止导出时调用，会等待GPU
+     */
+    public void flush() {
+        for (int i = 0; i < mSlots.length; i++) {
+            Slot slot = mSlots[(mNextSlot + i) % mSlots.length];
+            if (slot.frame != null) {
+                read(slot);
+            }
+        }
+    }
+
+    /**
+     * 读完剩下的帧并归还离屏目标，GL线程调用；已提交的编码仍会完成
+     */
+    public void release() {
+        flush();
+        releaseTargets();
+        mWidth = 0;
+        mHeight = 0;
+    }
+
+    /**
+     * EGL上下文丢失，离屏目标里的帧已经不存在，对应的结果以失败结束
+     */
+    public void onContextLost() {
+        for (Slot slot : mSlots) {
+            if (slot.frame != null) {
+                PendingFrame<?> frame = slot.frame;
+                slot.frame = null;
+                finish(frame, null, new IllegalStateException("context lost"));
+            }
+            // RenderTargetPool#onContextLost会丢弃所有目标，这里只清掉引用
+            slot.target = null;
+        }
+        mWidth = 0;
+        mHeight = 0;
+    }
+
+    private void releaseTargets() {
+        for (Slot slot : mSlots) {
+            if (slot.target != null) {
+                mPool.release(slot.target);
+                slot.target = null;
+            }
+        }
+    }
+
+    private void read(Slot slot) {
+        final PendingFrame<?> frame = slot.frame;
+        slot.frame = null;
+        final int width = slot.target.getWidth();
+        final int height = slot.target.getHeight();
+        final ByteBuffer pixels = obtainBuffer(width * height * 4);
+        mGL.glBindFramebuffer(GLES20.GL_FRAMEBUFFER, slot.target.getFramebufferId());
+        mGL.glReadPixels(0, 0, width, height, GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, pixels);
+        mGL.glBindFramebuffer(GLES20.GL_FRAMEBUFFER, 0);
+        mWorkers.execute(new Runnable() {
+            @Override
+            public void run() {
+                encode(frame, pixels, width, height);
+            }
+        });
+    }
+
+    private <T> void encode(PendingFrame<T> frame, ByteBuffer pixels, int width, int height) {
+        T result = null;
+        Exception error = null;
+        try {
+            pixels.clear();
+            result = frame.encoder.encode(pixels, width, height);
+        } catch (IOException | RuntimeException e) {
+            error = e;
+        } finally {
+            recycleBuffer(pixels);
+        }
+        finish(frame, result, error);
+    }
+
+    private <T> void finish(PendingFrame<T> frame, Object result, Exception error) {
+        long now = System.nanoTime();
+        long latency = now - frame.capturedNs;
+        synchronized (this) {
+            if (error == null) {
+                mCompletedCount++;
+                mTotalLatencyNs += latency;
+                mMaxLatencyNs = Math.max(mMaxLatencyNs, latency);
+                mLastCompletedNs = now;
+            } else {
+                mFailedCount++;
+            }
+        }
+        mInFlight.decrementAndGet();
+        @SuppressWarnings("unchecked")
+        T value = (T) result;
+        frame.complete(value, error);
+        if (frame.callback != null) {
+            if (error == null) {
+                frame.callback.onFrameReady(frame.index, value);
+            } else {
+                frame.callback.onFrameFailed(frame.index, error);
+            }
+        }
+    }
+
+    private ByteBuffer obtainBuffer(int bytes) {
+        synchronized (mBuffers) {
+            while (!mBuffers.isEmpty()) {
+                ByteBuffer buffer = mBuffers.pollFirst();
+                if (buffer.capacity() == bytes) {
+                    buffer.clear();
+                    return buffer;
+                }
+            }
+        }
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    private void recycleBuffer(ByteBuffer buffer) {
+        synchronized (mBuffers) {
+            if (mBuffers.size() < mMaxInFlight) {
+                mBuffers.addLast(buffer);
+            }
+        }
+    }
+
+    /**
+     * 把GL顺序的RGBA（第一行在最底）转换为Bitmap顺序的ARGB
+     */
+    public static void toArgb(ByteBuffer rgba, int width, int height, int[] out) {
+        for (int y = 0; y < height; y++) {
+            int src = (height - 1 - y) * width * 4;
+            int dst = y * width;
+            for (int x = 0; x < width; x++) {
+                int r = rgba.get(src) & 0xFF;
+                int g = rgba.get(src + 1) & 0xFF;
+                int b = rgba.get(src + 2) & 0xFF;
+                int a = rgba.get(src + 3) & 0xFF;
+                out[dst + x] = a << 24 | r << 16 | g << 8 | b;
+                src += 4;
+            }
+        }
+    }
+
+    public int getDepth() {
+        return mDepth;
+    }
+
+    /**
+     * 已capture还没处理完的帧数
+     */
+    public int getInFlightCount() {
+        return mInFlight.get();
+    }
+
+    public synchronized long getCompletedCount() {
+        return mCompletedCount;
+    }
+
+    public synchronized long getFailedCount() {
+        return mFailedCount;
+    }
+
+    /**
+     * 因工作线程跟不上而丢弃的capture数
+     */
+    public synchronized long getDroppedCount() {
+        return mDroppedCount;
+    }
+
+    /**
+     * 还不到depth帧就被迫读取的次数，非0说明一帧capture了多次或depth不够
+     */
+    public synchronized long getForcedReadCount() {
+        return mForcedReadCount;
+    }
+
+    /**
+     * capture到结果可用的平均耗时，毫秒
+     */
+    public synchronized double getAverageLatencyMs() {
+        return mCompletedCount == 0 ? 0 : mTotalLatencyNs / 1e6 / mCompletedCount;
+    }
+
+    public synchronized double getMaxLatencyMs() {
+        return mMaxLatencyNs / 1e6;
+    }
+
+    /**
+     * 从第一次capture到最近一次完成的平均吞吐，帧/秒
+     */
+    public synchronized double getThroughputFps() {
+        long elapsed = mLastCompletedNs - mFirstCaptureNs;
+        return mCompletedCount == 0 || elapsed <= 0 ? 0 : mCompletedCount * 1e9 / elapsed;
+    }
+
+    private static final class Slot {
+        RenderTarget target;
+        PendingFrame<?> frame;
+        long capturedAt;
+    }
+
+    private static final class PendingFrame<T> implements Future<T> {
+        final long index;
+        final long capturedNs;
+        final FrameEncoder<T> encoder;
+        final Callback<T> callback;
+        private boolean mDone;
+        private T mResult;
+        private Exception mError;
+
+        PendingFrame(long index, long capturedNs, FrameEncoder<T> encoder, Callback<T> callback) {
+            this.index = index;
+            this.capturedNs = capturedNs;
+            this.encoder = encoder;
+            this.callback = callback;
+        }
+
+        synchronized void complete(T result, Exception error) {
+            mResult = result;
+            mError = error;
+            mDone = true;
+            notifyAll();
+        }
+
+        // 已经交给GPU的拷贝无法撤回
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public synchronized boolean isDone() {
+            return mDone;
+        }
+
+        @Override
+        public synchronized T get() throws InterruptedException, ExecutionException {
+            while (!mDone) {
+                wait();
+            }
+            return result();
+        }
+
+        @Override
+        public synchronized T get(long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (!mDone) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new TimeoutException();
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            return result();
+        }
+
+        private T result() throws ExecutionException {
+            if (mError != null) {
+                throw new ExecutionException(mError);
+            }
+            return mResult;
+        }
+    }
+}
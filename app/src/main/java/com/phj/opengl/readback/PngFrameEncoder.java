@@ -0,0 +1,31 @@
+package com.phj.opengl.readback;
+
+import android.graphics.Bitmap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 描述：编码为PNG，上下翻转成Bitmap的行顺序
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class PngFrameEncoder implements FrameEncoder<byte[]> {
+
+    @Override
+    public byte[] encode(ByteBuffer rgba, int width, int height) throws IOException {
+        int[] argb = new int[width * height];
+        FrameReadback.toArgb(rgba, width, height, argb);
+        Bitmap bitmap = Bitmap.createBitmap(argb, width, height, Bitmap.Config.ARGB_8888);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(width * height);
+            if (!bitmap.compress(Bitmap.CompressFormat.PNG, 100, out)) {
+                throw new IOException("png compress failed");
+            }
+            return out.toByteArray();
+        } finally {
+            bitmap.recycle();
+        }
+    }
+}
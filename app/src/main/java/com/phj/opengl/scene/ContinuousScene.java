@@ -0,0 +1,15 @@
+package com.phj.opengl.scene;
+
+/**
+ * 描述：每帧内容都在变化、需要连续绘制的场景，例如按时间模拟的粒子和逐帧追加的曲线
+ * 视图按需绘制，{@link SceneMultiplexer}在这种场景激活期间每画完一帧就请求下一帧
+ * Created by PHJ on 2026/10/19.
+ */
+
+public interface ContinuousScene {
+
+    /**
+     * GL线程在每帧画完后调用，返回false时不再请求下一帧，直到被其他原因唤醒
+     */
+    boolean isContinuous();
+}
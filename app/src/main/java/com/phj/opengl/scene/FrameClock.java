@@ -0,0 +1,15 @@
+package com.phj.opengl.scene;
+
+/**
+ * 描述：本帧的时间，由宿主在每帧绘制之前设置，同一帧内各处读到的值相同
+ * 场景按它推进模拟而不直接读System.nanoTime()，测试可以给出固定的帧间隔
+ * Created by PHJ on 2026/10/19.
+ */
+
+public interface FrameClock {
+
+    /**
+     * 本帧开始的时间，纳秒，只在GL线程读取；还没有开始过任何一帧时为0
+     */
+    long getFrameTimeNs();
+}
@@ -0,0 +1,76 @@
+package com.phj.opengl.scene;
+
+import com.phj.opengl.anim.Animator;
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.gl.GLResourceRegistry;
+import com.phj.opengl.shader.ShaderLibrary;
+
+/**
+ * 描述：各个场景共用的GL资源：shader变体缓存和GL对象注册表，以及共用的补间动画{@link Animator}和帧时间
+ * 同一个EGL上下文中编译过的program、上传过的buffer和纹理对所有场景可见，切换场景不需要重新编译和上传。
+ * 上下文重建只由宿主调用一次{@link #onSurfaceCreated()}，场景自己的onSurfaceCreated不再处理共享部分
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class RenderContext implements FrameClock {
+
+    private final ShaderLibrary mShaderLibrary;
+    private final GLResourceRegistry mResourceRegistry;
+    // 动画状态不属于GL上下文，上下文重建后继续播放
+    private final Animator mAnimator = new Animator(64);
+    private int mSurfaceCount;
+    private long mFrameTimeNs;
+
+    public RenderContext(ShaderLibrary shaderLibrary, GLResourceRegistry resourceRegistry) {
+        this.mShaderLibrary = shaderLibrary;
+        this.mResourceRegistry = resourceRegistry;
+    }
+
+    public ShaderLibrary getShaderLibrary() {
+        return mShaderLibrary;
+    }
+
+    public GLResourceRegistry getResourceRegistry() {
+        return mResourceRegistry;
+    }
+
+    /**
+     * 由宿主在每帧绘制之前推进，只能在GL线程使用
+     */
+    public Animator getAnimator() {
+        return mAnimator;
+    }
+
+    /**
+     * 开始新的一帧：记下帧时间并推进动画，由宿主在GL线程每帧调用一次
+     */
+    public void beginFrame(long nowNs) {
+        mFrameTimeNs = nowNs;
+        mAnimator.update(nowNs);
+    }
+
+    @Override
+    public long getFrameTimeNs() {
+        return mFrameTimeNs;
+    }
+
+    public GLApi getGL() {
+        return mResourceRegistry.getGL();
+    }
+
+    /**
+     * 新的EGL上下文：之前编译的program已失效，已登记的资源按保留的数据重建，必须在GL线程调用
+     */
+    public void onSurfaceCreated() {
+        mShaderLibrary.onContextLost();
+        mResourceRegistry.onSurfaceCreated();
+        mSurfaceCount++;
+    }
+
+    /**
+     * 经历过的EGL上下文个数
+     */
+    public int getSurfaceCount() {
+        return mSurfaceCount;
+    }
+}
@@ -0,0 +1,20 @@
+package com.phj.opengl.scene;
+
+/**
+ * 描述：场景切入切出的回调，由{@link SceneMultiplexer}在GL线程调用
+ * 切走的场景不释放GL资源，但应当停下自己启动的动画等持续工作，切回时再开始
+ * Created by PHJ on 2026/10/19.
+ */
+
+public interface SceneLifecycle {
+
+    /**
+     * 成为当前场景，在onSurfaceCreated和onSurfaceChanged之后、第一次onDrawFrame之前
+     */
+    void onActivate();
+
+    /**
+     * 被其他场景替换，之后不再收到onDrawFrame，直到再次onActivate
+     */
+    void onDeactivate();
+}
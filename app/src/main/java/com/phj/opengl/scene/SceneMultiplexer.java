@@ -0,0 +1,315 @@
+package com.phj.opengl.scene;
+
+import android.opengl.GLES20;
+import android.opengl.GLSurfaceView;
+import android.util.Log;
+
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.overdraw.OverdrawMeter;
+import com.phj.opengl.startup.WarmUp;
+import com.phj.opengl.trace.CapturingGLApi;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.microedition.khronos.egl.EGLConfig;
+import javax.microedition.khronos.opengles.GL10;
+
+/**
+ * 描述：在同一个EGL上下文中切换场景的Renderer，GLSurfaceView只需设置一次
+ * 任意线程调用{@link #select(String)}，下一帧开始时在GL线程切换，实现了{@link SceneLifecycle}的场景收到切入切出的回调。场景切走后不释放，
+ * 它的program和GL对象留在{@link RenderContext}中，切回时只需重新设置视口，开销为一帧。
+ * 每个场景在每个EGL上下文中只收到一次onSurfaceCreated（第一次激活或预加载时），
+ * 共享的program缓存和资源注册表由这里在上下文重建时统一处理一次。
+ * 场景之间只约定最基本的GL状态：切换时解绑program、buffer、纹理和FBO，关闭混合、深度测试和背面剔除。
+ * 每帧在场景绘制之前设置帧时间并推进共用的{@link com.phj.opengl.anim.Animator}，场景读到的是本帧的时间和动画值。
+ * 当前场景是{@link ContinuousScene}时，每帧画完后通过帧请求者请求下一帧，按需绘制的视图也能连续播放。
+ * 设置{@link OverdrawMeter}后当前场景的每一帧都按过度绘制诊断模式显示。
+ * 设置{@link CapturingGLApi}后由这里标记帧的边界，抓取的一帧包含切换、预加载和场景绘制的全部调用。
+ * 设置{@link WarmUp}后第一个上下文创建时执行它的GL阶段，第一帧画完后打印启动时间线
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class SceneMultiplexer implements GLSurfaceView.Renderer {
+
+    private final static String TAG = SceneMultiplexer.class.getSimpleName();
+
+    private final RenderContext mContext;
+    private final SceneRegistry mRegistry;
+    private final HashMap<String, GLSurfaceView.Renderer> mScenes = new HashMap<>();
+    // 在当前EGL上下文中已经onSurfaceCreated的场景
+    private final HashSet<String> mCreated = new HashSet<>();
+    private final AtomicReference<String> mPending = new AtomicReference<>();
+    // 预加载的场景，每次上下文重建后都重新预加载
+    private final ArrayList<String> mPreload = new ArrayList<>();
+    private boolean mPreloadChanged;
+    private GLSurfaceView.Renderer mActive;
+    private OverdrawMeter mOverdrawMeter;
+    private CapturingGLApi mCapture;
+    private WarmUp mWarmUp;         // 第一帧画完后置空
+    private Runnable mFrameRequester;
+    private String mActiveName;
+    private EGLConfig mConfig;
+    private boolean mHasSurface;
+    private int mWidth;
+    private int mHeight;
+    private int mSwitchCount;
+    private long mLastSwitchNs;
+
+    /**
+     * @param initial 第一个激活的场景
+     */
+    public SceneMultiplexer(RenderContext context, SceneRegistry registry, String initial) {
+        this.mContext = context;
+        this.mRegistry = registry;
+        select(initial);
+    }
+
+    /**
+     * 切换到name，可以在任意线程调用，下一帧生效；连续调用只保留最后一次
+     * RENDERMODE_WHEN_DIRTY下需要再requestRender
+     */
+    public void select(String name) {
+        if (!mRegistry.contains(name)) {
+            throw new IllegalArgumentException("unknown scene: " + name);
+        }
+        mPending.set(name);
+    }
+
+    /**
+     * 提前创建场景并调用onSurfaceCreated，切换过去时不再编译program和上传资源
+     * 可以在任意线程调用，在下一帧执行，之后每次上下文重建时也会执行
+     */
+    public void preload(String... names) {
+        synchronized (mPreload) {
+            for (String name : names) {
+                if (!mRegistry.contains(name)) {
+                    throw new IllegalArgumentException("unknown scene: " + name);
+                }
+                if (!mPreload.contains(name)) {
+                    mPreload.add(name);
+                    mPreloadChanged = true;
+                }
+            }
+        }
+    }
+
+    public RenderContext getContext() {
+        return mContext;
+    }
+
+    /**
+     * GL线程调用，当前场景，还没有激活过时为null
+     */
+    public GLSurfaceView.Renderer getActiveScene() {
+        return mActive;
+    }
+
+    public String getActiveName() {
+        return mActiveName;
+    }
+
+    /**
+     * GL线程调用，已创建的场景，没有创建过时为null
+     */
+    public GLSurfaceView.Renderer getScene(String name) {
+        return mScenes.get(name);
+    }
+
+    /**
+     * 打开或关闭过度绘制诊断，GL线程调用，例如通过GLSurfaceView#queueEvent；传null关闭
+     */
+    public void setOverdrawMeter(OverdrawMeter meter) {
+        if (meter == mOverdrawMeter) {
+            return;
+        }
+        if (mOverdrawMeter != null) {
+            mOverdrawMeter.release();
+        }
+        mOverdrawMeter = meter;
+        if (meter != null && mHasSurface) {
+            meter.onSurfaceCreated();
+            meter.onSurfaceChanged(mWidth, mHeight);
+        }
+    }
+
+    public OverdrawMeter getOverdrawMeter() {
+        return mOverdrawMeter;
+    }
+
+    /**
+     * 设置抓取GL调用流的GLApi，应当是RenderContext中使用的那个，在GLSurfaceView#setRenderer之前调用
+     */
+    public void setCapture(CapturingGLApi capture) {
+        this.mCapture = capture;
+    }
+
+    /**
+     * 设置启动预热，在GLSurfaceView#setRenderer之前调用；池阶段应当已经start，和EGL上下文的创建同时进行
+     */
+    public void setWarmUp(WarmUp warmUp) {
+        this.mWarmUp = warmUp;
+    }
+
+    /**
+     * 请求下一帧，例如调用GLSurfaceView#requestRender，在GLSurfaceView#setRenderer之前调用
+     */
+    public void setFrameRequester(Runnable frameRequester) {
+        this.mFrameRequester = frameRequester;
+    }
+
+    public int getSwitchCount() {
+        return mSwitchCount;
+    }
+
+    /**
+     * 最近一次切换在GL线程上花的时间，不含新场景的第一帧绘制
+     */
+    public long getLastSwitchNs() {
+        return mLastSwitchNs;
+    }
+
+    @Override
+    public void onSurfaceCreated(GL10 gl, EGLConfig config) {
+        mConfig = config;
+        mHasSurface = true;
+        // 所有场景的program和资源都随旧上下文失效，共享部分只处理一次
+        mContext.onSurfaceCreated();
+        mCreated.clear();
+        // 共享的program缓存刚清空，预热编译的program放进新上下文
+        if (mWarmUp != null) {
+            mWarmUp.mark("surface");
+            mWarmUp.runGLStages();
+        }
+        if (mOverdrawMeter != null) {
+            mOverdrawMeter.onSurfaceCreated();
+        }
+        mWidth = 0;
+        mHeight = 0;
+        synchronized (mPreload) {
+            mPreloadChanged = true;
+        }
+        preloadPending(gl);
+        if (mActive != null) {
+            ensureCreated(gl, mActiveName, mActive);
+        }
+        Log.i(TAG, "onSurfaceCreated: " + mScenes.size() + " scenes, active=" + mActiveName);
+    }
+
+    @Override
+    public void onSurfaceChanged(GL10 gl, int width, int height) {
+        mWidth = width;
+        mHeight = height;
+        if (mOverdrawMeter != null) {
+            mOverdrawMeter.onSurfaceChanged(width, height);
+        }
+        if (mActive != null) {
+            mActive.onSurfaceChanged(gl, width, height);
+        }
+    }
+
+    @Override
+    public void onDrawFrame(GL10 gl) {
+        CapturingGLApi capture = mCapture;
+        if (capture != null) {
+            capture.beginFrame();
+        }
+        preloadPending(gl);
+        String pending = mPending.getAndSet(null);
+        if (pending != null && !pending.equals(mActiveName)) {
+            activate(gl, pending);
+        }
+        mContext.beginFrame(System.nanoTime());
+        if (mActive != null) {
+            OverdrawMeter meter = mOverdrawMeter;
+            if (meter != null) {
+                meter.beginFrame();
+            }
+            mActive.onDrawFrame(gl);
+            if (meter != null) {
+                meter.endFrame();
+            }
+            if (mFrameRequester != null && mActive instanceof ContinuousScene
+                    && ((ContinuousScene) mActive).isContinuous()) {
+                mFrameRequester.run();
+            }
+        }
+        if (capture != null) {
+            capture.endFrame();
+        }
+        if (mWarmUp != null && mActive != null) {
+            mWarmUp.onFirstFrame();
+            mWarmUp = null;
+        }
+    }
+
+    private void activate(GL10 gl, String name) {
+        long start = System.nanoTime();
+        GLSurfaceView.Renderer scene = obtain(name);
+        resetState(mContext.getGL());
+        ensureCreated(gl, name, scene);
+        if (mWidth > 0 && mHeight > 0) {
+            scene.onSurfaceChanged(gl, mWidth, mHeight);
+        }
+        String previous = mActiveName;
+        if (mActive instanceof SceneLifecycle) {
+            ((SceneLifecycle) mActive).onDeactivate();
+        }
+        mActive = scene;
+        mActiveName = name;
+        if (scene instanceof SceneLifecycle) {
+            ((SceneLifecycle) scene).onActivate();
+        }
+        mSwitchCount++;
+        mLastSwitchNs = System.nanoTime() - start;
+        Log.i(TAG, "activate: " + previous + " -> " + name + " in " + mLastSwitchNs / 1000 + "us");
+    }
+
+    private void preloadPending(GL10 gl) {
+        if (!mHasSurface) {
+            return;
+        }
+        String[] names;
+        synchronized (mPreload) {
+            if (!mPreloadChanged || mPreload.isEmpty()) {
+                return;
+            }
+            names = mPreload.toArray(new String[mPreload.size()]);
+            mPreloadChanged = false;
+        }
+        for (String name : names) {
+            ensureCreated(gl, name, obtain(name));
+        }
+        // 预加载的场景可能改了绑定，当前场景按切换后的状态继续绘制
+        resetState(mContext.getGL());
+    }
+
+    private GLSurfaceView.Renderer obtain(String name) {
+        GLSurfaceView.Renderer scene = mScenes.get(name);
+        if (scene == null) {
+            scene = mRegistry.create(name, mContext);
+            mScenes.put(name, scene);
+        }
+        return scene;
+    }
+
+    private void ensureCreated(GL10 gl, String name, GLSurfaceView.Renderer scene) {
+        if (mCreated.add(name)) {
+            scene.onSurfaceCreated(gl, mConfig);
+        }
+    }
+
+    private static void resetState(GLApi gl) {
+        gl.glUseProgram(0);
+        gl.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+        gl.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, 0);
+        gl.glActiveTexture(GLES20.GL_TEXTURE0);
+        gl.glBindTexture(GLES20.GL_TEXTURE_2D, 0);
+        gl.glBindFramebuffer(GLES20.GL_FRAMEBUFFER, 0);
+        gl.glDisable(GLES20.GL_BLEND);
+        gl.glDisable(GLES20.GL_DEPTH_TEST);
+        gl.glDisable(GLES20.GL_CULL_FACE);
+    }
+}
@@ -0,0 +1,48 @@
+package com.phj.opengl.scene;
+
+import android.opengl.GLSurfaceView;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * 描述：按名字登记可切换的场景，场景在第一次使用时才由工厂创建
+ * 按登记顺序排列，可以直接作为界面上的选项
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class SceneRegistry {
+
+    /**
+     * 创建场景，在GL线程调用；场景的构造不应直接调用GL
+     */
+    public interface Factory {
+        GLSurfaceView.Renderer create(RenderContext context);
+    }
+
+    private final LinkedHashMap<String, Factory> mFactories = new LinkedHashMap<>();
+
+    public synchronized void register(String name, Factory factory) {
+        if (mFactories.containsKey(name)) {
+            throw new IllegalArgumentException("scene already registered: " + name);
+        }
+        mFactories.put(name, factory);
+    }
+
+    public synchronized boolean contains(String name) {
+        return mFactories.containsKey(name);
+    }
+
+    public synchronized List<String> getNames() {
+        return new ArrayList<>(mFactories.keySet());
+    }
+
+    synchronized GLSurfaceView.Renderer create(String name, RenderContext context) {
+        Factory factory = mFactories.get(name);
+        if (factory == null) {
+            throw new IllegalArgumentException("unknown scene: " + name);
+        }
+        return factory.create(context);
+    }
+}
@@ -0,0 +1,39 @@
+package com.phj.opengl.shader;
+
+import android.content.res.AssetManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 描述：从assets/shaders目录读取shader源文件
+ * Created by PHJ on 2026/10/18.
+ */
+
+public class AssetShaderSource implements ShaderSourceProvider {
+
+    private static final String DIR = "shaders/";
+
+    private final AssetManager mAssets;
+
+    public AssetShaderSource(AssetManager assets) {
+        this.mAssets = assets;
+    }
+
+    @Override
+    public String load(String name) throws IOException {
+        InputStream in = mAssets.open(DIR + name);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                out.write(buffer, 0, len);
+            }
+            return out.toString("UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.phj.opengl.shader;
+
+import android.opengl.GLES20;
+import android.opengl.GLES30;
+import android.util.Log;
+
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.gl.ShaderHelper;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 描述：基于glGetProgramBinary/glProgramBinary的实现
+ * Java层只提供了GLES30的核心入口，GLES2上下文即使声明了GL_OES_get_program_binary，
+ * 扩展函数也需要通过eglGetProcAddress获取，直接调用核心入口的行为没有保证，所以只在ES3上下文中启用
+ * Created by PHJ on 2026/10/18.
+ */
+
+public class GLES30ProgramBinaryBackend implements ProgramBinaryBackend {
+
+    private final static String TAG = GLES30ProgramBinaryBackend.class.getSimpleName();
+
+    private final GLApi mGL;
+    private final int[] mParams = new int[1];
+    private final int[] mFormat = new int[1];
+    private Boolean mSupported;
+
+    public GLES30ProgramBinaryBackend(GLApi gl) {
+        this.mGL = gl;
+    }
+
+    @Override
+    public boolean isSupported() {
+        if (mSupported == null) {
+            String version = mGL.glGetString(GLES20.GL_VERSION);
+            boolean available = version != null && version.startsWith("OpenGL ES 3");
+            if (available) {
+                // 有入口但没有任何二进制格式时同样无法使用
+                mGL.glGetIntegerv(GLES30.GL_NUM_PROGRAM_BINARY_FORMATS, mParams, 0);
+                available = mParams[0] > 0;
+            }
+            mSupported = available;
+            Log.i(TAG, "isSupported: " + available + " version=" + version);
+        }
+        return mSupported;
+    }
+
+    @Override
+    public String getDriverKey() {
+        return mGL.glGetString(GLES20.GL_VENDOR) + "/" + mGL.glGetString(GLES20.GL_RENDERER)
+                + "/" + mGL.glGetString(GLES20.GL_VERSION);
+    }
+
+    @Override
+    public int createProgramFromSource(String vertexSource, String fragmentSource) {
+        return ShaderHelper.createProgram(mGL, vertexSource, fragmentSource);
+    }
+
+    @Override
+    public int createProgramFromBinary(ProgramBinary binary) {
+        int program = mGL.glCreateProgram();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(binary.data.length);
+        buffer.put(binary.data).flip();
+        mGL.glProgramBinary(program, binary.format, buffer, binary.data.length);
+        // 驱动不认识的格式会产生GL_INVALID_ENUM，链接状态同样为失败，清掉错误按失败处理
+        mGL.glGetError();
+        mGL.glGetProgramiv(program, GLES20.GL_LINK_STATUS, mParams, 0);
+        if (mParams[0] == 0) {
+            // 驱动升级或二进制不兼容
+            mGL.glDeleteProgram(program);
+            return 0;
+        }
+        return program;
+    }
+
+    @Override
+    public ProgramBinary getBinary(int program) {
+        mGL.glGetProgramiv(program, GLES30.GL_PROGRAM_BINARY_LENGTH, mParams, 0);
+        int length = mParams[0];
+        if (length <= 0) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+        mGL.glGetProgramBinary(program, length, mParams, 0, mFormat, 0, buffer);
+        if (mParams[0] <= 0) {
+            return null;
+        }
+        byte[] data = new byte[mParams[0]];
+        buffer.get(data);
+        return new ProgramBinary(mFormat[0], data);
+    }
+}
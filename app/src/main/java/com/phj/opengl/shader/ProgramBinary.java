@@ -0,0 +1,17 @@
+package com.phj.opengl.shader;
+
+/**
+ * 描述：驱动导出的program二进制，format由驱动定义，只能在同一个驱动上加载
+ * Created by PHJ on 2026/10/18.
+ */
+
+public class ProgramBinary {
+
+    public final int format;
+    public final byte[] data;
+
+    public ProgramBinary(int format, byte[] data) {
+        this.format = format;
+        this.data = data;
+    }
+}
@@ -0,0 +1,40 @@
+package com.phj.opengl.shader;
+
+/**
+ * 描述：program二进制的GL侧操作，所有方法都在GL线程调用
+ * Created by PHJ on 2026/10/18.
+ */
+
+public interface ProgramBinaryBackend {
+
+    /**
+     * 当前上下文是否支持导出和加载program二进制
+     */
+    boolean isSupported();
+
+    /**
+     * 驱动标识，驱动变化后旧的二进制全部作废
+     */
+    String getDriverKey();
+
+    /**
+     * 从源码编译链接program
+     *
+     * @return program id，失败返回0
+     */
+    int createProgramFromSource(String vertexSource, String fragmentSource);
+
+    /**
+     * 用二进制创建program
+     *
+     * @return program id，驱动拒绝（链接失败）时返回0
+     */
+    int createProgramFromBinary(ProgramBinary binary);
+
+    /**
+     * 导出已链接program的二进制
+     *
+     * @return 失败返回null
+     */
+    ProgramBinary getBinary(int program);
+}
@@ -0,0 +1,196 @@
+package com.phj.opengl.shader;
+
+import android.util.Log;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 描述：program二进制缓存，减少冷启动时的shader编译
+ * key = SHA-1(驱动标识 + 顶点源码 + 片元源码)。
+ * {@link #preload()}在后台线程按上次记录的驱动标识把磁盘条目读进内存，GL线程创建program时只查内存：
+ * 命中则glProgramBinary，被驱动拒绝或未命中时从源码编译，再把导出的二进制交给后台线程写盘。
+ * 驱动不支持时直接从源码编译。
+ * Created by PHJ on 2026/10/18.
+ */
+
+public class ProgramBinaryCache {
+
+    private final static String TAG = ProgramBinaryCache.class.getSimpleName();
+
+    private final ProgramBinaryStore mStore;
+    private final ProgramBinaryBackend mBackend;
+    private final Executor mIoExecutor;
+    private final long mPreloadTimeoutMs;
+
+    private final ConcurrentHashMap<String, ProgramBinary> mEntries = new ConcurrentHashMap<>();
+    private final CountDownLatch mPreloaded = new CountDownLatch(1);
+    private volatile String mPreloadedDriverKey;
+    private volatile boolean mPreloadStarted;
+
+    // 以下只在GL线程访问
+    private String mDriverKey;
+    private Boolean mSupported;
+    private int mHitCount;
+    private int mMissCount;
+    private int mRejectCount;
+
+    /**
+     * @param store            磁盘存储
+     * @param backend          GL侧实现
+     * @param ioExecutor       执行文件读写的后台线程，必须串行执行，保证清理和写入的顺序
+     * @param preloadTimeoutMs GL线程第一次查询时最多等待预读多久，超时按未命中处理
+     */
+    public ProgramBinaryCache(ProgramBinaryStore store, ProgramBinaryBackend backend,
+                              Executor ioExecutor, long preloadTimeoutMs) {
+        this.mStore = store;
+        this.mBackend = backend;
+        this.mIoExecutor = ioExecutor;
+        this.mPreloadTimeoutMs = preloadTimeoutMs;
+    }
+
+    /**
+     * 在后台线程预读磁盘条目，可以在GL上下文创建之前调用
+     */
+    public synchronized void preload() {
+        if (mPreloadStarted) {
+            return;
+        }
+        mPreloadStarted = true;
+        mIoExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    String driverKey = mStore.readDriverKey();
+                    if (driverKey != null) {
+                        Map<String, ProgramBinary> entries = mStore.readAll(driverKey);
+                        mEntries.putAll(entries);
+                        Log.i(TAG, "preload: " + entries.size() + " entries for " + driverKey);
+                    }
+                    mPreloadedDriverKey = driverKey;
+                } finally {
+                    mPreloaded.countDown();
+                }
+            }
+        });
+    }
+
+    /**
+     * 创建program，GL线程调用
+     *
+     * @return program id，编译失败返回0
+     */
+    public int createProgram(String vertexSource, String fragmentSource) {
+        if (!isSupported()) {
+            return mBackend.createProgramFromSource(vertexSource, fragmentSource);
+        }
+        final String key = key(mDriverKey, vertexSource, fragmentSource);
+        ProgramBinary binary = mEntries.get(key);
+        if (binary != null) {
+            int program = mBackend.createProgramFromBinary(binary);
+            if (program != 0) {
+                mHitCount++;
+                return program;
+            }
+            // 驱动拒绝，删除后重新编译
+            mRejectCount++;
+            mEntries.remove(key);
+            mIoExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    mStore.delete(key);
+                }
+            });
+        }
+        mMissCount++;
+        int program = mBackend.createProgramFromSource(vertexSource, fragmentSource);
+        if (program != 0) {
+            final ProgramBinary compiled = mBackend.getBinary(program);
+            if (compiled != null) {
+                mEntries.put(key, compiled);
+                final String driverKey = mDriverKey;
+                mIoExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        mStore.write(key, driverKey, compiled);
+                    }
+                });
+            }
+        }
+        return program;
+    }
+
+    public int getHitCount() {
+        return mHitCount;
+    }
+
+    public int getMissCount() {
+        return mMissCount;
+    }
+
+    public int getRejectCount() {
+        return mRejectCount;
+    }
+
+    // 第一次调用时确定驱动标识，与预读时的标识不一致则丢弃预读结果并清空磁盘
+    private boolean isSupported() {
+        if (mSupported != null) {
+            return mSupported;
+        }
+        mSupported = mBackend.isSupported();
+        if (!mSupported) {
+            return false;
+        }
+        mDriverKey = mBackend.getDriverKey();
+        boolean preloaded = false;
+        if (mPreloadStarted) {
+            try {
+                preloaded = mPreloaded.await(mPreloadTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!preloaded || !mDriverKey.equals(mPreloadedDriverKey)) {
+            // 预读超时也要校验磁盘上的驱动记录；内存中的条目key里带着驱动标识，不会被误用
+            if (preloaded) {
+                mEntries.clear();
+            }
+            final String driverKey = mDriverKey;
+            mIoExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (!driverKey.equals(mStore.readDriverKey())) {
+                        Log.i(TAG, "driver changed, reset store: " + driverKey);
+                        mStore.resetForDriver(driverKey);
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    static String key(String driverKey, String vertexSource, String fragmentSource) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(driverKey.getBytes("UTF-8"));
+            digest.update((byte) 0);
+            digest.update(vertexSource.getBytes("UTF-8"));
+            digest.update((byte) 0);
+            digest.update(fragmentSource.getBytes("UTF-8"));
+            byte[] hash = digest.digest();
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException | UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.phj.opengl.shader;
+
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * 描述：program二进制的磁盘存储，一个key一个文件
+ * 文件格式：magic、版本、驱动标识、二进制格式、长度、CRC32、数据；
+ * 写入时先写临时文件并sync，再rename覆盖，进程被杀也不会留下半个文件；
+ * 读取时magic、驱动标识、长度或校验和不对的文件直接删除。
+ * 只做文件I/O，不能在GL线程调用
+ * Created by PHJ on 2026/10/18.
+ */
+
+public class ProgramBinaryStore {
+
+    private final static String TAG = ProgramBinaryStore.class.getSimpleName();
+
+    private static final int MAGIC = 0x50424331; // "PBC1"
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".bin";
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final String DRIVER_FILE = "driver";
+
+    private final File mDir;
+
+    public ProgramBinaryStore(File dir) {
+        this.mDir = dir;
+    }
+
+    public File getDir() {
+        return mDir;
+    }
+
+    /**
+     * 读取一个条目
+     *
+     * @return 不存在或校验失败时返回null
+     */
+    public ProgramBinary read(String key, String driverKey) {
+        File file = new File(mDir, key + SUFFIX);
+        if (!file.exists()) {
+            return null;
+        }
+        ProgramBinary binary = readFile(file, driverKey);
+        if (binary == null) {
+            Log.w(TAG, "read: invalid entry " + file.getName());
+            file.delete();
+        }
+        return binary;
+    }
+
+    /**
+     * 读取属于driverKey的全部条目，无效文件和残留的临时文件会被删除
+     */
+    public Map<String, ProgramBinary> readAll(String driverKey) {
+        HashMap<String, ProgramBinary> result = new HashMap<>();
+        File[] files = mDir.listFiles();
+        if (files == null) {
+            return result;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(TMP_SUFFIX)) {
+                file.delete();
+            } else if (name.endsWith(SUFFIX)) {
+                ProgramBinary binary = readFile(file, driverKey);
+                if (binary == null) {
+                    Log.w(TAG, "readAll: invalid entry " + name);
+                    file.delete();
+                } else {
+                    result.put(name.substring(0, name.length() - SUFFIX.length()), binary);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 原子写入一个条目
+     */
+    public boolean write(String key, String driverKey, ProgramBinary binary) {
+        if (!mDir.exists() && !mDir.mkdirs()) {
+            Log.e(TAG, "write: mkdirs failed " + mDir);
+            return false;
+        }
+        File file = new File(mDir, key + SUFFIX);
+        File tmp = new File(mDir, key + TMP_SUFFIX);
+        CRC32 crc = new CRC32();
+        crc.update(binary.data, 0, binary.data.length);
+        FileOutputStream fos = null;
+        try {
+            fos = new FileOutputStream(tmp);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(driverKey);
+            out.writeInt(binary.format);
+            out.writeInt(binary.data.length);
+            out.writeLong(crc.getValue());
+            out.write(binary.data);
+            out.flush();
+            fos.getFD().sync();
+            out.close();
+            fos = null;
+            if (!tmp.renameTo(file)) {
+                Log.e(TAG, "write: rename failed " + file);
+                tmp.delete();
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "write: " + file, e);
+            tmp.delete();
+            return false;
+        } finally {
+            closeQuietly(fos);
+        }
+    }
+
+    public void delete(String key) {
+        new File(mDir, key + SUFFIX).delete();
+    }
+
+    /**
+     * 删除所有条目
+     */
+    public void clear() {
+        File[] files = mDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            file.delete();
+        }
+    }
+
+    /**
+     * 上一次写入的驱动标识，用于在拿到GL上下文前预读
+     */
+    public String readDriverKey() {
+        File file = new File(mDir, DRIVER_FILE);
+        if (!file.exists()) {
+            return null;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new FileInputStream(file));
+            return in.readUTF();
+        } catch (IOException e) {
+            file.delete();
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * 驱动标识变化时清空旧条目并记录新的标识
+     */
+    public void resetForDriver(String driverKey) {
+        clear();
+        write(DRIVER_FILE, driverKey);
+    }
+
+    private void write(String name, String value) {
+        if (!mDir.exists() && !mDir.mkdirs()) {
+            return;
+        }
+        File file = new File(mDir, name);
+        File tmp = new File(mDir, name + TMP_SUFFIX);
+        FileOutputStream fos = null;
+        try {
+            fos = new FileOutputStream(tmp);
+            DataOutputStream out = new DataOutputStream(fos);
+            out.writeUTF(value);
+            out.flush();
+            fos.getFD().sync();
+            out.close();
+            fos = null;
+            if (!tmp.renameTo(file)) {
+                tmp.delete();
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "write: " + file, e);
+            tmp.delete();
+        } finally {
+            closeQuietly(fos);
+        }
+    }
+
+    private static ProgramBinary readFile(File file, String driverKey) {
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(driverKey)) {
+                return null;
+            }
+            int format = in.readInt();
+            int length = in.readInt();
+            long checksum = in.readLong();
+            if (length <= 0 || length > file.length()) {
+                return null;
+            }
+            byte[] data = new byte[length];
+            in.readFully(data);
+            if (in.read() != -1) {
+                return null; // 文件尾部有多余数据
+            }
+            CRC32 crc = new CRC32();
+            crc.update(data, 0, length);
+            if (crc.getValue() != checksum) {
+                return null;
+            }
+            return new ProgramBinary(format, data);
+        } catch (IOException e) {
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
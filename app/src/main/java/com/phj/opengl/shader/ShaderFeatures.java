@@ -0,0 +1,60 @@
+package com.phj.opengl.shader;
+
+/**
+ * 描述：shader特性位，组合后作为变体的key，每一位在源码中对应一个#define
+ * 例如 COLOR | MVP | TEXTURE 会注入 #define COLOR 1、#define MVP 1、#define TEXTURE 1
+ * Created by PHJ on 2026/10/18.
+ */
+
+public final class ShaderFeatures {
+
+    public static final int COLOR = 1;          // 逐顶点颜色 attribute aColor
+    public static final int UNIFORM_COLOR = 1 << 1; // 统一颜色 uniform vColor，与COLOR互斥
+    public static final int MVP = 1 << 2;       // 变换矩阵 uniform vMatrix
+    public static final int TEXTURE = 1 << 3;   // 纹理 attribute aTextureCoord、uniform vTexture
+    public static final int STROKE = 1 << 4;    // 描边羽化 attribute aStroke，按到中心线的距离衰减alpha
+    public static final int SDF = 1 << 5;       // 纹理为距离场 attribute aSdf，需与TEXTURE同时使用
+    public static final int POINT_SPRITE = 1 << 6; // 圆形点精灵 uniform vPointSize，用于GL_POINTS
+    public static final int YUV = 1 << 7;       // 纹理为Y + 交错色度两张，uniform vTextureUV、vYuvMatrix、vYuvOffset，需与TEXTURE同时使用
+
+    // 下标为位序号
+    private static final String[] NAMES = {
+            "COLOR",
+            "UNIFORM_COLOR",
+            "MVP",
+            "TEXTURE",
+            "STROKE",
+            "SDF",
+            "POINT_SPRITE",
+            "YUV",
+    };
+
+    private ShaderFeatures() {
+    }
+
+    /**
+     * 生成特性对应的#define
+     */
+    public static String toDefines(int features) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < NAMES.length; i++) {
+            if ((features & (1 << i)) != 0) {
+                sb.append("#define ").append(NAMES[i]).append(" 1\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    public static String toString(int features) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < NAMES.length; i++) {
+            if ((features & (1 << i)) != 0) {
+                if (sb.length() > 0) {
+                    sb.append('|');
+                }
+                sb.append(NAMES[i]);
+            }
+        }
+        return sb.length() == 0 ? "NONE" : sb.toString();
+    }
+}
@@ -0,0 +1,136 @@
+package com.phj.opengl.shader;
+
+import android.util.Log;
+
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.gl.ShaderHelper;
+
+import java.util.HashMap;
+
+/**
+ * 描述：shader变体库
+ * 一个名字对应一对源文件 name.vert / name.frag，按特性位组合注入#define得到不同变体，
+ * 第一次请求时才编译，之后按 名字+特性位 复用同一个program。
+ * 一个EGL上下文对应一个ShaderLibrary，除{@link #prepare(String, int)}外必须在GL线程使用
+ * Created by PHJ on 2026/10/18.
+ */
+
+public class ShaderLibrary {
+
+    private final static String TAG = ShaderLibrary.class.getSimpleName();
+
+    private final GLApi mGL;
+    private final ShaderPreprocessor mPreprocessor;
+    private final HashMap<String, Integer> mPrograms = new HashMap<>();
+    private final HashMap<Integer, UniformState> mUniforms = new HashMap<>();
+    // 提前展开的源码：vert、frag，与上下文无关，重建上下文后继续使用
+    private final HashMap<String, String[]> mSources = new HashMap<>();
+    private ProgramBinaryCache mBinaryCache;
+
+    public ShaderLibrary(GLApi gl, ShaderSourceProvider provider) {
+        this.mGL = gl;
+        this.mPreprocessor = new ShaderPreprocessor(provider);
+    }
+
+    /**
+     * 获取program，没有编译过时立即编译
+     *
+     * @param name     源文件名（不含扩展名）
+     * @param features {@link ShaderFeatures}组合
+     * @return program id，编译失败返回0
+     */
+    public int getProgram(String name, int features) {
+        String key = name + '#' + features;
+        Integer program = mPrograms.get(key);
+        if (program == null) {
+            String[] sources = prepare(name, features);
+            program = mBinaryCache != null
+                    ? mBinaryCache.createProgram(sources[0], sources[1])
+                    : ShaderHelper.createProgram(mGL, sources[0], sources[1]);
+            Log.i(TAG, "getProgram: " + name + " " + ShaderFeatures.toString(features) + " -> " + program);
+            mPrograms.put(key, program);
+        }
+        return program;
+    }
+
+    /**
+     * 展开变体的源码并缓存，之后getProgram只剩编译和链接；不调用GL，可以在任意线程提前调用
+     *
+     * @return vert、frag源码
+     */
+    public String[] prepare(String name, int features) {
+        String key = name + '#' + features;
+        synchronized (mSources) {
+            String[] sources = mSources.get(key);
+            if (sources != null) {
+                return sources;
+            }
+        }
+        String[] sources = {
+                mPreprocessor.process(name + ".vert", features),
+                mPreprocessor.process(name + ".frag", features),
+        };
+        synchronized (mSources) {
+            mSources.put(key, sources);
+        }
+        return sources;
+    }
+
+    /**
+     * 设置program二进制缓存，之后编译的变体优先从缓存加载
+     */
+    public void setBinaryCache(ProgramBinaryCache binaryCache) {
+        this.mBinaryCache = binaryCache;
+    }
+
+    /**
+     * 编译program用的GLApi，渲染器也通过它调用GL
+     */
+    public GLApi getGL() {
+        return mGL;
+    }
+
+    /**
+     * program的uniform影子状态，同一个program在所有使用者之间共享
+     */
+    public UniformState getUniforms(int program) {
+        UniformState uniforms = mUniforms.get(program);
+        if (uniforms == null) {
+            uniforms = new UniformState(mGL, program);
+            mUniforms.put(program, uniforms);
+        }
+        return uniforms;
+    }
+
+    public ShaderPreprocessor getPreprocessor() {
+        return mPreprocessor;
+    }
+
+    /**
+     * 已编译的变体数
+     */
+    public int getProgramCount() {
+        return mPrograms.size();
+    }
+
+    /**
+     * 删除所有program
+     */
+    public void release() {
+        for (Integer program : mPrograms.values()) {
+            if (program != 0) {
+                mGL.glDeleteProgram(program);
+            }
+        }
+        mPrograms.clear();
+        mUniforms.clear();
+    }
+
+    /**
+     * EGL上下文丢失后调用，只清空记录
+     */
+    public void onContextLost() {
+        mPrograms.clear();
+        mUniforms.clear();
+    }
+}
@@ -0,0 +1,143 @@
+package com.phj.opengl.shader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * 描述：shader预处理，展开#include "file"并在开头注入特性#define
+ * 同一次展开中每个文件只包含一次；#ifdef等条件编译仍交给GLSL编译器处理
+ * 注释会被去掉：GLSL ES 1.00只保证ASCII字符集，部分驱动遇到中文注释会编译失败
+ * 读取过的源文件会缓存，不会重复读取assets；可以在多个线程同时使用，启动时在后台线程提前展开
+ * Created by PHJ on 2026/10/18.
+ */
+
+public class ShaderPreprocessor {
+
+    private static final String INCLUDE = "#include";
+    private static final String VERSION = "#version";
+
+    private final ShaderSourceProvider mProvider;
+    private final HashMap<String, String> mSources = new HashMap<>();
+
+    public ShaderPreprocessor(ShaderSourceProvider provider) {
+        this.mProvider = provider;
+    }
+
+    /**
+     * 展开文件
+     *
+     * @param name     文件名
+     * @param features {@link ShaderFeatures}组合
+     * @return 可直接编译的源码
+     */
+    public String process(String name, int features) {
+        StringBuilder body = new StringBuilder();
+        expand(name, body, new HashSet<String>(), new ArrayList<String>());
+        String source = body.toString();
+        String defines = ShaderFeatures.toDefines(features);
+        // #version必须是第一行，#define放在它后面
+        String trimmed = source.trim();
+        if (trimmed.startsWith(VERSION)) {
+            int end = trimmed.indexOf('\n');
+            if (end < 0) {
+                return trimmed + "\n" + defines;
+            }
+            return trimmed.substring(0, end + 1) + defines + trimmed.substring(end + 1);
+        }
+        return defines + source;
+    }
+
+    private void expand(String name, StringBuilder out, HashSet<String> included, ArrayList<String> stack) {
+        if (stack.contains(name)) {
+            throw new IllegalArgumentException("circular #include: " + stack + " -> " + name);
+        }
+        if (!included.add(name)) {
+            return;
+        }
+        stack.add(name);
+        String source = source(name);
+        int start = 0;
+        int length = source.length();
+        while (start < length) {
+            int end = source.indexOf('\n', start);
+            if (end < 0) {
+                end = length;
+            }
+            String line = source.substring(start, end);
+            String trimmed = line.trim();
+            if (trimmed.startsWith(INCLUDE)) {
+                expand(parseInclude(name, trimmed), out, included, stack);
+            } else if (!trimmed.isEmpty()) {
+                out.append(line).append('\n');
+            }
+            start = end + 1;
+        }
+        stack.remove(stack.size() - 1);
+    }
+
+    // #include "file" 或 #include <file>
+    private static String parseInclude(String from, String line) {
+        String rest = line.substring(INCLUDE.length()).trim();
+        if (rest.length() >= 2) {
+            char open = rest.charAt(0);
+            char close = open == '<' ? '>' : '"';
+            int end = rest.indexOf(close, 1);
+            if ((open == '"' || open == '<') && end > 1) {
+                return rest.substring(1, end);
+            }
+        }
+        throw new IllegalArgumentException("bad #include in " + from + ": " + line);
+    }
+
+    private String source(String name) {
+        synchronized (mSources) {
+            String source = mSources.get(name);
+            if (source != null) {
+                return source;
+            }
+        }
+        String source;
+        try {
+            source = mProvider.load(name);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("shader source not found: " + name, e);
+        }
+        source = stripComments(source);
+        // 两个线程同时读同一个文件时结果相同，保留哪个都可以
+        synchronized (mSources) {
+            mSources.put(name, source);
+        }
+        return source;
+    }
+
+    // 去掉//和/* */注释
+    static String stripComments(String source) {
+        StringBuilder sb = new StringBuilder(source.length());
+        int length = source.length();
+        int i = 0;
+        while (i < length) {
+            char c = source.charAt(i);
+            char next = i + 1 < length ? source.charAt(i + 1) : 0;
+            if (c == '/' && next == '/') {
+                while (i < length && source.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '/' && next == '*') {
+                i += 2;
+                while (i < length && !(source.charAt(i) == '*' && i + 1 < length && source.charAt(i + 1) == '/')) {
+                    if (source.charAt(i) == '\n') {
+                        sb.append('\n');
+                    }
+                    i++;
+                }
+                i += 2;
+            } else {
+                sb.append(c);
+                i++;
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,17 @@
+package com.phj.opengl.shader;
+
+import java.io.IOException;
+
+/**
+ * 描述：按名字读取shader源文件
+ * Created by PHJ on 2026/10/18.
+ */
+
+public interface ShaderSourceProvider {
+
+    /**
+     * @param name 文件名，如"basic.vert"、"varyings.glsl"
+     * @return 文件内容
+     */
+    String load(String name) throws IOException;
+}
@@ -0,0 +1,234 @@
+package com.phj.opengl.shader;
+
+import com.phj.opengl.gl.GLApi;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * 描述：一个program的uniform影子状态，只在值真正变化时调用glUniform*
+ * uniform的值属于program，切换program不会丢失，所以按program而不是按渲染器记录，
+ * 共用同一个program变体的渲染器之间也能正确判断。set*只暂存并与已上传的值逐位比较（相当于memcmp），
+ * 变化的uniform在{@link #apply()}时一次上传，需要先glUseProgram。location在第一次使用时查询并缓存。
+ * 由{@link ShaderLibrary#getUniforms(int)}创建，上下文丢失后随program一起作废
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class UniformState {
+
+    private static final int TYPE_INT = 0;
+    private static final int TYPE_FLOAT = 1;
+    private static final int TYPE_VEC2 = 2;
+    private static final int TYPE_VEC3 = 3;
+    private static final int TYPE_VEC4 = 4;
+    private static final int TYPE_MAT3 = 5;
+    private static final int TYPE_MAT4 = 6;
+
+    // 每种类型一个元素的分量数
+    private static final int[] COMPONENTS = {1, 1, 2, 3, 4, 9, 16};
+
+    private final GLApi mGL;
+    private final int mProgram;
+    private final HashMap<String, Slot> mSlots = new HashMap<>();
+    private final ArrayList<Slot> mDirty = new ArrayList<>();
+    private long mUploadCount;
+    private long mSkippedCount;
+
+    UniformState(GLApi gl, int program) {
+        this.mGL = gl;
+        this.mProgram = program;
+    }
+
+    public int getProgram() {
+        return mProgram;
+    }
+
+    /**
+     * uniform的location，被编译器优化掉时为-1
+     */
+    public int getLocation(String name) {
+        return slot(name, -1, 0).location;
+    }
+
+    public void set1i(String name, int value) {
+        Slot slot = slot(name, TYPE_INT, 1);
+        if (slot.location < 0) {
+            return;
+        }
+        if (slot.uploaded && slot.intValue == value) {
+            skip(slot);
+            return;
+        }
+        slot.intValue = value;
+        markDirty(slot);
+    }
+
+    public void set1f(String name, float value) {
+        Slot slot = slot(name, TYPE_FLOAT, 1);
+        if (slot.location < 0) {
+            return;
+        }
+        if (slot.uploaded && Float.floatToRawIntBits(slot.values[0]) == Float.floatToRawIntBits(value)) {
+            skip(slot);
+            return;
+        }
+        slot.values[0] = value;
+        markDirty(slot);
+    }
+
+    public void set2fv(String name, int count, float[] values, int offset) {
+        stage(slot(name, TYPE_VEC2, count), values, offset);
+    }
+
+    public void set3fv(String name, int count, float[] values, int offset) {
+        stage(slot(name, TYPE_VEC3, count), values, offset);
+    }
+
+    public void set4fv(String name, int count, float[] values, int offset) {
+        stage(slot(name, TYPE_VEC4, count), values, offset);
+    }
+
+    public void setMatrix3fv(String name, int count, float[] values, int offset) {
+        stage(slot(name, TYPE_MAT3, count), values, offset);
+    }
+
+    public void setMatrix4fv(String name, int count, float[] values, int offset) {
+        stage(slot(name, TYPE_MAT4, count), values, offset);
+    }
+
+    /**
+     * 上传变化过的uniform，program必须已经glUseProgram
+     *
+     * @return 本次调用的glUniform*次数
+     */
+    public int apply() {
+        int uploads = mDirty.size();
+        for (int i = 0; i < uploads; i++) {
+            Slot slot = mDirty.get(i);
+            upload(slot);
+            slot.dirty = false;
+        }
+        mDirty.clear();
+        mUploadCount += uploads;
+        return uploads;
+    }
+
+    /**
+     * 忘记已上传的值，下一次set的值都会上传，例如program被别处直接用glUniform*改过时
+     */
+    public void invalidate() {
+        for (Slot slot : mSlots.values()) {
+            if (!slot.dirty && slot.location >= 0) {
+                slot.uploaded = false;
+            }
+        }
+    }
+
+    public long getUploadCount() {
+        return mUploadCount;
+    }
+
+    /**
+     * 与已上传的值相同、没有调用GL的set次数
+     */
+    public long getSkippedCount() {
+        return mSkippedCount;
+    }
+
+    private Slot slot(String name, int type, int count) {
+        Slot slot = mSlots.get(name);
+        if (slot == null) {
+            slot = new Slot(mGL.glGetUniformLocation(mProgram, name));
+            mSlots.put(name, slot);
+        }
+        if (type >= 0 && (slot.type != type || slot.count != count)) {
+            if (slot.type >= 0 && slot.type != type) {
+                throw new IllegalArgumentException("uniform " + name + " type changed: " + slot.type + " -> " + type);
+            }
+            // 第一次使用，或者数组长度变化
+            slot.type = type;
+            slot.count = count;
+            slot.values = new float[COMPONENTS[type] * count];
+            slot.uploaded = false;
+        }
+        return slot;
+    }
+
+    private void stage(Slot slot, float[] values, int offset) {
+        if (slot.location < 0) {
+            return;
+        }
+        float[] current = slot.values;
+        int length = current.length;
+        if (slot.uploaded) {
+            int i = 0;
+            while (i < length && Float.floatToRawIntBits(current[i]) == Float.floatToRawIntBits(values[offset + i])) {
+                i++;
+            }
+            if (i == length) {
+                skip(slot);
+                return;
+            }
+        }
+        System.arraycopy(values, offset, current, 0, length);
+        markDirty(slot);
+    }
+
+    // 已经暂存了待上传的值时不算跳过
+    private void skip(Slot slot) {
+        if (!slot.dirty) {
+            mSkippedCount++;
+        }
+    }
+
+    // 暂存的值即视为将要上传的值，同一帧里多次修改只上传最后一次
+    private void markDirty(Slot slot) {
+        slot.uploaded = true;
+        if (!slot.dirty) {
+            slot.dirty = true;
+            mDirty.add(slot);
+        }
+    }
+
+    private void upload(Slot slot) {
+        int location = slot.location;
+        float[] v = slot.values;
+        switch (slot.type) {
+            case TYPE_INT:
+                mGL.glUniform1i(location, slot.intValue);
+                break;
+            case TYPE_FLOAT:
+                mGL.glUniform1f(location, v[0]);
+                break;
+            case TYPE_VEC2:
+                mGL.glUniform2fv(location, slot.count, v, 0);
+                break;
+            case TYPE_VEC3:
+                mGL.glUniform3fv(location, slot.count, v, 0);
+                break;
+            case TYPE_VEC4:
+                mGL.glUniform4fv(location, slot.count, v, 0);
+                break;
+            case TYPE_MAT3:
+                mGL.glUniformMatrix3fv(location, slot.count, false, v, 0);
+                break;
+            default:
+                mGL.glUniformMatrix4fv(location, slot.count, false, v, 0);
+                break;
+        }
+    }
+
+    private static final class Slot {
+        final int location;
+        int type = -1;
+        int count;
+        float[] values;
+        int intValue;
+        boolean uploaded;   // values是否为GL中（或即将上传）的值
+        boolean dirty;
+
+        Slot(int location) {
+            this.location = location;
+        }
+    }
+}
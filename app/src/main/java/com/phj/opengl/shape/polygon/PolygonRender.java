@@ -0,0 +1,110 @@
+package com.phj.opengl.shape.polygon;
+
+import android.opengl.GLES20;
+import android.opengl.GLSurfaceView;
+import android.util.Log;
+
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.gl.GLBuffer;
+import com.phj.opengl.gl.GLResourceRegistry;
+import com.phj.opengl.gl.GLResourceScope;
+import com.phj.opengl.mesh.Mesh;
+import com.phj.opengl.mesh.TessellationCache;
+import com.phj.opengl.shader.ShaderFeatures;
+import com.phj.opengl.shader.ShaderLibrary;
+import com.phj.opengl.shader.UniformState;
+
+import javax.microedition.khronos.egl.EGLConfig;
+import javax.microedition.khronos.opengles.GL10;
+
+/**
+ * 描述：绘制任意简单多边形（可带洞），三角化结果来自{@link TessellationCache}，同样的形状只三角化一次
+ * 采用VBO + IBO + glDrawElements#GL_TRIANGLES
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class PolygonRender implements GLSurfaceView.Renderer {
+
+    private final static String TAG = PolygonRender.class.getSimpleName();
+
+    private final float[] mColor;
+    private final Mesh mMesh;
+    private final GLApi mGL;
+    private final ShaderLibrary mShaderLibrary;
+    private final GLResourceRegistry mResourceRegistry;
+    private final GLResourceScope mResourceScope;
+    private int mProgram;
+    private UniformState mUniforms;
+    private int mPositionHandle;
+    private GLBuffer mVbo;
+    private GLBuffer mIbo;
+
+    /**
+     * @param xy    外环和各个洞的顶点，每个顶点两个float，标准化设备坐标
+     * @param holes 每个洞的第一个顶点的下标，没有洞时为null
+     * @param color RGBA
+     */
+    public PolygonRender(ShaderLibrary shaderLibrary, GLResourceRegistry resourceRegistry,
+                         TessellationCache cache, float[] xy, int[] holes, float[] color) {
+        this.mShaderLibrary = shaderLibrary;
+        this.mGL = shaderLibrary.getGL();
+        this.mResourceRegistry = resourceRegistry;
+        this.mResourceScope = resourceRegistry.openScope(TAG);
+        this.mMesh = cache.get(xy, holes);
+        this.mColor = color.clone();
+    }
+
+    @Override
+    public void onSurfaceCreated(GL10 gl, EGLConfig config) {
+        mProgram = mShaderLibrary.getProgram("basic", ShaderFeatures.UNIFORM_COLOR);
+        mUniforms = mShaderLibrary.getUniforms(mProgram);
+        // attribute位置只随program变化，在这里查一次，绘制时不再查询
+        mPositionHandle = mGL.glGetAttribLocation(mProgram, Mesh.ATTRIBUTE_POSITION);
+        Log.e(TAG, "onSurfaceCreated: mProgram=" + mProgram + " triangles=" + mMesh.getTriangleCount());
+
+        if (mVbo == null) {
+            mVbo = mResourceScope.createBuffer(GLES20.GL_ARRAY_BUFFER, mMesh.getVertices(),
+                    mMesh.getVerticesSizeInBytes(), GLES20.GL_STATIC_DRAW);
+            mIbo = mResourceScope.createBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, mMesh.getIndices(),
+                    mMesh.getIndicesSizeInBytes(), GLES20.GL_STATIC_DRAW);
+        }
+    }
+
+    /**
+     * 删除VBO和IBO，渲染器不再使用时在GL线程调用
+     */
+    public void release() {
+        mResourceScope.close();
+        mVbo = null;
+        mIbo = null;
+    }
+
+    @Override
+    public void onSurfaceChanged(GL10 gl, int width, int height) {
+        mGL.glViewport(0, 0, width, height);
+    }
+
+    @Override
+    public void onDrawFrame(GL10 gl) {
+        mGL.glUseProgram(mProgram);
+        mGL.glClearColor(0, 0, 0, 1);
+        mGL.glClear(GLES20.GL_COLOR_BUFFER_BIT);
+        mGL.glDisable(GLES20.GL_DEPTH_TEST);
+
+        mGL.glEnableVertexAttribArray(mPositionHandle);
+        // 二维坐标，z和w取默认值0和1
+        mGL.glBindBuffer(GLES20.GL_ARRAY_BUFFER, mVbo.use());
+        mGL.glVertexAttribPointer(mPositionHandle, 2, GLES20.GL_FLOAT, false,
+                mMesh.getLayout().getStride(), 0);
+        mGL.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+
+        mUniforms.set4fv("vColor", 1, mColor, 0);
+        mUniforms.apply();
+
+        mGL.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, mIbo.use());
+        mGL.glDrawElements(GLES20.GL_TRIANGLES, mMesh.getIndexCount(), mMesh.getIndexType(), 0);
+        mGL.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, 0);
+        mGL.glDisableVertexAttribArray(mPositionHandle);
+        mResourceRegistry.onFrameEnd();
+    }
+}
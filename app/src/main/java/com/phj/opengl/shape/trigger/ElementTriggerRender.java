@@ -4,6 +4,11 @@ import android.opengl.GLES20;
 import android.opengl.GLSurfaceView;
 import android.util.Log;
 
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.shader.ShaderFeatures;
+import com.phj.opengl.shader.ShaderLibrary;
+import com.phj.opengl.shader.UniformState;
+
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
@@ -36,31 +41,22 @@ public class ElementTriggerRender implements GLSurfaceView.Renderer {
     // 颜色
     private static final  float colors[] = {0.8f, 0.4f, 0.1f, 0f};
 
-    // 顶点着色器code
-    private static final String vertexShaderCode =
-            "attribute vec4 vPosition;" +
-            "void main() {" +
-            "  gl_Position = vPosition;" +
-            "}";
-
-    // 片元着色器code
-    private static final String fragmentShaderCode =
-            "precision mediump float;" +
-            "uniform vec4 vColor;" +
-            "void main() {" +
-            "    gl_FragColor = vColor;" +
-            "}";
-
     // 顶点buffer
     private FloatBuffer vertexBuffer;
     private ShortBuffer indiceBuffer;
+    private final GLApi mGL;
+    private final ShaderLibrary mShaderLibrary;
     private int mProgram; //
     private int mPositionHandle; //顶点
-    private int mColorHandle; // 颜色
+    private UniformState mUniforms; // 颜色，值不变时不重复上传
+
+    public ElementTriggerRender(ShaderLibrary shaderLibrary) {
+        this.mShaderLibrary = shaderLibrary;
+        this.mGL = shaderLibrary.getGL();
+    }
 
     @Override
     public void onSurfaceCreated(GL10 gl, EGLConfig config) {
-
         // 1、存储顶点坐标
         vertexBuffer = initBuffer(triangleCoords,4);
         ByteBuffer mbb = ByteBuffer.allocateDirect(indices.length * 2);
@@ -70,66 +66,41 @@ public class ElementTriggerRender implements GLSurfaceView.Renderer {
         indiceBuffer.put(indices);
         indiceBuffer.flip();
 
-        // 创建program
-        int vertexShader = loadShader(GLES20.GL_VERTEX_SHADER,vertexShaderCode);
-        int fragmentShader = loadShader(GLES20.GL_FRAGMENT_SHADER,fragmentShaderCode);
-
-        //创建一个空的OpenGLES程序
-        mProgram = GLES20.glCreateProgram();
-
-        Log.e(TAG, "onSurfaceCreated: vertexShader="+vertexShader+"  fragmentShader="+fragmentShader+"  mProgram="+mProgram);
-        //将顶点着色器加入到程序
-        GLES20.glAttachShader(mProgram, vertexShader);
-        //将片元着色器加入到程序中
-        GLES20.glAttachShader(mProgram, fragmentShader);
-        //连接到着色器程序
-        GLES20.glLinkProgram(mProgram);
+        // 创建program，同样特性的变体只会编译一次
+        mProgram = mShaderLibrary.getProgram("basic", ShaderFeatures.UNIFORM_COLOR);
+        mUniforms = mShaderLibrary.getUniforms(mProgram);
+        Log.e(TAG, "onSurfaceCreated: mProgram=" + mProgram);
     }
 
     @Override
     public void onSurfaceChanged(GL10 gl, int width, int height) {
         // 裁剪大小
-        GLES20.glViewport(0, 0, width, height);
+        mGL.glViewport(0, 0, width, height);
     }
 
     @Override
     public void onDrawFrame(GL10 gl) {
-        GLES20.glUseProgram(mProgram);
-        GLES20.glClearColor(0, 0, 0, 1);
-        GLES20.glDisable(GLES20.GL_DEPTH_TEST); // 当我们需要绘制透明图片时，就需要关闭它
+        mGL.glUseProgram(mProgram);
+        mGL.glClearColor(0, 0, 0, 1);
+        mGL.glDisable(GLES20.GL_DEPTH_TEST); // 当我们需要绘制透明图片时，就需要关闭它
         // 填充数据
         //获取顶点着色器的vPosition成员句柄
-        mPositionHandle = GLES20.glGetAttribLocation(mProgram, "vPosition");
+        mPositionHandle = mGL.glGetAttribLocation(mProgram, "vPosition");
         //启用三角形顶点的句柄
-        GLES20.glEnableVertexAttribArray(mPositionHandle);
+        mGL.glEnableVertexAttribArray(mPositionHandle);
         //准备三角形的坐标数据
-        GLES20.glVertexAttribPointer(mPositionHandle, 3,
+        mGL.glVertexAttribPointer(mPositionHandle, 3,
                 GLES20.GL_FLOAT, false,
                 12, vertexBuffer);
 
-        mColorHandle = GLES20.glGetUniformLocation(mProgram, "vColor");
-        Log.e(TAG, "onDrawFrame: mPositionHandle="+mPositionHandle+"  mColorHandle="+mColorHandle);
+        Log.e(TAG, "onDrawFrame: mPositionHandle="+mPositionHandle+"  vColor="+mUniforms.getLocation("vColor"));
         //设置绘制三角形的颜色
-        GLES20.glUniform4fv(mColorHandle, 1, colors, 0);
+        mUniforms.set4fv("vColor", 1, colors, 0);
+        mUniforms.apply();
         //绘制三角形
-        GLES20.glDrawElements(GLES20.GL_TRIANGLE_STRIP, 3,GLES20.GL_UNSIGNED_SHORT,indiceBuffer);
+        mGL.glDrawElements(GLES20.GL_TRIANGLE_STRIP, 3,GLES20.GL_UNSIGNED_SHORT,indiceBuffer);
         //禁止顶点数组的句柄
-        GLES20.glDisableVertexAttribArray(mPositionHandle);
-    }
-
-    /**
-     * 加载shader
-     * @param type 片元、顶点
-     * @param shaderCode Code
-     * @return int
-     */
-    private int loadShader(int type, String shaderCode) {
-        //根据type创建顶点着色器或者片元着色器
-        int shader = GLES20.glCreateShader(type);
-        //将资源加入到着色器中，并编译
-        GLES20.glShaderSource(shader, shaderCode);
-        GLES20.glCompileShader(shader);
-        return shader;
+        mGL.glDisableVertexAttribArray(mPositionHandle);
     }
 
     // 初始化buffer
@@ -1,23 +1,148 @@
 package com.phj.opengl.shape.trigger;
 
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.opengl.GLSurfaceView;
 import android.util.AttributeSet;
 
 import com.phj.opengl.R;
+import com.phj.opengl.gl.FallbackEGLConfigChooser;
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.gl.GLES20Api;
+import com.phj.opengl.gl.GLResourceRegistry;
+import com.phj.opengl.gl.GpuMemoryAccountant;
+import com.phj.opengl.gl.ValidatingGLApi;
 import com.phj.opengl.ibo.IBOTriggerRender;
 import com.phj.opengl.image.ImageRender;
+import com.phj.opengl.mesh.LodMeshRender;
+import com.phj.opengl.mesh.LodSelector;
+import com.phj.opengl.mesh.Mesh;
+import com.phj.opengl.mesh.MeshLod;
+import com.phj.opengl.mesh.MeshSimplifier;
+import com.phj.opengl.mesh.ObjImporter;
+import com.phj.opengl.mesh.TessellationCache;
+import com.phj.opengl.mesh.Tessellator;
+import com.phj.opengl.overdraw.OverdrawMeter;
+import com.phj.opengl.overdraw.OverdrawRender;
+import com.phj.opengl.pack.AssetPack;
+import com.phj.opengl.particle.ParticleRender;
+import com.phj.opengl.scene.RenderContext;
+import com.phj.opengl.scene.SceneMultiplexer;
+import com.phj.opengl.scene.SceneRegistry;
+import com.phj.opengl.shape.polygon.PolygonRender;
+import com.phj.opengl.shape.square.ElementSquareRender;
+import com.phj.opengl.shader.AssetShaderSource;
+import com.phj.opengl.shader.GLES30ProgramBinaryBackend;
+import com.phj.opengl.shader.ProgramBinaryCache;
+import com.phj.opengl.shader.ProgramBinaryStore;
+import com.phj.opengl.shader.ShaderFeatures;
+import com.phj.opengl.shader.ShaderLibrary;
+import com.phj.opengl.startup.WarmUp;
+import com.phj.opengl.stroke.StrokeRender;
+import com.phj.opengl.text.TextRender;
+import com.phj.opengl.texture.Etc1Encoder;
+import com.phj.opengl.texture.MipmapGenerator;
+import com.phj.opengl.trace.CapturingGLApi;
+import com.phj.opengl.vbo.VBOTriggerRender;
+import com.phj.opengl.yuv.SyntheticYuvFeed;
+import com.phj.opengl.yuv.SyntheticYuvGenerator;
+import com.phj.opengl.yuv.YuvColorSpace;
+import com.phj.opengl.yuv.YuvFrameSource;
+import com.phj.opengl.yuv.YuvRender;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.microedition.khronos.opengles.GL10;
 
 
 /**
  * 描述：画三角形的GLSurfaceView
+ * 各个示例登记为场景，共用一个EGL上下文和一份program、资源，运行时用{@link #selectScene(String)}切换
+ * 第一帧之前的准备工作由{@link WarmUp}按依赖并发执行，第一帧画完后在日志中打印启动时间线
  * Created by PHJ on 2019/7/10.
  */
 
 public class TriggerGLSurfaceView extends GLSurfaceView {
 
-    private GLSurfaceView.Renderer mRender;
+    // 显存预算：低内存设备更早驱逐纹理，避免进程因内存压力被杀
+    private static final long GPU_BUDGET_BYTES = 96 * 1024 * 1024;
+    private static final long GPU_BUDGET_BYTES_LOW_RAM = 32 * 1024 * 1024;
+
+    // 场景名
+    public static final String SCENE_IMAGE = "image";
+    public static final String SCENE_TRIGGER = "trigger";
+    public static final String SCENE_MULTICOLOR_TRIGGER = "multicolor_trigger";
+    public static final String SCENE_ADJUST_TRIGGER = "adjust_trigger";
+    public static final String SCENE_ELEMENT_TRIGGER = "element_trigger";
+    public static final String SCENE_ELEMENT_SQUARE = "element_square";
+    public static final String SCENE_VBO_TRIGGER = "vbo_trigger";
+    public static final String SCENE_IBO_TRIGGER = "ibo_trigger";
+    public static final String SCENE_POLYGON = "polygon";
+    public static final String SCENE_STROKE = "stroke";
+    public static final String SCENE_TEXT = "text";
+    public static final String SCENE_PARTICLE = "particle";
+    public static final String SCENE_OVERDRAW = "overdraw";
+    public static final String SCENE_YUV = "yuv";
+    public static final String SCENE_LOD = "lod";
+
+    // 由src/main/packs/geometry.txt编译到assets中的资源包
+    private static final String GEOMETRY_PACK = "geometry.pack";
+    // 合成视频的尺寸
+    private static final int YUV_WIDTH = 320;
+    private static final int YUV_HEIGHT = 240;
+    // LOD场景的网格和简化比例，像素阈值对应1080p左右的屏幕
+    private static final String LOD_MESH = "meshes/torus.obj";
+    private static final float[] LOD_RATIOS = {0.5f, 0.25f, 0.1f};
+    private static final float[] LOD_PIXELS = {240f, 120f, 60f};
+    private static final float LOD_HYSTERESIS = 0.15f;
+
+    // 过度绘制诊断每隔多少帧回读一次统计
+    private static final int OVERDRAW_SAMPLE_INTERVAL = 30;
+
+    // 启动预热的线程数，等于没有依赖、可以同时开始的池阶段数
+    private static final int WARM_UP_THREADS = 4;
+    // 第一个场景的program变体
+    private static final int IMAGE_FEATURES = ShaderFeatures.COLOR | ShaderFeatures.MVP | ShaderFeatures.TEXTURE;
+
+    // 带方形洞的五边形
+    private static final float[] POLYGON_XY = {
+            0f, 0.8f, -0.76f, 0.25f, -0.47f, -0.65f, 0.47f, -0.65f, 0.76f, 0.25f,
+            -0.2f, -0.2f, 0.2f, -0.2f, 0.2f, 0.2f, -0.2f, 0.2f,
+    };
+    private static final int[] POLYGON_HOLES = {5};
+
+    private final GLApi mGL;
+    private final CapturingGLApi mCapture;
+    private final SceneRegistry mScenes = new SceneRegistry();
+    private final SceneMultiplexer mRender;
+    private final ShaderLibrary mShaderLibrary;
+    private final GLResourceRegistry mResourceRegistry;
+    private final ExecutorService mWorkers;
+    // 每帧都要等待结果的计算单独用一个池，不排在mWorkers里的编码、导入和回读后面
+    private final ExecutorService mFrameWorkers;
+    private final int mCpus;
+    private final TessellationCache mTessellationCache = new TessellationCache(new Tessellator(), 16);
+    private final Runnable mRequestRender = new Runnable() {
+        @Override
+        public void run() {
+            requestRender();
+        }
+    };
+    private AssetPack mGeometry;    // GL线程第一次创建用到它的场景时映射
+    private final WarmUp mWarmUp;
+    private WarmUp.Stage<ImageRender> mImageStage;
+    private WarmUp.Stage<MeshLod> mLodStage;
 
     public TriggerGLSurfaceView(Context context) {
         this(context,null);
@@ -26,10 +151,318 @@ public class TriggerGLSurfaceView extends GLSurfaceView {
     public TriggerGLSurfaceView(Context context, AttributeSet attrs) {
         super(context, attrs);
         setEGLContextClientVersion(2);
-        mRender = new ImageRender(BitmapFactory.decodeResource(context.getResources(), R.mipmap.ic_launcher));
+        // 默认配置没有模板缓冲，过度绘制诊断需要8位模板；16位深度用于深度排序绘制。
+        // 没有模板缓冲的设备退回不带模板的配置，过度绘制诊断在那里不生效，其余场景照常显示
+        setEGLConfigChooser(new FallbackEGLConfigChooser(
+                new int[]{8, 8, 8, 0, 16, 8},
+                new int[]{8, 8, 8, 0, 16, 0},
+                new int[]{5, 6, 5, 0, 16, 0}));
+        mCpus = Runtime.getRuntime().availableProcessors();
+        mWorkers = newIdleTimeoutPool(mCpus);
+        mFrameWorkers = newIdleTimeoutPool(mCpus);
+        // debug构建中每次GL调用都经过校验，release中就是GLES20Api；
+        // 外面套一层调用流抓取，平时每次调用只多一次判空，需要时用captureFrames抓取
+        mCapture = new CapturingGLApi(ValidatingGLApi.wrapIfEnabled(GLES20Api.INSTANCE), mWorkers);
+        mGL = mCapture;
+        // shader源文件放在assets/shaders，按特性组合编译变体
+        mShaderLibrary = new ShaderLibrary(mGL, new AssetShaderSource(context.getAssets()));
+        // program二进制缓存，在EGL上下文创建的同时后台预读，读写都不占用GL线程；单线程保证读写顺序
+        ProgramBinaryCache binaryCache = new ProgramBinaryCache(
+                new ProgramBinaryStore(new File(context.getCacheDir(), "program_binaries")),
+                new GLES30ProgramBinaryBackend(mGL),
+                newIdleTimeoutPool(1), 100);
+        binaryCache.preload();
+        mShaderLibrary.setBinaryCache(binaryCache);
+        // 纹理、buffer等GL对象统一登记，上下文丢失后按保留的数据重建
+        ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        boolean lowRam = am != null && am.isLowRamDevice();
+        mResourceRegistry = new GLResourceRegistry(mGL,
+                new GpuMemoryAccountant(lowRam ? GPU_BUDGET_BYTES_LOW_RAM : GPU_BUDGET_BYTES));
+        // 第一帧之前的CPU工作在EGL上下文创建的同时并发进行，GL线程上只剩编译和上传
+        mWarmUp = buildWarmUp(context);
+        mWarmUp.start();
+        registerScenes();
+        RenderContext renderContext = new RenderContext(mShaderLibrary, mResourceRegistry);
+        // 按需绘制，有动画在播放、当前场景需要连续绘制或者正在抓取时请求下一帧
+        renderContext.getAnimator().setFrameRequester(mRequestRender);
+        mCapture.setFrameRequester(mRequestRender);
+        mRender = new SceneMultiplexer(renderContext, mScenes, SCENE_IMAGE);
+        mRender.setCapture(mCapture);
+        mRender.setFrameRequester(mRequestRender);
+        mRender.setWarmUp(mWarmUp);
         setRenderer(mRender);
 
         //只有在绘制数据改变时才绘制view，可以防止GLSurfaceView帧重绘
         setRenderMode(GLSurfaceView.RENDERMODE_WHEN_DIRTY);
     }
+
+    // 固定大小的线程池，空闲1秒后线程退出，view销毁后不会留下线程
+    private static ThreadPoolExecutor newIdleTimeoutPool(int threads) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads,
+                1, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    // 启动依赖图：解码、shader源码展开、第一个场景的纹理准备、多边形三角化和LOD链在池中，program编译在GL线程
+    private WarmUp buildWarmUp(final Context context) {
+        // 阶段内部的编码和滤波用mWorkers并行，预热用单独的线程
+        WarmUp warmUp = new WarmUp(newIdleTimeoutPool(WARM_UP_THREADS));
+        final WarmUp.Stage<Bitmap> decode = warmUp.addPoolStage("decode", new Callable<Bitmap>() {
+            @Override
+            public Bitmap call() {
+                return BitmapFactory.decodeResource(context.getResources(), R.mipmap.ic_launcher);
+            }
+        });
+        WarmUp.Stage<String[]> shaders = warmUp.addPoolStage("shader sources", new Callable<String[]>() {
+            @Override
+            public String[] call() {
+                return mShaderLibrary.prepare("basic", IMAGE_FEATURES);
+            }
+        });
+        warmUp.addPoolStage("polygon mesh", new Callable<Object>() {
+            @Override
+            public Object call() {
+                return mTessellationCache.get(POLYGON_XY, POLYGON_HOLES);
+            }
+        });
+        mLodStage = warmUp.addPoolStage("lod mesh", new Callable<MeshLod>() {
+            @Override
+            public MeshLod call() throws IOException {
+                InputStream in = context.getAssets().open(LOD_MESH);
+                try {
+                    Mesh mesh = new ObjImporter(mWorkers, mCpus).read(in);
+                    return new MeshSimplifier(mWorkers).buildLod(mesh, LOD_RATIOS);
+                } finally {
+                    in.close();
+                }
+            }
+        });
+        mImageStage = warmUp.addPoolStage("image texture", new Callable<ImageRender>() {
+            @Override
+            public ImageRender call() {
+                ImageRender imageRender = new ImageRender(mShaderLibrary, mResourceRegistry, decode.get());
+                // 图片在CPU上生成mipmap链并逐级按ETC1压缩上传，编码和滤波都切分到所有核上
+                imageRender.setTextureEncoder(new Etc1Encoder(Etc1Encoder.QUALITY_HIGH, mWorkers, mCpus));
+                imageRender.setMipmaps(new MipmapGenerator(MipmapGenerator.FILTER_BOX, true, mWorkers, mCpus), true);
+                // 驱动能力要等上下文创建后才能查询，先按常见的情况准备，不符时在GL线程重新准备
+                imageRender.prepareTexture(true, true);
+                return imageRender;
+            }
+        }, decode);
+        warmUp.addGLStage("program", new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return mShaderLibrary.getProgram("basic", IMAGE_FEATURES);
+            }
+        }, shaders);
+        return warmUp;
+    }
+
+    // 场景在第一次切换到时才创建，构造中不调用GL
+    private void registerScenes() {
+        mScenes.register(SCENE_IMAGE, new SceneRegistry.Factory() {
+            @Override
+            public GLSurfaceView.Renderer create(RenderContext rc) {
+                // 由预热在池中创建，纹理已经准备好，还没完成时在这里等待
+                return mImageStage.get();
+            }
+        });
+        mScenes.register(SCENE_TRIGGER, new SceneRegistry.Factory() {
+            @Override
+            public GLSurfaceView.Renderer create(RenderContext rc) {
+                return new DefaultTriggerRender(rc.getShaderLibrary());
+            }
+        });
+        mScenes.register(SCENE_MULTICOLOR_TRIGGER, new SceneRegistry.Factory() {
+            @Override
+            public GLSurfaceView.Renderer create(RenderContext rc) {
+                return new MulticolorTriggerRender(rc.getShaderLibrary());
+            }
+        });
+        mScenes.register(SCENE_ADJUST_TRIGGER, new SceneRegistry.Factory() {
+            @Override
+            public GLSurfaceView.Renderer create(RenderContext rc) {
+                return new AjustTriggerRender(rc.getShaderLibrary(), rc.getAnimator());
+            }
+        });
+        mScenes.register(SCENE_ELEMENT_TRIGGER, new SceneRegistry.Factory() {
+            @Override
+            public GLSurfaceView.Renderer create(RenderContext rc) {
+                return new ElementTriggerRender(rc.getShaderLibrary());
+            }
+        });
+        mScenes.register(SCENE_ELEMENT_SQUARE, new SceneRegistry.Factory() {
+            @Override
+            public GLSurfaceView.Renderer create(RenderContext rc) {
+                return new ElementSquareRender(rc.getShaderLibrary());
+            }
+        });
+        mScenes.register(SCENE_VBO_TRIGGER, new SceneRegistry.Factory() {
+            @Override
+            public GLSurfaceView.Renderer create(RenderContext rc) {
+                return new VBOTriggerRender(rc.getShaderLibrary(), rc.getResourceRegistry(), geometry());
+            }
+        });
+        mScenes.register(SCENE_IBO_TRIGGER, new SceneRegistry.Factory() {
+            @Override
+            public GLSurfaceView.Renderer create(RenderContext rc) {
+                return new IBOTriggerRender(rc.getShaderLibrary(), rc.getResourceRegistry(), geometry());
+            }
+        });
+        mScenes.register(SCENE_POLYGON, new SceneRegistry.Factory() {
+            @Override
+            public GLSurfaceView.Renderer create(RenderContext rc) {
+                // 三角化已经在预热时完成，这里命中缓存
+                return new PolygonRender(rc.getShaderLibrary(), rc.getResourceRegistry(),
+                        mTessellationCache, POLYGON_XY, POLYGON_HOLES, new float[]{0.2f, 0.6f, 1f, 1f});
+            }
+        });
+        mScenes.register(SCENE_STROKE, new SceneRegistry.Factory() {
+            @Override
+            public GLSurfaceView.Renderer create(RenderContext rc) {
+                return new StrokeRender(rc.getShaderLibrary(), rc.getResourceRegistry(), 8);
+            }
+        });
+        mScenes.register(SCENE_TEXT, new SceneRegistry.Factory() {
+            @Override
+            public GLSurfaceView.Renderer create(RenderContext rc) {
+                return new TextRender(rc.getShaderLibrary(), rc.getResourceRegistry(),
+                        new String[]{"OpenGL ES 2.0", "Hello, 你好"});
+            }
+        });
+        mScenes.register(SCENE_PARTICLE, new SceneRegistry.Factory() {
+            @Override
+            public GLSurfaceView.Renderer create(RenderContext rc) {
+                return new ParticleRender(rc.getShaderLibrary(), rc.getResourceRegistry(), rc, 20000, mFrameWorkers, mCpus);
+            }
+        });
+        mScenes.register(SCENE_OVERDRAW, new SceneRegistry.Factory() {
+            @Override
+            public GLSurfaceView.Renderer create(RenderContext rc) {
+                return new OverdrawRender(rc.getShaderLibrary());
+            }
+        });
+        mScenes.register(SCENE_YUV, new SceneRegistry.Factory() {
+            @Override
+            public GLSurfaceView.Renderer create(RenderContext rc) {
+                YuvFrameSource source = new YuvFrameSource();
+                final SyntheticYuvFeed feed = new SyntheticYuvFeed(
+                        new SyntheticYuvGenerator(YUV_WIDTH, YUV_HEIGHT, YuvColorSpace.BT601),
+                        source, mWorkers, mRequestRender);
+                return new YuvRender(rc.getShaderLibrary(), rc.getResourceRegistry(), source, YuvColorSpace.BT601) {
+                    @Override
+                    public void onDrawFrame(GL10 gl) {
+                        super.onDrawFrame(gl);
+                        // 没有相机时用合成的彩条，画完一帧再生成下一帧
+                        feed.requestFrame();
+                    }
+                };
+            }
+        });
+        mScenes.register(SCENE_LOD, new SceneRegistry.Factory() {
+            @Override
+            public GLSurfaceView.Renderer create(RenderContext rc) {
+                // 导入和简化在预热时完成
+                return new LodMeshRender(rc.getShaderLibrary(), rc.getResourceRegistry(), rc.getAnimator(),
+                        mLodStage.get(), new LodSelector(LOD_PIXELS, LOD_HYSTERESIS));
+            }
+        });
+    }
+
+    // 顶点和索引都从映射的资源包中读取，两个场景共用一份映射
+    private AssetPack geometry() {
+        if (mGeometry == null) {
+            try {
+                mGeometry = AssetPack.open(getContext().getAssets(), GEOMETRY_PACK);
+            } catch (IOException e) {
+                throw new IllegalStateException("cannot open " + GEOMETRY_PACK, e);
+            }
+        }
+        return mGeometry;
+    }
+
+    /**
+     * 可切换的场景名，按登记顺序
+     */
+    public List<String> getSceneNames() {
+        return mScenes.getNames();
+    }
+
+    /**
+     * 切换场景，可以在任意线程调用，共用同一个EGL上下文，下一帧生效
+     */
+    public void selectScene(String name) {
+        mRender.select(name);
+        requestRender();
+    }
+
+    /**
+     * 打开或关闭过度绘制诊断：画面替换为每像素着色次数的热力图，定期回读统计
+     *
+     * @param listener 统计回调，在工作线程上调用，可以为null
+     */
+    public void setOverdrawDiagnostics(final boolean enabled, final OverdrawMeter.Listener listener) {
+        queueEvent(new Runnable() {
+            @Override
+            public void run() {
+                OverdrawMeter meter = null;
+                if (enabled) {
+                    meter = new OverdrawMeter(mGL, mShaderLibrary, mWorkers, OVERDRAW_SAMPLE_INTERVAL);
+                    meter.setListener(listener);
+                }
+                mRender.setOverdrawMeter(meter);
+            }
+        });
+        requestRender();
+    }
+
+    /**
+     * 从下一帧开始抓取frames帧的GL调用流写到file，用TraceReplayer离线回放，可以在任意线程调用
+     *
+     * @param listener 写完文件后在工作线程回调，可以为null
+     * @return 上一次抓取还没有结束时返回false
+     */
+    public boolean captureFrames(File file, int frames, CapturingGLApi.Listener listener) {
+        if (!mCapture.requestCapture(file, frames, listener)) {
+            return false;
+        }
+        requestRender();
+        return true;
+    }
+
+    /**
+     * 转发Activity#onTrimMemory，后台或内存紧张时在GL线程释放可以恢复的显存
+     */
+    public void onTrimMemory(int level) {
+        if (level < ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            return;
+        }
+        queueEvent(new Runnable() {
+            @Override
+            public void run() {
+                // 切走的场景也留着资源，一起驱逐
+                GLSurfaceView.Renderer image = mRender.getScene(SCENE_IMAGE);
+                if (image instanceof ImageRender) {
+                    ((ImageRender) image).onTrimMemory();
+                } else {
+                    mResourceRegistry.evictAll();
+                }
+            }
+        });
+    }
+
+    /**
+     * 启动预热，第一帧画完后可以读取各阶段的时间线和首帧耗时
+     */
+    public WarmUp getWarmUp() {
+        return mWarmUp;
+    }
+
+    /**
+     * 显存记账，可用于观察各类别的实时占用
+     */
+    public GpuMemoryAccountant getGpuMemoryAccountant() {
+        return mResourceRegistry.getAccountant();
+    }
 }
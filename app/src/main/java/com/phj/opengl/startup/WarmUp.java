@@ -0,0 +1,344 @@
+package com.phj.opengl.startup;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+/**
+ * 描述：启动预热，把第一帧之前的工作建成一张小的依赖图
+ * 池阶段（解码、shader源码展开、三角化等只用CPU的工作）在{@link #start()}之后由线程池并发执行，
+ * 依赖全部完成时才提交，不占着线程等待；GL阶段只能在GL线程执行，由{@link #runGLStages()}按添加顺序执行，
+ * 依赖的池阶段还没完成时才等待。阶段只能依赖之前添加的阶段，所以图中不会有环。
+ * 阶段抛出异常后依赖它的阶段不再执行，{@link Stage#get()}抛出IllegalStateException，原因是最早失败的异常。
+ * 每个阶段记录开始、结束的时间和所在线程，第一帧画完后{@link #onFirstFrame()}打印时间线和首帧耗时，
+ * 时间都从{@link #start()}算起
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class WarmUp {
+
+    private final static String TAG = WarmUp.class.getSimpleName();
+
+    private final Executor mExecutor;
+    // 按添加顺序，也是拓扑顺序
+    private final ArrayList<Stage<?>> mStages = new ArrayList<>();
+    private final ArrayList<String> mMarkNames = new ArrayList<>();
+    private final ArrayList<Long> mMarkNs = new ArrayList<>();
+    private long mStartNs;
+    private boolean mStarted;
+    private boolean mGLStagesRun;
+    private long mFirstFrameNs = -1;
+
+    /**
+     * @param executor 执行池阶段的线程池；阶段内部也用线程池并行时不要传同一个，否则核数少时会互相等待
+     */
+    public WarmUp(Executor executor) {
+        this.mExecutor = executor;
+    }
+
+    /**
+     * 添加在线程池执行的阶段，需要在{@link #start()}之前调用
+     *
+     * @param dependencies 全部完成后才执行，task中可以直接get它们的结果
+     */
+    public <T> Stage<T> addPoolStage(String name, Callable<T> task, Stage<?>... dependencies) {
+        return add(name, false, task, dependencies);
+    }
+
+    /**
+     * 添加在GL线程执行的阶段，需要在{@link #start()}之前调用
+     */
+    public <T> Stage<T> addGLStage(String name, Callable<T> task, Stage<?>... dependencies) {
+        return add(name, true, task, dependencies);
+    }
+
+    private synchronized <T> Stage<T> add(String name, boolean gl, Callable<T> task, Stage<?>... dependencies) {
+        if (mStarted) {
+            throw new IllegalStateException("warm-up already started");
+        }
+        for (Stage<?> dependency : dependencies) {
+            if (dependency.mOwner != this) {
+                throw new IllegalArgumentException(name + " depends on a stage of another warm-up: " + dependency.mName);
+            }
+        }
+        Stage<T> stage = new Stage<>(this, name, gl, task, dependencies.clone());
+        mStages.add(stage);
+        return stage;
+    }
+
+    /**
+     * 开始计时并提交没有依赖的池阶段，只能调用一次
+     */
+    public void start() {
+        ArrayList<Stage<?>> ready;
+        synchronized (this) {
+            if (mStarted) {
+                throw new IllegalStateException("warm-up already started");
+            }
+            mStarted = true;
+            mStartNs = System.nanoTime();
+            ready = schedule();
+        }
+        submit(ready);
+    }
+
+    /**
+     * 在GL线程按添加顺序执行GL阶段，只有第一次调用会执行，之后的调用直接返回
+     * 上下文重建后GL阶段的结果（例如program id）已经失效，使用方应当自己重新创建
+     */
+    public void runGLStages() {
+        synchronized (this) {
+            if (!mStarted) {
+                throw new IllegalStateException("warm-up not started");
+            }
+            if (mGLStagesRun) {
+                return;
+            }
+            mGLStagesRun = true;
+        }
+        for (int i = 0; i < mStages.size(); i++) {
+            Stage<?> stage = mStages.get(i);
+            if (stage.mGL) {
+                long waitStart = System.nanoTime();
+                Stage<?> failed = awaitDependencies(stage);
+                synchronized (this) {
+                    stage.mWaitNs = System.nanoTime() - waitStart;
+                }
+                if (failed != null) {
+                    finish(stage, null, failed.mError, System.nanoTime());
+                } else {
+                    stage.run();
+                }
+            }
+        }
+    }
+
+    /**
+     * 记录一个时间点，例如surface创建，可以在任意线程调用
+     */
+    public synchronized void mark(String name) {
+        mMarkNames.add(name);
+        mMarkNs.add(System.nanoTime() - mStartNs);
+    }
+
+    /**
+     * 第一帧画完后在GL线程调用，记录首帧耗时并打印时间线，只有第一次调用生效
+     */
+    public void onFirstFrame() {
+        String timeline;
+        synchronized (this) {
+            if (mFirstFrameNs >= 0) {
+                return;
+            }
+            mFirstFrameNs = System.nanoTime() - mStartNs;
+            timeline = getTimeline();
+        }
+        for (String line : timeline.split("\n")) {
+            Log.i(TAG, line);
+        }
+    }
+
+    /**
+     * 从start到第一帧画完的时间，还没画完时为-1
+     */
+    public synchronized long getFirstFrameNs() {
+        return mFirstFrameNs;
+    }
+
+    /**
+     * 每个阶段的开始、结束时间（毫秒，从start算起）、耗时、线程，GL阶段还有等待依赖的时间，未执行的阶段显示为-
+     */
+    public synchronized String getTimeline() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("warm-up: %d stages, first frame %s\n", mStages.size(), millis(mFirstFrameNs)));
+        sb.append(String.format("%-16s %-4s %9s %9s %9s %9s  %s\n", "stage", "on", "start", "end", "took", "waited", "thread"));
+        for (int i = 0; i < mStages.size(); i++) {
+            Stage<?> stage = mStages.get(i);
+            boolean ran = stage.mStartNs >= 0;
+            sb.append(String.format("%-16s %-4s %9s %9s %9s %9s  %s%s\n", stage.mName, stage.mGL ? "gl" : "pool",
+                    ran ? millis(stage.mStartNs) : "-", stage.mDone ? millis(stage.mEndNs) : "-",
+                    ran && stage.mDone ? millis(stage.mEndNs - stage.mStartNs) : "-",
+                    stage.mGL && ran ? millis(stage.mWaitNs) : "-",
+                    stage.mThread != null ? stage.mThread : "-",
+                    stage.mError != null ? "  failed: " + stage.mError : ""));
+        }
+        for (int i = 0; i < mMarkNames.size(); i++) {
+            sb.append(String.format("%-16s %-4s %9s\n", mMarkNames.get(i), "mark", millis(mMarkNs.get(i))));
+        }
+        return sb.toString();
+    }
+
+    private static String millis(long ns) {
+        return ns < 0 ? "-" : String.format("%.1fms", ns / 1000000.0);
+    }
+
+    // 依赖都完成的池阶段标记为已提交，依赖失败的直接标记失败；按拓扑顺序一遍就能传递下去
+    private ArrayList<Stage<?>> schedule() {
+        ArrayList<Stage<?>> ready = new ArrayList<>();
+        for (int i = 0; i < mStages.size(); i++) {
+            Stage<?> stage = mStages.get(i);
+            if (stage.mGL || stage.mScheduled) {
+                continue;
+            }
+            boolean done = true;
+            Stage<?> failed = null;
+            for (Stage<?> dependency : stage.mDependencies) {
+                done &= dependency.mDone;
+                if (dependency.mDone && dependency.mError != null && failed == null) {
+                    failed = dependency;
+                }
+            }
+            if (failed != null) {
+                stage.mScheduled = true;
+                stage.mDone = true;
+                stage.mEndNs = System.nanoTime() - mStartNs;
+                stage.mError = failed.mError;
+            } else if (done) {
+                stage.mScheduled = true;
+                ready.add(stage);
+            }
+        }
+        return ready;
+    }
+
+    private void submit(ArrayList<Stage<?>> ready) {
+        for (int i = 0; i < ready.size(); i++) {
+            final Stage<?> stage = ready.get(i);
+            mExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    stage.run();
+                }
+            });
+        }
+    }
+
+    private void finish(Stage<?> stage, Object result, Throwable error, long endNs) {
+        ArrayList<Stage<?>> ready;
+        synchronized (this) {
+            stage.mResult = result;
+            stage.mError = error;
+            stage.mEndNs = endNs - mStartNs;
+            stage.mDone = true;
+            ready = schedule();
+            notifyAll();
+        }
+        if (error != null) {
+            Log.e(TAG, "stage " + stage.mName + " failed", error);
+        }
+        submit(ready);
+    }
+
+    // 返回第一个失败的依赖，全部成功时返回null
+    private synchronized Stage<?> awaitDependencies(Stage<?> stage) {
+        for (Stage<?> dependency : stage.mDependencies) {
+            waitDone(dependency);
+            if (dependency.mError != null) {
+                return dependency;
+            }
+        }
+        return null;
+    }
+
+    private synchronized void waitDone(Stage<?> stage) {
+        if (!mStarted) {
+            throw new IllegalStateException("warm-up not started");
+        }
+        if (stage.mGL && !mGLStagesRun && !stage.mDone) {
+            throw new IllegalStateException("gl stage " + stage.mName + " has not run yet");
+        }
+        try {
+            while (!stage.mDone) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("warm-up interrupted", e);
+        }
+    }
+
+    /**
+     * 图中的一个阶段
+     */
+    public static final class Stage<T> {
+
+        private final WarmUp mOwner;
+        private final String mName;
+        private final boolean mGL;
+        private final Callable<T> mTask;
+        private final Stage<?>[] mDependencies;
+        // 以下由mOwner的锁保护
+        private boolean mScheduled;
+        private boolean mDone;
+        private Object mResult;
+        private Throwable mError;
+        private long mStartNs = -1;
+        private long mEndNs = -1;
+        private long mWaitNs;
+        private String mThread;
+
+        private Stage(WarmUp owner, String name, boolean gl, Callable<T> task, Stage<?>[] dependencies) {
+            this.mOwner = owner;
+            this.mName = name;
+            this.mGL = gl;
+            this.mTask = task;
+            this.mDependencies = dependencies;
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        public boolean isGL() {
+            return mGL;
+        }
+
+        public boolean isDone() {
+            synchronized (mOwner) {
+                return mDone;
+            }
+        }
+
+        /**
+         * 等待阶段完成并返回结果；GL阶段需要在{@link #runGLStages()}之后调用
+         *
+         * @throws IllegalStateException 阶段或它的依赖失败
+         */
+        @SuppressWarnings("unchecked")
+        public T get() {
+            synchronized (mOwner) {
+                mOwner.waitDone(this);
+                if (mError != null) {
+                    throw new IllegalStateException("warm-up stage " + mName + " failed", mError);
+                }
+                return (T) mResult;
+            }
+        }
+
+        /**
+         * 开始到结束的时间，还没完成时为-1
+         */
+        public long getDurationNs() {
+            synchronized (mOwner) {
+                return mDone && mStartNs >= 0 ? mEndNs - mStartNs : -1;
+            }
+        }
+
+        private void run() {
+            synchronized (mOwner) {
+                mStartNs = System.nanoTime() - mOwner.mStartNs;
+                mThread = Thread.currentThread().getName();
+            }
+            T result = null;
+            Throwable error = null;
+            try {
+                result = mTask.call();
+            } catch (Throwable e) {
+                error = e;
+            }
+            mOwner.finish(this, result, error, System.nanoTime());
+        }
+    }
+}
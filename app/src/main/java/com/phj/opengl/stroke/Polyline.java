@@ -0,0 +1,228 @@
+package com.phj.opengl.stroke;
+
+/**
+ * 描述：一条折线，几何直接追加到所属{@link StrokeBatch}的共享缓冲里
+ * 每追加一个点只生成新的一段（连接处 + 线段四边形 + 端帽），之前的几何不重算。
+ * 末端端帽在下一次追加时撤回：仍在缓冲末尾时直接截断，否则改成退化三角形。
+ * 连接处和线段四边形互相重叠，同一条折线上半透明的颜色在连接处会叠加。
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class Polyline {
+
+    // 圆角和圆帽的弦高误差，像素
+    private static final float ROUND_TOLERANCE = 0.25f;
+    private static final float MIN_SEGMENT_LENGTH = 1e-4f;
+    private static final float MIN_FEATHER = 1e-3f;
+
+    private final StrokeBatch mBatch;
+    private final StrokeStyle mStyle;
+    private final int mGeneration;
+    private final float mHalfWidth;
+    // 几何的外边界 = 半宽 + 半个羽化宽度
+    private final float mRadius;
+    private final float mFeather;
+    private final float mRoundStep;
+
+    private int mPointCount;
+    private float mLastX;
+    private float mLastY;
+    private float mDirX;
+    private float mDirY;
+
+    // 末端端帽
+    private StrokeBatch.Page mTailPage;
+    private int mTailVertexStart;
+    private int mTailVertexEnd;
+    private int mTailIndexStart;
+    private int mTailIndexEnd;
+
+    Polyline(StrokeBatch batch, StrokeStyle style, int generation) {
+        this.mBatch = batch;
+        this.mStyle = style;
+        this.mGeneration = generation;
+        this.mHalfWidth = style.width / 2f;
+        this.mFeather = Math.max(style.feather, MIN_FEATHER);
+        this.mRadius = mHalfWidth + style.feather / 2f;
+        float tolerance = Math.min(ROUND_TOLERANCE / Math.max(mRadius, MIN_FEATHER), 1f);
+        this.mRoundStep = (float) Math.min(Math.PI / 2, 2 * Math.acos(1 - tolerance));
+    }
+
+    public StrokeStyle getStyle() {
+        return new StrokeStyle(mStyle);
+    }
+
+    public int getPointCount() {
+        return mPointCount;
+    }
+
+    /**
+     * 和上一个点重合的点忽略
+     */
+    public void append(float x, float y) {
+        if (mGeneration != mBatch.getGeneration()) {
+            throw new IllegalStateException("batch cleared");
+        }
+        if (mPointCount == 0) {
+            mLastX = x;
+            mLastY = y;
+            mPointCount = 1;
+            return;
+        }
+        float dx = x - mLastX;
+        float dy = y - mLastY;
+        float length = (float) Math.sqrt(dx * dx + dy * dy);
+        if (length < MIN_SEGMENT_LENGTH) {
+            return;
+        }
+        dx /= length;
+        dy /= length;
+        retractTail();
+        if (mPointCount == 1) {
+            cap(mLastX, mLastY, -dx, -dy);
+            mTailPage = null;
+        } else {
+            join(mLastX, mLastY, mDirX, mDirY, dx, dy);
+        }
+        segment(mLastX, mLastY, x, y, dx, dy);
+        mTailPage = cap(x, y, dx, dy);
+        mLastX = x;
+        mLastY = y;
+        mDirX = dx;
+        mDirY = dy;
+        mPointCount++;
+    }
+
+    /**
+     * @param xy    交错的x, y
+     * @param count 点数
+     */
+    public void append(float[] xy, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            append(xy[offset + i * 2], xy[offset + i * 2 + 1]);
+        }
+    }
+
+    private void retractTail() {
+        if (mTailPage != null) {
+            mBatch.retract(mTailPage, mTailVertexStart, mTailVertexEnd, mTailIndexStart, mTailIndexEnd);
+            mTailPage = null;
+        }
+    }
+
+    // 线段A->B的四边形，法线方向到中心线的距离从-R到R
+    private void segment(float ax, float ay, float bx, float by, float ux, float uy) {
+        float nx = -uy * mRadius;
+        float ny = ux * mRadius;
+        StrokeBatch.Page page = mBatch.reserve(4, 6);
+        int a0 = vertex(page, ax + nx, ay + ny, mRadius);
+        int a1 = vertex(page, ax - nx, ay - ny, -mRadius);
+        int b0 = vertex(page, bx + nx, by + ny, mRadius);
+        int b1 = vertex(page, bx - nx, by - ny, -mRadius);
+        page.triangle(a0, a1, b0);
+        page.triangle(b0, a1, b1);
+    }
+
+    // 上一段方向a，下一段方向b，只补外侧的缺口
+    private void join(float px, float py, float ax, float ay, float bx, float by) {
+        float cross = ax * by - ay * bx;
+        float dot = ax * bx + ay * by;
+        if (Math.abs(cross) < 1e-6f && dot > 0) {
+            return;
+        }
+        float s = cross > 0 ? -1f : 1f;
+        float o1x = -ay * s;
+        float o1y = ax * s;
+        float o2x = -by * s;
+        float o2y = bx * s;
+        int join = mStyle.join;
+        if (join == StrokeStyle.JOIN_ROUND) {
+            float angle = (float) Math.atan2(o1x * o2y - o1y * o2x, o1x * o2x + o1y * o2y);
+            fan(px, py, o1x, o1y, angle);
+            return;
+        }
+        if (join == StrokeStyle.JOIN_MITER) {
+            float mx = o1x + o2x;
+            float my = o1y + o2y;
+            float ml = (float) Math.sqrt(mx * mx + my * my);
+            if (ml > 1e-6f) {
+                mx /= ml;
+                my /= ml;
+                float cosHalf = mx * o1x + my * o1y;
+                if (cosHalf > 0 && 1f / cosHalf <= mStyle.miterLimit) {
+                    float tip = mRadius / cosHalf;
+                    StrokeBatch.Page page = mBatch.reserve(4, 6);
+                    int c = vertex(page, px, py, 0);
+                    int v1 = vertex(page, px + o1x * mRadius, py + o1y * mRadius, mRadius);
+                    int t = vertex(page, px + mx * tip, py + my * tip, mRadius);
+                    int v2 = vertex(page, px + o2x * mRadius, py + o2y * mRadius, mRadius);
+                    page.triangle(c, v1, t);
+                    page.triangle(c, t, v2);
+                    return;
+                }
+            }
+        }
+        StrokeBatch.Page page = mBatch.reserve(3, 3);
+        int c = vertex(page, px, py, 0);
+        int v1 = vertex(page, px + o1x * mRadius, py + o1y * mRadius, mRadius);
+        int v2 = vertex(page, px + o2x * mRadius, py + o2y * mRadius, mRadius);
+        page.triangle(c, v1, v2);
+    }
+
+    /**
+     * 端点P处沿外向方向o的端帽，返回所在的页，平头端帽返回null
+     */
+    private StrokeBatch.Page cap(float px, float py, float ox, float oy) {
+        int cap = mStyle.cap;
+        if (cap == StrokeStyle.CAP_ROUND) {
+            // 从左法线经过o转到右法线
+            return fan(px, py, -oy, ox, (float) -Math.PI);
+        }
+        if (cap == StrokeStyle.CAP_SQUARE) {
+            float nx = -oy * mRadius;
+            float ny = ox * mRadius;
+            float ex = ox * mHalfWidth;
+            float ey = oy * mHalfWidth;
+            StrokeBatch.Page page = mBatch.reserve(4, 6);
+            mTailVertexStart = page.vertexCount;
+            mTailIndexStart = page.indexCount;
+            int a0 = vertex(page, px + nx, py + ny, mRadius);
+            int a1 = vertex(page, px - nx, py - ny, -mRadius);
+            int b0 = vertex(page, px + nx + ex, py + ny + ey, mRadius);
+            int b1 = vertex(page, px - nx + ex, py - ny + ey, -mRadius);
+            page.triangle(a0, a1, b0);
+            page.triangle(b0, a1, b1);
+            mTailVertexEnd = page.vertexCount;
+            mTailIndexEnd = page.indexCount;
+            return page;
+        }
+        return null;
+    }
+
+    // 以P为圆心，从单位向量r0转过angle的扇形
+    private StrokeBatch.Page fan(float px, float py, float r0x, float r0y, float angle) {
+        int steps = Math.max(1, (int) Math.ceil(Math.abs(angle) / mRoundStep));
+        StrokeBatch.Page page = mBatch.reserve(steps + 2, steps * 3);
+        mTailVertexStart = page.vertexCount;
+        mTailIndexStart = page.indexCount;
+        int center = vertex(page, px, py, 0);
+        int previous = vertex(page, px + r0x * mRadius, py + r0y * mRadius, mRadius);
+        for (int i = 1; i <= steps; i++) {
+            double a = angle * i / steps;
+            float cos = (float) Math.cos(a);
+            float sin = (float) Math.sin(a);
+            float rx = r0x * cos - r0y * sin;
+            float ry = r0x * sin + r0y * cos;
+            int current = vertex(page, px + rx * mRadius, py + ry * mRadius, mRadius);
+            page.triangle(center, previous, current);
+            previous = current;
+        }
+        mTailVertexEnd = page.vertexCount;
+        mTailIndexEnd = page.indexCount;
+        return page;
+    }
+
+    private int vertex(StrokeBatch.Page page, float x, float y, float distance) {
+        return page.vertex(x, y, distance / mFeather, mRadius / mFeather, mStyle.color);
+    }
+}
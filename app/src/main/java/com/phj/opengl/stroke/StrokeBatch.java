@@ -0,0 +1,280 @@
+package com.phj.opengl.stroke;
+
+import android.opengl.GLES20;
+
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.gl.GLBuffer;
+import com.phj.opengl.gl.GLResourceScope;
+import com.phj.opengl.shader.ShaderFeatures;
+import com.phj.opengl.shader.UniformState;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+
+/**
+ * 描述：所有折线共享的流式顶点缓冲，成千上万条折线只需要少量draw call
+ * 顶点按页存放，每页不超过65536个顶点以使用16位索引，每页一次glDrawElements。
+ * 折线的几何只追加到最后一页的末尾，绘制时只把改动过的范围用glBufferSubData上传，
+ * 页的容量增长时才重新glBufferData。
+ * 顶点格式：位置xy(float) + 描边距离(float×2，见basic.vert的aStroke) + 颜色(ubyte×4)，共20字节。
+ * 只在GL线程使用。
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class StrokeBatch {
+
+    /**
+     * 绘制使用的shader特性，坐标以像素为单位，由vMatrix变换到裁剪空间
+     */
+    public static final int SHADER_FEATURES = ShaderFeatures.COLOR | ShaderFeatures.MVP | ShaderFeatures.STROKE;
+
+    static final int STRIDE = 20;
+    static final int MAX_PAGE_VERTICES = 0x10000;
+    private static final int INITIAL_PAGE_VERTICES = 1024;
+
+    private final GLResourceScope mScope;
+    private final ArrayList<Page> mPages = new ArrayList<>();
+    private int mUsedPages;
+    private int mGeneration;
+    private UniformState mUniforms;
+    private int mPositionHandle;
+    private int mStrokeHandle;
+    private int mColorHandle;
+
+    public StrokeBatch(GLResourceScope scope) {
+        this.mScope = scope;
+    }
+
+    public Polyline newPolyline(StrokeStyle style) {
+        return new Polyline(this, new StrokeStyle(style), mGeneration);
+    }
+
+    /**
+     * 清空全部几何，保留已分配的内存和GPU缓冲；之前的折线不能再追加
+     */
+    public void clear() {
+        for (int i = 0; i < mUsedPages; i++) {
+            Page page = mPages.get(i);
+            page.vertexCount = 0;
+            page.indexCount = 0;
+        }
+        mUsedPages = 0;
+        mGeneration++;
+    }
+
+    public int getVertexCount() {
+        int count = 0;
+        for (int i = 0; i < mUsedPages; i++) {
+            count += mPages.get(i).vertexCount;
+        }
+        return count;
+    }
+
+    public int getIndexCount() {
+        int count = 0;
+        for (int i = 0; i < mUsedPages; i++) {
+            count += mPages.get(i).indexCount;
+        }
+        return count;
+    }
+
+    /**
+     * 每页一次draw call
+     */
+    public int getPageCount() {
+        return mUsedPages;
+    }
+
+    /**
+     * 设置绘制用的program，attribute位置在这里查一次，program变化时（例如上下文重建后）重新调用
+     *
+     * @param uniforms 以{@link #SHADER_FEATURES}创建的basic变体的uniform状态，来自ShaderLibrary#getUniforms
+     */
+    public void setProgram(GLApi gl, UniformState uniforms) {
+        int program = uniforms.getProgram();
+        mUniforms = uniforms;
+        mPositionHandle = gl.glGetAttribLocation(program, "vPosition");
+        mStrokeHandle = gl.glGetAttribLocation(program, "aStroke");
+        mColorHandle = gl.glGetAttribLocation(program, "aColor");
+    }
+
+    /**
+     * 上传改动并绘制，GL线程调用，之前需要{@link #setProgram}
+     *
+     * @param matrix 像素坐标到裁剪空间的变换，没有变化时不重新上传
+     */
+    public void draw(GLApi gl, float[] matrix) {
+        int position = mPositionHandle;
+        int stroke = mStrokeHandle;
+        int color = mColorHandle;
+        gl.glUseProgram(mUniforms.getProgram());
+        mUniforms.setMatrix4fv("vMatrix", 1, matrix, 0);
+        mUniforms.apply();
+        gl.glEnableVertexAttribArray(position);
+        gl.glEnableVertexAttribArray(stroke);
+        gl.glEnableVertexAttribArray(color);
+        gl.glEnable(GLES20.GL_BLEND);
+        gl.glBlendFunc(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE_MINUS_SRC_ALPHA);
+        for (int i = 0; i < mUsedPages; i++) {
+            Page page = mPages.get(i);
+            if (page.indexCount == 0) {
+                continue;
+            }
+            upload(gl, page);
+            gl.glBindBuffer(GLES20.GL_ARRAY_BUFFER, page.vbo.use());
+            gl.glVertexAttribPointer(position, 2, GLES20.GL_FLOAT, false, STRIDE, 0);
+            gl.glVertexAttribPointer(stroke, 2, GLES20.GL_FLOAT, false, STRIDE, 8);
+            gl.glVertexAttribPointer(color, 4, GLES20.GL_UNSIGNED_BYTE, true, STRIDE, 16);
+            gl.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, page.ibo.use());
+            gl.glDrawElements(GLES20.GL_TRIANGLES, page.indexCount, GLES20.GL_UNSIGNED_SHORT, 0);
+        }
+        gl.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+        gl.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, 0);
+        gl.glDisable(GLES20.GL_BLEND);
+        gl.glDisableVertexAttribArray(position);
+        gl.glDisableVertexAttribArray(stroke);
+        gl.glDisableVertexAttribArray(color);
+    }
+
+    private void upload(GLApi gl, Page page) {
+        if (page.vbo == null) {
+            page.vbo = mScope.createBuffer(GLES20.GL_ARRAY_BUFFER, page.vertices,
+                    page.vertices.capacity(), GLES20.GL_DYNAMIC_DRAW);
+            page.ibo = mScope.createBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, page.indices,
+                    page.indices.capacity(), GLES20.GL_DYNAMIC_DRAW);
+        } else {
+            if (page.vbo.getSize() != page.vertices.capacity()) {
+                page.vbo.setData(gl, page.vertices, page.vertices.capacity());
+            } else if (page.vertexDirtyFrom < Math.min(page.vertexDirtyTo, page.vertexCount)) {
+                int to = Math.min(page.vertexDirtyTo, page.vertexCount);
+                page.vbo.setSubData(gl, page.vertices, page.vertexDirtyFrom * STRIDE,
+                        (to - page.vertexDirtyFrom) * STRIDE);
+            }
+            if (page.ibo.getSize() != page.indices.capacity()) {
+                page.ibo.setData(gl, page.indices, page.indices.capacity());
+            } else if (page.indexDirtyFrom < Math.min(page.indexDirtyTo, page.indexCount)) {
+                int to = Math.min(page.indexDirtyTo, page.indexCount);
+                page.ibo.setSubData(gl, page.indices, page.indexDirtyFrom * 2, (to - page.indexDirtyFrom) * 2);
+            }
+        }
+        page.vertexDirtyFrom = Integer.MAX_VALUE;
+        page.vertexDirtyTo = 0;
+        page.indexDirtyFrom = Integer.MAX_VALUE;
+        page.indexDirtyTo = 0;
+    }
+
+    int getGeneration() {
+        return mGeneration;
+    }
+
+    /**
+     * 保证最后一页还能放下一组几何，放不下时开始新的一页；同一组内的索引只引用本组的顶点
+     */
+    Page reserve(int vertices, int indices) {
+        Page page = mUsedPages > 0 ? mPages.get(mUsedPages - 1) : null;
+        if (page == null || page.vertexCount + vertices > MAX_PAGE_VERTICES) {
+            if (mUsedPages < mPages.size()) {
+                page = mPages.get(mUsedPages);
+            } else {
+                page = new Page();
+                mPages.add(page);
+            }
+            mUsedPages++;
+        }
+        page.ensureCapacity(vertices, indices);
+        return page;
+    }
+
+    /**
+     * 撤回一组几何：在最后一页末尾时直接截断，否则把它的索引改成退化三角形
+     */
+    void retract(Page page, int vertexStart, int vertexEnd, int indexStart, int indexEnd) {
+        if (page == mPages.get(mUsedPages - 1) && page.vertexCount == vertexEnd && page.indexCount == indexEnd) {
+            page.vertexCount = vertexStart;
+            page.indexCount = indexStart;
+            return;
+        }
+        short first = page.indices.getShort(indexStart * 2);
+        for (int i = indexStart + 1; i < indexEnd; i++) {
+            page.indices.putShort(i * 2, first);
+        }
+        page.markIndicesDirty(indexStart, indexEnd);
+    }
+
+    Page getPage(int index) {
+        return mPages.get(index);
+    }
+
+    static final class Page {
+        ByteBuffer vertices = allocate(INITIAL_PAGE_VERTICES * STRIDE);
+        ByteBuffer indices = allocate(INITIAL_PAGE_VERTICES * 3 * 2);
+        int vertexCount;
+        int indexCount;
+        int vertexDirtyFrom = Integer.MAX_VALUE;
+        int vertexDirtyTo;
+        int indexDirtyFrom = Integer.MAX_VALUE;
+        int indexDirtyTo;
+        GLBuffer vbo;
+        GLBuffer ibo;
+
+        int vertex(float x, float y, float distance, float limit, int argb) {
+            int index = vertexCount++;
+            int offset = index * STRIDE;
+            vertices.putFloat(offset, x);
+            vertices.putFloat(offset + 4, y);
+            vertices.putFloat(offset + 8, distance);
+            vertices.putFloat(offset + 12, limit);
+            // 内存中按RGBA排列，与字节序无关
+            vertices.put(offset + 16, (byte) (argb >> 16));
+            vertices.put(offset + 17, (byte) (argb >> 8));
+            vertices.put(offset + 18, (byte) argb);
+            vertices.put(offset + 19, (byte) (argb >>> 24));
+            vertexDirtyFrom = Math.min(vertexDirtyFrom, index);
+            vertexDirtyTo = Math.max(vertexDirtyTo, index + 1);
+            return index;
+        }
+
+        void triangle(int a, int b, int c) {
+            int offset = indexCount * 2;
+            indices.putShort(offset, (short) a);
+            indices.putShort(offset + 2, (short) b);
+            indices.putShort(offset + 4, (short) c);
+            markIndicesDirty(indexCount, indexCount + 3);
+            indexCount += 3;
+        }
+
+        void markIndicesDirty(int from, int to) {
+            indexDirtyFrom = Math.min(indexDirtyFrom, from);
+            indexDirtyTo = Math.max(indexDirtyTo, to);
+        }
+
+        void ensureCapacity(int moreVertices, int moreIndices) {
+            int neededVertices = (vertexCount + moreVertices) * STRIDE;
+            if (neededVertices > vertices.capacity()) {
+                vertices = grow(vertices, vertexCount * STRIDE, neededVertices);
+            }
+            int neededIndices = (indexCount + moreIndices) * 2;
+            if (neededIndices > indices.capacity()) {
+                indices = grow(indices, indexCount * 2, neededIndices);
+            }
+        }
+
+        private static ByteBuffer grow(ByteBuffer old, int used, int needed) {
+            int capacity = old.capacity();
+            while (capacity < needed) {
+                capacity *= 2;
+            }
+            ByteBuffer buffer = allocate(capacity);
+            ByteBuffer src = old.duplicate();
+            src.position(0).limit(used);
+            buffer.put(src);
+            buffer.clear();
+            return buffer;
+        }
+
+        private static ByteBuffer allocate(int bytes) {
+            return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+        }
+    }
+}
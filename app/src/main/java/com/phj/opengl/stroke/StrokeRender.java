@@ -0,0 +1,122 @@
+package com.phj.opengl.stroke;
+
+import android.opengl.GLES20;
+import android.opengl.GLSurfaceView;
+import android.util.Log;
+
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.gl.GLResourceRegistry;
+import com.phj.opengl.gl.GLResourceScope;
+import com.phj.opengl.gl.MatrixHelper;
+import com.phj.opengl.scene.ContinuousScene;
+import com.phj.opengl.shader.ShaderLibrary;
+
+import javax.microedition.khronos.egl.EGLConfig;
+import javax.microedition.khronos.opengles.GL10;
+
+/**
+ * 描述：实时曲线示例，每帧给每条曲线追加一个点，画满屏幕宽度后清空重来
+ * 所有曲线共用一个{@link StrokeBatch}，坐标以像素为单位
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class StrokeRender implements GLSurfaceView.Renderer, ContinuousScene {
+
+    private final static String TAG = StrokeRender.class.getSimpleName();
+
+    private static final float STEP = 2f;
+
+    private final GLApi mGL;
+    private final ShaderLibrary mShaderLibrary;
+    private final GLResourceRegistry mResourceRegistry;
+    private final GLResourceScope mResourceScope;
+    private final StrokeBatch mBatch;
+    private final StrokeStyle[] mStyles;
+    private final Polyline[] mLines;
+    private final float[] mMatrix = new float[16];
+    private int mProgram;
+    private int mWidth;
+    private int mHeight;
+    private float mX;
+
+    /**
+     * @param lineCount 曲线条数
+     */
+    public StrokeRender(ShaderLibrary shaderLibrary, GLResourceRegistry resourceRegistry, int lineCount) {
+        this.mShaderLibrary = shaderLibrary;
+        this.mGL = shaderLibrary.getGL();
+        this.mResourceRegistry = resourceRegistry;
+        this.mResourceScope = resourceRegistry.openScope(TAG);
+        this.mBatch = new StrokeBatch(mResourceScope);
+        this.mStyles = new StrokeStyle[lineCount];
+        this.mLines = new Polyline[lineCount];
+        int[] joins = {StrokeStyle.JOIN_MITER, StrokeStyle.JOIN_ROUND, StrokeStyle.JOIN_BEVEL};
+        int[] caps = {StrokeStyle.CAP_BUTT, StrokeStyle.CAP_ROUND, StrokeStyle.CAP_SQUARE};
+        int[] colors = {0xFF4FC3F7, 0xFFFFB74D, 0xFF81C784, 0xFFE57373, 0xFFBA68C8};
+        for (int i = 0; i < lineCount; i++) {
+            mStyles[i] = new StrokeStyle()
+                    .setWidth(1 + i % 6)
+                    .setColor(colors[i % colors.length])
+                    .setJoin(joins[i % joins.length])
+                    .setCap(caps[i / joins.length % caps.length]);
+        }
+    }
+
+    @Override
+    public void onSurfaceCreated(GL10 gl, EGLConfig config) {
+        mProgram = mShaderLibrary.getProgram("basic", StrokeBatch.SHADER_FEATURES);
+        mBatch.setProgram(mGL, mShaderLibrary.getUniforms(mProgram));
+        Log.e(TAG, "onSurfaceCreated: mProgram=" + mProgram);
+    }
+
+    /**
+     * 删除共享缓冲，渲染器不再使用时在GL线程调用
+     */
+    public void release() {
+        mResourceScope.close();
+    }
+
+    @Override
+    public void onSurfaceChanged(GL10 gl, int width, int height) {
+        mGL.glViewport(0, 0, width, height);
+        mWidth = width;
+        mHeight = height;
+        MatrixHelper.orthoM(mMatrix, 0, 0, width, 0, height, -1, 1);
+        restart();
+    }
+
+    @Override
+    public void onDrawFrame(GL10 gl) {
+        mGL.glClearColor(0, 0, 0, 1);
+        mGL.glClear(GLES20.GL_COLOR_BUFFER_BIT);
+        mGL.glDisable(GLES20.GL_DEPTH_TEST);
+
+        if (mX > mWidth) {
+            restart();
+        }
+        float band = (float) mHeight / (mLines.length + 1);
+        for (int i = 0; i < mLines.length; i++) {
+            double phase = mX * (0.01 + i * 0.002) + i;
+            float y = band * (i + 1) + (float) (Math.sin(phase) + 0.3 * Math.sin(phase * 3.7)) * band;
+            mLines[i].append(mX, y);
+        }
+        mX += STEP;
+
+        mBatch.draw(mGL, mMatrix);
+        mResourceRegistry.onFrameEnd();
+    }
+
+    // 每帧都追加新的点
+    @Override
+    public boolean isContinuous() {
+        return true;
+    }
+
+    private void restart() {
+        mBatch.clear();
+        for (int i = 0; i < mLines.length; i++) {
+            mLines[i] = mBatch.newPolyline(mStyles[i]);
+        }
+        mX = 0;
+    }
+}
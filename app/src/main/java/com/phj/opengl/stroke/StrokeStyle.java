@@ -0,0 +1,100 @@
+package com.phj.opengl.stroke;
+
+/**
+ * 描述：描边样式，宽度和羽化宽度以像素为单位
+ * 创建折线时拷贝一份，之后修改不影响已有的折线
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class StrokeStyle {
+
+    public static final int JOIN_MITER = 0;
+    public static final int JOIN_ROUND = 1;
+    public static final int JOIN_BEVEL = 2;
+
+    public static final int CAP_BUTT = 0;
+    public static final int CAP_ROUND = 1;
+    public static final int CAP_SQUARE = 2;
+
+    float width = 1f;
+    float feather = 1f;
+    int color = 0xFFFFFFFF;
+    int join = JOIN_MITER;
+    int cap = CAP_BUTT;
+    float miterLimit = 4f;
+
+    public StrokeStyle() {
+    }
+
+    public StrokeStyle(StrokeStyle other) {
+        this.width = other.width;
+        this.feather = other.feather;
+        this.color = other.color;
+        this.join = other.join;
+        this.cap = other.cap;
+        this.miterLimit = other.miterLimit;
+    }
+
+    public StrokeStyle setWidth(float width) {
+        this.width = width;
+        return this;
+    }
+
+    /**
+     * 边缘抗锯齿的过渡宽度，0表示不羽化
+     */
+    public StrokeStyle setFeather(float feather) {
+        this.feather = feather;
+        return this;
+    }
+
+    /**
+     * @param color ARGB
+     */
+    public StrokeStyle setColor(int color) {
+        this.color = color;
+        return this;
+    }
+
+    public StrokeStyle setJoin(int join) {
+        this.join = join;
+        return this;
+    }
+
+    public StrokeStyle setCap(int cap) {
+        this.cap = cap;
+        return this;
+    }
+
+    /**
+     * 尖角长度与半宽之比超过这个值时退化为斜角
+     */
+    public StrokeStyle setMiterLimit(float miterLimit) {
+        this.miterLimit = miterLimit;
+        return this;
+    }
+
+    public float getWidth() {
+        return width;
+    }
+
+    public float getFeather() {
+        return feather;
+    }
+
+    public int getColor() {
+        return color;
+    }
+
+    public int getJoin() {
+        return join;
+    }
+
+    public int getCap() {
+        return cap;
+    }
+
+    public float getMiterLimit() {
+        return miterLimit;
+    }
+}
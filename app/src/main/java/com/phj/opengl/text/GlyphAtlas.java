@@ -0,0 +1,326 @@
+package com.phj.opengl.text;
+
+import android.opengl.GLES20;
+import android.util.Log;
+
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.gl.GLResourceScope;
+import com.phj.opengl.gl.GLTexture;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 描述：动态字形图集，字形在第一次用到时栅格化为距离场，放进GL_ALPHA纹理页的固定大小格子里
+ * 格子边长 = 基准字号的行高 + 两侧各spread像素的距离场边距，向上取4的倍数。
+ * 页满且达到页数上限时按LRU驱逐，但当前帧用过的字形不会被驱逐，页上的格子在一帧里不会改变含义。
+ * 改动的格子行在{@link #upload(GLApi)}时用glTexSubImage2D一次上传，上下文丢失后整页重新上传。
+ * 只在GL线程使用。
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class GlyphAtlas {
+
+    private final static String TAG = GlyphAtlas.class.getSimpleName();
+
+    /**
+     * 图集中的一个字形，位置和尺寸以基准字号的像素为单位
+     */
+    public static final class Glyph {
+        final int codePoint;
+        final float advance;
+        int page = -1;
+        int cell = -1;
+        float u0;
+        float v0;
+        float u1;
+        float v1;
+        long lastFrame;
+
+        Glyph(int codePoint, float advance) {
+            this.codePoint = codePoint;
+            this.advance = advance;
+        }
+
+        /**
+         * 空白字符不占格子
+         */
+        public boolean isEmpty() {
+            return page < 0;
+        }
+
+        public int getPage() {
+            return page;
+        }
+
+        public float getAdvance() {
+            return advance;
+        }
+    }
+
+    private final GlyphRasterizer mRasterizer;
+    private final GLResourceScope mScope;
+    private final int mPageSize;
+    private final int mMaxPages;
+    private final int mSpread;
+    private final int mCellSize;
+    private final int mCellsPerRow;
+    private final int mCellsPerPage;
+    private final float mAscent;
+    private final float mLineHeight;
+
+    // 访问顺序即LRU顺序，最久未用的在最前
+    private final LinkedHashMap<Integer, Glyph> mGlyphs = new LinkedHashMap<>(64, 0.75f, true);
+    private final HashMap<Integer, Glyph> mEmptyGlyphs = new HashMap<>();
+    private final ArrayList<Page> mPages = new ArrayList<>();
+    private final byte[] mCoverage;
+    private final byte[] mField;
+    private final SignedDistanceField mDistanceField;
+    private long mFrame;
+    private int mEvictionCount;
+
+    /**
+     * @param scope    纹理页所属的资源作用域，测试中不上传时可以为null
+     * @param pageSize 纹理页边长
+     * @param maxPages 页数上限，达到后开始驱逐
+     */
+    public GlyphAtlas(GlyphRasterizer rasterizer, GLResourceScope scope, int pageSize, int maxPages) {
+        this.mRasterizer = rasterizer;
+        this.mScope = scope;
+        this.mPageSize = pageSize;
+        this.mMaxPages = Math.max(1, maxPages);
+        this.mAscent = rasterizer.getAscent();
+        this.mLineHeight = rasterizer.getAscent() + rasterizer.getDescent();
+        this.mSpread = Math.max(2, (int) Math.ceil(mLineHeight / 8));
+        this.mCellSize = ((int) Math.ceil(mLineHeight) + mSpread * 2 + 3) & ~3;
+        this.mCellsPerRow = pageSize / mCellSize;
+        if (mCellsPerRow == 0) {
+            throw new IllegalArgumentException("page " + pageSize + " smaller than cell " + mCellSize);
+        }
+        this.mCellsPerPage = mCellsPerRow * mCellsPerRow;
+        this.mCoverage = new byte[mCellSize * mCellSize];
+        this.mField = new byte[mCellSize * mCellSize];
+        this.mDistanceField = new SignedDistanceField(mCellSize, mCellSize);
+    }
+
+    public GlyphRasterizer getRasterizer() {
+        return mRasterizer;
+    }
+
+    /**
+     * 每帧开始时调用，之后get到的字形在本帧内不会被驱逐
+     */
+    public void beginFrame() {
+        mFrame++;
+    }
+
+    /**
+     * 取字形，不在图集里时栅格化
+     *
+     * @return 图集已满且所有字形都在本帧用过时返回null
+     */
+    public Glyph get(int codePoint) {
+        Glyph glyph = mGlyphs.get(codePoint);
+        if (glyph == null) {
+            glyph = mEmptyGlyphs.get(codePoint);
+            if (glyph != null) {
+                return glyph;
+            }
+            glyph = add(codePoint);
+            if (glyph == null) {
+                return null;
+            }
+        }
+        glyph.lastFrame = mFrame;
+        return glyph;
+    }
+
+    private Glyph add(int codePoint) {
+        Arrays.fill(mCoverage, (byte) 0);
+        mRasterizer.rasterize(codePoint, mCoverage, mCellSize, mSpread, mSpread + mAscent);
+        Glyph glyph = new Glyph(codePoint, mRasterizer.getAdvance(codePoint));
+        if (isBlank(mCoverage)) {
+            mEmptyGlyphs.put(codePoint, glyph);
+            return glyph;
+        }
+        if (!allocate(glyph)) {
+            Log.w(TAG, "atlas full, glyph dropped: " + codePoint);
+            return null;
+        }
+        Page page = mPages.get(glyph.page);
+        int cx = glyph.cell % mCellsPerRow * mCellSize;
+        int cy = glyph.cell / mCellsPerRow * mCellSize;
+        mDistanceField.generate(mCoverage, mSpread, mField, 0, mCellSize);
+        for (int y = 0; y < mCellSize; y++) {
+            page.pixels.position((cy + y) * mPageSize + cx);
+            page.pixels.put(mField, y * mCellSize, mCellSize);
+        }
+        page.pixels.clear();
+        page.markDirty(cy, cy + mCellSize);
+        glyph.u0 = (float) cx / mPageSize;
+        glyph.v0 = (float) cy / mPageSize;
+        glyph.u1 = (float) (cx + mCellSize) / mPageSize;
+        glyph.v1 = (float) (cy + mCellSize) / mPageSize;
+        mGlyphs.put(codePoint, glyph);
+        return glyph;
+    }
+
+    // 依次尝试：空闲的格子、新的一页、驱逐最久未用且本帧没用过的字形
+    private boolean allocate(Glyph glyph) {
+        for (int i = 0; i < mPages.size(); i++) {
+            Page page = mPages.get(i);
+            if (page.freeCount > 0) {
+                glyph.page = i;
+                glyph.cell = page.free[--page.freeCount];
+                return true;
+            }
+        }
+        if (mPages.size() < mMaxPages) {
+            mPages.add(new Page(mPageSize, mCellsPerPage));
+            return allocate(glyph);
+        }
+        Iterator<Map.Entry<Integer, Glyph>> iterator = mGlyphs.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Glyph victim = iterator.next().getValue();
+            if (victim.lastFrame == mFrame) {
+                // 之后的都比它更近用过
+                return false;
+            }
+            iterator.remove();
+            mEvictionCount++;
+            glyph.page = victim.page;
+            glyph.cell = victim.cell;
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isBlank(byte[] coverage) {
+        for (byte b : coverage) {
+            if ((b & 0xFF) >= 128) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 上传改动过的格子行，还没有纹理的页整页创建
+     */
+    public void upload(GLApi gl) {
+        for (int i = 0; i < mPages.size(); i++) {
+            Page page = mPages.get(i);
+            if (page.texture == null) {
+                page.texture = mScope.createTexture(page, GLES20.GL_LINEAR, GLES20.GL_LINEAR,
+                        GLES20.GL_CLAMP_TO_EDGE, GLES20.GL_CLAMP_TO_EDGE);
+            } else if (page.dirtyFrom < page.dirtyTo) {
+                ByteBuffer rows = page.pixels.duplicate();
+                rows.position(page.dirtyFrom * mPageSize);
+                gl.glBindTexture(GLES20.GL_TEXTURE_2D, page.texture.use());
+                gl.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT, 1);
+                gl.glTexSubImage2D(GLES20.GL_TEXTURE_2D, 0, 0, page.dirtyFrom, mPageSize,
+                        page.dirtyTo - page.dirtyFrom, GLES20.GL_ALPHA, GLES20.GL_UNSIGNED_BYTE, rows);
+                gl.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT, 4);
+                gl.glBindTexture(GLES20.GL_TEXTURE_2D, 0);
+            }
+            page.dirtyFrom = Integer.MAX_VALUE;
+            page.dirtyTo = 0;
+        }
+    }
+
+    /**
+     * 绑定用的纹理id，需先{@link #upload(GLApi)}
+     */
+    public int useTexture(int page) {
+        return mPages.get(page).texture.use();
+    }
+
+    public int getPageCount() {
+        return mPages.size();
+    }
+
+    public int getGlyphCount() {
+        return mGlyphs.size();
+    }
+
+    public int getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    /**
+     * 距离场覆盖的像素范围，用于计算绘制时的平滑宽度
+     */
+    public int getSpread() {
+        return mSpread;
+    }
+
+    public int getCellSize() {
+        return mCellSize;
+    }
+
+    public float getAscent() {
+        return mAscent;
+    }
+
+    public float getLineHeight() {
+        return mLineHeight;
+    }
+
+    ByteBuffer getPixels(int page) {
+        return mPages.get(page).pixels;
+    }
+
+    private static final class Page implements GLTexture.Source {
+        final int size;
+        final ByteBuffer pixels;
+        final int[] free;
+        int freeCount;
+        int dirtyFrom = Integer.MAX_VALUE;
+        int dirtyTo;
+        GLTexture texture;
+
+        Page(int size, int cells) {
+            this.size = size;
+            this.pixels = ByteBuffer.allocateDirect(size * size);
+            this.free = new int[cells];
+            // 倒序入栈，从第0格开始分配
+            for (int i = 0; i < cells; i++) {
+                free[i] = cells - 1 - i;
+            }
+            this.freeCount = cells;
+        }
+
+        void markDirty(int from, int to) {
+            dirtyFrom = Math.min(dirtyFrom, from);
+            dirtyTo = Math.max(dirtyTo, to);
+        }
+
+        @Override
+        public int getWidth() {
+            return size;
+        }
+
+        @Override
+        public int getHeight() {
+            return size;
+        }
+
+        @Override
+        public long getSizeInBytes() {
+            return (long) size * size;
+        }
+
+        @Override
+        public void upload(GLApi gl) {
+            gl.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT, 1);
+            gl.glTexImage2D(GLES20.GL_TEXTURE_2D, 0, GLES20.GL_ALPHA, size, size, 0,
+                    GLES20.GL_ALPHA, GLES20.GL_UNSIGNED_BYTE, pixels.duplicate());
+            gl.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT, 4);
+        }
+    }
+}
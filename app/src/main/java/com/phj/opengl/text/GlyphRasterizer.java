@@ -0,0 +1,29 @@
+package com.phj.opengl.text;
+
+/**
+ * 描述：按固定的基准字号提供字形度量和覆盖率位图，所有尺寸以像素为单位
+ * Created by PHJ on 2026/10/19.
+ */
+
+public interface GlyphRasterizer {
+
+    /**
+     * 基线以上的高度，正数
+     */
+    float getAscent();
+
+    /**
+     * 基线以下的深度，正数
+     */
+    float getDescent();
+
+    float getAdvance(int codePoint);
+
+    /**
+     * 把字形画到已清零的size×size覆盖率数组里，超出范围的部分裁掉
+     *
+     * @param originX   笔的位置
+     * @param baselineY 基线的位置，y向下
+     */
+    void rasterize(int codePoint, byte[] coverage, int size, float originX, float baselineY);
+}
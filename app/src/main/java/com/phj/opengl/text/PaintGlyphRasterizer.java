@@ -0,0 +1,65 @@
+package com.phj.opengl.text;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 描述：用系统字体栅格化，画到ALPHA_8的Bitmap上再拷出覆盖率
+ * 在调用GlyphAtlas的线程上使用，非线程安全
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class PaintGlyphRasterizer implements GlyphRasterizer {
+
+    private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint.FontMetrics mMetrics;
+    private final char[] mChars = new char[2];
+    private Bitmap mBitmap;
+    private Canvas mCanvas;
+
+    /**
+     * @param textSize 基准字号，越大距离场越精细，图集能放下的字形越少，一般32~48
+     */
+    public PaintGlyphRasterizer(Typeface typeface, float textSize) {
+        mPaint.setTypeface(typeface);
+        mPaint.setTextSize(textSize);
+        mPaint.setColor(0xFFFFFFFF);
+        mMetrics = mPaint.getFontMetrics();
+    }
+
+    @Override
+    public float getAscent() {
+        return -mMetrics.ascent;
+    }
+
+    @Override
+    public float getDescent() {
+        return mMetrics.descent;
+    }
+
+    @Override
+    public float getAdvance(int codePoint) {
+        return mPaint.measureText(toString(codePoint));
+    }
+
+    @Override
+    public void rasterize(int codePoint, byte[] coverage, int size, float originX, float baselineY) {
+        if (mBitmap == null || mBitmap.getWidth() != size) {
+            // ALPHA_8的行按4字节对齐，size由图集取为4的倍数，行之间没有填充
+            mBitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ALPHA_8);
+            mCanvas = new Canvas(mBitmap);
+        }
+        mBitmap.eraseColor(0);
+        mCanvas.drawText(toString(codePoint), originX, baselineY, mPaint);
+        mBitmap.copyPixelsToBuffer(ByteBuffer.wrap(coverage, 0, size * size));
+    }
+
+    private String toString(int codePoint) {
+        int n = Character.toChars(codePoint, mChars, 0);
+        return new String(mChars, 0, n);
+    }
+}
@@ -0,0 +1,119 @@
+package com.phj.opengl.text;
+
+/**
+ * 描述：由覆盖率位图生成有符号距离场
+ * 覆盖率过半的像素算作字形内部，分别对内部和外部做精确的欧氏距离变换（Felzenszwalb–Huttenlocher，逐行再逐列的一维下包络），
+ * 两者相减得到到边缘的有符号距离。输出0.5为边缘，向内增大，±spread像素处饱和到0和1。
+ * 放大绘制时只需在片元着色器里对0.5做平滑阈值，同一张位图可以用于各种字号。
+ * Created by PHJ on 2026/10/19.
+ */
+
+public final class SignedDistanceField {
+
+    private static final float INF = 1e20f;
+
+    private final int mWidth;
+    private final int mHeight;
+    private final float[] mInside;
+    private final float[] mOutside;
+    // 一维变换的工作区
+    private final float[] mF;
+    private final float[] mD;
+    private final int[] mV;
+    private final float[] mZ;
+
+    /**
+     * 工作区按尺寸分配一次，同一个实例可以反复使用，非线程安全
+     */
+    public SignedDistanceField(int width, int height) {
+        this.mWidth = width;
+        this.mHeight = height;
+        this.mInside = new float[width * height];
+        this.mOutside = new float[width * height];
+        int n = Math.max(width, height);
+        this.mF = new float[n];
+        this.mD = new float[n];
+        this.mV = new int[n];
+        this.mZ = new float[n + 1];
+    }
+
+    /**
+     * @param coverage  width×height的覆盖率，0~255
+     * @param spread    距离场覆盖的像素范围
+     * @param out       输出，0~255
+     * @param outOffset 输出第一个像素的下标
+     * @param outStride 输出的行宽
+     */
+    public void generate(byte[] coverage, float spread, byte[] out, int outOffset, int outStride) {
+        int size = mWidth * mHeight;
+        for (int i = 0; i < size; i++) {
+            boolean inside = (coverage[i] & 0xFF) >= 128;
+            // 到最近的外部像素的距离 / 到最近的内部像素的距离
+            mInside[i] = inside ? INF : 0f;
+            mOutside[i] = inside ? 0f : INF;
+        }
+        transform(mInside);
+        transform(mOutside);
+        float scale = 0.5f / spread;
+        for (int y = 0; y < mHeight; y++) {
+            int row = outOffset + y * outStride;
+            for (int x = 0; x < mWidth; x++) {
+                int i = y * mWidth + x;
+                // 像素中心到边缘还差半个像素
+                float distance = (float) Math.sqrt(mInside[i]) - (float) Math.sqrt(mOutside[i]);
+                distance += distance > 0 ? -0.5f : 0.5f;
+                float value = 0.5f + distance * scale;
+                int v = Math.round(value * 255f);
+                out[row + x] = (byte) (v < 0 ? 0 : v > 255 ? 255 : v);
+            }
+        }
+    }
+
+    // 二维平方距离变换，原地进行
+    private void transform(float[] grid) {
+        for (int x = 0; x < mWidth; x++) {
+            for (int y = 0; y < mHeight; y++) {
+                mF[y] = grid[y * mWidth + x];
+            }
+            transform1d(mHeight);
+            for (int y = 0; y < mHeight; y++) {
+                grid[y * mWidth + x] = mD[y];
+            }
+        }
+        for (int y = 0; y < mHeight; y++) {
+            System.arraycopy(grid, y * mWidth, mF, 0, mWidth);
+            transform1d(mWidth);
+            System.arraycopy(mD, 0, grid, y * mWidth, mWidth);
+        }
+    }
+
+    // 抛物线下包络
+    private void transform1d(int n) {
+        float[] f = mF;
+        int[] v = mV;
+        float[] z = mZ;
+        int k = 0;
+        v[0] = 0;
+        z[0] = -INF;
+        z[1] = INF;
+        for (int q = 1; q < n; q++) {
+            float s = ((f[q] + q * q) - (f[v[k]] + v[k] * v[k])) / (2 * q - 2 * v[k]);
+            while (s <= z[k]) {
+                k--;
+                s = ((f[q] + q * q) - (f[v[k]] + v[k] * v[k])) / (2 * q - 2 * v[k]);
+            }
+            k++;
+            v[k] = q;
+            z[k] = s;
+            z[k + 1] = INF;
+        }
+        k = 0;
+        for (int q = 0; q < n; q++) {
+            while (z[k + 1] < q) {
+                k++;
+            }
+            int d = q - v[k];
+            mD[q] = d * d + f[v[k]];
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.phj.opengl.text;
+
+import android.opengl.GLES20;
+
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.gl.GLBuffer;
+import com.phj.opengl.gl.GLResourceScope;
+import com.phj.opengl.shader.ShaderFeatures;
+import com.phj.opengl.shader.UniformState;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+
+/**
+ * 描述：一帧内的所有文字按图集页合并成四边形，每页一次glDrawElements
+ * 用法：begin() -> 若干drawText() -> draw()。排版结果来自{@link TextLayoutCache}，不变的标签不重新排版；
+ * 四边形每帧重新生成，按页整体上传。四个顶点一组的索引是固定的，所有页共用一个索引缓冲。
+ * 坐标以像素为单位，y向下，matrix通常为orthoM(0, width, height, 0)。
+ * 只在GL线程使用。
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class TextBatch {
+
+    /**
+     * 绘制使用的shader特性
+     */
+    public static final int SHADER_FEATURES = ShaderFeatures.COLOR | ShaderFeatures.MVP
+            | ShaderFeatures.TEXTURE | ShaderFeatures.SDF;
+
+    // 位置xy + 纹理坐标uv + 颜色RGBA + 平滑宽度
+    static final int STRIDE = 24;
+    // 16位索引一次最多引用65536个顶点
+    static final int MAX_QUADS_PER_DRAW = 0x10000 / 4;
+
+    private final GlyphAtlas mAtlas;
+    private final TextLayoutCache mLayoutCache;
+    private final GLResourceScope mScope;
+    private final ArrayList<PageQuads> mPages = new ArrayList<>();
+    private GLBuffer mIndexBuffer;
+    private int mIndexQuads;
+    private int mDroppedGlyphs;
+    private UniformState mUniforms;
+    private int mPositionHandle;
+    private int mTextureCoordHandle;
+    private int mColorHandle;
+    private int mSdfHandle;
+
+    public TextBatch(GlyphAtlas atlas, TextLayoutCache layoutCache, GLResourceScope scope) {
+        this.mAtlas = atlas;
+        this.mLayoutCache = layoutCache;
+        this.mScope = scope;
+    }
+
+    public GlyphAtlas getAtlas() {
+        return mAtlas;
+    }
+
+    /**
+     * 开始新的一帧，清空上一帧的四边形
+     */
+    public void begin() {
+        mAtlas.beginFrame();
+        for (int i = 0; i < mPages.size(); i++) {
+            mPages.get(i).quadCount = 0;
+        }
+        mDroppedGlyphs = 0;
+    }
+
+    /**
+     * @param x     第一行左上角
+     * @param scale 相对于基准字号的缩放
+     * @param color ARGB
+     * @return 排版结果，可用于取宽高
+     */
+    public TextLayout drawText(String text, float x, float y, float scale, int color) {
+        TextLayout layout = mLayoutCache.get(text);
+        float spread = mAtlas.getSpread();
+        float cell = mAtlas.getCellSize() * scale;
+        float top = (mAtlas.getAscent() + spread) * scale;
+        // 半个屏幕像素对应的距离场取值
+        float smoothing = Math.min(0.5f, 0.25f / (spread * scale));
+        for (int i = 0; i < layout.glyphCount; i++) {
+            GlyphAtlas.Glyph glyph = mAtlas.get(layout.codePoints[i]);
+            if (glyph == null) {
+                mDroppedGlyphs++;
+                continue;
+            }
+            if (glyph.isEmpty()) {
+                continue;
+            }
+            float left = x + (layout.x[i] - spread) * scale;
+            float upper = y + layout.y[i] * scale - top;
+            page(glyph.page).quad(left, upper, left + cell, upper + cell,
+                    glyph.u0, glyph.v0, glyph.u1, glyph.v1, color, smoothing);
+        }
+        return layout;
+    }
+
+    /**
+     * 本帧因图集已满没有画出的字形数
+     */
+    public int getDroppedGlyphCount() {
+        return mDroppedGlyphs;
+    }
+
+    public int getQuadCount() {
+        int count = 0;
+        for (int i = 0; i < mPages.size(); i++) {
+            count += mPages.get(i).quadCount;
+        }
+        return count;
+    }
+
+    /**
+     * 本帧的draw call数
+     */
+    public int getDrawCallCount() {
+        int count = 0;
+        for (int i = 0; i < mPages.size(); i++) {
+            int quads = mPages.get(i).quadCount;
+            count += (quads + MAX_QUADS_PER_DRAW - 1) / MAX_QUADS_PER_DRAW;
+        }
+        return count;
+    }
+
+    /**
+     * 设置绘制用的program，attribute位置在这里查一次，program变化时（例如上下文重建后）重新调用
+     *
+     * @param uniforms 以{@link #SHADER_FEATURES}创建的basic变体的uniform状态，来自ShaderLibrary#getUniforms
+     */
+    public void setProgram(GLApi gl, UniformState uniforms) {
+        int program = uniforms.getProgram();
+        mUniforms = uniforms;
+        mPositionHandle = gl.glGetAttribLocation(program, "vPosition");
+        mTextureCoordHandle = gl.glGetAttribLocation(program, "aTextureCoord");
+        mColorHandle = gl.glGetAttribLocation(program, "aColor");
+        mSdfHandle = gl.glGetAttribLocation(program, "aSdf");
+    }
+
+    /**
+     * 上传图集的改动和本帧的四边形并绘制，之前需要{@link #setProgram}；uniform没有变化时不重新上传
+     */
+    public void draw(GLApi gl, float[] matrix) {
+        mAtlas.upload(gl);
+        ensureIndices(gl);
+        int position = mPositionHandle;
+        int textureCoord = mTextureCoordHandle;
+        int color = mColorHandle;
+        int sdf = mSdfHandle;
+        gl.glUseProgram(mUniforms.getProgram());
+        mUniforms.setMatrix4fv("vMatrix", 1, matrix, 0);
+        mUniforms.set1i("vTexture", 0);
+        mUniforms.apply();
+        gl.glEnableVertexAttribArray(position);
+        gl.glEnableVertexAttribArray(textureCoord);
+        gl.glEnableVertexAttribArray(color);
+        gl.glEnableVertexAttribArray(sdf);
+        gl.glEnable(GLES20.GL_BLEND);
+        gl.glBlendFunc(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE_MINUS_SRC_ALPHA);
+        gl.glActiveTexture(GLES20.GL_TEXTURE0);
+        gl.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, mIndexBuffer.use());
+        for (int i = 0; i < mPages.size(); i++) {
+            PageQuads page = mPages.get(i);
+            if (page.quadCount == 0) {
+                continue;
+            }
+            int bytes = page.quadCount * 4 * STRIDE;
+            if (page.buffer == null) {
+                page.buffer = mScope.createBuffer(GLES20.GL_ARRAY_BUFFER, page.vertices, bytes, GLES20.GL_STREAM_DRAW);
+            } else {
+                page.buffer.setData(gl, page.vertices, bytes);
+            }
+            gl.glBindTexture(GLES20.GL_TEXTURE_2D, mAtlas.useTexture(i));
+            gl.glBindBuffer(GLES20.GL_ARRAY_BUFFER, page.buffer.use());
+            for (int first = 0; first < page.quadCount; first += MAX_QUADS_PER_DRAW) {
+                int base = first * 4 * STRIDE;
+                gl.glVertexAttribPointer(position, 2, GLES20.GL_FLOAT, false, STRIDE, base);
+                gl.glVertexAttribPointer(textureCoord, 2, GLES20.GL_FLOAT, false, STRIDE, base + 8);
+                gl.glVertexAttribPointer(color, 4, GLES20.GL_UNSIGNED_BYTE, true, STRIDE, base + 16);
+                gl.glVertexAttribPointer(sdf, 1, GLES20.GL_FLOAT, false, STRIDE, base + 20);
+                int quads = Math.min(MAX_QUADS_PER_DRAW, page.quadCount - first);
+                gl.glDrawElements(GLES20.GL_TRIANGLES, quads * 6, GLES20.GL_UNSIGNED_SHORT, 0);
+            }
+        }
+        gl.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+        gl.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, 0);
+        gl.glBindTexture(GLES20.GL_TEXTURE_2D, 0);
+        gl.glDisable(GLES20.GL_BLEND);
+        gl.glDisableVertexAttribArray(position);
+        gl.glDisableVertexAttribArray(textureCoord);
+        gl.glDisableVertexAttribArray(color);
+        gl.glDisableVertexAttribArray(sdf);
+    }
+
+    // 索引缓冲按本帧最多的一页扩容，不超过一次draw能用的上限
+    private void ensureIndices(GLApi gl) {
+        int needed = 0;
+        for (int i = 0; i < mPages.size(); i++) {
+            needed = Math.max(needed, Math.min(MAX_QUADS_PER_DRAW, mPages.get(i).quadCount));
+        }
+        if (mIndexBuffer != null && needed <= mIndexQuads) {
+            return;
+        }
+        int quads = Math.max(64, mIndexQuads);
+        while (quads < needed) {
+            quads *= 2;
+        }
+        quads = Math.min(quads, MAX_QUADS_PER_DRAW);
+        ByteBuffer indices = quadIndices(quads);
+        if (mIndexBuffer == null) {
+            mIndexBuffer = mScope.createBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, indices, indices.capacity(),
+                    GLES20.GL_STATIC_DRAW);
+        } else {
+            mIndexBuffer.setData(gl, indices, indices.capacity());
+        }
+        mIndexQuads = quads;
+    }
+
+    static ByteBuffer quadIndices(int quads) {
+        ByteBuffer indices = ByteBuffer.allocateDirect(quads * 6 * 2).order(ByteOrder.nativeOrder());
+        for (int q = 0; q < quads; q++) {
+            int v = q * 4;
+            indices.putShort((short) v).putShort((short) (v + 1)).putShort((short) (v + 2))
+                    .putShort((short) (v + 2)).putShort((short) (v + 1)).putShort((short) (v + 3));
+        }
+        indices.clear();
+        return indices;
+    }
+
+    PageQuads page(int index) {
+        while (mPages.size() <= index) {
+            mPages.add(new PageQuads());
+        }
+        return mPages.get(index);
+    }
+
+    static final class PageQuads {
+        ByteBuffer vertices = ByteBuffer.allocateDirect(64 * 4 * STRIDE).order(ByteOrder.nativeOrder());
+        int quadCount;
+        GLBuffer buffer;
+
+        void quad(float x0, float y0, float x1, float y1, float u0, float v0, float u1, float v1,
+                  int argb, float smoothing) {
+            int needed = (quadCount + 1) * 4 * STRIDE;
+            if (needed > vertices.capacity()) {
+                ByteBuffer larger = ByteBuffer.allocateDirect(vertices.capacity() * 2).order(ByteOrder.nativeOrder());
+                ByteBuffer used = vertices.duplicate();
+                used.position(0).limit(quadCount * 4 * STRIDE);
+                larger.put(used);
+                larger.clear();
+                vertices = larger;
+            }
+            int offset = quadCount * 4 * STRIDE;
+            vertex(offset, x0, y0, u0, v0, argb, smoothing);
+            vertex(offset + STRIDE, x0, y1, u0, v1, argb, smoothing);
+            vertex(offset + STRIDE * 2, x1, y0, u1, v0, argb, smoothing);
+            vertex(offset + STRIDE * 3, x1, y1, u1, v1, argb, smoothing);
+            quadCount++;
+        }
+
+        private void vertex(int offset, float x, float y, float u, float v, int argb, float smoothing) {
+            vertices.putFloat(offset, x);
+            vertices.putFloat(offset + 4, y);
+            vertices.putFloat(offset + 8, u);
+            vertices.putFloat(offset + 12, v);
+            // 内存中按RGBA排列，与字节序无关
+            vertices.put(offset + 16, (byte) (argb >> 16));
+            vertices.put(offset + 17, (byte) (argb >> 8));
+            vertices.put(offset + 18, (byte) argb);
+            vertices.put(offset + 19, (byte) (argb >>> 24));
+            vertices.putFloat(offset + 20, smoothing);
+        }
+    }
+}
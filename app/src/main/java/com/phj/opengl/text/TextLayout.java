@@ -0,0 +1,71 @@
+package com.phj.opengl.text;
+
+/**
+ * 描述：一段文字排版后的字形序列，位置以基准字号的像素为单位，原点在第一行的左上角，y向下
+ * 只记录码点和笔的位置，不引用图集的格子，字形被驱逐后排版结果仍然有效
+ * Created by PHJ on 2026/10/19.
+ */
+
+public final class TextLayout {
+
+    final int[] codePoints;
+    // 每个字形的笔位置和基线
+    final float[] x;
+    final float[] y;
+    final int glyphCount;
+    private final float mWidth;
+    private final float mHeight;
+
+    private TextLayout(int[] codePoints, float[] x, float[] y, int glyphCount, float width, float height) {
+        this.codePoints = codePoints;
+        this.x = x;
+        this.y = y;
+        this.glyphCount = glyphCount;
+        this.mWidth = width;
+        this.mHeight = height;
+    }
+
+    /**
+     * 按advance逐个排列，'\n'换行
+     */
+    public static TextLayout layout(String text, GlyphRasterizer rasterizer) {
+        int length = text.length();
+        int[] codePoints = new int[text.codePointCount(0, length)];
+        float[] x = new float[codePoints.length];
+        float[] y = new float[codePoints.length];
+        float ascent = rasterizer.getAscent();
+        float lineHeight = ascent + rasterizer.getDescent();
+        float penX = 0;
+        float baseline = ascent;
+        float width = 0;
+        int count = 0;
+        for (int i = 0; i < length; ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (codePoint == '\n') {
+                penX = 0;
+                baseline += lineHeight;
+                continue;
+            }
+            codePoints[count] = codePoint;
+            x[count] = penX;
+            y[count] = baseline;
+            count++;
+            penX += rasterizer.getAdvance(codePoint);
+            width = Math.max(width, penX);
+        }
+        return new TextLayout(codePoints, x, y, count, width, baseline - ascent + lineHeight);
+    }
+
+    public int getGlyphCount() {
+        return glyphCount;
+    }
+
+    public float getWidth() {
+        return mWidth;
+    }
+
+    public float getHeight() {
+        return mHeight;
+    }
+}
@@ -0,0 +1,56 @@
+package com.phj.opengl.text;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 描述：按字符串缓存排版结果，每帧重画不变的标签时直接命中
+ * 超过上限时丢弃最久未用的
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class TextLayoutCache {
+
+    private final GlyphRasterizer mRasterizer;
+    private final LinkedHashMap<String, TextLayout> mLayouts;
+    private int mHitCount;
+    private int mMissCount;
+
+    public TextLayoutCache(GlyphRasterizer rasterizer, final int maxEntries) {
+        this.mRasterizer = rasterizer;
+        this.mLayouts = new LinkedHashMap<String, TextLayout>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TextLayout> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public synchronized TextLayout get(String text) {
+        TextLayout layout = mLayouts.get(text);
+        if (layout != null) {
+            mHitCount++;
+            return layout;
+        }
+        mMissCount++;
+        layout = TextLayout.layout(text, mRasterizer);
+        mLayouts.put(text, layout);
+        return layout;
+    }
+
+    public synchronized void clear() {
+        mLayouts.clear();
+    }
+
+    public synchronized int size() {
+        return mLayouts.size();
+    }
+
+    public synchronized int getHitCount() {
+        return mHitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return mMissCount;
+    }
+}
@@ -0,0 +1,95 @@
+package com.phj.opengl.text;
+
+import android.graphics.Typeface;
+import android.opengl.GLES20;
+import android.opengl.GLSurfaceView;
+import android.util.Log;
+
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.gl.GLResourceRegistry;
+import com.phj.opengl.gl.GLResourceScope;
+import com.phj.opengl.gl.MatrixHelper;
+import com.phj.opengl.scene.ContinuousScene;
+import com.phj.opengl.shader.ShaderLibrary;
+
+import javax.microedition.khronos.egl.EGLConfig;
+import javax.microedition.khronos.opengles.GL10;
+
+/**
+ * 描述：文字示例，若干静态标签加一个每帧变化的计数，全部在GL里绘制，不需要Canvas覆盖层
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class TextRender implements GLSurfaceView.Renderer, ContinuousScene {
+
+    private final static String TAG = TextRender.class.getSimpleName();
+
+    private static final float BASE_TEXT_SIZE = 40f;
+    private static final int ATLAS_PAGE_SIZE = 512;
+    private static final int ATLAS_MAX_PAGES = 2;
+
+    private final GLApi mGL;
+    private final ShaderLibrary mShaderLibrary;
+    private final GLResourceRegistry mResourceRegistry;
+    private final GLResourceScope mResourceScope;
+    private final TextBatch mBatch;
+    private final String[] mLabels;
+    private final float[] mMatrix = new float[16];
+    private int mProgram;
+    private int mFrame;
+
+    public TextRender(ShaderLibrary shaderLibrary, GLResourceRegistry resourceRegistry, String[] labels) {
+        this.mShaderLibrary = shaderLibrary;
+        this.mGL = shaderLibrary.getGL();
+        this.mResourceRegistry = resourceRegistry;
+        this.mResourceScope = resourceRegistry.openScope(TAG);
+        GlyphRasterizer rasterizer = new PaintGlyphRasterizer(Typeface.DEFAULT, BASE_TEXT_SIZE);
+        GlyphAtlas atlas = new GlyphAtlas(rasterizer, mResourceScope, ATLAS_PAGE_SIZE, ATLAS_MAX_PAGES);
+        this.mBatch = new TextBatch(atlas, new TextLayoutCache(rasterizer, 256), mResourceScope);
+        this.mLabels = labels.clone();
+    }
+
+    @Override
+    public void onSurfaceCreated(GL10 gl, EGLConfig config) {
+        mProgram = mShaderLibrary.getProgram("basic", TextBatch.SHADER_FEATURES);
+        mBatch.setProgram(mGL, mShaderLibrary.getUniforms(mProgram));
+        Log.e(TAG, "onSurfaceCreated: mProgram=" + mProgram);
+    }
+
+    /**
+     * 删除图集纹理和顶点缓冲，渲染器不再使用时在GL线程调用
+     */
+    public void release() {
+        mResourceScope.close();
+    }
+
+    @Override
+    public void onSurfaceChanged(GL10 gl, int width, int height) {
+        mGL.glViewport(0, 0, width, height);
+        MatrixHelper.orthoM(mMatrix, 0, 0, width, height, 0, -1, 1);
+    }
+
+    @Override
+    public void onDrawFrame(GL10 gl) {
+        mGL.glClearColor(0, 0, 0, 1);
+        mGL.glClear(GLES20.GL_COLOR_BUFFER_BIT);
+        mGL.glDisable(GLES20.GL_DEPTH_TEST);
+
+        mBatch.begin();
+        float y = 16;
+        for (int i = 0; i < mLabels.length; i++) {
+            float scale = 0.5f + 0.25f * (i % 4);
+            y += mBatch.drawText(mLabels[i], 16, y, scale, 0xFFFFFFFF).getHeight() * scale;
+        }
+        // 数字只有十个字形，排版缓存会随计数变化不断淘汰，图集保持命中
+        mBatch.drawText("frame " + mFrame++, 16, y + 16, 1f, 0xFFFFD54F);
+        mBatch.draw(mGL, mMatrix);
+        mResourceRegistry.onFrameEnd();
+    }
+
+    // 计数每帧都在变
+    @Override
+    public boolean isContinuous() {
+        return true;
+    }
+}
@@ -0,0 +1,82 @@
+package com.phj.opengl.texture;
+
+/**
+ * 描述：ETC1的CPU解码，用于校验编码质量和不支持ETC1时的回退
+ * Created by PHJ on 2026/10/19.
+ */
+
+public final class Etc1Decoder {
+
+    private Etc1Decoder() {
+    }
+
+    /**
+     * 解码为行优先的ARGB像素，alpha固定为0xFF
+     */
+    public static int[] decode(byte[] data, int width, int height) {
+        int[] argb = new int[width * height];
+        int[] block = new int[16];
+        int blocksX = (width + 3) >> 2;
+        int blocksY = (height + 3) >> 2;
+        for (int by = 0; by < blocksY; by++) {
+            for (int bx = 0; bx < blocksX; bx++) {
+                decodeBlock(data, (by * blocksX + bx) * Etc1Encoder.BLOCK_BYTES, block);
+                for (int j = 0; j < 16; j++) {
+                    int x = (bx << 2) + (j >> 2);
+                    int y = (by << 2) + (j & 3);
+                    if (x < width && y < height) {
+                        argb[y * width + x] = block[j];
+                    }
+                }
+            }
+        }
+        return argb;
+    }
+
+    /**
+     * 解码一个块
+     *
+     * @param out 16个ARGB像素，下标为x * 4 + y
+     */
+    public static void decodeBlock(byte[] data, int offset, int[] out) {
+        int b0 = data[offset] & 0xFF;
+        int b1 = data[offset + 1] & 0xFF;
+        int b2 = data[offset + 2] & 0xFF;
+        int b3 = data[offset + 3] & 0xFF;
+        boolean diff = (b3 & 2) != 0;
+        int flip = b3 & 1;
+        int[] tables = {(b3 >> 5) & 7, (b3 >> 2) & 7};
+        int[] colors = new int[2];
+        if (diff) {
+            int r = b0 >> 3;
+            int g = b1 >> 3;
+            int b = b2 >> 3;
+            // 3位有符号差值
+            int r2 = r + ((b0 << 29) >> 29);
+            int g2 = g + ((b1 << 29) >> 29);
+            int b2c = b + ((b2 << 29) >> 29);
+            colors[0] = (Etc1Encoder.expand5(r) << 16) | (Etc1Encoder.expand5(g) << 8) | Etc1Encoder.expand5(b);
+            colors[1] = (Etc1Encoder.expand5(r2 & 0x1F) << 16) | (Etc1Encoder.expand5(g2 & 0x1F) << 8)
+                    | Etc1Encoder.expand5(b2c & 0x1F);
+        } else {
+            colors[0] = (Etc1Encoder.expand4(b0 >> 4) << 16) | (Etc1Encoder.expand4(b1 >> 4) << 8)
+                    | Etc1Encoder.expand4(b2 >> 4);
+            colors[1] = (Etc1Encoder.expand4(b0 & 0xF) << 16) | (Etc1Encoder.expand4(b1 & 0xF) << 8)
+                    | Etc1Encoder.expand4(b2 & 0xF);
+        }
+        int msb = ((data[offset + 4] & 0xFF) << 8) | (data[offset + 5] & 0xFF);
+        int lsb = ((data[offset + 6] & 0xFF) << 8) | (data[offset + 7] & 0xFF);
+        for (int j = 0; j < 16; j++) {
+            int x = j >> 2;
+            int y = j & 3;
+            int s = flip == 0 ? (x >= 2 ? 1 : 0) : (y >= 2 ? 1 : 0);
+            int index = (((msb >> j) & 1) << 1) | ((lsb >> j) & 1);
+            int m = Etc1Encoder.modifier(tables[s], index);
+            int c = colors[s];
+            out[j] = 0xFF000000
+                    | (Etc1Encoder.clamp(((c >> 16) & 0xFF) + m) << 16)
+                    | (Etc1Encoder.clamp(((c >> 8) & 0xFF) + m) << 8)
+                    | Etc1Encoder.clamp((c & 0xFF) + m);
+        }
+    }
+}
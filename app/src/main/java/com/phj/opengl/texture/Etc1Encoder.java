@@ -0,0 +1,389 @@
+package com.phj.opengl.texture;
+
+import android.graphics.Bitmap;
+
+import com.phj.opengl.concurrent.ParallelRange;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 描述：纯Java的ETC1编码器，输出可以直接交给glCompressedTexImage2D(GL_ETC1_RGB8_OES)
+ * 每个4x4块编码为8字节（4bpp，是RGBA8的1/8），块按行优先排列，块内为大端序，与PKM/ETC1规范一致。
+ * 块之间互相独立，按块行切分后并行编码；FAST只用子块平均色，HIGH在平均色附近搜索基色并尝试两种编码模式。
+ * ETC1没有alpha通道，编码时丢弃alpha。ETC1的码流同时也是合法的ETC2 RGB8码流。
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class Etc1Encoder {
+
+    public static final int QUALITY_FAST = 0;   // 子块平均色作为基色
+    public static final int QUALITY_HIGH = 1;   // 平均色±1邻域搜索基色，差分/独立模式都尝试
+
+    public static final int BLOCK_BYTES = 8;
+
+    // 亮度修正表，每行为{a, b}，像素索引0..3依次对应 +a、+b、-a、-b
+    static final int[][] MODIFIERS = {
+            {2, 8},
+            {5, 17},
+            {9, 29},
+            {13, 42},
+            {18, 60},
+            {24, 80},
+            {33, 106},
+            {47, 183},
+    };
+
+    // SUBBLOCKS[flip][子块] = 块内像素序号（x * 4 + y，与索引位的顺序一致）
+    private static final int[][][] SUBBLOCKS = new int[2][2][8];
+
+    static {
+        int[][] counts = new int[2][2];
+        for (int j = 0; j < 16; j++) {
+            int x = j >> 2;
+            int y = j & 3;
+            int s0 = x >= 2 ? 1 : 0;    // flip=0：左右两个2x4
+            int s1 = y >= 2 ? 1 : 0;    // flip=1：上下两个4x2
+            SUBBLOCKS[0][s0][counts[0][s0]++] = j;
+            SUBBLOCKS[1][s1][counts[1][s1]++] = j;
+        }
+    }
+
+    private final int mQuality;
+    private final ExecutorService mExecutor;
+    private final int mTaskCount;
+
+    /**
+     * @param quality   QUALITY_FAST 或 QUALITY_HIGH
+     * @param executor  并行编码用的线程池，为null时在调用线程编码
+     * @param taskCount 切分的任务数，一般取CPU核数
+     */
+    public Etc1Encoder(int quality, ExecutorService executor, int taskCount) {
+        this.mQuality = quality;
+        this.mExecutor = executor;
+        this.mTaskCount = Math.max(1, taskCount);
+    }
+
+    public int getQuality() {
+        return mQuality;
+    }
+
+    /**
+     * 编码后的字节数，宽高不是4的倍数时按块补齐
+     */
+    public static int getEncodedSize(int width, int height) {
+        return ((width + 3) >> 2) * ((height + 3) >> 2) * BLOCK_BYTES;
+    }
+
+    public byte[] encode(Bitmap bitmap) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        int[] pixels = new int[width * height];
+        bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
+        return encode(pixels, width, height);
+    }
+
+    /**
+     * 编码ARGB像素
+     *
+     * @param argb 行优先的ARGB像素，与Bitmap#getPixels一致
+     * @return ETC1数据，长度为{@link #getEncodedSize(int, int)}
+     */
+    public byte[] encode(final int[] argb, final int width, final int height) {
+        final byte[] out = new byte[getEncodedSize(width, height)];
+        final int blockRows = (height + 3) >> 2;
+        ParallelRange.run(mExecutor, blockRows, mTaskCount, new ParallelRange.Task<RuntimeException>() {
+            @Override
+            public void run(int from, int to) {
+                // 每个区间有自己的临时数组，写入的块互不重叠
+                new BlockEncoder(mQuality).encodeRows(argb, width, height, from, to, out);
+            }
+        });
+        return out;
+    }
+
+    // 单个线程使用的块编码器
+    private static class BlockEncoder {
+        private final int mQuality;
+        private final int[] mR = new int[16];
+        private final int[] mG = new int[16];
+        private final int[] mB = new int[16];
+
+        // 当前最优结果
+        private long mBestError;
+        private boolean mBestDiff;
+        private int mBestFlip;
+        private final int[] mBestColor0 = new int[3];   // 量化后的基色（4位或5位）
+        private final int[] mBestColor1 = new int[3];
+
+        // 候选基色，HIGH模式下为平均色的27个邻域
+        private final int[][] mCandidates0 = new int[27][3];
+        private final int[][] mCandidates1 = new int[27][3];
+        private final long[] mErrors0 = new long[27];
+        private final long[] mErrors1 = new long[27];
+
+        BlockEncoder(int quality) {
+            this.mQuality = quality;
+        }
+
+        void encodeRows(int[] argb, int width, int height, int fromRow, int toRow, byte[] out) {
+            int blocksX = (width + 3) >> 2;
+            for (int by = fromRow; by < toRow; by++) {
+                for (int bx = 0; bx < blocksX; bx++) {
+                    load(argb, width, height, bx << 2, by << 2);
+                    encodeBlock(out, (by * blocksX + bx) * BLOCK_BYTES);
+                }
+            }
+        }
+
+        // 读取一个块，超出图片的部分复制边缘像素
+        private void load(int[] argb, int width, int height, int x0, int y0) {
+            for (int j = 0; j < 16; j++) {
+                int x = Math.min(x0 + (j >> 2), width - 1);
+                int y = Math.min(y0 + (j & 3), height - 1);
+                int c = argb[y * width + x];
+                mR[j] = (c >> 16) & 0xFF;
+                mG[j] = (c >> 8) & 0xFF;
+                mB[j] = c & 0xFF;
+            }
+        }
+
+        private void encodeBlock(byte[] out, int offset) {
+            mBestError = Long.MAX_VALUE;
+            for (int flip = 0; flip < 2; flip++) {
+                if (mQuality == QUALITY_HIGH) {
+                    searchIndividual(flip);
+                    searchDifferential(flip);
+                } else {
+                    tryAverage(flip);
+                }
+            }
+            write(out, offset);
+        }
+
+        // FAST：平均色能用差分模式表示就用差分模式（5位精度），否则用独立模式
+        private void tryAverage(int flip) {
+            int[] c0 = new int[3];
+            int[] c1 = new int[3];
+            average(SUBBLOCKS[flip][0], 31, c0);
+            average(SUBBLOCKS[flip][1], 31, c1);
+            boolean diff = true;
+            for (int i = 0; i < 3; i++) {
+                int d = c1[i] - c0[i];
+                diff &= d >= -4 && d <= 3;
+            }
+            if (!diff) {
+                average(SUBBLOCKS[flip][0], 15, c0);
+                average(SUBBLOCKS[flip][1], 15, c1);
+            }
+            long error = subblockError(SUBBLOCKS[flip][0], expand(c0, diff), Long.MAX_VALUE);
+            if (error >= mBestError) {
+                return;
+            }
+            error += subblockError(SUBBLOCKS[flip][1], expand(c1, diff), mBestError - error);
+            consider(error, diff, flip, c0, c1);
+        }
+
+        // HIGH：两个子块独立地在4位平均色邻域中取最优
+        private void searchIndividual(int flip) {
+            int n0 = candidates(SUBBLOCKS[flip][0], 15, mCandidates0);
+            int n1 = candidates(SUBBLOCKS[flip][1], 15, mCandidates1);
+            int best0 = bestCandidate(SUBBLOCKS[flip][0], mCandidates0, n0, false, mErrors0);
+            int best1 = bestCandidate(SUBBLOCKS[flip][1], mCandidates1, n1, false, mErrors1);
+            consider(mErrors0[best0] + mErrors1[best1], false, flip, mCandidates0[best0], mCandidates1[best1]);
+        }
+
+        // HIGH：5位平均色邻域中找满足差分范围[-4, 3]的最优组合
+        private void searchDifferential(int flip) {
+            int n0 = candidates(SUBBLOCKS[flip][0], 31, mCandidates0);
+            int n1 = candidates(SUBBLOCKS[flip][1], 31, mCandidates1);
+            bestCandidate(SUBBLOCKS[flip][0], mCandidates0, n0, true, mErrors0);
+            bestCandidate(SUBBLOCKS[flip][1], mCandidates1, n1, true, mErrors1);
+            for (int i = 0; i < n0; i++) {
+                int[] c0 = mCandidates0[i];
+                for (int k = 0; k < n1; k++) {
+                    int[] c1 = mCandidates1[k];
+                    long error = mErrors0[i] + mErrors1[k];
+                    if (error < mBestError
+                            && inDiffRange(c1[0] - c0[0]) && inDiffRange(c1[1] - c0[1]) && inDiffRange(c1[2] - c0[2])) {
+                        consider(error, true, flip, c0, c1);
+                    }
+                }
+            }
+        }
+
+        private static boolean inDiffRange(int d) {
+            return d >= -4 && d <= 3;
+        }
+
+        private void consider(long error, boolean diff, int flip, int[] c0, int[] c1) {
+            if (error < mBestError) {
+                mBestError = error;
+                mBestDiff = diff;
+                mBestFlip = flip;
+                System.arraycopy(c0, 0, mBestColor0, 0, 3);
+                System.arraycopy(c1, 0, mBestColor1, 0, 3);
+            }
+        }
+
+        // 计算每个候选的误差，返回最优候选的下标
+        private int bestCandidate(int[] subblock, int[][] candidates, int count, boolean diff, long[] errors) {
+            int best = 0;
+            for (int i = 0; i < count; i++) {
+                errors[i] = subblockError(subblock, expand(candidates[i], diff), Long.MAX_VALUE);
+                if (errors[i] < errors[best]) {
+                    best = i;
+                }
+            }
+            return best;
+        }
+
+        // 平均色及其每个通道±1的邻域
+        private int candidates(int[] subblock, int max, int[][] out) {
+            int[] avg = new int[3];
+            average(subblock, max, avg);
+            int n = 0;
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dg = -1; dg <= 1; dg++) {
+                    for (int db = -1; db <= 1; db++) {
+                        int r = avg[0] + dr;
+                        int g = avg[1] + dg;
+                        int b = avg[2] + db;
+                        if (r < 0 || g < 0 || b < 0 || r > max || g > max || b > max) {
+                            continue;
+                        }
+                        out[n][0] = r;
+                        out[n][1] = g;
+                        out[n][2] = b;
+                        n++;
+                    }
+                }
+            }
+            return n;
+        }
+
+        // 子块平均色量化到0..max
+        private void average(int[] subblock, int max, int[] out) {
+            int r = 0;
+            int g = 0;
+            int b = 0;
+            for (int j : subblock) {
+                r += mR[j];
+                g += mG[j];
+                b += mB[j];
+            }
+            out[0] = (r * max + 255 * 4) / (255 * 8);
+            out[1] = (g * max + 255 * 4) / (255 * 8);
+            out[2] = (b * max + 255 * 4) / (255 * 8);
+        }
+
+        // 子块在最优修正表下的平方误差，超过limit时提前返回
+        private long subblockError(int[] subblock, int color, long limit) {
+            int br = (color >> 16) & 0xFF;
+            int bg = (color >> 8) & 0xFF;
+            int bb = color & 0xFF;
+            long best = limit;
+            for (int t = 0; t < MODIFIERS.length; t++) {
+                long error = 0;
+                for (int k = 0; k < subblock.length && error < best; k++) {
+                    error += pixelError(subblock[k], br, bg, bb, t, null);
+                }
+                if (error < best) {
+                    best = error;
+                }
+            }
+            return best;
+        }
+
+        // 像素在修正表t下的最小误差，indexOut非空时写入选中的索引
+        private int pixelError(int j, int br, int bg, int bb, int t, int[] indexOut) {
+            int best = Integer.MAX_VALUE;
+            for (int index = 0; index < 4; index++) {
+                int m = modifier(t, index);
+                int dr = clamp(br + m) - mR[j];
+                int dg = clamp(bg + m) - mG[j];
+                int db = clamp(bb + m) - mB[j];
+                int error = dr * dr + dg * dg + db * db;
+                if (error < best) {
+                    best = error;
+                    if (indexOut != null) {
+                        indexOut[0] = index;
+                    }
+                }
+            }
+            return best;
+        }
+
+        // 按最优结果生成码流
+        private void write(byte[] out, int offset) {
+            int[] c0 = mBestColor0;
+            int[] c1 = mBestColor1;
+            if (mBestDiff) {
+                out[offset] = (byte) ((c0[0] << 3) | ((c1[0] - c0[0]) & 7));
+                out[offset + 1] = (byte) ((c0[1] << 3) | ((c1[1] - c0[1]) & 7));
+                out[offset + 2] = (byte) ((c0[2] << 3) | ((c1[2] - c0[2]) & 7));
+            } else {
+                out[offset] = (byte) ((c0[0] << 4) | c1[0]);
+                out[offset + 1] = (byte) ((c0[1] << 4) | c1[1]);
+                out[offset + 2] = (byte) ((c0[2] << 4) | c1[2]);
+            }
+            int msb = 0;
+            int lsb = 0;
+            int[] tables = new int[2];
+            int[] index = new int[1];
+            for (int s = 0; s < 2; s++) {
+                int[] subblock = SUBBLOCKS[mBestFlip][s];
+                int color = expand(s == 0 ? c0 : c1, mBestDiff);
+                int br = (color >> 16) & 0xFF;
+                int bg = (color >> 8) & 0xFF;
+                int bb = color & 0xFF;
+                // 重新找出该子块的最优修正表
+                long bestError = Long.MAX_VALUE;
+                for (int t = 0; t < MODIFIERS.length; t++) {
+                    long error = 0;
+                    for (int j : subblock) {
+                        error += pixelError(j, br, bg, bb, t, null);
+                    }
+                    if (error < bestError) {
+                        bestError = error;
+                        tables[s] = t;
+                    }
+                }
+                for (int j : subblock) {
+                    pixelError(j, br, bg, bb, tables[s], index);
+                    msb |= ((index[0] >> 1) & 1) << j;
+                    lsb |= (index[0] & 1) << j;
+                }
+            }
+            out[offset + 3] = (byte) ((tables[0] << 5) | (tables[1] << 2) | ((mBestDiff ? 1 : 0) << 1) | mBestFlip);
+            out[offset + 4] = (byte) (msb >> 8);
+            out[offset + 5] = (byte) msb;
+            out[offset + 6] = (byte) (lsb >> 8);
+            out[offset + 7] = (byte) lsb;
+        }
+    }
+
+    // 量化色扩展为8位，返回0xRRGGBB
+    static int expand(int[] c, boolean diff) {
+        if (diff) {
+            return (expand5(c[0]) << 16) | (expand5(c[1]) << 8) | expand5(c[2]);
+        }
+        return (expand4(c[0]) << 16) | (expand4(c[1]) << 8) | expand4(c[2]);
+    }
+
+    static int expand4(int c) {
+        return (c << 4) | c;
+    }
+
+    static int expand5(int c) {
+        return (c << 3) | (c >> 2);
+    }
+
+    static int modifier(int table, int index) {
+        int m = MODIFIERS[table][index & 1];
+        return index < 2 ? m : -m;
+    }
+
+    static int clamp(int c) {
+        return c < 0 ? 0 : (c > 255 ? 255 : c);
+    }
+}
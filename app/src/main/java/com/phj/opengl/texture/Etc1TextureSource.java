@@ -0,0 +1,104 @@
+package com.phj.opengl.texture;
+
+import android.graphics.Bitmap;
+import android.opengl.ETC1;
+import android.opengl.GLES20;
+
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.gl.GLTexture;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 描述：ETC1压缩纹理数据，通过glCompressedTexImage2D上传
+ * 显存和上传带宽都是RGBA8的1/8；编码结果保留在direct buffer中，上下文丢失后直接重新上传，不需要再编码。
+ * 压缩纹理不能glGenerateMipmap，需要mipmap时由{@link #encode(MipChain, Etc1Encoder)}逐级编码
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class Etc1TextureSource implements GLTexture.Source {
+
+    private static final String EXTENSION = "GL_OES_compressed_ETC1_RGB8_texture";
+
+    private final ByteBuffer[] mLevels;
+    private final int[] mWidths;
+    private final int[] mHeights;
+
+    public Etc1TextureSource(byte[] data, int width, int height) {
+        this(new byte[][]{data}, new int[]{width}, new int[]{height});
+    }
+
+    /**
+     * @param levels 每一级的ETC1数据，第0级为原图
+     */
+    public Etc1TextureSource(byte[][] levels, int[] widths, int[] heights) {
+        this.mLevels = new ByteBuffer[levels.length];
+        for (int i = 0; i < levels.length; i++) {
+            mLevels[i] = ByteBuffer.allocateDirect(levels[i].length).order(ByteOrder.nativeOrder());
+            mLevels[i].put(levels[i]);
+            mLevels[i].position(0);
+        }
+        this.mWidths = widths;
+        this.mHeights = heights;
+    }
+
+    /**
+     * 编码Bitmap，alpha会被丢弃；耗时操作，尽量不要在GL线程调用
+     */
+    public static Etc1TextureSource encode(Bitmap bitmap, Etc1Encoder encoder) {
+        return new Etc1TextureSource(encoder.encode(bitmap), bitmap.getWidth(), bitmap.getHeight());
+    }
+
+    /**
+     * 逐级编码mipmap链
+     */
+    public static Etc1TextureSource encode(MipChain chain, Etc1Encoder encoder) {
+        int count = chain.getLevelCount();
+        byte[][] levels = new byte[count][];
+        int[] widths = new int[count];
+        int[] heights = new int[count];
+        for (int level = 0; level < count; level++) {
+            widths[level] = chain.getWidth(level);
+            heights[level] = chain.getHeight(level);
+            levels[level] = encoder.encode(chain.getPixels(level), widths[level], heights[level]);
+        }
+        return new Etc1TextureSource(levels, widths, heights);
+    }
+
+    /**
+     * 驱动是否支持ETC1，GL线程调用
+     */
+    public static boolean isSupported(GLApi gl) {
+        String extensions = gl.glGetString(GLES20.GL_EXTENSIONS);
+        return extensions != null && extensions.contains(EXTENSION);
+    }
+
+    public int getLevelCount() {
+        return mLevels.length;
+    }
+
+    @Override
+    public int getWidth() {
+        return mWidths[0];
+    }
+
+    @Override
+    public int getHeight() {
+        return mHeights[0];
+    }
+
+    @Override
+    public long getSizeInBytes() {
+        return mLevels[0].capacity();
+    }
+
+    @Override
+    public void upload(GLApi gl) {
+        for (int level = 0; level < mLevels.length; level++) {
+            mLevels[level].position(0);
+            gl.glCompressedTexImage2D(GLES20.GL_TEXTURE_2D, level, ETC1.ETC1_RGB8_OES, mWidths[level], mHeights[level], 0,
+                    mLevels[level].capacity(), mLevels[level]);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.phj.opengl.texture;
+
+import android.opengl.GLES20;
+
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.gl.GLTexture;
+
+/**
+ * 描述：上传第0级后由glGenerateMipmap在GPU上生成其余级别
+ * 比CPU生成快，但驱动通常是sRGB空间的盒式滤波，缩小后偏暗；不能用于压缩纹理
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class GpuMipmapTextureSource implements GLTexture.Source {
+
+    private final GLTexture.Source mBase;
+
+    public GpuMipmapTextureSource(GLTexture.Source base) {
+        this.mBase = base;
+    }
+
+    @Override
+    public int getWidth() {
+        return mBase.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return mBase.getHeight();
+    }
+
+    @Override
+    public long getSizeInBytes() {
+        return mBase.getSizeInBytes();
+    }
+
+    @Override
+    public void upload(GLApi gl) {
+        mBase.upload(gl);
+        gl.glGenerateMipmap(GLES20.GL_TEXTURE_2D);
+    }
+}
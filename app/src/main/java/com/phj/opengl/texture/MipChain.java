@@ -0,0 +1,49 @@
+package com.phj.opengl.texture;
+
+/**
+ * 描述：mipmap链，第0级为原图，每级宽高减半（向下取整，最小为1）直到1x1
+ * 像素为行优先的ARGB，与Bitmap#getPixels一致
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class MipChain {
+
+    private final int[][] mPixels;
+    private final int[] mWidths;
+    private final int[] mHeights;
+
+    MipChain(int[][] pixels, int[] widths, int[] heights) {
+        this.mPixels = pixels;
+        this.mWidths = widths;
+        this.mHeights = heights;
+    }
+
+    public int getLevelCount() {
+        return mPixels.length;
+    }
+
+    public int[] getPixels(int level) {
+        return mPixels[level];
+    }
+
+    public int getWidth(int level) {
+        return mWidths[level];
+    }
+
+    public int getHeight(int level) {
+        return mHeights[level];
+    }
+
+    /**
+     * 完整mipmap链的级数
+     */
+    public static int levelCount(int width, int height) {
+        int size = Math.max(width, height);
+        int levels = 1;
+        while (size > 1) {
+            size >>= 1;
+            levels++;
+        }
+        return levels;
+    }
+}
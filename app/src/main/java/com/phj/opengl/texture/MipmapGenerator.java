@@ -0,0 +1,281 @@
+package com.phj.opengl.texture;
+
+import android.graphics.Bitmap;
+import android.opengl.GLES20;
+
+import com.phj.opengl.concurrent.ParallelRange;
+import com.phj.opengl.gl.GLApi;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 描述：CPU生成mipmap链
+ * 在线性空间中对预乘alpha的颜色做可分离滤波：sRGB先转线性再平均，避免缩小后整体偏暗，预乘避免透明边缘出现黑边。
+ * 每级由上一级缩小一半，奇数尺寸按覆盖面积加权，不要求2的幂；每一级的行被切分到线程池中并行计算，结果与串行一致。
+ * BOX为面积平均，KAISER为Kaiser窗的sinc，更锐利但更慢。
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class MipmapGenerator {
+
+    public static final int FILTER_BOX = 0;
+    public static final int FILTER_KAISER = 1;
+
+    private static final float KAISER_RADIUS = 2f;   // 以目标像素为单位的半径
+    private static final float KAISER_ALPHA = 4f;
+
+    private static final float[] SRGB_TO_LINEAR = new float[256];
+    private static final int LINEAR_STEPS = 4096;
+    private static final byte[] LINEAR_TO_SRGB = new byte[LINEAR_STEPS + 1];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            double c = i / 255.0;
+            SRGB_TO_LINEAR[i] = (float) (c <= 0.04045 ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4));
+        }
+        for (int i = 0; i <= LINEAR_STEPS; i++) {
+            double l = (double) i / LINEAR_STEPS;
+            double c = l <= 0.0031308 ? l * 12.92 : 1.055 * Math.pow(l, 1 / 2.4) - 0.055;
+            LINEAR_TO_SRGB[i] = (byte) Math.round(c * 255);
+        }
+    }
+
+    private final int mFilter;
+    private final boolean mGammaAware;
+    private final ExecutorService mExecutor;
+    private final int mTaskCount;
+
+    /**
+     * @param filter     FILTER_BOX 或 FILTER_KAISER
+     * @param gammaAware true表示像素是sRGB编码，在线性空间滤波
+     * @param executor   线程池，为null时在调用线程计算
+     * @param taskCount  每一级切分的任务数
+     */
+    public MipmapGenerator(int filter, boolean gammaAware, ExecutorService executor, int taskCount) {
+        this.mFilter = filter;
+        this.mGammaAware = gammaAware;
+        this.mExecutor = executor;
+        this.mTaskCount = Math.max(1, taskCount);
+    }
+
+    /**
+     * GLES2下非2的幂的纹理需要GL_OES_texture_npot才能使用mipmap，否则纹理不完整，GL线程调用
+     */
+    public static boolean canMipmap(GLApi gl, int width, int height) {
+        if (isPowerOfTwo(width, height)) {
+            return true;
+        }
+        String extensions = gl.glGetString(GLES20.GL_EXTENSIONS);
+        return extensions != null && extensions.contains("GL_OES_texture_npot");
+    }
+
+    /**
+     * 宽高都是2的幂，任何GLES2驱动都可以使用mipmap
+     */
+    public static boolean isPowerOfTwo(int width, int height) {
+        return (width & (width - 1)) == 0 && (height & (height - 1)) == 0;
+    }
+
+    public MipChain generate(Bitmap bitmap) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        int[] pixels = new int[width * height];
+        bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
+        return generate(pixels, width, height);
+    }
+
+    /**
+     * 生成完整的mipmap链，第0级直接引用传入的数组
+     */
+    public MipChain generate(int[] argb, int width, int height) {
+        int levels = MipChain.levelCount(width, height);
+        int[][] pixels = new int[levels][];
+        int[] widths = new int[levels];
+        int[] heights = new int[levels];
+        pixels[0] = argb;
+        widths[0] = width;
+        heights[0] = height;
+
+        float[] src = toLinear(argb);
+        for (int level = 1; level < levels; level++) {
+            final int sw = widths[level - 1];
+            final int sh = heights[level - 1];
+            final int dw = Math.max(1, sw >> 1);
+            final int dh = Math.max(1, sh >> 1);
+            final Kernel kx = new Kernel(sw, dw, mFilter);
+            final Kernel ky = new Kernel(sh, dh, mFilter);
+            final float[] from = src;
+            final float[] tmp = new float[dw * sh * 4];
+            final float[] dst = new float[dw * dh * 4];
+            final int[] out = new int[dw * dh];
+            // 先水平后垂直，两遍之间需要等待全部行完成
+            run(sh, new ParallelRange.Task<RuntimeException>() {
+                @Override
+                public void run(int fromRow, int toRow) {
+                    for (int y = fromRow; y < toRow; y++) {
+                        kx.apply(from, y * sw * 4, 4, tmp, y * dw * 4, 4);
+                    }
+                }
+            });
+            run(dw, new ParallelRange.Task<RuntimeException>() {
+                @Override
+                public void run(int fromColumn, int toColumn) {
+                    for (int x = fromColumn; x < toColumn; x++) {
+                        ky.apply(tmp, x * 4, dw * 4, dst, x * 4, dw * 4);
+                    }
+                    for (int y = 0; y < dh; y++) {
+                        for (int x = fromColumn; x < toColumn; x++) {
+                            out[y * dw + x] = toArgb(dst, (y * dw + x) * 4);
+                        }
+                    }
+                }
+            });
+            pixels[level] = out;
+            widths[level] = dw;
+            heights[level] = dh;
+            src = dst;
+        }
+        return new MipChain(pixels, widths, heights);
+    }
+
+    // 转为线性空间的预乘RGBA浮点
+    private float[] toLinear(int[] argb) {
+        float[] out = new float[argb.length * 4];
+        for (int i = 0; i < argb.length; i++) {
+            int c = argb[i];
+            float a = (c >>> 24) / 255f;
+            out[i * 4] = channelToLinear((c >> 16) & 0xFF) * a;
+            out[i * 4 + 1] = channelToLinear((c >> 8) & 0xFF) * a;
+            out[i * 4 + 2] = channelToLinear(c & 0xFF) * a;
+            out[i * 4 + 3] = a;
+        }
+        return out;
+    }
+
+    private float channelToLinear(int c) {
+        return mGammaAware ? SRGB_TO_LINEAR[c] : c / 255f;
+    }
+
+    // 反预乘并转回8位ARGB
+    private int toArgb(float[] rgba, int offset) {
+        float a = clamp01(rgba[offset + 3]);
+        if (a <= 0) {
+            return 0;
+        }
+        int r = linearToChannel(clamp01(rgba[offset] / a));
+        int g = linearToChannel(clamp01(rgba[offset + 1] / a));
+        int b = linearToChannel(clamp01(rgba[offset + 2] / a));
+        return (Math.round(a * 255) << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    private int linearToChannel(float l) {
+        if (mGammaAware) {
+            return LINEAR_TO_SRGB[(int) (l * LINEAR_STEPS + 0.5f)] & 0xFF;
+        }
+        return Math.round(l * 255);
+    }
+
+    private static float clamp01(float v) {
+        return v < 0 ? 0 : (v > 1 ? 1 : v);
+    }
+
+    // 把[0, count)切分到线程池中执行并等待完成
+    private void run(int count, ParallelRange.Task<RuntimeException> task) {
+        ParallelRange.run(mExecutor, count, mTaskCount, task);
+    }
+
+    // 一维缩小滤波的权重表，每个目标像素对应一段连续的源像素
+    private static class Kernel {
+        final int dstSize;
+        final int srcSize;
+        final int[] first;     // 每个目标像素的第一个源像素（可能越界，使用时夹到边缘）
+        final int taps;
+        final float[] weights; // dstSize * taps
+
+        Kernel(int srcSize, int dstSize, int filter) {
+            this.srcSize = srcSize;
+            this.dstSize = dstSize;
+            float scale = (float) srcSize / dstSize;
+            float support = filter == FILTER_KAISER ? KAISER_RADIUS * scale : scale / 2;
+            this.taps = (int) Math.ceil(support * 2) + 2;
+            this.first = new int[dstSize];
+            this.weights = new float[dstSize * taps];
+            for (int x = 0; x < dstSize; x++) {
+                float center = (x + 0.5f) * scale;
+                int start = (int) Math.floor(center - support);
+                first[x] = start;
+                float sum = 0;
+                for (int k = 0; k < taps; k++) {
+                    int i = start + k;
+                    float w;
+                    if (filter == FILTER_KAISER) {
+                        w = kaiser((i + 0.5f - center) / scale);
+                    } else {
+                        // 源像素[i, i+1)与目标像素覆盖区间的重叠长度
+                        float lo = Math.max(i, center - support);
+                        float hi = Math.min(i + 1, center + support);
+                        w = Math.max(0, hi - lo);
+                    }
+                    weights[x * taps + k] = w;
+                    sum += w;
+                }
+                for (int k = 0; k < taps; k++) {
+                    weights[x * taps + k] /= sum;
+                }
+            }
+        }
+
+        // src/dst中按stride排列的一行（或一列）RGBA
+        void apply(float[] src, int srcOffset, int srcStride, float[] dst, int dstOffset, int dstStride) {
+            for (int x = 0; x < dstSize; x++) {
+                float r = 0;
+                float g = 0;
+                float b = 0;
+                float a = 0;
+                for (int k = 0; k < taps; k++) {
+                    float w = weights[x * taps + k];
+                    if (w == 0) {
+                        continue;
+                    }
+                    int i = Math.min(Math.max(first[x] + k, 0), srcSize - 1);
+                    int o = srcOffset + i * srcStride;
+                    r += src[o] * w;
+                    g += src[o + 1] * w;
+                    b += src[o + 2] * w;
+                    a += src[o + 3] * w;
+                }
+                int o = dstOffset + x * dstStride;
+                dst[o] = r;
+                dst[o + 1] = g;
+                dst[o + 2] = b;
+                dst[o + 3] = a;
+            }
+        }
+
+        // Kaiser窗的sinc，t以目标像素为单位
+        private static float kaiser(float t) {
+            float x = t / KAISER_RADIUS;
+            if (x <= -1 || x >= 1) {
+                return 0;
+            }
+            double window = besselI0(KAISER_ALPHA * Math.sqrt(1 - x * x)) / besselI0(KAISER_ALPHA);
+            double sinc = t == 0 ? 1 : Math.sin(Math.PI * t) / (Math.PI * t);
+            return (float) (sinc * window);
+        }
+
+        // 第一类零阶修正贝塞尔函数的级数展开
+        private static double besselI0(double x) {
+            double sum = 1;
+            double term = 1;
+            double q = x * x / 4;
+            for (int k = 1; k < 32; k++) {
+                term *= q / (k * k);
+                sum += term;
+                if (term < sum * 1e-12) {
+                    break;
+                }
+            }
+            return sum;
+        }
+    }
+}
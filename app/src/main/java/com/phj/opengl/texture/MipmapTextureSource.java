@@ -0,0 +1,72 @@
+package com.phj.opengl.texture;
+
+import android.opengl.GLES20;
+
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.gl.GLTexture;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 描述：CPU生成的mipmap链，逐级glTexImage2D上传为RGBA8
+ * 与GLUtils#texImage2D一致按预乘alpha上传；转换后的数据保留在direct buffer中，上下文丢失后直接重新上传
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class MipmapTextureSource implements GLTexture.Source {
+
+    private final ByteBuffer[] mLevels;
+    private final int[] mWidths;
+    private final int[] mHeights;
+
+    public MipmapTextureSource(MipChain chain) {
+        int count = chain.getLevelCount();
+        mLevels = new ByteBuffer[count];
+        mWidths = new int[count];
+        mHeights = new int[count];
+        for (int level = 0; level < count; level++) {
+            mWidths[level] = chain.getWidth(level);
+            mHeights[level] = chain.getHeight(level);
+            mLevels[level] = toRgba(chain.getPixels(level));
+        }
+    }
+
+    @Override
+    public int getWidth() {
+        return mWidths[0];
+    }
+
+    @Override
+    public int getHeight() {
+        return mHeights[0];
+    }
+
+    @Override
+    public long getSizeInBytes() {
+        return mLevels[0].capacity();
+    }
+
+    @Override
+    public void upload(GLApi gl) {
+        for (int level = 0; level < mLevels.length; level++) {
+            mLevels[level].position(0);
+            gl.glTexImage2D(GLES20.GL_TEXTURE_2D, level, GLES20.GL_RGBA, mWidths[level], mHeights[level], 0,
+                    GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, mLevels[level]);
+        }
+    }
+
+    // ARGB转为预乘的RGBA字节
+    private static ByteBuffer toRgba(int[] argb) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(argb.length * 4).order(ByteOrder.nativeOrder());
+        for (int c : argb) {
+            int a = c >>> 24;
+            buffer.put((byte) (((c >> 16) & 0xFF) * a / 255));
+            buffer.put((byte) (((c >> 8) & 0xFF) * a / 255));
+            buffer.put((byte) ((c & 0xFF) * a / 255));
+            buffer.put((byte) a);
+        }
+        buffer.position(0);
+        return buffer;
+    }
+}
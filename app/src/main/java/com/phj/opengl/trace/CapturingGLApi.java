@@ -0,0 +1,1164 @@
+package com.phj.opengl.trace;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import com.phj.opengl.gl.GLApi;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 描述：抓取GL调用流的GLApi，转发所有调用，抓取期间把调用连同buffer、纹理数据和uniform值按{@link TraceFormat}记录下来，
+ * 用于在开发机上通过{@link TraceReplayer}重现用户设备上的慢帧。
+ * 任意线程调用{@link #requestCapture(File, int, Listener)}，从下一帧开始抓取指定的帧数，结束后在工作线程写文件。
+ * 帧的边界由{@link #beginFrame()}、{@link #endFrame()}确定，抓取期间每帧结束时通过帧请求者请求下一帧，按需绘制时也能抓满。
+ * 没有抓取时每次调用只多一次字段判空，每帧多一次原子读；抓取期间数据先写在内存中，GL线程上不做文件I/O。
+ * 抓取之前创建的对象不在文件中，回放时按原来的名字使用；不经过GLApi直接调用GLES20的部分同样不在其中。
+ * GL调用必须在GL线程
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class CapturingGLApi implements GLApi {
+
+    private final static String TAG = CapturingGLApi.class.getSimpleName();
+
+    // 一帧的调用流通常在几十KB以内，上传纹理时按需扩容
+    private static final int INITIAL_CAPACITY = 256 * 1024;
+
+    /**
+     * 在写文件的线程上回调
+     */
+    public interface Listener {
+        void onCaptureFinished(File file, int frames, int bytes);
+
+        void onCaptureFailed(File file, IOException e);
+    }
+
+    private static final class Request {
+        final File file;
+        final int frames;
+        final Listener listener;
+
+        Request(File file, int frames, Listener listener) {
+            this.file = file;
+            this.frames = frames;
+            this.listener = listener;
+        }
+    }
+
+    private final GLApi mGL;
+    private final Executor mExecutor;
+    // 请求到写完文件之前不为null，期间不接受新的请求
+    private final AtomicReference<Request> mPending = new AtomicReference<>();
+    private Runnable mFrameRequester;
+    private Request mActive;
+    private TraceWriter mWriter;
+    private int mFrames;
+
+    /**
+     * @param executor 抓取结束后写文件的线程
+     */
+    public CapturingGLApi(GLApi gl, Executor executor) {
+        this.mGL = gl;
+        this.mExecutor = executor;
+    }
+
+    /**
+     * 抓取期间每帧结束时调用，按需绘制时传入requestRender
+     */
+    public void setFrameRequester(Runnable requester) {
+        this.mFrameRequester = requester;
+    }
+
+    /**
+     * 从下一帧开始抓取，可以在任意线程调用
+     *
+     * @param frames 抓取的帧数
+     * @return 已经有抓取在进行时返回false
+     */
+    public boolean requestCapture(File file, int frames, Listener listener) {
+        if (frames <= 0) {
+            throw new IllegalArgumentException("frames must be positive: " + frames);
+        }
+        return mPending.compareAndSet(null, new Request(file, frames, listener));
+    }
+
+    /**
+     * 是否有抓取在等待、进行或写文件，可以在任意线程调用
+     */
+    public boolean isCapturing() {
+        return mPending.get() != null;
+    }
+
+    /**
+     * 一帧开始，GL线程调用；有请求时从这里开始记录
+     */
+    public void beginFrame() {
+        if (mWriter != null) {
+            return;
+        }
+        Request request = mPending.get();
+        if (request != null) {
+            mActive = request;
+            mFrames = 0;
+            mWriter = new TraceWriter(INITIAL_CAPACITY);
+            Log.i(TAG, "beginFrame: capturing " + request.frames + " frames to " + request.file);
+        }
+    }
+
+    /**
+     * 一帧结束，GL线程调用；抓满帧数后交给工作线程写文件
+     */
+    public void endFrame() {
+        TraceWriter writer = mWriter;
+        if (writer == null) {
+            return;
+        }
+        writer.writeOp(TraceFormat.OP_FRAME_END);
+        mFrames++;
+        if (mFrames < mActive.frames) {
+            Runnable requester = mFrameRequester;
+            if (requester != null) {
+                requester.run();
+            }
+            return;
+        }
+        final Request request = mActive;
+        final TraceWriter finished = writer;
+        final int frames = mFrames;
+        mWriter = null;
+        mActive = null;
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                write(request, finished, frames);
+            }
+        });
+    }
+
+    private void write(Request request, TraceWriter writer, int frames) {
+        IOException error = null;
+        OutputStream out = null;
+        try {
+            File dir = request.file.getParentFile();
+            if (dir != null && !dir.exists() && !dir.mkdirs()) {
+                throw new IOException("mkdirs failed " + dir);
+            }
+            out = new BufferedOutputStream(new FileOutputStream(request.file));
+            writer.writeTo(out);
+            out.close();
+            out = null;
+            Log.i(TAG, "write: " + frames + " frames, " + writer.size() + " bytes to " + request.file);
+        } catch (IOException e) {
+            Log.e(TAG, "write: " + request.file, e);
+            request.file.delete();
+            error = e;
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+        // 回调之前就可以开始下一次抓取
+        mPending.set(null);
+        if (request.listener != null) {
+            if (error == null) {
+                request.listener.onCaptureFinished(request.file, frames, writer.size());
+            } else {
+                request.listener.onCaptureFailed(request.file, error);
+            }
+        }
+    }
+
+    // GLUtils按Bitmap的格式上传，这里统一展开为RGBA，回放时用glTexImage2D上传
+    private static void writeBitmap(TraceWriter writer, Bitmap bitmap) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        writer.writeInt(width);
+        writer.writeInt(height);
+        ByteBuffer rgba = ByteBuffer.allocate(width * height * 4);
+        if (bitmap.getConfig() == Bitmap.Config.ARGB_8888) {
+            bitmap.copyPixelsToBuffer(rgba);
+        } else {
+            int[] argb = new int[width * height];
+            bitmap.getPixels(argb, 0, width, 0, 0, width, height);
+            for (int c : argb) {
+                rgba.put((byte) (c >> 16)).put((byte) (c >> 8)).put((byte) c).put((byte) (c >>> 24));
+            }
+        }
+        rgba.flip();
+        writer.writePayload(rgba, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void glGenTextures(int n, int[] textures, int offset) {
+        mGL.glGenTextures(n, textures, offset);
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_GEN_TEXTURES);
+            writer.writeInt(n);
+            writer.writeInts(textures, offset, n);
+        }
+    }
+
+    @Override
+    public void glDeleteTextures(int n, int[] textures, int offset) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_DELETE_TEXTURES);
+            writer.writeInt(n);
+            writer.writeInts(textures, offset, n);
+        }
+        mGL.glDeleteTextures(n, textures, offset);
+    }
+
+    @Override
+    public void glBindTexture(int target, int texture) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_BIND_TEXTURE);
+            writer.writeInt(target);
+            writer.writeInt(texture);
+        }
+        mGL.glBindTexture(target, texture);
+    }
+
+    @Override
+    public void glTexParameteri(int target, int pname, int param) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_TEX_PARAMETERI);
+            writer.writeInt(target);
+            writer.writeInt(pname);
+            writer.writeInt(param);
+        }
+        mGL.glTexParameteri(target, pname, param);
+    }
+
+    @Override
+    public void glTexImage2D(int target, int level, int internalformat, int width, int height, int border, int format, int type, Buffer pixels) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_TEX_IMAGE_2D);
+            writer.writeInt(target);
+            writer.writeInt(level);
+            writer.writeInt(internalformat);
+            writer.writeInt(width);
+            writer.writeInt(height);
+            writer.writeInt(border);
+            writer.writeInt(format);
+            writer.writeInt(type);
+            writer.writePayload(pixels, Integer.MAX_VALUE);
+        }
+        mGL.glTexImage2D(target, level, internalformat, width, height, border, format, type, pixels);
+    }
+
+    @Override
+    public void glGenFramebuffers(int n, int[] framebuffers, int offset) {
+        mGL.glGenFramebuffers(n, framebuffers, offset);
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_GEN_FRAMEBUFFERS);
+            writer.writeInt(n);
+            writer.writeInts(framebuffers, offset, n);
+        }
+    }
+
+    @Override
+    public void glDeleteFramebuffers(int n, int[] framebuffers, int offset) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_DELETE_FRAMEBUFFERS);
+            writer.writeInt(n);
+            writer.writeInts(framebuffers, offset, n);
+        }
+        mGL.glDeleteFramebuffers(n, framebuffers, offset);
+    }
+
+    @Override
+    public void glBindFramebuffer(int target, int framebuffer) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_BIND_FRAMEBUFFER);
+            writer.writeInt(target);
+            writer.writeInt(framebuffer);
+        }
+        mGL.glBindFramebuffer(target, framebuffer);
+    }
+
+    @Override
+    public void glFramebufferTexture2D(int target, int attachment, int textarget, int texture, int level) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_FRAMEBUFFER_TEXTURE_2D);
+            writer.writeInt(target);
+            writer.writeInt(attachment);
+            writer.writeInt(textarget);
+            writer.writeInt(texture);
+            writer.writeInt(level);
+        }
+        mGL.glFramebufferTexture2D(target, attachment, textarget, texture, level);
+    }
+
+    @Override
+    public int glCheckFramebufferStatus(int target) {
+        int result = mGL.glCheckFramebufferStatus(target);
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_CHECK_FRAMEBUFFER_STATUS);
+            writer.writeInt(target);
+            writer.writeInt(result);
+        }
+        return result;
+    }
+
+    @Override
+    public void glGenRenderbuffers(int n, int[] renderbuffers, int offset) {
+        mGL.glGenRenderbuffers(n, renderbuffers, offset);
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_GEN_RENDERBUFFERS);
+            writer.writeInt(n);
+            writer.writeInts(renderbuffers, offset, n);
+        }
+    }
+
+    @Override
+    public void glDeleteRenderbuffers(int n, int[] renderbuffers, int offset) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_DELETE_RENDERBUFFERS);
+            writer.writeInt(n);
+            writer.writeInts(renderbuffers, offset, n);
+        }
+        mGL.glDeleteRenderbuffers(n, renderbuffers, offset);
+    }
+
+    @Override
+    public void glBindRenderbuffer(int target, int renderbuffer) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_BIND_RENDERBUFFER);
+            writer.writeInt(target);
+            writer.writeInt(renderbuffer);
+        }
+        mGL.glBindRenderbuffer(target, renderbuffer);
+    }
+
+    @Override
+    public void glRenderbufferStorage(int target, int internalformat, int width, int height) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_RENDERBUFFER_STORAGE);
+            writer.writeInt(target);
+            writer.writeInt(internalformat);
+            writer.writeInt(width);
+            writer.writeInt(height);
+        }
+        mGL.glRenderbufferStorage(target, internalformat, width, height);
+    }
+
+    @Override
+    public void glFramebufferRenderbuffer(int target, int attachment, int renderbuffertarget, int renderbuffer) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_FRAMEBUFFER_RENDERBUFFER);
+            writer.writeInt(target);
+            writer.writeInt(attachment);
+            writer.writeInt(renderbuffertarget);
+            writer.writeInt(renderbuffer);
+        }
+        mGL.glFramebufferRenderbuffer(target, attachment, renderbuffertarget, renderbuffer);
+    }
+
+    @Override
+    public void glViewport(int x, int y, int width, int height) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_VIEWPORT);
+            writer.writeInt(x);
+            writer.writeInt(y);
+            writer.writeInt(width);
+            writer.writeInt(height);
+        }
+        mGL.glViewport(x, y, width, height);
+    }
+
+    @Override
+    public int glCreateShader(int type) {
+        int result = mGL.glCreateShader(type);
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_CREATE_SHADER);
+            writer.writeInt(type);
+            writer.writeInt(result);
+        }
+        return result;
+    }
+
+    @Override
+    public void glShaderSource(int shader, String string) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_SHADER_SOURCE);
+            writer.writeInt(shader);
+            writer.writeString(string);
+        }
+        mGL.glShaderSource(shader, string);
+    }
+
+    @Override
+    public void glCompileShader(int shader) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_COMPILE_SHADER);
+            writer.writeInt(shader);
+        }
+        mGL.glCompileShader(shader);
+    }
+
+    @Override
+    public void glGetShaderiv(int shader, int pname, int[] params, int offset) {
+        mGL.glGetShaderiv(shader, pname, params, offset);
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_GET_SHADERIV);
+            writer.writeInt(shader);
+            writer.writeInt(pname);
+            writer.writeInt(params[offset]);
+        }
+    }
+
+    @Override
+    public String glGetShaderInfoLog(int shader) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_GET_SHADER_INFO_LOG);
+            writer.writeInt(shader);
+        }
+        return mGL.glGetShaderInfoLog(shader);
+    }
+
+    @Override
+    public void glDeleteShader(int shader) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_DELETE_SHADER);
+            writer.writeInt(shader);
+        }
+        mGL.glDeleteShader(shader);
+    }
+
+    @Override
+    public int glCreateProgram() {
+        int result = mGL.glCreateProgram();
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_CREATE_PROGRAM);
+            writer.writeInt(result);
+        }
+        return result;
+    }
+
+    @Override
+    public void glAttachShader(int program, int shader) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_ATTACH_SHADER);
+            writer.writeInt(program);
+            writer.writeInt(shader);
+        }
+        mGL.glAttachShader(program, shader);
+    }
+
+    @Override
+    public void glLinkProgram(int program) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_LINK_PROGRAM);
+            writer.writeInt(program);
+        }
+        mGL.glLinkProgram(program);
+    }
+
+    @Override
+    public void glGetProgramiv(int program, int pname, int[] params, int offset) {
+        mGL.glGetProgramiv(program, pname, params, offset);
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_GET_PROGRAMIV);
+            writer.writeInt(program);
+            writer.writeInt(pname);
+            writer.writeInt(params[offset]);
+        }
+    }
+
+    @Override
+    public String glGetProgramInfoLog(int program) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_GET_PROGRAM_INFO_LOG);
+            writer.writeInt(program);
+        }
+        return mGL.glGetProgramInfoLog(program);
+    }
+
+    @Override
+    public void glDeleteProgram(int program) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_DELETE_PROGRAM);
+            writer.writeInt(program);
+        }
+        mGL.glDeleteProgram(program);
+    }
+
+    @Override
+    public void glUseProgram(int program) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_USE_PROGRAM);
+            writer.writeInt(program);
+        }
+        mGL.glUseProgram(program);
+    }
+
+    @Override
+    public int glGetAttribLocation(int program, String name) {
+        int result = mGL.glGetAttribLocation(program, name);
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_GET_ATTRIB_LOCATION);
+            writer.writeInt(program);
+            writer.writeString(name);
+            writer.writeInt(result);
+        }
+        return result;
+    }
+
+    @Override
+    public int glGetUniformLocation(int program, String name) {
+        int result = mGL.glGetUniformLocation(program, name);
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_GET_UNIFORM_LOCATION);
+            writer.writeInt(program);
+            writer.writeString(name);
+            writer.writeInt(result);
+        }
+        return result;
+    }
+
+    @Override
+    public void glUniform1i(int location, int x) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_UNIFORM_1I);
+            writer.writeInt(location);
+            writer.writeInt(x);
+        }
+        mGL.glUniform1i(location, x);
+    }
+
+    @Override
+    public void glUniform1f(int location, float x) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_UNIFORM_1F);
+            writer.writeInt(location);
+            writer.writeFloat(x);
+        }
+        mGL.glUniform1f(location, x);
+    }
+
+    @Override
+    public void glUniform2f(int location, float x, float y) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_UNIFORM_2F);
+            writer.writeInt(location);
+            writer.writeFloat(x);
+            writer.writeFloat(y);
+        }
+        mGL.glUniform2f(location, x, y);
+    }
+
+    @Override
+    public void glUniform4f(int location, float x, float y, float z, float w) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_UNIFORM_4F);
+            writer.writeInt(location);
+            writer.writeFloat(x);
+            writer.writeFloat(y);
+            writer.writeFloat(z);
+            writer.writeFloat(w);
+        }
+        mGL.glUniform4f(location, x, y, z, w);
+    }
+
+    @Override
+    public void glActiveTexture(int texture) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_ACTIVE_TEXTURE);
+            writer.writeInt(texture);
+        }
+        mGL.glActiveTexture(texture);
+    }
+
+    @Override
+    public void glVertexAttribPointer(int indx, int size, int type, boolean normalized, int stride, Buffer ptr) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_VERTEX_ATTRIB_POINTER);
+            writer.writeInt(indx);
+            writer.writeInt(size);
+            writer.writeInt(type);
+            writer.writeBoolean(normalized);
+            writer.writeInt(stride);
+            writer.writePayload(ptr, Integer.MAX_VALUE);
+        }
+        mGL.glVertexAttribPointer(indx, size, type, normalized, stride, ptr);
+    }
+
+    @Override
+    public void glEnableVertexAttribArray(int index) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_ENABLE_VERTEX_ATTRIB_ARRAY);
+            writer.writeInt(index);
+        }
+        mGL.glEnableVertexAttribArray(index);
+    }
+
+    @Override
+    public void glDisableVertexAttribArray(int index) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_DISABLE_VERTEX_ATTRIB_ARRAY);
+            writer.writeInt(index);
+        }
+        mGL.glDisableVertexAttribArray(index);
+    }
+
+    @Override
+    public void glDrawArrays(int mode, int first, int count) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_DRAW_ARRAYS);
+            writer.writeInt(mode);
+            writer.writeInt(first);
+            writer.writeInt(count);
+        }
+        mGL.glDrawArrays(mode, first, count);
+    }
+
+    @Override
+    public String glGetString(int name) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_GET_STRING);
+            writer.writeInt(name);
+        }
+        return mGL.glGetString(name);
+    }
+
+    @Override
+    public void glGetIntegerv(int pname, int[] params, int offset) {
+        mGL.glGetIntegerv(pname, params, offset);
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_GET_INTEGERV);
+            writer.writeInt(pname);
+            writer.writeInt(params[offset]);
+        }
+    }
+
+    @Override
+    public void glGenBuffers(int n, int[] buffers, int offset) {
+        mGL.glGenBuffers(n, buffers, offset);
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_GEN_BUFFERS);
+            writer.writeInt(n);
+            writer.writeInts(buffers, offset, n);
+        }
+    }
+
+    @Override
+    public void glDeleteBuffers(int n, int[] buffers, int offset) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_DELETE_BUFFERS);
+            writer.writeInt(n);
+            writer.writeInts(buffers, offset, n);
+        }
+        mGL.glDeleteBuffers(n, buffers, offset);
+    }
+
+    @Override
+    public void glBindBuffer(int target, int buffer) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_BIND_BUFFER);
+            writer.writeInt(target);
+            writer.writeInt(buffer);
+        }
+        mGL.glBindBuffer(target, buffer);
+    }
+
+    @Override
+    public void glBufferData(int target, int size, Buffer data, int usage) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_BUFFER_DATA);
+            writer.writeInt(target);
+            writer.writeInt(size);
+            writer.writePayload(data, size);
+            writer.writeInt(usage);
+        }
+        mGL.glBufferData(target, size, data, usage);
+    }
+
+    @Override
+    public void glBufferSubData(int target, int offset, int size, Buffer data) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_BUFFER_SUB_DATA);
+            writer.writeInt(target);
+            writer.writeInt(offset);
+            writer.writeInt(size);
+            writer.writePayload(data, size);
+        }
+        mGL.glBufferSubData(target, offset, size, data);
+    }
+
+    @Override
+    public void glDetachShader(int program, int shader) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_DETACH_SHADER);
+            writer.writeInt(program);
+            writer.writeInt(shader);
+        }
+        mGL.glDetachShader(program, shader);
+    }
+
+    @Override
+    public void texImage2D(int target, int level, Bitmap bitmap, int border) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_TEX_IMAGE_BITMAP);
+            writer.writeInt(target);
+            writer.writeInt(level);
+            writeBitmap(writer, bitmap);
+            writer.writeInt(border);
+        }
+        mGL.texImage2D(target, level, bitmap, border);
+    }
+
+    @Override
+    public void glCompressedTexImage2D(int target, int level, int internalformat, int width, int height, int border, int imageSize, Buffer data) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_COMPRESSED_TEX_IMAGE_2D);
+            writer.writeInt(target);
+            writer.writeInt(level);
+            writer.writeInt(internalformat);
+            writer.writeInt(width);
+            writer.writeInt(height);
+            writer.writeInt(border);
+            writer.writeInt(imageSize);
+            writer.writePayload(data, imageSize);
+        }
+        mGL.glCompressedTexImage2D(target, level, internalformat, width, height, border, imageSize, data);
+    }
+
+    @Override
+    public void glGenerateMipmap(int target) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_GENERATE_MIPMAP);
+            writer.writeInt(target);
+        }
+        mGL.glGenerateMipmap(target);
+    }
+
+    @Override
+    public void glVertexAttribPointer(int indx, int size, int type, boolean normalized, int stride, int offset) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_VERTEX_ATTRIB_POINTER_OFFSET);
+            writer.writeInt(indx);
+            writer.writeInt(size);
+            writer.writeInt(type);
+            writer.writeBoolean(normalized);
+            writer.writeInt(stride);
+            writer.writeInt(offset);
+        }
+        mGL.glVertexAttribPointer(indx, size, type, normalized, stride, offset);
+    }
+
+    @Override
+    public void glDrawElements(int mode, int count, int type, int offset) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_DRAW_ELEMENTS_OFFSET);
+            writer.writeInt(mode);
+            writer.writeInt(count);
+            writer.writeInt(type);
+            writer.writeInt(offset);
+        }
+        mGL.glDrawElements(mode, count, type, offset);
+    }
+
+    @Override
+    public void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_UNIFORM_MATRIX_4FV);
+            writer.writeInt(location);
+            writer.writeInt(count);
+            writer.writeBoolean(transpose);
+            writer.writeFloats(value, offset, count * 16);
+        }
+        mGL.glUniformMatrix4fv(location, count, transpose, value, offset);
+    }
+
+    @Override
+    public void glEnable(int cap) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_ENABLE);
+            writer.writeInt(cap);
+        }
+        mGL.glEnable(cap);
+    }
+
+    @Override
+    public void glDisable(int cap) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_DISABLE);
+            writer.writeInt(cap);
+        }
+        mGL.glDisable(cap);
+    }
+
+    @Override
+    public void glBlendFunc(int sfactor, int dfactor) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_BLEND_FUNC);
+            writer.writeInt(sfactor);
+            writer.writeInt(dfactor);
+        }
+        mGL.glBlendFunc(sfactor, dfactor);
+    }
+
+    @Override
+    public void glTexSubImage2D(int target, int level, int xoffset, int yoffset, int width, int height, int format, int type, Buffer pixels) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_TEX_SUB_IMAGE_2D);
+            writer.writeInt(target);
+            writer.writeInt(level);
+            writer.writeInt(xoffset);
+            writer.writeInt(yoffset);
+            writer.writeInt(width);
+            writer.writeInt(height);
+            writer.writeInt(format);
+            writer.writeInt(type);
+            writer.writePayload(pixels, Integer.MAX_VALUE);
+        }
+        mGL.glTexSubImage2D(target, level, xoffset, yoffset, width, height, format, type, pixels);
+    }
+
+    @Override
+    public void glPixelStorei(int pname, int param) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_PIXEL_STOREI);
+            writer.writeInt(pname);
+            writer.writeInt(param);
+        }
+        mGL.glPixelStorei(pname, param);
+    }
+
+    @Override
+    public void glCopyTexSubImage2D(int target, int level, int xoffset, int yoffset, int x, int y, int width, int height) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_COPY_TEX_SUB_IMAGE_2D);
+            writer.writeInt(target);
+            writer.writeInt(level);
+            writer.writeInt(xoffset);
+            writer.writeInt(yoffset);
+            writer.writeInt(x);
+            writer.writeInt(y);
+            writer.writeInt(width);
+            writer.writeInt(height);
+        }
+        mGL.glCopyTexSubImage2D(target, level, xoffset, yoffset, x, y, width, height);
+    }
+
+    @Override
+    public void glReadPixels(int x, int y, int width, int height, int format, int type, Buffer pixels) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_READ_PIXELS);
+            writer.writeInt(x);
+            writer.writeInt(y);
+            writer.writeInt(width);
+            writer.writeInt(height);
+            writer.writeInt(format);
+            writer.writeInt(type);
+        }
+        mGL.glReadPixels(x, y, width, height, format, type, pixels);
+    }
+
+    @Override
+    public void glUniform2fv(int location, int count, float[] v, int offset) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_UNIFORM_2FV);
+            writer.writeInt(location);
+            writer.writeInt(count);
+            writer.writeFloats(v, offset, count * 2);
+        }
+        mGL.glUniform2fv(location, count, v, offset);
+    }
+
+    @Override
+    public void glUniform3fv(int location, int count, float[] v, int offset) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_UNIFORM_3FV);
+            writer.writeInt(location);
+            writer.writeInt(count);
+            writer.writeFloats(v, offset, count * 3);
+        }
+        mGL.glUniform3fv(location, count, v, offset);
+    }
+
+    @Override
+    public void glUniform4fv(int location, int count, float[] v, int offset) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_UNIFORM_4FV);
+            writer.writeInt(location);
+            writer.writeInt(count);
+            writer.writeFloats(v, offset, count * 4);
+        }
+        mGL.glUniform4fv(location, count, v, offset);
+    }
+
+    @Override
+    public void glUniformMatrix3fv(int location, int count, boolean transpose, float[] value, int offset) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_UNIFORM_MATRIX_3FV);
+            writer.writeInt(location);
+            writer.writeInt(count);
+            writer.writeBoolean(transpose);
+            writer.writeFloats(value, offset, count * 9);
+        }
+        mGL.glUniformMatrix3fv(location, count, transpose, value, offset);
+    }
+
+    @Override
+    public void glClear(int mask) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_CLEAR);
+            writer.writeInt(mask);
+        }
+        mGL.glClear(mask);
+    }
+
+    @Override
+    public void glClearColor(float red, float green, float blue, float alpha) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_CLEAR_COLOR);
+            writer.writeFloat(red);
+            writer.writeFloat(green);
+            writer.writeFloat(blue);
+            writer.writeFloat(alpha);
+        }
+        mGL.glClearColor(red, green, blue, alpha);
+    }
+
+    @Override
+    public void glClearDepthf(float depth) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_CLEAR_DEPTHF);
+            writer.writeFloat(depth);
+        }
+        mGL.glClearDepthf(depth);
+    }
+
+    @Override
+    public void glClearStencil(int s) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_CLEAR_STENCIL);
+            writer.writeInt(s);
+        }
+        mGL.glClearStencil(s);
+    }
+
+    @Override
+    public void glStencilFunc(int func, int ref, int mask) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_STENCIL_FUNC);
+            writer.writeInt(func);
+            writer.writeInt(ref);
+            writer.writeInt(mask);
+        }
+        mGL.glStencilFunc(func, ref, mask);
+    }
+
+    @Override
+    public void glStencilOp(int fail, int zfail, int zpass) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_STENCIL_OP);
+            writer.writeInt(fail);
+            writer.writeInt(zfail);
+            writer.writeInt(zpass);
+        }
+        mGL.glStencilOp(fail, zfail, zpass);
+    }
+
+    @Override
+    public void glStencilMask(int mask) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_STENCIL_MASK);
+            writer.writeInt(mask);
+        }
+        mGL.glStencilMask(mask);
+    }
+
+    @Override
+    public void glDepthFunc(int func) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_DEPTH_FUNC);
+            writer.writeInt(func);
+        }
+        mGL.glDepthFunc(func);
+    }
+
+    @Override
+    public void glDepthMask(boolean flag) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_DEPTH_MASK);
+            writer.writeBoolean(flag);
+        }
+        mGL.glDepthMask(flag);
+    }
+
+    @Override
+    public void glColorMask(boolean red, boolean green, boolean blue, boolean alpha) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_COLOR_MASK);
+            writer.writeBoolean(red);
+            writer.writeBoolean(green);
+            writer.writeBoolean(blue);
+            writer.writeBoolean(alpha);
+        }
+        mGL.glColorMask(red, green, blue, alpha);
+    }
+
+    @Override
+    public int glGetError() {
+        int result = mGL.glGetError();
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_GET_ERROR);
+            writer.writeInt(result);
+        }
+        return result;
+    }
+
+    @Override
+    public void glGetVertexAttribiv(int index, int pname, int[] params, int offset) {
+        mGL.glGetVertexAttribiv(index, pname, params, offset);
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_GET_VERTEX_ATTRIBIV);
+            writer.writeInt(index);
+            writer.writeInt(pname);
+            writer.writeInt(params[offset]);
+        }
+    }
+
+    @Override
+    public void glGetBufferParameteriv(int target, int pname, int[] params, int offset) {
+        mGL.glGetBufferParameteriv(target, pname, params, offset);
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_GET_BUFFER_PARAMETERIV);
+            writer.writeInt(target);
+            writer.writeInt(pname);
+            writer.writeInt(params[offset]);
+        }
+    }
+
+    @Override
+    public void glDrawElements(int mode, int count, int type, Buffer indices) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_DRAW_ELEMENTS);
+            writer.writeInt(mode);
+            writer.writeInt(count);
+            writer.writeInt(type);
+            writer.writePayload(indices, Integer.MAX_VALUE);
+        }
+        mGL.glDrawElements(mode, count, type, indices);
+    }
+
+    @Override
+    public void glProgramBinary(int program, int binaryFormat, Buffer binary, int length) {
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_PROGRAM_BINARY);
+            writer.writeInt(program);
+            writer.writeInt(binaryFormat);
+            writer.writePayload(binary, length);
+            writer.writeInt(length);
+        }
+        mGL.glProgramBinary(program, binaryFormat, binary, length);
+    }
+
+    @Override
+    public void glGetProgramBinary(int program, int bufSize, int[] length, int lengthOffset,
+                                   int[] binaryFormat, int binaryFormatOffset, Buffer binary) {
+        mGL.glGetProgramBinary(program, bufSize, length, lengthOffset, binaryFormat, binaryFormatOffset, binary);
+        TraceWriter writer = mWriter;
+        if (writer != null) {
+            writer.writeOp(TraceFormat.OP_GET_PROGRAM_BINARY);
+            writer.writeInt(program);
+            writer.writeInt(bufSize);
+            writer.writeInt(length[lengthOffset]);
+            writer.writeInt(binaryFormat[binaryFormatOffset]);
+        }
+    }
+}
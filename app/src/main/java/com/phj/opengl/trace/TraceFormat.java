@@ -0,0 +1,199 @@
+package com.phj.opengl.trace;
+
+/**
+ * 描述：GL调用流抓取文件（.gltrace）的格式常量
+ * 文件头为magic和版本，之后是一条条调用记录：1字节的操作码，接着按{@link com.phj.opengl.gl.GLApi}中的参数顺序写参数。
+ * int为zigzag变长编码，常见的枚举和对象名只占1到3字节；float为4字节小端序；boolean为1字节；String为长度加UTF-8。
+ * 数组只写GL实际读取的部分，例如glUniform4fv写count * 4个float；buffer和纹理数据写为长度加原始字节，null的长度为-1，
+ * glVertexAttribPointer等按Buffer剩余的部分写，glBufferData按size写。
+ * 有返回值或输出参数的调用在调用之后写，最后追加结果：新建的对象名、uniform位置、查询结果的第一个值等，回放时据此映射对象名。
+ * {@link #OP_FRAME_END}标记一帧结束
+ * Created by PHJ on 2026/10/19.
+ */
+
+public final class TraceFormat {
+
+    public static final int MAGIC = 0x52544C47; // "GLTR"，小端序
+    public static final int VERSION = 1;
+    public static final String SUFFIX = ".gltrace";
+
+    // 操作码，与GLApi中的方法一一对应，重载的方法按最后一个参数区分
+    public static final int OP_FRAME_END = 0;
+    public static final int OP_GEN_TEXTURES = 1;
+    public static final int OP_DELETE_TEXTURES = 2;
+    public static final int OP_BIND_TEXTURE = 3;
+    public static final int OP_TEX_PARAMETERI = 4;
+    public static final int OP_TEX_IMAGE_2D = 5;
+    public static final int OP_GEN_FRAMEBUFFERS = 6;
+    public static final int OP_DELETE_FRAMEBUFFERS = 7;
+    public static final int OP_BIND_FRAMEBUFFER = 8;
+    public static final int OP_FRAMEBUFFER_TEXTURE_2D = 9;
+    public static final int OP_CHECK_FRAMEBUFFER_STATUS = 10;
+    public static final int OP_GEN_RENDERBUFFERS = 11;
+    public static final int OP_DELETE_RENDERBUFFERS = 12;
+    public static final int OP_BIND_RENDERBUFFER = 13;
+    public static final int OP_RENDERBUFFER_STORAGE = 14;
+    public static final int OP_FRAMEBUFFER_RENDERBUFFER = 15;
+    public static final int OP_VIEWPORT = 16;
+    public static final int OP_CREATE_SHADER = 17;
+    public static final int OP_SHADER_SOURCE = 18;
+    public static final int OP_COMPILE_SHADER = 19;
+    public static final int OP_GET_SHADERIV = 20;
+    public static final int OP_GET_SHADER_INFO_LOG = 21;
+    public static final int OP_DELETE_SHADER = 22;
+    public static final int OP_CREATE_PROGRAM = 23;
+    public static final int OP_ATTACH_SHADER = 24;
+    public static final int OP_LINK_PROGRAM = 25;
+    public static final int OP_GET_PROGRAMIV = 26;
+    public static final int OP_GET_PROGRAM_INFO_LOG = 27;
+    public static final int OP_DELETE_PROGRAM = 28;
+    public static final int OP_USE_PROGRAM = 29;
+    public static final int OP_GET_ATTRIB_LOCATION = 30;
+    public static final int OP_GET_UNIFORM_LOCATION = 31;
+    public static final int OP_UNIFORM_1I = 32;
+    public static final int OP_UNIFORM_1F = 33;
+    public static final int OP_UNIFORM_2F = 34;
+    public static final int OP_UNIFORM_4F = 35;
+    public static final int OP_ACTIVE_TEXTURE = 36;
+    public static final int OP_VERTEX_ATTRIB_POINTER = 37;
+    public static final int OP_ENABLE_VERTEX_ATTRIB_ARRAY = 38;
+    public static final int OP_DISABLE_VERTEX_ATTRIB_ARRAY = 39;
+    public static final int OP_DRAW_ARRAYS = 40;
+    public static final int OP_GET_STRING = 41;
+    public static final int OP_GET_INTEGERV = 42;
+    public static final int OP_GEN_BUFFERS = 43;
+    public static final int OP_DELETE_BUFFERS = 44;
+    public static final int OP_BIND_BUFFER = 45;
+    public static final int OP_BUFFER_DATA = 46;
+    public static final int OP_BUFFER_SUB_DATA = 47;
+    public static final int OP_DETACH_SHADER = 48;
+    public static final int OP_TEX_IMAGE_BITMAP = 49;
+    public static final int OP_COMPRESSED_TEX_IMAGE_2D = 50;
+    public static final int OP_GENERATE_MIPMAP = 51;
+    public static final int OP_VERTEX_ATTRIB_POINTER_OFFSET = 52;
+    public static final int OP_DRAW_ELEMENTS_OFFSET = 53;
+    public static final int OP_UNIFORM_MATRIX_4FV = 54;
+    public static final int OP_ENABLE = 55;
+    public static final int OP_DISABLE = 56;
+    public static final int OP_BLEND_FUNC = 57;
+    public static final int OP_TEX_SUB_IMAGE_2D = 58;
+    public static final int OP_PIXEL_STOREI = 59;
+    public static final int OP_COPY_TEX_SUB_IMAGE_2D = 60;
+    public static final int OP_READ_PIXELS = 61;
+    public static final int OP_UNIFORM_2FV = 62;
+    public static final int OP_UNIFORM_3FV = 63;
+    public static final int OP_UNIFORM_4FV = 64;
+    public static final int OP_UNIFORM_MATRIX_3FV = 65;
+    public static final int OP_CLEAR = 66;
+    public static final int OP_CLEAR_COLOR = 67;
+    public static final int OP_CLEAR_DEPTHF = 68;
+    public static final int OP_CLEAR_STENCIL = 69;
+    public static final int OP_STENCIL_FUNC = 70;
+    public static final int OP_STENCIL_OP = 71;
+    public static final int OP_STENCIL_MASK = 72;
+    public static final int OP_DEPTH_FUNC = 73;
+    public static final int OP_DEPTH_MASK = 74;
+    public static final int OP_COLOR_MASK = 75;
+    public static final int OP_GET_ERROR = 76;
+    public static final int OP_GET_VERTEX_ATTRIBIV = 77;
+    public static final int OP_GET_BUFFER_PARAMETERIV = 78;
+    public static final int OP_DRAW_ELEMENTS = 79;
+    public static final int OP_PROGRAM_BINARY = 80;
+    public static final int OP_GET_PROGRAM_BINARY = 81;
+    public static final int OP_COUNT = 82;
+
+    private static final String[] NAMES = {
+            "frame",
+            "glGenTextures",
+            "glDeleteTextures",
+            "glBindTexture",
+            "glTexParameteri",
+            "glTexImage2D",
+            "glGenFramebuffers",
+            "glDeleteFramebuffers",
+            "glBindFramebuffer",
+            "glFramebufferTexture2D",
+            "glCheckFramebufferStatus",
+            "glGenRenderbuffers",
+            "glDeleteRenderbuffers",
+            "glBindRenderbuffer",
+            "glRenderbufferStorage",
+            "glFramebufferRenderbuffer",
+            "glViewport",
+            "glCreateShader",
+            "glShaderSource",
+            "glCompileShader",
+            "glGetShaderiv",
+            "glGetShaderInfoLog",
+            "glDeleteShader",
+            "glCreateProgram",
+            "glAttachShader",
+            "glLinkProgram",
+            "glGetProgramiv",
+            "glGetProgramInfoLog",
+            "glDeleteProgram",
+            "glUseProgram",
+            "glGetAttribLocation",
+            "glGetUniformLocation",
+            "glUniform1i",
+            "glUniform1f",
+            "glUniform2f",
+            "glUniform4f",
+            "glActiveTexture",
+            "glVertexAttribPointer(Buffer)",
+            "glEnableVertexAttribArray",
+            "glDisableVertexAttribArray",
+            "glDrawArrays",
+            "glGetString",
+            "glGetIntegerv",
+            "glGenBuffers",
+            "glDeleteBuffers",
+            "glBindBuffer",
+            "glBufferData",
+            "glBufferSubData",
+            "glDetachShader",
+            "texImage2D",
+            "glCompressedTexImage2D",
+            "glGenerateMipmap",
+            "glVertexAttribPointer(offset)",
+            "glDrawElements(offset)",
+            "glUniformMatrix4fv",
+            "glEnable",
+            "glDisable",
+            "glBlendFunc",
+            "glTexSubImage2D",
+            "glPixelStorei",
+            "glCopyTexSubImage2D",
+            "glReadPixels",
+            "glUniform2fv",
+            "glUniform3fv",
+            "glUniform4fv",
+            "glUniformMatrix3fv",
+            "glClear",
+            "glClearColor",
+            "glClearDepthf",
+            "glClearStencil",
+            "glStencilFunc",
+            "glStencilOp",
+            "glStencilMask",
+            "glDepthFunc",
+            "glDepthMask",
+            "glColorMask",
+            "glGetError",
+            "glGetVertexAttribiv",
+            "glGetBufferParameteriv",
+            "glDrawElements(Buffer)",
+            "glProgramBinary",
+            "glGetProgramBinary",
+    };
+
+    private TraceFormat() {
+    }
+
+    /**
+     * 操作码对应的GL函数名，用于报告
+     */
+    public static String nameOf(int op) {
+        return op >= 0 && op < OP_COUNT ? NAMES[op] : "op" + op;
+    }
+}
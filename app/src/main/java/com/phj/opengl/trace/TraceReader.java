@@ -0,0 +1,130 @@
+package com.phj.opengl.trace;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+
+/**
+ * 描述：按{@link TraceFormat}解码{@link TraceWriter}写出的数据
+ * 数据被截断或不是抓取文件时抛出IOException，消息中带有出错的位置
+ * Created by PHJ on 2026/10/19.
+ */
+
+final class TraceReader {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final byte[] mData;
+    private final int mSize;
+    private int mPos;
+    private float[] mFloats = new float[16];
+
+    TraceReader(byte[] data, int size) throws IOException {
+        this.mData = data;
+        this.mSize = size;
+        if (size < 4 || readFixed() != TraceFormat.MAGIC) {
+            throw new IOException("not a gl trace");
+        }
+        int version = readInt();
+        if (version != TraceFormat.VERSION) {
+            throw new IOException("unsupported trace version " + version);
+        }
+    }
+
+    boolean hasMore() {
+        return mPos < mSize;
+    }
+
+    int position() {
+        return mPos;
+    }
+
+    int readOp() throws IOException {
+        require(1);
+        return mData[mPos++] & 0xFF;
+    }
+
+    int readInt() throws IOException {
+        int v = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            require(1);
+            int b = mData[mPos++];
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (v >>> 1) ^ -(v & 1);
+            }
+        }
+        throw error("malformed varint");
+    }
+
+    float readFloat() throws IOException {
+        return Float.intBitsToFloat(readFixed());
+    }
+
+    boolean readBoolean() throws IOException {
+        require(1);
+        return mData[mPos++] != 0;
+    }
+
+    String readString() throws IOException {
+        int length = readInt();
+        if (length < 0) {
+            return null;
+        }
+        require(length);
+        String value = new String(mData, mPos, length, UTF_8);
+        mPos += length;
+        return value;
+    }
+
+    /**
+     * 返回内部复用的数组，下一次调用时被覆盖
+     */
+    float[] readFloats(int count) throws IOException {
+        if (count < 0) {
+            throw error("negative count " + count);
+        }
+        require((long) count * 4);
+        if (mFloats.length < count) {
+            mFloats = new float[count];
+        }
+        for (int i = 0; i < count; i++) {
+            mFloats[i] = Float.intBitsToFloat(readFixed());
+        }
+        return mFloats;
+    }
+
+    /**
+     * @return 本机字节序的直接内存，GL可以直接读取；抓取时为null则返回null
+     */
+    ByteBuffer readPayload() throws IOException {
+        int length = readInt();
+        if (length < 0) {
+            return null;
+        }
+        require(length);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(length).order(ByteOrder.nativeOrder());
+        buffer.put(mData, mPos, length).flip();
+        mPos += length;
+        return buffer;
+    }
+
+    IOException error(String message) {
+        return new IOException(message + " at byte " + mPos);
+    }
+
+    private int readFixed() throws IOException {
+        require(4);
+        int v = (mData[mPos] & 0xFF) | (mData[mPos + 1] & 0xFF) << 8
+                | (mData[mPos + 2] & 0xFF) << 16 | (mData[mPos + 3] & 0xFF) << 24;
+        mPos += 4;
+        return v;
+    }
+
+    private void require(long bytes) throws IOException {
+        if (bytes > mSize - mPos) {
+            throw error("truncated trace");
+        }
+    }
+}
@@ -0,0 +1,1071 @@
+package com.phj.opengl.trace;
+
+import android.opengl.GLES20;
+import android.util.Log;
+
+import com.phj.opengl.gl.GLApi;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+
+/**
+ * 描述：把{@link CapturingGLApi}抓取的调用流回放到任意GLApi上，统计每个GL函数的调用次数和耗时、冗余的调用以及上传量，
+ * 结果为{@link TraceReport}。离线分析时回放到只计数的实现上，在设备上回放到GLES20Api可以测驱动的开销。
+ * 抓取时的对象名（纹理、buffer、帧缓冲、渲染缓冲、shader、program）和uniform位置映射为回放时新建的，
+ * 抓取之前就存在的对象按原来的名字使用。
+ * 冗余指与当前状态相同的设置：重复绑定同一个对象、重复开关、与上次相同的混合、视口、清屏颜色、顶点属性指针和uniform值等；
+ * 状态按抓取时的名字跟踪，抓取开始时状态未知，第一次设置不算冗余。
+ * 耗时只计GL调用本身，不含解码和数据准备。不是线程安全的，同一个实例可以依次回放多个文件
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class TraceReplayer {
+
+    private final static String TAG = TraceReplayer.class.getSimpleName();
+
+    // 保留客户端顶点数组的顶点属性个数，回放的直接内存要活到绘制为止
+    private static final int MAX_ATTRIBS = 16;
+
+    private final GLApi mGL;
+    // 抓取时的名字 -> 回放时的名字
+    private final NameMap mTextures = new NameMap();
+    private final NameMap mFramebuffers = new NameMap();
+    private final NameMap mRenderbuffers = new NameMap();
+    private final NameMap mBuffers = new NameMap();
+    private final NameMap mShaders = new NameMap();
+    private final NameMap mPrograms = new NameMap();
+    // (抓取时的program, 位置) -> 回放时的位置
+    private final HashMap<Long, Integer> mUniformLocations = new HashMap<>();
+    // 每个操作码的状态：键 -> 最近一次设置的值
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final HashMap<Long, long[]>[] mState = new HashMap[TraceFormat.OP_COUNT];
+    // (抓取时的program, 位置) -> 最近一次的uniform值
+    private final HashMap<Long, float[]> mUniforms = new HashMap<>();
+    private final ByteBuffer[] mClientArrays = new ByteBuffer[MAX_ATTRIBS];
+    private final float[] mScalars = new float[4];
+    private int[] mInts = new int[16];
+    private ByteBuffer mReadback;
+    private int mProgram;
+    private int mActiveTexture;
+
+    public TraceReplayer(GLApi gl) {
+        this.mGL = gl;
+    }
+
+    public TraceReport replay(File file) throws IOException {
+        long length = file.length();
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("trace too large: " + length);
+        }
+        byte[] data = new byte[(int) length];
+        DataInputStream in = new DataInputStream(new FileInputStream(file));
+        try {
+            in.readFully(data);
+        } finally {
+            in.close();
+        }
+        return replay(data, data.length);
+    }
+
+    /**
+     * 在调用GL的线程上回放，GL状态从当前状态开始，回放后不恢复
+     */
+    public TraceReport replay(byte[] data, int size) throws IOException {
+        reset();
+        TraceReader r = new TraceReader(data, size);
+        TraceReport report = new TraceReport(size);
+        while (r.hasMore()) {
+            int op = r.readOp();
+            if (op == TraceFormat.OP_FRAME_END) {
+                report.endFrame();
+            } else {
+                replayCall(r, op, report);
+            }
+        }
+        report.finish();
+        Log.i(TAG, "replay: " + report.getFrameCount() + " frames, " + report.getCallCount() + " calls, "
+                + report.getRedundantCount() + " redundant, " + report.getUploadBytes() + " bytes uploaded");
+        return report;
+    }
+
+    private void reset() {
+        mTextures.clear();
+        mFramebuffers.clear();
+        mRenderbuffers.clear();
+        mBuffers.clear();
+        mShaders.clear();
+        mPrograms.clear();
+        mUniformLocations.clear();
+        Arrays.fill(mState, null);
+        mUniforms.clear();
+        Arrays.fill(mClientArrays, null);
+        mProgram = 0;
+        mActiveTexture = 0;
+    }
+
+    private void replayCall(TraceReader r, int op, TraceReport report) throws IOException {
+        long start;
+        long ns;
+        boolean redundant = false;
+        boolean draw = false;
+        long upload = 0;
+        switch (op) {
+            case TraceFormat.OP_GEN_TEXTURES: {
+                int n = r.readInt();
+                int[] textures = ints(n);
+                start = System.nanoTime();
+                mGL.glGenTextures(n, textures, 0);
+                ns = System.nanoTime() - start;
+                remember(r, mTextures, textures, n);
+                break;
+            }
+            case TraceFormat.OP_DELETE_TEXTURES: {
+                int n = r.readInt();
+                int[] textures = deleted(r, mTextures, n, TraceFormat.OP_BIND_TEXTURE);
+                start = System.nanoTime();
+                mGL.glDeleteTextures(n, textures, 0);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_BIND_TEXTURE: {
+                int target = r.readInt();
+                int texture = r.readInt();
+                redundant = same(TraceFormat.OP_BIND_TEXTURE, textureKey(target), texture, 0);
+                start = System.nanoTime();
+                mGL.glBindTexture(target, mTextures.get(texture));
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_TEX_PARAMETERI: {
+                int target = r.readInt();
+                int pname = r.readInt();
+                int param = r.readInt();
+                redundant = same(TraceFormat.OP_TEX_PARAMETERI, pack(bound(TraceFormat.OP_BIND_TEXTURE, textureKey(target)), pname), param, 0);
+                start = System.nanoTime();
+                mGL.glTexParameteri(target, pname, param);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_TEX_IMAGE_2D: {
+                int target = r.readInt();
+                int level = r.readInt();
+                int internalformat = r.readInt();
+                int width = r.readInt();
+                int height = r.readInt();
+                int border = r.readInt();
+                int format = r.readInt();
+                int type = r.readInt();
+                ByteBuffer pixels = r.readPayload();
+                upload = bytes(pixels);
+                start = System.nanoTime();
+                mGL.glTexImage2D(target, level, internalformat, width, height, border, format, type, pixels);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_GEN_FRAMEBUFFERS: {
+                int n = r.readInt();
+                int[] framebuffers = ints(n);
+                start = System.nanoTime();
+                mGL.glGenFramebuffers(n, framebuffers, 0);
+                ns = System.nanoTime() - start;
+                remember(r, mFramebuffers, framebuffers, n);
+                break;
+            }
+            case TraceFormat.OP_DELETE_FRAMEBUFFERS: {
+                int n = r.readInt();
+                int[] framebuffers = deleted(r, mFramebuffers, n, TraceFormat.OP_BIND_FRAMEBUFFER);
+                start = System.nanoTime();
+                mGL.glDeleteFramebuffers(n, framebuffers, 0);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_BIND_FRAMEBUFFER: {
+                int target = r.readInt();
+                int framebuffer = r.readInt();
+                redundant = same(TraceFormat.OP_BIND_FRAMEBUFFER, target, framebuffer, 0);
+                start = System.nanoTime();
+                mGL.glBindFramebuffer(target, mFramebuffers.get(framebuffer));
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_FRAMEBUFFER_TEXTURE_2D: {
+                int target = r.readInt();
+                int attachment = r.readInt();
+                int textarget = r.readInt();
+                int texture = r.readInt();
+                int level = r.readInt();
+                start = System.nanoTime();
+                mGL.glFramebufferTexture2D(target, attachment, textarget, mTextures.get(texture), level);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_CHECK_FRAMEBUFFER_STATUS: {
+                int target = r.readInt();
+                start = System.nanoTime();
+                int result = mGL.glCheckFramebufferStatus(target);
+                ns = System.nanoTime() - start;
+                r.readInt();
+                break;
+            }
+            case TraceFormat.OP_GEN_RENDERBUFFERS: {
+                int n = r.readInt();
+                int[] renderbuffers = ints(n);
+                start = System.nanoTime();
+                mGL.glGenRenderbuffers(n, renderbuffers, 0);
+                ns = System.nanoTime() - start;
+                remember(r, mRenderbuffers, renderbuffers, n);
+                break;
+            }
+            case TraceFormat.OP_DELETE_RENDERBUFFERS: {
+                int n = r.readInt();
+                int[] renderbuffers = deleted(r, mRenderbuffers, n, TraceFormat.OP_BIND_RENDERBUFFER);
+                start = System.nanoTime();
+                mGL.glDeleteRenderbuffers(n, renderbuffers, 0);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_BIND_RENDERBUFFER: {
+                int target = r.readInt();
+                int renderbuffer = r.readInt();
+                redundant = same(TraceFormat.OP_BIND_RENDERBUFFER, target, renderbuffer, 0);
+                start = System.nanoTime();
+                mGL.glBindRenderbuffer(target, mRenderbuffers.get(renderbuffer));
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_RENDERBUFFER_STORAGE: {
+                int target = r.readInt();
+                int internalformat = r.readInt();
+                int width = r.readInt();
+                int height = r.readInt();
+                start = System.nanoTime();
+                mGL.glRenderbufferStorage(target, internalformat, width, height);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_FRAMEBUFFER_RENDERBUFFER: {
+                int target = r.readInt();
+                int attachment = r.readInt();
+                int renderbuffertarget = r.readInt();
+                int renderbuffer = r.readInt();
+                start = System.nanoTime();
+                mGL.glFramebufferRenderbuffer(target, attachment, renderbuffertarget, mRenderbuffers.get(renderbuffer));
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_VIEWPORT: {
+                int x = r.readInt();
+                int y = r.readInt();
+                int width = r.readInt();
+                int height = r.readInt();
+                redundant = same(TraceFormat.OP_VIEWPORT, 0, pack(x, y), pack(width, height));
+                start = System.nanoTime();
+                mGL.glViewport(x, y, width, height);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_CREATE_SHADER: {
+                int type = r.readInt();
+                start = System.nanoTime();
+                int result = mGL.glCreateShader(type);
+                ns = System.nanoTime() - start;
+                mShaders.put(r.readInt(), result);
+                break;
+            }
+            case TraceFormat.OP_SHADER_SOURCE: {
+                int shader = r.readInt();
+                String string = r.readString();
+                start = System.nanoTime();
+                mGL.glShaderSource(mShaders.get(shader), string);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_COMPILE_SHADER: {
+                int shader = r.readInt();
+                start = System.nanoTime();
+                mGL.glCompileShader(mShaders.get(shader));
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_GET_SHADERIV: {
+                int shader = r.readInt();
+                int pname = r.readInt();
+                int[] params = ints(1);
+                start = System.nanoTime();
+                mGL.glGetShaderiv(mShaders.get(shader), pname, params, 0);
+                ns = System.nanoTime() - start;
+                r.readInt();
+                break;
+            }
+            case TraceFormat.OP_GET_SHADER_INFO_LOG: {
+                int shader = r.readInt();
+                start = System.nanoTime();
+                mGL.glGetShaderInfoLog(mShaders.get(shader));
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_DELETE_SHADER: {
+                int shader = r.readInt();
+                start = System.nanoTime();
+                mGL.glDeleteShader(mShaders.get(shader));
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_CREATE_PROGRAM: {
+                start = System.nanoTime();
+                int result = mGL.glCreateProgram();
+                ns = System.nanoTime() - start;
+                mPrograms.put(r.readInt(), result);
+                break;
+            }
+            case TraceFormat.OP_ATTACH_SHADER: {
+                int program = r.readInt();
+                int shader = r.readInt();
+                start = System.nanoTime();
+                mGL.glAttachShader(mPrograms.get(program), mShaders.get(shader));
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_LINK_PROGRAM: {
+                int program = r.readInt();
+                forgetUniforms(program);
+                start = System.nanoTime();
+                mGL.glLinkProgram(mPrograms.get(program));
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_GET_PROGRAMIV: {
+                int program = r.readInt();
+                int pname = r.readInt();
+                int[] params = ints(1);
+                start = System.nanoTime();
+                mGL.glGetProgramiv(mPrograms.get(program), pname, params, 0);
+                ns = System.nanoTime() - start;
+                r.readInt();
+                break;
+            }
+            case TraceFormat.OP_GET_PROGRAM_INFO_LOG: {
+                int program = r.readInt();
+                start = System.nanoTime();
+                mGL.glGetProgramInfoLog(mPrograms.get(program));
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_DELETE_PROGRAM: {
+                int program = r.readInt();
+                forgetUniforms(program);
+                start = System.nanoTime();
+                mGL.glDeleteProgram(mPrograms.get(program));
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_USE_PROGRAM: {
+                int program = r.readInt();
+                redundant = same(TraceFormat.OP_USE_PROGRAM, 0, program, 0);
+                mProgram = program;
+                start = System.nanoTime();
+                mGL.glUseProgram(mPrograms.get(program));
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_GET_ATTRIB_LOCATION: {
+                int program = r.readInt();
+                String name = r.readString();
+                start = System.nanoTime();
+                int result = mGL.glGetAttribLocation(mPrograms.get(program), name);
+                ns = System.nanoTime() - start;
+                r.readInt();
+                break;
+            }
+            case TraceFormat.OP_GET_UNIFORM_LOCATION: {
+                int program = r.readInt();
+                String name = r.readString();
+                start = System.nanoTime();
+                int result = mGL.glGetUniformLocation(mPrograms.get(program), name);
+                ns = System.nanoTime() - start;
+                mUniformLocations.put(uniformKey(program, r.readInt()), result);
+                break;
+            }
+            case TraceFormat.OP_UNIFORM_1I: {
+                int location = r.readInt();
+                int x = r.readInt();
+                redundant = sameUniform(location, scalars(Float.intBitsToFloat(x), 0, 0, 0), 1);
+                start = System.nanoTime();
+                mGL.glUniform1i(uniform(location), x);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_UNIFORM_1F: {
+                int location = r.readInt();
+                float x = r.readFloat();
+                redundant = sameUniform(location, scalars(x, 0, 0, 0), 1);
+                start = System.nanoTime();
+                mGL.glUniform1f(uniform(location), x);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_UNIFORM_2F: {
+                int location = r.readInt();
+                float x = r.readFloat();
+                float y = r.readFloat();
+                redundant = sameUniform(location, scalars(x, y, 0, 0), 2);
+                start = System.nanoTime();
+                mGL.glUniform2f(uniform(location), x, y);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_UNIFORM_4F: {
+                int location = r.readInt();
+                float x = r.readFloat();
+                float y = r.readFloat();
+                float z = r.readFloat();
+                float w = r.readFloat();
+                redundant = sameUniform(location, scalars(x, y, z, w), 4);
+                start = System.nanoTime();
+                mGL.glUniform4f(uniform(location), x, y, z, w);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_ACTIVE_TEXTURE: {
+                int texture = r.readInt();
+                redundant = same(TraceFormat.OP_ACTIVE_TEXTURE, 0, texture, 0);
+                mActiveTexture = texture - GLES20.GL_TEXTURE0;
+                start = System.nanoTime();
+                mGL.glActiveTexture(texture);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_VERTEX_ATTRIB_POINTER: {
+                int indx = r.readInt();
+                int size = r.readInt();
+                int type = r.readInt();
+                boolean normalized = r.readBoolean();
+                int stride = r.readInt();
+                ByteBuffer ptr = r.readPayload();
+                forget(TraceFormat.OP_VERTEX_ATTRIB_POINTER_OFFSET, indx);
+                keepClientArray(indx, ptr);
+                start = System.nanoTime();
+                mGL.glVertexAttribPointer(indx, size, type, normalized, stride, ptr);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_ENABLE_VERTEX_ATTRIB_ARRAY: {
+                int index = r.readInt();
+                redundant = same(TraceFormat.OP_ENABLE_VERTEX_ATTRIB_ARRAY, index, 1, 0);
+                start = System.nanoTime();
+                mGL.glEnableVertexAttribArray(index);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_DISABLE_VERTEX_ATTRIB_ARRAY: {
+                int index = r.readInt();
+                redundant = same(TraceFormat.OP_ENABLE_VERTEX_ATTRIB_ARRAY, index, 0, 0);
+                start = System.nanoTime();
+                mGL.glDisableVertexAttribArray(index);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_DRAW_ARRAYS: {
+                int mode = r.readInt();
+                int first = r.readInt();
+                int count = r.readInt();
+                draw = true;
+                start = System.nanoTime();
+                mGL.glDrawArrays(mode, first, count);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_GET_STRING: {
+                int name = r.readInt();
+                start = System.nanoTime();
+                mGL.glGetString(name);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_GET_INTEGERV: {
+                int pname = r.readInt();
+                int[] params = ints(1);
+                start = System.nanoTime();
+                mGL.glGetIntegerv(pname, params, 0);
+                ns = System.nanoTime() - start;
+                r.readInt();
+                break;
+            }
+            case TraceFormat.OP_GEN_BUFFERS: {
+                int n = r.readInt();
+                int[] buffers = ints(n);
+                start = System.nanoTime();
+                mGL.glGenBuffers(n, buffers, 0);
+                ns = System.nanoTime() - start;
+                remember(r, mBuffers, buffers, n);
+                break;
+            }
+            case TraceFormat.OP_DELETE_BUFFERS: {
+                int n = r.readInt();
+                int[] buffers = deleted(r, mBuffers, n, TraceFormat.OP_BIND_BUFFER);
+                start = System.nanoTime();
+                mGL.glDeleteBuffers(n, buffers, 0);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_BIND_BUFFER: {
+                int target = r.readInt();
+                int buffer = r.readInt();
+                redundant = same(TraceFormat.OP_BIND_BUFFER, target, buffer, 0);
+                start = System.nanoTime();
+                mGL.glBindBuffer(target, mBuffers.get(buffer));
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_BUFFER_DATA: {
+                int target = r.readInt();
+                int size = r.readInt();
+                ByteBuffer data = r.readPayload();
+                int usage = r.readInt();
+                upload = bytes(data);
+                start = System.nanoTime();
+                mGL.glBufferData(target, size, data, usage);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_BUFFER_SUB_DATA: {
+                int target = r.readInt();
+                int offset = r.readInt();
+                int size = r.readInt();
+                ByteBuffer data = r.readPayload();
+                upload = bytes(data);
+                start = System.nanoTime();
+                mGL.glBufferSubData(target, offset, size, data);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_DETACH_SHADER: {
+                int program = r.readInt();
+                int shader = r.readInt();
+                start = System.nanoTime();
+                mGL.glDetachShader(mPrograms.get(program), mShaders.get(shader));
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_TEX_IMAGE_BITMAP: {
+                int target = r.readInt();
+                int level = r.readInt();
+                int width = r.readInt();
+                int height = r.readInt();
+                ByteBuffer bitmap = r.readPayload();
+                int border = r.readInt();
+                upload = bytes(bitmap);
+                start = System.nanoTime();
+                mGL.glTexImage2D(target, level, GLES20.GL_RGBA, width, height, border,
+                        GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, bitmap);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_COMPRESSED_TEX_IMAGE_2D: {
+                int target = r.readInt();
+                int level = r.readInt();
+                int internalformat = r.readInt();
+                int width = r.readInt();
+                int height = r.readInt();
+                int border = r.readInt();
+                int imageSize = r.readInt();
+                ByteBuffer data = r.readPayload();
+                upload = bytes(data);
+                start = System.nanoTime();
+                mGL.glCompressedTexImage2D(target, level, internalformat, width, height, border, imageSize, data);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_GENERATE_MIPMAP: {
+                int target = r.readInt();
+                start = System.nanoTime();
+                mGL.glGenerateMipmap(target);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_VERTEX_ATTRIB_POINTER_OFFSET: {
+                int indx = r.readInt();
+                int size = r.readInt();
+                int type = r.readInt();
+                boolean normalized = r.readBoolean();
+                int stride = r.readInt();
+                int offset = r.readInt();
+                redundant = same(TraceFormat.OP_VERTEX_ATTRIB_POINTER_OFFSET, indx, pack(size | (normalized ? 1 << 8 : 0) | type << 16, stride), pack(bound(TraceFormat.OP_BIND_BUFFER, GLES20.GL_ARRAY_BUFFER), offset));
+                start = System.nanoTime();
+                mGL.glVertexAttribPointer(indx, size, type, normalized, stride, offset);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_DRAW_ELEMENTS_OFFSET: {
+                int mode = r.readInt();
+                int count = r.readInt();
+                int type = r.readInt();
+                int offset = r.readInt();
+                draw = true;
+                start = System.nanoTime();
+                mGL.glDrawElements(mode, count, type, offset);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_UNIFORM_MATRIX_4FV: {
+                int location = r.readInt();
+                int count = r.readInt();
+                boolean transpose = r.readBoolean();
+                float[] value = r.readFloats(count * 16);
+                redundant = sameUniform(location, value, count * 16);
+                start = System.nanoTime();
+                mGL.glUniformMatrix4fv(uniform(location), count, transpose, value, 0);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_ENABLE: {
+                int cap = r.readInt();
+                redundant = same(TraceFormat.OP_ENABLE, cap, 1, 0);
+                start = System.nanoTime();
+                mGL.glEnable(cap);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_DISABLE: {
+                int cap = r.readInt();
+                redundant = same(TraceFormat.OP_ENABLE, cap, 0, 0);
+                start = System.nanoTime();
+                mGL.glDisable(cap);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_BLEND_FUNC: {
+                int sfactor = r.readInt();
+                int dfactor = r.readInt();
+                redundant = same(TraceFormat.OP_BLEND_FUNC, 0, sfactor, dfactor);
+                start = System.nanoTime();
+                mGL.glBlendFunc(sfactor, dfactor);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_TEX_SUB_IMAGE_2D: {
+                int target = r.readInt();
+                int level = r.readInt();
+                int xoffset = r.readInt();
+                int yoffset = r.readInt();
+                int width = r.readInt();
+                int height = r.readInt();
+                int format = r.readInt();
+                int type = r.readInt();
+                ByteBuffer pixels = r.readPayload();
+                upload = bytes(pixels);
+                start = System.nanoTime();
+                mGL.glTexSubImage2D(target, level, xoffset, yoffset, width, height, format, type, pixels);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_PIXEL_STOREI: {
+                int pname = r.readInt();
+                int param = r.readInt();
+                redundant = same(TraceFormat.OP_PIXEL_STOREI, pname, param, 0);
+                start = System.nanoTime();
+                mGL.glPixelStorei(pname, param);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_COPY_TEX_SUB_IMAGE_2D: {
+                int target = r.readInt();
+                int level = r.readInt();
+                int xoffset = r.readInt();
+                int yoffset = r.readInt();
+                int x = r.readInt();
+                int y = r.readInt();
+                int width = r.readInt();
+                int height = r.readInt();
+                start = System.nanoTime();
+                mGL.glCopyTexSubImage2D(target, level, xoffset, yoffset, x, y, width, height);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_READ_PIXELS: {
+                int x = r.readInt();
+                int y = r.readInt();
+                int width = r.readInt();
+                int height = r.readInt();
+                int format = r.readInt();
+                int type = r.readInt();
+                start = System.nanoTime();
+                mGL.glReadPixels(x, y, width, height, format, type, readbackBuffer(width * height * 4));
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_UNIFORM_2FV: {
+                int location = r.readInt();
+                int count = r.readInt();
+                float[] v = r.readFloats(count * 2);
+                redundant = sameUniform(location, v, count * 2);
+                start = System.nanoTime();
+                mGL.glUniform2fv(uniform(location), count, v, 0);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_UNIFORM_3FV: {
+                int location = r.readInt();
+                int count = r.readInt();
+                float[] v = r.readFloats(count * 3);
+                redundant = sameUniform(location, v, count * 3);
+                start = System.nanoTime();
+                mGL.glUniform3fv(uniform(location), count, v, 0);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_UNIFORM_4FV: {
+                int location = r.readInt();
+                int count = r.readInt();
+                float[] v = r.readFloats(count * 4);
+                redundant = sameUniform(location, v, count * 4);
+                start = System.nanoTime();
+                mGL.glUniform4fv(uniform(location), count, v, 0);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_UNIFORM_MATRIX_3FV: {
+                int location = r.readInt();
+                int count = r.readInt();
+                boolean transpose = r.readBoolean();
+                float[] value = r.readFloats(count * 9);
+                redundant = sameUniform(location, value, count * 9);
+                start = System.nanoTime();
+                mGL.glUniformMatrix3fv(uniform(location), count, transpose, value, 0);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_CLEAR: {
+                int mask = r.readInt();
+                start = System.nanoTime();
+                mGL.glClear(mask);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_CLEAR_COLOR: {
+                float red = r.readFloat();
+                float green = r.readFloat();
+                float blue = r.readFloat();
+                float alpha = r.readFloat();
+                redundant = same(TraceFormat.OP_CLEAR_COLOR, 0, pack(red, green), pack(blue, alpha));
+                start = System.nanoTime();
+                mGL.glClearColor(red, green, blue, alpha);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_CLEAR_DEPTHF: {
+                float depth = r.readFloat();
+                redundant = same(TraceFormat.OP_CLEAR_DEPTHF, 0, Float.floatToRawIntBits(depth), 0);
+                start = System.nanoTime();
+                mGL.glClearDepthf(depth);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_CLEAR_STENCIL: {
+                int s = r.readInt();
+                redundant = same(TraceFormat.OP_CLEAR_STENCIL, 0, s, 0);
+                start = System.nanoTime();
+                mGL.glClearStencil(s);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_STENCIL_FUNC: {
+                int func = r.readInt();
+                int ref = r.readInt();
+                int mask = r.readInt();
+                redundant = same(TraceFormat.OP_STENCIL_FUNC, 0, pack(func, ref), mask);
+                start = System.nanoTime();
+                mGL.glStencilFunc(func, ref, mask);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_STENCIL_OP: {
+                int fail = r.readInt();
+                int zfail = r.readInt();
+                int zpass = r.readInt();
+                redundant = same(TraceFormat.OP_STENCIL_OP, 0, pack(fail, zfail), zpass);
+                start = System.nanoTime();
+                mGL.glStencilOp(fail, zfail, zpass);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_STENCIL_MASK: {
+                int mask = r.readInt();
+                redundant = same(TraceFormat.OP_STENCIL_MASK, 0, mask, 0);
+                start = System.nanoTime();
+                mGL.glStencilMask(mask);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_DEPTH_FUNC: {
+                int func = r.readInt();
+                redundant = same(TraceFormat.OP_DEPTH_FUNC, 0, func, 0);
+                start = System.nanoTime();
+                mGL.glDepthFunc(func);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_DEPTH_MASK: {
+                boolean flag = r.readBoolean();
+                redundant = same(TraceFormat.OP_DEPTH_MASK, 0, flag ? 1 : 0, 0);
+                start = System.nanoTime();
+                mGL.glDepthMask(flag);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_COLOR_MASK: {
+                boolean red = r.readBoolean();
+                boolean green = r.readBoolean();
+                boolean blue = r.readBoolean();
+                boolean alpha = r.readBoolean();
+                redundant = same(TraceFormat.OP_COLOR_MASK, 0, (red ? 1 : 0) | (green ? 2 : 0) | (blue ? 4 : 0) | (alpha ? 8 : 0), 0);
+                start = System.nanoTime();
+                mGL.glColorMask(red, green, blue, alpha);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_GET_ERROR: {
+                start = System.nanoTime();
+                int result = mGL.glGetError();
+                ns = System.nanoTime() - start;
+                r.readInt();
+                break;
+            }
+            case TraceFormat.OP_GET_VERTEX_ATTRIBIV: {
+                int index = r.readInt();
+                int pname = r.readInt();
+                int[] params = ints(1);
+                start = System.nanoTime();
+                mGL.glGetVertexAttribiv(index, pname, params, 0);
+                ns = System.nanoTime() - start;
+                r.readInt();
+                break;
+            }
+            case TraceFormat.OP_GET_BUFFER_PARAMETERIV: {
+                int target = r.readInt();
+                int pname = r.readInt();
+                int[] params = ints(1);
+                start = System.nanoTime();
+                mGL.glGetBufferParameteriv(target, pname, params, 0);
+                ns = System.nanoTime() - start;
+                r.readInt();
+                break;
+            }
+            case TraceFormat.OP_DRAW_ELEMENTS: {
+                int mode = r.readInt();
+                int count = r.readInt();
+                int type = r.readInt();
+                ByteBuffer indices = r.readPayload();
+                draw = true;
+                start = System.nanoTime();
+                mGL.glDrawElements(mode, count, type, indices);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_PROGRAM_BINARY: {
+                // 二进制与驱动绑定，换了设备或驱动后链接失败，与抓取时的结果不同
+                int program = r.readInt();
+                int binaryFormat = r.readInt();
+                ByteBuffer binary = r.readPayload();
+                int length = r.readInt();
+                forgetUniforms(program);
+                upload = bytes(binary);
+                start = System.nanoTime();
+                mGL.glProgramBinary(mPrograms.get(program), binaryFormat, binary, length);
+                ns = System.nanoTime() - start;
+                break;
+            }
+            case TraceFormat.OP_GET_PROGRAM_BINARY: {
+                int program = r.readInt();
+                int bufSize = r.readInt();
+                int[] params = ints(2);
+                start = System.nanoTime();
+                mGL.glGetProgramBinary(mPrograms.get(program), bufSize, params, 0, params, 1, readbackBuffer(bufSize));
+                ns = System.nanoTime() - start;
+                r.readInt();
+                r.readInt();
+                break;
+            }
+            default:
+                throw r.error("unknown op " + op);
+        }
+        report.addCall(op, ns, redundant, draw, upload);
+    }
+
+    private int[] ints(int n) {
+        if (mInts.length < n) {
+            mInts = new int[n];
+        }
+        return mInts;
+    }
+
+    private void remember(TraceReader r, NameMap map, int[] names, int n) throws IOException {
+        for (int i = 0; i < n; i++) {
+            map.put(r.readInt(), names[i]);
+        }
+    }
+
+    // 删除的对象如果正绑定着，GL会解绑，之后再绑定同名的新对象不算冗余
+    private int[] deleted(TraceReader r, NameMap map, int n, int bindOp) throws IOException {
+        int[] names = ints(n);
+        for (int i = 0; i < n; i++) {
+            int name = r.readInt();
+            forgetBinding(bindOp, name);
+            names[i] = map.get(name);
+            map.remove(name);
+        }
+        return names;
+    }
+
+    private int uniform(int location) {
+        if (location < 0) {
+            return location;
+        }
+        Integer mapped = mUniformLocations.get(uniformKey(mProgram, location));
+        return mapped != null ? mapped : location;
+    }
+
+    private static long uniformKey(int program, int location) {
+        return pack(program, location);
+    }
+
+    private long textureKey(int target) {
+        return pack(mActiveTexture, target);
+    }
+
+    private HashMap<Long, long[]> state(int op) {
+        HashMap<Long, long[]> state = mState[op];
+        if (state == null) {
+            state = new HashMap<>();
+            mState[op] = state;
+        }
+        return state;
+    }
+
+    // 记下新值，返回是否与之前的值相同
+    private boolean same(int op, long key, long a, long b) {
+        HashMap<Long, long[]> state = state(op);
+        long[] value = state.get(key);
+        if (value == null) {
+            state.put(key, new long[]{a, b});
+            return false;
+        }
+        boolean same = value[0] == a && value[1] == b;
+        value[0] = a;
+        value[1] = b;
+        return same;
+    }
+
+    // 当前绑定的对象，未知时为-1
+    private long bound(int op, long key) {
+        long[] value = state(op).get(key);
+        return value != null ? value[0] : -1;
+    }
+
+    private void forget(int op, long key) {
+        state(op).remove(key);
+    }
+
+    private void forgetBinding(int op, int name) {
+        Iterator<long[]> it = state(op).values().iterator();
+        while (it.hasNext()) {
+            if (it.next()[0] == name) {
+                it.remove();
+            }
+        }
+    }
+
+    private boolean sameUniform(int location, float[] values, int count) {
+        long key = uniformKey(mProgram, location);
+        float[] previous = mUniforms.get(key);
+        if (previous != null && previous.length == count) {
+            boolean same = true;
+            for (int i = 0; i < count && same; i++) {
+                same = Float.floatToRawIntBits(previous[i]) == Float.floatToRawIntBits(values[i]);
+            }
+            if (same) {
+                return true;
+            }
+            System.arraycopy(values, 0, previous, 0, count);
+            return false;
+        }
+        mUniforms.put(key, Arrays.copyOf(values, count));
+        return false;
+    }
+
+    // 重新链接或删除后uniform恢复默认值
+    private void forgetUniforms(int program) {
+        Iterator<Long> it = mUniforms.keySet().iterator();
+        while (it.hasNext()) {
+            if ((int) (it.next() >>> 32) == program) {
+                it.remove();
+            }
+        }
+    }
+
+    private float[] scalars(float x, float y, float z, float w) {
+        mScalars[0] = x;
+        mScalars[1] = y;
+        mScalars[2] = z;
+        mScalars[3] = w;
+        return mScalars;
+    }
+
+    private void keepClientArray(int index, ByteBuffer array) {
+        if (index >= 0 && index < mClientArrays.length) {
+            mClientArrays[index] = array;
+        }
+    }
+
+    private ByteBuffer readbackBuffer(int bytes) {
+        if (mReadback == null || mReadback.capacity() < bytes) {
+            mReadback = ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+        }
+        mReadback.clear();
+        return mReadback;
+    }
+
+    private static long bytes(ByteBuffer buffer) {
+        return buffer != null ? buffer.remaining() : 0;
+    }
+
+    private static long pack(long high, int low) {
+        return high << 32 | (low & 0xFFFFFFFFL);
+    }
+
+    private static long pack(int high, int low) {
+        return (long) high << 32 | (low & 0xFFFFFFFFL);
+    }
+
+    private static long pack(float high, float low) {
+        return pack(Float.floatToRawIntBits(high), Float.floatToRawIntBits(low));
+    }
+
+    private static final class NameMap {
+        private final HashMap<Integer, Integer> mNames = new HashMap<>();
+
+        int get(int captured) {
+            Integer name = mNames.get(captured);
+            return name != null ? name : captured;
+        }
+
+        void put(int captured, int name) {
+            mNames.put(captured, name);
+        }
+
+        void remove(int captured) {
+            mNames.remove(captured);
+        }
+
+        void clear() {
+            mNames.clear();
+        }
+    }
+}
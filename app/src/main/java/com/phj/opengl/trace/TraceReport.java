@@ -0,0 +1,176 @@
+package com.phj.opengl.trace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * 描述：{@link TraceReplayer}一次回放的统计：每个GL函数的调用次数、冗余次数、上传字节数、总耗时和最长一次的耗时，
+ * 以及每帧的调用、绘制、冗余、上传和GL耗时。{@link #toString()}为可以直接打印的表格，函数按总耗时从高到低排列
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class TraceReport {
+
+    // 每帧的统计项
+    private static final int FRAME_CALLS = 0;
+    private static final int FRAME_DRAWS = 1;
+    private static final int FRAME_REDUNDANT = 2;
+    private static final int FRAME_UPLOAD = 3;
+    private static final int FRAME_NS = 4;
+
+    private final int mTraceBytes;
+    private final long[] mCount = new long[TraceFormat.OP_COUNT];
+    private final long[] mRedundant = new long[TraceFormat.OP_COUNT];
+    private final long[] mUpload = new long[TraceFormat.OP_COUNT];
+    private final long[] mTotalNs = new long[TraceFormat.OP_COUNT];
+    private final long[] mMaxNs = new long[TraceFormat.OP_COUNT];
+    private final ArrayList<long[]> mFrames = new ArrayList<>();
+    private long[] mFrame = new long[5];
+    private boolean mFrameOpen;
+
+    TraceReport(int traceBytes) {
+        this.mTraceBytes = traceBytes;
+    }
+
+    void addCall(int op, long ns, boolean redundant, boolean draw, long upload) {
+        mCount[op]++;
+        mTotalNs[op] += ns;
+        mMaxNs[op] = Math.max(mMaxNs[op], ns);
+        mUpload[op] += upload;
+        mFrame[FRAME_CALLS]++;
+        mFrame[FRAME_UPLOAD] += upload;
+        mFrame[FRAME_NS] += ns;
+        if (redundant) {
+            mRedundant[op]++;
+            mFrame[FRAME_REDUNDANT]++;
+        }
+        if (draw) {
+            mFrame[FRAME_DRAWS]++;
+        }
+        mFrameOpen = true;
+    }
+
+    void endFrame() {
+        mFrames.add(mFrame);
+        mFrame = new long[5];
+        mFrameOpen = false;
+    }
+
+    // 文件截断在一帧中间时，最后的调用单独算一帧
+    void finish() {
+        if (mFrameOpen) {
+            endFrame();
+        }
+    }
+
+    public int getTraceBytes() {
+        return mTraceBytes;
+    }
+
+    public int getFrameCount() {
+        return mFrames.size();
+    }
+
+    public long getFrameCalls(int frame) {
+        return mFrames.get(frame)[FRAME_CALLS];
+    }
+
+    public long getFrameDraws(int frame) {
+        return mFrames.get(frame)[FRAME_DRAWS];
+    }
+
+    public long getFrameRedundant(int frame) {
+        return mFrames.get(frame)[FRAME_REDUNDANT];
+    }
+
+    public long getFrameUploadBytes(int frame) {
+        return mFrames.get(frame)[FRAME_UPLOAD];
+    }
+
+    public long getFrameNs(int frame) {
+        return mFrames.get(frame)[FRAME_NS];
+    }
+
+    /**
+     * @param op {@link TraceFormat}中的操作码
+     */
+    public long getCount(int op) {
+        return mCount[op];
+    }
+
+    public long getRedundant(int op) {
+        return mRedundant[op];
+    }
+
+    public long getUploadBytes(int op) {
+        return mUpload[op];
+    }
+
+    public long getTotalNs(int op) {
+        return mTotalNs[op];
+    }
+
+    public long getMaxNs(int op) {
+        return mMaxNs[op];
+    }
+
+    public long getCallCount() {
+        return sum(mCount);
+    }
+
+    public long getRedundantCount() {
+        return sum(mRedundant);
+    }
+
+    public long getUploadBytes() {
+        return sum(mUpload);
+    }
+
+    public long getTotalNs() {
+        return sum(mTotalNs);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("trace: %d bytes, %d frames, %d calls, %d redundant, %d bytes uploaded, %.1f us in gl\n",
+                mTraceBytes, getFrameCount(), getCallCount(), getRedundantCount(), getUploadBytes(),
+                getTotalNs() / 1000.0));
+        sb.append(String.format("%6s %8s %6s %10s %12s %10s\n", "frame", "calls", "draws", "redundant", "upload", "gl us"));
+        for (int i = 0; i < mFrames.size(); i++) {
+            long[] frame = mFrames.get(i);
+            sb.append(String.format("%6d %8d %6d %10d %12d %10.1f\n", i, frame[FRAME_CALLS], frame[FRAME_DRAWS],
+                    frame[FRAME_REDUNDANT], frame[FRAME_UPLOAD], frame[FRAME_NS] / 1000.0));
+        }
+        Integer[] ops = new Integer[TraceFormat.OP_COUNT];
+        for (int op = 0; op < ops.length; op++) {
+            ops[op] = op;
+        }
+        Arrays.sort(ops, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                long diff = mTotalNs[b] - mTotalNs[a];
+                return diff != 0 ? (diff > 0 ? 1 : -1) : a - b;
+            }
+        });
+        sb.append(String.format("%-32s %8s %10s %12s %10s %9s %9s\n",
+                "function", "calls", "redundant", "upload", "total us", "avg ns", "max ns"));
+        for (int op : ops) {
+            if (mCount[op] == 0) {
+                continue;
+            }
+            sb.append(String.format("%-32s %8d %10d %12d %10.1f %9d %9d\n", TraceFormat.nameOf(op), mCount[op],
+                    mRedundant[op], mUpload[op], mTotalNs[op] / 1000.0, mTotalNs[op] / mCount[op], mMaxNs[op]));
+        }
+        return sb.toString();
+    }
+
+    private static long sum(long[] values) {
+        long sum = 0;
+        for (long v : values) {
+            sum += v;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,174 @@
+package com.phj.opengl.trace;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * 描述：按{@link TraceFormat}编码调用记录，先写进内存中按需扩容的数组，抓取结束后一次写到文件
+ * 构造时写入文件头。只在GL线程使用
+ * Created by PHJ on 2026/10/19.
+ */
+
+final class TraceWriter {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private byte[] mData;
+    private int mSize;
+
+    TraceWriter(int capacity) {
+        mData = new byte[Math.max(64, capacity)];
+        writeFixed(TraceFormat.MAGIC);
+        writeInt(TraceFormat.VERSION);
+    }
+
+    int size() {
+        return mSize;
+    }
+
+    void writeOp(int op) {
+        ensure(1);
+        mData[mSize++] = (byte) op;
+    }
+
+    /**
+     * zigzag变长编码，-1等小的负数同样只占1字节
+     */
+    void writeInt(int value) {
+        ensure(5);
+        int v = (value << 1) ^ (value >> 31);
+        while ((v & ~0x7F) != 0) {
+            mData[mSize++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        mData[mSize++] = (byte) v;
+    }
+
+    void writeFloat(float value) {
+        writeFixed(Float.floatToRawIntBits(value));
+    }
+
+    void writeBoolean(boolean value) {
+        ensure(1);
+        mData[mSize++] = (byte) (value ? 1 : 0);
+    }
+
+    void writeString(String value) {
+        if (value == null) {
+            writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        writeInt(bytes.length);
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, mData, mSize, bytes.length);
+        mSize += bytes.length;
+    }
+
+    void writeInts(int[] values, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            writeInt(values[offset + i]);
+        }
+    }
+
+    void writeFloats(float[] values, int offset, int count) {
+        ensure(count * 4);
+        for (int i = 0; i < count; i++) {
+            writeFixed(Float.floatToRawIntBits(values[offset + i]));
+        }
+    }
+
+    /**
+     * 写buffer从position起的原始字节，不改变buffer的position
+     *
+     * @param maxBytes 最多写多少字节，例如glBufferData的size
+     */
+    void writePayload(Buffer buffer, int maxBytes) {
+        if (buffer == null) {
+            writeInt(-1);
+            return;
+        }
+        int elementSize = elementSize(buffer);
+        int elements = Math.min(buffer.remaining(), Math.max(0, maxBytes) / elementSize);
+        int bytes = elements * elementSize;
+        writeInt(bytes);
+        ensure(bytes);
+        // 多字节的buffer按本机字节序展开，与GL从这块内存读到的字节一致
+        ByteBuffer out = ByteBuffer.wrap(mData, mSize, bytes).order(ByteOrder.nativeOrder());
+        if (buffer instanceof ByteBuffer) {
+            ByteBuffer src = ((ByteBuffer) buffer).duplicate();
+            src.limit(src.position() + bytes);
+            out.put(src);
+        } else if (buffer instanceof FloatBuffer) {
+            FloatBuffer src = ((FloatBuffer) buffer).duplicate();
+            src.limit(src.position() + elements);
+            out.asFloatBuffer().put(src);
+        } else if (buffer instanceof ShortBuffer) {
+            ShortBuffer src = ((ShortBuffer) buffer).duplicate();
+            src.limit(src.position() + elements);
+            out.asShortBuffer().put(src);
+        } else if (buffer instanceof IntBuffer) {
+            IntBuffer src = ((IntBuffer) buffer).duplicate();
+            src.limit(src.position() + elements);
+            out.asIntBuffer().put(src);
+        } else if (buffer instanceof CharBuffer) {
+            CharBuffer src = ((CharBuffer) buffer).duplicate();
+            src.limit(src.position() + elements);
+            out.asCharBuffer().put(src);
+        } else if (buffer instanceof LongBuffer) {
+            LongBuffer src = ((LongBuffer) buffer).duplicate();
+            src.limit(src.position() + elements);
+            out.asLongBuffer().put(src);
+        } else {
+            DoubleBuffer src = ((DoubleBuffer) buffer).duplicate();
+            src.limit(src.position() + elements);
+            out.asDoubleBuffer().put(src);
+        }
+        mSize += bytes;
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+        out.write(mData, 0, mSize);
+    }
+
+    private void writeFixed(int value) {
+        ensure(4);
+        mData[mSize++] = (byte) value;
+        mData[mSize++] = (byte) (value >> 8);
+        mData[mSize++] = (byte) (value >> 16);
+        mData[mSize++] = (byte) (value >> 24);
+    }
+
+    private void ensure(int bytes) {
+        if (mSize + bytes > mData.length) {
+            long capacity = Math.max((long) mData.length * 2, (long) mSize + bytes);
+            if (capacity > Integer.MAX_VALUE - 8) {
+                throw new OutOfMemoryError("trace too large: " + capacity);
+            }
+            byte[] data = new byte[(int) capacity];
+            System.arraycopy(mData, 0, data, 0, mSize);
+            mData = data;
+        }
+    }
+
+    private static int elementSize(Buffer buffer) {
+        if (buffer instanceof ByteBuffer) {
+            return 1;
+        } else if (buffer instanceof ShortBuffer || buffer instanceof CharBuffer) {
+            return 2;
+        } else if (buffer instanceof IntBuffer || buffer instanceof FloatBuffer) {
+            return 4;
+        }
+        return 8;
+    }
+}
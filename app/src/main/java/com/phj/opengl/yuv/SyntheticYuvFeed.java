@@ -0,0 +1,56 @@
+package com.phj.opengl.yuv;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 描述：没有相机和解码器时的生产者，把{@link SyntheticYuvGenerator}的帧按NV21提交给{@link YuvFrameSource}
+ * GL线程每画完一帧调用一次{@link #requestFrame()}，在线程池中生成下一帧，提交后请求重绘，
+ * 按显示的节奏产帧；场景切走后不再绘制，也就不再产帧。上一帧还没生成完时的请求直接忽略
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class SyntheticYuvFeed {
+
+    private final SyntheticYuvGenerator mGenerator;
+    private final YuvFrameSource mSource;
+    private final Executor mExecutor;
+    private final Runnable mFrameRequester;
+    private final byte[] mNv21;
+    private final AtomicBoolean mBusy = new AtomicBoolean();
+    private final Runnable mProduce = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                mGenerator.generateNv21(mFrame, mNv21);
+                mSource.submitNv21(mNv21, mGenerator.getWidth(), mGenerator.getHeight(), System.nanoTime());
+                mFrame++;
+            } finally {
+                mBusy.set(false);
+            }
+            mFrameRequester.run();
+        }
+    };
+    private int mFrame;     // 只在生产线程上读写，由mBusy保证同时只有一个
+
+    /**
+     * @param frameRequester 提交一帧后调用，例如GLSurfaceView#requestRender
+     */
+    public SyntheticYuvFeed(SyntheticYuvGenerator generator, YuvFrameSource source, Executor executor,
+                            Runnable frameRequester) {
+        this.mGenerator = generator;
+        this.mSource = source;
+        this.mExecutor = executor;
+        this.mFrameRequester = frameRequester;
+        this.mNv21 = new byte[YuvConverter.nv21Size(generator.getWidth(), generator.getHeight())];
+    }
+
+    /**
+     * 生成并提交下一帧，可以在任意线程调用
+     */
+    public void requestFrame() {
+        if (mBusy.compareAndSet(false, true)) {
+            mExecutor.execute(mProduce);
+        }
+    }
+}
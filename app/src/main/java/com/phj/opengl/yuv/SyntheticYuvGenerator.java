@@ -0,0 +1,74 @@
+package com.phj.opengl.yuv;
+
+/**
+ * 描述：合成的测试视频，上3/4为随帧号水平滚动的8条彩条，下1/4为灰阶渐变
+ * 彩条宽度和每帧的位移都是偶数，每个2x2色度块内颜色相同，转换误差只来自量化。
+ * 用于没有相机和解码器时驱动{@link YuvFrameSource}，以及无GL环境下的测试
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class SyntheticYuvGenerator {
+
+    // 白、黄、青、绿、品红、红、蓝、黑，75%亮度
+    public static final int[] BARS = {
+            0xFFBFBFBF, 0xFFBFBF00, 0xFF00BFBF, 0xFF00BF00,
+            0xFFBF00BF, 0xFFBF0000, 0xFF0000BF, 0xFF000000,
+    };
+
+    private final int mWidth;
+    private final int mHeight;
+    private final YuvColorSpace mColorSpace;
+    private final int mBarWidth;
+    private final int[] mArgb;
+
+    public SyntheticYuvGenerator(int width, int height, YuvColorSpace colorSpace) {
+        this.mWidth = width;
+        this.mHeight = height;
+        this.mColorSpace = colorSpace;
+        int bar = Math.max(2, (width + BARS.length - 1) / BARS.length);
+        this.mBarWidth = bar + (bar & 1);
+        this.mArgb = new int[width * height];
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * 第frame帧的原始画面
+     */
+    public void generateArgb(int frame, int[] out) {
+        int barsHeight = mHeight * 3 / 4 & ~1;
+        int period = mBarWidth * BARS.length;
+        int shift = (frame * 2) % period;
+        for (int y = 0; y < mHeight; y++) {
+            for (int x = 0; x < mWidth; x++) {
+                int color;
+                if (y < barsHeight) {
+                    color = BARS[((x + shift) % period) / mBarWidth];
+                } else {
+                    int gray = mWidth > 1 ? x * 255 / (mWidth - 1) : 0;
+                    color = 0xFF000000 | (gray << 16) | (gray << 8) | gray;
+                }
+                out[y * mWidth + x] = color;
+            }
+        }
+    }
+
+    /**
+     * @param out {@link YuvConverter#nv21Size}字节
+     */
+    public void generateNv21(int frame, byte[] out) {
+        generateArgb(frame, mArgb);
+        YuvConverter.toNv21(mArgb, mWidth, mHeight, mColorSpace, out);
+    }
+
+    public void generateI420(int frame, byte[] y, byte[] u, byte[] v) {
+        generateArgb(frame, mArgb);
+        YuvConverter.toI420(mArgb, mWidth, mHeight, mColorSpace, y, u, v);
+    }
+}
@@ -0,0 +1,130 @@
+package com.phj.opengl.yuv;
+
+/**
+ * 描述：YUV与RGB之间的转换系数，由亮度权重Kr、Kb和取值范围决定
+ * 有限范围（视频）：Y在16~235，UV在16~240；完整范围（JPEG、相机预览的NV21）：三者都在0~255。
+ * 片元着色器中的转换为 rgb = M * (yuv - offset)，yuv为纹理采样得到的0~1的值，
+ * M和offset由{@link #getMatrix}和{@link #getOffset}给出；CPU上的转换用同一组系数。
+ * Created by PHJ on 2026/10/19.
+ */
+
+public final class YuvColorSpace {
+
+    /**
+     * 标清视频
+     */
+    public static final YuvColorSpace BT601 = new YuvColorSpace("BT.601", 0.299f, 0.114f, false);
+    /**
+     * JPEG和相机预览
+     */
+    public static final YuvColorSpace BT601_FULL = new YuvColorSpace("BT.601 full", 0.299f, 0.114f, true);
+    /**
+     * 高清视频
+     */
+    public static final YuvColorSpace BT709 = new YuvColorSpace("BT.709", 0.2126f, 0.0722f, false);
+    public static final YuvColorSpace BT709_FULL = new YuvColorSpace("BT.709 full", 0.2126f, 0.0722f, true);
+
+    private final String mName;
+    private final float mKr;
+    private final float mKg;
+    private final float mKb;
+    private final boolean mFullRange;
+    private final float mYOffset;   // 0~255
+    private final float mYScale;    // Y从0~255映射到0~1的倍数
+    private final float mCScale;    // UV从0~255映射到-0.5~0.5的倍数
+    // 反变换系数，作用在0~1的Y和-0.5~0.5的色差上
+    private final float mRv;
+    private final float mGu;
+    private final float mGv;
+    private final float mBu;
+
+    private YuvColorSpace(String name, float kr, float kb, boolean fullRange) {
+        this.mName = name;
+        this.mKr = kr;
+        this.mKb = kb;
+        this.mKg = 1 - kr - kb;
+        this.mFullRange = fullRange;
+        this.mYOffset = fullRange ? 0 : 16;
+        this.mYScale = fullRange ? 1 : 255f / 219;
+        this.mCScale = fullRange ? 1 : 255f / 224;
+        this.mRv = 2 * (1 - kr);
+        this.mGu = -2 * kb * (1 - kb) / mKg;
+        this.mGv = -2 * kr * (1 - kr) / mKg;
+        this.mBu = 2 * (1 - kb);
+    }
+
+    public boolean isFullRange() {
+        return mFullRange;
+    }
+
+    /**
+     * 着色器用的3x3矩阵，按列存放，第一列对应Y，后两列对应色度纹理的亮度和alpha通道
+     *
+     * @param vFirst 色度纹理的亮度通道是V（NV21），否则是U
+     */
+    public void getMatrix(boolean vFirst, float[] out, int offset) {
+        float ys = mYScale;
+        float cs = mCScale;
+        // 列0：Y
+        out[offset] = ys;
+        out[offset + 1] = ys;
+        out[offset + 2] = ys;
+        int u = vFirst ? offset + 6 : offset + 3;
+        int v = vFirst ? offset + 3 : offset + 6;
+        out[u] = 0;
+        out[u + 1] = mGu * cs;
+        out[u + 2] = mBu * cs;
+        out[v] = mRv * cs;
+        out[v + 1] = mGv * cs;
+        out[v + 2] = 0;
+    }
+
+    /**
+     * 着色器中先减去的偏移，0~1
+     */
+    public void getOffset(float[] out, int offset) {
+        out[offset] = mYOffset / 255;
+        out[offset + 1] = 128f / 255;
+        out[offset + 2] = 128f / 255;
+    }
+
+    /**
+     * 参考转换，与着色器使用同一组系数
+     *
+     * @return 不透明的ARGB
+     */
+    public int toArgb(int y, int u, int v) {
+        float l = (y - mYOffset) * mYScale;
+        float cb = (u - 128) * mCScale;
+        float cr = (v - 128) * mCScale;
+        int r = clamp(Math.round(l + mRv * cr));
+        int g = clamp(Math.round(l + mGu * cb + mGv * cr));
+        int b = clamp(Math.round(l + mBu * cb));
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
+
+    public int toY(int r, int g, int b) {
+        return clamp(Math.round(luma(r, g, b) / mYScale + mYOffset));
+    }
+
+    public int toU(int r, int g, int b) {
+        return clamp(Math.round((b - luma(r, g, b)) / mBu / mCScale + 128));
+    }
+
+    public int toV(int r, int g, int b) {
+        return clamp(Math.round((r - luma(r, g, b)) / mRv / mCScale + 128));
+    }
+
+    private float luma(int r, int g, int b) {
+        return mKr * r + mKg * g + mKb * b;
+    }
+
+    private static int clamp(int value) {
+        return value < 0 ? 0 : value > 255 ? 255 : value;
+    }
+
+    @Override
+    public String toString() {
+        return mName;
+    }
+}
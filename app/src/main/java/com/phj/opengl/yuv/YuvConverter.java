@@ -0,0 +1,95 @@
+package com.phj.opengl.yuv;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 描述：CPU上的YUV 4:2:0与ARGB互转，作为着色器转换的参考，也用于生成测试帧
+ * 转为YUV时色度取2x2像素RGB的平均值，图像边缘不足2x2的块只取范围内的像素
+ * Created by PHJ on 2026/10/19.
+ */
+
+public final class YuvConverter {
+
+    private YuvConverter() {
+    }
+
+    /**
+     * 按最近邻取色度，与着色器在纹素中心采样的结果一致
+     *
+     * @param out width * height个ARGB
+     */
+    public static void toArgb(YuvFrame frame, YuvColorSpace colorSpace, int[] out) {
+        int width = frame.getWidth();
+        int height = frame.getHeight();
+        int chromaWidth = frame.getChromaWidth();
+        ByteBuffer luma = frame.getLuma();
+        ByteBuffer chroma = frame.getChroma();
+        int uIndex = frame.isVFirst() ? 1 : 0;
+        int vIndex = 1 - uIndex;
+        for (int y = 0; y < height; y++) {
+            int chromaRow = (y >> 1) * chromaWidth * 2;
+            for (int x = 0; x < width; x++) {
+                int c = chromaRow + (x >> 1) * 2;
+                out[y * width + x] = colorSpace.toArgb(luma.get(y * width + x) & 0xFF,
+                        chroma.get(c + uIndex) & 0xFF, chroma.get(c + vIndex) & 0xFF);
+            }
+        }
+    }
+
+    /**
+     * @param nv21 至少width * height + 色度宽 * 色度高 * 2字节
+     */
+    public static void toNv21(int[] argb, int width, int height, YuvColorSpace colorSpace, byte[] nv21) {
+        int chroma = width * height;
+        fromArgb(argb, width, height, colorSpace, nv21, nv21, chroma + 1, nv21, chroma, 2);
+    }
+
+    /**
+     * @param u 色度宽 * 色度高字节
+     * @param v 色度宽 * 色度高字节
+     */
+    public static void toI420(int[] argb, int width, int height, YuvColorSpace colorSpace,
+                              byte[] y, byte[] u, byte[] v) {
+        fromArgb(argb, width, height, colorSpace, y, u, 0, v, 0, 1);
+    }
+
+    /**
+     * NV21一帧的字节数
+     */
+    public static int nv21Size(int width, int height) {
+        return width * height + ((width + 1) / 2) * ((height + 1) / 2) * 2;
+    }
+
+    private static void fromArgb(int[] argb, int width, int height, YuvColorSpace colorSpace, byte[] y,
+                                 byte[] u, int uOffset, byte[] v, int vOffset, int chromaStep) {
+        for (int i = 0; i < width * height; i++) {
+            int c = argb[i];
+            y[i] = (byte) colorSpace.toY((c >> 16) & 0xFF, (c >> 8) & 0xFF, c & 0xFF);
+        }
+        int chromaWidth = (width + 1) / 2;
+        int chromaHeight = (height + 1) / 2;
+        for (int cy = 0; cy < chromaHeight; cy++) {
+            for (int cx = 0; cx < chromaWidth; cx++) {
+                int r = 0;
+                int g = 0;
+                int b = 0;
+                int n = 0;
+                for (int yy = cy * 2; yy < Math.min(height, cy * 2 + 2); yy++) {
+                    for (int xx = cx * 2; xx < Math.min(width, cx * 2 + 2); xx++) {
+                        int c = argb[yy * width + xx];
+                        r += (c >> 16) & 0xFF;
+                        g += (c >> 8) & 0xFF;
+                        b += c & 0xFF;
+                        n++;
+                    }
+                }
+                r = (r + n / 2) / n;
+                g = (g + n / 2) / n;
+                b = (b + n / 2) / n;
+                int index = (cy * chromaWidth + cx) * chromaStep;
+                u[uOffset + index] = (byte) colorSpace.toU(r, g, b);
+                v[vOffset + index] = (byte) colorSpace.toV(r, g, b);
+            }
+        }
+    }
+}
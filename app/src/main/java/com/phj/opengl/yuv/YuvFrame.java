@@ -0,0 +1,89 @@
+package com.phj.opengl.yuv;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 描述：一帧YUV 4:2:0，Y平面和交错的色度平面，行与行之间没有填充
+ * 无论输入是NV21、NV12还是I420，写入时都整理成这两个平面，GL线程只需要上传两张纹理。
+ * 由{@link YuvFrameSource}复用，GL线程只能在下一次acquire之前读取
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class YuvFrame {
+
+    int width;
+    int height;
+    boolean vFirst;
+    long timestampNs;
+    long sequence;
+    ByteBuffer luma;
+    ByteBuffer chroma;
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * 色度平面的宽，奇数宽度向上取整
+     */
+    public int getChromaWidth() {
+        return (width + 1) / 2;
+    }
+
+    public int getChromaHeight() {
+        return (height + 1) / 2;
+    }
+
+    /**
+     * 色度平面每个像素先V后U（NV21的排列），否则先U后V
+     */
+    public boolean isVFirst() {
+        return vFirst;
+    }
+
+    public long getTimestampNs() {
+        return timestampNs;
+    }
+
+    /**
+     * 提交的序号，从1开始
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * width * height字节，position为0
+     */
+    public ByteBuffer getLuma() {
+        return luma;
+    }
+
+    /**
+     * 色度宽 * 色度高 * 2字节，position为0
+     */
+    public ByteBuffer getChroma() {
+        return chroma;
+    }
+
+    // 尺寸变大时重新分配，变小时复用
+    void resize(int width, int height) {
+        this.width = width;
+        this.height = height;
+        luma = ensureCapacity(luma, width * height);
+        chroma = ensureCapacity(chroma, getChromaWidth() * getChromaHeight() * 2);
+    }
+
+    private static ByteBuffer ensureCapacity(ByteBuffer buffer, int size) {
+        if (buffer == null || buffer.capacity() < size) {
+            buffer = ByteBuffer.allocateDirect(size);
+        }
+        buffer.clear();
+        buffer.limit(size);
+        return buffer;
+    }
+}
@@ -0,0 +1,157 @@
+package com.phj.opengl.yuv;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 描述：YUV帧的三缓冲，生产者（相机、解码器等任意线程）提交，GL线程取最新的一帧
+ * 三个{@link YuvFrame}分别是生产者正在写的后缓冲、最新写完的就绪帧和GL线程正在使用的前缓冲。
+ * 提交时在后缓冲上拷贝，写完后与就绪帧交换；GL线程取帧时把就绪帧与前缓冲交换。
+ * 锁只保护下标的交换，生产者不会等待GL线程的上传和绘制；GL线程来不及取的就绪帧被新帧覆盖，计入丢帧。
+ * 多个生产者之间串行提交
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class YuvFrameSource {
+
+    private final YuvFrame[] mFrames = {new YuvFrame(), new YuvFrame(), new YuvFrame()};
+    private final Object mLock = new Object();
+    private int mBack = 0;
+    private int mReady = 1;
+    private int mFront = 2;
+    private boolean mFresh;     // 就绪帧还没被GL线程取走
+    private boolean mHasFront;
+    private long mSubmittedCount;
+    private long mDroppedCount;
+
+    /**
+     * 相机预览的NV21：Y平面后紧跟VU交错的色度平面，行间没有填充
+     */
+    public void submitNv21(byte[] data, int width, int height, long timestampNs) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        ByteBuffer chroma = ByteBuffer.wrap(data, width * height, data.length - width * height).slice();
+        submitSemiPlanar(buffer, width, chroma, ((width + 1) / 2) * 2, true, width, height, timestampNs);
+    }
+
+    /**
+     * 半平面格式（NV21、NV12），平面从各自的position开始，不改变position
+     *
+     * @param lumaStride   Y平面的行跨度，字节
+     * @param chromaStride 色度平面的行跨度，字节
+     * @param vFirst       色度先V后U（NV21），否则先U后V（NV12）
+     */
+    public synchronized void submitSemiPlanar(ByteBuffer luma, int lumaStride, ByteBuffer chroma, int chromaStride,
+                                              boolean vFirst, int width, int height, long timestampNs) {
+        YuvFrame frame = back();
+        frame.resize(width, height);
+        frame.vFirst = vFirst;
+        frame.timestampNs = timestampNs;
+        copyPlane(luma, lumaStride, width, height, frame.luma);
+        copyPlane(chroma, chromaStride, frame.getChromaWidth() * 2, frame.getChromaHeight(), frame.chroma);
+        publish();
+    }
+
+    /**
+     * 平面格式（I420、YV12），色度在拷贝时交错成VU，与NV21上传方式相同
+     * 平面从各自的position开始，不改变position
+     */
+    public synchronized void submitI420(ByteBuffer luma, int lumaStride, ByteBuffer u, int uStride,
+                                        ByteBuffer v, int vStride, int width, int height, long timestampNs) {
+        YuvFrame frame = back();
+        frame.resize(width, height);
+        frame.vFirst = true;
+        frame.timestampNs = timestampNs;
+        copyPlane(luma, lumaStride, width, height, frame.luma);
+        ByteBuffer out = frame.chroma;
+        int chromaWidth = frame.getChromaWidth();
+        int chromaHeight = frame.getChromaHeight();
+        int uBase = u.position();
+        int vBase = v.position();
+        int index = 0;
+        for (int row = 0; row < chromaHeight; row++) {
+            int uRow = uBase + row * uStride;
+            int vRow = vBase + row * vStride;
+            for (int x = 0; x < chromaWidth; x++) {
+                out.put(index++, v.get(vRow + x));
+                out.put(index++, u.get(uRow + x));
+            }
+        }
+        publish();
+    }
+
+    /**
+     * GL线程调用，取最新提交的一帧，返回的帧在下一次调用之前保持不变
+     *
+     * @return 上次调用之后没有新帧时为null
+     */
+    public YuvFrame acquireLatest() {
+        synchronized (mLock) {
+            if (!mFresh) {
+                return null;
+            }
+            int front = mFront;
+            mFront = mReady;
+            mReady = front;
+            mFresh = false;
+            mHasFront = true;
+            return mFrames[mFront];
+        }
+    }
+
+    /**
+     * GL线程调用，最近一次{@link #acquireLatest()}取到的帧，还没有取到过时为null
+     */
+    public YuvFrame getCurrent() {
+        synchronized (mLock) {
+            return mHasFront ? mFrames[mFront] : null;
+        }
+    }
+
+    public long getSubmittedCount() {
+        synchronized (mLock) {
+            return mSubmittedCount;
+        }
+    }
+
+    /**
+     * 被更新的帧覆盖、没有被GL线程取到的帧数
+     */
+    public long getDroppedCount() {
+        synchronized (mLock) {
+            return mDroppedCount;
+        }
+    }
+
+    private YuvFrame back() {
+        synchronized (mLock) {
+            return mFrames[mBack];
+        }
+    }
+
+    private void publish() {
+        synchronized (mLock) {
+            YuvFrame frame = mFrames[mBack];
+            frame.sequence = ++mSubmittedCount;
+            int ready = mReady;
+            mReady = mBack;
+            mBack = ready;
+            if (mFresh) {
+                mDroppedCount++;
+            }
+            mFresh = true;
+        }
+    }
+
+    // 按行拷贝，去掉行尾的填充
+    private static void copyPlane(ByteBuffer src, int stride, int rowBytes, int rows, ByteBuffer dst) {
+        ByteBuffer in = src.duplicate();
+        int base = src.position();
+        dst.clear();
+        for (int row = 0; row < rows; row++) {
+            int start = base + row * stride;
+            in.limit(start + rowBytes);
+            in.position(start);
+            dst.put(in);
+        }
+        dst.flip();
+    }
+}
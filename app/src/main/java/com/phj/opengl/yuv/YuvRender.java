@@ -0,0 +1,161 @@
+package com.phj.opengl.yuv;
+
+import android.opengl.GLES20;
+import android.opengl.GLSurfaceView;
+import android.util.Log;
+
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.gl.GLResourceRegistry;
+import com.phj.opengl.gl.GLResourceScope;
+import com.phj.opengl.gl.MatrixHelper;
+import com.phj.opengl.shader.ShaderFeatures;
+import com.phj.opengl.shader.ShaderLibrary;
+import com.phj.opengl.shader.UniformState;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import javax.microedition.khronos.egl.EGLConfig;
+import javax.microedition.khronos.opengles.GL10;
+
+/**
+ * 描述：绘制视频或相机的YUV帧，保持宽高比居中
+ * 生产者向{@link YuvFrameSource}提交帧，例如Camera.PreviewCallback#onPreviewFrame中调用submitNv21，
+ * 每帧取最新的一帧上传为Y和色度两张纹理，在片元着色器中按选定的色彩空间转为RGB
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class YuvRender implements GLSurfaceView.Renderer {
+
+    private final static String TAG = YuvRender.class.getSimpleName();
+
+    private static final int FEATURES = ShaderFeatures.MVP | ShaderFeatures.TEXTURE | ShaderFeatures.YUV;
+
+    // 位置xy + 纹理坐标，帧的第一行在上
+    private static final float[] QUAD = {
+            -1, -1, 0, 1,
+            1, -1, 1, 1,
+            -1, 1, 0, 0,
+            1, 1, 1, 0,
+    };
+
+    private final GLApi mGL;
+    private final ShaderLibrary mShaderLibrary;
+    private final GLResourceRegistry mResourceRegistry;
+    private final GLResourceScope mResourceScope;
+    private final YuvFrameSource mSource;
+    private final YuvTextures mTextures;
+    private final FloatBuffer mQuad;
+    private final float[] mMatrix = new float[16];
+    private final float[] mYuvMatrix = new float[9];
+    private final float[] mYuvOffset = new float[3];
+    private volatile YuvColorSpace mColorSpace;
+    private int mProgram;
+    private UniformState mUniforms;
+    private int mPositionHandle;
+    private int mTextureHandle;
+    private int mWidth;
+    private int mHeight;
+
+    public YuvRender(ShaderLibrary shaderLibrary, GLResourceRegistry resourceRegistry,
+                     YuvFrameSource source, YuvColorSpace colorSpace) {
+        this.mShaderLibrary = shaderLibrary;
+        this.mGL = shaderLibrary.getGL();
+        this.mResourceRegistry = resourceRegistry;
+        this.mResourceScope = resourceRegistry.openScope(TAG);
+        this.mSource = source;
+        this.mColorSpace = colorSpace;
+        this.mTextures = new YuvTextures(mResourceScope);
+        this.mQuad = ByteBuffer.allocateDirect(QUAD.length * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        mQuad.put(QUAD).flip();
+    }
+
+    /**
+     * 切换色彩空间，可以在任意线程调用，下一帧生效
+     */
+    public void setColorSpace(YuvColorSpace colorSpace) {
+        this.mColorSpace = colorSpace;
+    }
+
+    @Override
+    public void onSurfaceCreated(GL10 gl, EGLConfig config) {
+        mProgram = mShaderLibrary.getProgram("basic", FEATURES);
+        mUniforms = mShaderLibrary.getUniforms(mProgram);
+        // attribute位置只随program变化，在这里查一次，绘制时不再查询
+        mPositionHandle = mGL.glGetAttribLocation(mProgram, "vPosition");
+        mTextureHandle = mGL.glGetAttribLocation(mProgram, "aTextureCoord");
+        Log.e(TAG, "onSurfaceCreated: mProgram=" + mProgram);
+    }
+
+    /**
+     * 删除纹理，渲染器不再使用时在GL线程调用
+     */
+    public void release() {
+        mTextures.release();
+        mResourceScope.close();
+    }
+
+    @Override
+    public void onSurfaceChanged(GL10 gl, int width, int height) {
+        mGL.glViewport(0, 0, width, height);
+        mWidth = width;
+        mHeight = height;
+    }
+
+    @Override
+    public void onDrawFrame(GL10 gl) {
+        YuvFrame frame = mSource.acquireLatest();
+        if (frame != null) {
+            mTextures.update(mGL, frame);
+        }
+        mGL.glClearColor(0, 0, 0, 1);
+        mGL.glClear(GLES20.GL_COLOR_BUFFER_BIT);
+        if (mTextures.hasFrame()) {
+            draw();
+        }
+        mResourceRegistry.onFrameEnd();
+    }
+
+    private void draw() {
+        // 按帧的宽高比缩放到视口内
+        float frameRatio = (float) mTextures.getWidth() / mTextures.getHeight();
+        float viewRatio = (float) mWidth / mHeight;
+        MatrixHelper.setIdentityM(mMatrix, 0);
+        if (frameRatio > viewRatio) {
+            MatrixHelper.scaleM(mMatrix, 0, 1, viewRatio / frameRatio, 1);
+        } else {
+            MatrixHelper.scaleM(mMatrix, 0, frameRatio / viewRatio, 1, 1);
+        }
+        YuvColorSpace colorSpace = mColorSpace;
+        colorSpace.getMatrix(mTextures.isVFirst(), mYuvMatrix, 0);
+        colorSpace.getOffset(mYuvOffset, 0);
+
+        // 尺寸和色彩空间不变时都不会上传
+        mUniforms.setMatrix4fv("vMatrix", 1, mMatrix, 0);
+        mUniforms.setMatrix3fv("vYuvMatrix", 1, mYuvMatrix, 0);
+        mUniforms.set3fv("vYuvOffset", 1, mYuvOffset, 0);
+        mUniforms.set1i("vTexture", 0);
+        mUniforms.set1i("vTextureUV", 1);
+        mGL.glUseProgram(mProgram);
+        mUniforms.apply();
+        mGL.glActiveTexture(GLES20.GL_TEXTURE0);
+        mGL.glBindTexture(GLES20.GL_TEXTURE_2D, mTextures.useLuma());
+        mGL.glActiveTexture(GLES20.GL_TEXTURE1);
+        mGL.glBindTexture(GLES20.GL_TEXTURE_2D, mTextures.useChroma());
+
+        mQuad.position(0);
+        mGL.glVertexAttribPointer(mPositionHandle, 2, GLES20.GL_FLOAT, false, 16, mQuad);
+        mGL.glEnableVertexAttribArray(mPositionHandle);
+        mQuad.position(2);
+        mGL.glVertexAttribPointer(mTextureHandle, 2, GLES20.GL_FLOAT, false, 16, mQuad);
+        mGL.glEnableVertexAttribArray(mTextureHandle);
+        mGL.glDrawArrays(GLES20.GL_TRIANGLE_STRIP, 0, 4);
+        mGL.glDisableVertexAttribArray(mPositionHandle);
+        mGL.glDisableVertexAttribArray(mTextureHandle);
+
+        mGL.glBindTexture(GLES20.GL_TEXTURE_2D, 0);
+        mGL.glActiveTexture(GLES20.GL_TEXTURE0);
+        mGL.glBindTexture(GLES20.GL_TEXTURE_2D, 0);
+    }
+}
@@ -0,0 +1,138 @@
+package com.phj.opengl.yuv;
+
+import android.opengl.GLES20;
+
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.gl.GLResourceScope;
+import com.phj.opengl.gl.GLTexture;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 描述：把{@link YuvFrame}上传为两张纹理：Y为GL_LUMINANCE，交错的色度为半分辨率的GL_LUMINANCE_ALPHA
+ * 尺寸不变时用glTexSubImage2D更新，尺寸变化时重建纹理；上下文丢失后由registry从当前帧重新上传。
+ * 颜色转换在片元着色器中完成，见{@link com.phj.opengl.shader.ShaderFeatures#YUV}。
+ * 所有方法都必须在GL线程调用
+ * Created by PHJ on 2026/10/19.
+ */
+
+public class YuvTextures {
+
+    private final GLResourceScope mScope;
+    private GLTexture mLuma;
+    private GLTexture mChroma;
+    // 正在显示的帧，属于GL线程，重新上传时从这里读取
+    private YuvFrame mFrame;
+
+    public YuvTextures(GLResourceScope scope) {
+        this.mScope = scope;
+    }
+
+    /**
+     * 上传一帧，通常是{@link YuvFrameSource#acquireLatest()}的结果
+     */
+    public void update(GLApi gl, YuvFrame frame) {
+        if (mLuma == null || mLuma.getWidth() != frame.getWidth() || mLuma.getHeight() != frame.getHeight()) {
+            // 新建的纹理在创建时就从当前帧上传
+            release();
+            mFrame = frame;
+            mLuma = mScope.createTexture(new Plane(frame.getWidth(), frame.getHeight(), false),
+                    GLES20.GL_LINEAR, GLES20.GL_LINEAR, GLES20.GL_CLAMP_TO_EDGE, GLES20.GL_CLAMP_TO_EDGE);
+            mChroma = mScope.createTexture(new Plane(frame.getChromaWidth(), frame.getChromaHeight(), true),
+                    GLES20.GL_LINEAR, GLES20.GL_LINEAR, GLES20.GL_CLAMP_TO_EDGE, GLES20.GL_CLAMP_TO_EDGE);
+            return;
+        }
+        mFrame = frame;
+        subImage(gl, mLuma, GLES20.GL_LUMINANCE, frame.luma);
+        subImage(gl, mChroma, GLES20.GL_LUMINANCE_ALPHA, frame.chroma);
+    }
+
+    private static void subImage(GLApi gl, GLTexture texture, int format, ByteBuffer pixels) {
+        gl.glBindTexture(GLES20.GL_TEXTURE_2D, texture.use());
+        gl.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT, 1);
+        gl.glTexSubImage2D(GLES20.GL_TEXTURE_2D, 0, 0, 0, texture.getWidth(), texture.getHeight(),
+                format, GLES20.GL_UNSIGNED_BYTE, pixels.duplicate());
+        gl.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT, 4);
+        gl.glBindTexture(GLES20.GL_TEXTURE_2D, 0);
+    }
+
+    /**
+     * 还没有上传过帧时为false
+     */
+    public boolean hasFrame() {
+        return mLuma != null;
+    }
+
+    public int useLuma() {
+        return mLuma.use();
+    }
+
+    public int useChroma() {
+        return mChroma.use();
+    }
+
+    /**
+     * 色度纹理的亮度通道是V，用于选择转换矩阵的列顺序
+     */
+    public boolean isVFirst() {
+        return mFrame.isVFirst();
+    }
+
+    public int getWidth() {
+        return mLuma.getWidth();
+    }
+
+    public int getHeight() {
+        return mLuma.getHeight();
+    }
+
+    /**
+     * 删除两张纹理
+     */
+    public void release() {
+        if (mLuma != null) {
+            mLuma.release();
+            mChroma.release();
+            mLuma = null;
+            mChroma = null;
+        }
+        mFrame = null;
+    }
+
+    // 一个平面的纹理源，像素取自当前帧
+    private final class Plane implements GLTexture.Source {
+        final int width;
+        final int height;
+        final boolean chroma;
+
+        Plane(int width, int height, boolean chroma) {
+            this.width = width;
+            this.height = height;
+            this.chroma = chroma;
+        }
+
+        @Override
+        public int getWidth() {
+            return width;
+        }
+
+        @Override
+        public int getHeight() {
+            return height;
+        }
+
+        @Override
+        public long getSizeInBytes() {
+            return (long) width * height * (chroma ? 2 : 1);
+        }
+
+        @Override
+        public void upload(GLApi gl) {
+            int format = chroma ? GLES20.GL_LUMINANCE_ALPHA : GLES20.GL_LUMINANCE;
+            ByteBuffer pixels = mFrame == null ? null : (chroma ? mFrame.chroma : mFrame.luma).duplicate();
+            gl.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT, 1);
+            gl.glTexImage2D(GLES20.GL_TEXTURE_2D, 0, format, width, height, 0, format, GLES20.GL_UNSIGNED_BYTE, pixels);
+            gl.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT, 4);
+        }
+    }
+}
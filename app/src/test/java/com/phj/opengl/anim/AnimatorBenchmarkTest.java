@@ -0,0 +1,68 @@
+package com.phj.opengl.anim;
+
+import com.phj.opengl.testing.AllocationMeter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 1万个物体各有位置、旋转、颜色三个循环补间，打印每帧推进的耗时和分配的字节数
+ * 分配量用HotSpot的线程分配计数得到，其他虚拟机上打印-1且不断言。耗时只打印不断言；断言推进不分配和动画值在范围内
+ */
+public class AnimatorBenchmarkTest {
+
+    private static final int OBJECTS = 10000;
+    private static final int FRAMES = 600;
+    private static final long FRAME_NS = 16666667L;
+
+    @Test
+    public void update10kTweens() {
+        TransformArray transforms = new TransformArray(OBJECTS);
+        Animator animator = new Animator(OBJECTS * 3);
+        float[] position = {0, 0, 0};
+        float[] rotation = {0, 0, 360};
+        float[] color = {1, 0, 0, 1};
+        int[] easings = {Easing.IN_OUT_SINE, Easing.OUT_BOUNCE};
+        float[] times = {0, 0.6f, 1.5f};
+        float[] keys = {0, 0, 0, 0, 1, 0, 0, 0, 0};
+        for (int i = 0; i < OBJECTS; i++) {
+            position[0] = i % 100;
+            keys[4] = i % 7;
+            animator.setRepeat(animator.keyframes(transforms.position, i * 3, 3, times, keys, easings),
+                    Animator.PINGPONG);
+            animator.setRepeat(animator.to(transforms, i, TransformArray.ROTATION, rotation, 1f + i % 3, Easing.LINEAR),
+                    Animator.LOOP);
+            animator.setRepeat(animator.to(transforms, i, TransformArray.COLOR, color, 0.5f, Easing.IN_OUT_QUAD),
+                    Animator.PINGPONG);
+        }
+        assertEquals(OBJECTS * 3, animator.getActiveCount());
+
+        long now = 0;
+        // 预热
+        for (int i = 0; i < FRAMES; i++) {
+            animator.update(now += FRAME_NS);
+        }
+        long allocatedBefore = AllocationMeter.allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < FRAMES; i++) {
+            animator.update(now += FRAME_NS);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = AllocationMeter.since(allocatedBefore);
+        System.out.println(String.format("animator: %d tweens, %.1f us/frame, %.1f ns/tween, %d bytes allocated in %d frames",
+                animator.getActiveCount(), elapsed / 1000.0 / FRAMES, (double) elapsed / FRAMES / animator.getActiveCount(),
+                allocated, FRAMES));
+        // 推进只改写补间和目标数组，600帧里只允许与补间数无关的零星分配
+        if (allocated >= 0) {
+            assertTrue(allocated + " bytes", allocated < 1024);
+        }
+
+        for (int i = 0; i < OBJECTS; i++) {
+            float y = transforms.position[i * 3 + 1];
+            assertTrue(y >= -0.5f && y <= 7.5f);
+            float red = transforms.color[i * 4];
+            assertEquals(1f, red, 0);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.phj.opengl.anim;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 补间的插值、缓动、关键帧、循环、延迟、句柄失效和请求帧的时机
+ */
+public class AnimatorTest {
+
+    private static final long MS = 1000000L;
+    private static final float EPS = 1e-4f;
+
+    @Test
+    public void easingEndpoints() {
+        for (int easing = 0; easing < Easing.COUNT; easing++) {
+            assertEquals("easing " + easing, 1f, Easing.apply(easing, 1f), EPS);
+            if (easing != Easing.STEP) {
+                assertEquals("easing " + easing, 0f, Easing.apply(easing, 0f), EPS);
+            }
+        }
+        assertEquals(0.25f, Easing.apply(Easing.IN_QUAD, 0.5f), EPS);
+        assertEquals(0.5f, Easing.apply(Easing.IN_OUT_CUBIC, 0.5f), EPS);
+        assertEquals(0f, Easing.apply(Easing.STEP, 0.99f), EPS);
+        assertTrue(Easing.apply(Easing.OUT_BACK, 0.7f) > 1f);
+    }
+
+    @Test
+    public void tweenFromCurrentValue() {
+        Animator animator = new Animator(4);
+        float[] target = {9, 2, 4, 9};
+        int handle = animator.to(target, 1, 2, new float[]{4, 0}, 1f, Easing.LINEAR);
+        // 第一帧不推进时间
+        assertTrue(animator.update(0));
+        assertEquals(2f, target[1], EPS);
+        animator.update(250 * MS);
+        assertEquals(2.5f, target[1], EPS);
+        assertEquals(3f, target[2], EPS);
+        assertTrue(animator.isRunning(handle));
+        // 两帧间隔超过上限时只推进上限
+        animator.update(5000 * MS);
+        assertEquals(3f, target[1], EPS);
+        animator.update(5250 * MS);
+        assertFalse(animator.update(5500 * MS));
+        assertEquals(4f, target[1], EPS);
+        assertEquals(0f, target[2], EPS);
+        // 范围之外不动
+        assertEquals(9f, target[0], 0);
+        assertEquals(9f, target[3], 0);
+        assertFalse(animator.isRunning(handle));
+    }
+
+    @Test
+    public void keyframeSegmentsAndEasing() {
+        Animator animator = new Animator(1);
+        float[] target = new float[1];
+        animator.keyframes(target, 0, 1, new float[]{1, 1.5f, 2.5f}, new float[]{0, 10, 30},
+                new int[]{Easing.LINEAR, Easing.IN_QUAD});
+        assertEquals(0f, target[0], 0);
+        animator.update(0);
+        animator.update(100 * MS);
+        assertEquals(2f, target[0], EPS);
+        animator.update(200 * MS);
+        animator.update(400 * MS);
+        animator.update(500 * MS);
+        assertEquals(10f, target[0], EPS);
+        animator.update(700 * MS);
+        animator.update(900 * MS);
+        animator.update(1000 * MS);
+        // 第二段过了一半，IN_QUAD为0.25
+        assertEquals(15f, target[0], EPS);
+        animator.update(1200 * MS);
+        animator.update(1400 * MS);
+        animator.update(1500 * MS);
+        assertEquals(30f, target[0], EPS);
+        assertEquals(0, animator.getActiveCount());
+    }
+
+    @Test
+    public void loopPingPongAndDelay() {
+        Animator animator = new Animator(1);
+        float[] target = new float[3];
+        int loop = animator.to(target, 0, 1, new float[]{1}, 1f, Easing.LINEAR);
+        animator.setRepeat(loop, Animator.LOOP);
+        int pingpong = animator.to(target, 1, 1, new float[]{1}, 1f, Easing.LINEAR);
+        animator.setRepeat(pingpong, Animator.PINGPONG);
+        int delayed = animator.to(target, 2, 1, new float[]{1}, 0.5f, Easing.LINEAR);
+        animator.setDelay(delayed, 0.5f);
+        animator.update(0);
+        long now = 0;
+        for (int i = 0; i < 6; i++) {
+            now += 250 * MS;
+            animator.update(now);
+        }
+        // 1.5秒
+        assertEquals(0.5f, target[0], EPS);
+        assertEquals(0.5f, target[1], EPS);
+        assertEquals(1f, target[2], EPS);
+        now += 250 * MS;
+        animator.update(now);
+        assertEquals(0.75f, target[0], EPS);
+        assertEquals(0.25f, target[1], EPS);
+        assertFalse(animator.isRunning(delayed));
+        assertTrue(animator.isRunning(loop));
+        assertEquals(2, animator.getActiveCount());
+    }
+
+    @Test
+    public void cancelAndStaleHandles() {
+        Animator animator = new Animator(1);
+        float[] target = new float[1];
+        int first = animator.to(target, 0, 1, new float[]{1}, 1f, Easing.LINEAR);
+        animator.update(0);
+        animator.update(100 * MS);
+        animator.cancel(first);
+        float value = target[0];
+        assertFalse(animator.update(200 * MS));
+        assertEquals(value, target[0], 0);
+        // 复用同一个槽位，旧句柄不能影响新补间
+        int second = animator.to(target, 0, 1, new float[]{5}, 1f, Easing.LINEAR);
+        assertNotEquals(first, second);
+        assertFalse(animator.isRunning(first));
+        animator.cancel(first);
+        animator.setRepeat(first, Animator.LOOP);
+        assertTrue(animator.isRunning(second));
+        animator.cancel(Animator.NO_HANDLE);
+        assertEquals(1, animator.getActiveCount());
+    }
+
+    @Test
+    public void growsAndCallsListener() {
+        Animator animator = new Animator(1);
+        float[] target = new float[100];
+        final int[] ended = new int[1];
+        animator.setListener(new Animator.Listener() {
+            @Override
+            public void onTweenEnd(int handle) {
+                ended[0]++;
+            }
+        });
+        for (int i = 0; i < target.length; i++) {
+            animator.to(target, i, 1, new float[]{i}, 0.01f * (i + 1), Easing.OUT_CUBIC);
+        }
+        animator.update(0);
+        long now = 0;
+        while (animator.update(now += 16 * MS)) {
+            assertTrue(now < 2000 * MS);
+        }
+        assertEquals(target.length, ended[0]);
+        for (int i = 0; i < target.length; i++) {
+            assertEquals(i, target[i], EPS);
+        }
+    }
+
+    @Test
+    public void requestsFramesOnlyWhileRunning() {
+        Animator animator = new Animator(1);
+        final int[] requests = new int[1];
+        animator.setFrameRequester(new Runnable() {
+            @Override
+            public void run() {
+                requests[0]++;
+            }
+        });
+        assertFalse(animator.update(0));
+        assertEquals(0, requests[0]);
+        // 空闲时创建补间要主动请求一帧
+        animator.to(new float[1], 0, 1, new float[]{1}, 0.1f, Easing.LINEAR);
+        assertEquals(1, requests[0]);
+        animator.update(5000 * MS);
+        animator.update(5050 * MS);
+        assertEquals(3, requests[0]);
+        assertFalse(animator.update(5100 * MS));
+        assertEquals(3, requests[0]);
+    }
+
+    @Test
+    public void modelMatrix() {
+        TransformArray transforms = new TransformArray(2);
+        transforms.set(TransformArray.POSITION, 1, 1, 2, 3);
+        transforms.set(TransformArray.ROTATION, 1, 0, 0, 90);
+        transforms.set(TransformArray.SCALE, 1, 2, 3, 4);
+        float[] m = new float[32];
+        transforms.getModelMatrix(0, m, 0);
+        transforms.getModelMatrix(1, m, 16);
+        for (int i = 0; i < 16; i++) {
+            assertEquals(i % 5 == 0 ? 1f : 0f, m[i], EPS);
+        }
+        // x轴缩放2后绕z转90度到y轴，y轴缩放3后转到-x
+        float[] expected = {0, 2, 0, 0, -3, 0, 0, 0, 0, 0, 4, 0, 1, 2, 3, 1};
+        for (int i = 0; i < 16; i++) {
+            assertEquals("m[" + i + "]", expected[i], m[16 + i], EPS);
+        }
+        assertEquals(1f, transforms.color[7], 0);
+        assertEquals(1f, transforms.uv[4], 0);
+        assertEquals(0f, transforms.uv[6], 0);
+    }
+}
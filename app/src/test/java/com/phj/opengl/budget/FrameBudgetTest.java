@@ -0,0 +1,302 @@
+package com.phj.opengl.budget;
+
+import android.opengl.GLES20;
+import android.opengl.GLSurfaceView;
+
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.gl.GLResourceRegistry;
+import com.phj.opengl.gl.GLTexture;
+import com.phj.opengl.gl.GpuMemoryAccountant;
+import com.phj.opengl.ibo.IBOTriggerRender;
+import com.phj.opengl.image.ImageRender;
+import com.phj.opengl.mesh.LodMeshRender;
+import com.phj.opengl.mesh.LodSelector;
+import com.phj.opengl.mesh.MeshLod;
+import com.phj.opengl.mesh.MeshSimplifier;
+import com.phj.opengl.mesh.ObjImporter;
+import com.phj.opengl.mesh.TessellationCache;
+import com.phj.opengl.mesh.Tessellator;
+import com.phj.opengl.overdraw.OverdrawRender;
+import com.phj.opengl.pack.AssetPack;
+import com.phj.opengl.pack.AssetPackFormat;
+import com.phj.opengl.pack.AssetPackWriter;
+import com.phj.opengl.pack.VertexLayout;
+import com.phj.opengl.particle.ParticleRender;
+import com.phj.opengl.scene.RenderContext;
+import com.phj.opengl.scene.SceneLifecycle;
+import com.phj.opengl.shader.ShaderLibrary;
+import com.phj.opengl.shader.ShaderSourceProvider;
+import com.phj.opengl.shape.polygon.PolygonRender;
+import com.phj.opengl.shape.square.ElementSquareRender;
+import com.phj.opengl.shape.trigger.AjustTriggerRender;
+import com.phj.opengl.shape.trigger.DefaultTriggerRender;
+import com.phj.opengl.shape.trigger.ElementTriggerRender;
+import com.phj.opengl.shape.trigger.MulticolorTriggerRender;
+import com.phj.opengl.stroke.StrokeRender;
+import com.phj.opengl.testing.AllocationMeter;
+import com.phj.opengl.testing.RecordingGLApi;
+import com.phj.opengl.vbo.VBOTriggerRender;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import javax.microedition.khronos.egl.EGLConfig;
+import javax.microedition.khronos.opengles.GL10;
+
+import static org.junit.Assert.*;
+
+/**
+ * 每个场景按真实的调用顺序跑若干帧，逐帧统计GL调用、绘制、状态切换、uniform上传、查询、上传字节和堆分配，
+ * 取最大值与frame_budgets.txt中的上限比较。时间按固定帧间隔推进，GL计数每次运行都相同；
+ * 堆分配只在HotSpot上测量，JIT之后只会变少。文字（需要Paint）和YUV（需要相机帧）不在其中
+ */
+public class FrameBudgetTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+    private static final int WARMUP_FRAMES = 3;
+    private static final int FRAMES = 60;
+    private static final long FRAME_NS = 16666667L;
+
+    private static FrameBudgets sBudgets;
+    private static File sPackFile;
+    private static AssetPack sPack;
+
+    private RecordingGLApi mGL;
+    private RenderContext mContext;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        sBudgets = FrameBudgets.load();
+        // 与src/main/packs/geometry.txt相同
+        sPackFile = File.createTempFile("geometry", ".pack");
+        AssetPackWriter writer = new AssetPackWriter();
+        writer.addVertices("triangle", new VertexLayout().add("vPosition", 3, AssetPackFormat.GL_FLOAT),
+                new float[]{-0.5f, 1f, 0f, -1f, -1f, 0f, 0.5f, 1f, 0f});
+        writer.addIndices("triangle", new int[]{0, 1, 2});
+        writer.write(sPackFile);
+        sPack = AssetPack.open(sPackFile);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        sPackFile.delete();
+    }
+
+    private void newContext() {
+        mGL = new RecordingGLApi();
+        ShaderLibrary library = new ShaderLibrary(mGL, new ShaderSourceProvider() {
+            @Override
+            public String load(String name) {
+                return "void main() {}\n";
+            }
+        });
+        mContext = new RenderContext(library, new GLResourceRegistry(mGL, new GpuMemoryAccountant(64 * 1024 * 1024)));
+    }
+
+    @Test
+    public void trigger() {
+        newContext();
+        check("trigger", new DefaultTriggerRender(mContext.getShaderLibrary()));
+    }
+
+    @Test
+    public void multicolorTrigger() {
+        newContext();
+        check("multicolor_trigger", new MulticolorTriggerRender(mContext.getShaderLibrary()));
+    }
+
+    @Test
+    public void adjustTrigger() {
+        newContext();
+        check("adjust_trigger", new AjustTriggerRender(mContext.getShaderLibrary(), mContext.getAnimator()));
+    }
+
+    @Test
+    public void elementTrigger() {
+        newContext();
+        check("element_trigger", new ElementTriggerRender(mContext.getShaderLibrary()));
+    }
+
+    @Test
+    public void elementSquare() {
+        newContext();
+        check("element_square", new ElementSquareRender(mContext.getShaderLibrary()));
+    }
+
+    @Test
+    public void vboTrigger() {
+        newContext();
+        check("vbo_trigger", new VBOTriggerRender(mContext.getShaderLibrary(), mContext.getResourceRegistry(), sPack));
+    }
+
+    @Test
+    public void iboTrigger() {
+        newContext();
+        check("ibo_trigger", new IBOTriggerRender(mContext.getShaderLibrary(), mContext.getResourceRegistry(), sPack));
+    }
+
+    @Test
+    public void image() {
+        newContext();
+        check("image", new ImageRender(mContext.getShaderLibrary(), mContext.getResourceRegistry(), new RgbaSource(256, 256)));
+    }
+
+    @Test
+    public void polygon() {
+        newContext();
+        float[] xy = {
+                0f, 0.8f, -0.76f, 0.25f, -0.47f, -0.65f, 0.47f, -0.65f, 0.76f, 0.25f,
+                -0.2f, -0.2f, 0.2f, -0.2f, 0.2f, 0.2f, -0.2f, 0.2f,
+        };
+        check("polygon", new PolygonRender(mContext.getShaderLibrary(), mContext.getResourceRegistry(),
+                new TessellationCache(new Tessellator(), 16), xy, new int[]{5}, new float[]{0.2f, 0.6f, 1f, 1f}));
+    }
+
+    @Test
+    public void lod() throws Exception {
+        newContext();
+        // 八面体，简化出两级
+        String obj = "v 1 0 0\nv -1 0 0\nv 0 1 0\nv 0 -1 0\nv 0 0 1\nv 0 0 -1\n"
+                + "f 1 3 5\nf 3 2 5\nf 2 4 5\nf 4 1 5\nf 3 1 6\nf 2 3 6\nf 4 2 6\nf 1 4 6\n";
+        MeshLod lod = new MeshSimplifier(null).buildLod(
+                new ObjImporter(null, 1).read(ByteBuffer.wrap(obj.getBytes("US-ASCII"))), new float[]{0.5f});
+        LodMeshRender renderer = new LodMeshRender(mContext.getShaderLibrary(), mContext.getResourceRegistry(),
+                mContext.getAnimator(), lod, new LodSelector(new float[]{240f, 120f, 60f}, 0.15f));
+        check("lod", renderer);
+        // 循环的补间在切走时取消，不再让共用的Animator请求新帧
+        assertEquals(8, mContext.getAnimator().getActiveCount());
+        renderer.onDeactivate();
+        assertEquals(0, mContext.getAnimator().getActiveCount());
+    }
+
+    @Test
+    public void stroke() {
+        newContext();
+        check("stroke", new StrokeRender(mContext.getShaderLibrary(), mContext.getResourceRegistry(), 8));
+    }
+
+    @Test
+    public void particle() {
+        newContext();
+        // 在测试线程上更新，帧时间来自mContext，每次运行模拟出相同的粒子
+        check("particle", new ParticleRender(mContext.getShaderLibrary(), mContext.getResourceRegistry(), mContext,
+                2000, null, 1));
+    }
+
+    @Test
+    public void overdraw() {
+        newContext();
+        check("overdraw", new OverdrawRender(mContext.getShaderLibrary()));
+    }
+
+    @Test
+    public void reportsRegressionAsDiff() {
+        newContext();
+        final GLApi gl = mGL;
+        // 每帧都查询attribute位置并整张上传纹理
+        GLSurfaceView.Renderer regressed = new GLSurfaceView.Renderer() {
+            private final ByteBuffer mPixels = ByteBuffer.allocateDirect(64 * 64 * 4);
+
+            @Override
+            public void onSurfaceCreated(GL10 unused, EGLConfig config) {
+            }
+
+            @Override
+            public void onSurfaceChanged(GL10 unused, int width, int height) {
+            }
+
+            @Override
+            public void onDrawFrame(GL10 unused) {
+                gl.glGetAttribLocation(1, "vPosition");
+                gl.glGetAttribLocation(1, "vColor");
+                gl.glTexImage2D(GLES20.GL_TEXTURE_2D, 0, GLES20.GL_RGBA, 64, 64, 0, GLES20.GL_RGBA,
+                        GLES20.GL_UNSIGNED_BYTE, mPixels);
+                gl.glDrawArrays(GLES20.GL_TRIANGLES, 0, 3);
+            }
+        };
+        long[] actual = run(regressed);
+        assertEquals(2, actual[4]);
+        assertEquals(64 * 64 * 4, actual[5]);
+        String diff = sBudgets.check("trigger", actual);
+        assertNotNull(diff);
+        assertTrue(diff, diff.contains("- trigger.queries=1\n+ trigger.queries=2  (+1)"));
+        assertTrue(diff, diff.contains("- trigger.upload=0\n+ trigger.upload=16384  (+16384)"));
+        assertNull(sBudgets.check("trigger", new long[]{0, 0, 0, 0, 0, 0, -1}));
+    }
+
+    private void check(String scene, GLSurfaceView.Renderer renderer) {
+        long[] actual = run(renderer);
+        String diff = sBudgets.check(scene, actual);
+        if (diff != null) {
+            fail(diff);
+        }
+    }
+
+    // 与SceneMultiplexer相同的顺序，返回各项指标的每帧最大值
+    private long[] run(GLSurfaceView.Renderer renderer) {
+        mContext.onSurfaceCreated();
+        renderer.onSurfaceCreated(null, null);
+        renderer.onSurfaceChanged(null, WIDTH, HEIGHT);
+        if (renderer instanceof SceneLifecycle) {
+            ((SceneLifecycle) renderer).onActivate();
+        }
+        long now = 0;
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            mContext.beginFrame(now += FRAME_NS);
+            renderer.onDrawFrame(null);
+        }
+        long[] max = new long[FrameBudgets.METRICS.length];
+        for (int frame = 0; frame < FRAMES; frame++) {
+            mContext.beginFrame(now += FRAME_NS);
+            mGL.reset();
+            long before = AllocationMeter.allocatedBytes();
+            renderer.onDrawFrame(null);
+            long allocated = AllocationMeter.since(before);
+            long[] stats = {mGL.getCalls(), mGL.getDraws(), mGL.getStateChanges(), mGL.getUniforms(),
+                    mGL.getQueries(), mGL.getUploadBytes(), allocated};
+            for (int i = 0; i < max.length; i++) {
+                max[i] = frame == 0 ? stats[i] : Math.max(max[i], stats[i]);
+            }
+        }
+        return max;
+    }
+
+    // 不依赖Bitmap的RGBA纹理
+    private static final class RgbaSource implements GLTexture.Source {
+        private final int mWidth;
+        private final int mHeight;
+        private final ByteBuffer mPixels;
+
+        RgbaSource(int width, int height) {
+            this.mWidth = width;
+            this.mHeight = height;
+            this.mPixels = ByteBuffer.allocateDirect(width * height * 4);
+        }
+
+        @Override
+        public int getWidth() {
+            return mWidth;
+        }
+
+        @Override
+        public int getHeight() {
+            return mHeight;
+        }
+
+        @Override
+        public long getSizeInBytes() {
+            return mWidth * mHeight * 4L;
+        }
+
+        @Override
+        public void upload(GLApi gl) {
+            gl.glTexImage2D(GLES20.GL_TEXTURE_2D, 0, GLES20.GL_RGBA, mWidth, mHeight, 0, GLES20.GL_RGBA,
+                    GLES20.GL_UNSIGNED_BYTE, mPixels);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.phj.opengl.budget;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.LinkedHashMap;
+
+/**
+ * 提交在仓库中的每帧预算：每行为"场景.指标=上限"，#开头为注释
+ * 实测值超过上限时给出与基线的差异，改动是预期的就把+行写回基线文件
+ */
+public class FrameBudgets {
+
+    public static final String FILE = "src/test/resources/frame_budgets.txt";
+
+    // 与FrameStats的下标一一对应
+    public static final String[] METRICS = {"calls", "draws", "state", "uniforms", "queries", "upload", "alloc"};
+    public static final int ALLOC = 6;
+
+    private final LinkedHashMap<String, Long> mBudgets;
+
+    FrameBudgets(LinkedHashMap<String, Long> budgets) {
+        this.mBudgets = budgets;
+    }
+
+    public static FrameBudgets load() throws IOException {
+        InputStream in = FrameBudgets.class.getClassLoader().getResourceAsStream("frame_budgets.txt");
+        if (in == null) {
+            throw new IOException("frame_budgets.txt not on the test classpath");
+        }
+        LinkedHashMap<String, Long> budgets = new LinkedHashMap<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+        try {
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int eq = line.indexOf('=');
+                if (eq <= 0) {
+                    throw new IOException("frame_budgets.txt:" + number + ": expected key=value");
+                }
+                budgets.put(line.substring(0, eq).trim(), Long.parseLong(line.substring(eq + 1).trim()));
+            }
+        } finally {
+            reader.close();
+        }
+        return new FrameBudgets(budgets);
+    }
+
+    /**
+     * @param actual 按{@link #METRICS}排列的每帧最大值，不支持测量的项为-1
+     * @return 全部在预算内时为null，否则为差异
+     */
+    public String check(String scene, long[] actual) {
+        StringBuilder diff = new StringBuilder();
+        boolean failed = false;
+        for (int i = 0; i < METRICS.length; i++) {
+            String key = scene + "." + METRICS[i];
+            Long budget = mBudgets.get(key);
+            if (actual[i] < 0) {
+                diff.append("  ").append(key).append('=').append(budget).append("  (not measured)\n");
+            } else if (budget == null) {
+                failed = true;
+                diff.append("+ ").append(key).append('=').append(actual[i]).append("  (no budget)\n");
+            } else if (actual[i] > budget) {
+                failed = true;
+                diff.append("- ").append(key).append('=').append(budget).append('\n');
+                diff.append("+ ").append(key).append('=').append(actual[i])
+                        .append("  (+").append(actual[i] - budget).append(")\n");
+            } else {
+                diff.append("  ").append(key).append('=').append(budget);
+                if (actual[i] < budget) {
+                    diff.append("  (actual ").append(actual[i]).append(", can be tightened)");
+                }
+                diff.append('\n');
+            }
+        }
+        if (!failed) {
+            return null;
+        }
+        return "frame budget exceeded for " + scene + ", update " + FILE + " if the change is intended:\n" + diff;
+    }
+}
@@ -0,0 +1,79 @@
+package com.phj.opengl.concurrent;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.*;
+
+/**
+ * 区间覆盖每个下标恰好一次，第一个区间在调用线程执行，任务的受检异常原样抛出
+ */
+public class ParallelRangeTest {
+
+    @Test
+    public void coversEveryIndexOnce() {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (int count = 0; count < 40; count++) {
+                final AtomicIntegerArray hits = new AtomicIntegerArray(Math.max(1, count));
+                ParallelRange.run(executor, count, 4, new ParallelRange.Task<RuntimeException>() {
+                    @Override
+                    public void run(int from, int to) {
+                        for (int i = from; i < to; i++) {
+                            hits.incrementAndGet(i);
+                        }
+                    }
+                });
+                for (int i = 0; i < count; i++) {
+                    assertEquals("count=" + count + " index=" + i, 1, hits.get(i));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void firstRangeRunsOnCaller() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Thread caller = Thread.currentThread();
+            final boolean[] firstOnCaller = new boolean[1];
+            ParallelRange.run(executor, 100, 4, new ParallelRange.Task<RuntimeException>() {
+                @Override
+                public void run(int from, int to) {
+                    if (from == 0) {
+                        firstOnCaller[0] = Thread.currentThread() == caller;
+                    }
+                }
+            });
+            assertTrue(firstOnCaller[0]);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void rethrowsCheckedExceptionFromWorker() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            ParallelRange.run(executor, 100, 4, new ParallelRange.Task<IOException>() {
+                @Override
+                public void run(int from, int to) throws IOException {
+                    if (from > 0) {
+                        throw new IOException("range " + from);
+                    }
+                }
+            });
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith("range "));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.phj.opengl.filter;
+
+import com.phj.opengl.fbo.RenderTargetPool;
+import com.phj.opengl.testing.FakeGLApi;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 连续的点操作滤镜融合进一个pass，邻域滤镜开始新的pass；融合后的program按签名缓存，结构相同的链不再编译
+ */
+public class FilterChainTest {
+
+    // 编译总是成功，记录每个片元着色器的源码
+    private static final class FakeGL extends FakeGLApi {
+        final List<String> fragmentShaders = new ArrayList<>();
+
+        @Override
+        protected Object onCall(String name, Object[] args, Class<?> type) {
+            if (name.equals("glShaderSource") && ((String) args[1]).contains("gl_FragColor")) {
+                fragmentShaders.add((String) args[1]);
+            }
+            return super.onCall(name, args, type);
+        }
+    }
+
+    private final FakeGL mFake = new FakeGL();
+    private FilterProgramCache mCache;
+    private RenderTargetPool mPool;
+
+    @Before
+    public void setUp() {
+        mCache = new FilterProgramCache(mFake.api());
+        mPool = new RenderTargetPool(mFake.api(), 4, 0);
+    }
+
+    @Test
+    public void pointwiseFiltersFuseIntoOnePass() {
+        BrightnessFilter brightness = new BrightnessFilter(0.1f);
+        ContrastFilter contrast = new ContrastFilter(1.2f);
+        SaturationFilter saturation = new SaturationFilter(0.8f);
+        FilterChain chain = newChain(brightness, contrast, saturation);
+
+        assertEquals(1, chain.getPassCount());
+        chain.apply(1, 64, 64);
+        assertEquals(1, mFake.count("glDrawArrays"));
+        assertEquals(Collections.singletonList(FilterProgram.buildFragmentShader(null,
+                Arrays.<ImageFilter>asList(brightness, contrast, saturation))), mFake.fragmentShaders);
+        assertEquals(1, mCache.size());
+    }
+
+    @Test
+    public void neighbourFiltersSplitPasses() {
+        BrightnessFilter brightness = new BrightnessFilter(0.1f);
+        ContrastFilter contrast = new ContrastFilter(1.2f);
+        BlurFilter blur = new BlurFilter(2f);
+        VignetteFilter vignette = new VignetteFilter(0.3f, 0.75f);
+        SharpenFilter sharpen = new SharpenFilter(0.5f);
+        SaturationFilter saturation = new SaturationFilter(0.8f);
+        // [亮度+对比度]、[模糊+暗角]、[锐化+饱和度]
+        FilterChain chain = newChain(brightness, contrast, blur, vignette, sharpen, saturation);
+
+        assertEquals(3, chain.getPassCount());
+        chain.apply(1, 64, 64);
+        assertEquals(3, mFake.count("glDrawArrays"));
+        HashSet<String> expected = new HashSet<>(Arrays.asList(
+                FilterProgram.buildFragmentShader(null, Arrays.<ImageFilter>asList(brightness, contrast)),
+                FilterProgram.buildFragmentShader(blur, Collections.<ImageFilter>singletonList(vignette)),
+                FilterProgram.buildFragmentShader(sharpen, Collections.<ImageFilter>singletonList(saturation))));
+        assertEquals(expected, new HashSet<>(mFake.fragmentShaders));
+        assertEquals(3, mFake.fragmentShaders.size());
+        assertEquals(3, mCache.size());
+        assertEquals(BlurFilter.class.getName() + "|" + VignetteFilter.class.getName(),
+                FilterProgram.signature(blur, Collections.<ImageFilter>singletonList(vignette)));
+    }
+
+    @Test
+    public void consecutiveNeighbourFiltersShareProgram() {
+        // 两个模糊各占一个pass，签名相同，只编译一次
+        FilterChain chain = newChain(new BlurFilter(1f), new BlurFilter(2f));
+
+        assertEquals(2, chain.getPassCount());
+        chain.apply(1, 64, 64);
+        assertEquals(2, mFake.count("glDrawArrays"));
+        assertEquals(1, mFake.count("glCreateProgram"));
+        assertEquals(1, mCache.size());
+    }
+
+    @Test
+    public void sameStructureReusesCachedPrograms() {
+        newChain(new BrightnessFilter(0.1f), new BlurFilter(1f), new VignetteFilter(0.3f, 0.75f)).apply(1, 64, 64);
+        int programs = mFake.count("glCreateProgram");
+        assertEquals(2, programs);
+
+        // 另一条链用新的滤镜实例、不同的参数，签名相同
+        FilterChain other = newChain(new BrightnessFilter(-0.2f), new BlurFilter(3f), new VignetteFilter(0.1f, 0.9f));
+        other.apply(2, 64, 64);
+        assertEquals(programs, mFake.count("glCreateProgram"));
+        assertEquals(2, mCache.size());
+
+        // 参数和输入都没变时直接返回上一次的结果
+        mFake.clearCalls();
+        other.apply(2, 64, 64);
+        assertEquals(0, mFake.count("glDrawArrays"));
+    }
+
+    private FilterChain newChain(ImageFilter... filters) {
+        FilterChain chain = new FilterChain(mFake.api(), mPool, mCache);
+        for (ImageFilter filter : filters) {
+            chain.addFilter(filter);
+        }
+        return chain;
+    }
+}
@@ -0,0 +1,116 @@
+package com.phj.opengl.gl;
+
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import javax.microedition.khronos.egl.EGL10;
+import javax.microedition.khronos.egl.EGLConfig;
+import javax.microedition.khronos.egl.EGLDisplay;
+
+import static org.junit.Assert.*;
+
+/**
+ * 按顺序退回：有模板时用带模板的配置，没有时退回后面的配置，颜色位数按相等匹配
+ */
+public class FallbackEGLConfigChooserTest {
+
+    private static final int[] WITH_STENCIL = {8, 8, 8, 0, 16, 8};
+    private static final int[] WITHOUT_STENCIL = {8, 8, 8, 0, 16, 0};
+
+    // 每个配置是{红, 绿, 蓝, alpha, 深度, 模板}，eglChooseConfig返回每项都不少于要求的配置
+    private static final class FakeEGL implements InvocationHandler {
+        private static final int[] SIZES = {EGL10.EGL_RED_SIZE, EGL10.EGL_GREEN_SIZE, EGL10.EGL_BLUE_SIZE,
+                EGL10.EGL_ALPHA_SIZE, EGL10.EGL_DEPTH_SIZE, EGL10.EGL_STENCIL_SIZE};
+
+        final List<EGLConfig> configs = new ArrayList<>();
+        final HashMap<EGLConfig, int[]> values = new HashMap<>();
+
+        EGLConfig add(int... value) {
+            EGLConfig config = new EGLConfig() {
+            };
+            configs.add(config);
+            values.put(config, value);
+            return config;
+        }
+
+        EGL10 egl() {
+            return (EGL10) Proxy.newProxyInstance(EGL10.class.getClassLoader(), new Class<?>[]{EGL10.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (method.getName().equals("eglChooseConfig")) {
+                int[] attribs = (int[]) args[1];
+                EGLConfig[] out = (EGLConfig[]) args[2];
+                int n = 0;
+                for (EGLConfig config : configs) {
+                    if (matches(values.get(config), attribs)) {
+                        if (out != null && n < (Integer) args[3]) {
+                            out[n] = config;
+                        }
+                        n++;
+                    }
+                }
+                ((int[]) args[4])[0] = out == null ? n : Math.min(n, (Integer) args[3]);
+                return true;
+            }
+            if (method.getName().equals("eglGetConfigAttrib")) {
+                int[] value = values.get(args[1]);
+                for (int i = 0; i < SIZES.length; i++) {
+                    if (SIZES[i] == (Integer) args[2]) {
+                        ((int[]) args[3])[0] = value[i];
+                        return true;
+                    }
+                }
+                return false;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        }
+
+        private static boolean matches(int[] value, int[] attribs) {
+            for (int i = 0; attribs[i] != EGL10.EGL_NONE; i += 2) {
+                for (int j = 0; j < SIZES.length; j++) {
+                    if (SIZES[j] == attribs[i] && value[j] < attribs[i + 1]) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    private final FakeEGL mFake = new FakeEGL();
+    private final EGLDisplay mDisplay = new EGLDisplay() {
+    };
+
+    @Test
+    public void prefersFirstMatchingSpec() {
+        mFake.add(8, 8, 8, 0, 16, 0);
+        EGLConfig stencil = mFake.add(8, 8, 8, 0, 24, 8);
+        EGLConfig chosen = new FallbackEGLConfigChooser(WITH_STENCIL, WITHOUT_STENCIL)
+                .chooseConfig(mFake.egl(), mDisplay);
+        assertSame(stencil, chosen);
+    }
+
+    @Test
+    public void fallsBackWithoutStencil() {
+        // 带alpha的配置颜色位数不相等，不选
+        mFake.add(8, 8, 8, 8, 16, 0);
+        EGLConfig plain = mFake.add(8, 8, 8, 0, 16, 0);
+        EGLConfig chosen = new FallbackEGLConfigChooser(WITH_STENCIL, WITHOUT_STENCIL)
+                .chooseConfig(mFake.egl(), mDisplay);
+        assertSame(plain, chosen);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failsWhenNothingMatches() {
+        mFake.add(5, 6, 5, 0, 0, 0);
+        new FallbackEGLConfigChooser(WITH_STENCIL, WITHOUT_STENCIL).chooseConfig(mFake.egl(), mDisplay);
+    }
+}
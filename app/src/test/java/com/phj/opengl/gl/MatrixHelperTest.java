@@ -0,0 +1,77 @@
+package com.phj.opengl.gl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 用手算的结果验证投影、相机和乘法，与android.opengl.Matrix的约定一致（列主序，result = lhs * rhs）
+ */
+public class MatrixHelperTest {
+
+    private static final float EPSILON = 1e-5f;
+
+    @Test
+    public void frustumMatchesClosedForm() {
+        float[] m = new float[16];
+        MatrixHelper.frustumM(m, 0, -1.5f, 1.5f, -1, 1, 3, 7);
+        float[] expected = new float[16];
+        expected[0] = 3 / 1.5f;
+        expected[5] = 3;
+        expected[10] = -10 / 4f;
+        expected[11] = -1;
+        expected[14] = -2 * 7 * 3 / 4f;
+        assertArrayEquals(expected, m, EPSILON);
+    }
+
+    @Test
+    public void orthoMapsCornersToClipSpace() {
+        float[] m = new float[16];
+        MatrixHelper.orthoM(m, 0, 0, 1080, 0, 1920, -1, 1);
+        float[] corner = transform(m, 1080, 1920, 0);
+        assertArrayEquals(new float[]{1, 1, 0, 1}, corner, EPSILON);
+        assertArrayEquals(new float[]{-1, -1, 0, 1}, transform(m, 0, 0, 0), EPSILON);
+    }
+
+    @Test
+    public void lookAtMovesEyeToOrigin() {
+        float[] view = new float[16];
+        MatrixHelper.setLookAtM(view, 0, 0, 0, 7, 0, 0, 0, 0, 1, 0);
+        // 相机在z = 7看向原点，原点在相机前方7处
+        assertArrayEquals(new float[]{0, 0, -7, 1}, transform(view, 0, 0, 0), EPSILON);
+        assertArrayEquals(new float[]{1, 2, -7, 1}, transform(view, 1, 2, 0), EPSILON);
+    }
+
+    @Test
+    public void multiplyTranslateAndScaleCompose() {
+        float[] translate = new float[16];
+        MatrixHelper.setIdentityM(translate, 0);
+        MatrixHelper.translateM(translate, 0, 1, 2, 3);
+        float[] scale = new float[16];
+        MatrixHelper.setIdentityM(scale, 0);
+        MatrixHelper.scaleM(scale, 0, 2, 3, 4);
+        float[] product = new float[16];
+        MatrixHelper.multiplyMM(product, 0, translate, 0, scale, 0);
+        // 先缩放再平移
+        assertArrayEquals(new float[]{3, 5, 7, 1}, transform(product, 1, 1, 1), EPSILON);
+
+        float[] inPlace = new float[16];
+        MatrixHelper.setIdentityM(inPlace, 0);
+        MatrixHelper.translateM(inPlace, 0, 1, 2, 3);
+        MatrixHelper.scaleM(inPlace, 0, 2, 3, 4);
+        assertArrayEquals(product, inPlace, EPSILON);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void frustumRejectsNonPositiveNear() {
+        MatrixHelper.frustumM(new float[16], 0, -1, 1, -1, 1, 0, 7);
+    }
+
+    private static float[] transform(float[] m, float x, float y, float z) {
+        float[] result = new float[4];
+        for (int row = 0; row < 4; row++) {
+            result[row] = m[row] * x + m[4 + row] * y + m[8 + row] * z + m[12 + row];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,50 @@
+package com.phj.opengl.gl;
+
+import android.opengl.GLES20;
+
+import com.phj.opengl.testing.RecordingGLApi;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 比较直接调用、关闭校验和打开校验时每次GL调用的开销。GL用只计数的RecordingGLApi代替，本身只有几纳秒，
+ * 测到的只是Java层的开销，不含驱动中glGetError的同步。关闭校验时wrap返回原对象，调用路径与直接调用完全相同。
+ * 耗时只打印不断言
+ */
+public class ValidatingGLApiBenchmarkTest {
+
+    private static final int CALLS = 2000000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    public void perCallOverhead() {
+        RecordingGLApi direct = new RecordingGLApi();
+        GLApi release = ValidatingGLApi.wrap(direct, false);
+        GLApi debug = ValidatingGLApi.wrap(direct, true);
+        assertSame(direct, release);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long directNs = run(direct);
+            long releaseNs = run(release);
+            long debugNs = run(debug);
+            System.out.println(String.format("gl call: direct %.2f ns, validation off %.2f ns, validation on %.2f ns",
+                    (double) directNs / CALLS, (double) releaseNs / CALLS, (double) debugNs / CALLS));
+        }
+        // 打开校验时每次调用前后各查询一次glGetError
+        assertEquals(ROUNDS * (2L * CALLS + 3L * CALLS), direct.getCalls());
+    }
+
+    // 渲染循环中最常见的状态和uniform调用
+    private static long run(GLApi gl) {
+        long start = System.nanoTime();
+        for (int i = 0; i < CALLS; i += 4) {
+            gl.glBindBuffer(GLES20.GL_ARRAY_BUFFER, i & 7);
+            gl.glUniform4f(1, i, 0, 0, 1);
+            gl.glEnable(GLES20.GL_BLEND);
+            gl.glDisable(GLES20.GL_BLEND);
+        }
+        return System.nanoTime() - start;
+    }
+}
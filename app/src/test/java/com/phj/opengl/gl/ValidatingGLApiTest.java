@@ -0,0 +1,261 @@
+package com.phj.opengl.gl;
+
+import android.opengl.GLES20;
+
+import com.phj.opengl.BuildConfig;
+import com.phj.opengl.testing.FakeGLApi;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * 验证各项检查能发现误用并指出调用位置，正确的调用不受影响
+ */
+public class ValidatingGLApiTest {
+
+    // 模拟绑定、当前program、链接状态和顶点属性状态，错误按队列返回
+    private static final class FakeGL extends FakeGLApi {
+        final HashSet<Integer> linked = new HashSet<>();
+        final HashMap<Integer, int[]> attribs = new HashMap<>();
+        int program;
+        int arrayBuffer;
+        int elementBuffer;
+        int draws;
+
+        // enabled, size, type, stride, buffer
+        int[] attrib(int index) {
+            int[] state = attribs.get(index);
+            if (state == null) {
+                state = new int[5];
+                attribs.put(index, state);
+            }
+            return state;
+        }
+
+        @Override
+        protected Object onCall(String name, Object[] args, Class<?> type) {
+            switch (name) {
+                case "glUseProgram":
+                    program = (Integer) args[0];
+                    return null;
+                case "glGetProgramiv":
+                    ((int[]) args[2])[(Integer) args[3]] = linked.contains(args[0]) ? 1 : 0;
+                    return null;
+                case "glGetProgramInfoLog":
+                    return "link failed";
+                case "glBindBuffer":
+                    if ((Integer) args[0] == GLES20.GL_ARRAY_BUFFER) {
+                        arrayBuffer = (Integer) args[1];
+                    } else {
+                        elementBuffer = (Integer) args[1];
+                    }
+                    return null;
+                case "glGetIntegerv": {
+                    int pname = (Integer) args[0];
+                    int value = pname == GLES20.GL_CURRENT_PROGRAM ? program
+                            : pname == GLES20.GL_ARRAY_BUFFER_BINDING ? arrayBuffer
+                            : pname == GLES20.GL_ELEMENT_ARRAY_BUFFER_BINDING ? elementBuffer : 0;
+                    ((int[]) args[1])[(Integer) args[2]] = value;
+                    return null;
+                }
+                case "glVertexAttribPointer": {
+                    int[] state = attrib((Integer) args[0]);
+                    state[1] = (Integer) args[1];
+                    state[2] = (Integer) args[2];
+                    state[3] = (Integer) args[4];
+                    state[4] = args[5] instanceof Integer ? arrayBuffer : 0;
+                    return null;
+                }
+                case "glEnableVertexAttribArray":
+                    attrib((Integer) args[0])[0] = 1;
+                    return null;
+                case "glGetVertexAttribiv": {
+                    int[] state = attrib((Integer) args[0]);
+                    int pname = (Integer) args[1];
+                    int value = pname == GLES20.GL_VERTEX_ATTRIB_ARRAY_ENABLED ? state[0]
+                            : pname == GLES20.GL_VERTEX_ATTRIB_ARRAY_SIZE ? state[1]
+                            : pname == GLES20.GL_VERTEX_ATTRIB_ARRAY_TYPE ? state[2]
+                            : pname == GLES20.GL_VERTEX_ATTRIB_ARRAY_STRIDE ? state[3] : state[4];
+                    ((int[]) args[2])[(Integer) args[3]] = value;
+                    return null;
+                }
+                case "glDrawArrays":
+                case "glDrawElements":
+                    draws++;
+                    return null;
+                default:
+                    return super.onCall(name, args, type);
+            }
+        }
+    }
+
+    private final FakeGL mFake = new FakeGL();
+    private final GLApi mGL = new ValidatingGLApi(mFake.api());
+
+    @Test
+    public void wrapsOnlyWhenEnabled() {
+        GLApi base = mFake.api();
+        assertSame(base, ValidatingGLApi.wrap(base, false));
+        assertTrue(ValidatingGLApi.wrap(base, true) instanceof ValidatingGLApi);
+        assertEquals(BuildConfig.GL_VALIDATION, ValidatingGLApi.wrapIfEnabled(base) instanceof ValidatingGLApi);
+    }
+
+    @Test
+    public void reportsGLErrorsWithCallSite() {
+        mFake.addError(GLES20.GL_INVALID_ENUM);
+        String message = expectFailure(new Runnable() {
+            @Override
+            public void run() {
+                mGL.glEnable(0x1234);
+            }
+        });
+        // 调用之前就有的错误，不算在这次调用上
+        assertTrue(message, message.startsWith("glEnable: GL_INVALID_ENUM pending before the call"));
+        assertTrue(message, message.contains(ValidatingGLApiTest.class.getName()));
+
+        mGL.glEnable(GLES20.GL_BLEND);
+        assertFalse(mFake.hasPendingErrors());
+    }
+
+    @Test
+    public void rejectsOverlappingStride() {
+        // 4个float的颜色，stride却只有4字节
+        final FloatBuffer colors = floats(16);
+        String message = expectFailure(new Runnable() {
+            @Override
+            public void run() {
+                mGL.glVertexAttribPointer(1, 4, GLES20.GL_FLOAT, false, 4, colors);
+            }
+        });
+        assertTrue(message, message.contains("stride 4 is smaller than one element of 4 x 4 bytes"));
+        mGL.glVertexAttribPointer(1, 4, GLES20.GL_FLOAT, false, 16, colors);
+        mGL.glVertexAttribPointer(1, 4, GLES20.GL_FLOAT, false, 0, colors);
+    }
+
+    @Test
+    public void requiresLinkedProgram() {
+        mFake.program = 3;
+        expectFailure(new Runnable() {
+            @Override
+            public void run() {
+                mGL.glUseProgram(3);
+            }
+        });
+        expectFailure(new Runnable() {
+            @Override
+            public void run() {
+                mGL.glDrawArrays(GLES20.GL_TRIANGLES, 0, 3);
+            }
+        });
+        mFake.program = 0;
+        String message = expectFailure(new Runnable() {
+            @Override
+            public void run() {
+                mGL.glDrawArrays(GLES20.GL_TRIANGLES, 0, 3);
+            }
+        });
+        assertTrue(message, message.contains("no program in use"));
+        mFake.linked.add(3);
+        mGL.glUseProgram(3);
+        mGL.glDrawArrays(GLES20.GL_TRIANGLES, 0, 3);
+        assertEquals(1, mFake.draws);
+    }
+
+    @Test
+    public void checksVertexRange() {
+        mFake.linked.add(1);
+        mGL.glUseProgram(1);
+        // 3个顶点的位置
+        mGL.glVertexAttribPointer(0, 3, GLES20.GL_FLOAT, false, 12, floats(9));
+        mGL.glEnableVertexAttribArray(0);
+        mGL.glDrawArrays(GLES20.GL_TRIANGLE_STRIP, 0, 3);
+        String message = expectFailure(new Runnable() {
+            @Override
+            public void run() {
+                mGL.glDrawArrays(GLES20.GL_TRIANGLE_STRIP, 0, 4);
+            }
+        });
+        assertTrue(message, message.contains("4 vertices need 48 bytes of attribute 0, client array has 36"));
+
+        // 被直接的GLES20调用改掉的指针不检查
+        mFake.attrib(0)[3] = 16;
+        mGL.glDrawArrays(GLES20.GL_TRIANGLE_STRIP, 0, 4);
+
+        // VBO中的顶点
+        mGL.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 7);
+        mGL.glBufferData(GLES20.GL_ARRAY_BUFFER, 64, null, GLES20.GL_STATIC_DRAW);
+        mGL.glVertexAttribPointer(2, 2, GLES20.GL_FLOAT, false, 16, 8);
+        mGL.glEnableVertexAttribArray(2);
+        mGL.glDrawArrays(GLES20.GL_TRIANGLE_STRIP, 0, 4);
+        message = expectFailure(new Runnable() {
+            @Override
+            public void run() {
+                mGL.glDrawArrays(GLES20.GL_TRIANGLE_STRIP, 1, 4);
+            }
+        });
+        assertTrue(message, message.contains("buffer 7 has 64"));
+        assertEquals(3, mFake.draws);
+    }
+
+    @Test
+    public void checksIndexRangeAndBufferData() {
+        mFake.linked.add(1);
+        mGL.glUseProgram(1);
+        expectFailure(new Runnable() {
+            @Override
+            public void run() {
+                mGL.glDrawElements(GLES20.GL_TRIANGLES, 3, GLES20.GL_UNSIGNED_SHORT, 0);
+            }
+        });
+        mGL.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, 5);
+        // 数据比声明的小
+        final ByteBuffer indices = ByteBuffer.allocateDirect(12);
+        String message = expectFailure(new Runnable() {
+            @Override
+            public void run() {
+                mGL.glBufferData(GLES20.GL_ELEMENT_ARRAY_BUFFER, 16, indices, GLES20.GL_STATIC_DRAW);
+            }
+        });
+        assertTrue(message, message.contains("only 12 bytes remaining"));
+        mGL.glBufferData(GLES20.GL_ELEMENT_ARRAY_BUFFER, 12, indices, GLES20.GL_STATIC_DRAW);
+        mGL.glDrawElements(GLES20.GL_TRIANGLES, 6, GLES20.GL_UNSIGNED_SHORT, 0);
+        message = expectFailure(new Runnable() {
+            @Override
+            public void run() {
+                mGL.glDrawElements(GLES20.GL_TRIANGLES, 6, GLES20.GL_UNSIGNED_SHORT, 2);
+            }
+        });
+        assertTrue(message, message.contains("need 14 bytes, index buffer 5 has 12"));
+        expectFailure(new Runnable() {
+            @Override
+            public void run() {
+                mGL.glBufferSubData(GLES20.GL_ELEMENT_ARRAY_BUFFER, 8, 8, indices);
+            }
+        });
+        // 删除后不再知道大小
+        mGL.glDeleteBuffers(1, new int[]{5}, 0);
+        mGL.glDrawElements(GLES20.GL_TRIANGLES, 6, GLES20.GL_UNSIGNED_SHORT, 2);
+        assertEquals(2, mFake.draws);
+    }
+
+    private static FloatBuffer floats(int count) {
+        return ByteBuffer.allocateDirect(count * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+
+    private static String expectFailure(Runnable call) {
+        try {
+            call.run();
+        } catch (IllegalStateException e) {
+            return e.getMessage();
+        }
+        fail("expected IllegalStateException");
+        return null;
+    }
+}
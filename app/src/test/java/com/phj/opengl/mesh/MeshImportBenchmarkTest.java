@@ -0,0 +1,129 @@
+package com.phj.opengl.mesh;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * 导入约40万个三角形的网格，打印解析速度（MB/s）和每百万三角形的堆内存峰值
+ * 堆峰值由后台线程每毫秒采样一次已用堆内存得到，是近似值；输出的顶点和索引在direct buffer中，不计入堆。
+ * 并行的加速取决于核数，单核机器上与串行持平。耗时只打印不断言，只断言导入结果
+ */
+public class MeshImportBenchmarkTest {
+
+    private static final int GRID = 450;
+    private static final int TRIANGLES = GRID * GRID * 2;
+    private static final int ROUNDS = 3;
+
+    @Test
+    public void importThroughput() throws Exception {
+        byte[] obj = MeshTestData.gridObj(GRID);
+        byte[] ply = MeshTestData.gridPly(GRID, ByteOrder.LITTLE_ENDIAN);
+        final ByteBuffer mappedObj = ByteBuffer.allocateDirect(obj.length);
+        mappedObj.put(obj).flip();
+        final ByteBuffer mappedPly = ByteBuffer.allocateDirect(ply.length);
+        mappedPly.put(ply).flip();
+        final ObjImporter serial = new ObjImporter(null, 1);
+        ExecutorService workers = Executors.newFixedThreadPool(4);
+        try {
+            final ObjImporter parallel = new ObjImporter(workers, 4);
+            final PlyImporter plyParallel = new PlyImporter(workers, 4);
+            run("obj serial", obj.length, new Import() {
+                @Override
+                public Mesh run() throws IOException {
+                    return serial.read(mappedObj);
+                }
+            });
+            run("obj parallel x4", obj.length, new Import() {
+                @Override
+                public Mesh run() throws IOException {
+                    return parallel.read(mappedObj);
+                }
+            });
+            final byte[] objBytes = obj;
+            run("obj stream", obj.length, new Import() {
+                @Override
+                public Mesh run() throws IOException {
+                    return serial.read(new ByteArrayInputStream(objBytes));
+                }
+            });
+            run("ply parallel x4", ply.length, new Import() {
+                @Override
+                public Mesh run() throws IOException {
+                    return plyParallel.read(mappedPly);
+                }
+            });
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    private static void run(String name, int bytes, Import task) throws Exception {
+        // 预热
+        assertEquals(TRIANGLES, task.run().getTriangleCount());
+        long bestNs = Long.MAX_VALUE;
+        long peakBytes = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            HeapSampler sampler = new HeapSampler();
+            long start = System.nanoTime();
+            Mesh mesh = task.run();
+            long ns = System.nanoTime() - start;
+            long peak = sampler.finish();
+            assertEquals(TRIANGLES, mesh.getTriangleCount());
+            assertEquals((GRID + 1) * (GRID + 1), mesh.getVertexCount());
+            bestNs = Math.min(bestNs, ns);
+            peakBytes = Math.max(peakBytes, peak);
+        }
+        System.out.println(String.format("%s: %.1f MB in %.1f ms, %.1f MB/s, peak heap %.1f MB per million triangles",
+                name, bytes / 1e6, bestNs / 1e6, bytes / 1e6 / (bestNs / 1e9),
+                peakBytes / 1e6 / (TRIANGLES / 1e6)));
+    }
+
+    private interface Import {
+        Mesh run() throws IOException;
+    }
+
+    // 采样期间已用堆内存相对开始时的最大增量
+    private static class HeapSampler extends Thread {
+        private final Runtime mRuntime = Runtime.getRuntime();
+        private final long mBaseline;
+        private volatile boolean mRunning = true;
+        private volatile long mPeak;
+
+        HeapSampler() {
+            System.gc();
+            mBaseline = used();
+            setDaemon(true);
+            start();
+        }
+
+        @Override
+        public void run() {
+            while (mRunning) {
+                mPeak = Math.max(mPeak, used() - mBaseline);
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        long finish() throws InterruptedException {
+            mRunning = false;
+            join();
+            return Math.max(mPeak, used() - mBaseline);
+        }
+
+        private long used() {
+            return mRuntime.totalMemory() - mRuntime.freeMemory();
+        }
+    }
+}
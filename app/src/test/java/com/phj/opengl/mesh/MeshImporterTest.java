@@ -0,0 +1,175 @@
+package com.phj.opengl.mesh;
+
+import android.opengl.GLES20;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * OBJ/PLY导入的正确性，并行和流式的结果必须与串行一致
+ */
+public class MeshImporterTest {
+
+    private static ExecutorService sWorkers;
+
+    @BeforeClass
+    public static void setUpClass() {
+        sWorkers = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        sWorkers.shutdown();
+    }
+
+    @Test
+    public void objQuadIsTriangulatedAndDeduplicated() throws IOException {
+        String obj = "# quad\n"
+                + "mtllib quad.mtl\n"
+                + "v 0 0 0\nv 1 0 0\nv 1 1 0\nv 0 1 0\r\n"
+                + "vt 0 0\nvt 1 0\nvt 1 1\nvt 0 1\n"
+                + "vn 0 0 1\n"
+                + "usemtl red\n"
+                + "f 1/1/1 2/2/1 3/3/1 4/4/1\n"
+                // 负数索引与前面的面引用同样的角，去重后不增加顶点
+                + "f -4/-4/-1 -2/-2/-1 -1/-1/-1 # comment\n"
+                + "f 1/1/1 2/2/1 3/3/1";
+        Mesh mesh = new ObjImporter(null, 1).read(ByteBuffer.wrap(obj.getBytes()));
+        assertEquals(4, mesh.getTriangleCount());
+        assertEquals(4, mesh.getVertexCount());
+        assertEquals(GLES20.GL_UNSIGNED_SHORT, mesh.getIndexType());
+        assertEquals(32, mesh.getLayout().getStride());
+        assertEquals(4 * 32, mesh.getVerticesSizeInBytes());
+        assertEquals(12 * 2, mesh.getIndicesSizeInBytes());
+        FloatBuffer vertices = mesh.getVertices().asFloatBuffer();
+        // 第三个顶点(1, 1, 0)，纹理坐标的v翻转为GL的t
+        assertEquals(1f, vertices.get(2 * 8), 0f);
+        assertEquals(1f, vertices.get(2 * 8 + 1), 0f);
+        assertEquals(0f, vertices.get(2 * 8 + 4), 0f);
+        assertEquals(1f, vertices.get(2 * 8 + 7), 0f);
+        assertArrayEquals(new int[]{0, 1, 2, 0, 2, 3, 0, 2, 3, 0, 1, 2}, indices(mesh));
+    }
+
+    @Test
+    public void objPositionsOnlyUseNoTable() throws IOException {
+        String obj = "v -1.5 2.25e-1 +3\nv 1 0 0\nv 0 1 0\nf 1 2 3\n";
+        Mesh mesh = new ObjImporter(null, 1).read(ByteBuffer.wrap(obj.getBytes()));
+        assertEquals(12, mesh.getLayout().getStride());
+        FloatBuffer vertices = mesh.getVertices().asFloatBuffer();
+        assertEquals(-1.5f, vertices.get(0), 0f);
+        assertEquals(0.225f, vertices.get(1), 1e-7f);
+        assertEquals(3f, vertices.get(2), 0f);
+    }
+
+    @Test(expected = IOException.class)
+    public void objIndexOutOfRangeIsRejected() throws IOException {
+        new ObjImporter(null, 1).read(ByteBuffer.wrap("v 0 0 0\nf 1 2 3\n".getBytes()));
+    }
+
+    @Test(expected = IOException.class)
+    public void objBadNumberIsRejected() throws IOException {
+        new ObjImporter(null, 1).read(ByteBuffer.wrap("v 0 x 0\n".getBytes()));
+    }
+
+    @Test
+    public void parallelAndStreamingMatchSerial() throws IOException {
+        byte[] obj = MeshTestData.gridObj(120);
+        Mesh serial = new ObjImporter(null, 1).read(ByteBuffer.wrap(obj));
+        // 段很小，保证切分点落在各种位置
+        Mesh parallel = new ObjImporter(sWorkers, 7).read(ByteBuffer.wrap(obj), 1024);
+        ByteBuffer direct = ByteBuffer.allocateDirect(obj.length);
+        direct.put(obj).flip();
+        Mesh mapped = new ObjImporter(sWorkers, 4).read(direct);
+        Mesh streamed = new ObjImporter(null, 1).read(new TrickleInputStream(obj));
+
+        assertEquals(121 * 121, serial.getVertexCount());
+        assertEquals(120 * 120 * 2, serial.getTriangleCount());
+        for (Mesh mesh : new Mesh[]{parallel, mapped, streamed}) {
+            assertEquals(serial.getVertices(), mesh.getVertices());
+            assertEquals(serial.getIndices(), mesh.getIndices());
+        }
+    }
+
+    @Test
+    public void plyMatchesObj() throws IOException {
+        Mesh obj = new ObjImporter(null, 1).read(ByteBuffer.wrap(MeshTestData.gridObj(8)));
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN}) {
+            Mesh ply = new PlyImporter(null, 1).read(new ByteArrayInputStream(MeshTestData.gridPly(8, order)));
+            assertEquals(obj.getVertexCount(), ply.getVertexCount());
+            assertEquals(obj.getIndexCount(), ply.getIndexCount());
+            // OBJ的顶点按第一次出现的顺序编号，逐个三角形角比较；PLY没有法线，只比较位置和纹理坐标
+            int[] a = indices(obj);
+            int[] b = indices(ply);
+            FloatBuffer objVertices = obj.getVertices().asFloatBuffer();
+            FloatBuffer plyVertices = ply.getVertices().asFloatBuffer();
+            for (int c = 0; c < a.length; c++) {
+                for (int i = 0; i < 5; i++) {
+                    assertEquals(objVertices.get(a[c] * 8 + i), plyVertices.get(b[c] * 5 + i), 1e-6f);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void parallelPlyMatchesSerial() throws IOException {
+        byte[] ply = MeshTestData.gridPly(300, ByteOrder.LITTLE_ENDIAN);
+        Mesh serial = new PlyImporter(null, 1).read(ByteBuffer.wrap(ply));
+        Mesh parallel = new PlyImporter(sWorkers, 4).read(ByteBuffer.wrap(ply));
+        assertEquals(GLES20.GL_UNSIGNED_INT, serial.getIndexType());
+        assertEquals(serial.getVertices(), parallel.getVertices());
+        assertEquals(serial.getIndices(), parallel.getIndices());
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedPlyIsRejected() throws IOException {
+        byte[] ply = MeshTestData.gridPly(4, ByteOrder.LITTLE_ENDIAN);
+        new PlyImporter(null, 1).read(ByteBuffer.wrap(ply, 0, ply.length - 3).slice());
+    }
+
+    private static int[] indices(Mesh mesh) {
+        int[] out = new int[mesh.getIndexCount()];
+        ByteBuffer buffer = mesh.getIndices();
+        for (int i = 0; i < out.length; i++) {
+            out[i] = mesh.getIndexType() == GLES20.GL_UNSIGNED_SHORT ? buffer.getShort() & 0xFFFF : buffer.getInt();
+        }
+        return out;
+    }
+
+    // 每次只返回少量字节，覆盖行被块边界切断的情况
+    private static class TrickleInputStream extends InputStream {
+        private final byte[] mData;
+        private int mPos;
+
+        TrickleInputStream(byte[] data) {
+            this.mData = data;
+        }
+
+        @Override
+        public int read() {
+            return mPos < mData.length ? mData[mPos++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (mPos >= mData.length) {
+                return -1;
+            }
+            int n = Math.min(Math.min(len, 997), mData.length - mPos);
+            System.arraycopy(mData, mPos, b, off, n);
+            mPos += n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.phj.opengl.mesh;
+
+import android.opengl.GLES20;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * 网格简化保持边界、接缝和朝向，并行生成的LOD链与串行一致；LOD按投影尺寸选择并带滞回
+ */
+public class MeshSimplifierTest {
+
+    private static ExecutorService sWorkers;
+
+    @BeforeClass
+    public static void setUpClass() {
+        sWorkers = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        sWorkers.shutdown();
+    }
+
+    @Test
+    public void gridKeepsBorderAndOrientation() throws IOException {
+        // 平面上所有合并代价为0，只靠合法性检查避免翻转和退化
+        Mesh grid = new ObjImporter(null, 1).read(ByteBuffer.wrap(MeshTestData.gridObj(32, 0)));
+        assertEquals(2048, grid.getTriangleCount());
+        Mesh simplified = new MeshSimplifier(null).simplify(grid, 0.25f);
+
+        assertTrue(simplified.getTriangleCount() <= 512);
+        assertTrue(simplified.getTriangleCount() > 0);
+        assertEquals(4 * 32, countVertices(simplified, true, false));
+        // 没有折叠和翻转时，投影到xy平面的有向面积之和仍为整个方格
+        float[] xy = positions(simplified);
+        int[] indices = indices(simplified);
+        double area = 0;
+        for (int i = 0; i < indices.length; i += 3) {
+            double a = signedArea(xy, indices[i], indices[i + 1], indices[i + 2]);
+            assertTrue(a > 0);
+            area += a;
+        }
+        assertEquals(1.0, area, 1e-4);
+    }
+
+    @Test
+    public void seamVerticesAreNotMoved() throws IOException {
+        Mesh seam = new ObjImporter(null, 1).read(ByteBuffer.wrap(MeshTestData.seamGridObj(32)));
+        assertEquals(33 * 33 + 33, seam.getVertexCount());
+        Mesh simplified = new MeshSimplifier(null).simplify(seam, 0.25f);
+        assertTrue(simplified.getTriangleCount() < seam.getTriangleCount() / 2);
+        // 接缝两侧的顶点都还在
+        assertEquals(2 * 33, countVertices(simplified, false, true));
+    }
+
+    @Test
+    public void parallelLodsMatchSerial() throws IOException {
+        Mesh[] meshes = new Mesh[4];
+        for (int i = 0; i < meshes.length; i++) {
+            meshes[i] = new ObjImporter(null, 1).read(ByteBuffer.wrap(MeshTestData.gridObj(16 + 8 * i)));
+        }
+        float[] ratios = {0.5f, 0.25f, 0.1f};
+        MeshLod[] parallel = new MeshSimplifier(sWorkers).buildLods(meshes, ratios);
+        for (int i = 0; i < meshes.length; i++) {
+            MeshLod serial = new MeshSimplifier(null).buildLod(meshes[i], ratios);
+            assertEquals(4, parallel[i].getLevelCount());
+            assertSame(meshes[i], parallel[i].getLevel(0));
+            for (int level = 1; level < serial.getLevelCount(); level++) {
+                assertEquals(serial.getLevel(level).getVertices(), parallel[i].getLevel(level).getVertices());
+                assertEquals(serial.getLevel(level).getIndices(), parallel[i].getLevel(level).getIndices());
+                assertTrue(parallel[i].getLevel(level).getTriangleCount()
+                        < parallel[i].getLevel(level - 1).getTriangleCount());
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void increasingRatiosAreRejected() throws IOException {
+        Mesh grid = new ObjImporter(null, 1).read(ByteBuffer.wrap(MeshTestData.gridObj(4)));
+        new MeshSimplifier(null).buildLod(grid, new float[]{0.25f, 0.5f});
+    }
+
+    @Test
+    public void projectedDiameterMatchesFrustum() {
+        // 与AjustTriggerRender相同：frustumM(-ratio, ratio, -1, 1, 3, 7)，相机在z = 7看向原点
+        float[] projection = frustum(1.5f, 1, 3, 7);
+        float[] view = translation(0, 0, -7);
+        // f = 2 * near / (top - bottom) = 3
+        float expected = 3f / (float) Math.sqrt(49 - 1) * 1000;
+        assertEquals(expected, LodSelector.projectedDiameter(view, projection, 1000, 0, 0, 0, 1), 1e-3f);
+        // 越远越小，在相机后面为0，相机在球内为无穷
+        assertTrue(LodSelector.projectedDiameter(view, projection, 1000, 0, 0, -5, 1) < expected);
+        assertEquals(0f, LodSelector.projectedDiameter(view, projection, 1000, 0, 0, 20, 1), 0f);
+        assertEquals(Float.POSITIVE_INFINITY, LodSelector.projectedDiameter(view, projection, 1000, 0, 0, 6.5f, 1), 0f);
+    }
+
+    @Test
+    public void selectionHasHysteresis() {
+        LodSelector selector = new LodSelector(new float[]{200, 100}, 0.2f);
+        assertEquals(3, selector.getLevelCount());
+        assertEquals(0, selector.select(0, 190));
+        assertEquals(1, selector.select(0, 150));
+        assertEquals(1, selector.select(1, 210));
+        assertEquals(0, selector.select(1, 250));
+        assertEquals(2, selector.select(0, 50));
+        assertEquals(0, selector.select(2, 1000));
+        // 在阈值附近来回抖动不切换
+        int level = selector.select(0, 150);
+        for (int i = 0; i < 10; i++) {
+            level = selector.select(level, i % 2 == 0 ? 190 : 210);
+            assertEquals(1, level);
+        }
+    }
+
+    private static float[] frustum(float ratio, float top, float near, float far) {
+        float[] m = new float[16];
+        m[0] = near / ratio;
+        m[5] = near / top;
+        m[10] = -(far + near) / (far - near);
+        m[11] = -1;
+        m[14] = -2 * far * near / (far - near);
+        return m;
+    }
+
+    private static float[] translation(float x, float y, float z) {
+        float[] m = new float[16];
+        m[0] = m[5] = m[10] = m[15] = 1;
+        m[12] = x;
+        m[13] = y;
+        m[14] = z;
+        return m;
+    }
+
+    // border：在方格边上的顶点；seam：x = 0.5的顶点
+    private static int countVertices(Mesh mesh, boolean border, boolean seam) {
+        float[] xy = positions(mesh);
+        int count = 0;
+        for (int v = 0; v < xy.length / 2; v++) {
+            float x = xy[v * 2];
+            float y = xy[v * 2 + 1];
+            if (border && (x == 0 || x == 1 || y == 0 || y == 1) || seam && x == 0.5f) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static float[] positions(Mesh mesh) {
+        int stride = mesh.getLayout().getStride() / 4;
+        FloatBuffer vertices = mesh.getVertices().asFloatBuffer();
+        float[] xy = new float[mesh.getVertexCount() * 2];
+        for (int v = 0; v < mesh.getVertexCount(); v++) {
+            xy[v * 2] = vertices.get(v * stride);
+            xy[v * 2 + 1] = vertices.get(v * stride + 1);
+        }
+        return xy;
+    }
+
+    private static double signedArea(float[] xy, int a, int b, int c) {
+        return 0.5 * ((xy[b * 2] - xy[a * 2]) * (xy[c * 2 + 1] - xy[a * 2 + 1])
+                - (xy[c * 2] - xy[a * 2]) * (xy[b * 2 + 1] - xy[a * 2 + 1]));
+    }
+
+    private static int[] indices(Mesh mesh) {
+        int[] out = new int[mesh.getIndexCount()];
+        ByteBuffer buffer = mesh.getIndices();
+        for (int i = 0; i < out.length; i++) {
+            out[i] = mesh.getIndexType() == GLES20.GL_UNSIGNED_SHORT ? buffer.getShort() & 0xFFFF : buffer.getInt();
+        }
+        return out;
+    }
+}
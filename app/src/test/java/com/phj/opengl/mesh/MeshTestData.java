@@ -0,0 +1,122 @@
+package com.phj.opengl.mesh;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Locale;
+
+/**
+ * 测试用的网格文件生成
+ */
+class MeshTestData {
+
+    /**
+     * (size + 1)^2个顶点的网格，每个格子一个四边形面，带纹理坐标和法线
+     */
+    static byte[] gridObj(int size) {
+        return gridObj(size, 0.01f);
+    }
+
+    /**
+     * @param bump z方向起伏的步长，为0时是平面
+     */
+    static byte[] gridObj(int size, float bump) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# grid ").append(size).append('\n').append("o grid\n");
+        for (int y = 0; y <= size; y++) {
+            for (int x = 0; x <= size; x++) {
+                sb.append(String.format(Locale.US, "v %.6f %.6f %.6f\n",
+                        (float) x / size, (float) y / size, bump * ((x * 31 + y * 17) % 7)));
+            }
+        }
+        for (int y = 0; y <= size; y++) {
+            for (int x = 0; x <= size; x++) {
+                sb.append(String.format(Locale.US, "vt %.6f %.6f\n", (float) x / size, (float) y / size));
+            }
+        }
+        sb.append("vn 0 0 1\n");
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int a = y * (size + 1) + x + 1;
+                int b = a + 1;
+                int c = a + size + 2;
+                int d = a + size + 1;
+                sb.append("f ").append(a).append('/').append(a).append("/1 ")
+                        .append(b).append('/').append(b).append("/1 ")
+                        .append(c).append('/').append(c).append("/1 ")
+                        .append(d).append('/').append(d).append("/1\n");
+            }
+        }
+        return sb.toString().getBytes();
+    }
+
+    /**
+     * 与{@link #gridObj(int)}相同的网格，但中间一列（x = 0.5）是纹理接缝：
+     * 右半边的面对这一列使用另一组纹理坐标（u + 1），导入后这一列的每个位置有两个顶点
+     */
+    static byte[] seamGridObj(int size) {
+        int half = size / 2;
+        StringBuilder sb = new StringBuilder();
+        sb.append("o seam\n");
+        for (int y = 0; y <= size; y++) {
+            for (int x = 0; x <= size; x++) {
+                sb.append(String.format(Locale.US, "v %.6f %.6f %.6f\n",
+                        (float) x / size, (float) y / size, 0.01f * ((x * 31 + y * 17) % 7)));
+            }
+        }
+        for (int y = 0; y <= size; y++) {
+            for (int x = 0; x <= size; x++) {
+                sb.append(String.format(Locale.US, "vt %.6f %.6f\n", (float) x / size, (float) y / size));
+            }
+        }
+        int seamBase = (size + 1) * (size + 1);
+        for (int y = 0; y <= size; y++) {
+            sb.append(String.format(Locale.US, "vt %.6f %.6f\n", 1.5f, (float) y / size));
+        }
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int[] corners = {y * (size + 1) + x, y * (size + 1) + x + 1,
+                        (y + 1) * (size + 1) + x + 1, (y + 1) * (size + 1) + x};
+                sb.append('f');
+                for (int corner : corners) {
+                    int t = corner;
+                    if (x >= half && corner % (size + 1) == half) {
+                        t = seamBase + corner / (size + 1);
+                    }
+                    sb.append(' ').append(corner + 1).append('/').append(t + 1);
+                }
+                sb.append('\n');
+            }
+        }
+        return sb.toString().getBytes();
+    }
+
+    /**
+     * 与{@link #gridObj(int)}相同的网格，二进制PLY，四边形面
+     */
+    static byte[] gridPly(int size, ByteOrder order) {
+        int vertexCount = (size + 1) * (size + 1);
+        int faceCount = size * size;
+        String header = "ply\nformat " + (order == ByteOrder.LITTLE_ENDIAN ? "binary_little_endian" : "binary_big_endian")
+                + " 1.0\ncomment grid\nelement vertex " + vertexCount
+                + "\nproperty float x\nproperty float y\nproperty float z\nproperty uchar red"
+                + "\nproperty float u\nproperty float v"
+                + "\nelement face " + faceCount + "\nproperty list uchar int vertex_indices\nend_header\n";
+        byte[] headerBytes = header.getBytes();
+        ByteBuffer buffer = ByteBuffer.allocate(headerBytes.length + vertexCount * 21 + faceCount * 17).order(order);
+        buffer.put(headerBytes);
+        for (int y = 0; y <= size; y++) {
+            for (int x = 0; x <= size; x++) {
+                buffer.putFloat((float) x / size).putFloat((float) y / size).putFloat(0.01f * ((x * 31 + y * 17) % 7));
+                buffer.put((byte) 200);
+                buffer.putFloat((float) x / size).putFloat((float) y / size);
+            }
+        }
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int a = y * (size + 1) + x;
+                buffer.put((byte) 4).putInt(a).putInt(a + 1).putInt(a + size + 2).putInt(a + size + 1);
+            }
+        }
+        return buffer.array();
+    }
+}
@@ -0,0 +1,101 @@
+package com.phj.opengl.mesh;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 1250到10000个顶点的带洞星形多边形的三角化耗时，每次顶点数翻倍
+ * 打印耗时以及耗时 / (n log n)，后者大致不变说明接近O(n log n)；O(n^2)时顶点数每翻倍耗时约变为4倍。
+ * 断言10000个顶点的耗时不超过1250个顶点的n log n比例的4倍，O(n^2)的实现会超过这个范围
+ */
+public class TessellatorBenchmarkTest {
+
+    private static final int HOLES = 8;
+    private static final int ROUNDS = 5;
+
+    @Test
+    public void scalesNearNLogN() {
+        Tessellator tessellator = new Tessellator();
+        double firstRatio = 0;
+        double lastRatio = 0;
+        for (int n = 1250; n <= 10000; n *= 2) {
+            float[] xy = starWithHoles(n, HOLES);
+            int[] holes = holeStarts(n, HOLES);
+            int vertices = xy.length / 2;
+            // 预热
+            int[] triangles = tessellator.triangulate(xy, holes);
+            // 共线的顶点会被去掉，三角形可能少于n + 2h - 2个，但必须完整覆盖
+            assertTrue(triangles.length <= (vertices + 2 * HOLES - 2) * 3);
+            assertEquals(polygonArea(xy, holes), TessellatorTest.triangleArea(xy, triangles), 1e-6);
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < ROUNDS; i++) {
+                long start = System.nanoTime();
+                tessellator.triangulate(xy, holes);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            double ratio = best / (vertices * Math.log(vertices));
+            if (firstRatio == 0) {
+                firstRatio = ratio;
+            }
+            lastRatio = ratio;
+            System.out.println(String.format("tessellate %d vertices: %.2f ms, %.1f ns/(n log n)",
+                    vertices, best / 1e6, ratio));
+        }
+        assertTrue(lastRatio < firstRatio * 4);
+    }
+
+    /**
+     * 外环为n个顶点的星形（半径在0.6和1之间交替），中间一圈holes个小的正方形洞
+     */
+    static float[] starWithHoles(int n, int holes) {
+        float[] xy = new float[(n + holes * 4) * 2];
+        for (int i = 0; i < n; i++) {
+            double angle = 2 * Math.PI * i / n;
+            double r = (i & 1) == 0 ? 1.0 : 0.6 + 0.1 * Math.sin(i * 0.37);
+            xy[i * 2] = (float) (r * Math.cos(angle));
+            xy[i * 2 + 1] = (float) (r * Math.sin(angle));
+        }
+        for (int h = 0; h < holes; h++) {
+            double angle = 2 * Math.PI * h / holes;
+            float cx = (float) (0.3 * Math.cos(angle));
+            float cy = (float) (0.3 * Math.sin(angle));
+            float s = 0.05f;
+            int o = (n + h * 4) * 2;
+            xy[o] = cx - s;
+            xy[o + 1] = cy - s;
+            xy[o + 2] = cx + s;
+            xy[o + 3] = cy - s;
+            xy[o + 4] = cx + s;
+            xy[o + 5] = cy + s;
+            xy[o + 6] = cx - s;
+            xy[o + 7] = cy + s;
+        }
+        return xy;
+    }
+
+    static int[] holeStarts(int n, int holes) {
+        int[] starts = new int[holes];
+        for (int h = 0; h < holes; h++) {
+            starts[h] = n + h * 4;
+        }
+        return starts;
+    }
+
+    // 外环面积减去洞的面积
+    static double polygonArea(float[] xy, int[] holes) {
+        double area = Math.abs(ringArea(xy, 0, holes.length > 0 ? holes[0] : xy.length / 2));
+        for (int h = 0; h < holes.length; h++) {
+            area -= Math.abs(ringArea(xy, holes[h], h + 1 < holes.length ? holes[h + 1] : xy.length / 2));
+        }
+        return area;
+    }
+
+    private static double ringArea(float[] xy, int start, int end) {
+        double sum = 0;
+        for (int i = start, j = end - 1; i < end; j = i++) {
+            sum += (double) xy[j * 2] * xy[i * 2 + 1] - (double) xy[i * 2] * xy[j * 2 + 1];
+        }
+        return sum / 2;
+    }
+}
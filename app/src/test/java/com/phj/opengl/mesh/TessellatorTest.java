@@ -0,0 +1,108 @@
+package com.phj.opengl.mesh;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 三角化的正确性：三角形数量、覆盖面积、方向无关，以及缓存命中
+ */
+public class TessellatorTest {
+
+    private final Tessellator mTessellator = new Tessellator();
+
+    @Test
+    public void convexSquare() {
+        float[] square = {0, 0, 1, 0, 1, 1, 0, 1};
+        int[] triangles = mTessellator.triangulate(square, null);
+        assertEquals(6, triangles.length);
+        assertEquals(1.0, triangleArea(square, triangles), 1e-9);
+    }
+
+    @Test
+    public void concavePolygonEitherWinding() {
+        // L形
+        float[] l = {0, 0, 2, 0, 2, 1, 1, 1, 1, 2, 0, 2};
+        assertEquals(3.0, triangleArea(l, mTessellator.triangulate(l, null)), 1e-9);
+        assertEquals(3.0, triangleArea(reverse(l), mTessellator.triangulate(reverse(l), null)), 1e-9);
+    }
+
+    @Test
+    public void squareWithHole() {
+        float[] xy = {
+                0, 0, 4, 0, 4, 4, 0, 4,
+                1, 1, 1, 2, 2, 2, 2, 1,
+        };
+        int[] triangles = mTessellator.triangulate(xy, new int[]{4});
+        // n + 2h - 2
+        assertEquals(8 * 3, triangles.length);
+        assertEquals(15.0, triangleArea(xy, triangles), 1e-9);
+    }
+
+    @Test
+    public void largePolygonWithHolesUsesHashedPath() {
+        float[] xy = TessellatorBenchmarkTest.starWithHoles(2000, 3);
+        int[] holes = TessellatorBenchmarkTest.holeStarts(2000, 3);
+        int[] triangles = mTessellator.triangulate(xy, holes);
+        int vertices = xy.length / 2;
+        assertEquals((vertices + 2 * holes.length - 2) * 3, triangles.length);
+        assertEquals(TessellatorBenchmarkTest.polygonArea(xy, holes), triangleArea(xy, triangles), 1e-6);
+    }
+
+    @Test
+    public void degenerateInputDoesNotThrow() {
+        assertEquals(0, mTessellator.triangulate(new float[]{0, 0, 1, 1}, null).length);
+        // 全部共线
+        assertEquals(0.0, triangleArea(new float[]{0, 0, 1, 0, 2, 0, 3, 0},
+                mTessellator.triangulate(new float[]{0, 0, 1, 0, 2, 0, 3, 0}, null)), 0);
+        // 重复点
+        float[] duplicated = {0, 0, 1, 0, 1, 0, 1, 1, 0, 1, 0, 0};
+        assertEquals(1.0, triangleArea(duplicated, mTessellator.triangulate(duplicated, null)), 1e-9);
+    }
+
+    @Test
+    public void cacheKeysOnGeometry() {
+        TessellationCache cache = new TessellationCache(mTessellator, 2);
+        float[] square = {0, 0, 1, 0, 1, 1, 0, 1};
+        Mesh first = cache.get(square, null);
+        assertSame(first, cache.get(square.clone(), null));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, first.getTriangleCount());
+
+        // 修改原数组不影响已缓存的条目
+        square[0] = -1;
+        assertNotSame(first, cache.get(square, null));
+        square[0] = 0;
+        assertSame(first, cache.get(square, null));
+
+        // 容量为2，最久未使用的被淘汰
+        cache.get(new float[]{0, 0, 2, 0, 0, 2}, null);
+        cache.get(new float[]{0, 0, 3, 0, 0, 3}, null);
+        assertEquals(2, cache.size());
+        int misses = cache.getMissCount();
+        cache.get(new float[]{0, 0, 1, 0, 1, 1, 0, 1}, null);
+        assertEquals(misses + 1, cache.getMissCount());
+    }
+
+    static double triangleArea(float[] xy, int[] triangles) {
+        double sum = 0;
+        for (int i = 0; i < triangles.length; i += 3) {
+            int a = triangles[i] * 2;
+            int b = triangles[i + 1] * 2;
+            int c = triangles[i + 2] * 2;
+            sum += Math.abs(((double) xy[b] - xy[a]) * ((double) xy[c + 1] - xy[a + 1])
+                    - ((double) xy[c] - xy[a]) * ((double) xy[b + 1] - xy[a + 1])) / 2;
+        }
+        return sum;
+    }
+
+    private static float[] reverse(float[] xy) {
+        float[] out = new float[xy.length];
+        for (int i = 0; i < xy.length; i += 2) {
+            out[xy.length - 2 - i] = xy[i];
+            out[xy.length - 1 - i] = xy[i + 1];
+        }
+        return out;
+    }
+}
@@ -0,0 +1,102 @@
+package com.phj.opengl.overdraw;
+
+import android.opengl.GLES20;
+
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.testing.FakeGLApi;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 验证两种模式的绘制顺序，以及深度测试、深度写和混合的状态切换
+ */
+public class DrawQueueTest {
+
+    // 把GL状态调用和绘制按顺序记到同一个列表
+    private final List<String> mLog = new ArrayList<>();
+
+    private final GLApi mGL = new FakeGLApi() {
+        @Override
+        protected Object onCall(String name, Object[] args, Class<?> type) {
+            if (name.equals("glDepthMask")) {
+                mLog.add("depthMask " + args[0]);
+            } else if (name.equals("glEnable") || name.equals("glDisable")) {
+                int cap = (Integer) args[0];
+                String target = cap == GLES20.GL_DEPTH_TEST ? "depth" : cap == GLES20.GL_BLEND ? "blend" : "" + cap;
+                mLog.add(name.substring(2).toLowerCase() + " " + target);
+            }
+            return super.onCall(name, args, type);
+        }
+    }.api();
+
+    private DrawQueue.Item item(final String name) {
+        return new DrawQueue.Item() {
+            @Override
+            public void draw() {
+                mLog.add(name);
+            }
+        };
+    }
+
+    private void fill(DrawQueue queue) {
+        queue.add(item("far"), 5, true);
+        queue.add(item("glass"), 2, false);
+        queue.add(item("near"), 1, true);
+        queue.add(item("mid"), 3, true);
+        queue.add(item("smoke"), 4, false);
+    }
+
+    private List<String> draws() {
+        List<String> draws = new ArrayList<>();
+        for (String entry : mLog) {
+            if (!entry.contains(" ")) {
+                draws.add(entry);
+            }
+        }
+        return draws;
+    }
+
+    @Test
+    public void depthSortedDrawsOpaqueFrontToBackThenTransparentBackToFront() {
+        DrawQueue queue = new DrawQueue();
+        fill(queue);
+        assertEquals(5, queue.size());
+        queue.flush(mGL);
+        assertEquals(Arrays.asList("near", "mid", "far", "smoke", "glass"), draws());
+        // 不透明写深度，透明只测试，结束后恢复
+        assertEquals(Arrays.asList(
+                "enable depth", "depthMask true", "disable blend", "near", "mid", "far",
+                "depthMask false", "enable blend", "smoke", "glass",
+                "depthMask true", "disable blend", "disable depth"), mLog);
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void painterDrawsEverythingBackToFrontWithoutDepth() {
+        DrawQueue queue = new DrawQueue();
+        queue.setMode(DrawQueue.MODE_PAINTER);
+        fill(queue);
+        queue.flush(mGL);
+        assertEquals(Arrays.asList("far", "smoke", "mid", "glass", "near"), draws());
+        assertFalse(mLog.contains("enable depth"));
+    }
+
+    @Test
+    public void equalDepthKeepsSubmissionOrderAcrossFrames() {
+        DrawQueue queue = new DrawQueue();
+        for (int frame = 0; frame < 3; frame++) {
+            mLog.clear();
+            queue.add(item("a"), 1, true);
+            queue.add(item("b"), 1, true);
+            queue.add(item("c"), 0.5f, true);
+            queue.flush(mGL);
+            assertEquals(Arrays.asList("c", "a", "b"), draws());
+        }
+    }
+}
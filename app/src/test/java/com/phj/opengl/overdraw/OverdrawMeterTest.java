@@ -0,0 +1,147 @@
+package com.phj.opengl.overdraw;
+
+import android.opengl.GLES20;
+
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.shader.ShaderLibrary;
+import com.phj.opengl.shader.ShaderSourceProvider;
+import com.phj.opengl.testing.FakeGLApi;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * 验证计数图的统计，以及模板计数、按位解析和热力图的pass
+ */
+public class OverdrawMeterTest {
+
+    // 编译总是成功，模板位数可配置，记录模板和绘制调用
+    private static final class FakeGL extends FakeGLApi {
+        final List<String> calls = new ArrayList<>();
+
+        FakeGL() {
+            setStencilBits(8);
+        }
+
+        void setStencilBits(int bits) {
+            setInteger(GLES20.GL_STENCIL_BITS, bits);
+        }
+
+        @Override
+        protected Object onCall(String name, Object[] args, Class<?> type) {
+            switch (name) {
+                case "glStencilFunc":
+                case "glStencilOp":
+                    calls.add(name + " " + args[0] + " " + args[1] + " " + args[2]);
+                    break;
+                case "glBlendFunc":
+                    calls.add(name + " " + args[0] + " " + args[1]);
+                    break;
+                case "glDrawArrays":
+                case "glCopyTexSubImage2D":
+                    calls.add(name);
+                    break;
+                default:
+                    break;
+            }
+            return super.onCall(name, args, type);
+        }
+    }
+
+    private final FakeGL mFake = new FakeGL();
+    private OverdrawMeter mMeter;
+
+    @Before
+    public void setUp() {
+        GLApi gl = mFake.api();
+        ShaderLibrary library = new ShaderLibrary(gl, new ShaderSourceProvider() {
+            @Override
+            public String load(String name) {
+                return "void main() {}\n";
+            }
+        });
+        mMeter = new OverdrawMeter(gl, library, Executors.newSingleThreadExecutor(), 2);
+    }
+
+    @Test
+    public void statsFromCounts() {
+        // 4x2：计数0、1、1、1、2、3、5、1
+        int[] counts = {0, 1, 1, 1, 2, 3, 5, 1};
+        ByteBuffer rgba = ByteBuffer.allocate(counts.length * 4);
+        for (int count : counts) {
+            rgba.put((byte) count).put((byte) 0).put((byte) 0).put((byte) 255);
+        }
+        OverdrawStats stats = OverdrawStats.fromCounts(rgba, 4, 2);
+        assertEquals(8, stats.getPixelCount());
+        assertEquals(14, stats.getFragmentCount());
+        assertEquals(14 / 8.0, stats.getMean(), 1e-9);
+        assertEquals(5, stats.getMax());
+        assertEquals(4, stats.getPixels(1));
+        assertEquals(1, stats.getPixels(0));
+        assertEquals(3 / 8.0, stats.getFractionAtLeast(2), 1e-9);
+        assertEquals(1.0, stats.getFractionAtLeast(0), 1e-9);
+        assertEquals(OverdrawStats.MAX_COUNT + 1, stats.getHistogram().length);
+
+        // 计数饱和在255
+        ByteBuffer saturated = ByteBuffer.allocate(4);
+        saturated.put(0, (byte) 255);
+        assertEquals(255, OverdrawStats.fromCounts(saturated, 1, 1).getMax());
+    }
+
+    @Test
+    public void resolvesStencilBitsOnSampleFramesOnly() {
+        mMeter.onSurfaceCreated();
+        assertTrue(mMeter.isSupported());
+        mMeter.onSurfaceChanged(8, 8);
+
+        mMeter.beginFrame();
+        assertEquals("glStencilOp " + GLES20.GL_KEEP + " " + GLES20.GL_KEEP + " " + GLES20.GL_INCR,
+                mFake.calls.get(mFake.calls.size() - 1));
+        mFake.calls.clear();
+        mMeter.endFrame();
+        // 第一帧采样：8个按位的加法pass + 4个热力图pass
+        assertTrue(mFake.calls.contains("glBlendFunc " + GLES20.GL_ONE + " " + GLES20.GL_ONE));
+        for (int bit = 0; bit < 8; bit++) {
+            int mask = 1 << bit;
+            assertTrue(mFake.calls.contains("glStencilFunc " + GLES20.GL_EQUAL + " " + mask + " " + mask));
+        }
+        assertTrue(mFake.calls.contains("glStencilFunc " + GLES20.GL_LEQUAL + " 4 255"));
+        assertEquals(12, count("glDrawArrays"));
+
+        // 第二帧不采样，只画热力图
+        mFake.calls.clear();
+        mMeter.beginFrame();
+        mMeter.endFrame();
+        assertEquals(4, count("glDrawArrays"));
+        mMeter.release();
+    }
+
+    @Test
+    public void disabledWithoutStencilBuffer() {
+        mFake.setStencilBits(0);
+        mMeter.onSurfaceCreated();
+        assertFalse(mMeter.isSupported());
+        mMeter.onSurfaceChanged(8, 8);
+        mMeter.beginFrame();
+        mMeter.endFrame();
+        assertTrue(mFake.calls.isEmpty());
+        assertNull(mMeter.getLatest());
+    }
+
+    private int count(String call) {
+        int n = 0;
+        for (String c : mFake.calls) {
+            if (c.equals(call)) {
+                n++;
+            }
+        }
+        return n;
+    }
+}
@@ -0,0 +1,110 @@
+package com.phj.opengl.pack;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.*;
+
+/**
+ * 资源包写入与映射读取的往返
+ */
+public class AssetPackTest {
+
+    private static final float[] VERTICES = {
+            -0.5f, 1f, 0f, 0f, 1f,
+            -1f, -1f, 0f, 0f, 0f,
+            0.5f, 1f, 0f, 1f, 1f,
+    };
+
+    private File mFile;
+
+    @Before
+    public void setUp() throws IOException {
+        mFile = File.createTempFile("assets", ".pack");
+    }
+
+    @After
+    public void tearDown() {
+        mFile.delete();
+    }
+
+    @Test
+    public void roundTripKeepsDataAndLayout() throws IOException {
+        byte[] level0 = new byte[4 * 4 * 4];
+        byte[] level1 = new byte[2 * 2 * 4];
+        for (int i = 0; i < level0.length; i++) {
+            level0[i] = (byte) i;
+        }
+        AssetPackWriter writer = new AssetPackWriter();
+        writer.addVertices("quad", new VertexLayout()
+                .add("vPosition", 3, AssetPackFormat.GL_FLOAT)
+                .add("aTextureCoord", 2, AssetPackFormat.GL_FLOAT), VERTICES);
+        writer.addIndices("quad", new int[]{0, 1, 2});
+        writer.addTexture("image", AssetPackFormat.GL_RGBA, AssetPackFormat.GL_RGBA, AssetPackFormat.GL_UNSIGNED_BYTE,
+                new int[]{4, 2}, new int[]{4, 2}, new byte[][]{level0, level1});
+        writer.write(mFile);
+
+        AssetPack pack = AssetPack.open(mFile);
+        PackedVertices vertices = pack.getVertices("quad");
+        assertEquals(3, vertices.getVertexCount());
+        assertEquals(VERTICES.length * 4, vertices.getSizeInBytes());
+        VertexLayout layout = vertices.getLayout();
+        assertEquals(20, layout.getStride());
+        assertEquals(12, layout.getAttribute("aTextureCoord").offset);
+        ByteBuffer data = vertices.getData().order(ByteOrder.LITTLE_ENDIAN);
+        for (float v : VERTICES) {
+            assertEquals(v, data.getFloat(), 0f);
+        }
+        // 映射区切片是direct buffer，可以直接交给GL
+        assertTrue(vertices.getData().isDirect());
+
+        PackedIndices indices = pack.getIndices("quad");
+        assertEquals(3, indices.getCount());
+        assertEquals(AssetPackFormat.GL_UNSIGNED_SHORT, indices.getType());
+        assertEquals(2, indices.getData().order(ByteOrder.LITTLE_ENDIAN).getShort(4));
+
+        PackedTexture texture = pack.getTexture("image");
+        assertEquals(4, texture.getWidth());
+        assertEquals(4, texture.getHeight());
+        assertEquals(level0.length, texture.getSizeInBytes());
+        assertNull(pack.getVertices("missing"));
+    }
+
+    @Test
+    public void dataViewsAreIndependent() throws IOException {
+        AssetPackWriter writer = new AssetPackWriter();
+        writer.addIndices("tri", new int[]{0, 1, 2});
+        writer.write(mFile);
+        PackedIndices indices = AssetPack.open(mFile).getIndices("tri");
+        indices.getData().position(4);
+        assertEquals(0, indices.getData().position());
+        assertEquals(6, indices.getData().remaining());
+    }
+
+    @Test(expected = IOException.class)
+    public void wrongMagicIsRejected() throws IOException {
+        new AssetPackWriter().write(mFile);
+        RandomAccessFile raf = new RandomAccessFile(mFile, "rw");
+        raf.writeInt(0);
+        raf.close();
+        AssetPack.open(mFile);
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedTocIsRejected() throws IOException {
+        AssetPackWriter writer = new AssetPackWriter();
+        writer.addIndices("tri", new int[]{0, 1, 2});
+        writer.write(mFile);
+        RandomAccessFile raf = new RandomAccessFile(mFile, "rw");
+        raf.setLength(raf.length() - 4);
+        raf.close();
+        AssetPack.open(mFile);
+    }
+}
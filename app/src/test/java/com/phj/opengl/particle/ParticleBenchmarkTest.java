@@ -0,0 +1,80 @@
+package com.phj.opengl.particle;
+
+import com.phj.opengl.testing.AllocationMeter;
+
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * 30万粒子的更新耗时随任务数的变化，以及单线程更新不分配内存
+ * 耗时只打印不断言：加速比取决于运行测试的机器的核数，单核机器上多任务只会多出调度开销
+ */
+public class ParticleBenchmarkTest {
+
+    private static final int PARTICLES = 300000;
+    private static final int WARMUP_FRAMES = 20;
+    private static final int FRAMES = 50;
+
+    @Test
+    public void updateScalesWithTasks() {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(2, cpus));
+        try {
+            double single = 0;
+            for (int tasks = 1; tasks <= Math.max(2, cpus); tasks *= 2) {
+                ParticleSystem system = prefilled(tasks == 1 ? null : executor, tasks);
+                for (int i = 0; i < WARMUP_FRAMES; i++) {
+                    system.update(1 / 60f);
+                }
+                long start = System.nanoTime();
+                for (int i = 0; i < FRAMES; i++) {
+                    system.update(1 / 60f);
+                }
+                double ms = (System.nanoTime() - start) / 1e6 / FRAMES;
+                if (tasks == 1) {
+                    single = ms;
+                }
+                System.out.println(String.format("particles=%d tasks=%d cpus=%d: %.2f ms/update, speedup %.2fx",
+                        system.getCount(), tasks, cpus, ms, single / ms));
+                assertEquals(PARTICLES, system.getCount());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void sequentialUpdateDoesNotAllocate() {
+        if (!AllocationMeter.isSupported()) {
+            return;
+        }
+        ParticleSystem system = prefilled(null, 1);
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            system.update(1 / 60f);
+        }
+        long before = AllocationMeter.allocatedBytes();
+        for (int i = 0; i < FRAMES; i++) {
+            system.update(1 / 60f);
+        }
+        long perFrame = AllocationMeter.since(before) / FRAMES;
+        System.out.println("allocated per update: " + perFrame + " bytes");
+        // 只允许常数级的零星分配，与粒子数无关
+        assertTrue(perFrame < 256);
+    }
+
+    // 寿命足够长，测量期间没有粒子死亡，每帧处理的粒子数固定
+    private static ParticleSystem prefilled(ExecutorService executor, int tasks) {
+        ParticleSystem system = new ParticleSystem(PARTICLES, executor, tasks);
+        system.addForce(new GravityForce(0, -9.8f, 0));
+        system.addForce(new DragForce(0.5f));
+        ParticleBuffer p = system.getParticles();
+        for (int i = 0; i < PARTICLES; i++) {
+            p.add(0, 0, 0, (i % 100) / 50f - 1, 2, (i % 7) / 3.5f - 1, 1000, 0xFFFFFFFF);
+        }
+        return system;
+    }
+}
@@ -0,0 +1,117 @@
+package com.phj.opengl.particle;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * 发射、积分、移除和顶点输出，以及并行更新与单线程结果一致
+ */
+public class ParticleSystemTest {
+
+    @Test
+    public void integratesVelocityAndForces() {
+        ParticleSystem system = new ParticleSystem(4, null, 1);
+        system.addForce(new GravityForce(0, -10, 0));
+        ParticleBuffer p = system.getParticles();
+        p.add(0, 0, 0, 1, 0, 0, 10, 0xFFFFFFFF);
+        system.update(0.5f);
+        // 先更新速度再更新位置
+        assertEquals(0.5f, p.x[0], 1e-6f);
+        assertEquals(-2.5f, p.y[0], 1e-6f);
+        assertEquals(-5f, p.vy[0], 1e-6f);
+        assertEquals(9.5f, p.life[0], 1e-6f);
+    }
+
+    @Test
+    public void deadParticlesAreCompactedInPlace() {
+        ParticleSystem system = new ParticleSystem(8, null, 1);
+        ParticleBuffer p = system.getParticles();
+        float[] x = p.x;
+        for (int i = 0; i < 6; i++) {
+            // 偶数下标的粒子寿命更短
+            p.add(i, 0, 0, 0, 0, 0, i % 2 == 0 ? 0.5f : 2f, i);
+        }
+        assertEquals(3, system.update(1f));
+        assertEquals(3, system.getCount());
+        assertSame(x, p.x);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(1, p.color[i] % 2);
+            assertEquals(p.color[i], (int) p.x[i]);
+        }
+    }
+
+    @Test
+    public void emitterStopsAtCapacity() {
+        ParticleSystem system = new ParticleSystem(100, null, 1);
+        PointEmitter emitter = new PointEmitter(1000, 0, 1, 0, 0.5f, 1, 2, 5, 5, 0xFF00FF00, 3);
+        system.addEmitter(emitter);
+        system.update(0.05f);
+        assertEquals(50, system.getCount());
+        system.update(0.5f);
+        assertEquals(100, system.getCount());
+        ParticleBuffer p = system.getParticles();
+        float cosSpread = (float) Math.cos(0.5f);
+        for (int i = 0; i < p.getCount(); i++) {
+            float speed = (float) Math.sqrt(p.vx[i] * p.vx[i] + p.vy[i] * p.vy[i] + p.vz[i] * p.vz[i]);
+            assertTrue(speed >= 1 - 1e-4f && speed <= 2 + 1e-4f);
+            assertTrue(p.vy[i] / speed >= cosSpread - 1e-4f);
+        }
+    }
+
+    @Test
+    public void writesInterleavedVertices() {
+        ParticleSystem system = new ParticleSystem(4, null, 1);
+        system.getParticles().add(1, 2, 3, 0, 0, 0, 1, 0x80102030);
+        ByteBuffer out = ByteBuffer.allocateDirect(4 * ParticleSystem.VERTEX_STRIDE).order(ByteOrder.nativeOrder());
+        assertEquals(1, system.writeVertices(out));
+        assertEquals(0, out.position());
+        assertEquals(2f, out.getFloat(4), 0f);
+        assertEquals(0x10, out.get(12));
+        assertEquals(0x30, out.get(14));
+        assertEquals((byte) 0x80, out.get(15));
+    }
+
+    @Test
+    public void parallelUpdateMatchesSequential() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ParticleSystem sequential = fountain(null);
+            ParticleSystem parallel = fountain(executor);
+            for (int frame = 0; frame < 30; frame++) {
+                sequential.update(1 / 60f);
+                parallel.update(1 / 60f);
+            }
+            assertTrue(parallel.getCount() > ParticleSystem.MIN_PARTICLES_PER_TASK * 2);
+            assertEquals(sequential.getCount(), parallel.getCount());
+            ParticleBuffer a = sequential.getParticles();
+            ParticleBuffer b = parallel.getParticles();
+            for (int i = 0; i < a.getCount(); i++) {
+                assertEquals(a.x[i], b.x[i], 0f);
+                assertEquals(a.vy[i], b.vy[i], 0f);
+                assertEquals(a.life[i], b.life[i], 0f);
+            }
+            int bytes = parallel.getCount() * ParticleSystem.VERTEX_STRIDE;
+            ByteBuffer va = ByteBuffer.allocate(bytes).order(ByteOrder.nativeOrder());
+            ByteBuffer vb = ByteBuffer.allocate(bytes).order(ByteOrder.nativeOrder());
+            sequential.writeVertices(va);
+            parallel.writeVertices(vb);
+            assertEquals(va, vb);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    static ParticleSystem fountain(ExecutorService executor) {
+        ParticleSystem system = new ParticleSystem(200000, executor, 4);
+        system.addEmitter(new PointEmitter(100000, 0, 1, 0, 0.4f, 1, 2, 0.2f, 1.8f, 0xFFFFFFFF, 42));
+        system.addForce(new GravityForce(0, -9.8f, 0));
+        system.addForce(new DragForce(0.5f));
+        return system;
+    }
+}
@@ -0,0 +1,201 @@
+package com.phj.opengl.readback;
+
+import com.phj.opengl.fbo.RenderTargetPool;
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.testing.FakeGLApi;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 用模拟的GL验证回读的时机、丢帧和行顺序转换
+ * 模拟的帧缓冲每个像素都是当前的“画面编号”，拷贝时记到纹理上，回读时按绑定的FBO找到对应纹理
+ */
+public class FrameReadbackTest {
+
+    private static final int WIDTH = 4;
+    private static final int HEIGHT = 2;
+
+    private static final class FakeGL extends FakeGLApi {
+        final HashMap<Integer, Integer> textureContents = new HashMap<>();
+        final HashMap<Integer, Integer> framebufferTextures = new HashMap<>();
+        int screen;
+        int boundTexture;
+        int boundFramebuffer;
+
+        @Override
+        protected Object onCall(String name, Object[] args, Class<?> type) {
+            switch (name) {
+                case "glBindTexture":
+                    boundTexture = (Integer) args[1];
+                    break;
+                case "glBindFramebuffer":
+                    boundFramebuffer = (Integer) args[1];
+                    break;
+                case "glFramebufferTexture2D":
+                    framebufferTextures.put(boundFramebuffer, (Integer) args[3]);
+                    break;
+                case "glCopyTexSubImage2D":
+                    textureContents.put(boundTexture, screen);
+                    break;
+                case "glReadPixels":
+                    int value = textureContents.get(framebufferTextures.get(boundFramebuffer));
+                    ByteBuffer out = (ByteBuffer) args[6];
+                    int pixels = (Integer) args[2] * (Integer) args[3];
+                    for (int i = 0; i < pixels; i++) {
+                        // 行号写进R，画面编号写进G
+                        out.put(i * 4, (byte) (i / WIDTH));
+                        out.put(i * 4 + 1, (byte) value);
+                        out.put(i * 4 + 2, (byte) 0);
+                        out.put(i * 4 + 3, (byte) 255);
+                    }
+                    break;
+                default:
+                    break;
+            }
+            return super.onCall(name, args, type);
+        }
+    }
+
+    // 取第一个像素的画面编号，并检查第一行是图像的最顶一行
+    private static final FrameEncoder<Integer> SCREEN_ID = new FrameEncoder<Integer>() {
+        @Override
+        public Integer encode(ByteBuffer rgba, int width, int height) {
+            int[] argb = new int[width * height];
+            FrameReadback.toArgb(rgba, width, height, argb);
+            assertEquals(height - 1, (argb[0] >> 16) & 0xFF);
+            assertEquals(0, (argb[(height - 1) * width] >> 16) & 0xFF);
+            return (argb[0] >> 8) & 0xFF;
+        }
+    };
+
+    @Test
+    public void readsFrameAfterDepthFrames() throws Exception {
+        FakeGL fake = new FakeGL();
+        GLApi gl = fake.api();
+        ExecutorService workers = Executors.newSingleThreadExecutor();
+        try {
+            FrameReadback readback = new FrameReadback(gl, new RenderTargetPool(gl, 60, 0), 2, 8, workers);
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int frame = 0; frame < 5; frame++) {
+                fake.screen = 10 + frame;
+                results.add(readback.capture(WIDTH, HEIGHT, SCREEN_ID, null));
+                readback.onFrameEnd();
+                // 第n帧capture的在第n + 2帧结束时读取
+                assertEquals(Math.max(0, frame - 1), fake.count("glReadPixels"));
+            }
+            readback.flush();
+            for (int frame = 0; frame < 5; frame++) {
+                assertEquals(Integer.valueOf(10 + frame), results.get(frame).get(1, TimeUnit.SECONDS));
+            }
+            assertEquals(0, readback.getForcedReadCount());
+            assertEquals(0, readback.getDroppedCount());
+            assertEquals(5, readback.getCompletedCount());
+            // depth + 1个离屏目标轮转
+            assertEquals(3, fake.count("glGenFramebuffers"));
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    @Test
+    public void slowWorkersDropCapturesInsteadOfBlocking() throws Exception {
+        FakeGL fake = new FakeGL();
+        GLApi gl = fake.api();
+        final CountDownLatch gate = new CountDownLatch(1);
+        FrameEncoder<Integer> blocked = new FrameEncoder<Integer>() {
+            @Override
+            public Integer encode(ByteBuffer rgba, int width, int height) {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 0;
+            }
+        };
+        ExecutorService workers = Executors.newSingleThreadExecutor();
+        try {
+            FrameReadback readback = new FrameReadback(gl, new RenderTargetPool(gl, 60, 0), 2, 4, workers);
+            int captured = 0;
+            for (int frame = 0; frame < 20; frame++) {
+                if (readback.capture(WIDTH, HEIGHT, blocked, null) != null) {
+                    captured++;
+                }
+                readback.onFrameEnd();
+            }
+            assertEquals(4, captured);
+            assertEquals(16, readback.getDroppedCount());
+            gate.countDown();
+            readback.release();
+            workers.shutdown();
+            assertTrue(workers.awaitTermination(1, TimeUnit.SECONDS));
+            assertEquals(4, readback.getCompletedCount());
+            assertEquals(0, readback.getInFlightCount());
+            assertTrue(readback.getThroughputFps() > 0);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void callbackReceivesFailures() throws Exception {
+        FakeGL fake = new FakeGL();
+        GLApi gl = fake.api();
+        final List<Long> failed = new ArrayList<>();
+        FrameReadback.Callback<Integer> callback = new FrameReadback.Callback<Integer>() {
+            @Override
+            public void onFrameReady(long frame, Integer result) {
+                fail();
+            }
+
+            @Override
+            public void onFrameFailed(long frame, Exception e) {
+                failed.add(frame);
+            }
+        };
+        ExecutorService workers = Executors.newSingleThreadExecutor();
+        try {
+            FrameReadback readback = new FrameReadback(gl, new RenderTargetPool(gl, 60, 0), 2, 8, workers);
+            readback.onFrameEnd();
+            Future<Integer> result = readback.capture(WIDTH, HEIGHT, SCREEN_ID, callback);
+            readback.onContextLost();
+            try {
+                result.get(1, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException expected) {
+                assertTrue(expected.getCause() instanceof IllegalStateException);
+            }
+            assertEquals(1, failed.size());
+            assertEquals(Long.valueOf(1), failed.get(0));
+            assertEquals(0, fake.count("glReadPixels"));
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    @Test
+    public void toArgbFlipsRows() {
+        ByteBuffer rgba = ByteBuffer.allocate(2 * 2 * 4).order(ByteOrder.nativeOrder());
+        // 底行红色，顶行半透明蓝色
+        rgba.put(new byte[]{(byte) 255, 0, 0, (byte) 255, (byte) 255, 0, 0, (byte) 255,
+                0, 0, (byte) 255, (byte) 128, 0, 0, (byte) 255, (byte) 128});
+        int[] argb = new int[4];
+        FrameReadback.toArgb(rgba, 2, 2, argb);
+        assertEquals(0x800000FF, argb[0]);
+        assertEquals(0xFFFF0000, argb[3]);
+    }
+}
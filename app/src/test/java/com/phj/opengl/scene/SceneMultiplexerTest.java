@@ -0,0 +1,233 @@
+package com.phj.opengl.scene;
+
+import android.opengl.GLSurfaceView;
+
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.gl.GLResourceRegistry;
+import com.phj.opengl.shader.ShaderLibrary;
+import com.phj.opengl.shader.ShaderSourceProvider;
+import com.phj.opengl.testing.FakeGLApi;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.microedition.khronos.egl.EGLConfig;
+import javax.microedition.khronos.opengles.GL10;
+
+import static org.junit.Assert.*;
+
+/**
+ * 验证场景切换的生命周期，以及program在场景之间共享、只在上下文重建时重新编译
+ */
+public class SceneMultiplexerTest {
+
+    // 记录收到的回调，创建时取同一个program；切入切出单独记录
+    private static final class RecordingScene implements GLSurfaceView.Renderer, ContinuousScene, SceneLifecycle {
+        final String name;
+        final ShaderLibrary library;
+        final List<String> events;
+        final List<String> switches;
+        final boolean continuous;
+        int program;
+
+        RecordingScene(String name, ShaderLibrary library, List<String> events, List<String> switches) {
+            this.name = name;
+            this.library = library;
+            this.events = events;
+            this.switches = switches;
+            this.continuous = name.equals("c");
+        }
+
+        @Override
+        public void onSurfaceCreated(GL10 gl, EGLConfig config) {
+            program = library.getProgram("test", 0);
+            events.add(name + ":created");
+        }
+
+        @Override
+        public void onSurfaceChanged(GL10 gl, int width, int height) {
+            events.add(name + ":changed " + width + "x" + height);
+        }
+
+        @Override
+        public void onDrawFrame(GL10 gl) {
+            events.add(name + ":draw");
+        }
+
+        @Override
+        public boolean isContinuous() {
+            return continuous;
+        }
+
+        @Override
+        public void onActivate() {
+            switches.add(name + ":activate");
+        }
+
+        @Override
+        public void onDeactivate() {
+            switches.add(name + ":deactivate");
+        }
+    }
+
+    private final FakeGLApi mFake = new FakeGLApi();
+    private final List<String> mEvents = new ArrayList<>();
+    private final List<String> mSwitches = new ArrayList<>();
+    private final int[] mFactoryCalls = new int[1];
+    private RenderContext mContext;
+    private SceneRegistry mRegistry;
+
+    @Before
+    public void setUp() {
+        GLApi gl = mFake.api();
+        ShaderLibrary library = new ShaderLibrary(gl, new ShaderSourceProvider() {
+            @Override
+            public String load(String name) {
+                return "void main() {}\n";
+            }
+        });
+        mContext = new RenderContext(library, new GLResourceRegistry(gl));
+        mRegistry = new SceneRegistry();
+        for (final String name : new String[]{"a", "b", "c"}) {
+            mRegistry.register(name, new SceneRegistry.Factory() {
+                @Override
+                public GLSurfaceView.Renderer create(RenderContext context) {
+                    mFactoryCalls[0]++;
+                    return new RecordingScene(name, context.getShaderLibrary(), mEvents, mSwitches);
+                }
+            });
+        }
+    }
+
+    @Test
+    public void switchingCreatesEachSceneOncePerContext() {
+        SceneMultiplexer multiplexer = new SceneMultiplexer(mContext, mRegistry, "a");
+        multiplexer.onSurfaceCreated(null, null);
+        multiplexer.onSurfaceChanged(null, 100, 50);
+        multiplexer.onDrawFrame(null);
+        multiplexer.select("b");
+        multiplexer.onDrawFrame(null);
+        multiplexer.select("a");
+        multiplexer.onDrawFrame(null);
+        assertEquals(Arrays.asList(
+                "a:created", "a:changed 100x50", "a:draw",
+                "b:created", "b:changed 100x50", "b:draw",
+                "a:changed 100x50", "a:draw"), mEvents);
+        assertEquals(2, mFactoryCalls[0]);
+        assertEquals(3, multiplexer.getSwitchCount());
+        // 两个场景共用同一个program，只编译一次
+        assertEquals(1, mFake.count("glCreateProgram"));
+        assertEquals(((RecordingScene) multiplexer.getScene("a")).program,
+                ((RecordingScene) multiplexer.getScene("b")).program);
+        assertEquals(1, mContext.getSurfaceCount());
+    }
+
+    @Test
+    public void contextLossRecreatesActiveNowAndOthersLazily() {
+        SceneMultiplexer multiplexer = new SceneMultiplexer(mContext, mRegistry, "a");
+        multiplexer.onSurfaceCreated(null, null);
+        multiplexer.onSurfaceChanged(null, 10, 10);
+        multiplexer.onDrawFrame(null);
+        multiplexer.select("b");
+        multiplexer.onDrawFrame(null);
+        mEvents.clear();
+
+        multiplexer.onSurfaceCreated(null, null);
+        multiplexer.onSurfaceChanged(null, 20, 10);
+        multiplexer.onDrawFrame(null);
+        assertEquals(Arrays.asList("b:created", "b:changed 20x10", "b:draw"), mEvents);
+        assertEquals(2, mFake.count("glCreateProgram"));
+        mEvents.clear();
+        multiplexer.select("a");
+        multiplexer.onDrawFrame(null);
+        assertEquals(Arrays.asList("a:created", "a:changed 20x10", "a:draw"), mEvents);
+        assertEquals(2, mFake.count("glCreateProgram"));
+        assertEquals(2, mContext.getSurfaceCount());
+    }
+
+    @Test
+    public void preloadCreatesScenesBeforeFirstSwitch() {
+        SceneMultiplexer multiplexer = new SceneMultiplexer(mContext, mRegistry, "a");
+        multiplexer.preload("c");
+        multiplexer.onSurfaceCreated(null, null);
+        assertTrue(mEvents.contains("c:created"));
+        multiplexer.onSurfaceChanged(null, 10, 10);
+        multiplexer.onDrawFrame(null);
+        mEvents.clear();
+        multiplexer.select("c");
+        multiplexer.onDrawFrame(null);
+        assertEquals(Arrays.asList("c:changed 10x10", "c:draw"), mEvents);
+        // 上下文重建后重新预加载
+        mEvents.clear();
+        multiplexer.onSurfaceCreated(null, null);
+        assertEquals(Arrays.asList("c:created"), mEvents);
+    }
+
+    @Test
+    public void onlyLastSelectionIsApplied() {
+        SceneMultiplexer multiplexer = new SceneMultiplexer(mContext, mRegistry, "a");
+        multiplexer.onSurfaceCreated(null, null);
+        multiplexer.onSurfaceChanged(null, 10, 10);
+        multiplexer.select("b");
+        multiplexer.select("c");
+        multiplexer.onDrawFrame(null);
+        assertEquals("c", multiplexer.getActiveName());
+        assertNull(multiplexer.getScene("a"));
+        assertNull(multiplexer.getScene("b"));
+        try {
+            multiplexer.select("missing");
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertEquals("c", multiplexer.getActiveName());
+        }
+    }
+
+    @Test
+    public void continuousSceneRequestsNextFrameWhileActive() {
+        final int[] requests = new int[1];
+        SceneMultiplexer multiplexer = new SceneMultiplexer(mContext, mRegistry, "a");
+        multiplexer.setFrameRequester(new Runnable() {
+            @Override
+            public void run() {
+                requests[0]++;
+            }
+        });
+        multiplexer.onSurfaceCreated(null, null);
+        multiplexer.onSurfaceChanged(null, 10, 10);
+        multiplexer.onDrawFrame(null);
+        assertEquals(0, requests[0]);
+        // c需要连续绘制，每画完一帧请求下一帧
+        multiplexer.select("c");
+        multiplexer.onDrawFrame(null);
+        multiplexer.onDrawFrame(null);
+        assertEquals(2, requests[0]);
+        multiplexer.select("a");
+        multiplexer.onDrawFrame(null);
+        assertEquals(2, requests[0]);
+    }
+
+    @Test
+    public void switchingDeactivatesPreviousAndActivatesNext() {
+        SceneMultiplexer multiplexer = new SceneMultiplexer(mContext, mRegistry, "a");
+        multiplexer.preload("b");
+        multiplexer.onSurfaceCreated(null, null);
+        multiplexer.onSurfaceChanged(null, 10, 10);
+        // 预加载不算切入
+        assertTrue(mSwitches.isEmpty());
+        multiplexer.onDrawFrame(null);
+        multiplexer.select("b");
+        multiplexer.onDrawFrame(null);
+        multiplexer.onDrawFrame(null);
+        // 上下文重建不改变当前场景
+        multiplexer.onSurfaceCreated(null, null);
+        multiplexer.onDrawFrame(null);
+        multiplexer.select("a");
+        multiplexer.onDrawFrame(null);
+        assertEquals(Arrays.asList("a:activate", "a:deactivate", "b:activate", "b:deactivate", "a:activate"),
+                mSwitches);
+    }
+}
@@ -0,0 +1,109 @@
+package com.phj.opengl.shader;
+
+import android.opengl.GLES20;
+import android.opengl.GLES30;
+
+import com.phj.opengl.testing.RecordingGLApi;
+
+import org.junit.Test;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * 只有ES3上下文启用program二进制，ES2上下文声明了扩展也不调用核心入口；二进制的导出和加载经过GLApi
+ */
+public class GLES30ProgramBinaryBackendTest {
+
+    private static final class FakeDriver extends RecordingGLApi {
+        static final int FORMAT = 0x8740;
+        static final byte[] BINARY = {1, 2, 3, 4, 5};
+
+        final String version;
+        final String extensions;
+        final HashSet<Integer> linked = new HashSet<>();
+        int formatQueries;
+
+        FakeDriver(String version, String extensions) {
+            this.version = version;
+            this.extensions = extensions;
+        }
+
+        @Override
+        public String glGetString(int name) {
+            super.glGetString(name);
+            return name == GLES20.GL_VERSION ? version : name == GLES20.GL_EXTENSIONS ? extensions : "";
+        }
+
+        @Override
+        public void glGetIntegerv(int pname, int[] params, int offset) {
+            super.glGetIntegerv(pname, params, offset);
+            if (pname == GLES30.GL_NUM_PROGRAM_BINARY_FORMATS) {
+                formatQueries++;
+                params[offset] = 1;
+            }
+        }
+
+        // 只认识自己的格式，其他格式链接失败
+        @Override
+        public void glProgramBinary(int program, int binaryFormat, Buffer binary, int length) {
+            super.glProgramBinary(program, binaryFormat, binary, length);
+            if (binaryFormat == FORMAT && length == BINARY.length) {
+                linked.add(program);
+            }
+        }
+
+        @Override
+        public void glGetProgramBinary(int program, int bufSize, int[] length, int lengthOffset,
+                                       int[] binaryFormat, int binaryFormatOffset, Buffer binary) {
+            super.glGetProgramBinary(program, bufSize, length, lengthOffset, binaryFormat, binaryFormatOffset, binary);
+            ((ByteBuffer) binary).put(BINARY).flip();
+            length[lengthOffset] = BINARY.length;
+            binaryFormat[binaryFormatOffset] = FORMAT;
+        }
+
+        @Override
+        public void glGetProgramiv(int program, int pname, int[] params, int offset) {
+            super.glGetProgramiv(program, pname, params, offset);
+            if (pname == GLES20.GL_LINK_STATUS) {
+                params[offset] = linked.contains(program) ? 1 : 0;
+            } else if (pname == GLES30.GL_PROGRAM_BINARY_LENGTH) {
+                params[offset] = BINARY.length;
+            }
+        }
+    }
+
+    @Test
+    public void es3ContextIsSupported() {
+        FakeDriver gl = new FakeDriver("OpenGL ES 3.2 V@415.0", "");
+        assertTrue(new GLES30ProgramBinaryBackend(gl).isSupported());
+        assertEquals(1, gl.formatQueries);
+    }
+
+    @Test
+    public void es2ContextWithExtensionIsNotSupported() {
+        FakeDriver gl = new FakeDriver("OpenGL ES 2.0 build 1.13", "GL_OES_get_program_binary GL_OES_texture_npot");
+        GLES30ProgramBinaryBackend backend = new GLES30ProgramBinaryBackend(gl);
+        assertFalse(backend.isSupported());
+        assertFalse(backend.isSupported());
+        assertEquals(0, gl.formatQueries);
+    }
+
+    @Test
+    public void binaryRoundTripGoesThroughGLApi() {
+        FakeDriver gl = new FakeDriver("OpenGL ES 3.0", "");
+        GLES30ProgramBinaryBackend backend = new GLES30ProgramBinaryBackend(gl);
+        ProgramBinary binary = backend.getBinary(1);
+        assertEquals(FakeDriver.FORMAT, binary.format);
+        assertArrayEquals(FakeDriver.BINARY, binary.data);
+
+        int program = backend.createProgramFromBinary(binary);
+        assertTrue(program != 0);
+        assertTrue(gl.linked.contains(program));
+        // 驱动升级后格式不再被接受
+        assertEquals(0, backend.createProgramFromBinary(new ProgramBinary(FakeDriver.FORMAT + 1, binary.data)));
+    }
+}
@@ -0,0 +1,217 @@
+package com.phj.opengl.shader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * program二进制缓存的存储与失效逻辑，GL侧用FakeBackend代替
+ */
+public class ProgramBinaryCacheTest {
+
+    private static final String VS = "attribute vec4 vPosition;void main(){gl_Position=vPosition;}";
+    private static final String FS = "precision mediump float;void main(){gl_FragColor=vec4(1.0);}";
+
+    // 在调用线程直接执行，保证测试中的读写顺序
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private File mDir;
+
+    @Before
+    public void setUp() throws IOException {
+        mDir = File.createTempFile("program_binaries", "");
+        assertTrue(mDir.delete());
+        assertTrue(mDir.mkdirs());
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = mDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        mDir.delete();
+    }
+
+    @Test
+    public void missCompilesAndNextLaunchLoadsBinary() {
+        FakeBackend backend = new FakeBackend("gpu-1");
+        ProgramBinaryCache cache = newCache(backend);
+        assertTrue(cache.createProgram(VS, FS) != 0);
+        assertEquals(1, backend.sourceCompiles);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, countFiles(".bin"));
+
+        // 模拟下一次启动
+        FakeBackend next = new FakeBackend("gpu-1");
+        ProgramBinaryCache nextCache = newCache(next);
+        assertTrue(nextCache.createProgram(VS, FS) != 0);
+        assertEquals(0, next.sourceCompiles);
+        assertEquals(1, next.binaryLoads);
+        assertEquals(1, nextCache.getHitCount());
+    }
+
+    @Test
+    public void corruptedEntryIsDeletedAndRecompiled() throws IOException {
+        newCache(new FakeBackend("gpu-1")).createProgram(VS, FS);
+        File entry = mDir.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(".bin");
+            }
+        })[0];
+        RandomAccessFile raf = new RandomAccessFile(entry, "rw");
+        raf.seek(raf.length() - 1);
+        int last = raf.read();
+        raf.seek(raf.length() - 1);
+        raf.write(last ^ 0xFF);
+        raf.close();
+
+        FakeBackend backend = new FakeBackend("gpu-1");
+        ProgramBinaryCache cache = newCache(backend);
+        assertTrue(cache.createProgram(VS, FS) != 0);
+        assertEquals(0, backend.binaryLoads);
+        assertEquals(1, backend.sourceCompiles);
+        // 重新编译后写回了一个有效的条目
+        assertEquals(1, countFiles(".bin"));
+        assertNotNull(new ProgramBinaryStore(mDir).read(
+                ProgramBinaryCache.key("gpu-1", VS, FS), "gpu-1"));
+    }
+
+    @Test
+    public void rejectedBinaryFallsBackToSource() {
+        newCache(new FakeBackend("gpu-1")).createProgram(VS, FS);
+
+        FakeBackend backend = new FakeBackend("gpu-1");
+        backend.rejectBinaries = true;
+        ProgramBinaryCache cache = newCache(backend);
+        assertTrue(cache.createProgram(VS, FS) != 0);
+        assertEquals(1, backend.binaryLoads);
+        assertEquals(1, backend.sourceCompiles);
+        assertEquals(1, cache.getRejectCount());
+        assertEquals(1, countFiles(".bin"));
+    }
+
+    @Test
+    public void driverChangeInvalidatesStore() {
+        ProgramBinaryCache cache = newCache(new FakeBackend("gpu-1"));
+        cache.createProgram(VS, FS);
+        cache.createProgram(VS, FS + " ");
+        assertEquals(2, countFiles(".bin"));
+
+        FakeBackend backend = new FakeBackend("gpu-2");
+        ProgramBinaryCache next = newCache(backend);
+        next.createProgram(VS, FS);
+        assertEquals(0, backend.binaryLoads);
+        assertEquals(1, backend.sourceCompiles);
+        // 旧驱动的两个条目被清掉，只剩新编译的一个
+        assertEquals(1, countFiles(".bin"));
+        assertEquals("gpu-2", new ProgramBinaryStore(mDir).readDriverKey());
+    }
+
+    @Test
+    public void unsupportedBackendNeverTouchesDisk() {
+        FakeBackend backend = new FakeBackend("gpu-1");
+        backend.supported = false;
+        ProgramBinaryCache cache = newCache(backend);
+        assertTrue(cache.createProgram(VS, FS) != 0);
+        assertEquals(1, backend.sourceCompiles);
+        assertEquals(0, countFiles(".bin"));
+    }
+
+    @Test
+    public void writeLeavesNoTempFiles() {
+        ProgramBinaryStore store = new ProgramBinaryStore(mDir);
+        byte[] data = {1, 2, 3, 4, 5};
+        assertTrue(store.write("k", "gpu-1", new ProgramBinary(7, data)));
+        assertEquals(0, countFiles(".tmp"));
+        ProgramBinary read = store.read("k", "gpu-1");
+        assertEquals(7, read.format);
+        assertArrayEquals(data, read.data);
+        // 其他驱动读取同一个条目视为无效
+        assertNull(store.read("k", "gpu-2"));
+        assertEquals(0, countFiles(".bin"));
+    }
+
+    private ProgramBinaryCache newCache(FakeBackend backend) {
+        ProgramBinaryCache cache = new ProgramBinaryCache(new ProgramBinaryStore(mDir), backend, DIRECT, 0);
+        cache.preload();
+        return cache;
+    }
+
+    private int countFiles(String suffix) {
+        int count = 0;
+        File[] files = mDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(suffix)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    // 二进制内容为源码本身，格式固定为42
+    private static class FakeBackend implements ProgramBinaryBackend {
+        final String driverKey;
+        boolean supported = true;
+        boolean rejectBinaries;
+        int sourceCompiles;
+        int binaryLoads;
+        int nextProgram = 1;
+        String[] sources = new String[16];
+
+        FakeBackend(String driverKey) {
+            this.driverKey = driverKey;
+        }
+
+        @Override
+        public boolean isSupported() {
+            return supported;
+        }
+
+        @Override
+        public String getDriverKey() {
+            return driverKey;
+        }
+
+        @Override
+        public int createProgramFromSource(String vertexSource, String fragmentSource) {
+            sourceCompiles++;
+            sources[nextProgram] = vertexSource + fragmentSource;
+            return nextProgram++;
+        }
+
+        @Override
+        public int createProgramFromBinary(ProgramBinary binary) {
+            binaryLoads++;
+            if (rejectBinaries || binary.format != 42) {
+                return 0;
+            }
+            return nextProgram++;
+        }
+
+        @Override
+        public ProgramBinary getBinary(int program) {
+            byte[] data = sources[program].getBytes();
+            return new ProgramBinary(42, Arrays.copyOf(data, data.length));
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.phj.opengl.shader;
+
+import com.phj.opengl.testing.FakeGLApi;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 验证uniform只在值变化时上传，以及影子状态按program共享
+ */
+public class UniformStateTest {
+
+    // 名字以missing开头的uniform视为被优化掉，记录每次glUniform*调用
+    private static final class FakeGL extends FakeGLApi {
+        final List<String> uniformCalls = new ArrayList<>();
+        int locationQueries;
+
+        @Override
+        protected Object onCall(String name, Object[] args, Class<?> type) {
+            if (name.equals("glGetUniformLocation")) {
+                locationQueries++;
+                return ((String) args[1]).startsWith("missing") ? -1 : locationQueries;
+            }
+            if (name.startsWith("glUniform")) {
+                uniformCalls.add(name + "@" + args[0]);
+                return null;
+            }
+            return super.onCall(name, args, type);
+        }
+    }
+
+    private final FakeGL mFake = new FakeGL();
+    private ShaderLibrary mLibrary;
+
+    @Before
+    public void setUp() {
+        mLibrary = new ShaderLibrary(mFake.api(), new ShaderSourceProvider() {
+            @Override
+            public String load(String name) {
+                return "void main() {}\n";
+            }
+        });
+    }
+
+    @Test
+    public void unchangedValuesAreNotUploaded() {
+        UniformState uniforms = mLibrary.getUniforms(7);
+        float[] color = {1, 0, 0, 1};
+        float[] matrix = new float[16];
+        matrix[0] = matrix[5] = matrix[10] = matrix[15] = 1;
+
+        uniforms.set4fv("vColor", 1, color, 0);
+        uniforms.setMatrix4fv("vMatrix", 1, matrix, 0);
+        uniforms.set1i("vTexture", 0);
+        assertEquals(3, uniforms.apply());
+        for (int i = 0; i < 10; i++) {
+            uniforms.set4fv("vColor", 1, color, 0);
+            uniforms.setMatrix4fv("vMatrix", 1, matrix, 0);
+            uniforms.set1i("vTexture", 0);
+            assertEquals(0, uniforms.apply());
+        }
+        assertEquals(3, mFake.uniformCalls.size());
+        assertEquals(30, uniforms.getSkippedCount());
+        // location只查询一次
+        assertEquals(3, mFake.locationQueries);
+
+        color[1] = 0.5f;
+        uniforms.set4fv("vColor", 1, color, 0);
+        uniforms.setMatrix4fv("vMatrix", 1, matrix, 0);
+        assertEquals(1, uniforms.apply());
+        assertEquals("glUniform4fv@" + uniforms.getLocation("vColor"), mFake.uniformCalls.get(3));
+        assertEquals(4, uniforms.getUploadCount());
+    }
+
+    @Test
+    public void lastValueWinsWithinOneApply() {
+        UniformState uniforms = mLibrary.getUniforms(1);
+        uniforms.set1f("vPointSize", 2f);
+        uniforms.set1f("vPointSize", 3f);
+        uniforms.set1f("vPointSize", 2f);
+        assertEquals(1, uniforms.apply());
+        uniforms.set1f("vPointSize", 2f);
+        assertEquals(0, uniforms.apply());
+        // -0和0逐位不同，按变化处理
+        uniforms.set1f("vPointSize", 0f);
+        uniforms.apply();
+        uniforms.set1f("vPointSize", -0f);
+        assertEquals(1, uniforms.apply());
+    }
+
+    @Test
+    public void stateIsSharedPerProgram() {
+        UniformState first = mLibrary.getUniforms(3);
+        UniformState second = mLibrary.getUniforms(3);
+        assertSame(first, second);
+        assertNotSame(first, mLibrary.getUniforms(4));
+
+        float[] color = {0, 1, 0, 1};
+        first.set4fv("vColor", 1, color, 0);
+        first.apply();
+        // 另一个使用同一program的渲染器设置相同的值，不需要上传
+        second.set4fv("vColor", 1, color, 0);
+        assertEquals(0, second.apply());
+
+        // 上下文丢失后program失效，影子状态一起作废
+        mLibrary.onContextLost();
+        UniformState rebuilt = mLibrary.getUniforms(3);
+        assertNotSame(first, rebuilt);
+        rebuilt.set4fv("vColor", 1, color, 0);
+        assertEquals(1, rebuilt.apply());
+    }
+
+    @Test
+    public void invalidateAndMissingUniforms() {
+        UniformState uniforms = mLibrary.getUniforms(1);
+        float[] offset = {0.0625f, 0.5f, 0.5f};
+        uniforms.set3fv("vYuvOffset", 1, offset, 0);
+        uniforms.set3fv("missingOffset", 1, offset, 0);
+        assertEquals(1, uniforms.apply());
+        assertEquals(-1, uniforms.getLocation("missingOffset"));
+
+        uniforms.invalidate();
+        uniforms.set3fv("vYuvOffset", 1, offset, 0);
+        assertEquals(1, uniforms.apply());
+
+        try {
+            uniforms.set1f("vYuvOffset", 1f);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertEquals(0, uniforms.apply());
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.phj.opengl.startup;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * 启动预热的依赖图：池阶段并发、依赖顺序、GL阶段在调用线程执行、失败的传递和时间线
+ */
+public class WarmUpTest {
+
+    private ExecutorService mPool;
+
+    @Before
+    public void setUp() {
+        mPool = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        mPool.shutdownNow();
+    }
+
+    @Test
+    public void independentPoolStagesRunConcurrently() {
+        // 两个阶段互相等待对方开始，串行执行时会超时
+        final CountDownLatch started = new CountDownLatch(2);
+        Callable<Boolean> task = new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws InterruptedException {
+                started.countDown();
+                return started.await(5, TimeUnit.SECONDS);
+            }
+        };
+        WarmUp warmUp = new WarmUp(mPool);
+        WarmUp.Stage<Boolean> a = warmUp.addPoolStage("a", task);
+        WarmUp.Stage<Boolean> b = warmUp.addPoolStage("b", task);
+        warmUp.start();
+        assertTrue(a.get());
+        assertTrue(b.get());
+    }
+
+    @Test
+    public void dependentRunsAfterDependencyAndSeesResult() {
+        WarmUp warmUp = new WarmUp(mPool);
+        final WarmUp.Stage<Integer> decode = warmUp.addPoolStage("decode", new Callable<Integer>() {
+            @Override
+            public Integer call() throws InterruptedException {
+                Thread.sleep(20);
+                return 21;
+            }
+        });
+        WarmUp.Stage<Integer> prepare = warmUp.addPoolStage("prepare", new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                assertTrue(decode.isDone());
+                return decode.get() * 2;
+            }
+        }, decode);
+        warmUp.start();
+        assertEquals(42, (int) prepare.get());
+        assertTrue(prepare.getDurationNs() >= 0);
+    }
+
+    @Test
+    public void glStagesRunOnCallingThreadAfterPoolDependencies() {
+        WarmUp warmUp = new WarmUp(mPool);
+        final AtomicBoolean sourcesReady = new AtomicBoolean();
+        WarmUp.Stage<String> sources = warmUp.addPoolStage("sources", new Callable<String>() {
+            @Override
+            public String call() throws InterruptedException {
+                Thread.sleep(20);
+                sourcesReady.set(true);
+                return "basic";
+            }
+        });
+        final Thread glThread = Thread.currentThread();
+        final boolean[] ranOnGLThread = new boolean[1];
+        WarmUp.Stage<String> program = warmUp.addGLStage("program", new Callable<String>() {
+            @Override
+            public String call() {
+                ranOnGLThread[0] = Thread.currentThread() == glThread;
+                assertTrue(sourcesReady.get());
+                return "program";
+            }
+        }, sources);
+        assertTrue(program.isGL());
+        warmUp.start();
+        warmUp.runGLStages();
+        assertTrue(program.isDone());
+        assertTrue(ranOnGLThread[0]);
+        assertEquals("program", program.get());
+        // 只执行一次
+        warmUp.runGLStages();
+    }
+
+    @Test
+    public void failureSkipsDependentsAndKeepsCause() {
+        WarmUp warmUp = new WarmUp(mPool);
+        final IllegalArgumentException cause = new IllegalArgumentException("bad asset");
+        WarmUp.Stage<Object> decode = warmUp.addPoolStage("decode", new Callable<Object>() {
+            @Override
+            public Object call() {
+                throw cause;
+            }
+        });
+        final AtomicBoolean ran = new AtomicBoolean();
+        Callable<Object> task = new Callable<Object>() {
+            @Override
+            public Object call() {
+                ran.set(true);
+                return null;
+            }
+        };
+        WarmUp.Stage<Object> texture = warmUp.addPoolStage("texture", task, decode);
+        WarmUp.Stage<Object> upload = warmUp.addGLStage("upload", task, texture);
+        WarmUp.Stage<Object> other = warmUp.addPoolStage("other", new Callable<Object>() {
+            @Override
+            public Object call() {
+                return "ok";
+            }
+        });
+        warmUp.start();
+        warmUp.runGLStages();
+        for (WarmUp.Stage<?> stage : Arrays.<WarmUp.Stage<?>>asList(decode, texture, upload)) {
+            try {
+                stage.get();
+                fail(stage.getName() + " should fail");
+            } catch (IllegalStateException e) {
+                assertSame(cause, e.getCause());
+            }
+        }
+        assertFalse(ran.get());
+        assertEquals("ok", other.get());
+        assertTrue(warmUp.getTimeline().contains("failed"));
+    }
+
+    @Test
+    public void timelineListsStagesMarksAndFirstFrame() {
+        WarmUp warmUp = new WarmUp(mPool);
+        WarmUp.Stage<Integer> decode = warmUp.addPoolStage("decode", new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return 1;
+            }
+        });
+        warmUp.addGLStage("program", new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return 2;
+            }
+        }, decode);
+        warmUp.start();
+        assertEquals(-1, warmUp.getFirstFrameNs());
+        warmUp.mark("surface");
+        warmUp.runGLStages();
+        warmUp.onFirstFrame();
+        long firstFrame = warmUp.getFirstFrameNs();
+        assertTrue(firstFrame >= 0);
+        warmUp.onFirstFrame();
+        assertEquals(firstFrame, warmUp.getFirstFrameNs());
+        String timeline = warmUp.getTimeline();
+        assertTrue(timeline, timeline.contains("decode"));
+        assertTrue(timeline, timeline.contains("program"));
+        assertTrue(timeline, timeline.contains("surface"));
+        assertFalse(timeline, timeline.contains("first frame -"));
+    }
+
+    @Test
+    public void misuseIsRejected() {
+        WarmUp warmUp = new WarmUp(mPool);
+        WarmUp.Stage<Object> gl = warmUp.addGLStage("gl", new Callable<Object>() {
+            @Override
+            public Object call() {
+                return null;
+            }
+        });
+        try {
+            warmUp.runGLStages();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        warmUp.start();
+        try {
+            gl.get();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            warmUp.addPoolStage("late", new Callable<Object>() {
+                @Override
+                public Object call() {
+                    return null;
+                }
+            });
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            new WarmUp(mPool).addPoolStage("foreign", new Callable<Object>() {
+                @Override
+                public Object call() {
+                    return null;
+                }
+            }, gl);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.phj.opengl.stroke;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 折线几何生成，不涉及GL调用
+ */
+public class StrokeBatchTest {
+
+    private static StrokeStyle style(int join, int cap) {
+        return new StrokeStyle().setWidth(4).setFeather(1).setJoin(join).setCap(cap);
+    }
+
+    // 面积不为0的三角形个数
+    private static int visibleTriangles(StrokeBatch batch) {
+        int count = 0;
+        for (int p = 0; p < batch.getPageCount(); p++) {
+            StrokeBatch.Page page = batch.getPage(p);
+            for (int i = 0; i < page.indexCount; i += 3) {
+                int a = page.indices.getShort(i * 2) & 0xFFFF;
+                int b = page.indices.getShort(i * 2 + 2) & 0xFFFF;
+                int c = page.indices.getShort(i * 2 + 4) & 0xFFFF;
+                if (a != b && b != c && a != c) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void buttSegment() {
+        StrokeBatch batch = new StrokeBatch(null);
+        Polyline line = batch.newPolyline(style(StrokeStyle.JOIN_MITER, StrokeStyle.CAP_BUTT));
+        line.append(new float[]{0, 0, 10, 0}, 0, 2);
+        assertEquals(4, batch.getVertexCount());
+        assertEquals(6, batch.getIndexCount());
+        // 外边界 = 半宽 + 半个羽化宽度
+        StrokeBatch.Page page = batch.getPage(0);
+        assertEquals(2.5f, Math.abs(page.vertices.getFloat(4)), 1e-6f);
+        assertEquals(2.5f, page.vertices.getFloat(12), 1e-6f);
+    }
+
+    @Test
+    public void collinearAndDuplicatePointsAddNoJoin() {
+        StrokeBatch batch = new StrokeBatch(null);
+        Polyline line = batch.newPolyline(style(StrokeStyle.JOIN_MITER, StrokeStyle.CAP_BUTT));
+        line.append(new float[]{0, 0, 10, 0, 10, 0, 20, 0}, 0, 4);
+        assertEquals(3, line.getPointCount());
+        assertEquals(8, batch.getVertexCount());
+    }
+
+    @Test
+    public void miterFallsBackToBevel() {
+        StrokeBatch batch = new StrokeBatch(null);
+        Polyline square = batch.newPolyline(style(StrokeStyle.JOIN_MITER, StrokeStyle.CAP_BUTT));
+        square.append(new float[]{0, 0, 10, 0, 10, 10}, 0, 3);
+        // 两段 + 尖角
+        assertEquals(12, batch.getVertexCount());
+
+        batch.clear();
+        Polyline sharp = batch.newPolyline(style(StrokeStyle.JOIN_MITER, StrokeStyle.CAP_BUTT));
+        sharp.append(new float[]{0, 0, 10, 0, 0, 1}, 0, 3);
+        // 夹角很小，尖角超过miterLimit，退化为斜角
+        assertEquals(11, batch.getVertexCount());
+    }
+
+    @Test
+    public void tailCapIsRetracted() {
+        StrokeBatch batch = new StrokeBatch(null);
+        Polyline line = batch.newPolyline(style(StrokeStyle.JOIN_ROUND, StrokeStyle.CAP_ROUND));
+        line.append(0, 0);
+        line.append(10, 0);
+        int oneSegment = batch.getVertexCount();
+        line.append(20, 0);
+        // 末端圆帽被截断后重新生成，总量只多一段线段
+        assertEquals(oneSegment + 4, batch.getVertexCount());
+        assertEquals(visibleTriangles(batch) * 3, batch.getIndexCount());
+    }
+
+    @Test
+    public void interleavedAppendMatchesSeparateAppend() {
+        float[] a = {0, 0, 10, 5, 20, 0, 30, 8, 40, 0};
+        float[] b = {0, 50, 12, 40, 20, 60, 35, 45, 40, 50};
+        StrokeBatch separate = new StrokeBatch(null);
+        separate.newPolyline(style(StrokeStyle.JOIN_ROUND, StrokeStyle.CAP_SQUARE)).append(a, 0, 5);
+        separate.newPolyline(style(StrokeStyle.JOIN_ROUND, StrokeStyle.CAP_SQUARE)).append(b, 0, 5);
+
+        StrokeBatch interleaved = new StrokeBatch(null);
+        Polyline la = interleaved.newPolyline(style(StrokeStyle.JOIN_ROUND, StrokeStyle.CAP_SQUARE));
+        Polyline lb = interleaved.newPolyline(style(StrokeStyle.JOIN_ROUND, StrokeStyle.CAP_SQUARE));
+        for (int i = 0; i < 5; i++) {
+            la.append(a[i * 2], a[i * 2 + 1]);
+            lb.append(b[i * 2], b[i * 2 + 1]);
+        }
+        // 不在末尾的端帽改成了退化三角形，可见的几何相同
+        assertTrue(interleaved.getIndexCount() > separate.getIndexCount());
+        assertEquals(visibleTriangles(separate), visibleTriangles(interleaved));
+    }
+
+    @Test
+    public void distancesStayWithinLimit() {
+        StrokeBatch batch = new StrokeBatch(null);
+        Polyline line = batch.newPolyline(style(StrokeStyle.JOIN_MITER, StrokeStyle.CAP_ROUND));
+        line.append(new float[]{0, 0, 10, 0, 10, 10, 0, 3, 5, -7}, 0, 5);
+        StrokeBatch.Page page = batch.getPage(0);
+        for (int v = 0; v < page.vertexCount; v++) {
+            float distance = page.vertices.getFloat(v * StrokeBatch.STRIDE + 8);
+            float limit = page.vertices.getFloat(v * StrokeBatch.STRIDE + 12);
+            assertTrue(Math.abs(distance) <= limit + 1e-5f);
+        }
+    }
+
+    @Test
+    public void pagesKeepSixteenBitIndices() {
+        StrokeBatch batch = new StrokeBatch(null);
+        Polyline line = batch.newPolyline(style(StrokeStyle.JOIN_BEVEL, StrokeStyle.CAP_BUTT));
+        for (int i = 0; i < 20000; i++) {
+            line.append(i, (i & 1) * 10);
+        }
+        assertTrue(batch.getPageCount() >= 2);
+        for (int p = 0; p < batch.getPageCount(); p++) {
+            StrokeBatch.Page page = batch.getPage(p);
+            assertTrue(page.vertexCount <= StrokeBatch.MAX_PAGE_VERTICES);
+            for (int i = 0; i < page.indexCount; i++) {
+                assertTrue((page.indices.getShort(i * 2) & 0xFFFF) < page.vertexCount);
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void appendAfterClearFails() {
+        StrokeBatch batch = new StrokeBatch(null);
+        Polyline line = batch.newPolyline(new StrokeStyle());
+        line.append(0, 0);
+        batch.clear();
+        line.append(1, 1);
+    }
+}
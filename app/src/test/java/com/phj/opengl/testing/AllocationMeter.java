@@ -0,0 +1,53 @@
+package com.phj.opengl.testing;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * 当前线程在Java堆上分配的字节数，用HotSpot的线程分配计数，其他虚拟机上不支持
+ * 读数本身的分配在{@link #since}中扣除；先多读几次，避开第一次调用时的一次性分配
+ */
+public final class AllocationMeter {
+
+    private static final com.sun.management.ThreadMXBean THREADS;
+    private static final long OVERHEAD;
+
+    static {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        THREADS = bean instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) bean : null;
+        long overhead = 0;
+        if (THREADS != null) {
+            overhead = Long.MAX_VALUE;
+            for (int i = 0; i < 100; i++) {
+                long a = allocatedBytes();
+                long b = allocatedBytes();
+                overhead = Math.min(overhead, b - a);
+            }
+        }
+        OVERHEAD = overhead;
+    }
+
+    private AllocationMeter() {
+    }
+
+    public static boolean isSupported() {
+        return THREADS != null;
+    }
+
+    /**
+     * 当前线程累计分配的字节数，不支持时为-1
+     */
+    public static long allocatedBytes() {
+        return THREADS == null ? -1 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * 从before（{@link #allocatedBytes()}的返回值）到现在分配的字节数，不含读数本身；不支持时为-1
+     */
+    public static long since(long before) {
+        if (before < 0) {
+            return -1;
+        }
+        return Math.max(0, allocatedBytes() - before - OVERHEAD);
+    }
+}
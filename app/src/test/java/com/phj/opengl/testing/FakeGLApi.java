@@ -0,0 +1,123 @@
+package com.phj.opengl.testing;
+
+import android.opengl.GLES20;
+
+import com.phj.opengl.gl.GLApi;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * 可配置的模拟GL，用动态代理实现GLApi的全部方法，按顺序记录每次调用的方法名
+ * 默认：对象名从1开始递增，编译和链接总是成功，日志为空，glGetError按{@link #addError}的队列返回，
+ * glGetIntegerv返回{@link #setInteger}设置的值，其余返回0、false或null。
+ * 需要模拟更多状态的测试覆盖{@link #onCall}，不处理的调用交给super；只需要计数、不关心返回值时用{@link RecordingGLApi}
+ */
+public class FakeGLApi implements InvocationHandler {
+
+    private final GLApi mApi = (GLApi) Proxy.newProxyInstance(GLApi.class.getClassLoader(),
+            new Class<?>[]{GLApi.class}, this);
+    private final List<String> mCalls = new ArrayList<>();
+    private final HashMap<Integer, Integer> mIntegers = new HashMap<>();
+    private final ArrayDeque<Integer> mErrors = new ArrayDeque<>();
+    private int mNextId = 1;
+
+    public GLApi api() {
+        return mApi;
+    }
+
+    /**
+     * 所有调用的方法名，按调用顺序
+     */
+    public List<String> getCalls() {
+        return mCalls;
+    }
+
+    public int count(String name) {
+        int n = 0;
+        for (String call : mCalls) {
+            if (call.equals(name)) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    public void clearCalls() {
+        mCalls.clear();
+    }
+
+    public void setInteger(int pname, int value) {
+        mIntegers.put(pname, value);
+    }
+
+    /**
+     * 之后的glGetError依次返回这些错误，取完后返回GL_NO_ERROR
+     */
+    public void addError(int error) {
+        mErrors.add(error);
+    }
+
+    public boolean hasPendingErrors() {
+        return !mErrors.isEmpty();
+    }
+
+    @Override
+    public final Object invoke(Object proxy, Method method, Object[] args) {
+        String name = method.getName();
+        mCalls.add(name);
+        return onCall(name, args, method.getReturnType());
+    }
+
+    /**
+     * @param type 方法的返回类型，没有特别处理时按它返回默认值
+     */
+    protected Object onCall(String name, Object[] args, Class<?> type) {
+        switch (name) {
+            case "glCreateProgram":
+            case "glCreateShader":
+                return mNextId++;
+            case "glGenTextures":
+            case "glGenBuffers":
+            case "glGenFramebuffers":
+            case "glGenRenderbuffers": {
+                int[] names = (int[]) args[1];
+                int offset = (Integer) args[2];
+                for (int i = 0; i < (Integer) args[0]; i++) {
+                    names[offset + i] = mNextId++;
+                }
+                return null;
+            }
+            case "glGetShaderiv":
+            case "glGetProgramiv":
+                ((int[]) args[2])[(Integer) args[3]] = 1;
+                return null;
+            case "glGetShaderInfoLog":
+            case "glGetProgramInfoLog":
+                return "";
+            case "glGetIntegerv": {
+                Integer value = mIntegers.get(args[0]);
+                ((int[]) args[1])[(Integer) args[2]] = value != null ? value : 0;
+                return null;
+            }
+            case "glGetError":
+                return mErrors.isEmpty() ? GLES20.GL_NO_ERROR : mErrors.poll();
+            case "glCheckFramebufferStatus":
+                return GLES20.GL_FRAMEBUFFER_COMPLETE;
+            default:
+                break;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,583 @@
+package com.phj.opengl.testing;
+
+import android.graphics.Bitmap;
+import android.opengl.GLES20;
+
+import com.phj.opengl.gl.GLApi;
+
+import java.nio.Buffer;
+
+/**
+ * 只计数不绘制的GLApi：GL调用、绘制、状态切换、uniform上传、查询和上传的字节数
+ * 编译和链接总是成功，对象名依次递增，attribute和uniform的位置由名字决定，结果与运行次数无关。
+ * 计数本身不分配，不影响堆分配的测量
+ */
+public class RecordingGLApi implements GLApi {
+
+    private long mCalls;
+    private long mDraws;
+    private long mStateChanges;
+    private long mUniforms;
+    private long mQueries;
+    private long mUploadBytes;
+    private int mNextId;
+
+    public void reset() {
+        mCalls = 0;
+        mDraws = 0;
+        mStateChanges = 0;
+        mUniforms = 0;
+        mQueries = 0;
+        mUploadBytes = 0;
+    }
+
+    public long getCalls() {
+        return mCalls;
+    }
+
+    public long getDraws() {
+        return mDraws;
+    }
+
+    public long getStateChanges() {
+        return mStateChanges;
+    }
+
+    public long getUniforms() {
+        return mUniforms;
+    }
+
+    public long getQueries() {
+        return mQueries;
+    }
+
+    public long getUploadBytes() {
+        return mUploadBytes;
+    }
+
+    private static int location(String name) {
+        return (name.hashCode() & 0x7FFFFFFF) % 8;
+    }
+
+    private static int integer(int pname) {
+        switch (pname) {
+            case GLES20.GL_MAX_TEXTURE_SIZE:
+                return 4096;
+            case GLES20.GL_STENCIL_BITS:
+                return 8;
+            case GLES20.GL_DEPTH_BITS:
+                return 16;
+            default:
+                return 0;
+        }
+    }
+
+    private static int bytesPerPixel(int format, int type) {
+        if (type == GLES20.GL_UNSIGNED_SHORT_5_6_5 || type == GLES20.GL_UNSIGNED_SHORT_4_4_4_4
+                || type == GLES20.GL_UNSIGNED_SHORT_5_5_5_1) {
+            return 2;
+        }
+        switch (format) {
+            case GLES20.GL_RGBA:
+                return 4;
+            case GLES20.GL_RGB:
+                return 3;
+            case GLES20.GL_LUMINANCE_ALPHA:
+                return 2;
+            default:
+                return 1;
+        }
+    }
+
+    @Override
+    public void glGenTextures(int n, int[] textures, int offset) {
+        mCalls++;
+        for (int i = 0; i < n; i++) {
+            textures[offset + i] = ++mNextId;
+        }
+    }
+
+    @Override
+    public void glDeleteTextures(int n, int[] textures, int offset) {
+        mCalls++;
+    }
+
+    @Override
+    public void glBindTexture(int target, int texture) {
+        mCalls++;
+        mStateChanges++;
+    }
+
+    @Override
+    public void glTexParameteri(int target, int pname, int param) {
+        mCalls++;
+        mStateChanges++;
+    }
+
+    @Override
+    public void glTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                      int format, int type, Buffer pixels) {
+        mCalls++;
+        if (pixels != null) {
+            mUploadBytes += (long) width * height * bytesPerPixel(format, type);
+        }
+    }
+
+    @Override
+    public void glGenFramebuffers(int n, int[] framebuffers, int offset) {
+        mCalls++;
+        for (int i = 0; i < n; i++) {
+            framebuffers[offset + i] = ++mNextId;
+        }
+    }
+
+    @Override
+    public void glDeleteFramebuffers(int n, int[] framebuffers, int offset) {
+        mCalls++;
+    }
+
+    @Override
+    public void glBindFramebuffer(int target, int framebuffer) {
+        mCalls++;
+        mStateChanges++;
+    }
+
+    @Override
+    public void glFramebufferTexture2D(int target, int attachment, int textarget, int texture, int level) {
+        mCalls++;
+    }
+
+    @Override
+    public int glCheckFramebufferStatus(int target) {
+        mCalls++;
+        mQueries++;
+        return GLES20.GL_FRAMEBUFFER_COMPLETE;
+    }
+
+    @Override
+    public void glGenRenderbuffers(int n, int[] renderbuffers, int offset) {
+        mCalls++;
+        for (int i = 0; i < n; i++) {
+            renderbuffers[offset + i] = ++mNextId;
+        }
+    }
+
+    @Override
+    public void glDeleteRenderbuffers(int n, int[] renderbuffers, int offset) {
+        mCalls++;
+    }
+
+    @Override
+    public void glBindRenderbuffer(int target, int renderbuffer) {
+        mCalls++;
+        mStateChanges++;
+    }
+
+    @Override
+    public void glRenderbufferStorage(int target, int internalformat, int width, int height) {
+        mCalls++;
+    }
+
+    @Override
+    public void glFramebufferRenderbuffer(int target, int attachment, int renderbuffertarget, int renderbuffer) {
+        mCalls++;
+    }
+
+    @Override
+    public void glViewport(int x, int y, int width, int height) {
+        mCalls++;
+        mStateChanges++;
+    }
+
+    @Override
+    public int glCreateShader(int type) {
+        mCalls++;
+        return ++mNextId;
+    }
+
+    @Override
+    public void glShaderSource(int shader, String string) {
+        mCalls++;
+    }
+
+    @Override
+    public void glCompileShader(int shader) {
+        mCalls++;
+    }
+
+    @Override
+    public void glGetShaderiv(int shader, int pname, int[] params, int offset) {
+        mCalls++;
+        mQueries++;
+        params[offset] = 1;
+    }
+
+    @Override
+    public String glGetShaderInfoLog(int shader) {
+        mCalls++;
+        mQueries++;
+        return "";
+    }
+
+    @Override
+    public void glDeleteShader(int shader) {
+        mCalls++;
+    }
+
+    @Override
+    public int glCreateProgram() {
+        mCalls++;
+        return ++mNextId;
+    }
+
+    @Override
+    public void glAttachShader(int program, int shader) {
+        mCalls++;
+    }
+
+    @Override
+    public void glLinkProgram(int program) {
+        mCalls++;
+    }
+
+    @Override
+    public void glGetProgramiv(int program, int pname, int[] params, int offset) {
+        mCalls++;
+        mQueries++;
+        params[offset] = 1;
+    }
+
+    @Override
+    public String glGetProgramInfoLog(int program) {
+        mCalls++;
+        mQueries++;
+        return "";
+    }
+
+    @Override
+    public void glDeleteProgram(int program) {
+        mCalls++;
+    }
+
+    @Override
+    public void glUseProgram(int program) {
+        mCalls++;
+        mStateChanges++;
+    }
+
+    @Override
+    public int glGetAttribLocation(int program, String name) {
+        mCalls++;
+        mQueries++;
+        return location(name);
+    }
+
+    @Override
+    public int glGetUniformLocation(int program, String name) {
+        mCalls++;
+        mQueries++;
+        return location(name);
+    }
+
+    @Override
+    public void glUniform1i(int location, int x) {
+        mCalls++;
+        mUniforms++;
+    }
+
+    @Override
+    public void glUniform1f(int location, float x) {
+        mCalls++;
+        mUniforms++;
+    }
+
+    @Override
+    public void glUniform2f(int location, float x, float y) {
+        mCalls++;
+        mUniforms++;
+    }
+
+    @Override
+    public void glUniform4f(int location, float x, float y, float z, float w) {
+        mCalls++;
+        mUniforms++;
+    }
+
+    @Override
+    public void glActiveTexture(int texture) {
+        mCalls++;
+        mStateChanges++;
+    }
+
+    @Override
+    public void glVertexAttribPointer(int indx, int size, int type, boolean normalized, int stride, Buffer ptr) {
+        mCalls++;
+        mStateChanges++;
+    }
+
+    @Override
+    public void glEnableVertexAttribArray(int index) {
+        mCalls++;
+        mStateChanges++;
+    }
+
+    @Override
+    public void glDisableVertexAttribArray(int index) {
+        mCalls++;
+        mStateChanges++;
+    }
+
+    @Override
+    public void glDrawArrays(int mode, int first, int count) {
+        mCalls++;
+        mDraws++;
+    }
+
+    @Override
+    public String glGetString(int name) {
+        mCalls++;
+        mQueries++;
+        return name == GLES20.GL_VERSION ? "OpenGL ES 2.0" : "";
+    }
+
+    @Override
+    public void glGetIntegerv(int pname, int[] params, int offset) {
+        mCalls++;
+        mQueries++;
+        params[offset] = integer(pname);
+    }
+
+    @Override
+    public void glGenBuffers(int n, int[] buffers, int offset) {
+        mCalls++;
+        for (int i = 0; i < n; i++) {
+            buffers[offset + i] = ++mNextId;
+        }
+    }
+
+    @Override
+    public void glDeleteBuffers(int n, int[] buffers, int offset) {
+        mCalls++;
+    }
+
+    @Override
+    public void glBindBuffer(int target, int buffer) {
+        mCalls++;
+        mStateChanges++;
+    }
+
+    @Override
+    public void glBufferData(int target, int size, Buffer data, int usage) {
+        mCalls++;
+        if (data != null) {
+            mUploadBytes += size;
+        }
+    }
+
+    @Override
+    public void glBufferSubData(int target, int offset, int size, Buffer data) {
+        mCalls++;
+        mUploadBytes += size;
+    }
+
+    @Override
+    public void glDetachShader(int program, int shader) {
+        mCalls++;
+    }
+
+    @Override
+    public void texImage2D(int target, int level, Bitmap bitmap, int border) {
+        mCalls++;
+        mUploadBytes += bitmap.getByteCount();
+    }
+
+    @Override
+    public void glCompressedTexImage2D(int target, int level, int internalformat, int width, int height, int border, int imageSize, Buffer data) {
+        mCalls++;
+        mUploadBytes += imageSize;
+    }
+
+    @Override
+    public void glGenerateMipmap(int target) {
+        mCalls++;
+    }
+
+    @Override
+    public void glVertexAttribPointer(int indx, int size, int type, boolean normalized, int stride, int offset) {
+        mCalls++;
+        mStateChanges++;
+    }
+
+    @Override
+    public void glDrawElements(int mode, int count, int type, int offset) {
+        mCalls++;
+        mDraws++;
+    }
+
+    @Override
+    public void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset) {
+        mCalls++;
+        mUniforms++;
+    }
+
+    @Override
+    public void glEnable(int cap) {
+        mCalls++;
+        mStateChanges++;
+    }
+
+    @Override
+    public void glDisable(int cap) {
+        mCalls++;
+        mStateChanges++;
+    }
+
+    @Override
+    public void glBlendFunc(int sfactor, int dfactor) {
+        mCalls++;
+        mStateChanges++;
+    }
+
+    @Override
+    public void glTexSubImage2D(int target, int level, int xoffset, int yoffset, int width, int height, int format, int type, Buffer pixels) {
+        mCalls++;
+        mUploadBytes += (long) width * height * bytesPerPixel(format, type);
+    }
+
+    @Override
+    public void glPixelStorei(int pname, int param) {
+        mCalls++;
+        mStateChanges++;
+    }
+
+    @Override
+    public void glCopyTexSubImage2D(int target, int level, int xoffset, int yoffset, int x, int y, int width, int height) {
+        mCalls++;
+    }
+
+    @Override
+    public void glReadPixels(int x, int y, int width, int height, int format, int type, Buffer pixels) {
+        mCalls++;
+    }
+
+    @Override
+    public void glUniform2fv(int location, int count, float[] v, int offset) {
+        mCalls++;
+        mUniforms++;
+    }
+
+    @Override
+    public void glUniform3fv(int location, int count, float[] v, int offset) {
+        mCalls++;
+        mUniforms++;
+    }
+
+    @Override
+    public void glUniform4fv(int location, int count, float[] v, int offset) {
+        mCalls++;
+        mUniforms++;
+    }
+
+    @Override
+    public void glUniformMatrix3fv(int location, int count, boolean transpose, float[] value, int offset) {
+        mCalls++;
+        mUniforms++;
+    }
+
+    @Override
+    public void glClear(int mask) {
+        mCalls++;
+    }
+
+    @Override
+    public void glClearColor(float red, float green, float blue, float alpha) {
+        mCalls++;
+        mStateChanges++;
+    }
+
+    @Override
+    public void glClearDepthf(float depth) {
+        mCalls++;
+        mStateChanges++;
+    }
+
+    @Override
+    public void glClearStencil(int s) {
+        mCalls++;
+        mStateChanges++;
+    }
+
+    @Override
+    public void glStencilFunc(int func, int ref, int mask) {
+        mCalls++;
+        mStateChanges++;
+    }
+
+    @Override
+    public void glStencilOp(int fail, int zfail, int zpass) {
+        mCalls++;
+        mStateChanges++;
+    }
+
+    @Override
+    public void glStencilMask(int mask) {
+        mCalls++;
+        mStateChanges++;
+    }
+
+    @Override
+    public void glDepthFunc(int func) {
+        mCalls++;
+        mStateChanges++;
+    }
+
+    @Override
+    public void glDepthMask(boolean flag) {
+        mCalls++;
+        mStateChanges++;
+    }
+
+    @Override
+    public void glColorMask(boolean red, boolean green, boolean blue, boolean alpha) {
+        mCalls++;
+        mStateChanges++;
+    }
+
+    @Override
+    public int glGetError() {
+        mCalls++;
+        mQueries++;
+        return GLES20.GL_NO_ERROR;
+    }
+
+    @Override
+    public void glGetVertexAttribiv(int index, int pname, int[] params, int offset) {
+        mCalls++;
+        mQueries++;
+    }
+
+    @Override
+    public void glGetBufferParameteriv(int target, int pname, int[] params, int offset) {
+        mCalls++;
+        mQueries++;
+    }
+
+    @Override
+    public void glDrawElements(int mode, int count, int type, Buffer indices) {
+        mCalls++;
+        mDraws++;
+    }
+
+    @Override
+    public void glProgramBinary(int program, int binaryFormat, Buffer binary, int length) {
+        mCalls++;
+        mUploadBytes += length;
+    }
+
+    @Override
+    public void glGetProgramBinary(int program, int bufSize, int[] length, int lengthOffset,
+                                   int[] binaryFormat, int binaryFormatOffset, Buffer binary) {
+        mCalls++;
+        mQueries++;
+    }
+}
@@ -0,0 +1,165 @@
+package com.phj.opengl.text;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 距离场、字形图集的驱逐、排版缓存和四边形合并，字形用方块代替系统字体
+ */
+public class GlyphAtlasTest {
+
+    // 上升16、下降4，每个非空白字形是advance宽、从基线到上升线的实心方块
+    private static final class BoxRasterizer implements GlyphRasterizer {
+        int rasterizeCount;
+
+        @Override
+        public float getAscent() {
+            return 16;
+        }
+
+        @Override
+        public float getDescent() {
+            return 4;
+        }
+
+        @Override
+        public float getAdvance(int codePoint) {
+            return codePoint == 'W' ? 16 : 10;
+        }
+
+        @Override
+        public void rasterize(int codePoint, byte[] coverage, int size, float originX, float baselineY) {
+            rasterizeCount++;
+            if (Character.isWhitespace(codePoint)) {
+                return;
+            }
+            int right = (int) (originX + getAdvance(codePoint));
+            for (int y = (int) (baselineY - getAscent()); y < (int) baselineY; y++) {
+                for (int x = (int) originX; x < right; x++) {
+                    coverage[y * size + x] = (byte) 255;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void distanceFieldCrossesHalfAtEdge() {
+        int size = 32;
+        byte[] coverage = new byte[size * size];
+        for (int y = 8; y < 24; y++) {
+            for (int x = 8; x < 24; x++) {
+                coverage[y * size + x] = (byte) 255;
+            }
+        }
+        byte[] field = new byte[size * size];
+        new SignedDistanceField(size, size).generate(coverage, 4, field, 0, size);
+        assertEquals(255, field[16 * size + 16] & 0xFF);
+        assertEquals(0, field[16 * size + 1] & 0xFF);
+        // 边缘两侧的像素关于0.5对称
+        int inside = field[16 * size + 8] & 0xFF;
+        int outside = field[16 * size + 7] & 0xFF;
+        assertTrue(inside > 128 && outside < 128);
+        assertEquals(255, inside + outside, 1);
+        // 沿行单调
+        for (int x = 1; x <= 16; x++) {
+            assertTrue((field[16 * size + x] & 0xFF) >= (field[16 * size + x - 1] & 0xFF));
+        }
+    }
+
+    @Test
+    public void layoutIsCachedPerString() {
+        BoxRasterizer rasterizer = new BoxRasterizer();
+        TextLayoutCache cache = new TextLayoutCache(rasterizer, 8);
+        TextLayout layout = cache.get("AW\nB");
+        assertSame(layout, cache.get("AW\nB"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(3, layout.getGlyphCount());
+        assertEquals(26f, layout.getWidth(), 0f);
+        assertEquals(40f, layout.getHeight(), 0f);
+        assertEquals(10f, layout.x[1], 0f);
+        assertEquals(0f, layout.x[2], 0f);
+        assertEquals(36f, layout.y[2], 0f);
+    }
+
+    @Test
+    public void glyphsAreRasterizedOnce() {
+        BoxRasterizer rasterizer = new BoxRasterizer();
+        GlyphAtlas atlas = new GlyphAtlas(rasterizer, null, 256, 1);
+        atlas.beginFrame();
+        GlyphAtlas.Glyph a = atlas.get('A');
+        assertSame(a, atlas.get('A'));
+        assertTrue(atlas.get(' ').isEmpty());
+        atlas.get(' ');
+        assertEquals(2, rasterizer.rasterizeCount);
+        assertEquals(1, atlas.getGlyphCount());
+        assertFalse(a.isEmpty());
+        // 格子里是距离场，中间在字形内部
+        int cell = atlas.getCellSize();
+        int center = (int) (a.v0 * 256 + cell / 2) * 256 + (int) (a.u0 * 256 + atlas.getSpread() + 5);
+        assertTrue((atlas.getPixels(0).get(center) & 0xFF) > 128);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedFromEarlierFrames() {
+        BoxRasterizer rasterizer = new BoxRasterizer();
+        GlyphAtlas atlas = new GlyphAtlas(rasterizer, null, 64, 1);
+        // 行高20加两侧边距3，格子28，一页四格
+        assertEquals(28, atlas.getCellSize());
+        atlas.beginFrame();
+        for (char c = 'A'; c <= 'D'; c++) {
+            assertNotNull(atlas.get(c));
+        }
+        atlas.beginFrame();
+        atlas.get('A');
+        GlyphAtlas.Glyph e = atlas.get('E');
+        assertNotNull(e);
+        assertEquals(1, atlas.getEvictionCount());
+        // B最久未用，E占了它的格子
+        assertEquals(4, atlas.getGlyphCount());
+        atlas.get('C');
+        atlas.get('D');
+        // 四个格子都在本帧用过，不能再驱逐
+        assertNull(atlas.get('F'));
+        assertEquals(1, atlas.getEvictionCount());
+        atlas.beginFrame();
+        assertNotNull(atlas.get('F'));
+        // 上一帧放不下的F重新栅格化
+        assertEquals(7, rasterizer.rasterizeCount);
+    }
+
+    @Test
+    public void batchMergesQuadsPerPage() {
+        BoxRasterizer rasterizer = new BoxRasterizer();
+        GlyphAtlas atlas = new GlyphAtlas(rasterizer, null, 64, 3);
+        TextBatch batch = new TextBatch(atlas, new TextLayoutCache(rasterizer, 8), null);
+        batch.begin();
+        batch.drawText("AB CD", 0, 0, 1f, 0xFFFFFFFF);
+        batch.drawText("EF GH I", 0, 20, 2f, 0xFFFFFFFF);
+        assertEquals(9, batch.getQuadCount());
+        assertEquals(3, atlas.getPageCount());
+        assertEquals(3, batch.getDrawCallCount());
+        batch.begin();
+        batch.drawText("AB CD", 0, 0, 1f, 0xFFFFFFFF);
+        assertEquals(4, batch.getQuadCount());
+        assertEquals(1, batch.getDrawCallCount());
+    }
+
+    @Test
+    public void quadCoversCellAroundPen() {
+        BoxRasterizer rasterizer = new BoxRasterizer();
+        GlyphAtlas atlas = new GlyphAtlas(rasterizer, null, 64, 1);
+        TextBatch batch = new TextBatch(atlas, new TextLayoutCache(rasterizer, 8), null);
+        batch.begin();
+        batch.drawText("A", 100, 50, 2f, 0xFF102030);
+        TextBatch.PageQuads page = batch.page(0);
+        int spread = atlas.getSpread();
+        assertEquals(100 - spread * 2, page.vertices.getFloat(0), 1e-4f);
+        assertEquals(50 - spread * 2, page.vertices.getFloat(4), 1e-4f);
+        assertEquals(100 - spread * 2 + atlas.getCellSize() * 2, page.vertices.getFloat(TextBatch.STRIDE * 3), 1e-4f);
+        assertEquals(0x10, page.vertices.get(16));
+        assertEquals(0x20, page.vertices.get(17));
+        assertEquals(0x30, page.vertices.get(18));
+    }
+}
@@ -0,0 +1,126 @@
+package com.phj.opengl.texture;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * ETC1编码 + CPU解码往返，用PSNR衡量质量
+ */
+public class Etc1EncoderTest {
+
+    private ExecutorService mExecutor;
+
+    @Before
+    public void setUp() {
+        mExecutor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdownNow();
+    }
+
+    @Test
+    public void decodesHandWrittenBlock() {
+        // 独立模式，基色0x8/0x4，修正表0和1，flip=0，左半子块索引全为0，右半子块索引全为3
+        byte[] block = {
+                (byte) 0x84, (byte) 0x84, (byte) 0x84,
+                (byte) ((0 << 5) | (1 << 2)),
+                (byte) 0xFF, 0x00,
+                (byte) 0xFF, 0x00,
+        };
+        int[] out = new int[16];
+        Etc1Decoder.decodeBlock(block, 0, out);
+        // 0x8扩展为0x88，+2
+        assertEquals(0xFF8A8A8A, out[0]);
+        assertEquals(0xFF8A8A8A, out[7]);
+        // 0x4扩展为0x44，-17
+        assertEquals(0xFF333333, out[8]);
+        assertEquals(0xFF333333, out[15]);
+    }
+
+    @Test
+    public void solidColorIsNearlyLossless() {
+        int[] pixels = new int[16 * 16];
+        Arrays.fill(pixels, 0xFF336699);
+        int[] fast = roundTrip(new Etc1Encoder(Etc1Encoder.QUALITY_FAST, null, 1), pixels, 16, 16);
+        int[] high = roundTrip(new Etc1Encoder(Etc1Encoder.QUALITY_HIGH, null, 1), pixels, 16, 16);
+        // FAST直接量化平均色，HIGH会在邻域中找到能用修正值补偿量化误差的基色
+        assertTrue(psnr(pixels, fast) > 35);
+        assertTrue(psnr(pixels, high) > 45);
+    }
+
+    @Test
+    public void photoLikeImageMeetsPsnr() {
+        int w = 64;
+        int h = 48;
+        int[] pixels = photoLike(w, h);
+        double fast = psnr(pixels, roundTrip(new Etc1Encoder(Etc1Encoder.QUALITY_FAST, null, 1), pixels, w, h));
+        double high = psnr(pixels, roundTrip(new Etc1Encoder(Etc1Encoder.QUALITY_HIGH, null, 1), pixels, w, h));
+        assertTrue("fast psnr=" + fast, fast > 35);
+        assertTrue("high psnr=" + high + " fast=" + fast, high >= fast);
+    }
+
+    @Test
+    public void parallelOutputMatchesSerial() {
+        int w = 61;
+        int h = 37;
+        int[] pixels = photoLike(w, h);
+        for (int quality = Etc1Encoder.QUALITY_FAST; quality <= Etc1Encoder.QUALITY_HIGH; quality++) {
+            byte[] serial = new Etc1Encoder(quality, null, 1).encode(pixels, w, h);
+            byte[] parallel = new Etc1Encoder(quality, mExecutor, 4).encode(pixels, w, h);
+            assertArrayEquals(serial, parallel);
+        }
+    }
+
+    @Test
+    public void sizeIsOneEighthOfRgba() {
+        assertEquals(64 * 64 * 4 / 8, Etc1Encoder.getEncodedSize(64, 64));
+        // 不足4的边按整块计算
+        assertEquals(2 * 1 * Etc1Encoder.BLOCK_BYTES, Etc1Encoder.getEncodedSize(5, 3));
+        int[] pixels = photoLike(5, 3);
+        byte[] data = new Etc1Encoder(Etc1Encoder.QUALITY_HIGH, null, 1).encode(pixels, 5, 3);
+        assertEquals(Etc1Encoder.getEncodedSize(5, 3), data.length);
+        assertTrue(psnr(pixels, Etc1Decoder.decode(data, 5, 3)) > 30);
+    }
+
+    private static int[] roundTrip(Etc1Encoder encoder, int[] pixels, int w, int h) {
+        return Etc1Decoder.decode(encoder.encode(pixels, w, h), w, h);
+    }
+
+    // 平滑渐变 + 少量噪声 + 一条对齐到块边界的硬边（块内的色度突变ETC1本身无法表示）
+    private static int[] photoLike(int w, int h) {
+        Random random = new Random(7);
+        int[] pixels = new int[w * h];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int r = 40 + x * 2 + random.nextInt(5);
+                int g = 60 + y * 2 + random.nextInt(5);
+                int b = x >= (w / 8) * 4 ? 200 : 90;
+                pixels[y * w + x] = 0xFF000000 | (r << 16) | (g << 8) | b;
+            }
+        }
+        return pixels;
+    }
+
+    // RGB三通道的峰值信噪比
+    static double psnr(int[] a, int[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            for (int shift = 0; shift <= 16; shift += 8) {
+                int d = ((a[i] >> shift) & 0xFF) - ((b[i] >> shift) & 0xFF);
+                sum += d * d;
+            }
+        }
+        double mse = sum / (a.length * 3.0);
+        return mse == 0 ? Double.POSITIVE_INFINITY : 10 * Math.log10(255.0 * 255.0 / mse);
+    }
+}
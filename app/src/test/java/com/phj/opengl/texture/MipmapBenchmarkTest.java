@@ -0,0 +1,162 @@
+package com.phj.opengl.texture;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 软件采样器上对比缩小绘制时有无mipmap的耗时和画质
+ * 每帧把1024x1024的纹理缩小约10倍绘制到100x100，每个像素4次纹理读取（双线性）或8次（三线性）。
+ * 没有mipmap时相邻像素的读取地址相隔约10个纹素，几乎每次都落在新的缓存行上；有mipmap时读取集中在小得多的级别上。
+ * 软件实现里三线性的读取和插值次数是双线性的两倍，耗时不一定更低，GPU上纹理单元做插值，缓存命中率的差别才是主要的。
+ * 耗时只打印不断言，画质以与面积平均参考图的PSNR断言
+ */
+public class MipmapBenchmarkTest {
+
+    private static final int TEXTURE_SIZE = 1024;
+    private static final int TARGET_SIZE = 100;
+    private static final int WARMUP_FRAMES = 5;
+    private static final int FRAMES = 20;
+
+    @Test
+    public void minifiedFramesWithAndWithoutMipmaps() {
+        int[] texture = highFrequencyTexture(TEXTURE_SIZE);
+        MipChain chain = new MipmapGenerator(MipmapGenerator.FILTER_BOX, false, null, 1)
+                .generate(texture, TEXTURE_SIZE, TEXTURE_SIZE);
+        int[] reference = areaAverage(texture, TEXTURE_SIZE, TARGET_SIZE);
+
+        int[] bilinear = new int[TARGET_SIZE * TARGET_SIZE];
+        int[] trilinear = new int[TARGET_SIZE * TARGET_SIZE];
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            drawFrame(chain, false, bilinear);
+            drawFrame(chain, true, trilinear);
+        }
+        long noMipNs = 0;
+        long mipNs = 0;
+        for (int i = 0; i < FRAMES; i++) {
+            long start = System.nanoTime();
+            drawFrame(chain, false, bilinear);
+            noMipNs += System.nanoTime() - start;
+            start = System.nanoTime();
+            drawFrame(chain, true, trilinear);
+            mipNs += System.nanoTime() - start;
+        }
+
+        double noMipPsnr = Etc1EncoderTest.psnr(reference, bilinear);
+        double mipPsnr = Etc1EncoderTest.psnr(reference, trilinear);
+        System.out.println(String.format("minify %d->%d: no mipmap %.1f us/frame psnr=%.1fdB, "
+                        + "mipmap %.1f us/frame psnr=%.1fdB",
+                TEXTURE_SIZE, TARGET_SIZE, noMipNs / 1000.0 / FRAMES, noMipPsnr, mipNs / 1000.0 / FRAMES, mipPsnr));
+        // 没有mipmap时高频细节混叠成噪声
+        assertTrue(mipPsnr > noMipPsnr + 6);
+    }
+
+    private static void drawFrame(MipChain chain, boolean mipmap, int[] out) {
+        float scale = (float) chain.getWidth(0) / TARGET_SIZE;
+        // 每个屏幕像素覆盖scale个纹素，lod = log2(scale)
+        float lod = mipmap ? (float) (Math.log(scale) / Math.log(2)) : 0;
+        for (int y = 0; y < TARGET_SIZE; y++) {
+            for (int x = 0; x < TARGET_SIZE; x++) {
+                float u = (x + 0.5f) / TARGET_SIZE;
+                float v = (y + 0.5f) / TARGET_SIZE;
+                out[y * TARGET_SIZE + x] = mipmap ? SoftwareSampler.trilinear(chain, u, v, lod)
+                        : SoftwareSampler.bilinear(chain, 0, u, v);
+            }
+        }
+    }
+
+    // 每个目标像素覆盖的源区域的平均值
+    private static int[] areaAverage(int[] src, int srcSize, int dstSize) {
+        int[] out = new int[dstSize * dstSize];
+        for (int y = 0; y < dstSize; y++) {
+            for (int x = 0; x < dstSize; x++) {
+                int x0 = x * srcSize / dstSize;
+                int x1 = (x + 1) * srcSize / dstSize;
+                int y0 = y * srcSize / dstSize;
+                int y1 = (y + 1) * srcSize / dstSize;
+                long r = 0;
+                long g = 0;
+                long b = 0;
+                for (int sy = y0; sy < y1; sy++) {
+                    for (int sx = x0; sx < x1; sx++) {
+                        int c = src[sy * srcSize + sx];
+                        r += (c >> 16) & 0xFF;
+                        g += (c >> 8) & 0xFF;
+                        b += c & 0xFF;
+                    }
+                }
+                long n = (long) (x1 - x0) * (y1 - y0);
+                out[y * dstSize + x] = 0xFF000000 | (int) (r / n) << 16 | (int) (g / n) << 8 | (int) (b / n);
+            }
+        }
+        return out;
+    }
+
+    // 细条纹 + 噪声，缩小后应接近均匀的灰色
+    private static int[] highFrequencyTexture(int size) {
+        Random random = new Random(11);
+        int[] pixels = new int[size * size];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int stripe = ((x / 3 + y / 2) & 1) == 0 ? 40 : 215;
+                int c = Math.min(255, Math.max(0, stripe + random.nextInt(31) - 15));
+                pixels[y * size + x] = 0xFF000000 | (c << 16) | (c << 8) | c;
+            }
+        }
+        return pixels;
+    }
+
+    // 与GLES的GL_LINEAR / GL_LINEAR_MIPMAP_LINEAR一致的采样，边缘CLAMP_TO_EDGE
+    static final class SoftwareSampler {
+
+        private SoftwareSampler() {
+        }
+
+        static int trilinear(MipChain chain, float u, float v, float lod) {
+            int maxLevel = chain.getLevelCount() - 1;
+            lod = Math.max(0, Math.min(lod, maxLevel));
+            int level = (int) lod;
+            float t = lod - level;
+            int a = bilinear(chain, level, u, v);
+            if (t == 0 || level == maxLevel) {
+                return a;
+            }
+            return lerp(a, bilinear(chain, level + 1, u, v), t);
+        }
+
+        static int bilinear(MipChain chain, int level, float u, float v) {
+            int w = chain.getWidth(level);
+            int h = chain.getHeight(level);
+            int[] pixels = chain.getPixels(level);
+            float x = u * w - 0.5f;
+            float y = v * h - 0.5f;
+            int x0 = (int) Math.floor(x);
+            int y0 = (int) Math.floor(y);
+            float fx = x - x0;
+            float fy = y - y0;
+            int x1 = clamp(x0 + 1, w);
+            int y1 = clamp(y0 + 1, h);
+            x0 = clamp(x0, w);
+            y0 = clamp(y0, h);
+            int top = lerp(pixels[y0 * w + x0], pixels[y0 * w + x1], fx);
+            int bottom = lerp(pixels[y1 * w + x0], pixels[y1 * w + x1], fx);
+            return lerp(top, bottom, fy);
+        }
+
+        private static int clamp(int i, int size) {
+            return i < 0 ? 0 : (i >= size ? size - 1 : i);
+        }
+
+        private static int lerp(int a, int b, float t) {
+            int result = 0;
+            for (int shift = 0; shift < 32; shift += 8) {
+                int ca = (a >>> shift) & 0xFF;
+                int cb = (b >>> shift) & 0xFF;
+                result |= Math.round(ca + (cb - ca) * t) << shift;
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.phj.opengl.texture;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * mipmap链的尺寸、gamma和并行一致性
+ */
+public class MipmapGeneratorTest {
+
+    private ExecutorService mExecutor;
+
+    @Before
+    public void setUp() {
+        mExecutor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdownNow();
+    }
+
+    @Test
+    public void nonPowerOfTwoChainEndsAtOneByOne() {
+        MipChain chain = new MipmapGenerator(MipmapGenerator.FILTER_BOX, true, null, 1)
+                .generate(new int[37 * 10], 37, 10);
+        // 37x10 -> 18x5 -> 9x2 -> 4x1 -> 2x1 -> 1x1
+        assertEquals(6, chain.getLevelCount());
+        int[][] sizes = {{37, 10}, {18, 5}, {9, 2}, {4, 1}, {2, 1}, {1, 1}};
+        for (int i = 0; i < sizes.length; i++) {
+            assertEquals(sizes[i][0], chain.getWidth(i));
+            assertEquals(sizes[i][1], chain.getHeight(i));
+            assertEquals(sizes[i][0] * sizes[i][1], chain.getPixels(i).length);
+        }
+    }
+
+    @Test
+    public void gammaAwareAverageOfBlackAndWhite() {
+        // 黑白棋盘格缩小后的线性平均为0.5，对应sRGB约188；直接平均sRGB值会得到偏暗的128
+        int[] pixels = new int[4 * 4];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = ((i + i / 4) & 1) == 0 ? 0xFF000000 : 0xFFFFFFFF;
+        }
+        int gamma = new MipmapGenerator(MipmapGenerator.FILTER_BOX, true, null, 1)
+                .generate(pixels, 4, 4).getPixels(1)[0];
+        int plain = new MipmapGenerator(MipmapGenerator.FILTER_BOX, false, null, 1)
+                .generate(pixels, 4, 4).getPixels(1)[0];
+        assertEquals(188, gamma & 0xFF, 1);
+        assertEquals(128, plain & 0xFF, 1);
+    }
+
+    @Test
+    public void transparentPixelsDoNotDarkenEdges() {
+        // 红色与全透明的黑色相邻，预乘后平均颜色仍为纯红，只有alpha减半
+        int[] pixels = {0xFFFF0000, 0x00000000, 0xFFFF0000, 0x00000000};
+        int c = new MipmapGenerator(MipmapGenerator.FILTER_BOX, true, null, 1)
+                .generate(pixels, 2, 2).getPixels(1)[0];
+        assertEquals(0xFF, (c >> 16) & 0xFF);
+        assertEquals(128, c >>> 24, 1);
+    }
+
+    @Test
+    public void parallelOutputMatchesSerial() {
+        int w = 83;
+        int h = 45;
+        int[] pixels = new int[w * h];
+        Random random = new Random(3);
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = random.nextInt();
+        }
+        for (int filter = MipmapGenerator.FILTER_BOX; filter <= MipmapGenerator.FILTER_KAISER; filter++) {
+            MipChain serial = new MipmapGenerator(filter, true, null, 1).generate(pixels, w, h);
+            MipChain parallel = new MipmapGenerator(filter, true, mExecutor, 4).generate(pixels, w, h);
+            for (int level = 0; level < serial.getLevelCount(); level++) {
+                assertArrayEquals(serial.getPixels(level), parallel.getPixels(level));
+            }
+        }
+    }
+}
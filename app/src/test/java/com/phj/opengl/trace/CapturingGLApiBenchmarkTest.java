@@ -0,0 +1,66 @@
+package com.phj.opengl.trace;
+
+import android.opengl.GLES20;
+
+import com.phj.opengl.gl.GLApi;
+import com.phj.opengl.testing.RecordingGLApi;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * 比较直接调用、没有抓取和正在抓取时每次GL调用的开销。GL用只计数的RecordingGLApi代替，测到的只是Java层的开销；
+ * 没有抓取时只多一次字段判空，抓取时的开销是编码到内存，不含结束后写文件。耗时只打印不断言
+ */
+public class CapturingGLApiBenchmarkTest {
+
+    private static final int CALLS = 2000000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    public void perCallOverhead() throws IOException {
+        RecordingGLApi direct = new RecordingGLApi();
+        CapturingGLApi capture = new CapturingGLApi(direct, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        File file = File.createTempFile("benchmark", TraceFormat.SUFFIX);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                long directNs = run(direct);
+                capture.beginFrame();
+                long offNs = run(capture);
+                capture.endFrame();
+                assertTrue(capture.requestCapture(file, 1, null));
+                capture.beginFrame();
+                long onNs = run(capture);
+                capture.endFrame();
+                System.out.println(String.format("gl call: direct %.2f ns, capture off %.2f ns, capture on %.2f ns, %.1f bytes/call",
+                        (double) directNs / CALLS, (double) offNs / CALLS, (double) onNs / CALLS,
+                        (double) file.length() / CALLS));
+            }
+        } finally {
+            file.delete();
+        }
+        assertEquals(ROUNDS * 3L * CALLS, direct.getCalls());
+    }
+
+    // 渲染循环中最常见的状态和uniform调用
+    private static long run(GLApi gl) {
+        long start = System.nanoTime();
+        for (int i = 0; i < CALLS; i += 4) {
+            gl.glBindBuffer(GLES20.GL_ARRAY_BUFFER, i & 7);
+            gl.glUniform4f(1, i, 0, 0, 1);
+            gl.glEnable(GLES20.GL_BLEND);
+            gl.glDisable(GLES20.GL_BLEND);
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,36 @@
+package com.phj.opengl.trace;
+
+import com.phj.opengl.testing.RecordingGLApi;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * 离线回放设备上抓取的文件：用-Pgltrace指定路径，没有指定时跳过。回放到只计数的GLApi上，
+ * 报告打印到标准输出并写到同目录下的.txt中，例如
+ * ./gradlew testDebugUnitTest --tests com.phj.opengl.trace.ReplayTraceFileTest -Pgltrace=/path/to/capture.gltrace
+ */
+public class ReplayTraceFileTest {
+
+    @Test
+    public void replay() throws IOException {
+        String path = System.getProperty("gltrace");
+        Assume.assumeTrue(path != null && !path.isEmpty());
+        File file = new File(path);
+        TraceReport report = new TraceReplayer(new RecordingGLApi()).replay(file);
+        String text = report.toString();
+        System.out.println(text);
+        Writer out = new OutputStreamWriter(new FileOutputStream(file.getPath() + ".txt"), "UTF-8");
+        try {
+            out.write(text);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.phj.opengl.trace;
+
+import android.opengl.GLES20;
+import android.opengl.GLSurfaceView;
+
+import com.phj.opengl.testing.RecordingGLApi;
+import com.phj.opengl.gl.GLResourceRegistry;
+import com.phj.opengl.gl.GpuMemoryAccountant;
+import com.phj.opengl.overdraw.OverdrawRender;
+import com.phj.opengl.scene.RenderContext;
+import com.phj.opengl.scene.SceneMultiplexer;
+import com.phj.opengl.scene.SceneRegistry;
+import com.phj.opengl.shader.ShaderLibrary;
+import com.phj.opengl.shader.ShaderSourceProvider;
+import com.phj.opengl.stroke.StrokeRender;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * 抓取后回放：调用数和上传量与抓取时一致，对象名和uniform位置映射为回放时新建的，冗余调用、截断的文件
+ */
+public class TraceReplayerTest {
+
+    // 在调用线程上写文件，endFrame返回时文件已写完
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private File mFile;
+    private int mFinishedFrames;
+    private IOException mError;
+    private final CapturingGLApi.Listener mListener = new CapturingGLApi.Listener() {
+        @Override
+        public void onCaptureFinished(File file, int frames, int bytes) {
+            mFinishedFrames = frames;
+        }
+
+        @Override
+        public void onCaptureFailed(File file, IOException e) {
+            mError = e;
+        }
+    };
+
+    @Before
+    public void setUp() throws IOException {
+        mFile = File.createTempFile("capture", TraceFormat.SUFFIX);
+        mFile.delete();
+    }
+
+    @After
+    public void tearDown() {
+        mFile.delete();
+    }
+
+    @Test
+    public void replaysCapturedScenesCallForCall() throws IOException {
+        RecordingGLApi device = new RecordingGLApi();
+        CapturingGLApi capture = new CapturingGLApi(device, DIRECT);
+        ShaderLibrary library = new ShaderLibrary(capture, new ShaderSourceProvider() {
+            @Override
+            public String load(String name) {
+                return "void main() {}\n";
+            }
+        });
+        RenderContext context = new RenderContext(library,
+                new GLResourceRegistry(capture, new GpuMemoryAccountant(64 * 1024 * 1024)));
+        SceneRegistry scenes = new SceneRegistry();
+        scenes.register("stroke", new SceneRegistry.Factory() {
+            @Override
+            public GLSurfaceView.Renderer create(RenderContext rc) {
+                return new StrokeRender(rc.getShaderLibrary(), rc.getResourceRegistry(), 4);
+            }
+        });
+        scenes.register("overdraw", new SceneRegistry.Factory() {
+            @Override
+            public GLSurfaceView.Renderer create(RenderContext rc) {
+                return new OverdrawRender(rc.getShaderLibrary());
+            }
+        });
+        SceneMultiplexer multiplexer = new SceneMultiplexer(context, scenes, "stroke");
+        multiplexer.setCapture(capture);
+        multiplexer.onSurfaceCreated(null, null);
+        multiplexer.onSurfaceChanged(null, 720, 1280);
+        // 没有请求时不记录
+        multiplexer.onDrawFrame(null);
+        assertFalse(mFile.exists());
+
+        assertTrue(capture.requestCapture(mFile, 3, mListener));
+        assertFalse(capture.requestCapture(mFile, 1, mListener));
+        long[] calls = new long[3];
+        long[] uploads = new long[3];
+        for (int i = 0; i < 3; i++) {
+            if (i == 1) {
+                // 切换场景，抓取中包含新场景的program创建
+                multiplexer.select("overdraw");
+            }
+            device.reset();
+            multiplexer.onDrawFrame(null);
+            calls[i] = device.getCalls();
+            uploads[i] = device.getUploadBytes();
+        }
+        assertNull(mError);
+        assertEquals(3, mFinishedFrames);
+        assertFalse(capture.isCapturing());
+        long length = mFile.length();
+        multiplexer.onDrawFrame(null);
+        assertEquals(length, mFile.length());
+
+        RecordingGLApi replay = new RecordingGLApi();
+        TraceReport report = new TraceReplayer(replay).replay(mFile);
+        assertEquals(3, report.getFrameCount());
+        assertEquals(length, report.getTraceBytes());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(calls[i], report.getFrameCalls(i));
+            assertEquals(uploads[i], report.getFrameUploadBytes(i));
+        }
+        assertEquals(calls[0] + calls[1] + calls[2], replay.getCalls());
+        assertTrue(uploads[0] > 0);
+        assertEquals(1, report.getCount(TraceFormat.OP_CREATE_PROGRAM));
+        assertTrue(report.toString(), report.toString().contains("glDrawArrays"));
+    }
+
+    @Test
+    public void mapsNamesCreatedDuringCapture() throws IOException {
+        RecordingGLApi device = new RecordingGLApi();
+        // 设备上已经建过一些对象，抓取中新建的名字与回放时的不同
+        device.glGenBuffers(3, new int[3], 0);
+        device.glCreateProgram();
+        CapturingGLApi capture = new CapturingGLApi(device, DIRECT);
+        capture.requestCapture(mFile, 1, mListener);
+        capture.beginFrame();
+        int[] buffers = new int[1];
+        capture.glGenBuffers(1, buffers, 0);
+        capture.glBindBuffer(GLES20.GL_ARRAY_BUFFER, buffers[0]);
+        // 抓取之前就有的对象按原来的名字使用
+        capture.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 2);
+        int program = capture.glCreateProgram();
+        capture.glUseProgram(program);
+        int location = capture.glGetUniformLocation(program, "vColor");
+        capture.glUniform4f(location, 1, 0, 0, 1);
+        capture.glDeleteBuffers(1, buffers, 0);
+        capture.endFrame();
+
+        LoggingGLApi target = new LoggingGLApi();
+        new TraceReplayer(target).replay(mFile);
+        int replayed = location + 100;
+        assertEquals(Arrays.asList("genBuffers 1", "bindBuffer 1", "bindBuffer 2", "createProgram 2",
+                "useProgram 2", "uniformLocation " + replayed, "uniform4f " + replayed, "deleteBuffers 1"), target.log);
+    }
+
+    @Test
+    public void countsRedundantStateChanges() throws IOException {
+        CapturingGLApi capture = new CapturingGLApi(new RecordingGLApi(), DIRECT);
+        capture.requestCapture(mFile, 2, mListener);
+        capture.beginFrame();
+        capture.glUseProgram(3);
+        capture.glUseProgram(3);
+        capture.glEnable(GLES20.GL_BLEND);
+        capture.glEnable(GLES20.GL_BLEND);
+        capture.glDisable(GLES20.GL_BLEND);
+        capture.glEnable(GLES20.GL_DEPTH_TEST);
+        capture.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 4);
+        capture.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, 4);
+        capture.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 4);
+        capture.glUniform4f(1, 1, 2, 3, 4);
+        capture.glUniform4f(1, 1, 2, 3, 4);
+        capture.glUniform4f(1, 1, 2, 3, 5);
+        capture.glUniform4fv(1, 1, new float[]{0, 1, 2, 3, 5}, 1);
+        capture.glViewport(0, 0, 720, 1280);
+        capture.glViewport(0, 0, 720, 1280);
+        capture.glVertexAttribPointer(0, 3, GLES20.GL_FLOAT, false, 12, 0);
+        capture.glVertexAttribPointer(0, 3, GLES20.GL_FLOAT, false, 12, 0);
+        capture.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 5);
+        capture.glVertexAttribPointer(0, 3, GLES20.GL_FLOAT, false, 12, 0);
+        capture.endFrame();
+        capture.beginFrame();
+        // 状态跨帧保留；重新链接后uniform恢复默认值
+        capture.glUseProgram(3);
+        capture.glLinkProgram(3);
+        capture.glUniform4f(1, 1, 2, 3, 5);
+        capture.endFrame();
+
+        TraceReport report = new TraceReplayer(new RecordingGLApi()).replay(mFile);
+        assertEquals(2, report.getRedundant(TraceFormat.OP_USE_PROGRAM));
+        assertEquals(1, report.getRedundant(TraceFormat.OP_ENABLE));
+        assertEquals(0, report.getRedundant(TraceFormat.OP_DISABLE));
+        assertEquals(1, report.getRedundant(TraceFormat.OP_BIND_BUFFER));
+        assertEquals(1, report.getRedundant(TraceFormat.OP_UNIFORM_4F));
+        assertEquals(1, report.getRedundant(TraceFormat.OP_UNIFORM_4FV));
+        assertEquals(1, report.getRedundant(TraceFormat.OP_VIEWPORT));
+        assertEquals(1, report.getRedundant(TraceFormat.OP_VERTEX_ATTRIB_POINTER_OFFSET));
+        assertEquals(7, report.getFrameRedundant(0));
+        assertEquals(1, report.getFrameRedundant(1));
+        assertEquals(8, report.getRedundantCount());
+    }
+
+    @Test
+    public void replaysPayloadsInNativeOrder() throws IOException {
+        CapturingGLApi capture = new CapturingGLApi(new RecordingGLApi(), DIRECT);
+        capture.requestCapture(mFile, 1, mListener);
+        capture.beginFrame();
+        FloatBuffer vertices = ByteBuffer.allocateDirect(8 * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        vertices.put(new float[]{9, 9, 1, 2, 3, 4, 5, 6}).position(2);
+        // size之外的数据不写
+        capture.glBufferData(GLES20.GL_ARRAY_BUFFER, 4 * 4, vertices, GLES20.GL_STATIC_DRAW);
+        capture.glTexImage2D(GLES20.GL_TEXTURE_2D, 0, GLES20.GL_RGBA, 64, 64, 0, GLES20.GL_RGBA,
+                GLES20.GL_UNSIGNED_BYTE, null);
+        ShortBuffer indices = ShortBuffer.wrap(new short[]{0, 1, 2});
+        capture.glDrawElements(GLES20.GL_TRIANGLES, 3, GLES20.GL_UNSIGNED_SHORT, indices);
+        capture.endFrame();
+        assertEquals(2, vertices.position());
+
+        LoggingGLApi target = new LoggingGLApi();
+        TraceReport report = new TraceReplayer(target).replay(mFile);
+        assertEquals(16, report.getUploadBytes(TraceFormat.OP_BUFFER_DATA));
+        assertEquals(0, report.getUploadBytes(TraceFormat.OP_TEX_IMAGE_2D));
+        assertEquals(16, report.getUploadBytes());
+        assertEquals(1, report.getFrameDraws(0));
+        ByteBuffer data = (ByteBuffer) target.payloads.get(0);
+        assertEquals(16, data.remaining());
+        FloatBuffer floats = data.order(ByteOrder.nativeOrder()).asFloatBuffer();
+        assertEquals(1f, floats.get(0), 0);
+        assertEquals(4f, floats.get(3), 0);
+        assertNull(target.payloads.get(1));
+        ByteBuffer index = (ByteBuffer) target.payloads.get(2);
+        assertEquals(6, index.remaining());
+        assertEquals(2, index.order(ByteOrder.nativeOrder()).asShortBuffer().get(2));
+    }
+
+    @Test
+    public void rejectsInvalidTraces() throws IOException {
+        TraceReplayer replayer = new TraceReplayer(new RecordingGLApi());
+        try {
+            replayer.replay(new byte[]{1, 2, 3, 4, 5}, 5);
+            fail();
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("not a gl trace"));
+        }
+
+        CapturingGLApi capture = new CapturingGLApi(new RecordingGLApi(), DIRECT);
+        capture.requestCapture(mFile, 1, mListener);
+        capture.beginFrame();
+        capture.glUniformMatrix4fv(0, 1, false, new float[16], 0);
+        capture.endFrame();
+        byte[] data = Files.readAllBytes(mFile.toPath());
+        try {
+            replayer.replay(data, data.length - 8);
+            fail();
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("truncated trace at byte"));
+        }
+    }
+
+    @Test
+    public void reportsWriteFailure() throws IOException {
+        // 父路径是文件，无法创建目录
+        FileOutputStream out = new FileOutputStream(mFile);
+        out.close();
+        CapturingGLApi capture = new CapturingGLApi(new RecordingGLApi(), DIRECT);
+        assertTrue(capture.requestCapture(new File(mFile, "capture" + TraceFormat.SUFFIX), 1, mListener));
+        capture.beginFrame();
+        capture.glClear(GLES20.GL_COLOR_BUFFER_BIT);
+        capture.endFrame();
+        assertNotNull(mError);
+        assertFalse(capture.isCapturing());
+    }
+
+    // 记录关心的调用，uniform位置加100以区分抓取时的位置
+    private static final class LoggingGLApi extends RecordingGLApi {
+        final ArrayList<String> log = new ArrayList<>();
+        final ArrayList<Buffer> payloads = new ArrayList<>();
+
+        @Override
+        public void glGenBuffers(int n, int[] buffers, int offset) {
+            super.glGenBuffers(n, buffers, offset);
+            log.add("genBuffers " + buffers[offset]);
+        }
+
+        @Override
+        public void glDeleteBuffers(int n, int[] buffers, int offset) {
+            log.add("deleteBuffers " + buffers[offset]);
+        }
+
+        @Override
+        public void glBindBuffer(int target, int buffer) {
+            log.add("bindBuffer " + buffer);
+        }
+
+        @Override
+        public int glCreateProgram() {
+            int program = super.glCreateProgram();
+            log.add("createProgram " + program);
+            return program;
+        }
+
+        @Override
+        public void glUseProgram(int program) {
+            log.add("useProgram " + program);
+        }
+
+        @Override
+        public int glGetUniformLocation(int program, String name) {
+            int location = super.glGetUniformLocation(program, name) + 100;
+            log.add("uniformLocation " + location);
+            return location;
+        }
+
+        @Override
+        public void glUniform4f(int location, float x, float y, float z, float w) {
+            log.add("uniform4f " + location);
+        }
+
+        @Override
+        public void glBufferData(int target, int size, Buffer data, int usage) {
+            payloads.add(data);
+        }
+
+        @Override
+        public void glTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                                 int format, int type, Buffer pixels) {
+            payloads.add(pixels);
+        }
+
+        @Override
+        public void glDrawElements(int mode, int count, int type, Buffer indices) {
+            super.glDrawElements(mode, count, type, indices);
+            payloads.add(indices);
+        }
+    }
+}
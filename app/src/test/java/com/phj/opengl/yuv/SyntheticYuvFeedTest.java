@@ -0,0 +1,53 @@
+package com.phj.opengl.yuv;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * 合成帧的提交、重绘请求，以及上一帧还没生成完时忽略新的请求
+ */
+public class SyntheticYuvFeedTest {
+
+    @Test
+    public void submitsFrameThenRequestsRender() {
+        final ArrayList<Runnable> queued = new ArrayList<>();
+        Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                queued.add(command);
+            }
+        };
+        final int[] requests = new int[1];
+        YuvFrameSource source = new YuvFrameSource();
+        SyntheticYuvFeed feed = new SyntheticYuvFeed(new SyntheticYuvGenerator(16, 8, YuvColorSpace.BT601),
+                source, executor, new Runnable() {
+            @Override
+            public void run() {
+                requests[0]++;
+            }
+        });
+
+        feed.requestFrame();
+        // 还在生成中
+        feed.requestFrame();
+        assertEquals(1, queued.size());
+        queued.remove(0).run();
+        assertEquals(1, requests[0]);
+        assertEquals(1, source.getSubmittedCount());
+        YuvFrame frame = source.acquireLatest();
+        assertNotNull(frame);
+        assertEquals(16, frame.getWidth());
+        assertEquals(8, frame.getHeight());
+        assertTrue(frame.isVFirst());
+
+        feed.requestFrame();
+        assertEquals(1, queued.size());
+        queued.remove(0).run();
+        assertEquals(2, requests[0]);
+        assertEquals(2, source.getSubmittedCount());
+    }
+}
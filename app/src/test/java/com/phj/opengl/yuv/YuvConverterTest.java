@@ -0,0 +1,113 @@
+package com.phj.opengl.yuv;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * 用合成的彩条帧验证CPU参考转换，并检查着色器矩阵与参考转换一致
+ */
+public class YuvConverterTest {
+
+    private static final YuvColorSpace[] COLOR_SPACES = {
+            YuvColorSpace.BT601, YuvColorSpace.BT601_FULL, YuvColorSpace.BT709, YuvColorSpace.BT709_FULL,
+    };
+
+    private static YuvFrame nv21Frame(SyntheticYuvGenerator generator, int index) {
+        byte[] nv21 = new byte[YuvConverter.nv21Size(generator.getWidth(), generator.getHeight())];
+        generator.generateNv21(index, nv21);
+        YuvFrameSource source = new YuvFrameSource();
+        source.submitNv21(nv21, generator.getWidth(), generator.getHeight(), 0);
+        return source.acquireLatest();
+    }
+
+    private static int maxChannelError(int a, int b) {
+        int error = 0;
+        for (int shift = 0; shift <= 16; shift += 8) {
+            error = Math.max(error, Math.abs(((a >> shift) & 0xFF) - ((b >> shift) & 0xFF)));
+        }
+        return error;
+    }
+
+    @Test
+    public void syntheticFramesRoundTrip() {
+        for (YuvColorSpace colorSpace : COLOR_SPACES) {
+            // 奇数尺寸，最后一列和最后一行的色度块不完整
+            SyntheticYuvGenerator generator = new SyntheticYuvGenerator(67, 37, colorSpace);
+            int[] expected = new int[67 * 37];
+            int[] actual = new int[67 * 37];
+            for (int index = 0; index < 3; index++) {
+                generator.generateArgb(index, expected);
+                YuvConverter.toArgb(nv21Frame(generator, index), colorSpace, actual);
+                for (int i = 0; i < expected.length; i++) {
+                    assertTrue(colorSpace + " pixel " + i, maxChannelError(expected[i], actual[i]) <= 2);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void i420AndNv21GiveSameFrame() {
+        SyntheticYuvGenerator generator = new SyntheticYuvGenerator(16, 8, YuvColorSpace.BT709);
+        byte[] y = new byte[16 * 8];
+        byte[] u = new byte[8 * 4];
+        byte[] v = new byte[8 * 4];
+        generator.generateI420(5, y, u, v);
+        YuvFrameSource source = new YuvFrameSource();
+        source.submitI420(ByteBuffer.wrap(y), 16, ByteBuffer.wrap(u), 8, ByteBuffer.wrap(v), 8, 16, 8, 0);
+        YuvFrame i420 = source.acquireLatest();
+        assertTrue(i420.isVFirst());
+        YuvFrame nv21 = nv21Frame(generator, 5);
+        assertEquals(nv21.getLuma(), i420.getLuma());
+        assertEquals(nv21.getChroma(), i420.getChroma());
+    }
+
+    @Test
+    public void shaderMatrixMatchesReference() {
+        float[] matrix = new float[9];
+        float[] offset = new float[3];
+        int seed = 12345;
+        for (YuvColorSpace colorSpace : COLOR_SPACES) {
+            for (boolean vFirst : new boolean[]{false, true}) {
+                colorSpace.getMatrix(vFirst, matrix, 0);
+                colorSpace.getOffset(offset, 0);
+                for (int n = 0; n < 1000; n++) {
+                    seed = seed * 1103515245 + 12345;
+                    int y = (seed >>> 8) & 0xFF;
+                    int u = (seed >>> 16) & 0xFF;
+                    int v = (seed >>> 24) & 0xFF;
+                    // 色度纹理的亮度和alpha通道
+                    float[] in = {y / 255f, (vFirst ? v : u) / 255f, (vFirst ? u : v) / 255f};
+                    int argb = 0xFF000000;
+                    for (int row = 0; row < 3; row++) {
+                        float value = 0;
+                        for (int col = 0; col < 3; col++) {
+                            value += matrix[col * 3 + row] * (in[col] - offset[col]);
+                        }
+                        int channel = Math.round(Math.max(0, Math.min(1, value)) * 255);
+                        argb |= channel << (16 - row * 8);
+                    }
+                    assertTrue(maxChannelError(colorSpace.toArgb(y, u, v), argb) <= 1);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void colorSpacesDecodeDifferently() {
+        YuvColorSpace bt601 = YuvColorSpace.BT601;
+        int y = bt601.toY(191, 0, 0);
+        int u = bt601.toU(191, 0, 0);
+        int v = bt601.toV(191, 0, 0);
+        assertTrue(maxChannelError(0xFFBF0000, bt601.toArgb(y, u, v)) <= 1);
+        // 按BT.709解释BT.601的红色，绿色偏差明显
+        assertTrue(maxChannelError(0xFFBF0000, YuvColorSpace.BT709.toArgb(y, u, v)) > 10);
+        // 有限范围的黑白
+        assertEquals(16, bt601.toY(0, 0, 0));
+        assertEquals(235, bt601.toY(255, 255, 255));
+        assertEquals(0, YuvColorSpace.BT601_FULL.toY(0, 0, 0));
+        assertEquals(255, YuvColorSpace.BT601_FULL.toY(255, 255, 255));
+    }
+}
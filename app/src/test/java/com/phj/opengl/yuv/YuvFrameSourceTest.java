@@ -0,0 +1,140 @@
+package com.phj.opengl.yuv;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * 验证三缓冲的取帧、丢帧和跨线程时帧内容的完整性
+ */
+public class YuvFrameSourceTest {
+
+    private static final int WIDTH = 6;
+    private static final int HEIGHT = 4;
+
+    // 整帧的Y都是value，色度都是~value
+    private static byte[] uniform(int value) {
+        byte[] nv21 = new byte[YuvConverter.nv21Size(WIDTH, HEIGHT)];
+        for (int i = 0; i < nv21.length; i++) {
+            nv21[i] = (byte) (i < WIDTH * HEIGHT ? value : ~value);
+        }
+        return nv21;
+    }
+
+    private static boolean isUniform(YuvFrame frame, int value) {
+        ByteBuffer luma = frame.getLuma();
+        ByteBuffer chroma = frame.getChroma();
+        for (int i = 0; i < luma.limit(); i++) {
+            if (luma.get(i) != (byte) value) {
+                return false;
+            }
+        }
+        for (int i = 0; i < chroma.limit(); i++) {
+            if (chroma.get(i) != (byte) ~value) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Test
+    public void newestFrameWins() {
+        YuvFrameSource source = new YuvFrameSource();
+        assertNull(source.acquireLatest());
+        assertNull(source.getCurrent());
+        for (int i = 1; i <= 3; i++) {
+            source.submitNv21(uniform(i), WIDTH, HEIGHT, i * 1000L);
+        }
+        YuvFrame frame = source.acquireLatest();
+        assertEquals(3, frame.getSequence());
+        assertEquals(3000L, frame.getTimestampNs());
+        assertTrue(isUniform(frame, 3));
+        assertEquals(2, source.getDroppedCount());
+        // 没有新帧
+        assertNull(source.acquireLatest());
+        assertSame(frame, source.getCurrent());
+    }
+
+    @Test
+    public void producerNeverWritesFrontFrame() {
+        YuvFrameSource source = new YuvFrameSource();
+        source.submitNv21(uniform(7), WIDTH, HEIGHT, 0);
+        YuvFrame front = source.acquireLatest();
+        for (int i = 0; i < 10; i++) {
+            source.submitNv21(uniform(20 + i), WIDTH, HEIGHT, 0);
+            assertTrue(isUniform(front, 7));
+        }
+        assertTrue(isUniform(source.acquireLatest(), 29));
+    }
+
+    @Test
+    public void i420PlanesWithPaddingAreInterleavedAsVu() {
+        // 4x2，Y行跨度6，U、V行跨度4
+        byte[] y = new byte[12];
+        for (int i = 0; i < y.length; i++) {
+            y[i] = (byte) i;
+        }
+        byte[] u = {10, 11, 0, 0};
+        byte[] v = {20, 21, 0, 0};
+        YuvFrameSource source = new YuvFrameSource();
+        source.submitI420(ByteBuffer.wrap(y), 6, ByteBuffer.wrap(u), 4, ByteBuffer.wrap(v), 4, 4, 2, 0);
+        YuvFrame frame = source.acquireLatest();
+        ByteBuffer luma = frame.getLuma();
+        assertEquals(8, luma.remaining());
+        byte[] expectedLuma = {0, 1, 2, 3, 6, 7, 8, 9};
+        for (int i = 0; i < expectedLuma.length; i++) {
+            assertEquals(expectedLuma[i], luma.get(i));
+        }
+        ByteBuffer chroma = frame.getChroma();
+        assertEquals(4, chroma.remaining());
+        assertEquals(20, chroma.get(0));
+        assertEquals(10, chroma.get(1));
+        assertEquals(21, chroma.get(2));
+        assertEquals(11, chroma.get(3));
+    }
+
+    @Test
+    public void concurrentProducerNeverTearsFrames() throws Exception {
+        final YuvFrameSource source = new YuvFrameSource();
+        final int frames = 5000;
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    byte[][] data = new byte[256][];
+                    for (int i = 0; i < data.length; i++) {
+                        data[i] = uniform(i);
+                    }
+                    for (int i = 1; i <= frames; i++) {
+                        source.submitNv21(data[i & 0xFF], WIDTH, HEIGHT, i);
+                    }
+                } catch (Throwable t) {
+                    error.set(t);
+                }
+            }
+        });
+        producer.start();
+        long last = 0;
+        int acquired = 0;
+        while (last < frames) {
+            YuvFrame frame = source.acquireLatest();
+            if (frame == null) {
+                Thread.yield();
+                continue;
+            }
+            assertTrue(frame.getSequence() > last);
+            last = frame.getSequence();
+            assertEquals(last, frame.getTimestampNs());
+            assertTrue(isUniform(frame, (int) last));
+            acquired++;
+        }
+        producer.join();
+        assertNull(error.get());
+        assertEquals(frames, source.getSubmittedCount());
+        assertEquals(frames - acquired, source.getDroppedCount());
+    }
+}
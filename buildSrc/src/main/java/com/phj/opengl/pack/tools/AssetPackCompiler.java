@@ -0,0 +1,146 @@
+package com.phj.opengl.pack.tools;
+
+import com.phj.opengl.pack.AssetPackFormat;
+import com.phj.opengl.pack.AssetPackWriter;
+import com.phj.opengl.pack.VertexLayout;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+
+import javax.imageio.ImageIO;
+
+/**
+ * 描述：构建时把资源描述文件编译为.pack资源包，由app/build.gradle中的buildAssetPacks任务调用
+ * 描述文件为文本，#开头为注释：
+ * <pre>
+ * vertices triangle vPosition:3 aTextureCoord:2   # 交错顶点，属性名:分量数，数据到end为止
+ * -0.5 1.0 0.0  0.0 1.0
+ * ...
+ * end
+ * indices triangle                                # 16位索引
+ * 0 1 2
+ * end
+ * texture photo images/photo.png                  # PNG按预乘RGBA8存放，路径相对描述文件
+ * </pre>
+ * Created by PHJ on 2026/10/19.
+ */
+
+public final class AssetPackCompiler {
+
+    private AssetPackCompiler() {
+    }
+
+    /**
+     * 编译srcDir下所有的.txt描述文件，输出同名的.pack
+     */
+    public static void compileAll(File srcDir, File outDir) throws IOException {
+        File[] files = srcDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(".txt")) {
+                compile(file, new File(outDir, name.substring(0, name.length() - 4) + ".pack"));
+            }
+        }
+    }
+
+    public static void compile(File source, File out) throws IOException {
+        AssetPackWriter writer = new AssetPackWriter();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(source), "UTF-8"));
+        try {
+            int lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String[] tokens = tokens(line);
+                if (tokens.length == 0) {
+                    continue;
+                }
+                String where = source.getName() + ":" + lineNumber;
+                if (tokens[0].equals("vertices") && tokens.length >= 3) {
+                    VertexLayout layout = new VertexLayout();
+                    for (int i = 2; i < tokens.length; i++) {
+                        String[] attribute = tokens[i].split(":");
+                        layout.add(attribute[0], Integer.parseInt(attribute[1]), AssetPackFormat.GL_FLOAT);
+                    }
+                    ArrayList<String> values = readUntilEnd(reader, where);
+                    float[] data = new float[values.size()];
+                    for (int i = 0; i < data.length; i++) {
+                        data[i] = Float.parseFloat(values.get(i));
+                    }
+                    writer.addVertices(tokens[1], layout, data);
+                } else if (tokens[0].equals("indices") && tokens.length == 2) {
+                    ArrayList<String> values = readUntilEnd(reader, where);
+                    int[] data = new int[values.size()];
+                    for (int i = 0; i < data.length; i++) {
+                        data[i] = Integer.parseInt(values.get(i));
+                    }
+                    writer.addIndices(tokens[1], data);
+                } else if (tokens[0].equals("texture") && tokens.length == 3) {
+                    addTexture(writer, tokens[1], new File(source.getParentFile(), tokens[2]));
+                } else {
+                    throw new IOException(where + ": unexpected '" + line.trim() + "'");
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        writer.write(out);
+    }
+
+    private static void addTexture(AssetPackWriter writer, String name, File file) throws IOException {
+        BufferedImage image = ImageIO.read(file);
+        if (image == null) {
+            throw new IOException("unsupported image " + file);
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        byte[] rgba = new byte[width * height * 4];
+        int i = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int c = image.getRGB(x, y);
+                int a = c >>> 24;
+                // 与GLUtils#texImage2D一致，按预乘alpha存放
+                rgba[i++] = (byte) (((c >> 16) & 0xFF) * a / 255);
+                rgba[i++] = (byte) (((c >> 8) & 0xFF) * a / 255);
+                rgba[i++] = (byte) ((c & 0xFF) * a / 255);
+                rgba[i++] = (byte) a;
+            }
+        }
+        writer.addTexture(name, AssetPackFormat.GL_RGBA, AssetPackFormat.GL_RGBA, AssetPackFormat.GL_UNSIGNED_BYTE,
+                new int[]{width}, new int[]{height}, new byte[][]{rgba});
+    }
+
+    private static ArrayList<String> readUntilEnd(BufferedReader reader, String where) throws IOException {
+        ArrayList<String> values = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String[] tokens = tokens(line);
+            if (tokens.length == 1 && tokens[0].equals("end")) {
+                return values;
+            }
+            for (String token : tokens) {
+                values.add(token);
+            }
+        }
+        throw new IOException(where + ": missing end");
+    }
+
+    // 去掉注释后按空白切分
+    private static String[] tokens(String line) {
+        int comment = line.indexOf('#');
+        if (comment >= 0) {
+            line = line.substring(0, comment);
+        }
+        line = line.trim();
+        return line.isEmpty() ? new String[0] : line.split("\\s+");
+    }
+}